@@ -41,8 +41,10 @@ public class BenchmarkSuite
                 new PredicateFilterBenchmark(localQueryRunner),
                 new RawStreamingBenchmark(localQueryRunner),
                 new Top100Benchmark(localQueryRunner),
+                new Top100Benchmark(localQueryRunner, 10_000),
                 new OrderByBenchmark(localQueryRunner),
                 new HashBuildBenchmark(localQueryRunner),
+                new HashBuildBenchmark(localQueryRunner, 4),
                 new HashJoinBenchmark(localQueryRunner),
                 new HashBuildAndJoinBenchmark(localQueryRunner),
                 new HandTpchQuery1(localQueryRunner),
@@ -65,6 +67,9 @@ public class BenchmarkSuite
                 new SqlTpchQuery1(localQueryRunner),
                 new SqlTpchQuery6(localQueryRunner),
                 new SqlLikeBenchmark(localQueryRunner),
+                new SqlLikeBenchmark.PrefixBenchmark(localQueryRunner),
+                new SqlLikeBenchmark.SuffixBenchmark(localQueryRunner),
+                new SqlLikeBenchmark.ContainsBenchmark(localQueryRunner),
                 new SqlInBenchmark(localQueryRunner),
                 new SqlSemiJoinInPredicateBenchmark(localQueryRunner),
                 new SqlRegexpLikeBenchmark(localQueryRunner),
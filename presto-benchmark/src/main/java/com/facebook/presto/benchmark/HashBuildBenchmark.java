@@ -17,36 +17,108 @@ import com.facebook.presto.operator.Driver;
 import com.facebook.presto.operator.DriverFactory;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
 import com.facebook.presto.operator.OperatorFactory;
+import com.facebook.presto.operator.ParallelHashBuilder;
 import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.LocalQueryRunner;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.Futures;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Future;
 
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
+import static com.google.common.base.Preconditions.checkArgument;
 
 public class HashBuildBenchmark
         extends AbstractOperatorBenchmark
 {
+    private final int buildConcurrency;
+
     public HashBuildBenchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "hash_build", 4, 5);
+        this(localQueryRunner, 1);
+    }
+
+    /**
+     * @param buildConcurrency number of drivers building the hash table; when greater than one,
+     * the build side is collected by one driver and the partitions are built in parallel
+     */
+    public HashBuildBenchmark(LocalQueryRunner localQueryRunner, int buildConcurrency)
+    {
+        super(localQueryRunner, buildConcurrency == 1 ? "hash_build" : "hash_build_parallel_" + buildConcurrency, 4, 5);
+        checkArgument(buildConcurrency > 0, "buildConcurrency must be at least 1");
+        this.buildConcurrency = buildConcurrency;
     }
 
     @Override
     protected List<Driver> createDrivers(TaskContext taskContext)
     {
         OperatorFactory ordersTableScan = createTableScanOperator(0, "orders", "orderkey", "totalprice");
-        HashBuilderOperatorFactory hashBuilder = new HashBuilderOperatorFactory(1, ordersTableScan.getTypes(), Ints.asList(0), 1_500_000);
+        if (buildConcurrency == 1) {
+            HashBuilderOperatorFactory hashBuilder = new HashBuilderOperatorFactory(1, ordersTableScan.getTypes(), Ints.asList(0), 1_500_000);
+
+            DriverFactory driverFactory = new DriverFactory(true, true, ordersTableScan, hashBuilder);
+            Driver driver = driverFactory.createDriver(taskContext.addPipelineContext(true, true).addDriverContext());
+            return ImmutableList.of(driver);
+        }
+
+        ParallelHashBuilder parallelHashBuilder = new ParallelHashBuilder(ordersTableScan.getTypes(), Ints.asList(0), Optional.<Integer>absent(), buildConcurrency, 1_500_000);
+
+        ImmutableList.Builder<Driver> drivers = ImmutableList.builder();
+        DriverFactory collectDriverFactory = new DriverFactory(true, false, ordersTableScan, parallelHashBuilder.getCollectOperatorFactory(1));
+        drivers.add(collectDriverFactory.createDriver(taskContext.addPipelineContext(true, false).addDriverContext()));
+        for (int partition = 0; partition < buildConcurrency; partition++) {
+            DriverFactory buildDriverFactory = new DriverFactory(
+                    false,
+                    true,
+                    new ValuesOperatorFactory(0, ImmutableList.<Type>of(), ImmutableList.<Page>of()),
+                    parallelHashBuilder.getBuildOperatorFactory(1, partition));
+            drivers.add(buildDriverFactory.createDriver(taskContext.addPipelineContext(false, true).addDriverContext()));
+        }
+        return drivers.build();
+    }
 
-        DriverFactory driverFactory = new DriverFactory(true, true, ordersTableScan, hashBuilder);
-        Driver driver = driverFactory.createDriver(taskContext.addPipelineContext(true, true).addDriverContext());
-        return ImmutableList.of(driver);
+    @Override
+    protected void execute(TaskContext taskContext)
+    {
+        List<Driver> drivers = createDrivers(taskContext);
+
+        // the first driver reads the build side, and the remaining drivers build the partitions in parallel
+        runToCompletion(drivers.get(0));
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (final Driver driver : drivers.subList(1, drivers.size())) {
+            futures.add(localQueryRunner.getExecutor().submit(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    runToCompletion(driver);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            Futures.getUnchecked(future);
+        }
+    }
+
+    private static void runToCompletion(Driver driver)
+    {
+        while (!driver.isFinished()) {
+            driver.process();
+        }
     }
 
     public static void main(String[] args)
     {
-        new HashBuildBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new HashBuildBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new HashBuildBenchmark(localQueryRunner, 4).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
     }
 }
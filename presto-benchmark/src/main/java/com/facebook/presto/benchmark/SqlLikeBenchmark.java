@@ -27,6 +27,37 @@ public class SqlLikeBenchmark
 
     public static void main(String[] args)
     {
-        new SqlLikeBenchmark(createLocalQueryRunner()).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        LocalQueryRunner localQueryRunner = createLocalQueryRunner();
+        new SqlLikeBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new PrefixBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new SuffixBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+        new ContainsBenchmark(localQueryRunner).runBenchmark(new SimpleLineBenchmarkResultWriter(System.out));
+    }
+
+    public static class PrefixBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public PrefixBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_like_prefix", 4, 5, "SELECT orderkey FROM lineitem WHERE comment LIKE 'careful%'");
+        }
+    }
+
+    public static class SuffixBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public SuffixBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_like_suffix", 4, 5, "SELECT orderkey FROM lineitem WHERE comment LIKE '%deposits'");
+        }
+    }
+
+    public static class ContainsBenchmark
+            extends AbstractSqlBenchmark
+    {
+        public ContainsBenchmark(LocalQueryRunner localQueryRunner)
+        {
+            super(localQueryRunner, "sql_like_contains", 4, 5, "SELECT orderkey FROM lineitem WHERE comment LIKE '%ironic%'");
+        }
     }
 }
@@ -22,13 +22,27 @@ import java.util.List;
 
 import static com.facebook.presto.benchmark.BenchmarkQueryRunner.createLocalQueryRunner;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.google.common.base.Preconditions.checkArgument;
 
 public class Top100Benchmark
         extends AbstractSimpleOperatorBenchmark
 {
+    private final int n;
+
     public Top100Benchmark(LocalQueryRunner localQueryRunner)
     {
-        super(localQueryRunner, "top100", 5, 50);
+        this(localQueryRunner, 100);
+    }
+
+    /**
+     * @param n number of rows to keep; large values stress the candidate heap rather than the
+     * rejection of rows that are not in the top N
+     */
+    public Top100Benchmark(LocalQueryRunner localQueryRunner, int n)
+    {
+        super(localQueryRunner, "top" + n, 5, 50);
+        checkArgument(n > 0, "n must be at least 1");
+        this.n = n;
     }
 
     @Override
@@ -38,7 +52,7 @@ public class Top100Benchmark
         TopNOperatorFactory topNOperator = new TopNOperatorFactory(
                 1,
                 tableScanOperator.getTypes(),
-                100,
+                n,
                 ImmutableList.of(0),
                 ImmutableList.of(ASC_NULLS_LAST),
                 false);
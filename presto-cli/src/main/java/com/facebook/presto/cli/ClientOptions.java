@@ -64,6 +64,9 @@ public class ClientOptions
     @Option(name = "--output-format", title = "output-format", description = "Output format for batch mode (default: CSV)")
     public OutputFormat outputFormat = OutputFormat.CSV;
 
+    @Option(name = "--prefetch-depth", title = "prefetch-depth", description = "Number of result batches to fetch ahead of the output (default: 1)")
+    public int prefetchDepth = 1;
+
     @Option(name = "--session", title = "session", description = "Session property (property can be used multiple times; format is key=value)")
     public final List<ClientSessionProperty> sessionProperties = new ArrayList<>();
 
@@ -88,7 +91,8 @@ public class ClientOptions
                 TimeZone.getDefault().getID(),
                 Locale.getDefault(),
                 toProperties(sessionProperties),
-                debug);
+                debug,
+                prefetchDepth);
     }
 
     public static URI parseServer(String server)
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.cli;
 
+import com.facebook.presto.client.PrefetchStats;
 import com.facebook.presto.client.QueryResults;
 import com.facebook.presto.client.StageStats;
 import com.facebook.presto.client.StatementClient;
@@ -37,6 +38,7 @@ import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 public class StatusPrinter
@@ -157,6 +159,16 @@ Parallelism: 2.5
             reprintLine(perNodeSummary);
 
             out.println(String.format("Parallelism: %.1f", parallelism));
+
+            // Prefetch: 38 ready, 2 waited (153.21ms), 0 failed
+            PrefetchStats prefetchStats = client.getPrefetchStats();
+            if (prefetchStats.getPrefetchDepth() > 0) {
+                out.println(String.format("Prefetch: %,d ready, %,d waited (%s), %,d failed",
+                        prefetchStats.getPrefetchedResults(),
+                        prefetchStats.getWaitedResults(),
+                        new Duration(prefetchStats.getWaitTimeNanos(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                        prefetchStats.getFailedPrefetches()));
+            }
         }
 
         // 0:32 [2.12GB, 15M rows] [67MB/s, 463K rows/s]
@@ -37,6 +37,7 @@ public class ClientSession
     private final Locale locale;
     private final Map<String, String> properties;
     private final boolean debug;
+    private final int prefetchDepth;
 
     public static ClientSession withCatalog(ClientSession session, String catalog)
     {
@@ -49,7 +50,8 @@ public class ClientSession
                 session.getTimeZoneId(),
                 session.getLocale(),
                 session.getProperties(),
-                session.isDebug());
+                session.isDebug(),
+                session.getPrefetchDepth());
     }
 
     public static ClientSession withSchema(ClientSession session, String schema)
@@ -63,10 +65,20 @@ public class ClientSession
                 session.getTimeZoneId(),
                 session.getLocale(),
                 session.getProperties(),
-                session.isDebug());
+                session.isDebug(),
+                session.getPrefetchDepth());
     }
 
     public ClientSession(URI server, String user, String source, String catalog, String schema, String timeZoneId, Locale locale, Map<String, String> properties, boolean debug)
+    {
+        this(server, user, source, catalog, schema, timeZoneId, locale, properties, debug, 0);
+    }
+
+    /**
+     * @param prefetchDepth the number of result batches to fetch ahead of the consumer, or zero
+     * to only fetch the next batch when it is requested
+     */
+    public ClientSession(URI server, String user, String source, String catalog, String schema, String timeZoneId, Locale locale, Map<String, String> properties, boolean debug, int prefetchDepth)
     {
         this.server = checkNotNull(server, "server is null");
         this.user = user;
@@ -76,6 +88,8 @@ public class ClientSession
         this.locale = locale;
         this.timeZoneId = checkNotNull(timeZoneId, "timeZoneId is null");
         this.debug = debug;
+        checkArgument(prefetchDepth >= 0, "prefetchDepth is negative");
+        this.prefetchDepth = prefetchDepth;
         this.properties = ImmutableMap.copyOf(checkNotNull(properties, "options is null"));
 
         // verify the properties are valid
@@ -133,6 +147,11 @@ public class ClientSession
         return debug;
     }
 
+    public int getPrefetchDepth()
+    {
+        return prefetchDepth;
+    }
+
     @Override
     public String toString()
     {
@@ -145,6 +164,7 @@ public class ClientSession
                 .add("locale", locale)
                 .add("properties", properties)
                 .add("debug", debug)
+                .add("prefetchDepth", prefetchDepth)
                 .toString();
     }
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.base.Objects;
+
+import javax.annotation.concurrent.Immutable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Buffering statistics of the result prefetching in a {@link StatementClient}.
+ */
+@Immutable
+public class PrefetchStats
+{
+    private final int prefetchDepth;
+    private final int bufferedResults;
+    private final long prefetchedResults;
+    private final long waitedResults;
+    private final long waitTimeNanos;
+    private final long failedPrefetches;
+
+    public PrefetchStats(int prefetchDepth, int bufferedResults, long prefetchedResults, long waitedResults, long waitTimeNanos, long failedPrefetches)
+    {
+        checkArgument(prefetchDepth >= 0, "prefetchDepth is negative");
+        checkArgument(bufferedResults >= 0, "bufferedResults is negative");
+        this.prefetchDepth = prefetchDepth;
+        this.bufferedResults = bufferedResults;
+        this.prefetchedResults = prefetchedResults;
+        this.waitedResults = waitedResults;
+        this.waitTimeNanos = waitTimeNanos;
+        this.failedPrefetches = failedPrefetches;
+    }
+
+    /**
+     * Gets the maximum number of result batches fetched ahead of the consumer.
+     */
+    public int getPrefetchDepth()
+    {
+        return prefetchDepth;
+    }
+
+    /**
+     * Gets the number of result batches currently fetched or being fetched ahead of the consumer.
+     */
+    public int getBufferedResults()
+    {
+        return bufferedResults;
+    }
+
+    /**
+     * Gets the number of result batches that had already arrived when the consumer advanced to them.
+     */
+    public long getPrefetchedResults()
+    {
+        return prefetchedResults;
+    }
+
+    /**
+     * Gets the number of result batches the consumer had to wait for, because they were still in flight.
+     */
+    public long getWaitedResults()
+    {
+        return waitedResults;
+    }
+
+    /**
+     * Gets the total time the consumer spent waiting for in flight result batches.
+     */
+    public long getWaitTimeNanos()
+    {
+        return waitTimeNanos;
+    }
+
+    /**
+     * Gets the number of prefetches that failed and were retried synchronously.
+     */
+    public long getFailedPrefetches()
+    {
+        return failedPrefetches;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("prefetchDepth", prefetchDepth)
+                .add("bufferedResults", bufferedResults)
+                .add("prefetchedResults", prefetchedResults)
+                .add("waitedResults", waitedResults)
+                .add("waitTimeNanos", waitTimeNanos)
+                .add("failedPrefetches", failedPrefetches)
+                .toString();
+    }
+}
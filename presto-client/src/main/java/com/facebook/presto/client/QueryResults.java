@@ -15,6 +15,7 @@ package com.facebook.presto.client;
 
 import com.facebook.presto.spi.type.TypeSignature;
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
@@ -46,6 +47,7 @@ public class QueryResults
     private final URI nextUri;
     private final List<Column> columns;
     private final Iterable<List<Object>> data;
+    private final ResultPages pages;
     private final StatementStats stats;
     private final QueryError error;
 
@@ -72,6 +74,33 @@ public class QueryResults
             Iterable<List<Object>> data,
             StatementStats stats,
             QueryError error)
+    {
+        this(id, infoUri, partialCancelUri, nextUri, columns, data, null, stats, error);
+    }
+
+    public QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            ResultPages pages,
+            StatementStats stats,
+            QueryError error)
+    {
+        this(id, infoUri, partialCancelUri, nextUri, columns, checkNotNull(pages, "pages is null").toRows(), pages, stats, error);
+    }
+
+    private QueryResults(
+            String id,
+            URI infoUri,
+            URI partialCancelUri,
+            URI nextUri,
+            List<Column> columns,
+            Iterable<List<Object>> data,
+            ResultPages pages,
+            StatementStats stats,
+            QueryError error)
     {
         this.id = checkNotNull(id, "id is null");
         this.infoUri = checkNotNull(infoUri, "infoUri is null");
@@ -79,6 +108,7 @@ public class QueryResults
         this.nextUri = nextUri;
         this.columns = (columns != null) ? ImmutableList.copyOf(columns) : null;
         this.data = (data != null) ? unmodifiableIterable(data) : null;
+        this.pages = pages;
         this.stats = checkNotNull(stats, "stats is null");
         this.error = error;
     }
@@ -125,6 +155,17 @@ public class QueryResults
         return data;
     }
 
+    /**
+     * Gets the data in the binary columnar format, if the server sent it in that format.
+     * In that case {@link #getData()} is a boxed view of the same rows.
+     */
+    @Nullable
+    @JsonIgnore
+    public ResultPages getPages()
+    {
+        return pages;
+    }
+
     @NotNull
     @JsonProperty
     public StatementStats getStats()
@@ -149,6 +190,7 @@ public class QueryResults
                 .add("nextUri", nextUri)
                 .add("columns", columns)
                 .add("hasData", data != null)
+                .add("binary", pages != null)
                 .add("stats", stats)
                 .add("error", error)
                 .toString();
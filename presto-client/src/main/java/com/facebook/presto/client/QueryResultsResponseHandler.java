@@ -0,0 +1,171 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.base.Charsets;
+import com.google.common.base.Objects;
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.Slices;
+
+import java.io.IOException;
+
+import static com.facebook.presto.client.ResultPages.PRESTO_RESULTS_TYPE;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+
+/**
+ * Reads {@link QueryResults} from either a JSON or a binary results response,
+ * depending on the content type chosen by the server.
+ */
+public class QueryResultsResponseHandler
+        implements ResponseHandler<QueryResultsResponseHandler.QueryResultsResponse, RuntimeException>
+{
+    private static final MediaType JSON_TYPE = MediaType.create("application", "json");
+
+    private final JsonCodec<QueryResults> queryResultsCodec;
+
+    public QueryResultsResponseHandler(JsonCodec<QueryResults> queryResultsCodec)
+    {
+        this.queryResultsCodec = checkNotNull(queryResultsCodec, "queryResultsCodec is null");
+    }
+
+    @Override
+    public QueryResultsResponse handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public QueryResultsResponse handle(Request request, Response response)
+    {
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (mediaTypeMatches(contentType, PRESTO_RESULTS_TYPE)) {
+            try {
+                return new QueryResultsResponse(response.getStatusCode(), response.getStatusMessage(), readBinaryResults(bytes), null);
+            }
+            catch (RuntimeException e) {
+                return new QueryResultsResponse(response.getStatusCode(), response.getStatusMessage(), null, new IllegalArgumentException("Unable to read binary results", e));
+            }
+        }
+        if (mediaTypeMatches(contentType, JSON_TYPE)) {
+            try {
+                return new QueryResultsResponse(response.getStatusCode(), response.getStatusMessage(), queryResultsCodec.fromJson(new String(bytes, Charsets.UTF_8)), null);
+            }
+            catch (IllegalArgumentException e) {
+                return new QueryResultsResponse(response.getStatusCode(), response.getStatusMessage(), null, new IllegalArgumentException("Unable to create QueryResults from JSON response", e));
+            }
+        }
+        return new QueryResultsResponse(response.getStatusCode(), response.getStatusMessage(), null, null);
+    }
+
+    private QueryResults readBinaryResults(byte[] bytes)
+    {
+        SliceInput input = Slices.wrappedBuffer(bytes).getInput();
+        int jsonLength = input.readInt();
+        QueryResults results = queryResultsCodec.fromJson(input.readSlice(jsonLength).toStringUtf8());
+
+        ResultPages pages = ResultPages.readPages(results.getColumns(), input);
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                results.getColumns(),
+                pages,
+                results.getStats(),
+                results.getError());
+    }
+
+    private static boolean mediaTypeMatches(String value, MediaType range)
+    {
+        if (value == null) {
+            return false;
+        }
+        try {
+            return MediaType.parse(value).is(range);
+        }
+        catch (IllegalArgumentException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    public static class QueryResultsResponse
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final QueryResults value;
+        private final IllegalArgumentException exception;
+
+        public QueryResultsResponse(int statusCode, String statusMessage, QueryResults value, IllegalArgumentException exception)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.value = value;
+            this.exception = exception;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        public QueryResults getValue()
+        {
+            if (!hasValue()) {
+                throw new IllegalStateException("Response does not contain query results", exception);
+            }
+            return value;
+        }
+
+        public IllegalArgumentException getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return Objects.toStringHelper(this)
+                    .add("statusCode", statusCode)
+                    .add("statusMessage", statusMessage)
+                    .add("hasValue", hasValue())
+                    .toString();
+        }
+    }
+}
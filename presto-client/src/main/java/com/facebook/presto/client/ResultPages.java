@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockEncoding;
+import com.facebook.presto.spi.block.BlockEncodingFactory;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.block.FixedWidthBlockEncoding;
+import com.facebook.presto.spi.block.VariableWidthBlockEncoding;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Charsets;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.MediaType;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The rows of a results response in the binary columnar format. The format is
+ * negotiated with the {@link PrestoHeaders#PRESTO_RESULT_FORMAT} header and is used
+ * for responses where every column has a type in {@link #isSupported(List)}; other
+ * responses are sent as JSON.
+ * <p>
+ * A binary response body is the length of the JSON encoded {@link QueryResults}
+ * (without data), the JSON itself, and the pages in the {@code PagesSerde} format.
+ * Every block is in the canonical fixed or variable width encoding of its type, so
+ * the client only needs to understand those two encodings.
+ */
+@Immutable
+public final class ResultPages
+{
+    public static final String PRESTO_RESULTS = "application/X-presto-results";
+    public static final MediaType PRESTO_RESULTS_TYPE = MediaType.create("application", "X-presto-results");
+    public static final String FORMAT_NAME = "binary";
+
+    private static final Map<String, Type> SUPPORTED_TYPES = ImmutableMap.<String, Type>builder()
+            .put(BOOLEAN.getName(), BOOLEAN)
+            .put(BIGINT.getName(), BIGINT)
+            .put(DOUBLE.getName(), DOUBLE)
+            .put(VARCHAR.getName(), VARCHAR)
+            .put(VARBINARY.getName(), VARBINARY)
+            .build();
+
+    private static final BlockEncodingSerde BLOCK_ENCODING_SERDE = new ResultBlockEncodingSerde();
+
+    private final List<Type> types;
+    private final List<Page> pages;
+    private final int positionCount;
+
+    public ResultPages(List<Type> types, List<Page> pages)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        this.pages = ImmutableList.copyOf(checkNotNull(pages, "pages is null"));
+
+        int positionCount = 0;
+        for (Page page : this.pages) {
+            checkArgument(page.getChannelCount() == this.types.size(), "page/type size mismatch");
+            positionCount += page.getPositionCount();
+        }
+        this.positionCount = positionCount;
+    }
+
+    public static boolean isSupported(List<Column> columns)
+    {
+        for (Column column : columns) {
+            if (!SUPPORTED_TYPES.containsKey(column.getType())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static List<Type> getTypes(List<Column> columns)
+    {
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        for (Column column : columns) {
+            Type type = SUPPORTED_TYPES.get(column.getType());
+            checkArgument(type != null, "Type %s is not supported in binary results", column.getType());
+            types.add(type);
+        }
+        return types.build();
+    }
+
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    public List<Page> getPages()
+    {
+        return pages;
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    public ResultPagesCursor cursor()
+    {
+        return new ResultPagesCursor(types, pages);
+    }
+
+    /**
+     * Gets a view of the rows with the same value objects as JSON results.
+     */
+    public Iterable<List<Object>> toRows()
+    {
+        return new Iterable<List<Object>>()
+        {
+            @Override
+            public Iterator<List<Object>> iterator()
+            {
+                final ResultPagesCursor cursor = cursor();
+                return new AbstractIterator<List<Object>>()
+                {
+                    @Override
+                    protected List<Object> computeNext()
+                    {
+                        if (!cursor.advanceNextPosition()) {
+                            return endOfData();
+                        }
+                        List<Object> row = new ArrayList<>(types.size());
+                        for (int channel = 0; channel < types.size(); channel++) {
+                            row.add(cursor.getObject(channel));
+                        }
+                        return Collections.unmodifiableList(row); // allow nulls in list
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Reads pages written in the {@code PagesSerde} format until the end of the input.
+     */
+    public static ResultPages readPages(List<Column> columns, SliceInput input)
+    {
+        checkNotNull(columns, "columns is null");
+        checkNotNull(input, "input is null");
+
+        List<Type> types = getTypes(columns);
+        if (!input.isReadable()) {
+            return new ResultPages(types, ImmutableList.<Page>of());
+        }
+
+        int channelCount = input.readInt();
+        checkArgument(channelCount == types.size(), "Expected %s channels, but found %s", types.size(), channelCount);
+
+        BlockEncoding[] blockEncodings = new BlockEncoding[channelCount];
+        for (int channel = 0; channel < channelCount; channel++) {
+            blockEncodings[channel] = BLOCK_ENCODING_SERDE.readBlockEncoding(input);
+        }
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        while (input.isReadable()) {
+            int positionCount = input.readInt();
+            Block[] blocks = new Block[channelCount];
+            for (int channel = 0; channel < channelCount; channel++) {
+                blocks[channel] = blockEncodings[channel].readBlock(input);
+            }
+            pages.add(new Page(positionCount, blocks));
+        }
+        return new ResultPages(types, pages.build());
+    }
+
+    private static class ResultBlockEncodingSerde
+            implements BlockEncodingSerde
+    {
+        private static final Map<String, BlockEncodingFactory<?>> FACTORIES = ImmutableMap.<String, BlockEncodingFactory<?>>of(
+                FixedWidthBlockEncoding.FACTORY.getName(), FixedWidthBlockEncoding.FACTORY,
+                VariableWidthBlockEncoding.FACTORY.getName(), VariableWidthBlockEncoding.FACTORY);
+
+        @Override
+        public BlockEncoding readBlockEncoding(SliceInput input)
+        {
+            int length = input.readInt();
+            byte[] bytes = new byte[length];
+            input.readBytes(bytes);
+            String encodingName = new String(bytes, Charsets.UTF_8);
+
+            BlockEncodingFactory<?> factory = FACTORIES.get(encodingName);
+            checkArgument(factory != null, "Unsupported block encoding %s", encodingName);
+
+            // the fixed and variable width encodings do not use the type manager
+            return factory.readEncoding(null, this, input);
+        }
+
+        @Override
+        public void writeBlockEncoding(SliceOutput output, BlockEncoding encoding)
+        {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
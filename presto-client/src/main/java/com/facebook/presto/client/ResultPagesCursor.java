@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Reads the values of {@link ResultPages} directly from the blocks, without boxing.
+ * This class is not thread safe.
+ */
+public class ResultPagesCursor
+{
+    private final List<Type> types;
+    private final Iterator<Page> pages;
+
+    private Page page;
+    private int position = -1;
+
+    ResultPagesCursor(List<Type> types, List<Page> pages)
+    {
+        this.types = checkNotNull(types, "types is null");
+        this.pages = checkNotNull(pages, "pages is null").iterator();
+    }
+
+    public int getChannelCount()
+    {
+        return types.size();
+    }
+
+    public Type getType(int channel)
+    {
+        return types.get(channel);
+    }
+
+    public boolean advanceNextPosition()
+    {
+        position++;
+        while (page == null || position >= page.getPositionCount()) {
+            if (!pages.hasNext()) {
+                page = null;
+                return false;
+            }
+            page = pages.next();
+            position = 0;
+        }
+        return true;
+    }
+
+    public boolean isNull(int channel)
+    {
+        return getBlock(channel).isNull(position);
+    }
+
+    public boolean getBoolean(int channel)
+    {
+        return types.get(channel).getBoolean(getBlock(channel), position);
+    }
+
+    public long getLong(int channel)
+    {
+        return types.get(channel).getLong(getBlock(channel), position);
+    }
+
+    public double getDouble(int channel)
+    {
+        return types.get(channel).getDouble(getBlock(channel), position);
+    }
+
+    public Slice getSlice(int channel)
+    {
+        return types.get(channel).getSlice(getBlock(channel), position);
+    }
+
+    /**
+     * Gets the value as the object used for the type in JSON results.
+     */
+    public Object getObject(int channel)
+    {
+        if (isNull(channel)) {
+            return null;
+        }
+        Type type = types.get(channel);
+        if (type.equals(BOOLEAN)) {
+            return getBoolean(channel);
+        }
+        if (type.equals(BIGINT)) {
+            return getLong(channel);
+        }
+        if (type.equals(DOUBLE)) {
+            return getDouble(channel);
+        }
+        if (type.equals(VARCHAR)) {
+            return getSlice(channel).toStringUtf8();
+        }
+        if (type.equals(VARBINARY)) {
+            return getSlice(channel).getBytes();
+        }
+        throw new IllegalStateException("Unsupported type " + type);
+    }
+
+    private Block getBlock(int channel)
+    {
+        checkState(page != null, "cursor is not positioned on a row");
+        return page.getBlock(channel);
+    }
+}
@@ -13,29 +13,38 @@
  */
 package com.facebook.presto.client;
 
+import com.facebook.presto.client.QueryResultsResponseHandler.QueryResultsResponse;
 import com.google.common.base.Charsets;
 import com.google.common.base.Objects;
-import io.airlift.http.client.FullJsonResponseHandler;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.HttpStatus;
 import io.airlift.http.client.Request;
 import io.airlift.json.JsonCodec;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.Closeable;
 import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.Map;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
+import static com.google.common.util.concurrent.Uninterruptibles.getUninterruptibly;
 import static com.google.common.util.concurrent.Uninterruptibles.sleepUninterruptibly;
-import static io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpStatus.Family;
 import static io.airlift.http.client.HttpStatus.familyForStatusCode;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
@@ -58,7 +67,7 @@ public class StatementClient
             Objects.firstNonNull(StatementClient.class.getPackage().getImplementationVersion(), "unknown");
 
     private final HttpClient httpClient;
-    private final FullJsonResponseHandler<QueryResults> responseHandler;
+    private final QueryResultsResponseHandler responseHandler;
     private final boolean debug;
     private final String query;
     private final AtomicReference<QueryResults> currentResults = new AtomicReference<>();
@@ -67,7 +76,25 @@ public class StatementClient
     private final AtomicBoolean valid = new AtomicBoolean(true);
     private final String timeZoneId;
 
+    // results fetched ahead of the consumer, in order, starting with the next uri of the current results
+    private final int prefetchDepth;
+    @GuardedBy("this")
+    private final Deque<PrefetchedResults> prefetchedResults = new ArrayDeque<>();
+    private final AtomicLong prefetchHits = new AtomicLong();
+    private final AtomicLong prefetchWaits = new AtomicLong();
+    private final AtomicLong prefetchWaitNanos = new AtomicLong();
+    private final AtomicLong prefetchFailures = new AtomicLong();
+
     public StatementClient(HttpClient httpClient, JsonCodec<QueryResults> queryResultsCodec, ClientSession session, String query)
+    {
+        this(httpClient, queryResultsCodec, session, query, false);
+    }
+
+    /**
+     * @param binaryResults request results in the binary columnar format; the server still
+     * sends JSON for responses containing types that are not supported by that format
+     */
+    public StatementClient(HttpClient httpClient, JsonCodec<QueryResults> queryResultsCodec, ClientSession session, String query, boolean binaryResults)
     {
         checkNotNull(httpClient, "httpClient is null");
         checkNotNull(queryResultsCodec, "queryResultsCodec is null");
@@ -75,16 +102,18 @@ public class StatementClient
         checkNotNull(query, "query is null");
 
         this.httpClient = httpClient;
-        this.responseHandler = createFullJsonResponseHandler(queryResultsCodec);
+        this.responseHandler = new QueryResultsResponseHandler(queryResultsCodec);
         this.debug = session.isDebug();
         this.timeZoneId = session.getTimeZoneId();
         this.query = query;
+        this.prefetchDepth = session.getPrefetchDepth();
 
-        Request request = buildQueryRequest(session, query);
+        Request request = buildQueryRequest(session, query, binaryResults);
         currentResults.set(httpClient.execute(request, responseHandler).getValue());
+        schedulePrefetch();
     }
 
-    private static Request buildQueryRequest(ClientSession session, String query)
+    private static Request buildQueryRequest(ClientSession session, String query, boolean binaryResults)
     {
         Request.Builder builder = preparePost()
                 .setUri(uriBuilderFrom(session.getServer()).replacePath("/v1/statement").build())
@@ -105,6 +134,9 @@ public class StatementClient
         builder.setHeader(PrestoHeaders.PRESTO_TIME_ZONE, session.getTimeZoneId());
         builder.setHeader(PrestoHeaders.PRESTO_LANGUAGE, session.getLocale().toLanguageTag());
         builder.setHeader(USER_AGENT, USER_AGENT_VALUE);
+        if (binaryResults) {
+            builder.setHeader(PrestoHeaders.PRESTO_RESULT_FORMAT, ResultPages.FORMAT_NAME);
+        }
 
         Map<String, String> property = session.getProperties();
         for (Entry<String, String> entry : property.entrySet()) {
@@ -168,10 +200,14 @@ public class StatementClient
             return false;
         }
 
-        Request request = prepareGet()
-                .setHeader(USER_AGENT, USER_AGENT_VALUE)
-                .setUri(current().getNextUri())
-                .build();
+        QueryResults prefetched = takePrefetchedResults();
+        if (prefetched != null) {
+            currentResults.set(prefetched);
+            schedulePrefetch();
+            return true;
+        }
+
+        Request request = prepareNextRequest(current().getNextUri());
 
         Exception cause = null;
         long start = System.nanoTime();
@@ -184,7 +220,7 @@ public class StatementClient
             }
             attempts++;
 
-            JsonResponse<QueryResults> response;
+            QueryResultsResponse response;
             try {
                 response = httpClient.execute(request, responseHandler);
             }
@@ -195,6 +231,7 @@ public class StatementClient
 
             if (response.getStatusCode() == HttpStatus.OK.code() && response.hasValue()) {
                 currentResults.set(response.getValue());
+                schedulePrefetch();
                 return true;
             }
 
@@ -215,6 +252,147 @@ public class StatementClient
         throw new RuntimeException("Error fetching next", cause);
     }
 
+    public PrefetchStats getPrefetchStats()
+    {
+        int bufferedResults;
+        synchronized (this) {
+            bufferedResults = prefetchedResults.size();
+        }
+        return new PrefetchStats(
+                prefetchDepth,
+                bufferedResults,
+                prefetchHits.get(),
+                prefetchWaits.get(),
+                prefetchWaitNanos.get(),
+                prefetchFailures.get());
+    }
+
+    /**
+     * Takes the prefetched results following the current results, waiting for them if they
+     * are still in flight. Returns null if nothing was prefetched or the prefetch failed, in
+     * which case the caller fetches the results itself, with the usual retries.
+     */
+    private QueryResults takePrefetchedResults()
+    {
+        PrefetchedResults next;
+        synchronized (this) {
+            next = prefetchedResults.peekFirst();
+        }
+        if (next == null) {
+            return null;
+        }
+
+        QueryResultsResponse response;
+        if (next.getFuture().isDone()) {
+            prefetchHits.incrementAndGet();
+            response = getResponse(next.getFuture());
+        }
+        else {
+            prefetchWaits.incrementAndGet();
+            long start = System.nanoTime();
+            response = getResponse(next.getFuture());
+            prefetchWaitNanos.addAndGet(System.nanoTime() - start);
+        }
+
+        synchronized (this) {
+            // the prefetched results may have been discarded by close
+            if (!prefetchedResults.remove(next) || !next.getUri().equals(current().getNextUri())) {
+                cancelPrefetch();
+                return null;
+            }
+            if (!isSuccessful(response)) {
+                prefetchFailures.incrementAndGet();
+                cancelPrefetch();
+                return null;
+            }
+        }
+        return response.getValue();
+    }
+
+    /**
+     * Starts fetching the results after the last prefetched (or current) results, unless
+     * the prefetch buffer is full. Each completed prefetch schedules the next one.
+     */
+    private synchronized void schedulePrefetch()
+    {
+        if (prefetchDepth == 0 || isClosed() || prefetchedResults.size() >= prefetchDepth) {
+            return;
+        }
+
+        URI uri;
+        PrefetchedResults last = prefetchedResults.peekLast();
+        if (last == null) {
+            uri = currentResults.get().getNextUri();
+        }
+        else {
+            if (!last.getFuture().isDone()) {
+                // the next uri is not known yet
+                return;
+            }
+            QueryResultsResponse response = getResponse(last.getFuture());
+            if (!isSuccessful(response)) {
+                // the consumer will retry from here
+                return;
+            }
+            uri = response.getValue().getNextUri();
+        }
+        if (uri == null) {
+            return;
+        }
+
+        HttpResponseFuture<QueryResultsResponse> future = httpClient.executeAsync(prepareNextRequest(uri), responseHandler);
+        final PrefetchedResults results = new PrefetchedResults(uri, future);
+        prefetchedResults.addLast(results);
+        future.addListener(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                prefetchCompleted(results);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+    }
+
+    private synchronized void prefetchCompleted(PrefetchedResults results)
+    {
+        // continue the chain, unless the prefetched results were discarded in the meantime
+        if (prefetchedResults.peekLast() == results) {
+            schedulePrefetch();
+        }
+    }
+
+    private synchronized void cancelPrefetch()
+    {
+        List<PrefetchedResults> discarded = ImmutableList.copyOf(prefetchedResults);
+        prefetchedResults.clear();
+        for (PrefetchedResults results : discarded) {
+            results.getFuture().cancel(true);
+        }
+    }
+
+    private static QueryResultsResponse getResponse(HttpResponseFuture<QueryResultsResponse> future)
+    {
+        try {
+            return getUninterruptibly(future);
+        }
+        catch (ExecutionException | CancellationException e) {
+            return null;
+        }
+    }
+
+    private static boolean isSuccessful(QueryResultsResponse response)
+    {
+        return (response != null) && (response.getStatusCode() == HttpStatus.OK.code()) && response.hasValue();
+    }
+
+    private static Request prepareNextRequest(URI nextUri)
+    {
+        return prepareGet()
+                .setHeader(USER_AGENT, USER_AGENT_VALUE)
+                .setUri(nextUri)
+                .build();
+    }
+
     public boolean cancelLeafStage()
     {
         checkState(!isClosed(), "client is closed");
@@ -236,6 +414,8 @@ public class StatementClient
     public void close()
     {
         if (!closed.getAndSet(true)) {
+            cancelPrefetch();
+
             URI uri = currentResults.get().getNextUri();
             if (uri != null) {
                 Request request = prepareDelete()
@@ -246,4 +426,26 @@ public class StatementClient
             }
         }
     }
+
+    private static class PrefetchedResults
+    {
+        private final URI uri;
+        private final HttpResponseFuture<QueryResultsResponse> future;
+
+        private PrefetchedResults(URI uri, HttpResponseFuture<QueryResultsResponse> future)
+        {
+            this.uri = uri;
+            this.future = future;
+        }
+
+        public URI getUri()
+        {
+            return uri;
+        }
+
+        public HttpResponseFuture<QueryResultsResponse> getFuture()
+        {
+            return future;
+        }
+    }
 }
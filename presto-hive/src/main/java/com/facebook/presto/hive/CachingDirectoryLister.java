@@ -0,0 +1,177 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches directory listings, including the block locations of the files, across queries.
+ * A cached listing is only used while the modification time of the directory is unchanged,
+ * so files added, removed or renamed in the directory are always seen. Appending to an
+ * existing file does not change the modification time of the directory, and will only be
+ * seen once the listing expires.
+ */
+@ThreadSafe
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final NamenodeStats namenodeStats;
+    private final boolean enabled;
+    private final Cache<Path, DirectoryListing> cache;
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig hiveClientConfig, NamenodeStats namenodeStats)
+    {
+        this(new HadoopDirectoryLister(),
+                checkNotNull(hiveClientConfig, "hiveClientConfig is null").getFileStatusCacheTtl(),
+                hiveClientConfig.getFileStatusCacheMaxSize(),
+                namenodeStats);
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, Duration cacheTtl, long maxCachedFiles, NamenodeStats namenodeStats)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        this.namenodeStats = checkNotNull(namenodeStats, "namenodeStats is null");
+        checkNotNull(cacheTtl, "cacheTtl is null");
+        checkArgument(maxCachedFiles >= 0, "maxCachedFiles is negative");
+
+        this.enabled = cacheTtl.toMillis() > 0 && maxCachedFiles > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxCachedFiles)
+                .weigher(new Weigher<Path, DirectoryListing>()
+                {
+                    @Override
+                    public int weigh(Path path, DirectoryListing listing)
+                    {
+                        // count empty directories, so they are evicted too
+                        return Math.max(1, listing.getFiles().size());
+                    }
+                })
+                .expireAfterWrite(cacheTtl.toMillis(), MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        if (!enabled) {
+            return delegate.list(fs, path);
+        }
+
+        // fetch the modification time before listing, so a change during the listing invalidates the entry
+        long modificationTime = fs.getFileStatus(path).getModificationTime();
+
+        DirectoryListing listing = cache.getIfPresent(path);
+        if (listing != null && listing.getModificationTime() == modificationTime) {
+            namenodeStats.getListingCacheHits().update(1);
+            return new ListingIterator(listing.getFiles().iterator());
+        }
+        namenodeStats.getListingCacheMisses().update(1);
+
+        ImmutableList.Builder<LocatedFileStatus> files = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = delegate.list(fs, path);
+        while (iterator.hasNext()) {
+            files.add(iterator.next());
+        }
+        listing = new DirectoryListing(modificationTime, files.build());
+        cache.put(path, listing);
+
+        return new ListingIterator(listing.getFiles().iterator());
+    }
+
+    @Override
+    public void invalidate(Path path)
+    {
+        cache.invalidate(path);
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @Managed
+    public long getCachedDirectories()
+    {
+        return cache.size();
+    }
+
+    private static class DirectoryListing
+    {
+        private final long modificationTime;
+        private final List<LocatedFileStatus> files;
+
+        public DirectoryListing(long modificationTime, List<LocatedFileStatus> files)
+        {
+            this.modificationTime = modificationTime;
+            this.files = checkNotNull(files, "files is null");
+        }
+
+        public long getModificationTime()
+        {
+            return modificationTime;
+        }
+
+        public List<LocatedFileStatus> getFiles()
+        {
+            return files;
+        }
+    }
+
+    private static class ListingIterator
+            implements RemoteIterator<LocatedFileStatus>
+    {
+        private final Iterator<LocatedFileStatus> iterator;
+
+        public ListingIterator(Iterator<LocatedFileStatus> iterator)
+        {
+            this.iterator = checkNotNull(iterator, "iterator is null");
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return iterator.hasNext();
+        }
+
+        @Override
+        public LocatedFileStatus next()
+        {
+            return iterator.next();
+        }
+    }
+}
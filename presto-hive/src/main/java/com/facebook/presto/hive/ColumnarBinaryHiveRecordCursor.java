@@ -562,13 +562,12 @@ class ColumnarBinaryHiveRecordCursor<K>
         else {
             nulls[column] = false;
             if (hiveTypes[column].getCategory() == Category.MAP || hiveTypes[column].getCategory() == Category.LIST || hiveTypes[column].getCategory() == Category.STRUCT) {
-                // temporarily special case MAP, LIST, and STRUCT types as strings
-                // TODO: create a real parser for these complex types when we implement data types
                 LazyBinaryObject<? extends ObjectInspector> lazyObject = LazyBinaryFactory.createLazyBinaryObject(fieldInspectors[column]);
                 ByteArrayRef byteArrayRef = new ByteArrayRef();
                 byteArrayRef.setData(bytes);
                 lazyObject.init(byteArrayRef, start, length);
-                slices[column] = Slices.wrappedBuffer(SerDeUtils.getJsonBytes(sessionTimeZone, lazyObject.getObject(), fieldInspectors[column]));
+                slices[column] = SerDeUtils.getBlockSlice(sessionTimeZone, lazyObject.getObject(), fieldInspectors[column]);
+                nulls[column] = slices[column] == null;
             }
             else {
                 // TODO: zero length BINARY is not supported. See https://issues.apache.org/jira/browse/HIVE-2483
@@ -498,14 +498,12 @@ class ColumnarTextHiveRecordCursor<K>
             wasNull = true;
         }
         else if (hiveTypes[column].getCategory() == MAP || hiveTypes[column].getCategory() == LIST || hiveTypes[column].getCategory() == STRUCT) {
-            // temporarily special case MAP, LIST, and STRUCT types as strings
-            // TODO: create a real parser for these complex types when we implement data types
             LazyObject<? extends ObjectInspector> lazyObject = LazyFactory.createLazyObject(fieldInspectors[column]);
             ByteArrayRef byteArrayRef = new ByteArrayRef();
             byteArrayRef.setData(bytes);
             lazyObject.init(byteArrayRef, start, length);
-            slices[column] = Slices.wrappedBuffer(SerDeUtils.getJsonBytes(sessionTimeZone, lazyObject.getObject(), fieldInspectors[column]));
-            wasNull = false;
+            slices[column] = SerDeUtils.getBlockSlice(sessionTimeZone, lazyObject.getObject(), fieldInspectors[column]);
+            wasNull = slices[column] == null;
         }
         else {
             slices[column] = Slices.wrappedBuffer(Arrays.copyOfRange(bytes, start, start + length));
@@ -24,4 +24,9 @@ public interface DirectoryLister
 {
     RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
             throws IOException;
+
+    /**
+     * Discards any cached listing of the directory, so the next listing reflects files written by Presto.
+     */
+    void invalidate(Path path);
 }
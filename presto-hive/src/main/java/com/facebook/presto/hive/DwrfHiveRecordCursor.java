@@ -65,7 +65,7 @@ import static com.facebook.presto.hive.HiveUtil.parseHiveTimestamp;
 import static com.facebook.presto.hive.HiveUtil.isArrayOrMap;
 import static com.facebook.presto.hive.NumberParser.parseDouble;
 import static com.facebook.presto.hive.NumberParser.parseLong;
-import static com.facebook.presto.hive.util.SerDeUtils.getJsonBytes;
+import static com.facebook.presto.hive.util.SerDeUtils.getBlockSlice;
 import static com.facebook.presto.hive.util.Types.checkType;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -442,7 +442,8 @@ class DwrfHiveRecordCursor
 
         HiveType type = hiveTypes[column];
         if (type.getCategory() == Category.MAP || type.getCategory() == Category.LIST || type.getCategory() == Category.STRUCT) {
-            slices[column] = Slices.wrappedBuffer(getJsonBytes(sessionTimeZone, lazyObject, fieldInspectors[column]));
+            slices[column] = getBlockSlice(sessionTimeZone, lazyObject, fieldInspectors[column]);
+            nulls[column] = slices[column] == null;
         }
         else if (type.equals(HIVE_STRING)) {
             Text text = checkWritable(value, Text.class);
@@ -13,19 +13,28 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.hive.orc.BooleanColumnStatistics;
+import com.facebook.hive.orc.ColumnStatistics;
+import com.facebook.hive.orc.DoubleColumnStatistics;
+import com.facebook.hive.orc.IntegerColumnStatistics;
 import com.facebook.hive.orc.OrcFile;
 import com.facebook.hive.orc.OrcProto;
 import com.facebook.hive.orc.OrcProto.Type;
 import com.facebook.hive.orc.OrcSerde;
 import com.facebook.hive.orc.Reader;
 import com.facebook.hive.orc.RecordReader;
+import com.facebook.hive.orc.StringColumnStatistics;
+import com.facebook.hive.orc.StripeInformation;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -41,16 +50,34 @@ import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.mapred.JobConf;
 import org.joda.time.DateTimeZone;
 
+import javax.inject.Inject;
+
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveUtil.getDeserializer;
 import static com.facebook.presto.hive.HiveUtil.getTableObjectInspector;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createBooleanDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createDoubleDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createLongDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createStringDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.getDomainType;
+import static com.facebook.presto.hive.OrcStatisticsDomains.overlaps;
+import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.collect.Iterables.all;
 
 public class DwrfRecordCursorProvider
         implements HiveRecordCursorProvider
 {
+    private final OrcStripeStats stripeStats;
+
+    @Inject
+    public DwrfRecordCursorProvider(OrcStripeStats stripeStats)
+    {
+        this.stripeStats = checkNotNull(stripeStats, "stripeStats is null");
+    }
+
     @Override
     public Optional<HiveRecordCursor> createHiveRecordCursor(
             String clientId,
@@ -84,7 +111,25 @@ public class DwrfRecordCursorProvider
             FileSystem fileSystem = path.getFileSystem(configuration);
             Reader reader = OrcFile.createReader(fileSystem, path, new JobConf(configuration));
             boolean[] include = findIncludedColumns(reader.getTypes(), columns);
-            recordReader = reader.rows(start, length, include);
+
+            // DWRF files only have statistics for the whole file, so either all stripes
+            // of the split are read or none are
+            int stripesInSplit = 0;
+            for (StripeInformation stripeInformation : reader.getStripes()) {
+                if (stripeInformation.getOffset() >= start && stripeInformation.getOffset() < start + length) {
+                    stripesInSplit++;
+                }
+            }
+            boolean fileMatches = !tupleDomain.isNone() &&
+                    overlaps(tupleDomain, getColumnDomains(tupleDomain, reader.getTypes(), reader.getNumberOfRows(), reader.getStatistics()));
+            if (fileMatches) {
+                stripeStats.recordStripes(stripesInSplit, 0);
+                recordReader = reader.rows(start, length, include);
+            }
+            else {
+                stripeStats.recordStripes(0, stripesInSplit);
+                recordReader = reader.rows(start, 0, include);
+            }
         }
         catch (Exception e) {
             throw Throwables.propagate(e);
@@ -101,6 +146,48 @@ public class DwrfRecordCursorProvider
                 typeManager));
     }
 
+    private static Map<HiveColumnHandle, Domain> getColumnDomains(TupleDomain<HiveColumnHandle> tupleDomain, List<Type> types, long rowCount, ColumnStatistics[] statistics)
+    {
+        OrcProto.Type root = types.get(0);
+        ImmutableMap.Builder<HiveColumnHandle, Domain> domains = ImmutableMap.builder();
+        for (HiveColumnHandle column : tupleDomain.getDomains().keySet()) {
+            if (column.isPartitionKey() || column.getHiveColumnIndex() >= root.getSubtypesCount()) {
+                continue;
+            }
+            int typeId = root.getSubtypes(column.getHiveColumnIndex());
+            if (typeId >= statistics.length) {
+                continue;
+            }
+            Domain domain = getDomain(column.getHiveType(), rowCount, statistics[typeId]);
+            if (domain != null) {
+                domains.put(column, domain);
+            }
+        }
+        return domains.build();
+    }
+
+    private static Domain getDomain(HiveType hiveType, long rowCount, ColumnStatistics statistics)
+    {
+        Class<?> domainType = getDomainType(hiveType);
+        if (domainType == Long.class && statistics instanceof IntegerColumnStatistics) {
+            IntegerColumnStatistics integerStatistics = (IntegerColumnStatistics) statistics;
+            return createLongDomain(rowCount, statistics.getNumberOfValues(), integerStatistics.getMinimum(), integerStatistics.getMaximum());
+        }
+        if (domainType == Double.class && statistics instanceof DoubleColumnStatistics) {
+            DoubleColumnStatistics doubleStatistics = (DoubleColumnStatistics) statistics;
+            return createDoubleDomain(rowCount, statistics.getNumberOfValues(), doubleStatistics.getMinimum(), doubleStatistics.getMaximum());
+        }
+        if (domainType == Slice.class && statistics instanceof StringColumnStatistics) {
+            StringColumnStatistics stringStatistics = (StringColumnStatistics) statistics;
+            return createStringDomain(rowCount, statistics.getNumberOfValues(), stringStatistics.getMinimum(), stringStatistics.getMaximum());
+        }
+        if (domainType == Boolean.class && statistics instanceof BooleanColumnStatistics) {
+            BooleanColumnStatistics booleanStatistics = (BooleanColumnStatistics) statistics;
+            return createBooleanDomain(rowCount, booleanStatistics.getTrueCount(), booleanStatistics.getFalseCount());
+        }
+        return null;
+    }
+
     private static Predicate<StructField> isSupportedDwrfType()
     {
         return new Predicate<StructField>()
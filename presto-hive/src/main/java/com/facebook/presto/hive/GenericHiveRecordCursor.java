@@ -421,9 +421,8 @@ class GenericHiveRecordCursor<K, V extends Writable>
             nulls[column] = true;
         }
         else if (hiveTypes[column].getCategory() == MAP || hiveTypes[column].getCategory() == LIST || hiveTypes[column].getCategory() == STRUCT) {
-            // temporarily special case MAP, LIST, and STRUCT types as strings
-            slices[column] = Slices.wrappedBuffer(SerDeUtils.getJsonBytes(sessionTimeZone, fieldData, fieldInspectors[column]));
-            nulls[column] = false;
+            slices[column] = SerDeUtils.getBlockSlice(sessionTimeZone, fieldData, fieldInspectors[column]);
+            nulls[column] = slices[column] == null;
         }
         else {
             Object fieldValue = ((PrimitiveObjectInspector) fieldInspectors[column]).getPrimitiveJavaObject(fieldData);
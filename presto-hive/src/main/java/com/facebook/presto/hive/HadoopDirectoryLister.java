@@ -31,4 +31,9 @@ public class HadoopDirectoryLister
     {
         return listLocatedStatus(fs, path);
     }
+
+    @Override
+    public void invalidate(Path path)
+    {
+    }
 }
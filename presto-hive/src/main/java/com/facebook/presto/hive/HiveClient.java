@@ -697,6 +697,9 @@ public class HiveClient
             rename(new Path(handle.getTemporaryPath()), targetPath);
         }
 
+        // the target directory was written by this query, so drop any listing cached before it existed
+        directoryLister.invalidate(targetPath);
+
         // create the table in the metastore
         List<String> types = FluentIterable.from(handle.getColumnTypes())
                 .transform(columnTypeToHiveType())
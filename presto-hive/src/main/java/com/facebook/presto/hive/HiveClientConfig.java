@@ -58,6 +58,9 @@ public class HiveClientConfig
     private HostAndPort metastoreSocksProxy;
     private Duration metastoreTimeout = new Duration(10, TimeUnit.SECONDS);
 
+    private Duration fileStatusCacheTtl = new Duration(0, TimeUnit.SECONDS);
+    private long fileStatusCacheMaxSize = 100_000;
+
     private Duration dfsTimeout = new Duration(10, TimeUnit.SECONDS);
     private Duration dfsConnectTimeout = new Duration(500, TimeUnit.MILLISECONDS);
     private int dfsConnectMaxRetries = 5;
@@ -79,6 +82,7 @@ public class HiveClientConfig
     private DataSize s3MultipartMinPartSize = new DataSize(5, MEGABYTE);
 
     private HiveStorageFormat hiveStorageFormat = HiveStorageFormat.RCBINARY;
+    private boolean optimizedReaderEnabled;
 
     private List<String> resourceConfigFiles;
 
@@ -260,6 +264,34 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public Duration getFileStatusCacheTtl()
+    {
+        return fileStatusCacheTtl;
+    }
+
+    @Config("hive.file-status-cache-ttl")
+    @ConfigDescription("How long directory listings are cached, zero disables the cache; appends to existing files are not seen until the listing expires")
+    public HiveClientConfig setFileStatusCacheTtl(Duration fileStatusCacheTtl)
+    {
+        this.fileStatusCacheTtl = fileStatusCacheTtl;
+        return this;
+    }
+
+    @Min(0)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-max-size")
+    @ConfigDescription("Maximum number of files in cached directory listings")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
     public HostAndPort getMetastoreSocksProxy()
     {
         return metastoreSocksProxy;
@@ -382,6 +414,19 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOptimizedReaderEnabled()
+    {
+        return optimizedReaderEnabled;
+    }
+
+    @Config("hive.optimized-reader.enabled")
+    @ConfigDescription("Read ORC files directly into blocks instead of through a record cursor")
+    public HiveClientConfig setOptimizedReaderEnabled(boolean optimizedReaderEnabled)
+    {
+        this.optimizedReaderEnabled = optimizedReaderEnabled;
+        return this;
+    }
+
     public String getDomainSocketPath()
     {
         return domainSocketPath;
@@ -46,15 +46,22 @@ public class HivePageSourceProvider
 {
     private final DateTimeZone hiveStorageTimeZone;
     private final HdfsEnvironment hdfsEnvironment;
+    private final Set<HivePageSourceFactory> pageSourceFactories;
     private final Set<HiveRecordCursorProvider> cursorProviders;
     private final TypeManager typeManager;
 
     @Inject
-    public HivePageSourceProvider(HiveClientConfig hiveClientConfig, HdfsEnvironment hdfsEnvironment, Set<HiveRecordCursorProvider> cursorProviders, TypeManager typeManager)
+    public HivePageSourceProvider(
+            HiveClientConfig hiveClientConfig,
+            HdfsEnvironment hdfsEnvironment,
+            Set<HivePageSourceFactory> pageSourceFactories,
+            Set<HiveRecordCursorProvider> cursorProviders,
+            TypeManager typeManager)
     {
         checkNotNull(hiveClientConfig, "hiveClientConfig is null");
         this.hiveStorageTimeZone = DateTimeZone.forTimeZone(hiveClientConfig.getTimeZone());
         this.hdfsEnvironment = checkNotNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.pageSourceFactories = ImmutableSet.copyOf(checkNotNull(pageSourceFactories, "pageSourceFactories is null"));
         this.cursorProviders = ImmutableSet.copyOf(checkNotNull(cursorProviders, "cursorProviders is null"));
         this.typeManager = checkNotNull(typeManager, "typeManager is null");
     }
@@ -80,6 +87,24 @@ public class HivePageSourceProvider
         List<HivePartitionKey> partitionKeys = hiveSplit.getPartitionKeys();
         List<HiveColumnHandle> hiveColumns = ImmutableList.copyOf(transform(columns, hiveColumnHandle()));
 
+        for (HivePageSourceFactory pageSourceFactory : pageSourceFactories) {
+            Optional<? extends ConnectorPageSource> pageSource = pageSourceFactory.createPageSource(
+                    configuration,
+                    session,
+                    path,
+                    start,
+                    length,
+                    schema,
+                    hiveColumns,
+                    partitionKeys,
+                    tupleDomain,
+                    hiveStorageTimeZone,
+                    typeManager);
+            if (pageSource.isPresent()) {
+                return pageSource.get();
+            }
+        }
+
         HiveRecordCursor recordCursor = getHiveRecordCursor(clientId, session, configuration, path, start, length, schema, tupleDomain, partitionKeys, hiveColumns);
         if (recordCursor == null) {
             throw new RuntimeException("Configured cursor providers did not provide a cursor");
@@ -183,7 +183,7 @@ public class HiveRecordSink
     public void appendString(byte[] value)
     {
         Type type = columnTypes.get(field);
-        if (type == VarbinaryType.VARBINARY) {
+        if (type == VarbinaryType.VARBINARY || isMapType(type) || isArrayType(type)) {
             append(value);
         }
         else {
@@ -214,7 +214,7 @@ public class HiveRecordSink
         Type type = columnTypes.get(field);
         if (isMapType(type) || isArrayType(type)) {
             // Hive expects a List<>/Map<> to write, so decode the value
-            value = TypeJsonUtils.stackRepresentationToObject(connectorSession, Slices.utf8Slice((String) value), type);
+            value = TypeJsonUtils.stackRepresentationToObject(connectorSession, Slices.wrappedBuffer((byte[]) value), type);
         }
         tableInspector.setStructFieldData(row, structFields.get(field), value);
         field++;
@@ -32,7 +32,9 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.BlockLocation;
 import org.apache.hadoop.fs.FileStatus;
@@ -66,6 +68,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.hadoop.HadoopFileStatus.isFile;
@@ -115,7 +118,7 @@ class HiveSplitSourceProvider
     private final DataSize maxSplitSize;
     private final int maxPartitionBatchSize;
     private final DataSize maxInitialSplitSize;
-    private long remainingInitialSplits;
+    private final AtomicLong remainingInitialSplits;
     private final ConnectorSession session;
     private final boolean recursiveDirWalkerEnabled;
 
@@ -151,7 +154,7 @@ class HiveSplitSourceProvider
         this.session = session;
         this.classLoader = Thread.currentThread().getContextClassLoader();
         this.maxInitialSplitSize = maxInitialSplitSize;
-        this.remainingInitialSplits = maxInitialSplits;
+        this.remainingInitialSplits = new AtomicLong(maxInitialSplits);
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
     }
 
@@ -185,54 +188,6 @@ class HiveSplitSourceProvider
             ImmutableList.Builder<ListenableFuture<Void>> futureBuilder = ImmutableList.builder();
 
             for (HivePartitionMetadata partition : partitions) {
-                final String partitionName = partition.getHivePartition().getPartitionId();
-                final Properties schema = getPartitionSchema(table, partition.getPartition());
-                final List<HivePartitionKey> partitionKeys = getPartitionKeys(table, partition.getPartition());
-                final TupleDomain<HiveColumnHandle> tupleDomain = (TupleDomain<HiveColumnHandle>) (Object) partition.getHivePartition().getTupleDomain();
-
-                Path path = new Path(getPartitionLocation(table, partition.getPartition()));
-                Configuration configuration = hdfsEnvironment.getConfiguration(path);
-                final InputFormat<?, ?> inputFormat = getInputFormat(configuration, schema, false);
-
-                if (inputFormat instanceof SymlinkTextInputFormat) {
-                    JobConf jobConf = new JobConf(configuration);
-                    FileInputFormat.setInputPaths(jobConf, path);
-                    InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
-                    for (InputSplit rawSplit : splits) {
-                        FileSplit split = ((SymlinkTextInputFormat.SymlinkTextInputSplit) rawSplit).getTargetSplit();
-
-                        // get the filesystem for the target path -- it may be a different hdfs instance
-                        FileSystem targetFilesystem = hdfsEnvironment.getFileSystem(split.getPath());
-                        FileStatus fileStatus = targetFilesystem.getFileStatus(split.getPath());
-                        hiveSplitSource.addToQueue(createHiveSplits(
-                                partitionName,
-                                fileStatus,
-                                targetFilesystem.getFileBlockLocations(fileStatus, split.getStart(), split.getLength()),
-                                split.getStart(),
-                                split.getLength(),
-                                schema,
-                                partitionKeys,
-                                false,
-                                session,
-                                tupleDomain));
-                    }
-                    continue;
-                }
-
-                // TODO: this is currently serial across all partitions and should be done in suspendingExecutor
-                FileSystem fs = hdfsEnvironment.getFileSystem(path);
-                if (bucket.isPresent()) {
-                    Optional<FileStatus> bucketFile = getBucketFile(bucket.get(), fs, path);
-                    if (bucketFile.isPresent()) {
-                        FileStatus file = bucketFile.get();
-                        BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
-                        boolean splittable = isSplittable(inputFormat, fs, file.getPath());
-
-                        hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, session, tupleDomain));
-                        continue;
-                    }
-                }
-
                 // Acquire semaphore so that we only have a fixed number of outstanding partitions being processed asynchronously
                 // NOTE: there must not be any calls that throw in the space between acquiring the semaphore and setting the Future
                 // callback to release it. Otherwise, we will need a try-finally block around this section.
@@ -244,31 +199,8 @@ class HiveSplitSourceProvider
                     return;
                 }
 
-                ListenableFuture<Void> partitionFuture = createAsyncWalker(fs, suspendingExecutor).beginWalk(path, new FileStatusCallback()
-                {
-                    @Override
-                    public void process(FileStatus file, BlockLocation[] blockLocations)
-                    {
-                        try {
-                            boolean splittable = isSplittable(inputFormat, hdfsEnvironment.getFileSystem(file.getPath()), file.getPath());
-
-                            hiveSplitSource.addToQueue(createHiveSplits(
-                                    partitionName,
-                                    file,
-                                    blockLocations,
-                                    0,
-                                    file.getLen(),
-                                    schema,
-                                    partitionKeys,
-                                    splittable,
-                                    session,
-                                    tupleDomain));
-                        }
-                        catch (IOException e) {
-                            hiveSplitSource.fail(e);
-                        }
-                    }
-                });
+                final long startNanos = System.nanoTime();
+                ListenableFuture<Void> partitionFuture = loadPartitionSplitsAsync(hiveSplitSource, suspendingExecutor, session, partition);
 
                 // release the semaphore when the partition finishes
                 Futures.addCallback(partitionFuture, new FutureCallback<Void>()
@@ -276,6 +208,7 @@ class HiveSplitSourceProvider
                     @Override
                     public void onSuccess(Void result)
                     {
+                        namenodeStats.getPartitionListing().add(Duration.nanosSince(startNanos));
                         semaphore.release();
                     }
 
@@ -311,6 +244,134 @@ class HiveSplitSourceProvider
         }
     }
 
+    /**
+     * Loads the splits of the partition in the suspending executor, so the file system and
+     * input format calls of many partitions run in parallel with each other and with the
+     * directory listing. The future completes when all splits of the partition are queued.
+     */
+    private ListenableFuture<Void> loadPartitionSplitsAsync(
+            final HiveSplitSource hiveSplitSource,
+            final SuspendingExecutor suspendingExecutor,
+            final ConnectorSession session,
+            final HivePartitionMetadata partition)
+    {
+        final SettableFuture<Void> future = SettableFuture.create();
+        try {
+            suspendingExecutor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try (SetThreadName ignored = new SetThreadName("HivePartitionLoader");
+                            ThreadContextClassLoader ignoredClassLoader = new ThreadContextClassLoader(classLoader)) {
+                        Futures.addCallback(loadPartition(hiveSplitSource, suspendingExecutor, session, partition), new FutureCallback<Void>()
+                        {
+                            @Override
+                            public void onSuccess(Void result)
+                            {
+                                future.set(null);
+                            }
+
+                            @Override
+                            public void onFailure(Throwable t)
+                            {
+                                future.setException(t);
+                            }
+                        });
+                    }
+                    catch (Throwable t) {
+                        future.setException(t);
+                    }
+                }
+            });
+        }
+        catch (Throwable t) {
+            future.setException(t);
+        }
+        return future;
+    }
+
+    private ListenableFuture<Void> loadPartition(
+            final HiveSplitSource hiveSplitSource,
+            SuspendingExecutor suspendingExecutor,
+            final ConnectorSession session,
+            HivePartitionMetadata partition)
+            throws IOException
+    {
+        final String partitionName = partition.getHivePartition().getPartitionId();
+        final Properties schema = getPartitionSchema(table, partition.getPartition());
+        final List<HivePartitionKey> partitionKeys = getPartitionKeys(table, partition.getPartition());
+        final TupleDomain<HiveColumnHandle> tupleDomain = (TupleDomain<HiveColumnHandle>) (Object) partition.getHivePartition().getTupleDomain();
+
+        Path path = new Path(getPartitionLocation(table, partition.getPartition()));
+        Configuration configuration = hdfsEnvironment.getConfiguration(path);
+        final InputFormat<?, ?> inputFormat = getInputFormat(configuration, schema, false);
+
+        if (inputFormat instanceof SymlinkTextInputFormat) {
+            JobConf jobConf = new JobConf(configuration);
+            FileInputFormat.setInputPaths(jobConf, path);
+            InputSplit[] splits = inputFormat.getSplits(jobConf, 0);
+            for (InputSplit rawSplit : splits) {
+                FileSplit split = ((SymlinkTextInputFormat.SymlinkTextInputSplit) rawSplit).getTargetSplit();
+
+                // get the filesystem for the target path -- it may be a different hdfs instance
+                FileSystem targetFilesystem = hdfsEnvironment.getFileSystem(split.getPath());
+                FileStatus fileStatus = targetFilesystem.getFileStatus(split.getPath());
+                hiveSplitSource.addToQueue(createHiveSplits(
+                        partitionName,
+                        fileStatus,
+                        targetFilesystem.getFileBlockLocations(fileStatus, split.getStart(), split.getLength()),
+                        split.getStart(),
+                        split.getLength(),
+                        schema,
+                        partitionKeys,
+                        false,
+                        session,
+                        tupleDomain));
+            }
+            return Futures.immediateFuture(null);
+        }
+
+        FileSystem fs = hdfsEnvironment.getFileSystem(path);
+        if (bucket.isPresent()) {
+            Optional<FileStatus> bucketFile = getBucketFile(bucket.get(), fs, path);
+            if (bucketFile.isPresent()) {
+                FileStatus file = bucketFile.get();
+                BlockLocation[] blockLocations = fs.getFileBlockLocations(file, 0, file.getLen());
+                boolean splittable = isSplittable(inputFormat, fs, file.getPath());
+
+                hiveSplitSource.addToQueue(createHiveSplits(partitionName, file, blockLocations, 0, file.getLen(), schema, partitionKeys, splittable, session, tupleDomain));
+                return Futures.immediateFuture(null);
+            }
+        }
+
+        return createAsyncWalker(fs, suspendingExecutor).beginWalk(path, new FileStatusCallback()
+        {
+            @Override
+            public void process(FileStatus file, BlockLocation[] blockLocations)
+            {
+                try {
+                    boolean splittable = isSplittable(inputFormat, hdfsEnvironment.getFileSystem(file.getPath()), file.getPath());
+
+                    hiveSplitSource.addToQueue(createHiveSplits(
+                            partitionName,
+                            file,
+                            blockLocations,
+                            0,
+                            file.getLen(),
+                            schema,
+                            partitionKeys,
+                            splittable,
+                            session,
+                            tupleDomain));
+                }
+                catch (IOException e) {
+                    hiveSplitSource.fail(e);
+                }
+            }
+        });
+    }
+
     private AsyncWalker createAsyncWalker(FileSystem fs, SuspendingExecutor suspendingExecutor)
     {
         return new AsyncWalker(fs, suspendingExecutor, directoryLister, namenodeStats, recursiveDirWalkerEnabled);
@@ -371,14 +432,8 @@ class HiveSplitSourceProvider
                 // get the addresses for the block
                 List<HostAddress> addresses = toHostAddress(blockLocation.getHosts());
 
-                long maxBytes = maxSplitSize.toBytes();
-
-                if (remainingInitialSplits > 0) {
-                    maxBytes = maxInitialSplitSize.toBytes();
-                }
-
                 // divide the block into uniform chunks that are smaller than the max split size
-                int chunks = Math.max(1, (int) (blockLocation.getLength() / maxBytes));
+                int chunks = claimChunks(blockLocation.getLength());
                 // when block does not divide evenly into chunks, make the chunk size slightly bigger than necessary
                 long targetChunkSize = (long) Math.ceil(blockLocation.getLength() * 1.0 / chunks);
 
@@ -401,7 +456,6 @@ class HiveSplitSourceProvider
                             tupleDomain));
 
                     chunkOffset += chunkLength;
-                    remainingInitialSplits--;
                 }
                 checkState(chunkOffset == blockLocation.getLength(), "Error splitting blocks");
             }
@@ -429,6 +483,38 @@ class HiveSplitSourceProvider
         return builder.build();
     }
 
+    /**
+     * Returns the number of chunks the block is divided into. While there are remaining initial
+     * splits, the block is divided by the initial split size, and all of its chunks are taken from
+     * the remaining initial splits at once, so concurrent partition loaders can not both see the
+     * last initial split.
+     */
+    @VisibleForTesting
+    int claimChunks(long blockLength)
+    {
+        while (true) {
+            long remaining = remainingInitialSplits.get();
+            if (remaining <= 0) {
+                return getChunkCount(blockLength, maxSplitSize);
+            }
+            int chunks = getChunkCount(blockLength, maxInitialSplitSize);
+            if (remainingInitialSplits.compareAndSet(remaining, remaining - chunks)) {
+                return chunks;
+            }
+        }
+    }
+
+    @VisibleForTesting
+    long getRemainingInitialSplits()
+    {
+        return remainingInitialSplits.get();
+    }
+
+    private static int getChunkCount(long blockLength, DataSize maxSize)
+    {
+        return Math.max(1, (int) (blockLength / maxSize.toBytes()));
+    }
+
     private static List<HostAddress> toHostAddress(String[] hosts)
     {
         ImmutableList.Builder<HostAddress> builder = ImmutableList.builder();
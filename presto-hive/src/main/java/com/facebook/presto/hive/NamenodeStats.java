@@ -24,6 +24,9 @@ public class NamenodeStats
 {
     private final CallStats listLocatedStatus = new CallStats();
     private final CallStats remoteIteratorNext = new CallStats();
+    private final TimeStat partitionListing = new TimeStat();
+    private final CounterStat listingCacheHits = new CounterStat();
+    private final CounterStat listingCacheMisses = new CounterStat();
 
     @Managed
     @Nested
@@ -39,6 +42,41 @@ public class NamenodeStats
         return remoteIteratorNext;
     }
 
+    /**
+     * Time from when the split loader starts a partition until all splits of the partition are queued.
+     */
+    @Managed
+    @Nested
+    public TimeStat getPartitionListing()
+    {
+        return partitionListing;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getListingCacheHits()
+    {
+        return listingCacheHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getListingCacheMisses()
+    {
+        return listingCacheMisses;
+    }
+
+    @Managed
+    public double getListingCacheHitRate()
+    {
+        long hits = listingCacheHits.getTotalCount();
+        long requests = hits + listingCacheMisses.getTotalCount();
+        if (requests == 0) {
+            return 1.0;
+        }
+        return (double) hits / requests;
+    }
+
     public static class CallStats
     {
         private final TimeStat time = new TimeStat();
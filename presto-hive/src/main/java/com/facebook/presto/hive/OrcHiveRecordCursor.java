@@ -65,7 +65,7 @@ import static com.facebook.presto.hive.HiveUtil.parseHiveTimestamp;
 import static com.facebook.presto.hive.HiveUtil.isArrayOrMap;
 import static com.facebook.presto.hive.NumberParser.parseDouble;
 import static com.facebook.presto.hive.NumberParser.parseLong;
-import static com.facebook.presto.hive.util.SerDeUtils.getJsonBytes;
+import static com.facebook.presto.hive.util.SerDeUtils.getBlockSlice;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DateType.DATE;
@@ -442,7 +442,8 @@ class OrcHiveRecordCursor
 
         HiveType type = hiveTypes[column];
         if (type.getCategory() == Category.MAP || type.getCategory() == Category.LIST || type.getCategory() == Category.STRUCT) {
-            slices[column] = Slices.wrappedBuffer(getJsonBytes(sessionTimeZone, object, fieldInspectors[column]));
+            slices[column] = getBlockSlice(sessionTimeZone, object, fieldInspectors[column]);
+            nulls[column] = slices[column] == null;
         }
         else if (type.equals(HIVE_STRING)) {
             Text text = Types.checkType(object, Text.class, "materialized string value");
@@ -0,0 +1,552 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.LazyBlockLoader;
+import com.facebook.presto.spi.block.LazyFixedWidthBlock;
+import com.facebook.presto.spi.block.LazySliceArrayBlock;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.base.Charsets;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.ColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.DoubleColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.LongColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.joda.time.format.ISODateTimeFormat;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.hive.HiveBooleanParser.isFalse;
+import static com.facebook.presto.hive.HiveBooleanParser.isTrue;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
+import static com.facebook.presto.hive.HiveType.HIVE_BYTE;
+import static com.facebook.presto.hive.HiveType.HIVE_DATE;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_FLOAT;
+import static com.facebook.presto.hive.HiveType.HIVE_INT;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_SHORT;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.hive.HiveType.HIVE_TIMESTAMP;
+import static com.facebook.presto.hive.HiveUtil.parseHiveTimestamp;
+import static com.facebook.presto.hive.NumberParser.parseDouble;
+import static com.facebook.presto.hive.NumberParser.parseLong;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Maps.uniqueIndex;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Reads ORC files with the vectorized reader of Hive. Each row batch becomes a page.
+ * The reader only decodes the streams of the projected columns, and each column vector
+ * of the batch is converted to a block when an operator first reads the block, so the
+ * values of columns that are filtered out early are never copied.
+ */
+class OrcPageSource
+        implements ConnectorPageSource
+{
+    // types the vectorized ORC reader can decode; other columns are read with a cursor
+    private static final Set<HiveType> SUPPORTED_TYPES = ImmutableSet.of(
+            HIVE_BOOLEAN,
+            HIVE_BYTE,
+            HIVE_SHORT,
+            HIVE_INT,
+            HIVE_LONG,
+            HIVE_FLOAT,
+            HIVE_DOUBLE,
+            HIVE_STRING,
+            HIVE_DATE,
+            HIVE_TIMESTAMP);
+
+    private static final long MILLIS_IN_DAY = TimeUnit.DAYS.toMillis(1);
+    private static final long NANOS_IN_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final RecordReader recordReader;
+
+    private final List<Type> types;
+    private final HiveType[] hiveTypes;
+    private final int[] hiveColumnIndexes;
+
+    // partition keys and columns missing from the file have the same value for every row
+    private final Block[] constantBlocks;
+
+    private final long timeZoneCorrection;
+
+    private final long totalBytes;
+    private long completedBytes;
+    private long readTimeNanos;
+    private boolean closed;
+
+    public OrcPageSource(
+            RecordReader recordReader,
+            long totalBytes,
+            List<HivePartitionKey> partitionKeys,
+            List<HiveColumnHandle> columns,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager)
+    {
+        checkNotNull(recordReader, "recordReader is null");
+        checkArgument(totalBytes >= 0, "totalBytes is negative");
+        checkNotNull(partitionKeys, "partitionKeys is null");
+        checkNotNull(columns, "columns is null");
+        checkNotNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+        checkNotNull(typeManager, "typeManager is null");
+
+        for (HiveColumnHandle column : columns) {
+            if (!column.isPartitionKey() && !isSupportedType(column.getHiveType())) {
+                try {
+                    recordReader.close();
+                }
+                catch (IOException ignored) {
+                }
+                throw new PrestoException(NOT_SUPPORTED.toErrorCode(), String.format("Unsupported type %s of column %s for the ORC page source", column.getHiveType(), column.getName()));
+            }
+        }
+
+        this.recordReader = recordReader;
+        this.totalBytes = totalBytes;
+
+        int size = columns.size();
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        this.hiveTypes = new HiveType[size];
+        this.hiveColumnIndexes = new int[size];
+        this.constantBlocks = new Block[size];
+
+        // see OrcHiveRecordCursor, the vectorized reader produces the same timestamps as the row reader
+        long hiveStorageCorrection = new DateTime(2015, 1, 1, 0, 0, hiveStorageTimeZone).getMillis() - new DateTime(2015, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+        long jvmCorrection = new DateTime(2015, 1, 1, 0, 0).getMillis() - new DateTime(2015, 1, 1, 0, 0, DateTimeZone.UTC).getMillis();
+        timeZoneCorrection = hiveStorageCorrection - jvmCorrection;
+
+        Map<String, HivePartitionKey> partitionKeysByName = uniqueIndex(partitionKeys, HivePartitionKey.nameGetter());
+        for (int columnIndex = 0; columnIndex < size; columnIndex++) {
+            HiveColumnHandle column = columns.get(columnIndex);
+            Type type = typeManager.getType(column.getTypeName());
+            types.add(type);
+            hiveTypes[columnIndex] = column.getHiveType();
+            hiveColumnIndexes[columnIndex] = column.getHiveColumnIndex();
+
+            if (column.isPartitionKey()) {
+                HivePartitionKey partitionKey = partitionKeysByName.get(column.getName());
+                checkArgument(partitionKey != null, "Unknown partition key %s", column.getName());
+                constantBlocks[columnIndex] = createPartitionKeyBlock(type, column.getName(), partitionKey.getValue(), hiveStorageTimeZone);
+            }
+        }
+        this.types = types.build();
+    }
+
+    public static boolean isSupportedType(HiveType hiveType)
+    {
+        return SUPPORTED_TYPES.contains(hiveType);
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return totalBytes;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        if (!closed) {
+            updateCompletedBytes();
+        }
+        return completedBytes;
+    }
+
+    private void updateCompletedBytes()
+    {
+        try {
+            long newCompletedBytes = (long) (totalBytes * recordReader.getProgress());
+            completedBytes = min(totalBytes, max(completedBytes, newCompletedBytes));
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return closed;
+    }
+
+    @Override
+    public Page getNextPage()
+    {
+        try {
+            if (closed || !recordReader.hasNext()) {
+                close();
+                return null;
+            }
+
+            long start = System.nanoTime();
+            // a new batch is allocated for each page, so the unconverted blocks of earlier pages stay valid
+            VectorizedRowBatch batch = recordReader.nextBatch(null);
+            readTimeNanos += System.nanoTime() - start;
+
+            int positionCount = batch.size;
+            Block[] blocks = new Block[types.size()];
+            for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
+                if (constantBlocks[fieldId] != null) {
+                    blocks[fieldId] = constantBlocks[fieldId].getRegion(0, positionCount);
+                    continue;
+                }
+
+                ColumnVector vector = null;
+                if (hiveColumnIndexes[fieldId] < batch.cols.length) {
+                    vector = batch.cols[hiveColumnIndexes[fieldId]];
+                }
+                if (vector == null) {
+                    // the column was added to the table after the file was written
+                    constantBlocks[fieldId] = createNullBlock(types.get(fieldId));
+                    blocks[fieldId] = constantBlocks[fieldId].getRegion(0, positionCount);
+                    continue;
+                }
+                blocks[fieldId] = createBlock(fieldId, positionCount, vector);
+            }
+            return new Page(positionCount, blocks);
+        }
+        catch (IOException | RuntimeException e) {
+            closeWithSuppression(e);
+            throw new PrestoException(HIVE_CURSOR_ERROR.toErrorCode(), e);
+        }
+    }
+
+    private Block createBlock(int fieldId, int positionCount, ColumnVector vector)
+    {
+        Type type = types.get(fieldId);
+        if (type.equals(BOOLEAN)) {
+            return new LazyFixedWidthBlock(SIZE_OF_BYTE, positionCount, new BooleanBlockLoader((LongColumnVector) vector));
+        }
+        if (type.equals(BIGINT)) {
+            return new LazyFixedWidthBlock(SIZE_OF_LONG, positionCount, new LongBlockLoader((LongColumnVector) vector, 1));
+        }
+        if (type.equals(DATE)) {
+            checkState(hiveTypes[fieldId].equals(HIVE_DATE), "Unexpected hive type %s for DATE column", hiveTypes[fieldId]);
+            return new LazyFixedWidthBlock(SIZE_OF_LONG, positionCount, new LongBlockLoader((LongColumnVector) vector, MILLIS_IN_DAY));
+        }
+        if (type.equals(TIMESTAMP)) {
+            checkState(hiveTypes[fieldId].equals(HIVE_TIMESTAMP), "Unexpected hive type %s for TIMESTAMP column", hiveTypes[fieldId]);
+            return new LazyFixedWidthBlock(SIZE_OF_LONG, positionCount, new TimestampBlockLoader((LongColumnVector) vector, timeZoneCorrection));
+        }
+        if (type.equals(DOUBLE)) {
+            return new LazyFixedWidthBlock(SIZE_OF_DOUBLE, positionCount, new DoubleBlockLoader((DoubleColumnVector) vector));
+        }
+        if (type.equals(VARCHAR)) {
+            return new LazySliceArrayBlock(positionCount, new SliceBlockLoader((BytesColumnVector) vector));
+        }
+        throw new UnsupportedOperationException("Unsupported column type: " + type);
+    }
+
+    @Override
+    public void close()
+    {
+        // some hive input formats are broken and bad things can happen if you close them multiple times
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        updateCompletedBytes();
+
+        try {
+            recordReader.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_CURSOR_ERROR.toErrorCode(), e);
+        }
+    }
+
+    private void closeWithSuppression(Throwable throwable)
+    {
+        checkNotNull(throwable, "throwable is null");
+        try {
+            close();
+        }
+        catch (RuntimeException e) {
+            // Self-suppression not permitted
+            if (throwable != e) {
+                throwable.addSuppressed(e);
+            }
+        }
+    }
+
+    private static Block createPartitionKeyBlock(Type type, String name, String value, DateTimeZone hiveStorageTimeZone)
+    {
+        byte[] bytes = value.getBytes(Charsets.UTF_8);
+
+        BlockBuilder valueBuilder = type.createBlockBuilder(new BlockBuilderStatus());
+        if (HiveUtil.isHiveNull(bytes)) {
+            valueBuilder.appendNull();
+        }
+        else if (type.equals(BOOLEAN)) {
+            if (isTrue(bytes, 0, bytes.length)) {
+                type.writeBoolean(valueBuilder, true);
+            }
+            else if (isFalse(bytes, 0, bytes.length)) {
+                type.writeBoolean(valueBuilder, false);
+            }
+            else {
+                throw new IllegalArgumentException(String.format("Invalid partition value '%s' for BOOLEAN partition key %s", value, name));
+            }
+        }
+        else if (type.equals(BIGINT)) {
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException(String.format("Invalid partition value '' for BIGINT partition key %s", name));
+            }
+            type.writeLong(valueBuilder, parseLong(bytes, 0, bytes.length));
+        }
+        else if (type.equals(DOUBLE)) {
+            if (bytes.length == 0) {
+                throw new IllegalArgumentException(String.format("Invalid partition value '' for DOUBLE partition key %s", name));
+            }
+            type.writeDouble(valueBuilder, parseDouble(bytes, 0, bytes.length));
+        }
+        else if (type.equals(VARCHAR)) {
+            type.writeSlice(valueBuilder, Slices.wrappedBuffer(bytes));
+        }
+        else if (type.equals(DATE)) {
+            type.writeLong(valueBuilder, ISODateTimeFormat.date().withZone(DateTimeZone.UTC).parseMillis(value));
+        }
+        else if (type.equals(TIMESTAMP)) {
+            type.writeLong(valueBuilder, parseHiveTimestamp(value, hiveStorageTimeZone));
+        }
+        else {
+            throw new UnsupportedOperationException("Unsupported column type: " + type);
+        }
+        Block valueBlock = valueBuilder.build();
+
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
+        for (int position = 0; position < VectorizedRowBatch.DEFAULT_SIZE; position++) {
+            type.appendTo(valueBlock, 0, blockBuilder);
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block createNullBlock(Type type)
+    {
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
+        for (int position = 0; position < VectorizedRowBatch.DEFAULT_SIZE; position++) {
+            blockBuilder.appendNull();
+        }
+        return blockBuilder.build();
+    }
+
+    private static boolean isNull(ColumnVector vector, int index)
+    {
+        return !vector.noNulls && vector.isNull[index];
+    }
+
+    private static final class BooleanBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final LongColumnVector vector;
+
+        private BooleanBlockLoader(LongColumnVector vector)
+        {
+            this.vector = vector;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            int positionCount = block.getPositionCount();
+            Slice slice = Slices.allocate(positionCount * SIZE_OF_BYTE);
+            boolean[] valueIsNull = new boolean[positionCount];
+            for (int position = 0; position < positionCount; position++) {
+                int index = vector.isRepeating ? 0 : position;
+                if (isNull(vector, index)) {
+                    valueIsNull[position] = true;
+                }
+                else if (vector.vector[index] != 0) {
+                    slice.setByte(position, 1);
+                }
+            }
+            block.setRawSlice(slice);
+            block.setNullVector(valueIsNull);
+        }
+    }
+
+    private static final class LongBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final LongColumnVector vector;
+        private final long scale;
+
+        private LongBlockLoader(LongColumnVector vector, long scale)
+        {
+            this.vector = vector;
+            this.scale = scale;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            int positionCount = block.getPositionCount();
+            Slice slice = Slices.allocate(positionCount * SIZE_OF_LONG);
+            boolean[] valueIsNull = new boolean[positionCount];
+            for (int position = 0; position < positionCount; position++) {
+                int index = vector.isRepeating ? 0 : position;
+                if (isNull(vector, index)) {
+                    valueIsNull[position] = true;
+                }
+                else {
+                    slice.setLong(position * SIZE_OF_LONG, vector.vector[index] * scale);
+                }
+            }
+            block.setRawSlice(slice);
+            block.setNullVector(valueIsNull);
+        }
+    }
+
+    private static final class TimestampBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final LongColumnVector vector;
+        private final long timeZoneCorrection;
+
+        private TimestampBlockLoader(LongColumnVector vector, long timeZoneCorrection)
+        {
+            this.vector = vector;
+            this.timeZoneCorrection = timeZoneCorrection;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            int positionCount = block.getPositionCount();
+            Slice slice = Slices.allocate(positionCount * SIZE_OF_LONG);
+            boolean[] valueIsNull = new boolean[positionCount];
+            for (int position = 0; position < positionCount; position++) {
+                int index = vector.isRepeating ? 0 : position;
+                if (isNull(vector, index)) {
+                    valueIsNull[position] = true;
+                }
+                else {
+                    // the vector contains nanoseconds, round down to match the row reader for timestamps before 1970
+                    long nanos = vector.vector[index];
+                    long millis = nanos / NANOS_IN_MILLI;
+                    if (nanos % NANOS_IN_MILLI < 0) {
+                        millis--;
+                    }
+                    slice.setLong(position * SIZE_OF_LONG, millis + timeZoneCorrection);
+                }
+            }
+            block.setRawSlice(slice);
+            block.setNullVector(valueIsNull);
+        }
+    }
+
+    private static final class DoubleBlockLoader
+            implements LazyBlockLoader<LazyFixedWidthBlock>
+    {
+        private final DoubleColumnVector vector;
+
+        private DoubleBlockLoader(DoubleColumnVector vector)
+        {
+            this.vector = vector;
+        }
+
+        @Override
+        public void load(LazyFixedWidthBlock block)
+        {
+            int positionCount = block.getPositionCount();
+            Slice slice = Slices.allocate(positionCount * SIZE_OF_DOUBLE);
+            boolean[] valueIsNull = new boolean[positionCount];
+            for (int position = 0; position < positionCount; position++) {
+                int index = vector.isRepeating ? 0 : position;
+                if (isNull(vector, index)) {
+                    valueIsNull[position] = true;
+                }
+                else {
+                    slice.setDouble(position * SIZE_OF_DOUBLE, vector.vector[index]);
+                }
+            }
+            block.setRawSlice(slice);
+            block.setNullVector(valueIsNull);
+        }
+    }
+
+    private static final class SliceBlockLoader
+            implements LazyBlockLoader<LazySliceArrayBlock>
+    {
+        private final BytesColumnVector vector;
+
+        private SliceBlockLoader(BytesColumnVector vector)
+        {
+            this.vector = vector;
+        }
+
+        @Override
+        public void load(LazySliceArrayBlock block)
+        {
+            int positionCount = block.getPositionCount();
+            Slice[] values = new Slice[positionCount];
+            if (vector.isRepeating) {
+                if (!isNull(vector, 0)) {
+                    Slice value = Slices.wrappedBuffer(vector.vector[0], vector.start[0], vector.length[0]);
+                    for (int position = 0; position < positionCount; position++) {
+                        values[position] = value;
+                    }
+                }
+            }
+            else {
+                // the vector references the buffers of the reader, which are not reused between batches
+                for (int position = 0; position < positionCount; position++) {
+                    if (!isNull(vector, position)) {
+                        values[position] = Slices.wrappedBuffer(vector.vector[position], vector.start[position], vector.length[position]);
+                    }
+                }
+            }
+            block.setValues(values);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.base.Optional;
+import com.google.common.base.Throwables;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.Deserializer;
+import org.joda.time.DateTimeZone;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Properties;
+
+import static com.facebook.presto.hive.HiveUtil.getDeserializer;
+import static com.facebook.presto.hive.OrcPageSource.isSupportedType;
+import static com.facebook.presto.hive.OrcRecordCursorProvider.createRecordReader;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class OrcPageSourceFactory
+        implements HivePageSourceFactory
+{
+    private final boolean enabled;
+    private final OrcStripeStats stripeStats;
+
+    @Inject
+    public OrcPageSourceFactory(HiveClientConfig hiveClientConfig, OrcStripeStats stripeStats)
+    {
+        this(checkNotNull(hiveClientConfig, "hiveClientConfig is null").isOptimizedReaderEnabled(), stripeStats);
+    }
+
+    public OrcPageSourceFactory(boolean enabled, OrcStripeStats stripeStats)
+    {
+        this.enabled = enabled;
+        this.stripeStats = checkNotNull(stripeStats, "stripeStats is null");
+    }
+
+    @Override
+    public Optional<OrcPageSource> createPageSource(
+            Configuration configuration,
+            ConnectorSession session,
+            Path path,
+            long start,
+            long length,
+            Properties schema,
+            List<HiveColumnHandle> columns,
+            List<HivePartitionKey> partitionKeys,
+            TupleDomain<HiveColumnHandle> tupleDomain,
+            DateTimeZone hiveStorageTimeZone,
+            TypeManager typeManager)
+    {
+        if (!enabled) {
+            return Optional.absent();
+        }
+
+        @SuppressWarnings("deprecation")
+        Deserializer deserializer = getDeserializer(schema);
+        if (!(deserializer instanceof OrcSerde)) {
+            return Optional.absent();
+        }
+
+        for (HiveColumnHandle column : columns) {
+            if (!column.isPartitionKey() && !isSupportedType(column.getHiveType())) {
+                return Optional.absent();
+            }
+        }
+
+        RecordReader recordReader;
+        try {
+            recordReader = createRecordReader(configuration, path, start, length, columns, tupleDomain, stripeStats);
+        }
+        catch (Exception e) {
+            throw Throwables.propagate(e);
+        }
+
+        return Optional.of(new OrcPageSource(
+                recordReader,
+                length,
+                partitionKeys,
+                columns,
+                hiveStorageTimeZone,
+                typeManager));
+    }
+}
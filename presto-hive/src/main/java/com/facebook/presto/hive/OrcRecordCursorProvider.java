@@ -14,32 +14,65 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Marker;
+import com.facebook.presto.spi.Range;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.TypeManager;
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
+import io.airlift.slice.Slice;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.BooleanColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.ColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.DoubleColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.IntegerColumnStatistics;
 import org.apache.hadoop.hive.ql.io.orc.OrcFile;
 import org.apache.hadoop.hive.ql.io.orc.OrcProto.Type;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
 import org.apache.hadoop.hive.ql.io.orc.Reader;
 import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.ql.io.orc.StringColumnStatistics;
+import org.apache.hadoop.hive.ql.io.orc.StripeInformation;
+import org.apache.hadoop.hive.ql.io.orc.StripeStatistics;
+import org.apache.hadoop.hive.ql.io.sarg.SearchArgument;
 import org.apache.hadoop.hive.serde2.Deserializer;
 import org.joda.time.DateTimeZone;
 
+import javax.inject.Inject;
+
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveUtil.getDeserializer;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createBooleanDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createDoubleDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createLongDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createStringDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.getDomainType;
+import static com.facebook.presto.hive.OrcStatisticsDomains.overlaps;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 public class OrcRecordCursorProvider
         implements HiveRecordCursorProvider
 {
+    private final OrcStripeStats stripeStats;
+
+    @Inject
+    public OrcRecordCursorProvider(OrcStripeStats stripeStats)
+    {
+        this.stripeStats = checkNotNull(stripeStats, "stripeStats is null");
+    }
+
     @Override
     public Optional<HiveRecordCursor> createHiveRecordCursor(
             String clientId,
@@ -63,10 +96,7 @@ public class OrcRecordCursorProvider
 
         RecordReader recordReader;
         try {
-            FileSystem fileSystem = path.getFileSystem(configuration);
-            Reader reader = OrcFile.createReader(fileSystem, path);
-            boolean[] include = findIncludedColumns(reader.getTypes(), columns);
-            recordReader = reader.rows(start, length, include);
+            recordReader = createRecordReader(configuration, path, start, length, columns, tupleDomain, stripeStats);
         }
         catch (Exception e) {
             throw Throwables.propagate(e);
@@ -83,6 +113,240 @@ public class OrcRecordCursorProvider
                 typeManager));
     }
 
+    /**
+     * Opens a reader for the stripes of the split that might contain rows matching the predicate.
+     */
+    static RecordReader createRecordReader(
+            Configuration configuration,
+            Path path,
+            long start,
+            long length,
+            List<HiveColumnHandle> columns,
+            TupleDomain<HiveColumnHandle> tupleDomain,
+            OrcStripeStats stripeStats)
+            throws IOException
+    {
+        FileSystem fileSystem = path.getFileSystem(configuration);
+        Reader reader = OrcFile.createReader(fileSystem, path);
+        boolean[] include = findIncludedColumns(reader.getTypes(), columns);
+
+        // narrow the split to the stripes with statistics matching the predicate, and
+        // let the reader skip the row groups of those stripes using the row index
+        List<StripeInformation> stripes = ImmutableList.copyOf(reader.getStripes());
+        List<StripeStatistics> stripeStatistics = reader.getMetadata().getStripeStatistics();
+        long firstStripeOffset = -1;
+        long lastStripeOffset = -1;
+        int stripesInSplit = 0;
+        int stripesRead = 0;
+        for (int stripe = 0; stripe < stripes.size(); stripe++) {
+            StripeInformation stripeInformation = stripes.get(stripe);
+            if (stripeInformation.getOffset() < start || stripeInformation.getOffset() >= start + length) {
+                continue;
+            }
+            stripesInSplit++;
+
+            if (tupleDomain.isNone()) {
+                continue;
+            }
+            if (stripe < stripeStatistics.size()) {
+                ColumnStatistics[] statistics = stripeStatistics.get(stripe).getColumnStatistics();
+                if (!overlaps(tupleDomain, getColumnDomains(tupleDomain, reader.getTypes(), stripeInformation.getNumberOfRows(), statistics))) {
+                    continue;
+                }
+            }
+            if (firstStripeOffset < 0) {
+                firstStripeOffset = stripeInformation.getOffset();
+            }
+            lastStripeOffset = stripeInformation.getOffset();
+        }
+
+        long readStart = start;
+        long readLength = 0;
+        if (firstStripeOffset >= 0) {
+            readStart = firstStripeOffset;
+            readLength = lastStripeOffset - firstStripeOffset + 1;
+            for (StripeInformation stripeInformation : stripes) {
+                if (stripeInformation.getOffset() >= readStart && stripeInformation.getOffset() < readStart + readLength) {
+                    stripesRead++;
+                }
+            }
+        }
+        stripeStats.recordStripes(stripesRead, stripesInSplit - stripesRead);
+
+        SearchArgument searchArgument = toSearchArgument(tupleDomain, reader.getTypes(), include);
+        if (searchArgument == null) {
+            return reader.rows(readStart, readLength, include);
+        }
+        return reader.rows(readStart, readLength, include, searchArgument, getColumnNames(reader.getTypes(), tupleDomain));
+    }
+
+    private static Map<HiveColumnHandle, Domain> getColumnDomains(TupleDomain<HiveColumnHandle> tupleDomain, List<Type> types, long rowCount, ColumnStatistics[] statistics)
+    {
+        Type root = types.get(0);
+        ImmutableMap.Builder<HiveColumnHandle, Domain> domains = ImmutableMap.builder();
+        for (HiveColumnHandle column : tupleDomain.getDomains().keySet()) {
+            if (column.isPartitionKey() || column.getHiveColumnIndex() >= root.getSubtypesCount()) {
+                continue;
+            }
+            int typeId = root.getSubtypes(column.getHiveColumnIndex());
+            if (typeId >= statistics.length) {
+                continue;
+            }
+            Domain domain = getDomain(column.getHiveType(), rowCount, statistics[typeId]);
+            if (domain != null) {
+                domains.put(column, domain);
+            }
+        }
+        return domains.build();
+    }
+
+    private static Domain getDomain(HiveType hiveType, long rowCount, ColumnStatistics statistics)
+    {
+        Class<?> domainType = getDomainType(hiveType);
+        if (domainType == Long.class && statistics instanceof IntegerColumnStatistics) {
+            IntegerColumnStatistics integerStatistics = (IntegerColumnStatistics) statistics;
+            return createLongDomain(rowCount, statistics.getNumberOfValues(), integerStatistics.getMinimum(), integerStatistics.getMaximum());
+        }
+        if (domainType == Double.class && statistics instanceof DoubleColumnStatistics) {
+            DoubleColumnStatistics doubleStatistics = (DoubleColumnStatistics) statistics;
+            return createDoubleDomain(rowCount, statistics.getNumberOfValues(), doubleStatistics.getMinimum(), doubleStatistics.getMaximum());
+        }
+        if (domainType == Slice.class && statistics instanceof StringColumnStatistics) {
+            StringColumnStatistics stringStatistics = (StringColumnStatistics) statistics;
+            return createStringDomain(rowCount, statistics.getNumberOfValues(), stringStatistics.getMinimum(), stringStatistics.getMaximum());
+        }
+        if (domainType == Boolean.class && statistics instanceof BooleanColumnStatistics) {
+            BooleanColumnStatistics booleanStatistics = (BooleanColumnStatistics) statistics;
+            return createBooleanDomain(rowCount, booleanStatistics.getTrueCount(), booleanStatistics.getFalseCount());
+        }
+        return null;
+    }
+
+    /**
+     * Creates the search argument the reader uses to skip row groups, or null if no column
+     * of the predicate can be checked with the row index. The reader only loads the row
+     * index of the included columns, so the other columns are left out.
+     */
+    private static SearchArgument toSearchArgument(TupleDomain<HiveColumnHandle> tupleDomain, List<Type> types, boolean[] include)
+    {
+        if (tupleDomain.isNone()) {
+            return null;
+        }
+
+        Type root = types.get(0);
+
+        SearchArgument.Builder builder = SearchArgument.FACTORY.newBuilder().startAnd();
+        boolean empty = true;
+        for (Map.Entry<HiveColumnHandle, Domain> entry : tupleDomain.getDomains().entrySet()) {
+            HiveColumnHandle column = entry.getKey();
+            Domain domain = entry.getValue();
+            if (column.isPartitionKey() || column.getHiveColumnIndex() >= root.getSubtypesCount()) {
+                continue;
+            }
+            if (include != null && !include[root.getSubtypes(column.getHiveColumnIndex())]) {
+                continue;
+            }
+            if (domain.getRanges().isAll() || !isSupportedLiterals(column.getHiveType(), domain)) {
+                continue;
+            }
+
+            builder.startOr();
+            if (domain.isNullAllowed()) {
+                builder.isNull(column.getName());
+            }
+            for (Range range : domain.getRanges()) {
+                addRange(builder, column.getName(), range);
+            }
+            builder.end();
+            empty = false;
+        }
+        builder.end();
+
+        if (empty) {
+            return null;
+        }
+        return builder.build();
+    }
+
+    private static boolean isSupportedLiterals(HiveType hiveType, Domain domain)
+    {
+        Class<?> domainType = getDomainType(hiveType);
+        if (domainType != Long.class && domainType != Double.class && domainType != Slice.class) {
+            return false;
+        }
+        if (domainType == Slice.class) {
+            // the row index compares strings by UTF-16 code units, which only agrees with
+            // the order of the UTF-8 bytes when the literal is ASCII
+            for (Range range : domain.getRanges()) {
+                if (!isAsciiBound(range.getLow()) || !isAsciiBound(range.getHigh())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiBound(Marker marker)
+    {
+        return marker.isLowerUnbounded() || marker.isUpperUnbounded() || CharMatcher.ASCII.matchesAllOf(((Slice) marker.getValue()).toStringUtf8());
+    }
+
+    private static void addRange(SearchArgument.Builder builder, String columnName, Range range)
+    {
+        if (range.isSingleValue()) {
+            builder.equals(columnName, toLiteral(range.getSingleValue()));
+            return;
+        }
+
+        builder.startAnd();
+        Marker low = range.getLow();
+        if (!low.isLowerUnbounded()) {
+            builder.startNot();
+            if (low.getBound() == Marker.Bound.EXACTLY) {
+                builder.lessThan(columnName, toLiteral(low.getValue()));
+            }
+            else {
+                builder.lessThanEquals(columnName, toLiteral(low.getValue()));
+            }
+            builder.end();
+        }
+        Marker high = range.getHigh();
+        if (!high.isUpperUnbounded()) {
+            if (high.getBound() == Marker.Bound.EXACTLY) {
+                builder.lessThanEquals(columnName, toLiteral(high.getValue()));
+            }
+            else {
+                builder.lessThan(columnName, toLiteral(high.getValue()));
+            }
+        }
+        builder.end();
+    }
+
+    private static Object toLiteral(Comparable<?> value)
+    {
+        // the row index statistics are Long, Double and String values
+        if (value instanceof Slice) {
+            return ((Slice) value).toStringUtf8();
+        }
+        return value;
+    }
+
+    /**
+     * Gets the names of the predicate columns by ORC column id, which is how the reader
+     * finds the row index of the columns in the search argument.
+     */
+    private static String[] getColumnNames(List<Type> types, TupleDomain<HiveColumnHandle> tupleDomain)
+    {
+        Type root = types.get(0);
+        String[] columnNames = new String[types.size()];
+        for (HiveColumnHandle column : tupleDomain.getDomains().keySet()) {
+            if (!column.isPartitionKey() && column.getHiveColumnIndex() < root.getSubtypesCount()) {
+                columnNames[root.getSubtypes(column.getHiveColumnIndex())] = column.getName();
+            }
+        }
+        return columnNames;
+    }
+
     private static boolean[] findIncludedColumns(List<Type> types, List<HiveColumnHandle> columns)
     {
         checkNotNull(types, "types is null");
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.google.common.base.CharMatcher;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+
+import java.util.Map;
+
+import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
+import static com.facebook.presto.hive.HiveType.HIVE_BYTE;
+import static com.facebook.presto.hive.HiveType.HIVE_DOUBLE;
+import static com.facebook.presto.hive.HiveType.HIVE_FLOAT;
+import static com.facebook.presto.hive.HiveType.HIVE_INT;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.HiveType.HIVE_SHORT;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * Converts the column statistics of ORC and DWRF files into domains, so stripes can be
+ * matched against the {@link TupleDomain} of a split. A domain created from statistics
+ * contains every value of the column, so a stripe whose domains do not overlap the
+ * predicate has no matching rows.
+ */
+final class OrcStatisticsDomains
+{
+    private OrcStatisticsDomains()
+    {
+    }
+
+    /**
+     * Gets the type of the domain values of a column, or null if the statistics of the column are not used.
+     */
+    public static Class<?> getDomainType(HiveType hiveType)
+    {
+        if (hiveType.equals(HIVE_BYTE) || hiveType.equals(HIVE_SHORT) || hiveType.equals(HIVE_INT) || hiveType.equals(HIVE_LONG)) {
+            return Long.class;
+        }
+        if (hiveType.equals(HIVE_FLOAT) || hiveType.equals(HIVE_DOUBLE)) {
+            return Double.class;
+        }
+        if (hiveType.equals(HIVE_STRING)) {
+            return Slice.class;
+        }
+        if (hiveType.equals(HIVE_BOOLEAN)) {
+            return Boolean.class;
+        }
+        return null;
+    }
+
+    /**
+     * Returns true if rows with the column domains might match the predicate. Columns without
+     * a domain might contain any value.
+     */
+    public static boolean overlaps(TupleDomain<HiveColumnHandle> predicate, Map<HiveColumnHandle, Domain> columnDomains)
+    {
+        return predicate.overlaps(TupleDomain.withColumnDomains(ImmutableMap.copyOf(columnDomains)));
+    }
+
+    public static Domain createLongDomain(long rowCount, long valueCount, long min, long max)
+    {
+        if (valueCount == 0) {
+            return Domain.onlyNull(Long.class);
+        }
+        return Domain.create(SortedRangeSet.of(Range.range(min, true, max, true)), valueCount < rowCount);
+    }
+
+    public static Domain createDoubleDomain(long rowCount, long valueCount, double min, double max)
+    {
+        if (valueCount == 0) {
+            return Domain.onlyNull(Double.class);
+        }
+        if (Double.isNaN(min) || Double.isNaN(max)) {
+            return Domain.create(SortedRangeSet.all(Double.class), valueCount < rowCount);
+        }
+        return Domain.create(SortedRangeSet.of(Range.range(min, true, max, true)), valueCount < rowCount);
+    }
+
+    public static Domain createStringDomain(long rowCount, long valueCount, String min, String max)
+    {
+        if (valueCount == 0) {
+            return Domain.onlyNull(Slice.class);
+        }
+        // the statistics are ordered by UTF-16 code units, which only agrees with the
+        // order of the UTF-8 bytes when the bounds are ASCII
+        if (min == null || max == null || !CharMatcher.ASCII.matchesAllOf(min) || !CharMatcher.ASCII.matchesAllOf(max)) {
+            return Domain.create(SortedRangeSet.all(Slice.class), valueCount < rowCount);
+        }
+        return Domain.create(SortedRangeSet.of(Range.range(utf8Slice(min), true, utf8Slice(max), true)), valueCount < rowCount);
+    }
+
+    public static Domain createBooleanDomain(long rowCount, long trueCount, long falseCount)
+    {
+        SortedRangeSet.Builder values = SortedRangeSet.builder(Boolean.class);
+        if (trueCount > 0) {
+            values.add(Range.equal(true));
+        }
+        if (falseCount > 0) {
+            values.add(Range.equal(false));
+        }
+        return Domain.create(values.build(), trueCount + falseCount < rowCount);
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import io.airlift.stats.CounterStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+/**
+ * Counts the stripes of ORC and DWRF splits that are read, and the stripes that are
+ * skipped because their column statistics do not match the predicate of the split.
+ */
+public class OrcStripeStats
+{
+    private final CounterStat stripesRead = new CounterStat();
+    private final CounterStat stripesSkipped = new CounterStat();
+
+    public void recordStripes(int read, int skipped)
+    {
+        stripesRead.update(read);
+        stripesSkipped.update(skipped);
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStripesRead()
+    {
+        return stripesRead;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getStripesSkipped()
+    {
+        return stripesSkipped;
+    }
+}
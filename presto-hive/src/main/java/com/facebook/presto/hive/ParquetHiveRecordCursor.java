@@ -60,6 +60,7 @@ import static com.facebook.presto.hive.HiveBooleanParser.isTrue;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
 import static com.facebook.presto.hive.NumberParser.parseDouble;
 import static com.facebook.presto.hive.NumberParser.parseLong;
+import static com.facebook.presto.hive.TypeJsonUtils.jsonToStackRepresentation;
 import static com.facebook.presto.hive.util.SerDeUtils.JsonContext;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
@@ -653,7 +654,7 @@ class ParquetHiveRecordCursor
             catch (IOException e) {
                 throw Throwables.propagate(e);
             }
-            slices[fieldIndex] = out.copySlice();
+            slices[fieldIndex] = jsonToStackRepresentation(out.slice(), types[fieldIndex]);
         }
 
         @Override
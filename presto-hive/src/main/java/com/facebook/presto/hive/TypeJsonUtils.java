@@ -14,17 +14,21 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.spi.ConnectorSession;
-import com.facebook.presto.spi.block.BlockBuilder;
-import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.MapBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
 import com.facebook.presto.spi.type.DateType;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlTimestamp;
 import com.facebook.presto.spi.type.TimestampType;
 import com.facebook.presto.spi.type.Type;
 import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import com.google.common.base.Throwables;
+import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 
@@ -41,6 +45,9 @@ import static com.facebook.presto.hive.HiveUtil.isArrayType;
 import static com.facebook.presto.hive.HiveUtil.isMapType;
 import static com.fasterxml.jackson.core.JsonFactory.Feature.CANONICALIZE_FIELD_NAMES;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 
 public final class TypeJsonUtils
 {
@@ -54,16 +61,70 @@ public final class TypeJsonUtils
             return null;
         }
 
-        try (JsonParser jsonParser = JSON_FACTORY.createJsonParser(value.getInput())) {
+        if (isArrayType(type)) {
+            Type elementType = type.getTypeParameters().get(0);
+            Block elements = ArrayBlock.readElements(value);
+
+            List<Object> list = new ArrayList<>(elements.getPositionCount());
+            for (int position = 0; position < elements.getPositionCount(); position++) {
+                list.add(elementToObject(session, elements, position, elementType));
+            }
+            return Collections.unmodifiableList(list);
+        }
+
+        if (isMapType(type)) {
+            Type keyType = type.getTypeParameters().get(0);
+            Type valueType = type.getTypeParameters().get(1);
+            Block keys = MapBlock.readKeys(value);
+            Block values = MapBlock.readValues(value);
+
+            Map<Object, Object> map = new LinkedHashMap<>();
+            for (int position = 0; position < keys.getPositionCount(); position++) {
+                map.put(elementToObject(session, keys, position, keyType), elementToObject(session, values, position, valueType));
+            }
+            return Collections.unmodifiableMap(map);
+        }
+
+        throw new IllegalArgumentException("Unsupported type: " + type);
+    }
+
+    private static Object elementToObject(ConnectorSession session, Block block, int position, Type type)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+
+        if (isArrayType(type) || isMapType(type)) {
+            return stackRepresentationToObject(session, block.getSlice(position, 0, block.getLength(position)), type);
+        }
+
+        // fixed width values are stored in the element bytes in their native format
+        Object value = type.getObjectValue(session, block, position);
+        if (type.equals(DateType.DATE)) {
+            return new Date(((SqlDate) value).getMillisAtMidnight());
+        }
+        if (type.equals(TimestampType.TIMESTAMP)) {
+            return new Timestamp(((SqlTimestamp) value).getMillisUtc());
+        }
+
+        return value;
+    }
+
+    /**
+     * Converts a json encoded array or map to the stack representation of the type.
+     */
+    public static Slice jsonToStackRepresentation(Slice json, Type type)
+    {
+        try (JsonParser jsonParser = JSON_FACTORY.createJsonParser(json.getInput())) {
             jsonParser.nextToken();
-            return stackRepresentationToObjectHelper(session, jsonParser, type);
+            return jsonToStackRepresentationHelper(jsonParser, type);
         }
         catch (IOException e) {
             throw Throwables.propagate(e);
         }
     }
 
-    private static Object stackRepresentationToObjectHelper(ConnectorSession session, JsonParser parser, Type type)
+    private static Slice jsonToStackRepresentationHelper(JsonParser parser, Type type)
             throws IOException
     {
         if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
@@ -71,76 +132,82 @@ public final class TypeJsonUtils
         }
 
         if (isArrayType(type)) {
-            List<Object> list = new ArrayList<>();
+            List<Slice> elements = new ArrayList<>();
             checkState(parser.getCurrentToken() == JsonToken.START_ARRAY, "Expected a json array");
             while (parser.nextToken() != JsonToken.END_ARRAY) {
-                list.add(stackRepresentationToObjectHelper(session, parser, type.getTypeParameters().get(0)));
+                elements.add(jsonToStackRepresentationHelper(parser, type.getTypeParameters().get(0)));
             }
-
-            return Collections.unmodifiableList(list);
+            return ArrayBlock.writeElements(toBlock(elements));
         }
 
         if (isMapType(type)) {
-            Map<Object, Object> map = new LinkedHashMap<>();
+            List<Slice> keys = new ArrayList<>();
+            List<Slice> values = new ArrayList<>();
             checkState(parser.getCurrentToken() == JsonToken.START_OBJECT, "Expected a json object");
             while (parser.nextValue() != JsonToken.END_OBJECT) {
-                Object key = mapKeyToObject(session, parser.getCurrentName(), type.getTypeParameters().get(0));
-                Object value = stackRepresentationToObjectHelper(session, parser, type.getTypeParameters().get(1));
-                map.put(key, value);
+                keys.add(mapKeyToSlice(parser.getCurrentName(), type.getTypeParameters().get(0)));
+                values.add(jsonToStackRepresentationHelper(parser, type.getTypeParameters().get(1)));
             }
-
-            return Collections.unmodifiableMap(map);
+            return MapBlock.writeEntry(toBlock(keys), toBlock(values));
         }
 
-        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
         if (type.getJavaType() == boolean.class) {
-            type.writeBoolean(blockBuilder, parser.getBooleanValue());
+            return booleanSlice(parser.getBooleanValue());
         }
-        else if (type.getJavaType() == long.class) {
-            type.writeLong(blockBuilder, parser.getLongValue());
+        if (type.getJavaType() == long.class) {
+            return longSlice(parser.getLongValue());
         }
-        else if (type.getJavaType() == double.class) {
-            type.writeDouble(blockBuilder, parser.getDoubleValue());
-        }
-        else if (type.getJavaType() == Slice.class) {
-            type.writeSlice(blockBuilder, Slices.utf8Slice(parser.getValueAsString()));
-        }
-
-        Object value = type.getObjectValue(session, blockBuilder.build(), 0);
-        if (type.equals(DateType.DATE)) {
-            return new Date(((SqlDate) value).getMillisAtMidnight());
+        if (type.getJavaType() == double.class) {
+            return doubleSlice(parser.getDoubleValue());
         }
-        if (type.equals(TimestampType.TIMESTAMP)) {
-            return new Timestamp(((SqlTimestamp) value).getMillisUtc());
+        if (parser.getCurrentToken() == JsonToken.START_ARRAY || parser.getCurrentToken() == JsonToken.START_OBJECT) {
+            // structs are still represented as json
+            DynamicSliceOutput output = new DynamicSliceOutput(64);
+            try (JsonGenerator generator = JSON_FACTORY.createGenerator(output)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return output.slice();
         }
-
-        return value;
+        return Slices.utf8Slice(parser.getValueAsString());
     }
 
-    private static Object mapKeyToObject(ConnectorSession session, String jsonKey, Type type)
+    private static Slice mapKeyToSlice(String jsonKey, Type type)
     {
-        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
         if (type.getJavaType() == boolean.class) {
-            type.writeBoolean(blockBuilder, Boolean.valueOf(jsonKey));
+            return booleanSlice(Boolean.valueOf(jsonKey));
         }
-        else if (type.getJavaType() == long.class) {
-            type.writeLong(blockBuilder, Long.valueOf(jsonKey));
+        if (type.getJavaType() == long.class) {
+            return longSlice(Long.valueOf(jsonKey));
         }
-        else if (type.getJavaType() == double.class) {
-            type.writeDouble(blockBuilder, Double.valueOf(jsonKey));
-        }
-        else if (type.getJavaType() == Slice.class) {
-            type.writeSlice(blockBuilder, Slices.utf8Slice(jsonKey));
+        if (type.getJavaType() == double.class) {
+            return doubleSlice(Double.valueOf(jsonKey));
         }
+        return Slices.utf8Slice(jsonKey);
+    }
 
-        Object value = type.getObjectValue(session, blockBuilder.build(), 0);
-        if (type.equals(DateType.DATE)) {
-            return new Date(((SqlDate) value).getMillisAtMidnight());
-        }
-        if (type.equals(TimestampType.TIMESTAMP)) {
-            return new Timestamp(((SqlTimestamp) value).getMillisUtc());
-        }
+    private static Block toBlock(List<Slice> values)
+    {
+        return new SliceArrayBlock(values.size(), values.toArray(new Slice[values.size()]));
+    }
 
-        return value;
+    private static Slice booleanSlice(boolean value)
+    {
+        Slice slice = Slices.allocate(SIZE_OF_BYTE);
+        slice.setByte(0, value ? 1 : 0);
+        return slice;
+    }
+
+    private static Slice longSlice(long value)
+    {
+        Slice slice = Slices.allocate(SIZE_OF_LONG);
+        slice.setLong(0, value);
+        return slice;
+    }
+
+    private static Slice doubleSlice(double value)
+    {
+        Slice slice = Slices.allocate(SIZE_OF_DOUBLE);
+        slice.setDouble(0, value);
+        return slice;
     }
 }
@@ -13,15 +13,21 @@
  */
 package com.facebook.presto.hive.util;
 
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.MapBlock;
+import com.facebook.presto.spi.block.SliceArrayBlock;
 import com.fasterxml.jackson.core.Base64Variants;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.google.common.base.Throwables;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import org.apache.hadoop.hive.serde2.io.DateWritable;
 import org.apache.hadoop.hive.serde2.io.TimestampWritable;
 import org.apache.hadoop.hive.serde2.objectinspector.ListObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.MapObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Category;
 import org.apache.hadoop.hive.serde2.objectinspector.PrimitiveObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
 import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
@@ -46,12 +52,16 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.sql.Date;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.hive.util.Types.checkType;
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 
 public final class SerDeUtils
 {
@@ -61,6 +71,124 @@ public final class SerDeUtils
 
     private SerDeUtils() {}
 
+    /**
+     * Gets the stack representation of a complex value. Lists and maps are encoded as
+     * array and map blocks, while structs are encoded as json. Returns null if the value is null.
+     */
+    public static Slice getBlockSlice(DateTimeZone sessionTimeZone, Object object, ObjectInspector inspector)
+    {
+        if (object == null) {
+            return null;
+        }
+
+        switch (inspector.getCategory()) {
+            case LIST:
+                return serializeListToBlock(sessionTimeZone, object, (ListObjectInspector) inspector);
+            case MAP:
+                return serializeMapToBlock(sessionTimeZone, object, (MapObjectInspector) inspector);
+            default:
+                return Slices.wrappedBuffer(getJsonBytes(sessionTimeZone, object, inspector));
+        }
+    }
+
+    private static Slice serializeListToBlock(DateTimeZone sessionTimeZone, Object object, ListObjectInspector inspector)
+    {
+        List<?> list = inspector.getList(object);
+        if (list == null) {
+            return null;
+        }
+
+        ObjectInspector elementInspector = inspector.getListElementObjectInspector();
+
+        Slice[] elements = new Slice[list.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = serializeElement(sessionTimeZone, list.get(i), elementInspector);
+        }
+        return ArrayBlock.writeElements(new SliceArrayBlock(elements.length, elements));
+    }
+
+    private static Slice serializeMapToBlock(DateTimeZone sessionTimeZone, Object object, MapObjectInspector inspector)
+    {
+        Map<?, ?> map = inspector.getMap(object);
+        if (map == null) {
+            return null;
+        }
+
+        ObjectInspector keyInspector = inspector.getMapKeyObjectInspector();
+        ObjectInspector valueInspector = inspector.getMapValueObjectInspector();
+
+        List<Slice> keys = new ArrayList<>(map.size());
+        List<Slice> values = new ArrayList<>(map.size());
+        for (Map.Entry<?, ?> entry : map.entrySet()) {
+            // Hive skips map entries with null keys
+            if (entry.getKey() != null) {
+                keys.add(serializeElement(sessionTimeZone, entry.getKey(), keyInspector));
+                values.add(serializeElement(sessionTimeZone, entry.getValue(), valueInspector));
+            }
+        }
+        return MapBlock.writeEntry(
+                new SliceArrayBlock(keys.size(), keys.toArray(new Slice[keys.size()])),
+                new SliceArrayBlock(values.size(), values.toArray(new Slice[values.size()])));
+    }
+
+    private static Slice serializeElement(DateTimeZone sessionTimeZone, Object object, ObjectInspector inspector)
+    {
+        if (object == null) {
+            return null;
+        }
+
+        if (inspector.getCategory() == Category.PRIMITIVE) {
+            return serializePrimitiveElement(object, (PrimitiveObjectInspector) inspector);
+        }
+        return getBlockSlice(sessionTimeZone, object, inspector);
+    }
+
+    private static Slice serializePrimitiveElement(Object object, PrimitiveObjectInspector inspector)
+    {
+        switch (inspector.getPrimitiveCategory()) {
+            case BOOLEAN:
+                Slice booleanSlice = Slices.allocate(SIZE_OF_BYTE);
+                booleanSlice.setByte(0, ((BooleanObjectInspector) inspector).get(object) ? 1 : 0);
+                return booleanSlice;
+            case BYTE:
+                return longSlice(((ByteObjectInspector) inspector).get(object));
+            case SHORT:
+                return longSlice(((ShortObjectInspector) inspector).get(object));
+            case INT:
+                return longSlice(((IntObjectInspector) inspector).get(object));
+            case LONG:
+                return longSlice(((LongObjectInspector) inspector).get(object));
+            case FLOAT:
+                return doubleSlice(((FloatObjectInspector) inspector).get(object));
+            case DOUBLE:
+                return doubleSlice(((DoubleObjectInspector) inspector).get(object));
+            case STRING:
+                return Slices.utf8Slice(((StringObjectInspector) inspector).getPrimitiveJavaObject(object));
+            case DATE:
+                return longSlice(formatDateAsLong(object, (DateObjectInspector) inspector));
+            case TIMESTAMP:
+                return longSlice(formatTimestampAsLong(object, (TimestampObjectInspector) inspector));
+            case BINARY:
+                BytesWritable writable = ((BinaryObjectInspector) inspector).getPrimitiveWritableObject(object);
+                return Slices.copyOf(Slices.wrappedBuffer(writable.getBytes()), 0, writable.getLength());
+        }
+        throw new RuntimeException("Unknown primitive type: " + inspector.getPrimitiveCategory());
+    }
+
+    private static Slice longSlice(long value)
+    {
+        Slice slice = Slices.allocate(SIZE_OF_LONG);
+        slice.setLong(0, value);
+        return slice;
+    }
+
+    private static Slice doubleSlice(double value)
+    {
+        Slice slice = Slices.allocate(SIZE_OF_DOUBLE);
+        slice.setDouble(0, value);
+        return slice;
+    }
+
     public static byte[] getJsonBytes(DateTimeZone sessionTimeZone, Object object, ObjectInspector objectInspector)
     {
         ByteArrayOutputStream out = new ByteArrayOutputStream();
@@ -50,6 +50,7 @@ import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.hadoop.HadoopFileStatus.isDirectory;
+import static com.facebook.presto.hive.HiveTestUtils.DEFAULT_HIVE_PAGE_SOURCE_FACTORIES;
 import static com.facebook.presto.hive.HiveTestUtils.DEFAULT_HIVE_RECORD_CURSOR_PROVIDERS;
 import static com.facebook.presto.hive.HiveTestUtils.TYPE_MANAGER;
 import static com.facebook.presto.hive.HiveTestUtils.getTypes;
@@ -136,7 +137,7 @@ public abstract class AbstractTestHiveClientS3
                 sameThreadExecutor(),
                 new TypeRegistry());
 
-        pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, DEFAULT_HIVE_RECORD_CURSOR_PROVIDERS, TYPE_MANAGER);
+        pageSourceProvider = new HivePageSourceProvider(hiveClientConfig, hdfsEnvironment, DEFAULT_HIVE_PAGE_SOURCE_FACTORIES, DEFAULT_HIVE_RECORD_CURSOR_PROVIDERS, TYPE_MANAGER);
     }
 
     @Test
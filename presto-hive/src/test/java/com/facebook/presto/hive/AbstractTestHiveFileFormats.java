@@ -13,14 +13,15 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.DateType;
 import com.facebook.presto.spi.type.TimestampType;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.type.TypeRegistry;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Predicate;
@@ -66,6 +67,7 @@ import static com.facebook.presto.hive.HiveClient.getType;
 import static com.facebook.presto.hive.HivePartitionKey.HIVE_DEFAULT_DYNAMIC_PARTITION;
 import static com.facebook.presto.hive.HiveUtil.isArrayType;
 import static com.facebook.presto.hive.HiveUtil.isMapType;
+import static com.facebook.presto.hive.TypeJsonUtils.jsonToStackRepresentation;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
@@ -337,23 +339,75 @@ public abstract class AbstractTestHiveFileFormats
                     throw new RuntimeException("unknown type");
                 }
 
-                if (fieldFromCursor == null) {
-                    assertEquals(null, testColumn.getExpectedValue(), String.format("Expected null for column %s", testColumn.getName()));
-                }
-                else if (testColumn.getObjectInspector().getTypeName().equals("float") ||
-                        testColumn.getObjectInspector().getTypeName().equals("double")) {
-                    assertEquals((double) fieldFromCursor, (double) testColumn.getExpectedValue(), EPSILON);
-                }
-                else if (testColumn.getObjectInspector().getCategory() == Category.PRIMITIVE) {
-                    assertEquals(fieldFromCursor, testColumn.getExpectedValue(), String.format("Wrong value for column %s", testColumn.getName()));
+                checkValue(testColumn, type, fieldFromCursor);
+            }
+        }
+    }
+
+    protected void checkPageSource(ConnectorPageSource pageSource, List<TestColumn> testColumns)
+            throws IOException
+    {
+        try {
+            int rowCount = 0;
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
                 }
-                else {
-                    ObjectMapper mapper = new ObjectMapper();
-                    JsonNode expected = mapper.readTree((String) testColumn.getExpectedValue());
-                    JsonNode actual = mapper.readTree(((Slice) fieldFromCursor).getBytes());
-                    assertEquals(actual, expected, String.format("Wrong value for column %s", testColumn.getName()));
+                assertEquals(page.getChannelCount(), testColumns.size());
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    for (int i = 0; i < testColumns.size(); i++) {
+                        TestColumn testColumn = testColumns.get(i);
+                        Type type = getType(testColumn.getObjectInspector(), TYPE_MANAGER);
+                        Block block = page.getBlock(i);
+
+                        Object fieldFromPage;
+                        if (block.isNull(position)) {
+                            fieldFromPage = null;
+                        }
+                        else if (BOOLEAN.equals(type)) {
+                            fieldFromPage = type.getBoolean(block, position);
+                        }
+                        else if (BIGINT.equals(type) || DateType.DATE.equals(type) || TimestampType.TIMESTAMP.equals(type)) {
+                            fieldFromPage = type.getLong(block, position);
+                        }
+                        else if (DOUBLE.equals(type)) {
+                            fieldFromPage = type.getDouble(block, position);
+                        }
+                        else if (VARCHAR.equals(type) || VARBINARY.equals(type) || isArrayType(type) || isMapType(type)) {
+                            fieldFromPage = type.getSlice(block, position);
+                        }
+                        else {
+                            throw new RuntimeException("unknown type");
+                        }
+
+                        checkValue(testColumn, type, fieldFromPage);
+                    }
                 }
+                rowCount += page.getPositionCount();
             }
+            assertEquals(rowCount, NUM_ROWS);
+        }
+        finally {
+            pageSource.close();
+        }
+    }
+
+    private static void checkValue(TestColumn testColumn, Type type, Object actual)
+    {
+        if (actual == null) {
+            assertEquals(null, testColumn.getExpectedValue(), String.format("Expected null for column %s", testColumn.getName()));
+        }
+        else if (testColumn.getObjectInspector().getTypeName().equals("float") ||
+                testColumn.getObjectInspector().getTypeName().equals("double")) {
+            assertEquals((double) actual, (double) testColumn.getExpectedValue(), EPSILON);
+        }
+        else if (testColumn.getObjectInspector().getCategory() == Category.PRIMITIVE) {
+            assertEquals(actual, testColumn.getExpectedValue(), String.format("Wrong value for column %s", testColumn.getName()));
+        }
+        else {
+            Slice expected = jsonToStackRepresentation(Slices.utf8Slice((String) testColumn.getExpectedValue()), type);
+            assertEquals(actual, expected, String.format("Wrong value for column %s", testColumn.getName()));
         }
     }
 
@@ -14,9 +14,12 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.hadoop.HadoopNative;
+import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
@@ -66,6 +69,8 @@ import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveClient.getType;
 import static com.facebook.presto.hive.HiveColumnHandle.hiveColumnIndexGetter;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.google.common.collect.Lists.transform;
 import static com.google.common.io.ByteStreams.nullOutputStream;
@@ -147,7 +152,8 @@ public final class BenchmarkHiveFileFormats
                         new org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat(),
                         new org.apache.hadoop.hive.ql.io.orc.OrcSerde(),
                         null,
-                        new OrcRecordCursorProvider()),
+                        ImmutableList.<HivePageSourceFactory>of(new OrcPageSourceFactory(true, new OrcStripeStats())),
+                        new OrcRecordCursorProvider(new OrcStripeStats())),
 
                 new BenchmarkFile(
                         "rc binary gzip",
@@ -156,6 +162,7 @@ public final class BenchmarkHiveFileFormats
                         new RCFileOutputFormat(),
                         new LazyBinaryColumnarSerDe(),
                         "gzip",
+                        ImmutableList.<HivePageSourceFactory>of(),
                         new ColumnarBinaryHiveRecordCursorProvider()),
 
                 new BenchmarkFile(
@@ -165,6 +172,7 @@ public final class BenchmarkHiveFileFormats
                         new MapredParquetOutputFormat(),
                         new ParquetHiveSerDe(),
                         "gzip",
+                        ImmutableList.<HivePageSourceFactory>of(),
                         new ParquetRecordCursorProvider()),
 
                 new BenchmarkFile(
@@ -174,7 +182,8 @@ public final class BenchmarkHiveFileFormats
                         new com.facebook.hive.orc.OrcOutputFormat(),
                         new com.facebook.hive.orc.OrcSerde(),
                         null,
-                        new DwrfRecordCursorProvider())
+                        ImmutableList.<HivePageSourceFactory>of(),
+                        new DwrfRecordCursorProvider(new OrcStripeStats()))
         );
 
         if (!benchmarkWriteSpeed) {
@@ -237,6 +246,18 @@ public final class BenchmarkHiveFileFormats
                 }
                 logDuration(benchmarkFile.getName() + " " + getCursorType(recordCursorProvider), start, loopCount, result);
             }
+            for (HivePageSourceFactory pageSourceFactory : benchmarkFile.getPageSourceFactories()) {
+                long result = 0;
+                start = System.nanoTime();
+                for (int loop = 0; loop < loopCount; loop++) {
+                    result = benchmarkReadBigint(
+                            benchmarkFile.getFileSplit(),
+                            createPartitionProperties(benchmarkFile),
+                            pageSourceFactory
+                    );
+                }
+                logDuration(benchmarkFile.getName() + " page source", start, loopCount, result);
+            }
         }
         System.out.println();
 
@@ -256,6 +277,18 @@ public final class BenchmarkHiveFileFormats
                 }
                 logDuration(benchmarkFile.getName() + " " + getCursorType(recordCursorProvider), start, loopCount, result);
             }
+            for (HivePageSourceFactory pageSourceFactory : benchmarkFile.getPageSourceFactories()) {
+                double result = 0;
+                start = System.nanoTime();
+                for (int loop = 0; loop < loopCount; loop++) {
+                    result = benchmarkReadDouble(
+                            benchmarkFile.getFileSplit(),
+                            createPartitionProperties(benchmarkFile),
+                            pageSourceFactory
+                    );
+                }
+                logDuration(benchmarkFile.getName() + " page source", start, loopCount, result);
+            }
         }
         System.out.println();
 
@@ -275,6 +308,18 @@ public final class BenchmarkHiveFileFormats
                 }
                 logDuration(benchmarkFile.getName() + " " + getCursorType(recordCursorProvider), start, loopCount, result);
             }
+            for (HivePageSourceFactory pageSourceFactory : benchmarkFile.getPageSourceFactories()) {
+                long result = 0;
+                start = System.nanoTime();
+                for (int loop = 0; loop < loopCount; loop++) {
+                    result = benchmarkReadVarchar(
+                            benchmarkFile.getFileSplit(),
+                            createPartitionProperties(benchmarkFile),
+                            pageSourceFactory
+                    );
+                }
+                logDuration(benchmarkFile.getName() + " page source", start, loopCount, result);
+            }
         }
         System.out.println();
 
@@ -294,6 +339,18 @@ public final class BenchmarkHiveFileFormats
                 }
                 logDuration(benchmarkFile.getName() + " " + getCursorType(recordCursorProvider), start, loopCount, result);
             }
+            for (HivePageSourceFactory pageSourceFactory : benchmarkFile.getPageSourceFactories()) {
+                double result = 0;
+                start = System.nanoTime();
+                for (int loop = 0; loop < loopCount; loop++) {
+                    result = benchmarkReadTpch6(
+                            benchmarkFile.getFileSplit(),
+                            createPartitionProperties(benchmarkFile),
+                            pageSourceFactory
+                    );
+                }
+                logDuration(benchmarkFile.getName() + " page source", start, loopCount, result);
+            }
         }
         System.out.println();
 
@@ -313,6 +370,18 @@ public final class BenchmarkHiveFileFormats
                 }
                 logDuration(benchmarkFile.getName() + " " + getCursorType(recordCursorProvider), start, loopCount, result);
             }
+            for (HivePageSourceFactory pageSourceFactory : benchmarkFile.getPageSourceFactories()) {
+                double result = 0;
+                start = System.nanoTime();
+                for (int loop = 0; loop < loopCount; loop++) {
+                    result = benchmarkReadTpch1(
+                            benchmarkFile.getFileSplit(),
+                            createPartitionProperties(benchmarkFile),
+                            pageSourceFactory
+                    );
+                }
+                logDuration(benchmarkFile.getName() + " page source", start, loopCount, result);
+            }
         }
         System.out.println();
 
@@ -563,6 +632,208 @@ public final class BenchmarkHiveFileFormats
         return sum;
     }
 
+    private static long benchmarkReadBigint(
+            FileSplit fileSplit,
+            Properties partitionProperties,
+            HivePageSourceFactory pageSourceFactory)
+            throws Exception
+    {
+        HiveSplit split = createHiveSplit(fileSplit, partitionProperties);
+
+        long sum = 0;
+        for (int i = 0; i < LOOPS; i++) {
+            sum = 0;
+
+            ConnectorPageSource pageSource = createPageSource(pageSourceFactory, split, BIGINT_COLUMN);
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                Block block = page.getBlock(0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (!block.isNull(position)) {
+                        sum += BIGINT.getLong(block, position);
+                    }
+                }
+            }
+            pageSource.close();
+        }
+        return sum;
+    }
+
+    private static double benchmarkReadDouble(
+            FileSplit fileSplit,
+            Properties partitionProperties,
+            HivePageSourceFactory pageSourceFactory)
+            throws Exception
+    {
+        HiveSplit split = createHiveSplit(fileSplit, partitionProperties);
+
+        double sum = 0;
+        for (int i = 0; i < LOOPS; i++) {
+            sum = 0;
+
+            ConnectorPageSource pageSource = createPageSource(pageSourceFactory, split, DOUBLE_COLUMN);
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                Block block = page.getBlock(0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (!block.isNull(position)) {
+                        sum += DOUBLE.getDouble(block, position);
+                    }
+                }
+            }
+            pageSource.close();
+        }
+        return sum;
+    }
+
+    private static long benchmarkReadVarchar(
+            FileSplit fileSplit,
+            Properties partitionProperties,
+            HivePageSourceFactory pageSourceFactory)
+            throws Exception
+    {
+        HiveSplit split = createHiveSplit(fileSplit, partitionProperties);
+
+        long sum = 0;
+        for (int i = 0; i < LOOPS; i++) {
+            sum = 0;
+
+            ConnectorPageSource pageSource = createPageSource(pageSourceFactory, split, VARCHAR_COLUMN);
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                Block block = page.getBlock(0);
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (!block.isNull(position)) {
+                        sum += block.getLength(position);
+                    }
+                }
+            }
+            pageSource.close();
+        }
+        return sum;
+    }
+
+    private static double benchmarkReadTpch6(
+            FileSplit fileSplit,
+            Properties partitionProperties,
+            HivePageSourceFactory pageSourceFactory)
+            throws IOException
+    {
+        HiveSplit split = createHiveSplit(fileSplit, partitionProperties);
+
+        double sum = 0;
+        for (int i = 0; i < LOOPS; i++) {
+            sum = 0;
+
+            ConnectorPageSource pageSource = createPageSource(pageSourceFactory, split, TPCH_6_COLUMNS);
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                Block block0 = page.getBlock(0);
+                Block block1 = page.getBlock(1);
+                Block block2 = page.getBlock(2);
+                Block block3 = page.getBlock(3);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (!block0.isNull(position)) {
+                        sum += BIGINT.getLong(block0, position);
+                    }
+                    if (!block1.isNull(position)) {
+                        sum += DOUBLE.getDouble(block1, position);
+                    }
+                    if (!block2.isNull(position)) {
+                        sum += DOUBLE.getDouble(block2, position);
+                    }
+                    if (!block3.isNull(position)) {
+                        sum += block3.getLength(position);
+                    }
+                }
+            }
+            pageSource.close();
+        }
+        return sum;
+    }
+
+    private static double benchmarkReadTpch1(
+            FileSplit fileSplit,
+            Properties partitionProperties,
+            HivePageSourceFactory pageSourceFactory)
+            throws IOException
+    {
+        HiveSplit split = createHiveSplit(fileSplit, partitionProperties);
+
+        double sum = 0;
+        for (int i = 0; i < LOOPS; i++) {
+            sum = 0;
+
+            ConnectorPageSource pageSource = createPageSource(pageSourceFactory, split, TPCH_1_COLUMNS);
+            while (!pageSource.isFinished()) {
+                Page page = pageSource.getNextPage();
+                if (page == null) {
+                    continue;
+                }
+                Block block0 = page.getBlock(0);
+                Block block1 = page.getBlock(1);
+                Block block2 = page.getBlock(2);
+                Block block3 = page.getBlock(3);
+                Block block4 = page.getBlock(4);
+                Block block5 = page.getBlock(5);
+                Block block6 = page.getBlock(6);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    if (!block0.isNull(position)) {
+                        sum += BIGINT.getLong(block0, position);
+                    }
+                    if (!block1.isNull(position)) {
+                        sum += DOUBLE.getDouble(block1, position);
+                    }
+                    if (!block2.isNull(position)) {
+                        sum += DOUBLE.getDouble(block2, position);
+                    }
+                    if (!block3.isNull(position)) {
+                        sum += DOUBLE.getDouble(block3, position);
+                    }
+                    if (!block4.isNull(position)) {
+                        sum += block4.getLength(position);
+                    }
+                    if (!block5.isNull(position)) {
+                        sum += block5.getLength(position);
+                    }
+                    if (!block6.isNull(position)) {
+                        sum += block6.getLength(position);
+                    }
+                }
+            }
+            pageSource.close();
+        }
+        return sum;
+    }
+
+    private static ConnectorPageSource createPageSource(HivePageSourceFactory pageSourceFactory, HiveSplit split, List<HiveColumnHandle> columns)
+    {
+        return pageSourceFactory.createPageSource(
+                new Configuration(),
+                split.getSession(),
+                new Path(split.getPath()),
+                split.getStart(),
+                split.getLength(),
+                split.getSchema(),
+                columns,
+                split.getPartitionKeys(),
+                TupleDomain.<HiveColumnHandle>all(),
+                DateTimeZone.UTC,
+                TYPE_MANAGER).get();
+    }
+
     private static double benchmarkReadAll(
             FileSplit fileSplit,
             Properties partitionProperties,
@@ -898,6 +1169,7 @@ public final class BenchmarkHiveFileFormats
         private final SerDe serDe;
         private final String compressionCodec;
         private final FileSplit fileSplit;
+        private final List<HivePageSourceFactory> pageSourceFactories;
         private final List<HiveRecordCursorProvider> recordCursorProviders;
         private final File file;
 
@@ -908,6 +1180,7 @@ public final class BenchmarkHiveFileFormats
                 HiveOutputFormat<?, ?> outputFormat,
                 @SuppressWarnings("deprecation") SerDe serDe,
                 String compressionCodec,
+                List<HivePageSourceFactory> pageSourceFactories,
                 HiveRecordCursorProvider... recordCursorProviders)
                 throws Exception
         {
@@ -916,6 +1189,7 @@ public final class BenchmarkHiveFileFormats
             this.outputFormat = outputFormat;
             this.serDe = serDe;
             this.compressionCodec = compressionCodec;
+            this.pageSourceFactories = ImmutableList.copyOf(pageSourceFactories);
             this.recordCursorProviders = ImmutableList.copyOf(recordCursorProviders);
 
             file = new File(DATA_DIR, "line_item." + fileExtension);
@@ -961,6 +1235,11 @@ public final class BenchmarkHiveFileFormats
             return file;
         }
 
+        public List<HivePageSourceFactory> getPageSourceFactories()
+        {
+            return pageSourceFactories;
+        }
+
         public List<HiveRecordCursorProvider> getRecordCursorProviders()
         {
             return recordCursorProviders;
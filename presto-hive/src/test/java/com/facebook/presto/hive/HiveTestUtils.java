@@ -27,10 +27,13 @@ public final class HiveTestUtils
     {
     }
 
+    public static final ImmutableSet<HivePageSourceFactory> DEFAULT_HIVE_PAGE_SOURCE_FACTORIES = ImmutableSet.<HivePageSourceFactory>of(
+            new OrcPageSourceFactory(true, new OrcStripeStats()));
+
     public static final ImmutableSet<HiveRecordCursorProvider> DEFAULT_HIVE_RECORD_CURSOR_PROVIDERS = ImmutableSet.of(
-            new OrcRecordCursorProvider(),
+            new OrcRecordCursorProvider(new OrcStripeStats()),
             new ParquetRecordCursorProvider(),
-            new DwrfRecordCursorProvider(),
+            new DwrfRecordCursorProvider(new OrcStripeStats()),
             new ColumnarTextHiveRecordCursorProvider(),
             new ColumnarBinaryHiveRecordCursorProvider(),
             new GenericHiveRecordCursorProvider());
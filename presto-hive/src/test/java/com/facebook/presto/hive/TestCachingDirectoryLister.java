@@ -0,0 +1,183 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.Duration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.BlockLocation;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.FilterFileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private static final Path PATH = new Path("/partition");
+
+    private CountingDirectoryLister delegate;
+    private MockFileSystem fileSystem;
+    private NamenodeStats namenodeStats;
+
+    @BeforeMethod
+    public void setUp()
+            throws Exception
+    {
+        delegate = new CountingDirectoryLister();
+        fileSystem = new MockFileSystem();
+        namenodeStats = new NamenodeStats();
+    }
+
+    @Test
+    public void testCacheHit()
+            throws Exception
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, TimeUnit.HOURS), 1000, namenodeStats);
+
+        assertEquals(listPaths(lister), ImmutableList.of("/partition/file1", "/partition/file2"));
+        assertEquals(listPaths(lister), ImmutableList.of("/partition/file1", "/partition/file2"));
+
+        assertEquals(delegate.getListCount(), 1);
+        assertEquals(namenodeStats.getListingCacheHits().getTotalCount(), 1);
+        assertEquals(namenodeStats.getListingCacheMisses().getTotalCount(), 1);
+        assertEquals(namenodeStats.getListingCacheHitRate(), 0.5);
+    }
+
+    @Test
+    public void testModifiedDirectory()
+            throws Exception
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, TimeUnit.HOURS), 1000, namenodeStats);
+
+        listPaths(lister);
+        fileSystem.setModificationTime(2);
+        listPaths(lister);
+        listPaths(lister);
+
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testInvalidate()
+            throws Exception
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(1, TimeUnit.HOURS), 1000, namenodeStats);
+
+        listPaths(lister);
+        lister.invalidate(PATH);
+        listPaths(lister);
+
+        assertEquals(delegate.getListCount(), 2);
+    }
+
+    @Test
+    public void testDisabled()
+            throws Exception
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(delegate, new Duration(0, TimeUnit.SECONDS), 1000, namenodeStats);
+
+        listPaths(lister);
+        listPaths(lister);
+
+        assertEquals(delegate.getListCount(), 2);
+        assertEquals(lister.getCachedDirectories(), 0);
+    }
+
+    private List<String> listPaths(DirectoryLister lister)
+            throws IOException
+    {
+        List<String> paths = new ArrayList<>();
+        RemoteIterator<LocatedFileStatus> iterator = lister.list(fileSystem, PATH);
+        while (iterator.hasNext()) {
+            paths.add(iterator.next().getPath().toString());
+        }
+        return paths;
+    }
+
+    private static class CountingDirectoryLister
+            implements DirectoryLister
+    {
+        private int listCount;
+
+        @Override
+        public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+                throws IOException
+        {
+            listCount++;
+            final List<LocatedFileStatus> files = ImmutableList.of(
+                    new LocatedFileStatus(new FileStatus(10, false, 1, 10, 0, new Path(path, "file1")), new BlockLocation[0]),
+                    new LocatedFileStatus(new FileStatus(10, false, 1, 10, 0, new Path(path, "file2")), new BlockLocation[0]));
+            return new RemoteIterator<LocatedFileStatus>()
+            {
+                private int index;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return index < files.size();
+                }
+
+                @Override
+                public LocatedFileStatus next()
+                {
+                    return files.get(index++);
+                }
+            };
+        }
+
+        @Override
+        public void invalidate(Path path)
+        {
+        }
+
+        public int getListCount()
+        {
+            return listCount;
+        }
+    }
+
+    private static class MockFileSystem
+            extends FilterFileSystem
+    {
+        private long modificationTime = 1;
+
+        public MockFileSystem()
+                throws IOException
+        {
+            super(FileSystem.getLocal(new Configuration()));
+        }
+
+        public void setModificationTime(long modificationTime)
+        {
+            this.modificationTime = modificationTime;
+        }
+
+        @Override
+        public FileStatus getFileStatus(Path path)
+        {
+            return new FileStatus(0, true, 0, 0, modificationTime, path);
+        }
+    }
+}
@@ -49,6 +49,8 @@ public class TestHiveClientConfig
                 .setMetastoreCacheTtl(new Duration(1, TimeUnit.HOURS))
                 .setMetastoreRefreshInterval(new Duration(2, TimeUnit.MINUTES))
                 .setMaxMetastoreRefreshThreads(100)
+                .setFileStatusCacheTtl(new Duration(0, TimeUnit.SECONDS))
+                .setFileStatusCacheMaxSize(100_000)
                 .setMetastoreSocksProxy(null)
                 .setMetastoreTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(10)
@@ -61,6 +63,7 @@ public class TestHiveClientConfig
                 .setVerifyChecksum(true)
                 .setResourceConfigFiles((String) null)
                 .setHiveStorageFormat(HiveStorageFormat.RCBINARY)
+                .setOptimizedReaderEnabled(false)
                 .setDomainSocketPath(null)
                 .setS3AwsAccessKey(null)
                 .setS3AwsSecretKey(null)
@@ -91,6 +94,8 @@ public class TestHiveClientConfig
                 .put("hive.metastore-cache-ttl", "2h")
                 .put("hive.metastore-refresh-interval", "30m")
                 .put("hive.metastore-refresh-max-threads", "2500")
+                .put("hive.file-status-cache-ttl", "10m")
+                .put("hive.file-status-cache-max-size", "1000")
                 .put("hive.metastore.thrift.client.socks-proxy", "localhost:1080")
                 .put("hive.metastore-timeout", "20s")
                 .put("hive.metastore.partition-batch-size.min", "1")
@@ -103,6 +108,7 @@ public class TestHiveClientConfig
                 .put("hive.max-initial-splits", "10")
                 .put("hive.max-initial-split-size", "16MB")
                 .put("hive.storage-format", "SEQUENCEFILE")
+                .put("hive.optimized-reader.enabled", "true")
                 .put("dfs.domain-socket-path", "/foo")
                 .put("hive.s3.aws-access-key", "abc123")
                 .put("hive.s3.aws-secret-key", "secret")
@@ -130,6 +136,8 @@ public class TestHiveClientConfig
                 .setMetastoreCacheTtl(new Duration(2, TimeUnit.HOURS))
                 .setMetastoreRefreshInterval(new Duration(30, TimeUnit.MINUTES))
                 .setMaxMetastoreRefreshThreads(2500)
+                .setFileStatusCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setFileStatusCacheMaxSize(1000)
                 .setMetastoreSocksProxy(HostAndPort.fromParts("localhost", 1080))
                 .setMetastoreTimeout(new Duration(20, TimeUnit.SECONDS))
                 .setMinPartitionBatchSize(1)
@@ -142,6 +150,7 @@ public class TestHiveClientConfig
                 .setVerifyChecksum(false)
                 .setResourceConfigFiles(ImmutableList.of("/foo.xml", "/bar.xml"))
                 .setHiveStorageFormat(HiveStorageFormat.SEQUENCEFILE)
+                .setOptimizedReaderEnabled(true)
                 .setDomainSocketPath("/foo")
                 .setS3AwsAccessKey("abc123")
                 .setS3AwsSecretKey("secret")
@@ -13,18 +13,25 @@
  */
 package com.facebook.presto.hive;
 
+import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.TupleDomain;
 import com.facebook.presto.spi.type.TimeZoneKey;
 import com.facebook.presto.type.TypeRegistry;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slices;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
 import org.apache.hadoop.hive.ql.io.HiveOutputFormat;
 import org.apache.hadoop.hive.ql.io.RCFileInputFormat;
 import org.apache.hadoop.hive.ql.io.RCFileOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
 import org.apache.hadoop.hive.ql.io.parquet.MapredParquetInputFormat;
 import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
 import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
@@ -48,18 +55,35 @@ import java.io.File;
 import java.io.IOException;
 import java.util.List;
 import java.util.Properties;
+import java.util.Set;
 import java.util.TimeZone;
 
 import static com.facebook.presto.hive.AbstractTestHiveFileFormats.TestColumn.nameGetter;
 import static com.facebook.presto.hive.AbstractTestHiveFileFormats.TestColumn.partitionKeyFilter;
 import static com.facebook.presto.hive.AbstractTestHiveFileFormats.TestColumn.typeGetter;
+import static com.facebook.presto.spi.StandardErrorCode.NOT_SUPPORTED;
 import static com.google.common.base.Predicates.not;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Locale.ENGLISH;
 import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.FILE_INPUT_FORMAT;
 import static org.apache.hadoop.hive.serde.serdeConstants.SERIALIZATION_LIB;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteArrayObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDateObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaDoubleObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaFloatObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaIntObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaShortObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaTimestampObjectInspector;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestHiveFileFormats
         extends AbstractTestHiveFileFormats
@@ -130,7 +154,7 @@ public class TestHiveFileFormats
         file.delete();
         try {
             FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, TEST_COLUMNS);
-            testCursorProvider(new OrcRecordCursorProvider(), split, inputFormat, serde, TEST_COLUMNS);
+            testCursorProvider(new OrcRecordCursorProvider(new OrcStripeStats()), split, inputFormat, serde, TEST_COLUMNS);
         }
         finally {
             //noinspection ResultOfMethodCallIgnored
@@ -198,7 +222,7 @@ public class TestHiveFileFormats
         file.delete();
         try {
             FileSplit split = createTestFile(file.getAbsolutePath(), outputFormat, serde, null, testColumns);
-            testCursorProvider(new DwrfRecordCursorProvider(), split, inputFormat, serde, testColumns);
+            testCursorProvider(new DwrfRecordCursorProvider(new OrcStripeStats()), split, inputFormat, serde, testColumns);
         }
         finally {
             //noinspection ResultOfMethodCallIgnored
@@ -206,6 +230,164 @@ public class TestHiveFileFormats
         }
     }
 
+    @Test
+    public void testOrcPageSource()
+            throws Exception
+    {
+        List<TestColumn> testColumns = getOrcPageSourceColumns();
+
+        File file = File.createTempFile("presto_test", "orc");
+        file.delete();
+        try {
+            FileSplit split = createTestFile(file.getAbsolutePath(), new org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat(), new org.apache.hadoop.hive.ql.io.orc.OrcSerde(), null, testColumns);
+            ConnectorPageSource pageSource = createOrcPageSource(split, testColumns, getColumnHandles(testColumns)).get();
+            checkPageSource(pageSource, testColumns);
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOrcPageSourceProjectedColumns()
+            throws Exception
+    {
+        List<TestColumn> testColumns = getOrcPageSourceColumns();
+        List<HiveColumnHandle> columnHandles = getColumnHandles(testColumns);
+
+        // every third column in reverse order, which includes partition keys, null columns and each type
+        ImmutableList.Builder<TestColumn> projectedColumns = ImmutableList.builder();
+        ImmutableList.Builder<HiveColumnHandle> projectedHandles = ImmutableList.builder();
+        for (int i = testColumns.size() - 1; i >= 0; i -= 3) {
+            projectedColumns.add(testColumns.get(i));
+            projectedHandles.add(columnHandles.get(i));
+        }
+
+        File file = File.createTempFile("presto_test", "orc");
+        file.delete();
+        try {
+            FileSplit split = createTestFile(file.getAbsolutePath(), new org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat(), new org.apache.hadoop.hive.ql.io.orc.OrcSerde(), null, testColumns);
+            ConnectorPageSource pageSource = createOrcPageSource(split, testColumns, projectedHandles.build()).get();
+            checkPageSource(pageSource, projectedColumns.build());
+
+            // the reader only decodes the columns of the projection
+            Set<Integer> projectedIndexes = ImmutableSet.copyOf(transform(projectedHandles.build(), HiveColumnHandle.hiveColumnIndexGetter()));
+            RecordReader recordReader = OrcRecordCursorProvider.createRecordReader(
+                    new Configuration(),
+                    split.getPath(),
+                    split.getStart(),
+                    split.getLength(),
+                    projectedHandles.build(),
+                    TupleDomain.<HiveColumnHandle>all(),
+                    new OrcStripeStats());
+            try {
+                VectorizedRowBatch batch = recordReader.nextBatch(null);
+                for (HiveColumnHandle column : columnHandles) {
+                    if (column.isPartitionKey()) {
+                        continue;
+                    }
+                    if (projectedIndexes.contains(column.getHiveColumnIndex())) {
+                        assertNotNull(batch.cols[column.getHiveColumnIndex()], column.getName());
+                    }
+                    else {
+                        assertNull(batch.cols[column.getHiveColumnIndex()], column.getName());
+                    }
+                }
+            }
+            finally {
+                recordReader.close();
+            }
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testOrcPageSourceUnsupportedType()
+            throws Exception
+    {
+        List<TestColumn> testColumns = ImmutableList.<TestColumn>builder()
+                .addAll(getOrcPageSourceColumns())
+                .add(new TestColumn("t_binary", javaByteArrayObjectInspector, Slices.utf8Slice("test2"), Slices.utf8Slice("test2")))
+                .build();
+        List<HiveColumnHandle> columnHandles = getColumnHandles(testColumns);
+
+        File file = File.createTempFile("presto_test", "orc");
+        file.delete();
+        try {
+            FileSplit split = createTestFile(file.getAbsolutePath(), new org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat(), new org.apache.hadoop.hive.ql.io.orc.OrcSerde(), null, testColumns);
+
+            // the factory leaves tables with unsupported types to the record cursor
+            assertFalse(createOrcPageSource(split, testColumns, columnHandles).isPresent());
+
+            RecordReader recordReader = OrcRecordCursorProvider.createRecordReader(
+                    new Configuration(),
+                    split.getPath(),
+                    split.getStart(),
+                    split.getLength(),
+                    columnHandles,
+                    TupleDomain.<HiveColumnHandle>all(),
+                    new OrcStripeStats());
+            try {
+                new OrcPageSource(recordReader, split.getLength(), getPartitionKeys(testColumns), columnHandles, DateTimeZone.getDefault(), TYPE_MANAGER);
+                fail("expected PrestoException");
+            }
+            catch (PrestoException e) {
+                assertEquals(e.getErrorCode(), NOT_SUPPORTED.toErrorCode());
+                assertTrue(e.getMessage().contains("t_binary"), e.getMessage());
+            }
+        }
+        finally {
+            //noinspection ResultOfMethodCallIgnored
+            file.delete();
+        }
+    }
+
+    private Optional<OrcPageSource> createOrcPageSource(FileSplit split, List<TestColumn> testColumns, List<HiveColumnHandle> columns)
+    {
+        return new OrcPageSourceFactory(true, new OrcStripeStats()).createPageSource(
+                new Configuration(),
+                SESSION,
+                split.getPath(),
+                split.getStart(),
+                split.getLength(),
+                createSplitProperties(new org.apache.hadoop.hive.ql.io.orc.OrcInputFormat(), new org.apache.hadoop.hive.ql.io.orc.OrcSerde(), testColumns),
+                columns,
+                getPartitionKeys(testColumns),
+                TupleDomain.<HiveColumnHandle>all(),
+                DateTimeZone.getDefault(),
+                TYPE_MANAGER);
+    }
+
+    /**
+     * The test columns of the types the ORC page source supports, with a null column of each type.
+     */
+    private static List<TestColumn> getOrcPageSourceColumns()
+    {
+        return ImmutableList.<TestColumn>builder()
+                .addAll(filter(TEST_COLUMNS, new Predicate<TestColumn>()
+                {
+                    @Override
+                    public boolean apply(TestColumn testColumn)
+                    {
+                        return testColumn.isPartitionKey() || OrcPageSource.isSupportedType(HiveType.getHiveType(testColumn.getObjectInspector()));
+                    }
+                }))
+                .add(new TestColumn("t_null_tinyint", javaByteObjectInspector, null, null))
+                .add(new TestColumn("t_null_smallint", javaShortObjectInspector, null, null))
+                .add(new TestColumn("t_null_int", javaIntObjectInspector, null, null))
+                .add(new TestColumn("t_null_bigint", javaLongObjectInspector, null, null))
+                .add(new TestColumn("t_null_float", javaFloatObjectInspector, null, null))
+                .add(new TestColumn("t_null_double", javaDoubleObjectInspector, null, null))
+                .add(new TestColumn("t_null_boolean", javaBooleanObjectInspector, null, null))
+                .add(new TestColumn("t_null_date", javaDateObjectInspector, null, null))
+                .add(new TestColumn("t_null_timestamp", javaTimestampObjectInspector, null, null))
+                .build();
+    }
+
     private void testCursorProvider(HiveRecordCursorProvider cursorProvider,
             FileSplit split,
             InputFormat<?, ?> inputFormat,
@@ -213,21 +395,6 @@ public class TestHiveFileFormats
             List<TestColumn> testColumns)
             throws IOException
     {
-        Properties splitProperties = new Properties();
-        splitProperties.setProperty(FILE_INPUT_FORMAT, inputFormat.getClass().getName());
-        splitProperties.setProperty(SERIALIZATION_LIB, serde.getClass().getName());
-        splitProperties.setProperty("columns", Joiner.on(',').join(transform(filter(testColumns, not(partitionKeyFilter())), nameGetter())));
-        splitProperties.setProperty("columns.types", Joiner.on(',').join(transform(filter(testColumns, not(partitionKeyFilter())), typeGetter())));
-
-        List<HivePartitionKey> partitionKeys = ImmutableList.copyOf(transform(filter(testColumns, partitionKeyFilter()), new Function<TestColumn, HivePartitionKey>()
-        {
-            @Override
-            public HivePartitionKey apply(TestColumn input)
-            {
-                return new HivePartitionKey(input.getName(), HiveType.getHiveType(input.getObjectInspector()), (String) input.getWriteValue());
-            }
-        }));
-
         HiveRecordCursor cursor = cursorProvider.createHiveRecordCursor(
                 "test",
                 new Configuration(),
@@ -235,9 +402,9 @@ public class TestHiveFileFormats
                 split.getPath(),
                 split.getStart(),
                 split.getLength(),
-                splitProperties,
+                createSplitProperties(inputFormat, serde, testColumns),
                 getColumnHandles(testColumns),
-                partitionKeys,
+                getPartitionKeys(testColumns),
                 TupleDomain.<HiveColumnHandle>all(),
                 DateTimeZone.getDefault(),
                 TYPE_MANAGER).get();
@@ -245,6 +412,28 @@ public class TestHiveFileFormats
         checkCursor(cursor, testColumns);
     }
 
+    private static Properties createSplitProperties(InputFormat<?, ?> inputFormat, @SuppressWarnings("deprecation") SerDe serde, List<TestColumn> testColumns)
+    {
+        Properties splitProperties = new Properties();
+        splitProperties.setProperty(FILE_INPUT_FORMAT, inputFormat.getClass().getName());
+        splitProperties.setProperty(SERIALIZATION_LIB, serde.getClass().getName());
+        splitProperties.setProperty("columns", Joiner.on(',').join(transform(filter(testColumns, not(partitionKeyFilter())), nameGetter())));
+        splitProperties.setProperty("columns.types", Joiner.on(',').join(transform(filter(testColumns, not(partitionKeyFilter())), typeGetter())));
+        return splitProperties;
+    }
+
+    private static List<HivePartitionKey> getPartitionKeys(List<TestColumn> testColumns)
+    {
+        return ImmutableList.copyOf(transform(filter(testColumns, partitionKeyFilter()), new Function<TestColumn, HivePartitionKey>()
+        {
+            @Override
+            public HivePartitionKey apply(TestColumn input)
+            {
+                return new HivePartitionKey(input.getName(), HiveType.getHiveType(input.getObjectInspector()), (String) input.getWriteValue());
+            }
+        }));
+    }
+
     private static boolean hasType(ObjectInspector objectInspector, PrimitiveCategory... types)
     {
         if (objectInspector instanceof PrimitiveObjectInspector) {
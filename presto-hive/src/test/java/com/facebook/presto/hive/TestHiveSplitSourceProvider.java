@@ -0,0 +1,271 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.ConnectorColumnHandle;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.ConnectorSplitSource;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.SchemaTableName;
+import com.facebook.presto.spi.SerializableNativeValue;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.hive.metastore.api.FieldSchema;
+import org.apache.hadoop.hive.metastore.api.Partition;
+import org.apache.hadoop.hive.metastore.api.SerDeInfo;
+import org.apache.hadoop.hive.metastore.api.StorageDescriptor;
+import org.apache.hadoop.hive.metastore.api.Table;
+import org.apache.hadoop.hive.serde2.lazy.LazySimpleSerDe;
+import org.apache.hadoop.mapred.TextInputFormat;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_FILE_NOT_FOUND;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.google.common.base.Charsets.UTF_8;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestHiveSplitSourceProvider
+{
+    private static final ConnectorSession SESSION = new ConnectorSession("user", UTC_KEY, ENGLISH, System.currentTimeMillis(), null);
+    private static final SchemaTableName TABLE_NAME = new SchemaTableName("test_schema", "test_table");
+    private static final int FILE_SIZE = 1000;
+
+    private File tempDir;
+    private ExecutorService executor;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        tempDir = Files.createTempDir();
+        executor = newCachedThreadPool(daemonThreadsNamed("hive-split-source-provider-%s"));
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        deleteRecursively(tempDir);
+    }
+
+    @Test
+    public void testAllPartitionsAreSplitInOrder()
+            throws Exception
+    {
+        List<HivePartitionMetadata> partitions = new ArrayList<>();
+        for (int partition = 0; partition < 5; partition++) {
+            partitions.add(createPartition("ds=" + partition, 3));
+        }
+
+        // no initial splits, so every file is divided into chunks of the max split size
+        List<HiveSplit> splits = getSplits(createProvider(partitions, 0));
+        assertEquals(splits.size(), 5 * 3 * 4);
+
+        Map<String, List<HiveSplit>> splitsByPath = new HashMap<>();
+        for (HiveSplit split : splits) {
+            String path = split.getPath();
+            assertTrue(path.contains("/" + split.getPartitionName() + "/"), "split " + path + " is not in partition " + split.getPartitionName());
+            if (!splitsByPath.containsKey(path)) {
+                splitsByPath.put(path, new ArrayList<HiveSplit>());
+            }
+            splitsByPath.get(path).add(split);
+        }
+        assertEquals(splitsByPath.size(), 5 * 3);
+
+        // the splits of each file are queued in file order and cover the whole file
+        for (List<HiveSplit> fileSplits : splitsByPath.values()) {
+            long offset = 0;
+            for (HiveSplit split : fileSplits) {
+                assertEquals(split.getStart(), offset);
+                assertEquals(split.getLength(), FILE_SIZE / 4);
+                offset += split.getLength();
+            }
+            assertEquals(offset, FILE_SIZE);
+        }
+    }
+
+    @Test
+    public void testListingErrorFailsSplitSource()
+            throws Exception
+    {
+        List<HivePartitionMetadata> partitions = ImmutableList.of(
+                createPartition("ds=0", 1),
+                createPartition("ds=1", 1));
+
+        // the location of the last partition does not exist
+        deleteRecursively(new File(tempDir, "ds=1"));
+
+        ConnectorSplitSource splitSource = createProvider(partitions, 0).get();
+        try {
+            while (!splitSource.isFinished()) {
+                splitSource.getNextBatch(100);
+            }
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getErrorCode(), HIVE_FILE_NOT_FOUND.toErrorCode());
+        }
+        finally {
+            splitSource.close();
+        }
+    }
+
+    @Test
+    public void testInitialSplits()
+            throws Exception
+    {
+        List<HivePartitionMetadata> partitions = new ArrayList<>();
+        for (int partition = 0; partition < 4; partition++) {
+            partitions.add(createPartition("ds=" + partition, 1));
+        }
+
+        // the first file takes 10 of the 15 initial splits and the second file the rest,
+        // so exactly two files are divided by the initial split size
+        List<HiveSplit> splits = getSplits(createProvider(partitions, 15));
+        int initialSplits = 0;
+        int splitsOfMaxSize = 0;
+        for (HiveSplit split : splits) {
+            if (split.getLength() == FILE_SIZE / 10) {
+                initialSplits++;
+            }
+            else {
+                assertEquals(split.getLength(), FILE_SIZE / 4);
+                splitsOfMaxSize++;
+            }
+        }
+        assertEquals(initialSplits, 2 * 10);
+        assertEquals(splitsOfMaxSize, 2 * 4);
+    }
+
+    @Test
+    public void testClaimChunks()
+    {
+        HiveSplitSourceProvider provider = createProvider(ImmutableList.<HivePartitionMetadata>of(), 15);
+
+        assertEquals(provider.claimChunks(FILE_SIZE), 10);
+        assertEquals(provider.getRemainingInitialSplits(), 5);
+
+        // the block that crosses the limit is still divided by the initial split size
+        assertEquals(provider.claimChunks(FILE_SIZE), 10);
+        assertEquals(provider.getRemainingInitialSplits(), -5);
+
+        // once the initial splits are used up, the counter does not change any more
+        assertEquals(provider.claimChunks(FILE_SIZE), 4);
+        assertEquals(provider.claimChunks(FILE_SIZE / 10), 1);
+        assertEquals(provider.getRemainingInitialSplits(), -5);
+    }
+
+    private HiveSplitSourceProvider createProvider(Iterable<HivePartitionMetadata> partitions, int maxInitialSplits)
+    {
+        HiveClientConfig hiveClientConfig = new HiveClientConfig();
+        return new HiveSplitSourceProvider("test",
+                createTable(),
+                partitions,
+                Optional.<HiveBucketing.HiveBucket>absent(),
+                new DataSize(FILE_SIZE / 4, DataSize.Unit.BYTE),
+                1000,
+                4,
+                new HdfsEnvironment(new HdfsConfiguration(hiveClientConfig)),
+                new NamenodeStats(),
+                new HadoopDirectoryLister(),
+                executor,
+                2,
+                SESSION,
+                new DataSize(FILE_SIZE / 10, DataSize.Unit.BYTE),
+                maxInitialSplits,
+                false);
+    }
+
+    private static List<HiveSplit> getSplits(HiveSplitSourceProvider provider)
+            throws InterruptedException
+    {
+        ConnectorSplitSource splitSource = provider.get();
+        ImmutableList.Builder<HiveSplit> splits = ImmutableList.builder();
+        try {
+            while (!splitSource.isFinished()) {
+                for (ConnectorSplit split : splitSource.getNextBatch(100)) {
+                    splits.add((HiveSplit) split);
+                }
+            }
+        }
+        finally {
+            splitSource.close();
+        }
+        return splits.build();
+    }
+
+    private Table createTable()
+    {
+        Table table = new Table();
+        table.setDbName(TABLE_NAME.getSchemaName());
+        table.setTableName(TABLE_NAME.getTableName());
+        table.setSd(createStorageDescriptor(tempDir));
+        table.setPartitionKeys(ImmutableList.of(new FieldSchema("ds", "string", null)));
+        table.setParameters(ImmutableMap.<String, String>of());
+        return table;
+    }
+
+    private HivePartitionMetadata createPartition(String partitionName, int fileCount)
+            throws Exception
+    {
+        File location = new File(tempDir, partitionName);
+        assertTrue(location.mkdirs());
+        for (int i = 0; i < fileCount; i++) {
+            Files.write(new String(new char[FILE_SIZE]).replace('\0', 'x'), new File(location, "file" + i), UTF_8);
+        }
+
+        Partition partition = new Partition();
+        partition.setDbName(TABLE_NAME.getSchemaName());
+        partition.setTableName(TABLE_NAME.getTableName());
+        partition.setValues(ImmutableList.of(partitionName.substring(partitionName.indexOf('=') + 1)));
+        partition.setSd(createStorageDescriptor(location));
+        partition.setParameters(ImmutableMap.<String, String>of());
+
+        HivePartition hivePartition = new HivePartition(TABLE_NAME, partitionName, ImmutableMap.<ConnectorColumnHandle, SerializableNativeValue>of(), Optional.<HiveBucketing.HiveBucket>absent());
+        return new HivePartitionMetadata(hivePartition, partition);
+    }
+
+    private static StorageDescriptor createStorageDescriptor(File location)
+    {
+        SerDeInfo serdeInfo = new SerDeInfo();
+        serdeInfo.setSerializationLib(LazySimpleSerDe.class.getName());
+        serdeInfo.setParameters(ImmutableMap.<String, String>of());
+
+        StorageDescriptor storageDescriptor = new StorageDescriptor();
+        storageDescriptor.setLocation(location.toURI().toString());
+        storageDescriptor.setCols(ImmutableList.of(new FieldSchema("value", "string", null)));
+        storageDescriptor.setInputFormat(TextInputFormat.class.getName());
+        storageDescriptor.setSerdeInfo(serdeInfo);
+        storageDescriptor.setParameters(ImmutableMap.<String, String>of());
+        return storageDescriptor;
+    }
+}
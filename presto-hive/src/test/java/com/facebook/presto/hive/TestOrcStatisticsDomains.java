@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.Domain;
+import com.facebook.presto.spi.Range;
+import com.facebook.presto.spi.SortedRangeSet;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.hive.HiveType.HIVE_BOOLEAN;
+import static com.facebook.presto.hive.HiveType.HIVE_INT;
+import static com.facebook.presto.hive.HiveType.HIVE_STRING;
+import static com.facebook.presto.hive.HiveType.HIVE_TIMESTAMP;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createBooleanDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createLongDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.createStringDomain;
+import static com.facebook.presto.hive.OrcStatisticsDomains.getDomainType;
+import static com.facebook.presto.hive.OrcStatisticsDomains.overlaps;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcStatisticsDomains
+{
+    private static final HiveColumnHandle ID_COLUMN = new HiveColumnHandle("client", "id", 0, HIVE_INT, StandardTypes.BIGINT, 0, false);
+
+    @Test
+    public void testDomainType()
+    {
+        assertEquals(getDomainType(HIVE_INT), Long.class);
+        assertEquals(getDomainType(HIVE_STRING), Slice.class);
+        assertEquals(getDomainType(HIVE_BOOLEAN), Boolean.class);
+        assertNull(getDomainType(HIVE_TIMESTAMP));
+    }
+
+    @Test
+    public void testLongDomain()
+    {
+        assertEquals(createLongDomain(10, 10, 1, 5), Domain.create(SortedRangeSet.of(Range.range(1L, true, 5L, true)), false));
+        assertEquals(createLongDomain(10, 8, 1, 5), Domain.create(SortedRangeSet.of(Range.range(1L, true, 5L, true)), true));
+        assertEquals(createLongDomain(10, 0, Long.MAX_VALUE, Long.MIN_VALUE), Domain.onlyNull(Long.class));
+    }
+
+    @Test
+    public void testStringDomain()
+    {
+        assertEquals(createStringDomain(10, 10, "apple", "pear"), Domain.create(SortedRangeSet.of(Range.range(utf8Slice("apple"), true, utf8Slice("pear"), true)), false));
+        // non-ASCII bounds are not ordered like the UTF-8 bytes, so they are not used
+        assertEquals(createStringDomain(10, 10, "apple", "p\u00e9ar"), Domain.create(SortedRangeSet.all(Slice.class), false));
+    }
+
+    @Test
+    public void testBooleanDomain()
+    {
+        assertEquals(createBooleanDomain(10, 10, 0), Domain.create(SortedRangeSet.of(Range.equal(true)), false));
+        assertEquals(createBooleanDomain(10, 0, 0), Domain.onlyNull(Boolean.class));
+    }
+
+    @Test
+    public void testOverlaps()
+    {
+        TupleDomain<HiveColumnHandle> predicate = TupleDomain.withColumnDomains(ImmutableMap.of(ID_COLUMN, Domain.singleValue(42L)));
+
+        assertTrue(overlaps(predicate, ImmutableMap.of(ID_COLUMN, createLongDomain(10, 10, 40, 50))));
+        assertFalse(overlaps(predicate, ImmutableMap.of(ID_COLUMN, createLongDomain(10, 10, 0, 41))));
+        assertFalse(overlaps(predicate, ImmutableMap.of(ID_COLUMN, createLongDomain(10, 0, 0, 0))));
+        assertTrue(overlaps(predicate, ImmutableMap.<HiveColumnHandle, Domain>of()));
+    }
+}
@@ -67,16 +67,18 @@ public class PrestoConnection
     private final URI uri;
     private final HostAndPort address;
     private final String user;
+    private final int prefetchDepth;
     private final Map<String, String> clientInfo = new ConcurrentHashMap<>();
     private final Map<String, String> sessionProperties = new ConcurrentHashMap<>();
     private final QueryExecutor queryExecutor;
 
-    PrestoConnection(URI uri, String user, QueryExecutor queryExecutor)
+    PrestoConnection(URI uri, String user, int prefetchDepth, QueryExecutor queryExecutor)
             throws SQLException
     {
         this.uri = checkNotNull(uri, "uri is null");
         this.address = HostAndPort.fromParts(uri.getHost(), uri.getPort());
         this.user = checkNotNull(user, "user is null");
+        this.prefetchDepth = prefetchDepth;
         this.queryExecutor = checkNotNull(queryExecutor, "queryExecutor is null");
         catalog.set("default");
         schema.set("default");
@@ -569,7 +571,8 @@ public class PrestoConnection
                 timeZoneId.get(),
                 locale.get(),
                 ImmutableMap.copyOf(sessionProperties),
-                false);
+                false,
+                prefetchDepth);
 
         return queryExecutor.startQuery(session, sql);
     }
@@ -48,6 +48,9 @@ public class PrestoDriver
     private static final String DRIVER_URL_START = "jdbc:presto:";
 
     private static final String USER_PROPERTY = "user";
+    private static final String PREFETCH_DEPTH_PROPERTY = "prefetchDepth";
+
+    private static final int DEFAULT_PREFETCH_DEPTH = 1;
 
     private final QueryExecutor queryExecutor;
 
@@ -86,7 +89,25 @@ public class PrestoDriver
             throw new SQLException(format("Username property (%s) must be set", USER_PROPERTY));
         }
 
-        return new PrestoConnection(parseDriverUrl(url), user, queryExecutor);
+        return new PrestoConnection(parseDriverUrl(url), user, parsePrefetchDepth(info), queryExecutor);
+    }
+
+    private static int parsePrefetchDepth(Properties info)
+            throws SQLException
+    {
+        String value = info.getProperty(PREFETCH_DEPTH_PROPERTY);
+        if (isNullOrEmpty(value)) {
+            return DEFAULT_PREFETCH_DEPTH;
+        }
+        try {
+            int prefetchDepth = Integer.parseInt(value);
+            if (prefetchDepth >= 0) {
+                return prefetchDepth;
+            }
+        }
+        catch (NumberFormatException ignored) {
+        }
+        throw new SQLException(format("Prefetch depth property (%s) must be a non-negative integer: %s", PREFETCH_DEPTH_PROPERTY, value));
     }
 
     @Override
@@ -14,10 +14,12 @@
 package com.facebook.presto.jdbc;
 
 import com.facebook.presto.client.Column;
+import com.facebook.presto.client.PrefetchStats;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.ResultPagesCursor;
 import com.facebook.presto.client.StatementClient;
-import com.google.common.base.Function;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -53,6 +55,7 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -61,12 +64,15 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.jdbc.ColumnInfo.setTypeInfo;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.base.Throwables.propagateIfInstanceOf;
-import static com.google.common.collect.Iterators.concat;
-import static com.google.common.collect.Iterators.transform;
 import static java.lang.String.format;
 import static java.util.Locale.ENGLISH;
 
@@ -123,11 +129,13 @@ public class PrestoResultSet
     private final StatementClient client;
     private final DateTimeZone sessionTimeZone;
     private final String queryId;
-    private final Iterator<List<Object>> results;
+    private final Iterator<QueryResults> results;
     private final Map<String, Integer> fieldMap;
     private final List<ColumnInfo> columnInfoList;
     private final ResultSetMetaData resultSetMetaData;
+    private final AtomicReference<Iterator<List<Object>>> rows = new AtomicReference<>(Collections.<List<Object>>emptyIterator());
     private final AtomicReference<List<Object>> row = new AtomicReference<>();
+    private final AtomicReference<ResultPagesCursor> cursor = new AtomicReference<>();
     private final AtomicBoolean wasNull = new AtomicBoolean();
 
     PrestoResultSet(StatementClient client)
@@ -142,7 +150,7 @@ public class PrestoResultSet
         this.columnInfoList = getColumnInfo(columns);
         this.resultSetMetaData = new PrestoResultSetMetaData(columnInfoList);
 
-        this.results = flatten(new ResultsPageIterator(client));
+        this.results = new ResultsPageIterator(client);
     }
 
     public String getQueryId()
@@ -150,18 +158,45 @@ public class PrestoResultSet
         return queryId;
     }
 
+    public PrefetchStats getPrefetchStats()
+    {
+        return client.getPrefetchStats();
+    }
+
     @Override
     public boolean next()
             throws SQLException
     {
         checkOpen();
         try {
-            if (!results.hasNext()) {
+            while (true) {
+                // binary results are read from the pages in place
+                ResultPagesCursor pagesCursor = cursor.get();
+                if (pagesCursor != null) {
+                    if (pagesCursor.advanceNextPosition()) {
+                        return true;
+                    }
+                    cursor.set(null);
+                }
+
+                Iterator<List<Object>> currentRows = rows.get();
+                if (currentRows.hasNext()) {
+                    row.set(currentRows.next());
+                    return true;
+                }
                 row.set(null);
-                return false;
+
+                if (!results.hasNext()) {
+                    return false;
+                }
+                QueryResults next = results.next();
+                if (next.getPages() != null) {
+                    cursor.set(next.getPages().cursor());
+                }
+                else {
+                    rows.set(next.getData().iterator());
+                }
             }
-            row.set(results.next());
-            return true;
         }
         catch (RuntimeException e) {
             propagateIfInstanceOf(e, SQLException.class);
@@ -187,6 +222,10 @@ public class PrestoResultSet
     public String getString(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, VARCHAR);
+        if (pagesCursor != null) {
+            return pagesCursor.getSlice(columnIndex - 1).toStringUtf8();
+        }
         Object value = column(columnIndex);
         return (value != null) ? value.toString() : null;
     }
@@ -195,6 +234,10 @@ public class PrestoResultSet
     public boolean getBoolean(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, BOOLEAN);
+        if (pagesCursor != null) {
+            return pagesCursor.getBoolean(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? (Boolean) value : false;
     }
@@ -203,6 +246,10 @@ public class PrestoResultSet
     public byte getByte(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, BIGINT);
+        if (pagesCursor != null) {
+            return (byte) pagesCursor.getLong(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? ((Number) value).byteValue() : 0;
     }
@@ -211,6 +258,10 @@ public class PrestoResultSet
     public short getShort(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, BIGINT);
+        if (pagesCursor != null) {
+            return (short) pagesCursor.getLong(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? ((Number) value).shortValue() : 0;
     }
@@ -219,6 +270,10 @@ public class PrestoResultSet
     public int getInt(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, BIGINT);
+        if (pagesCursor != null) {
+            return (int) pagesCursor.getLong(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? ((Number) value).intValue() : 0;
     }
@@ -227,6 +282,10 @@ public class PrestoResultSet
     public long getLong(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, BIGINT);
+        if (pagesCursor != null) {
+            return pagesCursor.getLong(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? ((Number) value).longValue() : 0;
     }
@@ -235,6 +294,10 @@ public class PrestoResultSet
     public float getFloat(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, DOUBLE);
+        if (pagesCursor != null) {
+            return (float) pagesCursor.getDouble(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? ((Number) value).floatValue() : 0;
     }
@@ -243,6 +306,10 @@ public class PrestoResultSet
     public double getDouble(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, DOUBLE);
+        if (pagesCursor != null) {
+            return pagesCursor.getDouble(columnIndex - 1);
+        }
         Object value = column(columnIndex);
         return (value != null) ? ((Number) value).doubleValue() : 0;
     }
@@ -258,6 +325,10 @@ public class PrestoResultSet
     public byte[] getBytes(int columnIndex)
             throws SQLException
     {
+        ResultPagesCursor pagesCursor = valueCursor(columnIndex, VARBINARY);
+        if (pagesCursor != null) {
+            return pagesCursor.getSlice(columnIndex - 1).getBytes();
+        }
         return (byte[]) column(columnIndex);
     }
 
@@ -383,64 +454,56 @@ public class PrestoResultSet
     public String getString(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? value.toString() : null;
+        return getString(columnIndex(columnLabel));
     }
 
     @Override
     public boolean getBoolean(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? (Boolean) value : false;
+        return getBoolean(columnIndex(columnLabel));
     }
 
     @Override
     public byte getByte(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).byteValue() : 0;
+        return getByte(columnIndex(columnLabel));
     }
 
     @Override
     public short getShort(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).shortValue() : 0;
+        return getShort(columnIndex(columnLabel));
     }
 
     @Override
     public int getInt(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).intValue() : 0;
+        return getInt(columnIndex(columnLabel));
     }
 
     @Override
     public long getLong(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).longValue() : 0;
+        return getLong(columnIndex(columnLabel));
     }
 
     @Override
     public float getFloat(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).floatValue() : 0;
+        return getFloat(columnIndex(columnLabel));
     }
 
     @Override
     public double getDouble(String columnLabel)
             throws SQLException
     {
-        Object value = column(columnLabel);
-        return (value != null) ? ((Number) value).doubleValue() : 0;
+        return getDouble(columnIndex(columnLabel));
     }
 
     @Override
@@ -454,7 +517,7 @@ public class PrestoResultSet
     public byte[] getBytes(String columnLabel)
             throws SQLException
     {
-        return (byte[]) column(columnLabel);
+        return getBytes(columnIndex(columnLabel));
     }
 
     @Override
@@ -1664,7 +1727,7 @@ public class PrestoResultSet
     private void checkValidRow()
             throws SQLException
     {
-        if (row.get() == null) {
+        if ((row.get() == null) && (cursor.get() == null)) {
             throw new SQLException("Not on a valid row");
         }
     }
@@ -1677,15 +1740,36 @@ public class PrestoResultSet
         if ((index <= 0) || (index > resultSetMetaData.getColumnCount())) {
             throw new SQLException("Invalid column index: " + index);
         }
-        return row.get().get(index - 1);
+        ResultPagesCursor pagesCursor = cursor.get();
+        Object value = (pagesCursor != null) ? pagesCursor.getObject(index - 1) : row.get().get(index - 1);
+        wasNull.set(value == null);
+        return value;
     }
 
     private Object column(String label)
             throws SQLException
+    {
+        return column(columnIndex(label));
+    }
+
+    /**
+     * Gets the cursor for reading the value of the column without boxing, or null if the
+     * current row is not binary, the column is not of the expected type, or the value is null.
+     */
+    private ResultPagesCursor valueCursor(int index, Type type)
+            throws SQLException
     {
         checkOpen();
         checkValidRow();
-        return row.get().get(columnIndex(label) - 1);
+        if ((index <= 0) || (index > resultSetMetaData.getColumnCount())) {
+            throw new SQLException("Invalid column index: " + index);
+        }
+        ResultPagesCursor pagesCursor = cursor.get();
+        if ((pagesCursor == null) || !pagesCursor.getType(index - 1).equals(type) || pagesCursor.isNull(index - 1)) {
+            return null;
+        }
+        wasNull.set(false);
+        return pagesCursor;
     }
 
     private int columnIndex(String label)
@@ -1719,20 +1803,8 @@ public class PrestoResultSet
         throw resultsException(results);
     }
 
-    private static <T> Iterator<T> flatten(Iterator<Iterable<T>> iterator)
-    {
-        return concat(transform(iterator, new Function<Iterable<T>, Iterator<T>>()
-        {
-            @Override
-            public Iterator<T> apply(Iterable<T> input)
-            {
-                return input.iterator();
-            }
-        }));
-    }
-
     private static class ResultsPageIterator
-            extends AbstractIterator<Iterable<List<Object>>>
+            extends AbstractIterator<QueryResults>
     {
         private final StatementClient client;
 
@@ -1742,13 +1814,13 @@ public class PrestoResultSet
         }
 
         @Override
-        protected Iterable<List<Object>> computeNext()
+        protected QueryResults computeNext()
         {
             while (client.isValid()) {
-                Iterable<List<Object>> data = client.current().getData();
+                QueryResults results = client.current();
                 client.advance();
-                if (data != null) {
-                    return data;
+                if (results.getData() != null) {
+                    return results;
                 }
             }
 
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.jdbc;
 
+import com.facebook.presto.client.PrefetchStats;
 import com.facebook.presto.server.testing.TestingPrestoServer;
 import com.facebook.presto.tpch.TpchPlugin;
 import com.google.common.collect.ImmutableList;
@@ -38,6 +39,7 @@ import java.sql.Types;
 import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.List;
+import java.util.Properties;
 import java.util.Set;
 
 import static com.facebook.presto.server.testing.TestingPrestoServer.TEST_CATALOG;
@@ -902,6 +904,63 @@ public class TestDriver
         }
     }
 
+    @Test
+    public void testPrefetchDepth()
+            throws Exception
+    {
+        long expectedRows = -1;
+        long expectedSum = -1;
+        for (int prefetchDepth : new int[] {0, 1, 4}) {
+            Properties properties = new Properties();
+            properties.setProperty("user", "test");
+            properties.setProperty("prefetchDepth", String.valueOf(prefetchDepth));
+
+            String url = format("jdbc:presto://%s/default/tiny", server.getAddress());
+            try (Connection connection = DriverManager.getConnection(url, properties)) {
+                try (Statement statement = connection.createStatement()) {
+                    try (ResultSet rs = statement.executeQuery("SELECT orderkey, comment FROM orders")) {
+                        long rows = 0;
+                        long sum = 0;
+                        while (rs.next()) {
+                            rows++;
+                            sum += rs.getLong(1);
+                            assertNotNull(rs.getString(2));
+                        }
+                        if (expectedRows < 0) {
+                            expectedRows = rows;
+                            expectedSum = sum;
+                        }
+                        assertEquals(rows, expectedRows);
+                        assertEquals(sum, expectedSum);
+
+                        PrefetchStats stats = ((PrestoResultSet) rs).getPrefetchStats();
+                        assertEquals(stats.getPrefetchDepth(), prefetchDepth);
+                        assertEquals(stats.getFailedPrefetches(), 0);
+                        if (prefetchDepth == 0) {
+                            assertEquals(stats.getPrefetchedResults() + stats.getWaitedResults(), 0);
+                        }
+                        else {
+                            assertTrue(stats.getPrefetchedResults() + stats.getWaitedResults() > 0);
+                        }
+                    }
+                }
+            }
+        }
+        assertEquals(expectedRows, 15000);
+    }
+
+    @Test(expectedExceptions = SQLException.class, expectedExceptionsMessageRegExp = "Prefetch depth property \\(prefetchDepth\\) must be a non-negative integer: -1")
+    public void testBadPrefetchDepth()
+            throws Exception
+    {
+        Properties properties = new Properties();
+        properties.setProperty("user", "test");
+        properties.setProperty("prefetchDepth", "-1");
+        try (Connection ignored = DriverManager.getConnection(format("jdbc:presto://%s", server.getAddress()), properties)) {
+            fail("expected exception");
+        }
+    }
+
     @Test(expectedExceptions = SQLException.class, expectedExceptionsMessageRegExp = "Invalid path segments in URL: .*")
     public void testBadUrlExtraPathSegments()
             throws Exception
@@ -14,8 +14,6 @@
 package com.facebook.presto;
 
 import com.facebook.presto.spi.Page;
-import com.facebook.presto.spi.PageBuilder;
-import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -24,9 +22,6 @@ import com.google.common.collect.ImmutableList;
 
 import java.util.List;
 
-import static com.facebook.presto.type.TypeUtils.hashPosition;
-import static com.google.common.base.Preconditions.checkState;
-
 public final class HashPagePartitionFunction
         implements PagePartitionFunction
 {
@@ -79,51 +74,17 @@ public final class HashPagePartitionFunction
             return pages;
         }
 
-        PageBuilder pageBuilder = new PageBuilder(types);
-
+        HashPagePartitioner partitioner = createPartitioner();
         ImmutableList.Builder<Page> partitionedPages = ImmutableList.builder();
         for (Page page : pages) {
-            for (int position = 0; position < page.getPositionCount(); position++) {
-                // if hash is not in range skip
-                int partitionHashBucket = getPartitionHashBucket(position, page);
-                if (partitionHashBucket != partition) {
-                    continue;
-                }
-
-                for (int channel = 0; channel < types.size(); channel++) {
-                    Type type = types.get(channel);
-                    type.appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
-                }
-
-                // if page is full, flush
-                if (pageBuilder.isFull()) {
-                    partitionedPages.add(pageBuilder.build());
-                    pageBuilder.reset();
-                }
-            }
+            partitionedPages.addAll(partitioner.partitionPage(page).get(partition));
         }
-        if (!pageBuilder.isEmpty()) {
-            partitionedPages.add(pageBuilder.build());
-        }
-
         return partitionedPages.build();
     }
 
-    private int getPartitionHashBucket(int position, Page page)
+    public HashPagePartitioner createPartitioner()
     {
-        long hashCode = 1;
-        for (int channel : partitioningChannels) {
-            hashCode *= 31;
-            Type type = types.get(channel);
-            Block block = page.getBlock(channel);
-            hashCode += hashPosition(type, block, position);
-        }
-        // clear the sign bit
-        hashCode &= 0x7fff_ffff_ffff_ffffL;
-
-        int bucket = (int) (hashCode % partitionCount);
-        checkState(bucket >= 0 && bucket < partitionCount);
-        return bucket;
+        return new HashPagePartitioner(partitionCount, partitioningChannels, types);
     }
 
     @Override
@@ -0,0 +1,146 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto;
+
+import com.facebook.presto.operator.PagesHashStrategy;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.gen.JoinCompiler;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Murmur3;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Splits pages into one output page list per partition.  Each row is hashed exactly once,
+ * so all consumers of a hash partitioned buffer share the work.
+ */
+@ThreadSafe
+public final class HashPagePartitioner
+{
+    private static final JoinCompiler JOIN_COMPILER = new JoinCompiler();
+
+    private final int partitionCount;
+    private final List<Integer> partitioningChannels;
+    private final List<Type> types;
+    private final PagesHashStrategy hashStrategy;
+
+    public HashPagePartitioner(int partitionCount, List<Integer> partitioningChannels, List<Type> types)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be at least 1");
+        this.partitionCount = partitionCount;
+        this.partitioningChannels = ImmutableList.copyOf(checkNotNull(partitioningChannels, "partitioningChannels is null"));
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+
+        // the strategy is only used to hash rows, so it does not need any indexed pages
+        ImmutableList.Builder<List<Block>> channels = ImmutableList.builder();
+        for (int i = 0; i < types.size(); i++) {
+            channels.add(ImmutableList.<Block>of());
+        }
+        this.hashStrategy = JOIN_COMPILER.compilePagesHashStrategyFactory(this.types, this.partitioningChannels)
+                .createPagesHashStrategy(channels.build());
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    public List<Integer> getPartitioningChannels()
+    {
+        return partitioningChannels;
+    }
+
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    /**
+     * Partitions the page, returning a list of pages for each partition. The
+     * list for a partition is empty if no rows of the page hash to it.
+     */
+    public List<List<Page>> partitionPage(Page page)
+    {
+        checkNotNull(page, "page is null");
+
+        List<PageBuilder> pageBuilders = new ArrayList<>(partitionCount);
+        List<ImmutableList.Builder<Page>> partitionedPages = new ArrayList<>(partitionCount);
+        for (int partition = 0; partition < partitionCount; partition++) {
+            pageBuilders.add(new PageBuilder(types));
+            partitionedPages.add(ImmutableList.<Page>builder());
+        }
+
+        Block[] hashBlocks = new Block[partitioningChannels.size()];
+        for (int i = 0; i < hashBlocks.length; i++) {
+            hashBlocks[i] = page.getBlock(partitioningChannels.get(i));
+        }
+
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int partition = getPartition(position, hashBlocks);
+
+            PageBuilder pageBuilder = pageBuilders.get(partition);
+            for (int channel = 0; channel < types.size(); channel++) {
+                Type type = types.get(channel);
+                type.appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+
+            // if page is full, flush
+            if (pageBuilder.isFull()) {
+                partitionedPages.get(partition).add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+
+        ImmutableList.Builder<List<Page>> result = ImmutableList.builder();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            PageBuilder pageBuilder = pageBuilders.get(partition);
+            if (!pageBuilder.isEmpty()) {
+                partitionedPages.get(partition).add(pageBuilder.build());
+            }
+            result.add(partitionedPages.get(partition).build());
+        }
+        return result.build();
+    }
+
+    /**
+     * Gets the partition of the row at {@code position}. The blocks must be the partitioning
+     * channels of the page, in partitioning channel order.
+     */
+    public int getPartition(int position, Block... hashBlocks)
+    {
+        long hashCode = Murmur3.hash64(hashStrategy.hashRow(position, hashBlocks));
+        // clear the sign bit
+        hashCode &= 0x7fff_ffff_ffff_ffffL;
+        return (int) (hashCode % partitionCount);
+    }
+
+    /**
+     * Returns true if the partition function produces the same partitioning as this partitioner.
+     */
+    public boolean isCompatible(HashPagePartitionFunction partitionFunction)
+    {
+        return partitionFunction.getPartitionCount() == partitionCount &&
+                partitionFunction.getPartitioningChannels().equals(partitioningChannels) &&
+                partitionFunction.getTypes().equals(types);
+    }
+}
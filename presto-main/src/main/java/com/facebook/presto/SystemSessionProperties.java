@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto;
+
+import com.facebook.presto.spi.PrestoException;
+
+import static com.facebook.presto.spi.StandardErrorCode.INVALID_SESSION_PROPERTY;
+import static java.lang.String.format;
+
+public final class SystemSessionProperties
+{
+    public static final String BROADCAST_JOIN_MAX_ROWS = "broadcast_join_max_rows";
+
+    private SystemSessionProperties()
+    {
+    }
+
+    /**
+     * Gets the largest estimated build side, in rows, for which a join is replicated to
+     * every node instead of partitioned on the join keys.
+     */
+    public static long getBroadcastJoinMaxRows(Session session, long defaultValue)
+    {
+        String value = session.getSystemProperties().get(BROADCAST_JOIN_MAX_ROWS);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException e) {
+            throw new PrestoException(INVALID_SESSION_PROPERTY.toErrorCode(), format("%s is not a valid number: %s", BROADCAST_JOIN_MAX_ROWS, value), e);
+        }
+    }
+}
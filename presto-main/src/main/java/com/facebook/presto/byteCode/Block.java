@@ -1015,6 +1015,18 @@ public class Block
         return this;
     }
 
+    public Block getIntArrayElement()
+    {
+        nodes.add(OpCode.IALOAD);
+        return this;
+    }
+
+    public Block putIntArrayElement()
+    {
+        nodes.add(OpCode.IASTORE);
+        return this;
+    }
+
     public Block visitLineNumber(int line)
     {
         if (line <= 0) {
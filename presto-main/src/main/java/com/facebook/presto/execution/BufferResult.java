@@ -13,8 +13,6 @@
  */
 package com.facebook.presto.execution;
 
-import com.facebook.presto.PagePartitionFunction;
-import com.facebook.presto.UnpartitionedPagePartitionFunction;
 import com.facebook.presto.spi.Page;
 import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
@@ -27,27 +25,20 @@ public class BufferResult
 {
     public static BufferResult emptyResults(long token, boolean bufferClosed)
     {
-        return new BufferResult(token, token, bufferClosed, ImmutableList.<Page>of(), new UnpartitionedPagePartitionFunction());
+        return new BufferResult(token, token, bufferClosed, ImmutableList.<Page>of());
     }
 
     private final long token;
     private final long nextToken;
     private final boolean bufferClosed;
     private final List<Page> pages;
-    private final PagePartitionFunction partitionFunction;
 
     public BufferResult(long token, long nextToken, boolean bufferClosed, List<Page> pages)
-    {
-        this(token, nextToken, bufferClosed, pages, new UnpartitionedPagePartitionFunction());
-    }
-
-    public BufferResult(long token, long nextToken, boolean bufferClosed, List<Page> pages, PagePartitionFunction partitionFunction)
     {
         this.token = token;
         this.nextToken = nextToken;
         this.bufferClosed = bufferClosed;
         this.pages = ImmutableList.copyOf(checkNotNull(pages, "pages is null"));
-        this.partitionFunction = partitionFunction;
     }
 
     public long getToken()
@@ -67,7 +58,7 @@ public class BufferResult
 
     public List<Page> getPages()
     {
-        return partitionFunction.partition(pages);
+        return pages;
     }
 
     public int size()
@@ -83,7 +74,7 @@ public class BufferResult
     @Override
     public int hashCode()
     {
-        return Objects.hashCode(token, nextToken, bufferClosed, pages, partitionFunction);
+        return Objects.hashCode(token, nextToken, bufferClosed, pages);
     }
 
     @Override
@@ -99,8 +90,7 @@ public class BufferResult
         return Objects.equal(this.token, other.token) &&
                 Objects.equal(this.nextToken, other.nextToken) &&
                 Objects.equal(this.bufferClosed, other.bufferClosed) &&
-                Objects.equal(this.pages, other.pages) &&
-                Objects.equal(this.partitionFunction, other.partitionFunction);
+                Objects.equal(this.pages, other.pages);
     }
 
     @Override
@@ -111,7 +101,6 @@ public class BufferResult
                 .add("nextToken", nextToken)
                 .add("bufferClosed", bufferClosed)
                 .add("pages", pages)
-                .add("partitionFunction", partitionFunction)
                 .toString();
     }
 }
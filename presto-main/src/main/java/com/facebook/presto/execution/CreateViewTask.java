@@ -54,6 +54,7 @@ public class CreateViewTask
     private final boolean experimentalSyntaxEnabled;
     private final boolean distributedIndexJoinsEnabled;
     private final boolean distributedJoinsEnabled;
+    private final long broadcastJoinMaxRows;
 
     @Inject
     public CreateViewTask(JsonCodec<ViewDefinition> codec, SqlParser sqlParser, List<PlanOptimizer> planOptimizers, FeaturesConfig featuresConfig)
@@ -65,6 +66,7 @@ public class CreateViewTask
         this.experimentalSyntaxEnabled = featuresConfig.isExperimentalSyntaxEnabled();
         this.distributedIndexJoinsEnabled = featuresConfig.isDistributedIndexJoinsEnabled();
         this.distributedJoinsEnabled = featuresConfig.isDistributedJoinsEnabled();
+        this.broadcastJoinMaxRows = featuresConfig.getBroadcastJoinMaxRows();
     }
 
     @Override
@@ -86,7 +88,7 @@ public class CreateViewTask
 
     public Analysis analyzeStatement(Statement statement, Session session, Metadata metadata)
     {
-        QueryExplainer explainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled, distributedJoinsEnabled);
+        QueryExplainer explainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled, distributedJoinsEnabled, broadcastJoinMaxRows);
         Analyzer analyzer = new Analyzer(session, metadata, sqlParser, Optional.of(explainer), experimentalSyntaxEnabled);
         return analyzer.analyze(statement);
     }
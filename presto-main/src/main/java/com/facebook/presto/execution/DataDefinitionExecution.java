@@ -110,6 +110,12 @@ public class DataDefinitionExecution<T extends Statement>
         stateMachine.recordHeartbeat();
     }
 
+    @Override
+    public void refreshTaskInfos()
+    {
+        // no remote tasks
+    }
+
     @Override
     public QueryInfo getQueryInfo()
     {
@@ -33,6 +33,12 @@ public class FailedQueryExecution
         queryInfo = queryStateMachine.getQueryInfo(null);
     }
 
+    @Override
+    public void refreshTaskInfos()
+    {
+        // no remote tasks
+    }
+
     @Override
     public QueryInfo getQueryInfo()
     {
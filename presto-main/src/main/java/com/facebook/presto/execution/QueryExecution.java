@@ -22,6 +22,12 @@ public interface QueryExecution
 {
     QueryInfo getQueryInfo();
 
+    /**
+     * Requests a refresh of the stats of the running tasks of the query, which are
+     * otherwise only updated when the tasks complete.
+     */
+    void refreshTaskInfos();
+
     Duration waitForStateChange(QueryState currentState, Duration maxWait)
             throws InterruptedException;
 
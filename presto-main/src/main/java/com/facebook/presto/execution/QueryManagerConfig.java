@@ -39,6 +39,7 @@ public class QueryManagerConfig
     private int remoteTaskMaxConsecutiveErrorCount = 10;
     private Duration remoteTaskMinErrorDuration = new Duration(2, TimeUnit.MINUTES);
     private int remoteTaskMaxCallbackThreads = 1000;
+    private Duration remoteTaskInfoRefreshInterval = new Duration(1, TimeUnit.SECONDS);
 
     @Min(1)
     public int getScheduleSplitBatchSize()
@@ -196,4 +197,17 @@ public class QueryManagerConfig
         this.remoteTaskMaxCallbackThreads = remoteTaskMaxCallbackThreads;
         return this;
     }
+
+    @NotNull
+    public Duration getRemoteTaskInfoRefreshInterval()
+    {
+        return remoteTaskInfoRefreshInterval;
+    }
+
+    @Config("query.remote-task.info-refresh-interval")
+    public QueryManagerConfig setRemoteTaskInfoRefreshInterval(Duration remoteTaskInfoRefreshInterval)
+    {
+        this.remoteTaskInfoRefreshInterval = remoteTaskInfoRefreshInterval;
+        return this;
+    }
 }
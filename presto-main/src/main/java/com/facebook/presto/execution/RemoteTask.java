@@ -25,6 +25,14 @@ public interface RemoteTask
 
     TaskInfo getTaskInfo();
 
+    /**
+     * Requests an asynchronous refresh of the stats in the task info of a running task.
+     * The final task info is always fetched when the task completes.
+     */
+    void refreshTaskInfo();
+
+    TaskStatus getTaskStatus();
+
     void start();
 
     void addSplits(PlanNodeId sourceId, Iterable<Split> split);
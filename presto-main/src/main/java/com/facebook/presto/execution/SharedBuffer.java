@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.execution;
 
+import com.facebook.presto.HashPagePartitionFunction;
+import com.facebook.presto.HashPagePartitioner;
 import com.facebook.presto.OutputBuffers;
 import com.facebook.presto.PagePartitionFunction;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
@@ -32,6 +34,7 @@ import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map.Entry;
@@ -116,7 +119,7 @@ public class SharedBuffer
     @GuardedBy("this")
     private long bufferedBytes;
     @GuardedBy("this")
-    private final LinkedList<Page> masterBuffer = new LinkedList<>();
+    private final LinkedList<BufferedPage> masterBuffer = new LinkedList<>();
     @GuardedBy("this")
     private final BlockingQueue<QueuedPage> queuedPages = new LinkedBlockingQueue<>();
     @GuardedBy("this")
@@ -126,6 +129,11 @@ public class SharedBuffer
     @GuardedBy("this")
     private final Set<TaskId> abortedBuffers = new HashSet<>();
 
+    // set when hash partitioned buffers are added; read by producers without holding the lock
+    private volatile HashPagePartitioner partitioner;
+    // set when the buffer holds pages that were added before the partitioner was known
+    private volatile boolean hasUnpartitionedPages;
+
     private final StateMachine<BufferState> state;
 
     @GuardedBy("this")
@@ -154,6 +162,11 @@ public class SharedBuffer
         return state.get() == FINISHED;
     }
 
+    public BufferState getState()
+    {
+        return state.get();
+    }
+
     public SharedBufferInfo getInfo()
     {
         //
@@ -188,6 +201,14 @@ public class SharedBuffer
             TaskId bufferId = entry.getKey();
             if (!namedBuffers.containsKey(bufferId)) {
                 checkState(state.get().canAddBuffers(), "Cannot add buffers to %s", SharedBuffer.class.getSimpleName());
+                if (entry.getValue() instanceof HashPagePartitionFunction) {
+                    HashPagePartitionFunction partitionFunction = (HashPagePartitionFunction) entry.getValue();
+                    if (partitioner == null) {
+                        partitioner = partitionFunction.createPartitioner();
+                        hasUnpartitionedPages = !masterBuffer.isEmpty() || !queuedPages.isEmpty();
+                    }
+                    checkArgument(partitioner.isCompatible(partitionFunction), "Buffer %s is not partitioned the same as the other buffers", bufferId);
+                }
                 NamedBuffer namedBuffer = new NamedBuffer(bufferId, entry.getValue());
                 // the buffer may have been aborted before the creation message was received
                 if (abortedBuffers.contains(bufferId)) {
@@ -206,7 +227,7 @@ public class SharedBuffer
         updateState();
     }
 
-    public synchronized ListenableFuture<?> enqueue(Page page)
+    public ListenableFuture<?> enqueue(Page page)
     {
         checkNotNull(page, "page is null");
 
@@ -216,6 +237,30 @@ public class SharedBuffer
             return immediateFuture(true);
         }
 
+        // Partition the page in the producer thread, outside of the buffer lock.  Each row is
+        // hashed once here instead of once for every consumer when the pages are read.  Pages
+        // added before the buffers are known are partitioned by the next reader, also outside
+        // of the buffer lock.
+        BufferedPage bufferedPage = new BufferedPage(page);
+        HashPagePartitioner partitioner = this.partitioner;
+        if (partitioner != null) {
+            bufferedPage.partition(partitioner);
+        }
+        return enqueueInternal(bufferedPage);
+    }
+
+    private synchronized ListenableFuture<?> enqueueInternal(BufferedPage page)
+    {
+        // state may have changed while the page was partitioned
+        if (!state.get().canAddPages()) {
+            return immediateFuture(true);
+        }
+
+        // the partitioner may have been created while the page was added
+        if (partitioner != null && !page.isPartitioned()) {
+            hasUnpartitionedPages = true;
+        }
+
         // is there room in the buffer
         if (bufferedBytes < maxBufferedBytes) {
             addInternal(page);
@@ -228,7 +273,7 @@ public class SharedBuffer
         return queuedPage.getFuture();
     }
 
-    private synchronized void addInternal(Page page)
+    private synchronized void addInternal(BufferedPage page)
     {
         // add page
         masterBuffer.add(page);
@@ -238,11 +283,42 @@ public class SharedBuffer
         processPendingReads();
     }
 
-    public synchronized ListenableFuture<BufferResult> get(TaskId outputId, long startingSequenceId, DataSize maxSize)
+    public ListenableFuture<BufferResult> get(TaskId outputId, long startingSequenceId, DataSize maxSize)
     {
         checkNotNull(outputId, "outputId is null");
         checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
 
+        if (hasUnpartitionedPages) {
+            // partition outside of the buffer lock, so producers and other readers are not blocked
+            HashPagePartitioner partitioner = this.partitioner;
+            for (BufferedPage page : getUnpartitionedPages()) {
+                page.partition(partitioner);
+            }
+        }
+        return getInternal(outputId, startingSequenceId, maxSize);
+    }
+
+    private synchronized List<BufferedPage> getUnpartitionedPages()
+    {
+        hasUnpartitionedPages = false;
+
+        ImmutableList.Builder<BufferedPage> pages = ImmutableList.builder();
+        for (BufferedPage page : masterBuffer) {
+            if (!page.isPartitioned()) {
+                pages.add(page);
+            }
+        }
+        for (QueuedPage queuedPage : queuedPages) {
+            if (!queuedPage.getPage().isPartitioned()) {
+                pages.add(queuedPage.getPage());
+            }
+        }
+        return pages.build();
+    }
+
+    private synchronized ListenableFuture<BufferResult> getInternal(TaskId outputId, long startingSequenceId, DataSize maxSize)
+    {
+
         // if no buffers can be added, and the requested buffer does not exist, return a closed empty result
         // this can happen with limit queries
         if (!state.get().canAddBuffers() && namedBuffers.get(outputId) == null) {
@@ -256,25 +332,6 @@ public class SharedBuffer
         return getBufferResult.getFuture();
     }
 
-    public synchronized List<Page> getPagesInternal(DataSize maxSize, long sequenceId)
-    {
-        long maxBytes = maxSize.toBytes();
-        List<Page> pages = new ArrayList<>();
-        long bytes = 0;
-
-        int listOffset = Ints.checkedCast(sequenceId - masterSequenceId.get());
-        while (listOffset < masterBuffer.size()) {
-            Page page = masterBuffer.get(listOffset++);
-            bytes += page.getSizeInBytes();
-            // break (and don't add) if this page would exceed the limit
-            if (!pages.isEmpty() && bytes > maxBytes) {
-                break;
-            }
-            pages.add(page);
-        }
-        return ImmutableList.copyOf(pages);
-    }
-
     public synchronized void abort(TaskId outputId)
     {
         checkNotNull(outputId, "outputId is null");
@@ -371,7 +428,7 @@ public class SharedBuffer
                         newMasterSequenceId);
 
                 for (int i = 0; i < pagesToRemove; i++) {
-                    Page page = masterBuffer.removeFirst();
+                    BufferedPage page = masterBuffer.removeFirst();
                     bufferedBytes -= page.getSizeInBytes();
                 }
 
@@ -411,6 +468,7 @@ public class SharedBuffer
     {
         private final TaskId bufferId;
         private final PagePartitionFunction partitionFunction;
+        private final int partition;
 
         private final AtomicLong sequenceId = new AtomicLong();
         private final AtomicBoolean finished = new AtomicBoolean();
@@ -419,6 +477,12 @@ public class SharedBuffer
         {
             this.bufferId = bufferId;
             this.partitionFunction = partitionFunction;
+            if (partitionFunction instanceof HashPagePartitionFunction) {
+                this.partition = ((HashPagePartitionFunction) partitionFunction).getPartition();
+            }
+            else {
+                this.partition = -1;
+            }
         }
 
         public BufferInfo getInfo()
@@ -462,8 +526,35 @@ public class SharedBuffer
                 return emptyResults(startingSequenceId, true);
             }
 
-            List<Page> pages = getPagesInternal(maxSize, sequenceId);
-            return new BufferResult(startingSequenceId, startingSequenceId + pages.size(), false, pages, partitionFunction);
+            long maxBytes = maxSize.toBytes();
+            List<Page> pages = new ArrayList<>();
+            long bytes = 0;
+
+            long nextSequenceId = sequenceId;
+            int listOffset = Ints.checkedCast(sequenceId - masterSequenceId.get());
+            for (Iterator<BufferedPage> iterator = masterBuffer.listIterator(listOffset); iterator.hasNext(); ) {
+                List<Page> bufferedPages = getBufferedPages(iterator.next());
+                for (Page page : bufferedPages) {
+                    bytes += page.getSizeInBytes();
+                }
+                // break (and don't add) if these pages would exceed the limit
+                if (!pages.isEmpty() && bytes > maxBytes) {
+                    break;
+                }
+                pages.addAll(bufferedPages);
+                nextSequenceId++;
+            }
+            return new BufferResult(startingSequenceId, nextSequenceId, false, pages);
+        }
+
+        private List<Page> getBufferedPages(BufferedPage bufferedPage)
+        {
+            if (partition < 0) {
+                return ImmutableList.of(bufferedPage.getPage());
+            }
+            // pages are normally partitioned before the lock is taken, but a page added
+            // concurrently with the partitioned buffers is partitioned here
+            return bufferedPage.getPartition(partitioner, partition);
         }
 
         public void abort()
@@ -496,24 +587,70 @@ public class SharedBuffer
         {
             return Objects.toStringHelper(this)
                     .add("bufferId", bufferId)
+                    .add("partitionFunction", partitionFunction)
                     .add("sequenceId", sequenceId.get())
                     .add("finished", finished.get())
                     .toString();
         }
     }
 
+    @ThreadSafe
+    private static final class BufferedPage
+    {
+        private final long sizeInBytes;
+
+        // the page is kept for unpartitioned buffers until every buffer has read it
+        private final Page page;
+        @GuardedBy("this")
+        private List<List<Page>> partitionedPages;
+
+        private BufferedPage(Page page)
+        {
+            this.page = page;
+            this.sizeInBytes = page.getSizeInBytes();
+        }
+
+        private long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+
+        private Page getPage()
+        {
+            return page;
+        }
+
+        private synchronized boolean isPartitioned()
+        {
+            return partitionedPages != null;
+        }
+
+        private synchronized List<Page> getPartition(HashPagePartitioner partitioner, int partition)
+        {
+            partition(partitioner);
+            return partitionedPages.get(partition);
+        }
+
+        private synchronized void partition(HashPagePartitioner partitioner)
+        {
+            if (partitionedPages == null) {
+                partitionedPages = partitioner.partitionPage(page);
+            }
+        }
+    }
+
     @Immutable
     private static final class QueuedPage
     {
-        private final Page page;
+        private final BufferedPage page;
         private final SettableFuture<?> future = SettableFuture.create();
 
-        private QueuedPage(Page page)
+        private QueuedPage(BufferedPage page)
         {
             this.page = page;
         }
 
-        private Page getPage()
+        private BufferedPage getPage()
         {
             return page;
         }
@@ -581,8 +718,9 @@ public class SharedBuffer
                 // if this was the last page, we're done
                 checkFlushComplete();
 
-                // if we got an empty result, wait for more pages
-                if (bufferResult.isEmpty() && !bufferResult.isBufferClosed()) {
+                // if we did not advance, wait for more pages
+                // a partitioned result can be empty and still advance when no rows hash to this buffer
+                if (bufferResult.getNextToken() == bufferResult.getToken() && !bufferResult.isBufferClosed()) {
                     return false;
                 }
 
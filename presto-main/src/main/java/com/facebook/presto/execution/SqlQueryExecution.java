@@ -76,6 +76,7 @@ public class SqlQueryExecution
     private final boolean experimentalSyntaxEnabled;
     private final boolean distributedIndexJoinsEnabled;
     private final boolean distributedJoinsEnabled;
+    private final long broadcastJoinMaxRows;
     private final ExecutorService queryExecutor;
 
     private final QueryExplainer queryExplainer;
@@ -100,6 +101,7 @@ public class SqlQueryExecution
             boolean experimentalSyntaxEnabled,
             boolean distributedIndexJoinsEnabled,
             boolean distributedJoinsEnabled,
+            long broadcastJoinMaxRows,
             ExecutorService queryExecutor,
             NodeTaskMap nodeTaskMap)
     {
@@ -117,6 +119,7 @@ public class SqlQueryExecution
             this.experimentalSyntaxEnabled = experimentalSyntaxEnabled;
             this.distributedIndexJoinsEnabled = distributedIndexJoinsEnabled;
             this.distributedJoinsEnabled = distributedJoinsEnabled;
+            this.broadcastJoinMaxRows = broadcastJoinMaxRows;
             this.nodeTaskMap = checkNotNull(nodeTaskMap, "nodeTaskMap is null");
 
             checkArgument(maxPendingSplitsPerNode > 0, "scheduleSplitBatchSize must be greater than 0");
@@ -131,7 +134,7 @@ public class SqlQueryExecution
             checkNotNull(self, "self is null");
             this.stateMachine = new QueryStateMachine(queryId, query, session, self, queryExecutor);
 
-            this.queryExplainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled, distributedJoinsEnabled);
+            this.queryExplainer = new QueryExplainer(session, planOptimizers, metadata, sqlParser, experimentalSyntaxEnabled, distributedIndexJoinsEnabled, distributedJoinsEnabled, broadcastJoinMaxRows);
         }
     }
 
@@ -211,7 +214,7 @@ public class SqlQueryExecution
         stateMachine.setInputs(inputs);
 
         // fragment the plan
-        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled, distributedJoinsEnabled);
+        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled, distributedJoinsEnabled, broadcastJoinMaxRows);
 
         stateMachine.recordAnalysisTime(analysisStart);
         return subplan;
@@ -319,6 +322,15 @@ public class SqlQueryExecution
         stateMachine.recordHeartbeat();
     }
 
+    @Override
+    public void refreshTaskInfos()
+    {
+        SqlStageExecution outputStage = this.outputStage.get();
+        if (outputStage != null) {
+            outputStage.refreshTaskInfos();
+        }
+    }
+
     @Override
     public QueryInfo getQueryInfo()
     {
@@ -392,6 +404,7 @@ public class SqlQueryExecution
         private final boolean experimentalSyntaxEnabled;
         private final boolean distributedIndexJoinsEnabled;
         private final boolean distributedJoinsEnabled;
+        private final long broadcastJoinMaxRows;
         private final Metadata metadata;
         private final SqlParser sqlParser;
         private final SplitManager splitManager;
@@ -430,6 +443,7 @@ public class SqlQueryExecution
             this.experimentalSyntaxEnabled = featuresConfig.isExperimentalSyntaxEnabled();
             this.distributedIndexJoinsEnabled = featuresConfig.isDistributedIndexJoinsEnabled();
             this.distributedJoinsEnabled = featuresConfig.isDistributedJoinsEnabled();
+            this.broadcastJoinMaxRows = featuresConfig.getBroadcastJoinMaxRows();
             this.executor = checkNotNull(executor, "executor is null");
             this.nodeTaskMap = checkNotNull(nodeTaskMap, "nodeTaskMap is null");
         }
@@ -455,6 +469,7 @@ public class SqlQueryExecution
                     experimentalSyntaxEnabled,
                     distributedIndexJoinsEnabled,
                     distributedJoinsEnabled,
+                    broadcastJoinMaxRows,
                     executor,
                     nodeTaskMap);
 
@@ -201,6 +201,8 @@ public class SqlQueryManager
         }
 
         query.recordHeartbeat();
+        // the stats of the running tasks are only fetched when a client or the UI asks for them
+        query.refreshTaskInfos();
         return query.getQueryInfo();
     }
 
@@ -77,7 +77,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
 import static com.facebook.presto.execution.StageInfo.stageStateGetter;
-import static com.facebook.presto.execution.TaskInfo.taskStateGetter;
+import static com.facebook.presto.execution.TaskStatus.taskStatusStateGetter;
 import static com.facebook.presto.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static com.facebook.presto.util.Failures.checkCondition;
 import static com.facebook.presto.util.Failures.toFailures;
@@ -278,6 +278,17 @@ public class SqlStageExecution
         }
     }
 
+    @Override
+    public void refreshTaskInfos()
+    {
+        for (RemoteTask task : tasks.values()) {
+            task.refreshTaskInfo();
+        }
+        for (StageExecutionNode subStage : subStages.values()) {
+            subStage.refreshTaskInfos();
+        }
+    }
+
     @Override
     public StageInfo getStageInfo()
     {
@@ -495,7 +506,7 @@ public class SqlStageExecution
         try (SetThreadName setThreadName = new SetThreadName("Stage-%s", stageId)) {
             ImmutableList.Builder<URI> locations = ImmutableList.builder();
             for (RemoteTask task : tasks.values()) {
-                locations.add(task.getTaskInfo().getSelf());
+                locations.add(task.getTaskStatus().getSelf());
             }
             return locations.build();
         }
@@ -609,7 +620,7 @@ public class SqlStageExecution
         for (int taskId = 0; taskId < nodes.size(); taskId++) {
             Node node = nodes.get(taskId);
             RemoteTask task = scheduleTask(taskId, node);
-            tasks.add(task.getTaskInfo().getTaskId());
+            tasks.add(task.getTaskStatus().getTaskId());
         }
 
         // tell sub stages about all nodes and that there will not be more nodes
@@ -626,7 +637,7 @@ public class SqlStageExecution
 
         // tell sub stages about all nodes and that there will not be more nodes
         for (StageExecutionNode subStage : subStages.values()) {
-            subStage.parentTasksAdded(ImmutableList.of(task.getTaskInfo().getTaskId()), true);
+            subStage.parentTasksAdded(ImmutableList.of(task.getTaskStatus().getTaskId()), true);
         }
     }
 
@@ -680,7 +691,7 @@ public class SqlStageExecution
                 RemoteTask remoteTask = scheduleTask(nextTaskId.getAndIncrement(), node, fragment.getPartitionedSource(), taskSplits.getValue());
 
                 // tell the sub stages to create a buffer for this task
-                addStageNode(remoteTask.getTaskInfo().getTaskId());
+                addStageNode(remoteTask.getTaskStatus().getTaskId());
 
                 scheduleTaskDistribution.add(System.nanoTime() - scheduleSplitStart);
             }
@@ -773,8 +784,8 @@ public class SqlStageExecution
         task.start();
 
         // record this task
-        tasks.put(task.getTaskInfo().getTaskId(), task);
-        localNodeTaskMap.put(node, task.getTaskInfo().getTaskId());
+        tasks.put(task.getTaskStatus().getTaskId(), task);
+        localNodeTaskMap.put(node, task.getTaskStatus().getTaskId());
         nodeTaskMap.addTask(node, task);
 
         // update in case task finished before listener was registered
@@ -823,7 +834,7 @@ public class SqlStageExecution
         // update tasks
         for (RemoteTask task : tasks.values()) {
             for (Entry<PlanNodeId, URI> entry : newExchangeLocations.entries()) {
-                Split remoteSplit = createRemoteSplitFor(task.getTaskInfo().getTaskId(), entry.getValue());
+                Split remoteSplit = createRemoteSplitFor(task.getTaskStatus().getTaskId(), entry.getValue());
                 task.addSplits(entry.getKey(), ImmutableList.of(remoteSplit));
             }
             task.setOutputBuffers(outputBuffers);
@@ -908,7 +919,7 @@ public class SqlStageExecution
                     stageState.set(StageState.FAILED);
                 }
                 else {
-                    List<TaskState> taskStates = ImmutableList.copyOf(transform(transform(tasks.values(), taskInfoGetter()), taskStateGetter()));
+                    List<TaskState> taskStates = ImmutableList.copyOf(transform(transform(tasks.values(), taskStatusGetter()), taskStatusStateGetter()));
                     if (any(taskStates, equalTo(TaskState.FAILED))) {
                         stageState.set(StageState.FAILED);
                     }
@@ -1001,6 +1012,18 @@ public class SqlStageExecution
         };
     }
 
+    public static Function<RemoteTask, TaskStatus> taskStatusGetter()
+    {
+        return new Function<RemoteTask, TaskStatus>()
+        {
+            @Override
+            public TaskStatus apply(RemoteTask remoteTask)
+            {
+                return remoteTask.getTaskStatus();
+            }
+        };
+    }
+
     public static Function<StageExecutionNode, StageInfo> stageInfoGetter()
     {
         return new Function<StageExecutionNode, StageInfo>()
@@ -1024,6 +1047,8 @@ interface StageExecutionNode
 {
     StageInfo getStageInfo();
 
+    void refreshTaskInfos();
+
     StageState getState();
 
     Future<?> scheduleStartTasks();
@@ -43,6 +43,7 @@ import java.util.concurrent.atomic.AtomicReference;
 import static com.facebook.presto.util.Failures.toFailures;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.units.DataSize.Unit.BYTE;
 
 public class SqlTask
 {
@@ -179,6 +180,78 @@ public class SqlTask
                 failures);
     }
 
+    public TaskStatus getTaskStatus()
+    {
+        lastHeartbeat.set(DateTime.now());
+
+        try (SetThreadName ignored = new SetThreadName("Task-%s", taskId)) {
+            return createTaskStatus(taskHolderReference.get());
+        }
+    }
+
+    private TaskStatus createTaskStatus(TaskHolder taskHolder)
+    {
+        // status shares the version sequence with task info, so the client can merge them
+        long versionNumber = nextTaskInfoVersion.getAndIncrement();
+
+        TaskState state = taskStateMachine.getState();
+        List<ExecutionFailureInfo> failures = ImmutableList.of();
+        if (state == TaskState.FAILED) {
+            failures = toFailures(taskStateMachine.getFailureCauses());
+        }
+
+        int queuedPartitionedDrivers = 0;
+        int runningPartitionedDrivers = 0;
+        DataSize memoryReservation = new DataSize(0, BYTE);
+
+        TaskInfo finalTaskInfo = taskHolder.getFinalTaskInfo();
+        if (finalTaskInfo != null) {
+            memoryReservation = finalTaskInfo.getStats().getMemoryReservation();
+        }
+        else {
+            SqlTaskExecution taskExecution = taskHolder.getTaskExecution();
+            if (taskExecution != null) {
+                TaskContext taskContext = taskExecution.getTaskContext();
+                queuedPartitionedDrivers = taskContext.getQueuedPartitionedDrivers();
+                runningPartitionedDrivers = taskContext.getRunningPartitionedDrivers();
+                memoryReservation = taskContext.getMemoryReservation();
+            }
+        }
+
+        return new TaskStatus(
+                taskStateMachine.getTaskId(),
+                versionNumber,
+                state,
+                location,
+                sharedBuffer.getState(),
+                queuedPartitionedDrivers,
+                runningPartitionedDrivers,
+                memoryReservation,
+                failures);
+    }
+
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskState callersCurrentState)
+    {
+        checkNotNull(callersCurrentState, "callersCurrentState is null");
+        lastHeartbeat.set(DateTime.now());
+
+        // see getTaskInfo(TaskState)
+        if (callersCurrentState.isDone()) {
+            return Futures.immediateFuture(getTaskStatus());
+        }
+
+        ListenableFuture<TaskState> futureTaskState = taskStateMachine.getStateChange(callersCurrentState);
+        return Futures.transform(futureTaskState, new Function<TaskState, TaskStatus>()
+        {
+            @Nullable
+            @Override
+            public TaskStatus apply(@Nullable TaskState state)
+            {
+                return getTaskStatus();
+            }
+        });
+    }
+
     public ListenableFuture<TaskInfo> getTaskInfo(TaskState callersCurrentState)
     {
         checkNotNull(callersCurrentState, "callersCurrentState is null");
@@ -204,7 +277,7 @@ public class SqlTask
         });
     }
 
-    public TaskInfo updateTask(Session session, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public TaskInfo updateTask(Session session, @Nullable PlanFragment fragment, List<TaskSource> sources, @Nullable OutputBuffers outputBuffers)
     {
         // assure the task execution is only created once
         SqlTaskExecution taskExecution;
@@ -216,6 +289,8 @@ public class SqlTask
             }
             taskExecution = taskHolder.getTaskExecution();
             if (taskExecution == null) {
+                // the fragment is only sent until the coordinator sees the task has been created
+                checkArgument(fragment != null, "fragment is required to create task %s", taskId);
                 taskExecution = sqlTaskExecutionFactory.create(session, taskStateMachine, sharedBuffer, fragment, sources);
                 taskHolderReference.compareAndSet(taskHolder, new TaskHolder(taskExecution));
             }
@@ -224,7 +299,9 @@ public class SqlTask
         lastHeartbeat.set(DateTime.now());
 
         // addSources checks for task completion, so update the buffers first and the task might complete earlier
-        sharedBuffer.setOutputBuffers(outputBuffers);
+        if (outputBuffers != null) {
+            sharedBuffer.setOutputBuffers(outputBuffers);
+        }
         taskExecution.addSources(sources);
 
         return getTaskInfo();
@@ -35,6 +35,7 @@ import org.weakref.jmx.Flatten;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
+import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
@@ -212,13 +213,28 @@ public class SqlTaskManager
     }
 
     @Override
-    public TaskInfo updateTask(Session session, TaskId taskId, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers)
+    public TaskStatus getTaskStatus(TaskId taskId)
+    {
+        checkNotNull(taskId, "taskId is null");
+
+        return tasks.getUnchecked(taskId).getTaskStatus();
+    }
+
+    @Override
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState)
+    {
+        checkNotNull(taskId, "taskId is null");
+        checkNotNull(currentState, "currentState is null");
+
+        return tasks.getUnchecked(taskId).getTaskStatus(currentState);
+    }
+
+    @Override
+    public TaskInfo updateTask(Session session, TaskId taskId, @Nullable PlanFragment fragment, List<TaskSource> sources, @Nullable OutputBuffers outputBuffers)
     {
         checkNotNull(session, "session is null");
         checkNotNull(taskId, "taskId is null");
-        checkNotNull(fragment, "fragment is null");
         checkNotNull(sources, "sources is null");
-        checkNotNull(outputBuffers, "outputBuffers is null");
 
         return tasks.getUnchecked(taskId).updateTask(session, fragment, sources, outputBuffers);
     }
@@ -20,6 +20,8 @@ import com.facebook.presto.sql.planner.PlanFragment;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
+import javax.annotation.Nullable;
+
 import java.util.List;
 
 public interface TaskManager
@@ -50,11 +52,29 @@ public interface TaskManager
      */
     ListenableFuture<TaskInfo> getTaskInfo(TaskId taskId, TaskState currentState);
 
+    /**
+     * Gets the status for the specified task.  The status is much smaller and
+     * cheaper to create than the info, so it should be preferred for tracking
+     * the state of a task.  If the task has not been created yet, an
+     * uninitialized task is created and the status is returned.
+     */
+    TaskStatus getTaskStatus(TaskId taskId);
+
+    /**
+     * Gets future status for the task after the state changes from
+     * {@code current state}. If the task has not been created yet, an
+     * uninitialized task is created and the future is returned.  If the task
+     * is already in a final state, the status is returned immediately.
+     */
+    ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState);
+
     /**
      * Updates the task plan, sources and output buffers.  If the task does not
-     * already exist, is is created and then updated.
+     * already exist, is is created and then updated.  The fragment may only be
+     * null if the task has already been created, and a null output buffers
+     * leaves the current output buffers unchanged.
      */
-    TaskInfo updateTask(Session session, TaskId taskId, PlanFragment fragment, List<TaskSource> sources, OutputBuffers outputBuffers);
+    TaskInfo updateTask(Session session, TaskId taskId, @Nullable PlanFragment fragment, List<TaskSource> sources, @Nullable OutputBuffers outputBuffers);
 
     /**
      * Cancels a task.  If the task does not already exist, is is created and then
@@ -13,15 +13,20 @@
  */
 package com.facebook.presto.execution;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 public class TaskManagerConfig
@@ -30,7 +35,15 @@ public class TaskManagerConfig
     private DataSize maxTaskMemoryUsage = new DataSize(256, Unit.MEGABYTE);
     private DataSize operatorPreAllocatedMemory = new DataSize(16, Unit.MEGABYTE);
     private DataSize maxTaskIndexMemoryUsage = new DataSize(64, Unit.MEGABYTE);
+    private DataSize maxSharedIndexMemoryUsage = new DataSize(0, Unit.BYTE);
     private int maxShardProcessorThreads = Runtime.getRuntime().availableProcessors() * 4;
+    private int hashBuildConcurrency = 4;
+
+    private boolean spillEnabled;
+    private List<String> spillPaths = ImmutableList.of();
+    private DataSize maxSpillPerOperator = new DataSize(10, Unit.GIGABYTE);
+
+    private boolean dynamicFilteringEnabled = true;
 
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
 
@@ -88,6 +101,76 @@ public class TaskManagerConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getMaxSharedIndexMemoryUsage()
+    {
+        return maxSharedIndexMemoryUsage;
+    }
+
+    @Config("task.max-shared-index-memory")
+    @ConfigDescription("Size of the index lookup cache shared by all tasks on a worker (0 to disable)")
+    public TaskManagerConfig setMaxSharedIndexMemoryUsage(DataSize maxSharedIndexMemoryUsage)
+    {
+        this.maxSharedIndexMemoryUsage = maxSharedIndexMemoryUsage;
+        return this;
+    }
+
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("task.dynamic-filtering-enabled")
+    public TaskManagerConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    @Config("task.spill-enabled")
+    public TaskManagerConfig setSpillEnabled(boolean spillEnabled)
+    {
+        this.spillEnabled = spillEnabled;
+        return this;
+    }
+
+    @NotNull
+    public List<String> getSpillPaths()
+    {
+        return spillPaths;
+    }
+
+    public TaskManagerConfig setSpillPaths(List<String> spillPaths)
+    {
+        this.spillPaths = ImmutableList.copyOf(spillPaths);
+        return this;
+    }
+
+    @Config("task.spill-paths")
+    public TaskManagerConfig setSpillPaths(String spillPaths)
+    {
+        this.spillPaths = ImmutableList.copyOf(Splitter.on(',').omitEmptyStrings().trimResults().split(spillPaths));
+        return this;
+    }
+
+    @NotNull
+    public DataSize getMaxSpillPerOperator()
+    {
+        return maxSpillPerOperator;
+    }
+
+    @Config("task.max-spill-per-operator")
+    public TaskManagerConfig setMaxSpillPerOperator(DataSize maxSpillPerOperator)
+    {
+        this.maxSpillPerOperator = maxSpillPerOperator;
+        return this;
+    }
+
     @Min(1)
     public int getMaxShardProcessorThreads()
     {
@@ -101,6 +184,21 @@ public class TaskManagerConfig
         return this;
     }
 
+    @Min(1)
+    @Max(64)
+    public int getHashBuildConcurrency()
+    {
+        return hashBuildConcurrency;
+    }
+
+    @Config("task.hash-build-concurrency")
+    @ConfigDescription("Number of drivers building the hash table of a join (rounded down to a power of 2, 1 to disable the parallel build)")
+    public TaskManagerConfig setHashBuildConcurrency(int hashBuildConcurrency)
+    {
+        this.hashBuildConcurrency = hashBuildConcurrency;
+        return this;
+    }
+
     @NotNull
     public DataSize getSinkMaxBufferSize()
     {
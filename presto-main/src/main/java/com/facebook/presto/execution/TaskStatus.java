@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.SharedBuffer.BufferState;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Function;
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.net.URI;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The subset of {@link TaskInfo} the coordinator needs to track a running task.  Unlike
+ * {@link TaskInfo} it does not contain pipeline, driver or operator stats, so it is cheap
+ * to create, transfer and decode.  Versions are shared with {@link TaskInfo}.
+ */
+@Immutable
+public class TaskStatus
+{
+    private final TaskId taskId;
+    private final long version;
+    private final TaskState state;
+    private final URI self;
+    private final BufferState bufferState;
+    private final int queuedPartitionedDrivers;
+    private final int runningPartitionedDrivers;
+    private final DataSize memoryReservation;
+    private final List<ExecutionFailureInfo> failures;
+
+    @JsonCreator
+    public TaskStatus(@JsonProperty("taskId") TaskId taskId,
+            @JsonProperty("version") long version,
+            @JsonProperty("state") TaskState state,
+            @JsonProperty("self") URI self,
+            @JsonProperty("bufferState") BufferState bufferState,
+            @JsonProperty("queuedPartitionedDrivers") int queuedPartitionedDrivers,
+            @JsonProperty("runningPartitionedDrivers") int runningPartitionedDrivers,
+            @JsonProperty("memoryReservation") DataSize memoryReservation,
+            @JsonProperty("failures") List<ExecutionFailureInfo> failures)
+    {
+        this.taskId = checkNotNull(taskId, "taskId is null");
+        this.version = version;
+        this.state = checkNotNull(state, "state is null");
+        this.self = checkNotNull(self, "self is null");
+        this.bufferState = checkNotNull(bufferState, "bufferState is null");
+
+        checkArgument(queuedPartitionedDrivers >= 0, "queuedPartitionedDrivers must be positive");
+        this.queuedPartitionedDrivers = queuedPartitionedDrivers;
+
+        checkArgument(runningPartitionedDrivers >= 0, "runningPartitionedDrivers must be positive");
+        this.runningPartitionedDrivers = runningPartitionedDrivers;
+
+        this.memoryReservation = checkNotNull(memoryReservation, "memoryReservation is null");
+
+        if (failures != null) {
+            this.failures = ImmutableList.copyOf(failures);
+        }
+        else {
+            this.failures = ImmutableList.of();
+        }
+    }
+
+    @JsonProperty
+    public TaskId getTaskId()
+    {
+        return taskId;
+    }
+
+    @JsonProperty
+    public long getVersion()
+    {
+        return version;
+    }
+
+    @JsonProperty
+    public TaskState getState()
+    {
+        return state;
+    }
+
+    @JsonProperty
+    public URI getSelf()
+    {
+        return self;
+    }
+
+    @JsonProperty
+    public BufferState getBufferState()
+    {
+        return bufferState;
+    }
+
+    @JsonProperty
+    public int getQueuedPartitionedDrivers()
+    {
+        return queuedPartitionedDrivers;
+    }
+
+    @JsonProperty
+    public int getRunningPartitionedDrivers()
+    {
+        return runningPartitionedDrivers;
+    }
+
+    @JsonProperty
+    public DataSize getMemoryReservation()
+    {
+        return memoryReservation;
+    }
+
+    @JsonProperty
+    public List<ExecutionFailureInfo> getFailures()
+    {
+        return failures;
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("taskId", taskId)
+                .add("state", state)
+                .toString();
+    }
+
+    public static TaskStatus fromTaskInfo(TaskInfo taskInfo)
+    {
+        return new TaskStatus(taskInfo.getTaskId(),
+                taskInfo.getVersion(),
+                taskInfo.getState(),
+                taskInfo.getSelf(),
+                taskInfo.getOutputBuffers().getState(),
+                taskInfo.getStats().getQueuedPartitionedDrivers(),
+                taskInfo.getStats().getRunningPartitionedDrivers(),
+                taskInfo.getStats().getMemoryReservation(),
+                taskInfo.getFailures());
+    }
+
+    public static Function<TaskStatus, TaskState> taskStatusStateGetter()
+    {
+        return new Function<TaskStatus, TaskState>()
+        {
+            @Override
+            public TaskState apply(TaskStatus taskStatus)
+            {
+                return taskStatus.getState();
+            }
+        };
+    }
+}
@@ -25,6 +25,7 @@ import com.facebook.presto.operator.window.WindowFunctionSupplier;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
+import com.facebook.presto.type.LikePattern;
 import com.facebook.presto.type.SqlType;
 import com.google.common.base.Throwables;
 import com.google.common.collect.FluentIterable;
@@ -73,6 +74,7 @@ public class FunctionListBuilder
             Boolean.class,
             Pattern.class,
             Regex.class,
+            LikePattern.class,
             JsonPath.class);
 
     private static final Set<Class<?>> SUPPORTED_RETURN_TYPES = ImmutableSet.of(
@@ -83,6 +85,7 @@ public class FunctionListBuilder
             int.class,
             Pattern.class,
             Regex.class,
+            LikePattern.class,
             JsonPath.class);
 
     private final List<ParametricFunction> functions = new ArrayList<>();
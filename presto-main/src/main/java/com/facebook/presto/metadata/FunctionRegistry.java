@@ -36,6 +36,7 @@ import com.facebook.presto.operator.aggregation.VarBinaryMinAggregation;
 import com.facebook.presto.operator.aggregation.VarianceAggregation;
 import com.facebook.presto.operator.scalar.ArrayFunctions;
 import com.facebook.presto.operator.scalar.ColorFunctions;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.operator.scalar.DateTimeFunctions;
 import com.facebook.presto.operator.scalar.HyperLogLogFunctions;
 import com.facebook.presto.operator.scalar.JsonFunctions;
@@ -155,7 +156,7 @@ import static java.lang.String.format;
 public class FunctionRegistry
 {
     private static final String MAGIC_LITERAL_FUNCTION_PREFIX = "$literal$";
-    private static final String OPERATOR_PREFIX = "$operator$";
+    public static final String OPERATOR_PREFIX = "$operator$";
 
     // hack: java classes for types that can be used with magic literals
     private static final Set<Class<?>> SUPPORTED_LITERAL_TYPES = ImmutableSet.<Class<?>>of(long.class, double.class, Slice.class, boolean.class);
@@ -253,6 +254,7 @@ public class FunctionRegistry
                 .scalar(HyperLogLogOperators.class)
                 .scalar(LikeFunctions.class)
                 .scalar(ArrayFunctions.class)
+                .scalar(CombineHashFunction.class)
                 .function(ARRAY_CONSTRUCTOR)
                 .function(ARRAY_SUBSCRIPT)
                 .function(ARRAY_CARDINALITY)
@@ -388,6 +390,20 @@ public class FunctionRegistry
         return null;
     }
 
+    /**
+     * Gets the exact function for the signature, or resolves it by name and argument types
+     * if the function does not have an exact form.
+     */
+    public FunctionInfo getExactOrResolvedFunction(Signature signature)
+    {
+        FunctionInfo function = getExactFunction(signature);
+        if (function == null) {
+            // TODO: temporary hack to deal with magic timestamp literal functions which don't have an "exact" form and need to be "resolved"
+            function = resolveFunction(QualifiedName.of(signature.getName()), signature.getArgumentTypes(), false);
+        }
+        return function;
+    }
+
     @VisibleForTesting
     public List<ParametricFunction> listOperators()
     {
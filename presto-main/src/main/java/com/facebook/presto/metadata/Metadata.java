@@ -15,6 +15,7 @@ package com.facebook.presto.metadata;
 
 import com.facebook.presto.Session;
 import com.facebook.presto.spi.ColumnMetadata;
+import com.facebook.presto.spi.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.sql.tree.QualifiedName;
@@ -62,6 +63,14 @@ public interface Metadata
     @NotNull
     TableMetadata getTableMetadata(TableHandle tableHandle);
 
+    /**
+     * Return the row count and size estimates for the specified table handle.
+     *
+     * @throws RuntimeException if table handle is no longer valid
+     */
+    @NotNull
+    TableStatistics getTableStatistics(TableHandle tableHandle);
+
     /**
      * Get the names that match the specified table prefix (never null).
      */
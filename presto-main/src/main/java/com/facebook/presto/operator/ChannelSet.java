@@ -17,6 +17,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
 public class ChannelSet
@@ -55,21 +56,44 @@ public class ChannelSet
         return hash.contains(position, block);
     }
 
+    /**
+     * Checks if the value at {@code position} is in the set, using the precomputed hash of the value.
+     * The set must have been built with precomputed hashes.
+     */
+    public boolean contains(int position, Block block, Block hashBlock)
+    {
+        return hash.contains(position, block, hashBlock);
+    }
+
     public static class ChannelSetBuilder
     {
         private final GroupByHash hash;
         private final OperatorContext operatorContext;
         private final Block nullBlock;
+        private boolean containsNull;
 
         public ChannelSetBuilder(Type type, int expectedPositions, OperatorContext operatorContext)
         {
-            this.hash = new GroupByHash(ImmutableList.of(type), new int[] {0}, expectedPositions);
+            this(type, false, expectedPositions, operatorContext);
+        }
+
+        /**
+         * @param hashPrecomputed if true, the precomputed hash of each value must be passed with the value
+         */
+        public ChannelSetBuilder(Type type, boolean hashPrecomputed, int expectedPositions, OperatorContext operatorContext)
+        {
+            Optional<Integer> hashChannel = hashPrecomputed ? Optional.of(1) : Optional.<Integer>absent();
+            this.hash = new GroupByHash(ImmutableList.of(type), new int[] {0}, hashChannel, expectedPositions);
             this.operatorContext = operatorContext;
             this.nullBlock = type.createBlockBuilder(new BlockBuilderStatus()).appendNull().build();
         }
 
         public ChannelSet build()
         {
+            if (hash.isHashPrecomputed()) {
+                // the hash of null is not known, so nulls are tracked as they are added
+                return new ChannelSet(hash, containsNull);
+            }
             return new ChannelSet(hash, hash.contains(0, nullBlock));
         }
 
@@ -92,6 +116,21 @@ public class ChannelSet
             }
         }
 
+        public void addBlock(Block block, Block hashBlock)
+        {
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    containsNull = true;
+                    break;
+                }
+            }
+            hash.getGroupIds(new Page(block, hashBlock));
+
+            if (operatorContext != null) {
+                operatorContext.setMemoryReservation(hash.getEstimatedSize());
+            }
+        }
+
         public void add(int position, Block block)
         {
             hash.putIfAbsent(position, block);
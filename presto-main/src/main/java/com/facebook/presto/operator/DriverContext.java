@@ -320,6 +320,11 @@ public class DriverContext
         return partitioned;
     }
 
+    public boolean isExecutionStarted()
+    {
+        return executionStartTime.get() != null;
+    }
+
     // hack for index joins
     @Deprecated
     public Executor getExecutor()
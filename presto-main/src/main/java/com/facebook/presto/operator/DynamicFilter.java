@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.List;
+
+import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Carries the key summaries of a join build side to the scan of the probe side in the
+ * same task. The build publishes the summaries before the lookup source is available,
+ * so the probe scan, which does not produce rows until the join can accept them,
+ * always sees the summaries of the complete build side.
+ */
+@ThreadSafe
+public class DynamicFilter
+{
+    private final SettableFuture<List<JoinKeySummary>> summaries = SettableFuture.create();
+
+    /**
+     * Summarizes the hash channels of the build side, in hash channel order.
+     */
+    public void setBuildPages(PagesIndex pagesIndex, List<Integer> hashChannels)
+    {
+        checkNotNull(pagesIndex, "pagesIndex is null");
+        checkNotNull(hashChannels, "hashChannels is null");
+
+        ImmutableList.Builder<JoinKeySummary> builder = ImmutableList.builder();
+        for (int channel : hashChannels) {
+            Type type = pagesIndex.getTypes().get(channel);
+            List<Block> blocks = pagesIndex.getChannel(channel);
+            builder.add(JoinKeySummary.create(type, blocks));
+        }
+        summaries.set(builder.build());
+    }
+
+    /**
+     * Gets the summary of each join key, in hash channel order, if the build side is done.
+     */
+    public Optional<List<JoinKeySummary>> getSummaries()
+    {
+        return Optional.fromNullable(tryGetUnchecked(summaries));
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.Slice;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Skips the rows whose join keys can not match the build side of the join.
+ */
+class DynamicFilterRecordCursor
+        implements RecordCursor
+{
+    private final RecordCursor delegate;
+    private final int[] fields;
+    private final JoinKeySummary[] summaries;
+
+    DynamicFilterRecordCursor(RecordCursor delegate, int[] fields, JoinKeySummary[] summaries)
+    {
+        this.delegate = checkNotNull(delegate, "delegate is null");
+        this.fields = checkNotNull(fields, "fields is null");
+        this.summaries = checkNotNull(summaries, "summaries is null");
+        checkArgument(fields.length == summaries.length, "fields and summaries must have the same length");
+    }
+
+    @Override
+    public long getTotalBytes()
+    {
+        return delegate.getTotalBytes();
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return delegate.getCompletedBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return delegate.getReadTimeNanos();
+    }
+
+    @Override
+    public Type getType(int field)
+    {
+        return delegate.getType(field);
+    }
+
+    @Override
+    public boolean advanceNextPosition()
+    {
+        while (delegate.advanceNextPosition()) {
+            if (mightMatch()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean mightMatch()
+    {
+        for (int i = 0; i < fields.length; i++) {
+            if (!summaries[i].mightContain(delegate, fields[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean getBoolean(int field)
+    {
+        return delegate.getBoolean(field);
+    }
+
+    @Override
+    public long getLong(int field)
+    {
+        return delegate.getLong(field);
+    }
+
+    @Override
+    public double getDouble(int field)
+    {
+        return delegate.getDouble(field);
+    }
+
+    @Override
+    public Slice getSlice(int field)
+    {
+        return delegate.getSlice(field);
+    }
+
+    @Override
+    public boolean isNull(int field)
+    {
+        return delegate.isNull(field);
+    }
+
+    @Override
+    public void close()
+    {
+        delegate.close();
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.io.Closeable;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Collects pages for sorting in a {@link PagesIndex}. If the index exceeds the memory
+ * limit and spilling is enabled, the index is sorted and written to disk as a run,
+ * and the sorted rows are produced by merging the runs with {@link #mergeRuns}.
+ * Otherwise the caller sorts the index in memory, as without an external sort.
+ */
+public class ExternalSorter
+        implements Closeable
+{
+    private final OperatorContext operatorContext;
+    private final List<Type> sortTypes;
+    private final List<Integer> sortChannels;
+    private final List<SortOrder> sortOrders;
+    private final Optional<SpillerFactory> spillerFactory;
+
+    private final PagesIndex pagesIndex;
+
+    private Spiller spiller;
+
+    public ExternalSorter(
+            OperatorContext operatorContext,
+            List<Type> types,
+            int expectedPositions,
+            List<Type> sortTypes,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrders,
+            Optional<SpillerFactory> spillerFactory)
+    {
+        this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+        this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
+        this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
+        this.sortOrders = ImmutableList.copyOf(checkNotNull(sortOrders, "sortOrders is null"));
+        checkArgument(sortTypes.size() == sortChannels.size(), "sortTypes and sortChannels have different sizes");
+        checkArgument(sortOrders.size() == sortChannels.size(), "sortOrders and sortChannels have different sizes");
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
+
+        this.pagesIndex = new PagesIndex(types, expectedPositions, operatorContext);
+    }
+
+    public void addPage(Page page)
+    {
+        checkNotNull(page, "page is null");
+
+        if (pagesIndex.tryAddPage(page)) {
+            return;
+        }
+
+        if (!spillerFactory.isPresent() || !spillerFactory.get().isSpillEnabled()) {
+            throw new ExceededMemoryLimitException(operatorContext.getMaxMemorySize());
+        }
+        spill();
+    }
+
+    /**
+     * Gets the index holding the pages that have not been spilled.
+     */
+    public PagesIndex getPagesIndex()
+    {
+        return pagesIndex;
+    }
+
+    public boolean hasSpilled()
+    {
+        return spiller != null;
+    }
+
+    /**
+     * Spills the remaining pages, and returns a cursor over all rows in sort order.
+     * The index is empty afterwards, so its memory can be reused while merging.
+     */
+    public MergingPagesCursor mergeRuns()
+    {
+        checkState(spiller != null, "no pages were spilled");
+
+        if (pagesIndex.getPositionCount() > 0) {
+            spill();
+        }
+        return new MergingPagesCursor(sortTypes, sortChannels, sortOrders, spiller.readRuns());
+    }
+
+    private void spill()
+    {
+        if (spiller == null) {
+            spiller = spillerFactory.get().create(operatorContext);
+        }
+
+        // sort the run with the compiled ordering, so only the merge compares values block by block
+        pagesIndex.sort(sortTypes, sortChannels, sortOrders);
+        spiller.spill(pagesIndex.getPages());
+        pagesIndex.clear();
+    }
+
+    @Override
+    public void close()
+    {
+        if (spiller != null) {
+            spiller.close();
+        }
+    }
+}
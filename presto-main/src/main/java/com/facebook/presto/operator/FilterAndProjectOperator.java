@@ -15,25 +15,30 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 
+import static com.facebook.presto.spi.block.BlockBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
 public class FilterAndProjectOperator
         implements Operator
 {
+    // output pages smaller than this are merged, so a selective filter does not produce a stream of tiny pages
+    static final long MINIMUM_OUTPUT_PAGE_SIZE_IN_BYTES = DEFAULT_MAX_PAGE_SIZE_IN_BYTES / 4;
+
     private final OperatorContext operatorContext;
     private final List<Type> types;
 
     private final PageBuilder pageBuilder;
     private final PageProcessor processor;
     private Page currentPage;
-    private int currentPosition;
+    private Page pendingOutput;
     private boolean finishing;
 
     public FilterAndProjectOperator(OperatorContext operatorContext, Iterable<? extends Type> types, PageProcessor processor)
@@ -65,7 +70,7 @@ public class FilterAndProjectOperator
     @Override
     public final boolean isFinished()
     {
-        return finishing && pageBuilder.isEmpty() && currentPage == null;
+        return finishing && currentPage == null && pendingOutput == null && pageBuilder.isEmpty();
     }
 
     @Override
@@ -77,7 +82,7 @@ public class FilterAndProjectOperator
     @Override
     public final boolean needsInput()
     {
-        return !finishing && !pageBuilder.isFull() && currentPage == null;
+        return !finishing && currentPage == null && pendingOutput == null && !pageBuilder.isFull();
     }
 
     @Override
@@ -85,27 +90,62 @@ public class FilterAndProjectOperator
     {
         checkState(!finishing, "Operator is already finishing");
         checkNotNull(page, "page is null");
-        checkState(!pageBuilder.isFull(), "Page buffer is full");
+        checkState(currentPage == null, "Operator already has a page to process");
 
         currentPage = page;
-        currentPosition = 0;
     }
 
     @Override
     public final Page getOutput()
     {
-        if (!pageBuilder.isFull() && currentPage != null) {
-            currentPosition = processor.process(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
-            if (currentPosition == currentPage.getPositionCount()) {
-                currentPage = null;
-                currentPosition = 0;
+        if (pendingOutput != null) {
+            Page page = pendingOutput;
+            pendingOutput = null;
+            return page;
+        }
+
+        if (currentPage != null) {
+            // process the page a column at a time, so identity projections can reuse the input blocks
+            Page page = processor.processColumnar(operatorContext.getSession().toConnectorSession(), currentPage);
+            currentPage = null;
+
+            if (page.getPositionCount() > 0) {
+                if (!types.isEmpty() && page.getSizeInBytes() < MINIMUM_OUTPUT_PAGE_SIZE_IN_BYTES) {
+                    appendPositions(page, types, pageBuilder);
+                }
+                else if (pageBuilder.isEmpty()) {
+                    return page;
+                }
+                else {
+                    // emit the buffered rows first to preserve the order of the output
+                    pendingOutput = page;
+                    return flushPageBuilder();
+                }
             }
         }
 
-        if (!finishing && !pageBuilder.isFull() || pageBuilder.isEmpty()) {
+        if (pageBuilder.isEmpty()) {
             return null;
         }
+        if (finishing || pageBuilder.isFull() || pageBuilder.getSizeInBytes() >= MINIMUM_OUTPUT_PAGE_SIZE_IN_BYTES) {
+            return flushPageBuilder();
+        }
+        return null;
+    }
 
+    static void appendPositions(Page page, List<Type> types, PageBuilder pageBuilder)
+    {
+        Block[] blocks = page.getBlocks();
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < blocks.length; channel++) {
+                types.get(channel).appendTo(blocks[channel], position, pageBuilder.getBlockBuilder(channel));
+            }
+        }
+    }
+
+    private Page flushPageBuilder()
+    {
         Page page = pageBuilder.build();
         pageBuilder.reset();
         return page;
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
@@ -47,4 +48,17 @@ public class GenericPageProcessor
 
         return end;
     }
+
+    @Override
+    public Page processColumnar(ConnectorSession session, Page page)
+    {
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        for (ProjectionFunction projection : projections) {
+            types.add(projection.getType());
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(types.build());
+        process(session, page, 0, page.getPositionCount(), pageBuilder);
+        return pageBuilder.build();
+    }
 }
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.JoinCompiler.PagesHashStrategyFactory;
 import com.facebook.presto.util.array.LongBigArray;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Murmur3;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
@@ -31,6 +32,7 @@ import java.util.List;
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
 import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -46,6 +48,8 @@ public class GroupByHash
     private static final float FILL_RATIO = 0.75f;
     private final List<Type> types;
     private final int[] channels;
+    private final Optional<Integer> inputHashChannel;
+    private final List<Type> hashTypes;
 
     private final PagesHashStrategy hashStrategy;
     private final List<ObjectArrayList<Block>> channelBuilders;
@@ -63,23 +67,40 @@ public class GroupByHash
     private int nextGroupId;
 
     public GroupByHash(List<? extends Type> types, int[] channels, int expectedSize)
+    {
+        this(types, channels, Optional.<Integer>absent(), expectedSize);
+    }
+
+    /**
+     * Creates a hash over the values in {@code channels}. If {@code inputHashChannel} is present, it is the
+     * channel holding the precomputed hash of the values, which is used instead of hashing the values, and
+     * which is stored and output after the values.
+     */
+    public GroupByHash(List<? extends Type> types, int[] channels, Optional<Integer> inputHashChannel, int expectedSize)
     {
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
         this.channels = checkNotNull(channels, "channels is null").clone();
         checkArgument(types.size() == channels.length, "types and channels have different sizes");
+        this.inputHashChannel = checkNotNull(inputHashChannel, "inputHashChannel is null");
+
+        ImmutableList.Builder<Type> hashTypes = ImmutableList.<Type>builder().addAll(this.types);
+        if (inputHashChannel.isPresent()) {
+            hashTypes.add(BIGINT);
+        }
+        this.hashTypes = hashTypes.build();
 
         // For each hashed channel, create an appendable list to hold the blocks (builders).  As we
         // add new values we append them to the existing block builder until it fills up and then
-        // we add a new block builder to each list.
+        // we add a new block builder to each list.  The precomputed hash, if any, is stored in the last channel.
         ImmutableList.Builder<Integer> hashChannels = ImmutableList.builder();
         ImmutableList.Builder<ObjectArrayList<Block>> channelBuilders = ImmutableList.builder();
-        for (int i = 0; i < channels.length; i++) {
+        for (int i = 0; i < this.hashTypes.size(); i++) {
             hashChannels.add(i);
             channelBuilders.add(ObjectArrayList.wrap(new Block[1024], 0));
         }
 
         this.channelBuilders = channelBuilders.build();
-        PagesHashStrategyFactory pagesHashStrategyFactory = JOIN_COMPILER.compilePagesHashStrategyFactory(this.types, hashChannels.build());
+        PagesHashStrategyFactory pagesHashStrategyFactory = JOIN_COMPILER.compilePagesHashStrategyFactory(this.hashTypes, hashChannels.build());
         hashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(this.channelBuilders);
 
         startNewPage();
@@ -113,6 +134,20 @@ public class GroupByHash
         return types;
     }
 
+    /**
+     * Gets the types written by {@link #appendValuesTo}, which are the value types followed by
+     * the hash type if the hash is precomputed.
+     */
+    public List<Type> getOutputTypes()
+    {
+        return hashTypes;
+    }
+
+    public boolean isHashPrecomputed()
+    {
+        return inputHashChannel.isPresent();
+    }
+
     public int getGroupCount()
     {
         return nextGroupId;
@@ -126,6 +161,29 @@ public class GroupByHash
         hashStrategy.appendTo(blockIndex, position, pageBuilder, outputChannelOffset);
     }
 
+    /**
+     * Compares the values of two groups, channel by channel, with nulls first.
+     */
+    public int compareGroups(int leftGroupId, int rightGroupId)
+    {
+        long leftAddress = groupAddress.get(leftGroupId);
+        int leftBlockIndex = decodeSliceIndex(leftAddress);
+        int leftPosition = decodePosition(leftAddress);
+
+        long rightAddress = groupAddress.get(rightGroupId);
+        int rightBlockIndex = decodeSliceIndex(rightAddress);
+        int rightPosition = decodePosition(rightAddress);
+
+        for (int channel = 0; channel < types.size(); channel++) {
+            ObjectArrayList<Block> blocks = channelBuilders.get(channel);
+            int compare = ASC_NULLS_FIRST.compareBlockValue(types.get(channel), blocks.get(leftBlockIndex), leftPosition, blocks.get(rightBlockIndex), rightPosition);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
     public GroupByIdBlock getGroupIds(Page page)
     {
         int positionCount = page.getPositionCount();
@@ -134,10 +192,13 @@ public class GroupByHash
         BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
 
         // extract the hash columns
-        Block[] blocks = new Block[channels.length];
+        Block[] blocks = new Block[hashTypes.size()];
         for (int i = 0; i < channels.length; i++) {
             blocks[i] = page.getBlock(channels[i]);
         }
+        if (inputHashChannel.isPresent()) {
+            blocks[channels.length] = page.getBlock(inputHashChannel.get());
+        }
 
         // get the group id for each position
         for (int position = 0; position < page.getPositionCount(); position++) {
@@ -152,9 +213,13 @@ public class GroupByHash
         return new GroupByIdBlock(nextGroupId, block);
     }
 
+    /**
+     * Checks if the row at {@code position} is in the hash. The blocks are the hashed channels,
+     * followed by the precomputed hash block if the hash is precomputed.
+     */
     public boolean contains(int position, Block... blocks)
     {
-        int hashPosition = ((int) Murmur3.hash64(hashStrategy.hashRow(position, blocks))) & mask;
+        int hashPosition = ((int) Murmur3.hash64(getRawHash(position, blocks))) & mask;
 
         // look for a slot containing this key
         while (key[hashPosition] != -1) {
@@ -170,9 +235,13 @@ public class GroupByHash
         return false;
     }
 
+    /**
+     * Gets the group id of the row at {@code position}, adding a new group if necessary. The blocks
+     * are the hashed channels, followed by the precomputed hash block if the hash is precomputed.
+     */
     public int putIfAbsent(int position, Block... blocks)
     {
-        int hashPosition = ((int) Murmur3.hash64(hashStrategy.hashRow(position, blocks))) & mask;
+        int hashPosition = ((int) Murmur3.hash64(getRawHash(position, blocks))) & mask;
 
         // look for an empty slot or a slot containing this key
         int groupId = -1;
@@ -199,7 +268,7 @@ public class GroupByHash
     {
         // add the row to the open page
         for (int i = 0; i < blocks.length; i++) {
-            Type type = types.get(i);
+            Type type = hashTypes.get(i);
             type.appendTo(blocks[i], position, currentPageBuilder.getBlockBuilder(i));
         }
         currentPageBuilder.declarePosition();
@@ -232,8 +301,8 @@ public class GroupByHash
             completedPagesMemorySize += currentPageBuilder.getSizeInBytes();
         }
 
-        currentPageBuilder = new PageBuilder(types);
-        for (int i = 0; i < types.size(); i++) {
+        currentPageBuilder = new PageBuilder(hashTypes);
+        for (int i = 0; i < hashTypes.size(); i++) {
             channelBuilders.get(i).add(currentPageBuilder.getBlockBuilder(i));
         }
     }
@@ -276,13 +345,24 @@ public class GroupByHash
         groupAddress.ensureCapacity(maxFill);
     }
 
-    private int hashPosition(long sliceAddress)
+    private long hashPosition(long sliceAddress)
     {
         int sliceIndex = decodeSliceIndex(sliceAddress);
         int position = decodePosition(sliceAddress);
+        if (inputHashChannel.isPresent()) {
+            return BIGINT.getLong(channelBuilders.get(types.size()).get(sliceIndex), position);
+        }
         return hashStrategy.hashPosition(sliceIndex, position);
     }
 
+    private long getRawHash(int position, Block[] blocks)
+    {
+        if (inputHashChannel.isPresent()) {
+            return BIGINT.getLong(blocks[types.size()], position);
+        }
+        return hashStrategy.hashRow(position, blocks);
+    }
+
     private boolean positionEqualsCurrentRow(int sliceIndex, int slicePosition, int position, Block[] blocks)
     {
         return hashStrategy.positionEqualsRow(sliceIndex, slicePosition, position, blocks);
@@ -19,17 +19,23 @@ import com.facebook.presto.operator.aggregation.GroupedAccumulator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.base.Optional;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
@@ -45,7 +51,9 @@ public class HashAggregationOperator
         private final List<Integer> groupByChannels;
         private final Step step;
         private final List<AccumulatorFactory> accumulatorFactories;
+        private final Optional<Integer> hashChannel;
         private final int expectedGroups;
+        private final Optional<SpillerFactory> spillerFactory;
         private final List<Type> types;
         private boolean closed;
 
@@ -56,15 +64,42 @@ public class HashAggregationOperator
                 Step step,
                 List<AccumulatorFactory> accumulatorFactories,
                 int expectedGroups)
+        {
+            this(operatorId, groupByTypes, groupByChannels, step, accumulatorFactories, expectedGroups, Optional.<SpillerFactory>absent());
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                int expectedGroups,
+                Optional<SpillerFactory> spillerFactory)
+        {
+            this(operatorId, groupByTypes, groupByChannels, step, accumulatorFactories, Optional.<Integer>absent(), expectedGroups, spillerFactory);
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                int expectedGroups,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.groupByTypes = ImmutableList.copyOf(groupByTypes);
             this.groupByChannels = ImmutableList.copyOf(groupByChannels);
             this.step = step;
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
+            this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
             this.expectedGroups = expectedGroups;
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
-            this.types = toTypes(groupByTypes, step, accumulatorFactories);
+            this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
 
         @Override
@@ -85,7 +120,9 @@ public class HashAggregationOperator
                     groupByChannels,
                     step,
                     accumulatorFactories,
-                    expectedGroups
+                    hashChannel,
+                    expectedGroups,
+                    spillerFactory
             );
         }
 
@@ -101,13 +138,16 @@ public class HashAggregationOperator
     private final List<Integer> groupByChannels;
     private final Step step;
     private final List<AccumulatorFactory> accumulatorFactories;
+    private final Optional<Integer> hashChannel;
     private final int expectedGroups;
+    private final Optional<SpillerFactory> spillerFactory;
 
     private final List<Type> types;
     private final MemoryManager memoryManager;
 
     private GroupByHashAggregationBuilder aggregationBuilder;
     private Iterator<Page> outputIterator;
+    private Spiller spiller;
     private boolean finishing;
 
     public HashAggregationOperator(
@@ -117,6 +157,31 @@ public class HashAggregationOperator
             Step step,
             List<AccumulatorFactory> accumulatorFactories,
             int expectedGroups)
+    {
+        this(operatorContext, groupByTypes, groupByChannels, step, accumulatorFactories, expectedGroups, Optional.<SpillerFactory>absent());
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            int expectedGroups,
+            Optional<SpillerFactory> spillerFactory)
+    {
+        this(operatorContext, groupByTypes, groupByChannels, step, accumulatorFactories, Optional.<Integer>absent(), expectedGroups, spillerFactory);
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            Optional<Integer> hashChannel,
+            int expectedGroups,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         checkNotNull(step, "step is null");
@@ -127,10 +192,12 @@ public class HashAggregationOperator
         this.groupByChannels = ImmutableList.copyOf(groupByChannels);
         this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
         this.step = step;
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.expectedGroups = expectedGroups;
         this.memoryManager = new MemoryManager(operatorContext);
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
-        this.types = toTypes(groupByTypes, step, accumulatorFactories);
+        this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
     }
 
     @Override
@@ -154,7 +221,7 @@ public class HashAggregationOperator
     @Override
     public boolean isFinished()
     {
-        return finishing && aggregationBuilder == null && (outputIterator == null || !outputIterator.hasNext());
+        return finishing && aggregationBuilder == null && spiller == null && (outputIterator == null || !outputIterator.hasNext());
     }
 
     @Override
@@ -176,11 +243,11 @@ public class HashAggregationOperator
         checkNotNull(page, "page is null");
         if (aggregationBuilder == null) {
             aggregationBuilder = new GroupByHashAggregationBuilder(
-                    accumulatorFactories,
-                    step,
+                    createAggregators(accumulatorFactories, step),
                     expectedGroups,
                     groupByTypes,
                     groupByChannels,
+                    hashChannel,
                     memoryManager);
 
             // assume initial aggregationBuilder is not full
@@ -189,6 +256,12 @@ public class HashAggregationOperator
             checkState(!aggregationBuilder.isFull(), "Aggregation buffer is full");
         }
         aggregationBuilder.processPage(page);
+
+        if (canSpill() && aggregationBuilder.isFull()) {
+            // the memory reserved by this builder is reused by the next one
+            getSpiller().spill(aggregationBuilder.buildSortedIntermediate());
+            aggregationBuilder = null;
+        }
     }
 
     @Override
@@ -198,23 +271,36 @@ public class HashAggregationOperator
             // current output iterator is done
             outputIterator = null;
 
-            // no data
-            if (aggregationBuilder == null) {
-                return null;
+            if (finishing && spiller != null) {
+                // merge the spilled runs with the groups that are still in memory
+                ImmutableList.Builder<Iterator<Page>> runs = ImmutableList.builder();
+                runs.addAll(spiller.readRuns());
+                if (aggregationBuilder != null) {
+                    runs.add(aggregationBuilder.buildSortedIntermediate());
+                    aggregationBuilder = null;
+                }
+                outputIterator = new MergingAggregationIterator(runs.build(), spiller);
+                spiller = null;
             }
+            else {
+                // no data
+                if (aggregationBuilder == null) {
+                    return null;
+                }
 
-            // only flush if we are finishing or the aggregation builder is full
-            if (!finishing && !aggregationBuilder.isFull()) {
-                return null;
-            }
+                // only flush if we are finishing or the aggregation builder is full
+                if (!finishing && !aggregationBuilder.isFull()) {
+                    return null;
+                }
 
-            // Only partial aggregation can flush early. Also, check that we are not flushing tiny bits at a time
-            if (!finishing && step != Step.PARTIAL) {
-                throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
-            }
+                // Only partial aggregation can flush early. Also, check that we are not flushing tiny bits at a time
+                if (!finishing && step != Step.PARTIAL) {
+                    throw new ExceededMemoryLimitException(memoryManager.getMaxMemorySize());
+                }
 
-            outputIterator = aggregationBuilder.build();
-            aggregationBuilder = null;
+                outputIterator = aggregationBuilder.build();
+                aggregationBuilder = null;
+            }
 
             if (!outputIterator.hasNext()) {
                 // current output iterator is done
@@ -226,16 +312,155 @@ public class HashAggregationOperator
         return outputIterator.next();
     }
 
-    private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories)
+    private boolean canSpill()
+    {
+        // partial aggregations flush instead, and the spilled runs must be sorted by the group by values
+        if (step == Step.PARTIAL || !spillerFactory.isPresent() || !spillerFactory.get().isSpillEnabled()) {
+            return false;
+        }
+        for (Type groupByType : groupByTypes) {
+            if (!groupByType.isOrderable()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Spiller getSpiller()
+    {
+        if (spiller == null) {
+            spiller = spillerFactory.get().create(operatorContext);
+        }
+        return spiller;
+    }
+
+    private static List<Aggregator> createAggregators(List<AccumulatorFactory> accumulatorFactories, Step step)
+    {
+        // wrapper each function with an aggregator
+        ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
+        checkNotNull(accumulatorFactories, "accumulatorFactories is null");
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            builder.add(new Aggregator(accumulatorFactory, step));
+        }
+        return builder.build();
+    }
+
+    private static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
         types.addAll(groupByType);
+        if (hashChannel.isPresent()) {
+            types.add(BIGINT);
+        }
         for (AccumulatorFactory factory : factories) {
             types.add(new Aggregator(factory, step).getType());
         }
         return types.build();
     }
 
+    /**
+     * Merges runs of groups sorted by the group by values, combining the intermediate
+     * values of equal groups. Output pages are cut only between different groups, so
+     * each group is combined within a single page.
+     */
+    private class MergingAggregationIterator
+            extends AbstractIterator<Page>
+    {
+        private final Spiller spiller;
+        private final MergingPagesCursor cursor;
+        private final List<Integer> mergeGroupByChannels;
+        private final Optional<Integer> mergeHashChannel;
+        private final List<Type> intermediateTypes;
+        private final PageBuilder pageBuilder;
+
+        private boolean hasRow;
+        private Iterator<Page> currentOutput = ImmutableList.<Page>of().iterator();
+
+        private MergingAggregationIterator(List<Iterator<Page>> runs, Spiller spiller)
+        {
+            this.spiller = spiller;
+
+            ImmutableList.Builder<Integer> mergeGroupByChannels = ImmutableList.builder();
+            ImmutableList.Builder<SortOrder> sortOrders = ImmutableList.builder();
+            for (int channel = 0; channel < groupByTypes.size(); channel++) {
+                mergeGroupByChannels.add(channel);
+                sortOrders.add(ASC_NULLS_FIRST);
+            }
+            this.mergeGroupByChannels = mergeGroupByChannels.build();
+            this.cursor = new MergingPagesCursor(groupByTypes, this.mergeGroupByChannels, sortOrders.build(), runs);
+
+            // the precomputed hash is spilled after the group by values
+            ImmutableList.Builder<Type> intermediateTypes = ImmutableList.builder();
+            intermediateTypes.addAll(groupByTypes);
+            if (hashChannel.isPresent()) {
+                mergeHashChannel = Optional.of(groupByTypes.size());
+                intermediateTypes.add(BIGINT);
+            }
+            else {
+                mergeHashChannel = Optional.absent();
+            }
+            for (Aggregator aggregator : createAggregators(accumulatorFactories, step)) {
+                intermediateTypes.add(aggregator.getIntermediateType());
+            }
+            this.intermediateTypes = intermediateTypes.build();
+            this.pageBuilder = new PageBuilder(this.intermediateTypes);
+
+            hasRow = cursor.advance();
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            while (!currentOutput.hasNext()) {
+                if (!hasRow) {
+                    spiller.close();
+                    return endOfData();
+                }
+                currentOutput = combineNextGroups();
+            }
+            return currentOutput.next();
+        }
+
+        private Iterator<Page> combineNextGroups()
+        {
+            pageBuilder.reset();
+
+            Page lastPage = null;
+            int lastPosition = -1;
+            while (hasRow) {
+                Page page = cursor.getPage();
+                int position = cursor.getPosition();
+                if (pageBuilder.isFull() && cursor.compareRows(page, position, lastPage, lastPosition) != 0) {
+                    break;
+                }
+
+                for (int channel = 0; channel < intermediateTypes.size(); channel++) {
+                    intermediateTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                }
+
+                lastPage = page;
+                lastPosition = position;
+                hasRow = cursor.advance();
+            }
+
+            int intermediateChannelOffset = intermediateTypes.size() - accumulatorFactories.size();
+            ImmutableList.Builder<Aggregator> aggregators = ImmutableList.builder();
+            for (int i = 0; i < accumulatorFactories.size(); i++) {
+                aggregators.add(new Aggregator(accumulatorFactories.get(i), intermediateChannelOffset + i));
+            }
+
+            GroupByHashAggregationBuilder builder = new GroupByHashAggregationBuilder(
+                    aggregators.build(),
+                    expectedGroups,
+                    groupByTypes,
+                    mergeGroupByChannels,
+                    mergeHashChannel,
+                    memoryManager);
+            builder.processPage(pageBuilder.build());
+            return builder.build();
+        }
+    }
+
     private static class GroupByHashAggregationBuilder
     {
         private final GroupByHash groupByHash;
@@ -243,24 +468,16 @@ public class HashAggregationOperator
         private final MemoryManager memoryManager;
 
         private GroupByHashAggregationBuilder(
-                List<AccumulatorFactory> accumulatorFactories,
-                Step step,
+                List<Aggregator> aggregators,
                 int expectedGroups,
                 List<Type> groupByTypes,
                 List<Integer> groupByChannels,
+                Optional<Integer> hashChannel,
                 MemoryManager memoryManager)
         {
-            this.groupByHash = new GroupByHash(groupByTypes, Ints.toArray(groupByChannels), expectedGroups);
+            this.groupByHash = new GroupByHash(groupByTypes, Ints.toArray(groupByChannels), hashChannel, expectedGroups);
+            this.aggregators = ImmutableList.copyOf(checkNotNull(aggregators, "aggregators is null"));
             this.memoryManager = memoryManager;
-
-            // wrapper each function with an aggregator
-            ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
-            checkNotNull(accumulatorFactories, "accumulatorFactories is null");
-            for (int i = 0; i < accumulatorFactories.size(); i++) {
-                AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-                builder.add(new Aggregator(accumulatorFactory, step));
-            }
-            aggregators = builder.build();
         }
 
         private void processPage(Page page)
@@ -283,37 +500,77 @@ public class HashAggregationOperator
 
         public Iterator<Page> build()
         {
-            List<Type> types = new ArrayList<>(groupByHash.getTypes());
+            List<Type> types = new ArrayList<>(groupByHash.getOutputTypes());
             for (Aggregator aggregator : aggregators) {
                 types.add(aggregator.getType());
             }
 
+            int[] groupIds = new int[groupByHash.getGroupCount()];
+            for (int groupId = 0; groupId < groupIds.length; groupId++) {
+                groupIds[groupId] = groupId;
+            }
+            return buildPages(types, groupIds, false);
+        }
+
+        /**
+         * Builds the groups ordered by the group by values, with the intermediate
+         * values of the aggregations, so the output can be spilled and merged.
+         */
+        public Iterator<Page> buildSortedIntermediate()
+        {
+            List<Type> types = new ArrayList<>(groupByHash.getOutputTypes());
+            for (Aggregator aggregator : aggregators) {
+                types.add(aggregator.getIntermediateType());
+            }
+
+            int[] groupIds = new int[groupByHash.getGroupCount()];
+            for (int groupId = 0; groupId < groupIds.length; groupId++) {
+                groupIds[groupId] = groupId;
+            }
+            IntArrays.quickSort(groupIds, new AbstractIntComparator()
+            {
+                @Override
+                public int compare(int leftGroupId, int rightGroupId)
+                {
+                    return groupByHash.compareGroups(leftGroupId, rightGroupId);
+                }
+            });
+            return buildPages(types, groupIds, true);
+        }
+
+        private Iterator<Page> buildPages(List<Type> types, final int[] groupIds, final boolean intermediate)
+        {
             final PageBuilder pageBuilder = new PageBuilder(types);
             return new AbstractIterator<Page>()
             {
-                private final int groupCount = groupByHash.getGroupCount();
-                private int groupId;
+                private int index;
 
                 @Override
                 protected Page computeNext()
                 {
-                    if (groupId >= groupCount) {
+                    if (index >= groupIds.length) {
                         return endOfData();
                     }
 
                     pageBuilder.reset();
 
-                    List<Type> types = groupByHash.getTypes();
-                    while (!pageBuilder.isFull() && groupId < groupCount) {
+                    List<Type> types = groupByHash.getOutputTypes();
+                    while (!pageBuilder.isFull() && index < groupIds.length) {
+                        int groupId = groupIds[index];
                         groupByHash.appendValuesTo(groupId, pageBuilder, 0);
 
                         for (int i = 0; i < aggregators.size(); i++) {
                             Aggregator aggregator = aggregators.get(i);
                             BlockBuilder output = pageBuilder.getBlockBuilder(types.size() + i);
-                            aggregator.evaluate(groupId, output);
+                            if (intermediate) {
+                                aggregator.evaluateIntermediate(groupId, output);
+                            }
+                            else {
+                                aggregator.evaluate(groupId, output);
+                            }
                         }
 
-                        groupId++;
+                        index++;
                     }
 
                     return pageBuilder.build();
@@ -342,6 +599,16 @@ public class HashAggregationOperator
             this.step = step;
         }
 
+        /**
+         * Creates an aggregator that combines spilled intermediate values read from the specified channel.
+         */
+        private Aggregator(AccumulatorFactory accumulatorFactory, int intermediateChannel)
+        {
+            this.aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
+            this.step = Step.FINAL;
+            this.intermediateChannel = intermediateChannel;
+        }
+
         public long getEstimatedSize()
         {
             return aggregation.getEstimatedSize();
@@ -357,6 +624,11 @@ public class HashAggregationOperator
             }
         }
 
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
         public void processPage(GroupByIdBlock groupIds, Page page)
         {
             if (step == Step.FINAL) {
@@ -376,5 +648,10 @@ public class HashAggregationOperator
                 aggregation.evaluateFinal(groupId, output);
             }
         }
+
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
     }
 }
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -36,6 +37,8 @@ public class HashBuilderOperator
         private final int operatorId;
         private final SettableLookupSourceSupplier lookupSourceSupplier;
         private final List<Integer> hashChannels;
+        private final Optional<Integer> preComputedHashChannel;
+        private final Optional<DynamicFilter> dynamicFilter;
         private final int expectedPositions;
         private boolean closed;
 
@@ -44,12 +47,35 @@ public class HashBuilderOperator
                 List<Type> types,
                 List<Integer> hashChannels,
                 int expectedPositions)
+        {
+            this(operatorId, types, hashChannels, Optional.<Integer>absent(), expectedPositions);
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                int expectedPositions)
+        {
+            this(operatorId, types, hashChannels, preComputedHashChannel, Optional.<DynamicFilter>absent(), expectedPositions);
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                Optional<DynamicFilter> dynamicFilter,
+                int expectedPositions)
         {
             this.operatorId = operatorId;
             this.lookupSourceSupplier = new SettableLookupSourceSupplier(checkNotNull(types, "types is null"));
 
             Preconditions.checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
             this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+            this.preComputedHashChannel = checkNotNull(preComputedHashChannel, "preComputedHashChannel is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
 
             this.expectedPositions = checkNotNull(expectedPositions, "expectedPositions is null");
         }
@@ -74,6 +100,8 @@ public class HashBuilderOperator
                     operatorContext,
                     lookupSourceSupplier,
                     hashChannels,
+                    preComputedHashChannel,
+                    dynamicFilter,
                     expectedPositions);
         }
 
@@ -87,6 +115,8 @@ public class HashBuilderOperator
     private final OperatorContext operatorContext;
     private final SettableLookupSourceSupplier lookupSourceSupplier;
     private final List<Integer> hashChannels;
+    private final Optional<Integer> preComputedHashChannel;
+    private final Optional<DynamicFilter> dynamicFilter;
 
     private final PagesIndex pagesIndex;
 
@@ -97,6 +127,27 @@ public class HashBuilderOperator
             SettableLookupSourceSupplier lookupSourceSupplier,
             List<Integer> hashChannels,
             int expectedPositions)
+    {
+        this(operatorContext, lookupSourceSupplier, hashChannels, Optional.<Integer>absent(), expectedPositions);
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            SettableLookupSourceSupplier lookupSourceSupplier,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            int expectedPositions)
+    {
+        this(operatorContext, lookupSourceSupplier, hashChannels, preComputedHashChannel, Optional.<DynamicFilter>absent(), expectedPositions);
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            SettableLookupSourceSupplier lookupSourceSupplier,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<DynamicFilter> dynamicFilter,
+            int expectedPositions)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
@@ -104,6 +155,8 @@ public class HashBuilderOperator
 
         Preconditions.checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
         this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+        this.preComputedHashChannel = checkNotNull(preComputedHashChannel, "preComputedHashChannel is null");
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
 
         this.pagesIndex = new PagesIndex(lookupSourceSupplier.getTypes(), expectedPositions, operatorContext);
     }
@@ -126,8 +179,18 @@ public class HashBuilderOperator
         if (finished) {
             return;
         }
+        if (operatorContext.getDriverContext().isDone()) {
+            // the driver is destroyed before the build side was fully consumed, so neither the
+            // lookup source nor the key summaries of the partial build side may be published
+            finished = true;
+            return;
+        }
 
-        LookupSource lookupSource = pagesIndex.createLookupSource(hashChannels);
+        LookupSource lookupSource = pagesIndex.createLookupSource(hashChannels, preComputedHashChannel);
+        // publish the key summaries first, so they are ready when the probe side starts
+        if (dynamicFilter.isPresent()) {
+            dynamicFilter.get().setBuildPages(pagesIndex, hashChannels);
+        }
         lookupSourceSupplier.setLookupSource(lookupSource);
         finished = true;
     }
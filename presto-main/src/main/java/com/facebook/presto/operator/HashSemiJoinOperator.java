@@ -18,6 +18,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 
@@ -41,16 +42,23 @@ public class HashSemiJoinOperator
         private final SetSupplier setSupplier;
         private final List<Type> probeTypes;
         private final int probeJoinChannel;
+        private final Optional<Integer> probeHashChannel;
         private final List<Type> types;
         private boolean closed;
 
         public HashSemiJoinOperatorFactory(int operatorId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel)
+        {
+            this(operatorId, setSupplier, probeTypes, probeJoinChannel, Optional.<Integer>absent());
+        }
+
+        public HashSemiJoinOperatorFactory(int operatorId, SetSupplier setSupplier, List<? extends Type> probeTypes, int probeJoinChannel, Optional<Integer> probeHashChannel)
         {
             this.operatorId = operatorId;
             this.setSupplier = setSupplier;
             this.probeTypes = ImmutableList.copyOf(probeTypes);
             checkArgument(probeJoinChannel >= 0, "probeJoinChannel is negative");
             this.probeJoinChannel = probeJoinChannel;
+            this.probeHashChannel = checkNotNull(probeHashChannel, "probeHashChannel is null");
 
             this.types = ImmutableList.<Type>builder()
                     .addAll(probeTypes)
@@ -69,7 +77,7 @@ public class HashSemiJoinOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, HashBuilderOperator.class.getSimpleName());
-            return new HashSemiJoinOperator(operatorContext, setSupplier, probeTypes, probeJoinChannel);
+            return new HashSemiJoinOperator(operatorContext, setSupplier, probeTypes, probeJoinChannel, probeHashChannel);
         }
 
         @Override
@@ -80,6 +88,7 @@ public class HashSemiJoinOperator
     }
 
     private final int probeJoinChannel;
+    private final Optional<Integer> probeHashChannel;
     private final List<Type> types;
     private final ListenableFuture<ChannelSet> channelSetFuture;
 
@@ -88,6 +97,11 @@ public class HashSemiJoinOperator
     private boolean finishing;
 
     public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, List<Type> probeTypes, int probeJoinChannel)
+    {
+        this(operatorContext, channelSetFuture, probeTypes, probeJoinChannel, Optional.<Integer>absent());
+    }
+
+    public HashSemiJoinOperator(OperatorContext operatorContext, SetSupplier channelSetFuture, List<Type> probeTypes, int probeJoinChannel, Optional<Integer> probeHashChannel)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
 
@@ -98,6 +112,7 @@ public class HashSemiJoinOperator
 
         this.channelSetFuture = channelSetFuture.getChannelSet();
         this.probeJoinChannel = probeJoinChannel;
+        this.probeHashChannel = checkNotNull(probeHashChannel, "probeHashChannel is null");
 
         this.types = ImmutableList.<Type>builder()
                 .addAll(probeTypes)
@@ -161,6 +176,7 @@ public class HashSemiJoinOperator
         BlockBuilder blockBuilder = BOOLEAN.createFixedSizeBlockBuilder(page.getPositionCount());
 
         Block probeJoinBlock = page.getBlock(probeJoinChannel);
+        Block probeHashBlock = probeHashChannel.isPresent() ? page.getBlock(probeHashChannel.get()) : null;
 
         // update hashing strategy to use probe cursor
         for (int position = 0; position < page.getPositionCount(); position++) {
@@ -168,7 +184,13 @@ public class HashSemiJoinOperator
                 blockBuilder.appendNull();
             }
             else {
-                boolean contains = channelSet.contains(position, probeJoinBlock);
+                boolean contains;
+                if (probeHashBlock != null) {
+                    contains = channelSet.contains(position, probeJoinBlock, probeHashBlock);
+                }
+                else {
+                    contains = channelSet.contains(position, probeJoinBlock);
+                }
                 if (!contains && channelSet.containsNull()) {
                     blockBuilder.appendNull();
                 }
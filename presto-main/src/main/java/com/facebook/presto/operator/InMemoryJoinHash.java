@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Murmur3;
@@ -27,7 +28,9 @@ import java.util.List;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
 import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.slice.SizeOf.sizeOfIntArray;
 
 // This implementation assumes arrays used in the hash are always a power of 2
@@ -36,6 +39,7 @@ public final class InMemoryJoinHash
 {
     private final LongArrayList addresses;
     private final PagesHashStrategy pagesHashStrategy;
+    private final Optional<List<Block>> hashChannel;
 
     private final int channelCount;
     private final int mask;
@@ -44,10 +48,19 @@ public final class InMemoryJoinHash
     private final List<Type> hashTypes;
 
     public InMemoryJoinHash(LongArrayList addresses, List<Type> hashTypes, PagesHashStrategy pagesHashStrategy, OperatorContext operatorContext)
+    {
+        this(addresses, hashTypes, pagesHashStrategy, Optional.<List<Block>>absent(), operatorContext);
+    }
+
+    /**
+     * @param hashChannel the blocks of a channel containing the precomputed raw hash of the join keys
+     */
+    public InMemoryJoinHash(LongArrayList addresses, List<Type> hashTypes, PagesHashStrategy pagesHashStrategy, Optional<List<Block>> hashChannel, OperatorContext operatorContext)
     {
         this.addresses = checkNotNull(addresses, "addresses is null");
         this.hashTypes = ImmutableList.copyOf(checkNotNull(hashTypes, "hashTypes is null"));
         this.pagesHashStrategy = checkNotNull(pagesHashStrategy, "pagesHashStrategy is null");
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.channelCount = pagesHashStrategy.getChannelCount();
 
         checkNotNull(operatorContext, "operatorContext is null");
@@ -95,7 +108,14 @@ public final class InMemoryJoinHash
     @Override
     public long getJoinPosition(int position, Block... blocks)
     {
-        int pos = ((int) Murmur3.hash64(pagesHashStrategy.hashRow(position, blocks))) & mask;
+        checkState(!hashChannel.isPresent(), "join hash was built with a precomputed hash");
+        return getJoinPosition(position, blocks, pagesHashStrategy.hashRow(position, blocks));
+    }
+
+    @Override
+    public long getJoinPosition(int position, Block[] blocks, long rawHash)
+    {
+        int pos = ((int) Murmur3.hash64(rawHash)) & mask;
 
         while (key[pos] != -1) {
             if (positionEqualsCurrentRow(key[pos], position, blocks)) {
@@ -128,12 +148,15 @@ public final class InMemoryJoinHash
     {
     }
 
-    private int hashPosition(int position)
+    private long hashPosition(int position)
     {
         long pageAddress = addresses.getLong(position);
         int blockIndex = decodeSliceIndex(pageAddress);
         int blockPosition = decodePosition(pageAddress);
 
+        if (hashChannel.isPresent()) {
+            return BIGINT.getLong(hashChannel.get().get(blockIndex), blockPosition);
+        }
         return pagesHashStrategy.hashPosition(blockIndex, blockPosition);
     }
 
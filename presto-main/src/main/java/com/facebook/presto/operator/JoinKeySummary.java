@@ -0,0 +1,256 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.TimeType.TIME;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Summary of the values of a join key on the build side. A probe row whose key is
+ * not in the summary can not match any build row, so it can be skipped before the
+ * join. The summary is conservative: {@code mightContain} may return true for a value
+ * that is not on the build side, but never returns false for one that is.
+ * Null keys never match in an equi-join, so they are never contained.
+ */
+public abstract class JoinKeySummary
+{
+    // beyond this many distinct values only the range of the keys is kept
+    private static final int MAX_DISTINCT_VALUES = 10_000;
+
+    // types whose equality is the equality of the raw long value
+    private static final Set<Type> ORDERED_LONG_TYPES = ImmutableSet.<Type>of(BIGINT, DATE, TIME, TIMESTAMP);
+    private static final Set<Type> SLICE_TYPES = ImmutableSet.<Type>of(VARCHAR, VARBINARY);
+
+    /**
+     * Returns true if the build side has no non-null keys, so no probe row can match.
+     */
+    public abstract boolean isEmpty();
+
+    public abstract boolean mightContain(Block block, int position);
+
+    public abstract boolean mightContain(RecordCursor cursor, int field);
+
+    public static JoinKeySummary create(Type type, List<Block> blocks)
+    {
+        checkNotNull(type, "type is null");
+        checkNotNull(blocks, "blocks is null");
+
+        if (ORDERED_LONG_TYPES.contains(type)) {
+            return LongSummary.create(blocks, true);
+        }
+        if (type.equals(DOUBLE)) {
+            // doubles are equal when their bits are equal, which does not follow the numeric order
+            return LongSummary.create(blocks, false);
+        }
+        if (SLICE_TYPES.contains(type)) {
+            return SliceSummary.create(blocks);
+        }
+        return new AllSummary();
+    }
+
+    private static class AllSummary
+            extends JoinKeySummary
+    {
+        @Override
+        public boolean isEmpty()
+        {
+            return false;
+        }
+
+        @Override
+        public boolean mightContain(Block block, int position)
+        {
+            return true;
+        }
+
+        @Override
+        public boolean mightContain(RecordCursor cursor, int field)
+        {
+            return true;
+        }
+    }
+
+    private static class LongSummary
+            extends JoinKeySummary
+    {
+        private final boolean ordered;
+        private final boolean empty;
+        private final long min;
+        private final long max;
+        // null if there are too many distinct values
+        private final LongOpenHashSet values;
+
+        private LongSummary(boolean ordered, boolean empty, long min, long max, LongOpenHashSet values)
+        {
+            this.ordered = ordered;
+            this.empty = empty;
+            this.min = min;
+            this.max = max;
+            this.values = values;
+        }
+
+        public static JoinKeySummary create(List<Block> blocks, boolean ordered)
+        {
+            boolean empty = true;
+            long min = Long.MAX_VALUE;
+            long max = Long.MIN_VALUE;
+            LongOpenHashSet values = new LongOpenHashSet();
+            for (Block block : blocks) {
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (block.isNull(position)) {
+                        continue;
+                    }
+                    long value = block.getLong(position, 0);
+                    empty = false;
+                    min = Math.min(min, value);
+                    max = Math.max(max, value);
+                    if (values != null) {
+                        values.add(value);
+                        if (values.size() > MAX_DISTINCT_VALUES) {
+                            values = null;
+                        }
+                    }
+                }
+            }
+
+            if (!ordered && values == null) {
+                return new AllSummary();
+            }
+            return new LongSummary(ordered, empty, min, max, values);
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return empty;
+        }
+
+        @Override
+        public boolean mightContain(Block block, int position)
+        {
+            return !block.isNull(position) && mightContain(block.getLong(position, 0));
+        }
+
+        @Override
+        public boolean mightContain(RecordCursor cursor, int field)
+        {
+            if (cursor.isNull(field)) {
+                return false;
+            }
+            if (ordered) {
+                return mightContain(cursor.getLong(field));
+            }
+            return mightContain(Double.doubleToRawLongBits(cursor.getDouble(field)));
+        }
+
+        private boolean mightContain(long value)
+        {
+            if (empty) {
+                return false;
+            }
+            if (ordered && (value < min || value > max)) {
+                return false;
+            }
+            return values == null || values.contains(value);
+        }
+    }
+
+    private static class SliceSummary
+            extends JoinKeySummary
+    {
+        // null if the build side is empty
+        private final Slice min;
+        private final Slice max;
+        // null if there are too many distinct values
+        private final Set<Slice> values;
+
+        private SliceSummary(Slice min, Slice max, Set<Slice> values)
+        {
+            this.min = min;
+            this.max = max;
+            this.values = values;
+        }
+
+        public static JoinKeySummary create(List<Block> blocks)
+        {
+            Slice min = null;
+            Slice max = null;
+            Set<Slice> values = new HashSet<>();
+            for (Block block : blocks) {
+                for (int position = 0; position < block.getPositionCount(); position++) {
+                    if (block.isNull(position)) {
+                        continue;
+                    }
+                    Slice value = block.getSlice(position, 0, block.getLength(position));
+                    if (min == null || value.compareTo(min) < 0) {
+                        min = value;
+                    }
+                    if (max == null || value.compareTo(max) > 0) {
+                        max = value;
+                    }
+                    if (values != null) {
+                        values.add(value);
+                        if (values.size() > MAX_DISTINCT_VALUES) {
+                            values = null;
+                        }
+                    }
+                }
+            }
+            return new SliceSummary(min, max, values);
+        }
+
+        @Override
+        public boolean isEmpty()
+        {
+            return min == null;
+        }
+
+        @Override
+        public boolean mightContain(Block block, int position)
+        {
+            return !block.isNull(position) && mightContain(block.getSlice(position, 0, block.getLength(position)));
+        }
+
+        @Override
+        public boolean mightContain(RecordCursor cursor, int field)
+        {
+            return !cursor.isNull(field) && mightContain(cursor.getSlice(field));
+        }
+
+        private boolean mightContain(Slice value)
+        {
+            if (min == null || value.compareTo(min) < 0 || value.compareTo(max) > 0) {
+                return false;
+            }
+            return values == null || values.contains(value);
+        }
+    }
+}
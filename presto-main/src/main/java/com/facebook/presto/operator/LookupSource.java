@@ -25,6 +25,12 @@ public interface LookupSource
 
     long getJoinPosition(int position, Block... blocks);
 
+    /**
+     * Same as {@link #getJoinPosition(int, Block...)}, but uses the precomputed raw hash of
+     * the probe row. Implementations that do not support precomputed hashes ignore it.
+     */
+    long getJoinPosition(int position, Block[] blocks, long rawHash);
+
     long getNextJoinPosition(long currentPosition);
 
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
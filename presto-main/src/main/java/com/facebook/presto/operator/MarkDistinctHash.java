@@ -18,6 +18,7 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 
 import java.util.List;
 
@@ -30,12 +31,17 @@ public class MarkDistinctHash
 
     public MarkDistinctHash(List<Type> types, int[] channels)
     {
-        this(types, channels, 10_000);
+        this(types, channels, Optional.<Integer>absent());
     }
 
-    public MarkDistinctHash(List<Type> types, int[] channels, int expectedDistinctValues)
+    public MarkDistinctHash(List<Type> types, int[] channels, Optional<Integer> hashChannel)
     {
-        this.groupByHash = new GroupByHash(types, channels, expectedDistinctValues);
+        this(types, channels, hashChannel, 10_000);
+    }
+
+    public MarkDistinctHash(List<Type> types, int[] channels, Optional<Integer> hashChannel, int expectedDistinctValues)
+    {
+        this.groupByHash = new GroupByHash(types, channels, hashChannel, expectedDistinctValues);
     }
 
     public long getEstimatedSize()
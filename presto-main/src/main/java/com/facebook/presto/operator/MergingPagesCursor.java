@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Merges runs of pages that are each sorted on the sort channels into a
+ * single sorted sequence of rows. Rows are not copied; the cursor exposes
+ * the page and position of the current row.
+ */
+public class MergingPagesCursor
+{
+    private final List<Type> sortTypes;
+    private final List<Integer> sortChannels;
+    private final List<SortOrder> sortOrders;
+
+    private final PriorityQueue<RunCursor> queue;
+    private RunCursor current;
+
+    public MergingPagesCursor(List<Type> sortTypes, List<Integer> sortChannels, List<SortOrder> sortOrders, List<Iterator<Page>> runs)
+    {
+        this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
+        this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
+        this.sortOrders = ImmutableList.copyOf(checkNotNull(sortOrders, "sortOrders is null"));
+        checkArgument(sortTypes.size() == sortChannels.size(), "sortTypes and sortChannels have different sizes");
+        checkArgument(sortOrders.size() == sortChannels.size(), "sortOrders and sortChannels have different sizes");
+        checkNotNull(runs, "runs is null");
+
+        this.queue = new PriorityQueue<>(Math.max(runs.size(), 1), new Comparator<RunCursor>()
+        {
+            @Override
+            public int compare(RunCursor left, RunCursor right)
+            {
+                return compareRows(left.getPage(), left.getPosition(), right.getPage(), right.getPosition());
+            }
+        });
+        for (Iterator<Page> run : runs) {
+            RunCursor cursor = new RunCursor(run);
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+        }
+    }
+
+    /**
+     * Moves to the next row in sort order.
+     *
+     * @return false if there are no more rows
+     */
+    public boolean advance()
+    {
+        if (current != null && current.advance()) {
+            queue.add(current);
+        }
+        current = queue.poll();
+        return current != null;
+    }
+
+    public Page getPage()
+    {
+        checkState(current != null, "cursor is not positioned on a row");
+        return current.getPage();
+    }
+
+    public int getPosition()
+    {
+        checkState(current != null, "cursor is not positioned on a row");
+        return current.getPosition();
+    }
+
+    /**
+     * Compares two rows on the sort channels.
+     */
+    public int compareRows(Page leftPage, int leftPosition, Page rightPage, int rightPosition)
+    {
+        for (int i = 0; i < sortChannels.size(); i++) {
+            int channel = sortChannels.get(i);
+            Block leftBlock = leftPage.getBlock(channel);
+            Block rightBlock = rightPage.getBlock(channel);
+
+            int compare = sortOrders.get(i).compareBlockValue(sortTypes.get(i), leftBlock, leftPosition, rightBlock, rightPosition);
+            if (compare != 0) {
+                return compare;
+            }
+        }
+        return 0;
+    }
+
+    private static class RunCursor
+    {
+        private final Iterator<Page> pages;
+        private Page page;
+        private int position;
+
+        private RunCursor(Iterator<Page> pages)
+        {
+            this.pages = pages;
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    page = null;
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+    }
+}
@@ -72,6 +72,7 @@ public class OperatorContext
     private final AtomicLong finishUserNanos = new AtomicLong();
 
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final CounterStat spilledDataSize = new CounterStat();
 
     private final AtomicReference<Supplier<Object>> infoSupplier = new AtomicReference<>();
 
@@ -214,17 +215,31 @@ public class OperatorContext
     }
 
     public synchronized long setMemoryReservation(long newMemoryReservation)
+    {
+        if (!trySetMemoryReservation(newMemoryReservation)) {
+            throw new ExceededMemoryLimitException(getMaxMemorySize());
+        }
+
+        return newMemoryReservation;
+    }
+
+    /**
+     * Sets the memory reservation of this operator, returning false instead of failing
+     * if the additional memory could not be reserved.
+     */
+    public synchronized boolean trySetMemoryReservation(long newMemoryReservation)
     {
         checkArgument(newMemoryReservation >= 0, "newMemoryReservation is negative");
 
         long delta = newMemoryReservation - memoryReservation.get();
 
         // currently, operator memory is not be released
-        if (delta > 0 && !reserveMemory(delta)) {
-            throw new ExceededMemoryLimitException(getMaxMemorySize());
-        }
+        return delta <= 0 || reserveMemory(delta);
+    }
 
-        return newMemoryReservation;
+    public void recordSpill(long sizeInBytes)
+    {
+        spilledDataSize.update(sizeInBytes);
     }
 
     public void setInfoSupplier(Supplier<Object> infoSupplier)
@@ -287,6 +302,7 @@ public class OperatorContext
                 new Duration(finishUserNanos.get(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize(),
+                new DataSize(spilledDataSize.getTotalCount(), BYTE).convertToMostSuccinctDataSize(),
                 info);
     }
 
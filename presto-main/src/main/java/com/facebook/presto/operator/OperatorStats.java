@@ -55,6 +55,7 @@ public class OperatorStats
     private final Duration finishUser;
 
     private final DataSize memoryReservation;
+    private final DataSize spilledDataSize;
 
     private final Object info;
 
@@ -85,6 +86,7 @@ public class OperatorStats
             @JsonProperty("finishUser") Duration finishUser,
 
             @JsonProperty("memoryReservation") DataSize memoryReservation,
+            @JsonProperty("spilledDataSize") DataSize spilledDataSize,
 
             @JsonProperty("info") Object info)
     {
@@ -116,6 +118,7 @@ public class OperatorStats
         this.finishUser = checkNotNull(finishUser, "finishUser is null");
 
         this.memoryReservation = checkNotNull(memoryReservation, "memoryReservation is null");
+        this.spilledDataSize = checkNotNull(spilledDataSize, "spilledDataSize is null");
 
         this.info = info;
     }
@@ -240,6 +243,12 @@ public class OperatorStats
         return memoryReservation;
     }
 
+    @JsonProperty
+    public DataSize getSpilledDataSize()
+    {
+        return spilledDataSize;
+    }
+
     @Nullable
     @JsonProperty
     public Object getInfo()
@@ -276,6 +285,7 @@ public class OperatorStats
         long finishUser = this.finishUser.roundTo(NANOSECONDS);
 
         long memoryReservation = this.memoryReservation.toBytes();
+        long spilledDataSize = this.spilledDataSize.toBytes();
 
         Mergeable<?> base = null;
         if (info instanceof Mergeable) {
@@ -306,6 +316,7 @@ public class OperatorStats
             blockedWall += operator.getBlockedWall().roundTo(NANOSECONDS);
 
             memoryReservation += operator.getMemoryReservation().toBytes();
+            spilledDataSize += operator.getSpilledDataSize().toBytes();
 
             Object info = operator.getInfo();
             if (base != null && info != null && base.getClass() == info.getClass()) {
@@ -339,6 +350,7 @@ public class OperatorStats
                 new Duration(finishUser, NANOSECONDS).convertToMostSuccinctTimeUnit(),
 
                 new DataSize(memoryReservation, BYTE).convertToMostSuccinctDataSize(),
+                new DataSize(spilledDataSize, BYTE).convertToMostSuccinctDataSize(),
 
                 base);
     }
@@ -17,6 +17,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -39,6 +40,7 @@ public class OrderByOperator
         private final int expectedPositions;
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
+        private final Optional<SpillerFactory> spillerFactory;
         private final List<Type> types;
         private boolean closed;
 
@@ -49,6 +51,18 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder, Optional.<SpillerFactory>absent());
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
@@ -61,6 +75,7 @@ public class OrderByOperator
             this.expectedPositions = expectedPositions;
             this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
             this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(sourceTypes, outputChannels);
         }
@@ -84,7 +99,8 @@ public class OrderByOperator
                     expectedPositions,
                     sortTypes,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillerFactory);
         }
 
         @Override
@@ -108,11 +124,16 @@ public class OrderByOperator
     private final int[] outputChannels;
     private final List<Type> types;
 
+    private final ExternalSorter sorter;
     private final PagesIndex pageIndex;
 
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    // set when the input was spilled and the sorted rows are merged from disk
+    private MergingPagesCursor mergedRows;
+    private boolean hasMergedRow;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -123,6 +144,19 @@ public class OrderByOperator
             List<Type> sortTypes,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder)
+    {
+        this(operatorContext, sourceTypes, outputChannels, expectedPositions, sortTypes, sortChannels, sortOrder, Optional.<SpillerFactory>absent());
+    }
+
+    public OrderByOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            int expectedPositions,
+            List<Type> sortTypes,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
@@ -131,7 +165,8 @@ public class OrderByOperator
         this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
 
-        this.pageIndex = new PagesIndex(sourceTypes, expectedPositions, operatorContext);
+        this.sorter = new ExternalSorter(operatorContext, sourceTypes, expectedPositions, this.sortTypes, this.sortChannels, this.sortOrder, spillerFactory);
+        this.pageIndex = sorter.getPagesIndex();
 
         this.pageBuilder = new PageBuilder(this.types);
     }
@@ -154,6 +189,12 @@ public class OrderByOperator
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
 
+            if (sorter.hasSpilled()) {
+                mergedRows = sorter.mergeRuns();
+                hasMergedRow = mergedRows.advance();
+                return;
+            }
+
             // sort the index
             pageIndex.sort(sortTypes, sortChannels, sortOrder);
         }
@@ -183,7 +224,7 @@ public class OrderByOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         checkNotNull(page, "page is null");
 
-        pageIndex.addPage(page);
+        sorter.addPage(page);
     }
 
     @Override
@@ -193,6 +234,10 @@ public class OrderByOperator
             return null;
         }
 
+        if (mergedRows != null) {
+            return getMergedOutput();
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -212,6 +257,27 @@ public class OrderByOperator
         return page;
     }
 
+    private Page getMergedOutput()
+    {
+        pageBuilder.reset();
+        while (!pageBuilder.isFull() && hasMergedRow) {
+            Page page = mergedRows.getPage();
+            int position = mergedRows.getPosition();
+            for (int i = 0; i < outputChannels.length; i++) {
+                types.get(i).appendTo(page.getBlock(outputChannels[i]), position, pageBuilder.getBlockBuilder(i));
+            }
+            hasMergedRow = mergedRows.advance();
+        }
+
+        if (pageBuilder.isEmpty()) {
+            state = State.FINISHED;
+            sorter.close();
+            return null;
+        }
+
+        return pageBuilder.build();
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
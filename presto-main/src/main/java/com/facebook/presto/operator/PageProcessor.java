@@ -20,4 +20,11 @@ import com.facebook.presto.spi.PageBuilder;
 public interface PageProcessor
 {
     int process(ConnectorSession session, Page page, int start, int end, PageBuilder pageBuilder);
+
+    /**
+     * Filters and projects the entire page a column at a time. Projections that
+     * are plain input references may return the input block itself when all rows
+     * pass the filter. The returned page has no positions if no rows pass.
+     */
+    Page processColumnar(ConnectorSession session, Page page);
 }
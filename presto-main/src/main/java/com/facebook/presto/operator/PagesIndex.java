@@ -22,6 +22,8 @@ import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.JoinCompiler.LookupSourceFactory;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.base.Optional;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -33,6 +35,7 @@ import it.unimi.dsi.fastutil.ints.IntComparator;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 
 import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
@@ -104,6 +107,43 @@ public class PagesIndex
     }
 
     public void addPage(Page page)
+    {
+        appendPage(page);
+        estimatedSize = operatorContext.setMemoryReservation(calculateEstimatedSize());
+    }
+
+    /**
+     * Adds the page to the index, and returns false if the memory for the index could not be
+     * reserved. The page is added either way, so the caller is expected to release the
+     * index, for example by spilling it to disk and calling {@link #clear}.
+     */
+    public boolean tryAddPage(Page page)
+    {
+        appendPage(page);
+
+        long newEstimatedSize = calculateEstimatedSize();
+        if (!operatorContext.trySetMemoryReservation(newEstimatedSize)) {
+            return false;
+        }
+        estimatedSize = newEstimatedSize;
+        return true;
+    }
+
+    /**
+     * Removes all pages from the index. The memory reserved for the index is retained,
+     * so it can be reused for new pages.
+     */
+    public void clear()
+    {
+        for (ObjectArrayList<Block> channel : channels) {
+            channel.clear();
+        }
+        valueAddresses.clear();
+        positionCount = 0;
+        pagesMemorySize = 0;
+    }
+
+    private void appendPage(Page page)
     {
         positionCount += page.getPositionCount();
 
@@ -118,8 +158,6 @@ public class PagesIndex
             long sliceAddress = encodeSyntheticAddress(pageIndex, position);
             valueAddresses.add(sliceAddress);
         }
-
-        estimatedSize = operatorContext.setMemoryReservation(calculateEstimatedSize());
     }
 
     public DataSize getEstimatedSize()
@@ -169,6 +207,35 @@ public class PagesIndex
         return position;
     }
 
+    /**
+     * Gets all rows of the index as pages, in the current order of the positions.
+     */
+    public Iterator<Page> getPages()
+    {
+        final int[] outputChannels = new int[types.size()];
+        for (int channel = 0; channel < outputChannels.length; channel++) {
+            outputChannels[channel] = channel;
+        }
+        final PageBuilder pageBuilder = new PageBuilder(types);
+
+        return new AbstractIterator<Page>()
+        {
+            private int position;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (position >= positionCount) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                position = buildPage(position, outputChannels, pageBuilder);
+                return pageBuilder.build();
+            }
+        };
+    }
+
     public void appendTo(int channel, int position, BlockBuilder output)
     {
         long pageAddress = valueAddresses.getLong(position);
@@ -244,6 +311,25 @@ public class PagesIndex
     }
 
     public LookupSource createLookupSource(List<Integer> joinChannels)
+    {
+        return createLookupSource(joinChannels, Optional.<Integer>absent());
+    }
+
+    /**
+     * @param hashChannel channel containing the precomputed raw hash of the join channels;
+     * when present, the lookup source must be probed with the same hash
+     */
+    public LookupSource createLookupSource(List<Integer> joinChannels, Optional<Integer> hashChannel)
+    {
+        return createLookupSource(valueAddresses, joinChannels, hashChannel, operatorContext);
+    }
+
+    /**
+     * Creates a lookup source containing only the positions with the specified addresses.
+     * The memory for the hash table is reserved in the specified operator context, so
+     * several lookup sources over the same index can be created concurrently.
+     */
+    public LookupSource createLookupSource(LongArrayList addresses, List<Integer> joinChannels, Optional<Integer> hashChannel, OperatorContext operatorContext)
     {
         try {
             LookupSourceFactory lookupSourceFactory = joinCompiler.compileLookupSourceFactory(types, joinChannels);
@@ -253,9 +339,10 @@ public class PagesIndex
                 joinChannelTypes.add(types.get(joinChannel));
             }
             LookupSource lookupSource = lookupSourceFactory.createLookupSource(
-                    valueAddresses,
+                    addresses,
                     joinChannelTypes.build(),
                     ImmutableList.<List<Block>>copyOf(channels),
+                    hashChannel,
                     operatorContext);
 
             return lookupSource;
@@ -273,6 +360,10 @@ public class PagesIndex
         for (Integer channel : joinChannels) {
             hashTypes.add(types.get(channel));
         }
-        return new InMemoryJoinHash(valueAddresses, hashTypes.build(), hashStrategy, operatorContext);
+        Optional<List<Block>> hashChannelBlocks = Optional.absent();
+        if (hashChannel.isPresent()) {
+            hashChannelBlocks = Optional.<List<Block>>of(channels[hashChannel.get()]);
+        }
+        return new InMemoryJoinHash(addresses, hashTypes.build(), hashStrategy, hashChannelBlocks, operatorContext);
     }
 }
@@ -0,0 +1,433 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.gen.JoinCompiler;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.util.MoreFutures.tryGetUnchecked;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+
+/**
+ * Builds the lookup source of a join with several drivers. A single collect driver
+ * buffers the build side and assigns each row to a partition using the bits of its
+ * hash. Then one build driver per partition builds the hash table of that partition,
+ * so the tables are built in parallel. The lookup source is available once all
+ * partitions are built, and routes each probe to a partition using the same bits.
+ */
+@ThreadSafe
+public class ParallelHashBuilder
+{
+    private static final JoinCompiler JOIN_COMPILER = new JoinCompiler();
+
+    private final List<Type> types;
+    private final List<Integer> hashChannels;
+    private final Optional<Integer> preComputedHashChannel;
+    private final Optional<DynamicFilter> dynamicFilter;
+    private final int expectedPositions;
+    private final int partitionCount;
+
+    private final SettableLookupSourceSupplier lookupSourceSupplier;
+    private final SettableFuture<CollectedPages> collectedPagesFuture = SettableFuture.create();
+
+    @GuardedBy("this")
+    private final LookupSource[] partitions;
+    @GuardedBy("this")
+    private int builtPartitions;
+
+    public ParallelHashBuilder(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            int partitionCount,
+            int expectedPositions)
+    {
+        this(types, hashChannels, preComputedHashChannel, Optional.<DynamicFilter>absent(), partitionCount, expectedPositions);
+    }
+
+    public ParallelHashBuilder(
+            List<Type> types,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<DynamicFilter> dynamicFilter,
+            int partitionCount,
+            int expectedPositions)
+    {
+        this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
+        checkArgument(!hashChannels.isEmpty(), "hashChannels is empty");
+        this.hashChannels = ImmutableList.copyOf(checkNotNull(hashChannels, "hashChannels is null"));
+        this.preComputedHashChannel = checkNotNull(preComputedHashChannel, "preComputedHashChannel is null");
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+        checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+        this.partitionCount = partitionCount;
+        this.expectedPositions = expectedPositions;
+
+        this.lookupSourceSupplier = new SettableLookupSourceSupplier(this.types);
+        this.partitions = new LookupSource[partitionCount];
+    }
+
+    public LookupSourceSupplier getLookupSourceSupplier()
+    {
+        return lookupSourceSupplier;
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    public OperatorFactory getCollectOperatorFactory(int operatorId)
+    {
+        return new ParallelHashCollectOperatorFactory(operatorId);
+    }
+
+    /**
+     * Creates the factory for the build operator of a partition. The build operator expects
+     * no input, so it should follow an operator that produces no pages.
+     */
+    public OperatorFactory getBuildOperatorFactory(int operatorId, int partition)
+    {
+        checkArgument(partition >= 0 && partition < partitionCount, "Invalid partition %s", partition);
+        return new ParallelHashBuildOperatorFactory(operatorId, partition);
+    }
+
+    private void setCollectedPages(PagesIndex pagesIndex, OperatorContext operatorContext)
+    {
+        PagesHashStrategy hashStrategy = JOIN_COMPILER.compilePagesHashStrategyFactory(types, hashChannels)
+                .createPagesHashStrategy(getChannels(pagesIndex));
+
+        LongArrayList[] partitionAddresses = new LongArrayList[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            partitionAddresses[partition] = new LongArrayList(pagesIndex.getPositionCount() / partitionCount);
+        }
+        // the reservation moves to the build operators with the addresses of their partitions
+        reserveMemory(operatorContext, pagesIndex.getPositionCount() * (long) SIZE_OF_LONG);
+
+        LongArrayList valueAddresses = pagesIndex.getValueAddresses();
+        int partitionMask = partitionCount - 1;
+        for (int position = 0; position < pagesIndex.getPositionCount(); position++) {
+            long address = valueAddresses.getLong(position);
+            int blockIndex = decodeSliceIndex(address);
+            int blockPosition = decodePosition(address);
+
+            long rawHash;
+            if (preComputedHashChannel.isPresent()) {
+                rawHash = BIGINT.getLong(pagesIndex.getChannel(preComputedHashChannel.get()).get(blockIndex), blockPosition);
+            }
+            else {
+                rawHash = hashStrategy.hashPosition(blockIndex, blockPosition);
+            }
+            partitionAddresses[PartitionedLookupSource.getPartition(rawHash, partitionMask)].add(address);
+        }
+
+        // the lookup source is set after all partitions are built, so the summaries are ready before the probe side starts
+        if (dynamicFilter.isPresent()) {
+            dynamicFilter.get().setBuildPages(pagesIndex, hashChannels);
+        }
+        collectedPagesFuture.set(new CollectedPages(pagesIndex, hashStrategy, partitionAddresses, operatorContext));
+    }
+
+    private void setPartition(int partition, LookupSource lookupSource, PagesHashStrategy hashStrategy)
+    {
+        LookupSource[] lookupSources;
+        synchronized (this) {
+            checkState(partitions[partition] == null, "Partition %s is already built", partition);
+            partitions[partition] = lookupSource;
+            builtPartitions++;
+            if (builtPartitions < partitionCount) {
+                return;
+            }
+            lookupSources = Arrays.copyOf(partitions, partitionCount);
+        }
+        // set the lookup source outside of the lock, because it fires the listeners of the probes
+        lookupSourceSupplier.setLookupSource(new PartitionedLookupSource(Arrays.asList(lookupSources), hashStrategy));
+    }
+
+    private static void reserveMemory(OperatorContext operatorContext, long bytes)
+    {
+        if (!operatorContext.reserveMemory(bytes)) {
+            throw new ExceededMemoryLimitException(operatorContext.getMaxMemorySize());
+        }
+    }
+
+    private static List<List<Block>> getChannels(PagesIndex pagesIndex)
+    {
+        ImmutableList.Builder<List<Block>> channels = ImmutableList.builder();
+        for (int channel = 0; channel < pagesIndex.getTypes().size(); channel++) {
+            channels.add(pagesIndex.getChannel(channel));
+        }
+        return channels.build();
+    }
+
+    private static class CollectedPages
+    {
+        private final PagesIndex pagesIndex;
+        private final PagesHashStrategy hashStrategy;
+        private final LongArrayList[] partitionAddresses;
+        private final OperatorContext collectOperatorContext;
+
+        private CollectedPages(PagesIndex pagesIndex, PagesHashStrategy hashStrategy, LongArrayList[] partitionAddresses, OperatorContext collectOperatorContext)
+        {
+            this.pagesIndex = pagesIndex;
+            this.hashStrategy = hashStrategy;
+            this.partitionAddresses = partitionAddresses;
+            this.collectOperatorContext = collectOperatorContext;
+        }
+    }
+
+    private class ParallelHashCollectOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private boolean closed;
+
+        private ParallelHashCollectOperatorFactory(int operatorId)
+        {
+            this.operatorId = operatorId;
+        }
+
+        @Override
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, ParallelHashCollectOperator.class.getSimpleName());
+            return new ParallelHashCollectOperator(operatorContext);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    private class ParallelHashCollectOperator
+            implements Operator
+    {
+        private final OperatorContext operatorContext;
+        private final PagesIndex pagesIndex;
+        private boolean finished;
+
+        private ParallelHashCollectOperator(OperatorContext operatorContext)
+        {
+            this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+            this.pagesIndex = new PagesIndex(types, expectedPositions, operatorContext);
+        }
+
+        @Override
+        public OperatorContext getOperatorContext()
+        {
+            return operatorContext;
+        }
+
+        @Override
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        @Override
+        public void finish()
+        {
+            if (finished) {
+                return;
+            }
+            if (operatorContext.getDriverContext().isDone()) {
+                // the driver is destroyed before the build side was fully collected, so the pages must not be published
+                finished = true;
+                return;
+            }
+            setCollectedPages(pagesIndex, operatorContext);
+            finished = true;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return finished;
+        }
+
+        @Override
+        public ListenableFuture<?> isBlocked()
+        {
+            return NOT_BLOCKED;
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return !finished;
+        }
+
+        @Override
+        public void addInput(Page page)
+        {
+            checkNotNull(page, "page is null");
+            checkState(!isFinished(), "Operator is already finished");
+
+            pagesIndex.addPage(page);
+            operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+        }
+
+        @Override
+        public Page getOutput()
+        {
+            return null;
+        }
+    }
+
+    private class ParallelHashBuildOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final int partition;
+        private boolean closed;
+
+        private ParallelHashBuildOperatorFactory(int operatorId, int partition)
+        {
+            this.operatorId = operatorId;
+            this.partition = partition;
+        }
+
+        @Override
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, ParallelHashBuildOperator.class.getSimpleName());
+            return new ParallelHashBuildOperator(operatorContext, partition);
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+
+    private class ParallelHashBuildOperator
+            implements Operator
+    {
+        private final OperatorContext operatorContext;
+        private final int partition;
+        private boolean finished;
+
+        private ParallelHashBuildOperator(OperatorContext operatorContext, int partition)
+        {
+            this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+            this.partition = partition;
+        }
+
+        @Override
+        public OperatorContext getOperatorContext()
+        {
+            return operatorContext;
+        }
+
+        @Override
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        @Override
+        public void finish()
+        {
+            if (finished) {
+                return;
+            }
+            if (!collectedPagesFuture.isDone() || operatorContext.getDriverContext().isDone()) {
+                // the driver is destroyed before the partition was built, so there is nothing to build
+                finished = true;
+                return;
+            }
+
+            CollectedPages collectedPages = tryGetUnchecked(collectedPagesFuture);
+            LongArrayList addresses = collectedPages.partitionAddresses[partition];
+            LookupSource lookupSource = collectedPages.pagesIndex.createLookupSource(
+                    addresses,
+                    hashChannels,
+                    preComputedHashChannel,
+                    operatorContext);
+
+            // the lookup source keeps the addresses of the partition
+            long addressesSize = addresses.size() * (long) SIZE_OF_LONG;
+            collectedPages.collectOperatorContext.freeMemory(addressesSize);
+            reserveMemory(operatorContext, addressesSize);
+            setPartition(partition, lookupSource, collectedPages.hashStrategy);
+            finished = true;
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return finished;
+        }
+
+        @Override
+        public ListenableFuture<?> isBlocked()
+        {
+            return collectedPagesFuture;
+        }
+
+        @Override
+        public boolean needsInput()
+        {
+            return false;
+        }
+
+        @Override
+        public void addInput(Page page)
+        {
+            throw new UnsupportedOperationException(getClass().getName() + " can not take input");
+        }
+
+        @Override
+        public Page getOutput()
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Murmur3;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A lookup source made of several independent hash tables. Each row is stored in the
+ * table selected by the partition bits of its hash (see {@link #getPartition}), and the
+ * partition is encoded in the low bits of the join positions returned by this class.
+ */
+public final class PartitionedLookupSource
+        implements LookupSource
+{
+    private final LookupSource[] lookupSources;
+    private final PagesHashStrategy hashStrategy;
+    private final int partitionMask;
+    private final int shiftSize;
+    private final int channelCount;
+
+    /**
+     * @param hashStrategy used to hash probe rows that do not have a precomputed hash
+     */
+    public PartitionedLookupSource(List<? extends LookupSource> lookupSources, PagesHashStrategy hashStrategy)
+    {
+        checkNotNull(lookupSources, "lookupSources is null");
+        checkArgument(Integer.bitCount(lookupSources.size()) == 1, "the number of partitions must be a power of 2");
+        this.lookupSources = ImmutableList.copyOf(lookupSources).toArray(new LookupSource[lookupSources.size()]);
+        this.hashStrategy = checkNotNull(hashStrategy, "hashStrategy is null");
+
+        this.partitionMask = lookupSources.size() - 1;
+        this.shiftSize = Integer.numberOfTrailingZeros(lookupSources.size());
+        this.channelCount = this.lookupSources[0].getChannelCount();
+    }
+
+    /**
+     * Gets the partition of a row with the specified raw hash. The partition is taken from
+     * the high bits of the hash, because the hash tables use the low bits to pick a slot.
+     */
+    public static int getPartition(long rawHash, int partitionMask)
+    {
+        return ((int) (Murmur3.hash64(rawHash) >>> 32)) & partitionMask;
+    }
+
+    @Override
+    public int getChannelCount()
+    {
+        return channelCount;
+    }
+
+    @Override
+    public long getJoinPosition(int position, Block... blocks)
+    {
+        return getJoinPosition(position, blocks, hashStrategy.hashRow(position, blocks));
+    }
+
+    @Override
+    public long getJoinPosition(int position, Block[] blocks, long rawHash)
+    {
+        int partition = getPartition(rawHash, partitionMask);
+        long joinPosition = lookupSources[partition].getJoinPosition(position, blocks, rawHash);
+        return encodePosition(partition, joinPosition);
+    }
+
+    @Override
+    public long getNextJoinPosition(long currentPosition)
+    {
+        int partition = decodePartition(currentPosition);
+        long nextPosition = lookupSources[partition].getNextJoinPosition(decodePosition(currentPosition));
+        return encodePosition(partition, nextPosition);
+    }
+
+    @Override
+    public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        lookupSources[decodePartition(position)].appendTo(decodePosition(position), pageBuilder, outputChannelOffset);
+    }
+
+    @Override
+    public void close()
+    {
+        for (LookupSource lookupSource : lookupSources) {
+            lookupSource.close();
+        }
+    }
+
+    private long encodePosition(int partition, long position)
+    {
+        if (position < 0) {
+            return -1;
+        }
+        return (position << shiftSize) | partition;
+    }
+
+    private int decodePartition(long position)
+    {
+        return (int) (position & partitionMask);
+    }
+
+    private long decodePosition(long position)
+    {
+        return position >>> shiftSize;
+    }
+}
@@ -128,6 +128,28 @@ public class PipelineContext
         return taskContext.getSession();
     }
 
+    public int getQueuedPartitionedDrivers()
+    {
+        int queuedPartitionedDrivers = 0;
+        for (DriverContext driverContext : drivers) {
+            if (driverContext.isPartitioned() && !driverContext.isExecutionStarted()) {
+                queuedPartitionedDrivers++;
+            }
+        }
+        return queuedPartitionedDrivers;
+    }
+
+    public int getRunningPartitionedDrivers()
+    {
+        int runningPartitionedDrivers = 0;
+        for (DriverContext driverContext : drivers) {
+            if (driverContext.isPartitioned() && driverContext.isExecutionStarted()) {
+                runningPartitionedDrivers++;
+            }
+        }
+        return runningPartitionedDrivers;
+    }
+
     public void driverFinished(DriverContext driverContext)
     {
         checkNotNull(driverContext, "driverContext is null");
@@ -16,6 +16,7 @@ package com.facebook.presto.operator;
 import com.facebook.presto.metadata.ColumnHandle;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.RecordCursor;
@@ -23,9 +24,11 @@ import com.facebook.presto.spi.RecordPageSource;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceProvider;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.base.Optional;
 import com.google.common.base.Suppliers;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import javax.annotation.concurrent.GuardedBy;
@@ -33,7 +36,10 @@ import javax.annotation.concurrent.GuardedBy;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.List;
+import java.util.Map;
 
+import static com.facebook.presto.operator.FilterAndProjectOperator.MINIMUM_OUTPUT_PAGE_SIZE_IN_BYTES;
+import static com.facebook.presto.operator.FilterAndProjectOperator.appendPositions;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
@@ -50,6 +56,8 @@ public class ScanFilterAndProjectOperator
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
+    private final Optional<DynamicFilter> dynamicFilter;
+    private final Map<Integer, Integer> dynamicFilterChannels;
 
     @GuardedBy("this")
     private RecordCursor cursor;
@@ -59,12 +67,18 @@ public class ScanFilterAndProjectOperator
 
     private Page currentPage;
     private int currentPosition;
+    private Page pendingOutput;
 
     private boolean finishing;
 
     private long completedBytes;
     private long readTimeNanos;
 
+    // the channels and key summaries of the dynamic filter, once the build side is done
+    private boolean dynamicFilterResolved;
+    private int[] filterChannels;
+    private JoinKeySummary[] filterSummaries;
+
     protected ScanFilterAndProjectOperator(
             OperatorContext operatorContext,
             PlanNodeId sourceId,
@@ -73,6 +87,20 @@ public class ScanFilterAndProjectOperator
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
             Iterable<Type> types)
+    {
+        this(operatorContext, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, types, Optional.<DynamicFilter>absent(), ImmutableMap.<Integer, Integer>of());
+    }
+
+    protected ScanFilterAndProjectOperator(
+            OperatorContext operatorContext,
+            PlanNodeId sourceId,
+            PageSourceProvider pageSourceProvider,
+            CursorProcessor cursorProcessor,
+            PageProcessor pageProcessor,
+            Iterable<ColumnHandle> columns,
+            Iterable<Type> types,
+            Optional<DynamicFilter> dynamicFilter,
+            Map<Integer, Integer> dynamicFilterChannels)
     {
         this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = checkNotNull(pageProcessor, "pageProcessor is null");
@@ -81,6 +109,8 @@ public class ScanFilterAndProjectOperator
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceManager is null");
         this.types = ImmutableList.copyOf(checkNotNull(types, "types is null"));
         this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
+        this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+        this.dynamicFilterChannels = ImmutableMap.copyOf(checkNotNull(dynamicFilterChannels, "dynamicFilterChannels is null"));
 
         this.pageBuilder = new PageBuilder(getTypes());
     }
@@ -161,7 +191,7 @@ public class ScanFilterAndProjectOperator
             finishing = true;
         }
 
-        return finishing && pageBuilder.isEmpty();
+        return finishing && pageBuilder.isEmpty() && pendingOutput == null;
     }
 
     @Override
@@ -185,6 +215,16 @@ public class ScanFilterAndProjectOperator
     @Override
     public Page getOutput()
     {
+        if (pendingOutput != null) {
+            Page page = pendingOutput;
+            pendingOutput = null;
+            return page;
+        }
+
+        if (!finishing && !dynamicFilterResolved) {
+            resolveDynamicFilter();
+        }
+
         if (!finishing) {
             if (cursor != null) {
                 int rowsProcessed = cursorProcessor.process(operatorContext.getSession().toConnectorSession(), cursor, ROWS_PER_PAGE, pageBuilder);
@@ -214,8 +254,27 @@ public class ScanFilterAndProjectOperator
                     currentPosition = 0;
                 }
 
-                if (currentPage != null) {
-                    currentPosition = pageProcessor.process(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount(), pageBuilder);
+                if (currentPage != null && currentPosition == 0 && allPositionsMightMatch(currentPage)) {
+                    // process the page a column at a time, so identity projections can reuse the blocks of the page source
+                    Page page = pageProcessor.processColumnar(operatorContext.getSession().toConnectorSession(), currentPage);
+                    currentPage = null;
+
+                    if (page.getPositionCount() > 0) {
+                        if (!types.isEmpty() && page.getSizeInBytes() < MINIMUM_OUTPUT_PAGE_SIZE_IN_BYTES) {
+                            appendPositions(page, types, pageBuilder);
+                        }
+                        else if (pageBuilder.isEmpty()) {
+                            return page;
+                        }
+                        else {
+                            // emit the buffered rows first to preserve the order of the output
+                            pendingOutput = page;
+                            return flushPageBuilder();
+                        }
+                    }
+                }
+                else if (currentPage != null) {
+                    currentPosition = processPage(operatorContext.getSession().toConnectorSession(), currentPage, currentPosition, currentPage.getPositionCount());
                     if (currentPosition == currentPage.getPositionCount()) {
                         currentPage = null;
                         currentPosition = 0;
@@ -229,11 +288,102 @@ public class ScanFilterAndProjectOperator
             return null;
         }
 
+        return flushPageBuilder();
+    }
+
+    private Page flushPageBuilder()
+    {
         Page page = pageBuilder.build();
         pageBuilder.reset();
         return page;
     }
 
+    private synchronized void resolveDynamicFilter()
+    {
+        if (!dynamicFilter.isPresent()) {
+            dynamicFilterResolved = true;
+            return;
+        }
+        if (cursor == null && pageSource == null) {
+            return;
+        }
+
+        Optional<List<JoinKeySummary>> summaries = dynamicFilter.get().getSummaries();
+        if (!summaries.isPresent()) {
+            // the build side is not done, so rows are not filtered yet
+            return;
+        }
+        dynamicFilterResolved = true;
+
+        filterChannels = new int[dynamicFilterChannels.size()];
+        filterSummaries = new JoinKeySummary[dynamicFilterChannels.size()];
+        int index = 0;
+        for (Map.Entry<Integer, Integer> entry : dynamicFilterChannels.entrySet()) {
+            JoinKeySummary summary = summaries.get().get(entry.getKey());
+            if (summary.isEmpty()) {
+                // no row of the split can match the build side
+                close();
+                return;
+            }
+            filterChannels[index] = entry.getValue();
+            filterSummaries[index] = summary;
+            index++;
+        }
+
+        if (cursor != null) {
+            cursor = new DynamicFilterRecordCursor(cursor, filterChannels, filterSummaries);
+        }
+    }
+
+    private int processPage(ConnectorSession session, Page page, int start, int end)
+    {
+        if (filterSummaries == null) {
+            return pageProcessor.process(session, page, start, end, pageBuilder);
+        }
+
+        // process the runs of rows that might match the build side, and skip the others
+        int position = start;
+        while (position < end) {
+            if (!mightMatch(page, position)) {
+                position++;
+                continue;
+            }
+            int runEnd = position + 1;
+            while (runEnd < end && mightMatch(page, runEnd)) {
+                runEnd++;
+            }
+            int processed = pageProcessor.process(session, page, position, runEnd, pageBuilder);
+            if (processed < runEnd) {
+                return processed;
+            }
+            position = runEnd;
+        }
+        return end;
+    }
+
+    private boolean allPositionsMightMatch(Page page)
+    {
+        if (filterSummaries == null) {
+            return true;
+        }
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            if (!mightMatch(page, position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean mightMatch(Page page, int position)
+    {
+        for (int i = 0; i < filterChannels.length; i++) {
+            if (!filterSummaries[i].mightContain(page.getBlock(filterChannels[i]), position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     public static class ScanFilterAndProjectOperatorFactory
             implements SourceOperatorFactory
     {
@@ -244,6 +394,8 @@ public class ScanFilterAndProjectOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
         private final List<Type> types;
+        private final Optional<DynamicFilter> dynamicFilter;
+        private final Map<Integer, Integer> dynamicFilterChannels;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -254,6 +406,23 @@ public class ScanFilterAndProjectOperator
                 PageProcessor pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, types, Optional.<DynamicFilter>absent(), ImmutableMap.<Integer, Integer>of());
+        }
+
+        /**
+         * @param dynamicFilterChannels maps the index of a join key of the dynamic filter to the channel of its column
+         */
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                CursorProcessor cursorProcessor,
+                PageProcessor pageProcessor,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                Optional<DynamicFilter> dynamicFilter,
+                Map<Integer, Integer> dynamicFilterChannels)
         {
             this.operatorId = operatorId;
             this.cursorProcessor = checkNotNull(cursorProcessor, "cursorProcessor is null");
@@ -262,6 +431,8 @@ public class ScanFilterAndProjectOperator
             this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(checkNotNull(columns, "columns is null"));
             this.types = checkNotNull(types, "types is null");
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+            this.dynamicFilterChannels = ImmutableMap.copyOf(checkNotNull(dynamicFilterChannels, "dynamicFilterChannels is null"));
         }
 
         @Override
@@ -288,7 +459,9 @@ public class ScanFilterAndProjectOperator
                     cursorProcessor,
                     pageProcessor,
                     columns,
-                    types);
+                    types,
+                    dynamicFilter,
+                    dynamicFilterChannels);
         }
 
         @Override
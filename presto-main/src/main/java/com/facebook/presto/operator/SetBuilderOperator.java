@@ -17,6 +17,7 @@ import com.facebook.presto.operator.ChannelSet.ChannelSetBuilder;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -66,6 +67,7 @@ public class SetBuilderOperator
         private final int operatorId;
         private final SetSupplier setProvider;
         private final int setChannel;
+        private final Optional<Integer> hashChannel;
         private final int expectedPositions;
         private boolean closed;
 
@@ -74,11 +76,22 @@ public class SetBuilderOperator
                 List<Type> types,
                 int setChannel,
                 int expectedPositions)
+        {
+            this(operatorId, types, setChannel, Optional.<Integer>absent(), expectedPositions);
+        }
+
+        public SetBuilderOperatorFactory(
+                int operatorId,
+                List<Type> types,
+                int setChannel,
+                Optional<Integer> hashChannel,
+                int expectedPositions)
         {
             this.operatorId = operatorId;
             Preconditions.checkArgument(setChannel >= 0, "setChannel is negative");
             this.setProvider = new SetSupplier(checkNotNull(types, "types is null").get(setChannel));
             this.setChannel = setChannel;
+            this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
             this.expectedPositions = checkNotNull(expectedPositions, "expectedPositions is null");
         }
 
@@ -98,7 +111,7 @@ public class SetBuilderOperator
         {
             checkState(!closed, "Factory is already closed");
             OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, SetBuilderOperator.class.getSimpleName());
-            return new SetBuilderOperator(operatorContext, setProvider, setChannel, expectedPositions);
+            return new SetBuilderOperator(operatorContext, setProvider, setChannel, hashChannel, expectedPositions);
         }
 
         @Override
@@ -111,6 +124,7 @@ public class SetBuilderOperator
     private final OperatorContext operatorContext;
     private final SetSupplier setSupplier;
     private final int setChannel;
+    private final Optional<Integer> hashChannel;
 
     private final ChannelSetBuilder channelSetBuilder;
 
@@ -121,12 +135,24 @@ public class SetBuilderOperator
             SetSupplier setSupplier,
             int setChannel,
             int expectedPositions)
+    {
+        this(operatorContext, setSupplier, setChannel, Optional.<Integer>absent(), expectedPositions);
+    }
+
+    public SetBuilderOperator(
+            OperatorContext operatorContext,
+            SetSupplier setSupplier,
+            int setChannel,
+            Optional<Integer> hashChannel,
+            int expectedPositions)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.setSupplier = checkNotNull(setSupplier, "setProvider is null");
         this.setChannel = setChannel;
+        this.hashChannel = checkNotNull(hashChannel, "hashChannel is null");
         this.channelSetBuilder = new ChannelSetBuilder(
                 setSupplier.getType(),
+                hashChannel.isPresent(),
                 expectedPositions,
                 checkNotNull(operatorContext, "operatorContext is null"));
     }
@@ -181,7 +207,12 @@ public class SetBuilderOperator
         checkState(!isFinished(), "Operator is already finished");
 
         Block sourceBlock = page.getBlock(setChannel);
-        channelSetBuilder.addBlock(sourceBlock);
+        if (hashChannel.isPresent()) {
+            channelSetBuilder.addBlock(sourceBlock, page.getBlock(hashChannel.get()));
+        }
+        else {
+            channelSetBuilder.addBlock(sourceBlock);
+        }
     }
 
     @Override
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.ExceededSpillLimitException;
+import com.facebook.presto.execution.StateMachine.StateChangeListener;
+import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.serde.PagesSerde;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.spi.StandardErrorCode.INTERNAL_ERROR;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Writes runs of pages to local disk and reads them back. Each call to
+ * {@link #spill(Iterator)} creates a new run; operators that merge the runs
+ * must write each run in sorted order. The spill files are deleted when the
+ * spiller is closed or, at the latest, when the task finishes.
+ */
+@ThreadSafe
+public class Spiller
+        implements Closeable
+{
+    private static final Logger log = Logger.get(Spiller.class);
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final Path spillPath;
+    private final DataSize maxSpillSize;
+    private final OperatorContext operatorContext;
+
+    @GuardedBy("this")
+    private final List<Path> runs = new ArrayList<>();
+    @GuardedBy("this")
+    private final List<SliceInput> openInputs = new ArrayList<>();
+    @GuardedBy("this")
+    private long spilledBytes;
+    @GuardedBy("this")
+    private boolean closed;
+
+    public Spiller(BlockEncodingSerde blockEncodingSerde, Path spillPath, DataSize maxSpillSize, OperatorContext operatorContext)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.spillPath = checkNotNull(spillPath, "spillPath is null");
+        this.maxSpillSize = checkNotNull(maxSpillSize, "maxSpillSize is null");
+        this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
+
+        // operators are not closed when a task fails, so make sure the files do not outlive the task
+        operatorContext.getDriverContext().getPipelineContext().getTaskContext().addStateChangeListener(new StateChangeListener<TaskState>()
+        {
+            @Override
+            public void stateChanged(TaskState newValue)
+            {
+                if (newValue.isDone()) {
+                    close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Writes the pages to disk as a new run.
+     */
+    public synchronized void spill(Iterator<Page> pages)
+    {
+        checkState(!closed, "Spiller is closed");
+
+        Path run;
+        try {
+            Files.createDirectories(spillPath);
+            run = Files.createTempFile(spillPath, "spill", ".bin");
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to create spill file in " + spillPath, e);
+        }
+        runs.add(run);
+
+        try (SliceOutput output = new OutputStreamSliceOutput(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+            PagesSerde.writePages(blockEncodingSerde, output, pages);
+        }
+        catch (IOException e) {
+            throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to write spill file " + run, e);
+        }
+
+        long runSize = run.toFile().length();
+        spilledBytes += runSize;
+        operatorContext.recordSpill(runSize);
+        if (spilledBytes > maxSpillSize.toBytes()) {
+            throw new ExceededSpillLimitException(maxSpillSize);
+        }
+    }
+
+    public synchronized int getRunCount()
+    {
+        return runs.size();
+    }
+
+    public synchronized long getSpilledBytes()
+    {
+        return spilledBytes;
+    }
+
+    /**
+     * Opens all spilled runs for reading, in the order they were written.
+     */
+    public synchronized List<Iterator<Page>> readRuns()
+    {
+        checkState(!closed, "Spiller is closed");
+
+        ImmutableList.Builder<Iterator<Page>> iterators = ImmutableList.builder();
+        for (Path run : runs) {
+            SliceInput input;
+            try {
+                input = new InputStreamSliceInput(new BufferedInputStream(Files.newInputStream(run), BUFFER_SIZE));
+            }
+            catch (IOException e) {
+                throw new PrestoException(INTERNAL_ERROR.toErrorCode(), "Failed to read spill file " + run, e);
+            }
+            openInputs.add(input);
+            iterators.add(PagesSerde.readPages(blockEncodingSerde, input));
+        }
+        return iterators.build();
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        for (SliceInput input : openInputs) {
+            try {
+                input.close();
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to close spill file");
+            }
+        }
+        openInputs.clear();
+
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            }
+            catch (IOException e) {
+                log.warn(e, "Failed to delete spill file %s", run);
+            }
+        }
+        runs.clear();
+    }
+}
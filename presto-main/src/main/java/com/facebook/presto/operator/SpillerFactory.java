@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+@ThreadSafe
+public class SpillerFactory
+{
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final boolean spillEnabled;
+    private final List<Path> spillPaths;
+    private final DataSize maxSpillPerOperator;
+
+    private final AtomicInteger nextSpillPath = new AtomicInteger();
+
+    @Inject
+    public SpillerFactory(BlockEncodingSerde blockEncodingSerde, TaskManagerConfig config)
+    {
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        checkNotNull(config, "config is null");
+        this.spillEnabled = config.isSpillEnabled();
+        this.maxSpillPerOperator = config.getMaxSpillPerOperator();
+
+        ImmutableList.Builder<Path> spillPaths = ImmutableList.builder();
+        for (String spillPath : config.getSpillPaths()) {
+            spillPaths.add(Paths.get(spillPath));
+        }
+        if (config.getSpillPaths().isEmpty()) {
+            spillPaths.add(Paths.get(System.getProperty("java.io.tmpdir")));
+        }
+        this.spillPaths = spillPaths.build();
+    }
+
+    public boolean isSpillEnabled()
+    {
+        return spillEnabled;
+    }
+
+    /**
+     * Creates a spiller for a single operator. Spill files of different operators
+     * are distributed round robin over the configured spill paths.
+     */
+    public Spiller create(OperatorContext operatorContext)
+    {
+        checkState(spillEnabled, "Spilling is not enabled");
+        Path spillPath = spillPaths.get((nextSpillPath.getAndIncrement() & Integer.MAX_VALUE) % spillPaths.size());
+        return new Spiller(blockEncodingSerde, spillPath, maxSpillPerOperator, operatorContext);
+    }
+}
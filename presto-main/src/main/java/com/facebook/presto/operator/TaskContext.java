@@ -148,6 +148,11 @@ public class TaskContext
         taskStateMachine.failed(cause);
     }
 
+    public void addStateChangeListener(StateChangeListener<TaskState> stateChangeListener)
+    {
+        taskStateMachine.addStateChangeListener(stateChangeListener);
+    }
+
     public boolean isDone()
     {
         return taskStateMachine.getState().isDone();
@@ -185,6 +190,29 @@ public class TaskContext
         return cpuTimerEnabled;
     }
 
+    public DataSize getMemoryReservation()
+    {
+        return new DataSize(memoryReservation.get(), BYTE).convertToMostSuccinctDataSize();
+    }
+
+    public int getQueuedPartitionedDrivers()
+    {
+        int queuedPartitionedDrivers = 0;
+        for (PipelineContext pipelineContext : pipelineContexts) {
+            queuedPartitionedDrivers += pipelineContext.getQueuedPartitionedDrivers();
+        }
+        return queuedPartitionedDrivers;
+    }
+
+    public int getRunningPartitionedDrivers()
+    {
+        int runningPartitionedDrivers = 0;
+        for (PipelineContext pipelineContext : pipelineContexts) {
+            runningPartitionedDrivers += pipelineContext.getRunningPartitionedDrivers();
+        }
+        return runningPartitionedDrivers;
+    }
+
     public CounterStat getInputDataSize()
     {
         CounterStat stat = new CounterStat();
@@ -15,17 +15,17 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
-import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Ordering;
 import com.google.common.util.concurrent.ListenableFuture;
-import io.airlift.units.DataSize;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
-import java.util.PriorityQueue;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -98,24 +98,20 @@ public class TopNOperator
         }
     }
 
-    private static final int MAX_INITIAL_PRIORITY_QUEUE_SIZE = 10000;
-    private static final DataSize OVERHEAD_PER_VALUE = new DataSize(100, DataSize.Unit.BYTE); // for estimating in-memory size. This is a completely arbitrary number
+    private static final int MAX_INITIAL_HEAP_SIZE = 10000;
+
+    private static final OrderingCompiler ORDERING_COMPILER = new OrderingCompiler();
 
     private final OperatorContext operatorContext;
     private final List<Type> types;
     private final int n;
-    private final List<Type> sortTypes;
-    private final List<Integer> sortChannels;
-    private final List<SortOrder> sortOrders;
-    private final TopNMemoryManager memoryManager;
+    private final PagesIndexComparator comparator;
     private final boolean partial;
 
-    private final PageBuilder pageBuilder;
-
     private TopNBuilder topNBuilder;
     private boolean finishing;
 
-    private Iterator<Block[]> outputIterator;
+    private Iterator<Page> outputIterator;
 
     public TopNOperator(
             OperatorContext operatorContext,
@@ -132,15 +128,12 @@ public class TopNOperator
         checkArgument(n > 0, "n must be greater than zero");
         this.n = n;
 
-        this.sortTypes = checkNotNull(sortTypes, "sortTypes is null");
-        this.sortChannels = checkNotNull(sortChannels, "sortChannels is null");
-        this.sortOrders = checkNotNull(sortOrders, "sortOrders is null");
+        checkNotNull(sortTypes, "sortTypes is null");
+        checkNotNull(sortChannels, "sortChannels is null");
+        checkNotNull(sortOrders, "sortOrders is null");
+        this.comparator = ORDERING_COMPILER.compilePagesIndexOrdering(sortTypes, sortChannels, sortOrders).getComparator();
 
         this.partial = partial;
-
-        this.memoryManager = new TopNMemoryManager(checkNotNull(operatorContext, "operatorContext is null"));
-
-        this.pageBuilder = new PageBuilder(types);
     }
 
     @Override
@@ -187,10 +180,9 @@ public class TopNOperator
         if (topNBuilder == null) {
             topNBuilder = new TopNBuilder(
                     n,
-                    sortTypes,
-                    sortChannels,
-                    sortOrders,
-                    memoryManager);
+                    types,
+                    comparator,
+                    operatorContext);
         }
 
         checkState(!topNBuilder.isFull(), "Aggregation buffer is full");
@@ -212,176 +204,189 @@ public class TopNOperator
             }
 
             // Only partial aggregation can flush early. Also, check that we are not flushing tiny bits at a time
-            checkState(finishing || partial, "Task exceeded max memory size of %s", memoryManager.getMaxMemorySize());
+            checkState(finishing || partial, "Task exceeded max memory size of %s", operatorContext.getMaxMemorySize());
 
             outputIterator = topNBuilder.build();
             topNBuilder = null;
-        }
 
-        pageBuilder.reset();
-        while (!pageBuilder.isFull() && outputIterator.hasNext()) {
-            Block[] next = outputIterator.next();
-            for (int i = 0; i < next.length; i++) {
-                Type type = types.get(i);
-                type.appendTo(next[i], 0, pageBuilder.getBlockBuilder(i));
+            if (!outputIterator.hasNext()) {
+                return null;
             }
         }
 
-        return pageBuilder.build();
+        return outputIterator.next();
     }
 
+    /**
+     * Keeps the candidate rows in a {@link PagesIndex}, and a heap of their positions in the
+     * index, with the last row in sort order at the root. Rows are never copied out of their
+     * pages until the index becomes sparse, at which point the candidates are compacted into
+     * new pages.
+     */
     private static class TopNBuilder
     {
         private final int n;
-        private final List<Type> sortTypes;
-        private final List<Integer> sortChannels;
-        private final List<SortOrder> sortOrders;
-        private final TopNMemoryManager memoryManager;
-        private final PriorityQueue<Block[]> globalCandidates;
+        private final List<Type> types;
+        private final PagesIndexComparator comparator;
+        private final PagesIndex pagesIndex;
 
-        private long memorySize;
+        private int[] heap;
+        private int heapSize;
+        private boolean full;
 
         private TopNBuilder(int n,
-                List<Type> sortTypes,
-                List<Integer> sortChannels,
-                List<SortOrder> sortOrders,
-                TopNMemoryManager memoryManager)
+                List<Type> types,
+                PagesIndexComparator comparator,
+                OperatorContext operatorContext)
         {
             this.n = n;
+            this.types = types;
+            this.comparator = comparator;
 
-            this.sortTypes = sortTypes;
-            this.sortChannels = sortChannels;
-            this.sortOrders = sortOrders;
-
-            this.memoryManager = memoryManager;
-
-            Ordering<Block[]> comparator = Ordering.from(new RowComparator(sortTypes, sortChannels, sortOrders)).reverse();
-            this.globalCandidates = new PriorityQueue<>(Math.min(n, MAX_INITIAL_PRIORITY_QUEUE_SIZE), comparator);
+            int initialSize = Math.min(n, MAX_INITIAL_HEAP_SIZE);
+            this.pagesIndex = new PagesIndex(types, initialSize, operatorContext);
+            this.heap = new int[initialSize];
         }
 
         public void processPage(Page page)
         {
-            long sizeDelta = mergeWithGlobalCandidates(page);
-            memorySize += sizeDelta;
-        }
+            boolean reserved = pagesIndex.tryAddPage(page);
 
-        private long mergeWithGlobalCandidates(Page page)
-        {
-            long sizeDelta = 0;
-
-            Block[] blocks = page.getBlocks();
-            for (int position = 0; position < page.getPositionCount(); position++) {
-                if (globalCandidates.size() < n) {
-                    sizeDelta += addRow(position, blocks);
+            int positionCount = pagesIndex.getPositionCount();
+            for (int position = positionCount - page.getPositionCount(); position < positionCount; position++) {
+                if (heapSize < n) {
+                    add(position);
                 }
-                else if (compare(position, blocks, globalCandidates.peek()) < 0) {
-                    sizeDelta += addRow(position, blocks);
+                else if (comparator.compareTo(pagesIndex, position, heap[0]) < 0) {
+                    heap[0] = position;
+                    siftDown(0, heapSize);
                 }
             }
 
-            return sizeDelta;
+            // rejected rows stay in the index until it is compacted, which is also
+            // the only way to get back under the memory limit
+            if (!reserved || pagesIndex.getPositionCount() > 2 * heapSize) {
+                reserved = compact();
+            }
+            full = !reserved;
         }
 
-        private int compare(int position, Block[] blocks, Block[] currentMax)
+        private void add(int position)
         {
-            for (int i = 0; i < sortChannels.size(); i++) {
-                Type type = sortTypes.get(i);
-                int sortChannel = sortChannels.get(i);
-                SortOrder sortOrder = sortOrders.get(i);
-
-                Block block = blocks[sortChannel];
-                Block currentMaxValue = currentMax[sortChannel];
-
-                // compare the right value to the left block but negate the result since we are evaluating in the opposite order
-                int compare = -sortOrder.compareBlockValue(type, currentMaxValue, 0, block, position);
-                if (compare != 0) {
-                    return compare;
+            if (heapSize == heap.length) {
+                heap = Arrays.copyOf(heap, (int) Math.min((long) n, 2L * heap.length));
+            }
+            heap[heapSize] = position;
+            heapSize++;
+
+            // sift up
+            int child = heapSize - 1;
+            while (child > 0) {
+                int parent = (child - 1) >>> 1;
+                if (comparator.compareTo(pagesIndex, heap[parent], heap[child]) >= 0) {
+                    break;
                 }
+                swap(parent, child);
+                child = parent;
             }
-            return 0;
         }
 
-        private long addRow(int position, Block[] blocks)
+        private void siftDown(int parent, int size)
         {
-            long sizeDelta = 0;
-            Block[] row = getValues(position, blocks);
-
-            sizeDelta += sizeOfRow(row);
-            globalCandidates.add(row);
-
-            while (globalCandidates.size() > n) {
-                Block[] previous = globalCandidates.remove();
-                    sizeDelta -= sizeOfRow(previous);
+            while (true) {
+                int child = 2 * parent + 1;
+                if (child >= size) {
+                    return;
+                }
+                if (child + 1 < size && comparator.compareTo(pagesIndex, heap[child], heap[child + 1]) < 0) {
+                    child++;
+                }
+                if (comparator.compareTo(pagesIndex, heap[parent], heap[child]) >= 0) {
+                    return;
+                }
+                swap(parent, child);
+                parent = child;
             }
-            return sizeDelta;
         }
 
-        private static long sizeOfRow(Block[] row)
+        private void swap(int a, int b)
         {
-            long size = OVERHEAD_PER_VALUE.toBytes();
-            for (Block value : row) {
-                size += value.getSizeInBytes();
-            }
-            return size;
+            int temp = heap[a];
+            heap[a] = heap[b];
+            heap[b] = temp;
         }
 
-        private static Block[] getValues(int position, Block[] blocks)
+        /**
+         * Copies the candidate rows into new pages and replaces the contents of the index with
+         * them. Returns false if the memory for the compacted index could not be reserved.
+         */
+        private boolean compact()
         {
-            Block[] row = new Block[blocks.length];
-            for (int i = 0; i < blocks.length; i++) {
-                row[i] = blocks[i].getSingleValueBlock(position);
+            List<Page> pages = new ArrayList<>();
+            PageBuilder pageBuilder = new PageBuilder(types);
+            for (int i = 0; i < heapSize; i++) {
+                appendRow(heap[i], pageBuilder);
+                if (pageBuilder.isFull()) {
+                    pages.add(pageBuilder.build());
+                    pageBuilder.reset();
+                }
+            }
+            if (!pageBuilder.isEmpty()) {
+                pages.add(pageBuilder.build());
             }
-            return row;
-        }
 
-        private boolean isFull()
-        {
-            return memoryManager.canUse(memorySize);
+            // the pages hold the candidates in heap order, so the heap is still valid
+            pagesIndex.clear();
+            boolean reserved = true;
+            for (Page page : pages) {
+                reserved &= pagesIndex.tryAddPage(page);
+            }
+            for (int i = 0; i < heapSize; i++) {
+                heap[i] = i;
+            }
+            return reserved;
         }
 
-        public Iterator<Block[]> build()
+        private void appendRow(int position, PageBuilder pageBuilder)
         {
-            ImmutableList.Builder<Block[]> minSortedGlobalCandidates = ImmutableList.builder();
-            while (!globalCandidates.isEmpty()) {
-                Block[] row = globalCandidates.remove();
-                minSortedGlobalCandidates.add(row);
+            for (int channel = 0; channel < types.size(); channel++) {
+                pagesIndex.appendTo(channel, position, pageBuilder.getBlockBuilder(channel));
             }
-            return minSortedGlobalCandidates.build().reverse().iterator();
         }
-    }
-
-    public static class TopNMemoryManager
-    {
-        private final OperatorContext operatorContext;
-        private long currentMemoryReservation;
 
-        public TopNMemoryManager(OperatorContext operatorContext)
+        private boolean isFull()
         {
-            this.operatorContext = operatorContext;
+            return full;
         }
 
-        public boolean canUse(long memorySize)
+        public Iterator<Page> build()
         {
-            // remove the pre-allocated memory from this size
-            memorySize -= operatorContext.getOperatorPreAllocatedMemory().toBytes();
-
-            long delta = memorySize - currentMemoryReservation;
-            if (delta <= 0) {
-                return false;
+            // heap sort the candidates, which leaves them in sort order
+            for (int size = heapSize - 1; size > 0; size--) {
+                swap(0, size);
+                siftDown(0, size);
             }
 
-            if (!operatorContext.reserveMemory(delta)) {
-                return true;
-            }
-
-            // reservation worked, record the reservation
-            currentMemoryReservation = Math.max(currentMemoryReservation, memorySize);
-            return false;
-        }
-
-        public DataSize getMaxMemorySize()
-        {
-            return operatorContext.getMaxMemorySize();
+            final PageBuilder pageBuilder = new PageBuilder(types);
+            return new AbstractIterator<Page>()
+            {
+                private int position;
+
+                @Override
+                protected Page computeNext()
+                {
+                    if (position >= heapSize) {
+                        return endOfData();
+                    }
+
+                    pageBuilder.reset();
+                    while (!pageBuilder.isFull() && position < heapSize) {
+                        appendRow(heap[position], pageBuilder);
+                        position++;
+                    }
+                    return pageBuilder.build();
+                }
+            };
         }
     }
 }
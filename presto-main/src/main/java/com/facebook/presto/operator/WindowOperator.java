@@ -18,6 +18,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -34,6 +35,8 @@ import static com.google.common.collect.Iterables.concat;
 public class WindowOperator
         implements Operator
 {
+    private static final int MERGED_BATCH_POSITIONS = 1024;
+
     public static class WindowOperatorFactory
             implements OperatorFactory
     {
@@ -47,6 +50,7 @@ public class WindowOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final int expectedPositions;
+        private final Optional<SpillerFactory> spillerFactory;
         private final List<Type> types;
         private boolean closed;
 
@@ -59,6 +63,20 @@ public class WindowOperator
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder,
                 int expectedPositions)
+        {
+            this(operatorId, sourceTypes, outputChannels, windowFunctionDefinitions, partitionChannels, sortChannels, sortOrder, expectedPositions, Optional.<SpillerFactory>absent());
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int expectedPositions,
+                Optional<SpillerFactory> spillerFactory)
         {
             this.operatorId = operatorId;
             this.sourceTypes = ImmutableList.copyOf(sourceTypes);
@@ -78,6 +96,7 @@ public class WindowOperator
             this.sortChannels = ImmutableList.copyOf(checkNotNull(sortChannels, "sortChannels is null"));
             this.sortOrder = ImmutableList.copyOf(checkNotNull(sortOrder, "sortOrder is null"));
             this.expectedPositions = expectedPositions;
+            this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(sourceTypes, outputChannels, toWindowFunctions(windowFunctionDefinitions));
         }
@@ -104,7 +123,8 @@ public class WindowOperator
                     sortTypes,
                     sortChannels,
                     sortOrder,
-                    expectedPositions);
+                    expectedPositions,
+                    spillerFactory);
         }
 
         @Override
@@ -123,7 +143,9 @@ public class WindowOperator
 
     private final OperatorContext operatorContext;
     private final int[] outputChannels;
-    private final List<WindowFunction> windowFunctions;
+    private final List<Type> sourceTypes;
+    private final List<WindowFunctionDefinition> windowFunctionDefinitions;
+    private List<WindowFunction> windowFunctions;
     private final List<Type> partitionTypes;
     private final List<Integer> partitionChannels;
     private final List<Type> sortTypes;
@@ -131,10 +153,22 @@ public class WindowOperator
     private final List<SortOrder> sortOrder;
     private final List<Type> types;
 
+    private final List<SortOrder> partitionOrder;
+    private final List<Type> orderingTypes;
+    private final List<Integer> orderChannels;
+    private final List<SortOrder> ordering;
+
+    private final ExternalSorter sorter;
     private final PagesIndex pagesIndex;
 
     private final PageBuilder pageBuilder;
 
+    // set when the input was spilled; the sorted rows are merged from disk and
+    // loaded into the pages index a few partitions at a time
+    private MergingPagesCursor mergedRows;
+    private boolean hasMergedRow;
+    private PageBuilder mergedPageBuilder;
+
     private State state = State.NEEDS_INPUT;
 
     private int currentPosition;
@@ -155,10 +189,36 @@ public class WindowOperator
             List<Type> sortTypes, List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int expectedPositions)
+    {
+        this(operatorContext,
+                sourceTypes,
+                outputChannels,
+                windowFunctionDefinitions,
+                partitionTypes,
+                partitionChannels,
+                sortTypes,
+                sortChannels,
+                sortOrder,
+                expectedPositions,
+                Optional.<SpillerFactory>absent());
+    }
+
+    public WindowOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> windowFunctionDefinitions,
+            List<Type> partitionTypes, List<Integer> partitionChannels,
+            List<Type> sortTypes, List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int expectedPositions,
+            Optional<SpillerFactory> spillerFactory)
     {
         this.operatorContext = checkNotNull(operatorContext, "operatorContext is null");
         this.outputChannels = Ints.toArray(checkNotNull(outputChannels, "outputChannels is null"));
-        this.windowFunctions = toWindowFunctions(checkNotNull(windowFunctionDefinitions, "windowFunctionDefinitions is null"));
+        this.sourceTypes = ImmutableList.copyOf(checkNotNull(sourceTypes, "sourceTypes is null"));
+        this.windowFunctionDefinitions = ImmutableList.copyOf(checkNotNull(windowFunctionDefinitions, "windowFunctionDefinitions is null"));
+        this.windowFunctions = toWindowFunctions(this.windowFunctionDefinitions);
         this.partitionTypes = ImmutableList.copyOf(checkNotNull(partitionTypes, "partitionTypes is null"));
         this.partitionChannels = ImmutableList.copyOf(checkNotNull(partitionChannels, "partitionChannels is null"));
         this.sortTypes = ImmutableList.copyOf(checkNotNull(sortTypes, "sortTypes is null"));
@@ -167,7 +227,16 @@ public class WindowOperator
 
         this.types = toTypes(sourceTypes, outputChannels, windowFunctions);
 
-        this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions, operatorContext);
+        // we partition by ordering the values so partitions are sequential values
+        this.partitionOrder = Collections.nCopies(partitionChannels.size(), ASC_NULLS_LAST);
+
+        // sort everything by partition channels, then sort channels
+        this.orderChannels = ImmutableList.copyOf(concat(partitionChannels, sortChannels));
+        this.ordering = ImmutableList.copyOf(concat(partitionOrder, sortOrder));
+        this.orderingTypes = ImmutableList.copyOf(concat(partitionTypes, sortTypes));
+
+        this.sorter = new ExternalSorter(operatorContext, sourceTypes, expectedPositions, orderingTypes, orderChannels, ordering, spillerFactory);
+        this.pagesIndex = sorter.getPagesIndex();
         this.pageBuilder = new PageBuilder(this.types);
     }
 
@@ -189,16 +258,16 @@ public class WindowOperator
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
 
-            // we partition by ordering the values so partitions are sequential values
-            List<SortOrder> partitionOrder = Collections.nCopies(partitionChannels.size(), ASC_NULLS_LAST);
-
-            // sort everything by partition channels, then sort channels
-            List<Integer> orderChannels = ImmutableList.copyOf(concat(partitionChannels, sortChannels));
-            List<SortOrder> ordering = ImmutableList.copyOf(concat(partitionOrder, sortOrder));
-            List<Type> orderingTypes = ImmutableList.copyOf(concat(partitionTypes, sortTypes));
-
-            // sort the index
-            pagesIndex.sort(orderingTypes, orderChannels, ordering);
+            if (sorter.hasSpilled()) {
+                // the merged rows are already sorted, so they are loaded into the index as is
+                mergedRows = sorter.mergeRuns();
+                hasMergedRow = mergedRows.advance();
+                mergedPageBuilder = new PageBuilder(sourceTypes);
+            }
+            else {
+                // sort the index
+                pagesIndex.sort(orderingTypes, orderChannels, ordering);
+            }
 
             // create partition comparator
             partitionComparator = pagesIndex.createComparator(orderingTypes, partitionChannels, partitionOrder);
@@ -232,7 +301,7 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         checkNotNull(page, "page is null");
 
-        pagesIndex.addPage(page);
+        sorter.addPage(page);
     }
 
     @Override
@@ -243,8 +312,12 @@ public class WindowOperator
         }
 
         if (currentPosition >= pagesIndex.getPositionCount()) {
-            state = State.FINISHED;
-            return null;
+            if (!hasMergedRow) {
+                state = State.FINISHED;
+                sorter.close();
+                return null;
+            }
+            loadMergedPartitions();
         }
 
         // iterate through the positions sequentially until we have one full page
@@ -304,6 +377,63 @@ public class WindowOperator
         return page;
     }
 
+    /**
+     * Replaces the contents of the index with the next partitions of the merged rows. At least
+     * one full partition is loaded, and loading stops at the first partition boundary after
+     * {@link #MERGED_BATCH_POSITIONS} rows, so the partition size and not the input size bounds
+     * the memory use.
+     */
+    private void loadMergedPartitions()
+    {
+        pagesIndex.clear();
+        mergedPageBuilder.reset();
+
+        Page partitionPage = null;
+        int partitionPosition = -1;
+        while (hasMergedRow) {
+            Page page = mergedRows.getPage();
+            int position = mergedRows.getPosition();
+
+            if (partitionPage == null || !isSamePartition(partitionPage, partitionPosition, page, position)) {
+                if (pagesIndex.getPositionCount() + mergedPageBuilder.getPositionCount() >= MERGED_BATCH_POSITIONS) {
+                    break;
+                }
+                partitionPage = page;
+                partitionPosition = position;
+            }
+
+            for (int channel = 0; channel < sourceTypes.size(); channel++) {
+                sourceTypes.get(channel).appendTo(page.getBlock(channel), position, mergedPageBuilder.getBlockBuilder(channel));
+            }
+            if (mergedPageBuilder.isFull()) {
+                pagesIndex.addPage(mergedPageBuilder.build());
+                mergedPageBuilder.reset();
+            }
+
+            hasMergedRow = mergedRows.advance();
+        }
+        if (!mergedPageBuilder.isEmpty()) {
+            pagesIndex.addPage(mergedPageBuilder.build());
+        }
+
+        // window functions track positions from the start of the index
+        windowFunctions = toWindowFunctions(windowFunctionDefinitions);
+        currentPosition = 0;
+        partitionEnd = 0;
+        peerGroupEnd = 0;
+    }
+
+    private boolean isSamePartition(Page leftPage, int leftPosition, Page rightPage, int rightPosition)
+    {
+        for (int i = 0; i < partitionChannels.size(); i++) {
+            int channel = partitionChannels.get(i);
+            if (ASC_NULLS_LAST.compareBlockValue(partitionTypes.get(i), leftPage.getBlock(channel), leftPosition, rightPage.getBlock(channel), rightPosition) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels, List<WindowFunction> windowFunctions)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -27,6 +27,9 @@ public class IndexJoinLookupStats
     private final CounterStat successfulIndexJoinLookupsBySingleRequest = new CounterStat();
     private final CounterStat successfulIndexJoinLookupsByLimitedRequest = new CounterStat();
     private final CounterStat streamedIndexJoinLookups = new CounterStat();
+    private final CounterStat sharedIndexCacheHits = new CounterStat();
+    private final CounterStat sharedIndexCacheMisses = new CounterStat();
+    private final CounterStat sharedIndexCacheEvictions = new CounterStat();
 
     @Managed
     @Nested
@@ -63,6 +66,27 @@ public class IndexJoinLookupStats
         return streamedIndexJoinLookups;
     }
 
+    @Managed
+    @Nested
+    public CounterStat getSharedIndexCacheHits()
+    {
+        return sharedIndexCacheHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSharedIndexCacheMisses()
+    {
+        return sharedIndexCacheMisses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSharedIndexCacheEvictions()
+    {
+        return sharedIndexCacheEvictions;
+    }
+
     public void recordIndexJoinLookup()
     {
         totalIndexJoinLookups.update(1);
@@ -87,4 +111,19 @@ public class IndexJoinLookupStats
     {
         streamedIndexJoinLookups.update(1);
     }
+
+    public void recordSharedIndexCacheHits(long keys)
+    {
+        sharedIndexCacheHits.update(keys);
+    }
+
+    public void recordSharedIndexCacheMisses(long keys)
+    {
+        sharedIndexCacheMisses.update(keys);
+    }
+
+    public void recordSharedIndexCacheEviction()
+    {
+        sharedIndexCacheEvictions.update(1);
+    }
 }
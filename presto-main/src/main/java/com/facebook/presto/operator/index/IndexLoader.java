@@ -21,11 +21,16 @@ import com.facebook.presto.operator.DriverFactory;
 import com.facebook.presto.operator.LookupSource;
 import com.facebook.presto.operator.PipelineContext;
 import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.operator.index.UnloadedIndexKeyRecordSet.UnloadedIndexKeyRecordCursor;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
@@ -59,6 +64,8 @@ public class IndexLoader
     private final int expectedPositions;
     private final DataSize maxIndexMemorySize;
     private final IndexJoinLookupStats stats;
+    private final SharedIndexCache sharedIndexCache;
+    private final Optional<IndexSourceId> indexSourceId;
 
     private final AtomicReference<TaskContext> taskContextReference = new AtomicReference<>();
     private final List<Integer> indexChannels;
@@ -78,7 +85,9 @@ public class IndexLoader
             IndexBuildDriverFactoryProvider indexBuildDriverFactoryProvider,
             int expectedPositions,
             DataSize maxIndexMemorySize,
-            IndexJoinLookupStats stats)
+            IndexJoinLookupStats stats,
+            SharedIndexCache sharedIndexCache,
+            Optional<IndexSourceId> indexSourceId)
     {
         checkArgument(!indexChannels.isEmpty(), "indexChannels must not be empty");
         this.indexChannels = ImmutableList.copyOf(checkNotNull(indexChannels, "indexChannels is null"));
@@ -87,6 +96,8 @@ public class IndexLoader
         this.expectedPositions = checkNotNull(expectedPositions, "expectedPositions is null");
         this.maxIndexMemorySize = checkNotNull(maxIndexMemorySize, "maxIndexMemorySize is null");
         this.stats = checkNotNull(stats, "stats is null");
+        this.sharedIndexCache = checkNotNull(sharedIndexCache, "sharedIndexCache is null");
+        this.indexSourceId = checkNotNull(indexSourceId, "indexSourceId is null");
 
         ImmutableList.Builder<Type> typeBuilder = ImmutableList.builder();
         for (int outputIndexChannel : indexChannels) {
@@ -226,7 +237,10 @@ public class IndexLoader
                     indexTypes,
                     indexChannels,
                     expectedPositions,
-                    maxIndexMemorySize);
+                    maxIndexMemorySize,
+                    stats,
+                    sharedIndexCache,
+                    indexSourceId);
         }
     }
 
@@ -238,6 +252,9 @@ public class IndexLoader
         private final List<Type> types;
         private final List<Type> indexTypes;
         private final AtomicReference<IndexSnapshot> indexSnapshotReference;
+        private final IndexJoinLookupStats stats;
+        private final SharedIndexCache sharedIndexCache;
+        private final Optional<IndexSourceId> indexSourceId;
 
         private final IndexSnapshotBuilder indexSnapshotBuilder;
 
@@ -247,12 +264,18 @@ public class IndexLoader
                 List<Type> indexTypes,
                 List<Integer> indexChannels,
                 int expectedPositions,
-                DataSize maxIndexMemorySize)
+                DataSize maxIndexMemorySize,
+                IndexJoinLookupStats stats,
+                SharedIndexCache sharedIndexCache,
+                Optional<IndexSourceId> indexSourceId)
         {
             this.pipelineContext = pipelineContext;
             this.indexSnapshotReference = indexSnapshotReference;
             this.types = indexBuildDriverFactoryProvider.getOutputTypes();
             this.indexTypes = indexTypes;
+            this.stats = stats;
+            this.sharedIndexCache = sharedIndexCache;
+            this.indexSourceId = indexSourceId;
 
             this.indexSnapshotBuilder = new IndexSnapshotBuilder(
                     types,
@@ -272,10 +295,18 @@ public class IndexLoader
         {
             UnloadedIndexKeyRecordSet unloadedKeysRecordSet = new UnloadedIndexKeyRecordSet(indexSnapshotReference.get(), indexTypes, requests);
 
+            // Only the keys that are not in the shared cache are looked up in the index
+            RecordSet keysToLoad = unloadedKeysRecordSet;
+            Page missedKeys = null;
+            if (isSharedCacheEnabled()) {
+                missedKeys = loadFromSharedCache(unloadedKeysRecordSet);
+                keysToLoad = new PageRecordSet(indexTypes, missedKeys);
+            }
+
             // Drive index lookup to produce the output (landing in indexSnapshotBuilder)
             Driver driver = driverFactory.createDriver(pipelineContext.addDriverContext());
             PlanNodeId sourcePlanNodeId = Iterables.getOnlyElement(driverFactory.getSourceIds());
-            driver.updateSource(new TaskSource(sourcePlanNodeId, ImmutableSet.of(new ScheduledSplit(0, new Split("index", new IndexSplit(unloadedKeysRecordSet)))), true));
+            driver.updateSource(new TaskSource(sourcePlanNodeId, ImmutableSet.of(new ScheduledSplit(0, new Split("index", new IndexSplit(keysToLoad)))), true));
             while (!driver.isFinished()) {
                 ListenableFuture<?> process = driver.process();
                 checkState(process.isDone(), "Driver should never block");
@@ -293,6 +324,10 @@ public class IndexLoader
                 return false;
             }
 
+            if (missedKeys != null) {
+                saveToSharedCache(newValue, missedKeys);
+            }
+
             indexSnapshotReference.set(newValue);
             for (UpdateRequest request : requests) {
                 request.finished(newValue);
@@ -300,6 +335,95 @@ public class IndexLoader
             return true;
         }
 
+        private boolean isSharedCacheEnabled()
+        {
+            return indexSourceId.isPresent() && sharedIndexCache.isEnabled();
+        }
+
+        /**
+         * Adds the cached rows of the unloaded keys to the snapshot builder, and returns the keys that are not cached.
+         */
+        private Page loadFromSharedCache(UnloadedIndexKeyRecordSet unloadedKeysRecordSet)
+        {
+            PageBuilder missedKeysPageBuilder = new PageBuilder(indexTypes);
+            long hits = 0;
+
+            UnloadedIndexKeyRecordCursor cursor = unloadedKeysRecordSet.cursor();
+            while (cursor.advanceNextPosition()) {
+                Block[] blocks = cursor.getBlocks();
+                int position = cursor.getPosition();
+
+                Page rows = sharedIndexCache.get(indexSourceId.get(), indexTypes, position, blocks);
+                if (rows != null) {
+                    hits++;
+                    // keys without rows are added to the missing keys when the snapshot is created
+                    if (rows.getPositionCount() > 0) {
+                        // a failure to add is detected after the load by the memory check
+                        indexSnapshotBuilder.tryAddPage(rows);
+                    }
+                    continue;
+                }
+
+                missedKeysPageBuilder.declarePosition();
+                for (int i = 0; i < blocks.length; i++) {
+                    indexTypes.get(i).appendTo(blocks[i], position, missedKeysPageBuilder.getBlockBuilder(i));
+                }
+            }
+
+            stats.recordSharedIndexCacheHits(hits);
+            stats.recordSharedIndexCacheMisses(missedKeysPageBuilder.getPositionCount());
+            return missedKeysPageBuilder.build();
+        }
+
+        /**
+         * Caches the rows of each key that was loaded from the index, including the keys that produced no rows.
+         */
+        private void saveToSharedCache(IndexSnapshot indexSnapshot, Page loadedKeys)
+        {
+            Block[] keyBlocks = loadedKeys.getBlocks();
+
+            PageBuilder rowsPageBuilder = new PageBuilder(types);
+            int[] rowOffsets = new int[loadedKeys.getPositionCount() + 1];
+            for (int position = 0; position < loadedKeys.getPositionCount(); position++) {
+                long joinPosition = indexSnapshot.getJoinPosition(position, keyBlocks);
+                while (joinPosition >= 0) {
+                    rowsPageBuilder.declarePosition();
+                    indexSnapshot.appendTo(joinPosition, rowsPageBuilder, 0);
+                    joinPosition = indexSnapshot.getNextJoinPosition(joinPosition);
+                }
+                rowOffsets[position + 1] = rowsPageBuilder.getPositionCount();
+            }
+
+            Page rows = rowsPageBuilder.build();
+            for (int position = 0; position < loadedKeys.getPositionCount(); position++) {
+                Page keyRows = copyRows(types, rows, rowOffsets[position], rowOffsets[position + 1] - rowOffsets[position]);
+                sharedIndexCache.put(indexSourceId.get(), indexTypes, position, keyBlocks, keyRows);
+            }
+        }
+
+        private static Page copyRows(List<Type> types, Page page, int start, int length)
+        {
+            Block[] blocks = new Block[types.size()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                Type type = types.get(channel);
+                Block block = page.getBlock(channel);
+
+                // size the builder for just these rows, so the cached page does not hold on to a page sized buffer
+                int sizeInBytes = 16;
+                for (int position = start; position < start + length; position++) {
+                    if (!block.isNull(position)) {
+                        sizeInBytes += block.getLength(position);
+                    }
+                }
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(sizeInBytes, sizeInBytes));
+                for (int position = start; position < start + length; position++) {
+                    type.appendTo(block, position, blockBuilder);
+                }
+                blocks[channel] = blockBuilder.build();
+            }
+            return new Page(blocks);
+        }
+
         private void clearCachedData()
         {
             indexSnapshotReference.set(new IndexSnapshot(new EmptyLookupSource(types.size()), new EmptyLookupSource(indexTypes.size())));
@@ -330,6 +454,12 @@ public class IndexLoader
             return IndexSnapshot.UNLOADED_INDEX_KEY;
         }
 
+        @Override
+        public long getJoinPosition(int position, Block[] blocks, long rawHash)
+        {
+            return getJoinPosition(position, blocks);
+        }
+
         @Override
         public long getNextJoinPosition(long currentPosition)
         {
@@ -56,6 +56,13 @@ public class IndexLookupSource
         return joinPosition;
     }
 
+    @Override
+    public long getJoinPosition(int position, Block[] blocks, long rawHash)
+    {
+        // the index is keyed on the values, so the precomputed hash is not used
+        return getJoinPosition(position, blocks);
+    }
+
     @Override
     public long getNextJoinPosition(long currentPosition)
     {
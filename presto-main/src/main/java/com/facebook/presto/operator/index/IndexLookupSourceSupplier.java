@@ -17,6 +17,7 @@ import com.facebook.presto.operator.LookupSource;
 import com.facebook.presto.operator.LookupSourceSupplier;
 import com.facebook.presto.operator.OperatorContext;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
@@ -33,9 +34,11 @@ public class IndexLookupSourceSupplier
             List<Type> types,
             IndexBuildDriverFactoryProvider indexBuildDriverFactoryProvider,
             DataSize maxIndexMemorySize,
-            IndexJoinLookupStats stats)
+            IndexJoinLookupStats stats,
+            SharedIndexCache sharedIndexCache,
+            Optional<IndexSourceId> indexSourceId)
     {
-        this.indexLoader = new IndexLoader(indexChannels, types, indexBuildDriverFactoryProvider, 100_000, maxIndexMemorySize, stats);
+        this.indexLoader = new IndexLoader(indexChannels, types, indexBuildDriverFactoryProvider, 100_000, maxIndexMemorySize, stats, sharedIndexCache, indexSourceId);
     }
 
     @Override
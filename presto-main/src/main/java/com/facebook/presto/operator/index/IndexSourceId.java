@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.index;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.IndexHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.google.common.base.Objects.toStringHelper;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Identifies the data produced by an index source, so tasks that look up the same
+ * index with the same key and output layout can share loaded rows.
+ */
+@Immutable
+public final class IndexSourceId
+{
+    private final IndexHandle indexHandle;
+    private final Set<ColumnHandle> lookupColumns;
+    private final List<ColumnHandle> outputColumns;
+    private final List<Integer> keyChannels;
+
+    public IndexSourceId(IndexHandle indexHandle, Set<ColumnHandle> lookupColumns, List<ColumnHandle> outputColumns, List<Integer> keyChannels)
+    {
+        this.indexHandle = checkNotNull(indexHandle, "indexHandle is null");
+        this.lookupColumns = ImmutableSet.copyOf(checkNotNull(lookupColumns, "lookupColumns is null"));
+        this.outputColumns = ImmutableList.copyOf(checkNotNull(outputColumns, "outputColumns is null"));
+        this.keyChannels = ImmutableList.copyOf(checkNotNull(keyChannels, "keyChannels is null"));
+    }
+
+    public IndexHandle getIndexHandle()
+    {
+        return indexHandle;
+    }
+
+    public Set<ColumnHandle> getLookupColumns()
+    {
+        return lookupColumns;
+    }
+
+    public List<ColumnHandle> getOutputColumns()
+    {
+        return outputColumns;
+    }
+
+    public List<Integer> getKeyChannels()
+    {
+        return keyChannels;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(indexHandle, lookupColumns, outputColumns, keyChannels);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        IndexSourceId other = (IndexSourceId) obj;
+        return Objects.equals(this.indexHandle, other.indexHandle) &&
+                Objects.equals(this.lookupColumns, other.lookupColumns) &&
+                Objects.equals(this.outputColumns, other.outputColumns) &&
+                Objects.equals(this.keyChannels, other.keyChannels);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("indexHandle", indexHandle)
+                .add("lookupColumns", lookupColumns)
+                .add("outputColumns", outputColumns)
+                .add("keyChannels", keyChannels)
+                .toString();
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.index;
+
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.primitives.Ints;
+import io.airlift.units.DataSize;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Caches the rows loaded for index lookup keys on a worker, so tasks joining against
+ * the same index source do not reload the same keys from the backing store. The cache
+ * is split into segments that each evict their least recently used keys, and the sum
+ * of the segment sizes is bounded by {@code task.max-shared-index-memory}.
+ */
+@ThreadSafe
+public class SharedIndexCache
+{
+    private static final int SEGMENT_COUNT = 16;
+
+    private final long maxMemoryInBytes;
+    private final IndexJoinLookupStats stats;
+    private final Cache<IndexKey, Page> cache;
+
+    @Inject
+    public SharedIndexCache(TaskManagerConfig config, IndexJoinLookupStats stats)
+    {
+        this(checkNotNull(config, "config is null").getMaxSharedIndexMemoryUsage(), stats);
+    }
+
+    public SharedIndexCache(DataSize maxMemorySize, IndexJoinLookupStats stats)
+    {
+        this.maxMemoryInBytes = checkNotNull(maxMemorySize, "maxMemorySize is null").toBytes();
+        this.stats = checkNotNull(stats, "stats is null");
+        this.cache = CacheBuilder.newBuilder()
+                .concurrencyLevel(SEGMENT_COUNT)
+                .maximumWeight(maxMemoryInBytes)
+                .weigher(new Weigher<IndexKey, Page>()
+                {
+                    @Override
+                    public int weigh(IndexKey key, Page rows)
+                    {
+                        return Ints.saturatedCast(key.getSizeInBytes() + rows.getSizeInBytes());
+                    }
+                })
+                .removalListener(new RemovalListener<IndexKey, Page>()
+                {
+                    @Override
+                    public void onRemoval(RemovalNotification<IndexKey, Page> notification)
+                    {
+                        if (notification.wasEvicted()) {
+                            SharedIndexCache.this.stats.recordSharedIndexCacheEviction();
+                        }
+                    }
+                })
+                .build();
+    }
+
+    public boolean isEnabled()
+    {
+        return maxMemoryInBytes > 0;
+    }
+
+    /**
+     * Gets the rows loaded for the key at the specified position, or null if the key is
+     * not cached. A key that matched no rows is cached as an empty page.
+     */
+    @Nullable
+    public Page get(IndexSourceId indexSourceId, List<Type> keyTypes, int position, Block[] keyBlocks)
+    {
+        if (!isEnabled()) {
+            return null;
+        }
+        return cache.getIfPresent(new IndexKey(indexSourceId, keyTypes, position, keyBlocks));
+    }
+
+    public void put(IndexSourceId indexSourceId, List<Type> keyTypes, int position, Block[] keyBlocks, Page rows)
+    {
+        checkNotNull(rows, "rows is null");
+        if (!isEnabled()) {
+            return;
+        }
+
+        // copy the key, so the cache does not retain the blocks of the request
+        Block[] key = new Block[keyBlocks.length];
+        for (int i = 0; i < keyBlocks.length; i++) {
+            Type type = keyTypes.get(i);
+            BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
+            type.appendTo(keyBlocks[i], position, blockBuilder);
+            key[i] = blockBuilder.build();
+        }
+        cache.put(new IndexKey(indexSourceId, keyTypes, 0, key), rows);
+    }
+
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+    }
+
+    private static final class IndexKey
+    {
+        private final IndexSourceId indexSourceId;
+        private final List<Type> types;
+        private final int position;
+        private final Block[] blocks;
+        private final int hashCode;
+
+        private IndexKey(IndexSourceId indexSourceId, List<Type> types, int position, Block[] blocks)
+        {
+            this.indexSourceId = checkNotNull(indexSourceId, "indexSourceId is null");
+            this.types = checkNotNull(types, "types is null");
+            this.position = position;
+            this.blocks = checkNotNull(blocks, "blocks is null");
+            checkArgument(types.size() == blocks.length, "types and blocks do not match");
+
+            int hashCode = indexSourceId.hashCode();
+            for (int i = 0; i < blocks.length; i++) {
+                hashCode = 31 * hashCode + (blocks[i].isNull(position) ? 0 : types.get(i).hash(blocks[i], position));
+            }
+            this.hashCode = hashCode;
+        }
+
+        private long getSizeInBytes()
+        {
+            long size = 0;
+            for (Block block : blocks) {
+                size += block.getSizeInBytes();
+            }
+            return size;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            if (this == obj) {
+                return true;
+            }
+            if (obj == null || getClass() != obj.getClass()) {
+                return false;
+            }
+            IndexKey other = (IndexKey) obj;
+            if (hashCode != other.hashCode || !indexSourceId.equals(other.indexSourceId) || !types.equals(other.types)) {
+                return false;
+            }
+            for (int i = 0; i < blocks.length; i++) {
+                boolean leftIsNull = blocks[i].isNull(position);
+                boolean rightIsNull = other.blocks[i].isNull(other.position);
+                if (leftIsNull != rightIsNull) {
+                    return false;
+                }
+                if (!leftIsNull && !types.get(i).equalTo(blocks[i], position, other.blocks[i], other.position)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
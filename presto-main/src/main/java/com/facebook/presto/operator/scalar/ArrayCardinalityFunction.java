@@ -41,7 +41,7 @@ public final class ArrayCardinalityFunction
     static {
         MethodHandle result;
         try {
-            result = lookup().unreflect(JsonFunctions.class.getMethod("jsonArrayLength", Slice.class));
+            result = lookup().unreflect(ArrayCardinalityFunction.class.getMethod("arrayCardinality", Slice.class));
         }
         catch (IllegalAccessException | NoSuchMethodException e) {
             throw Throwables.propagate(e);
@@ -80,4 +80,10 @@ public final class ArrayCardinalityFunction
         Type type = types.get("E");
         return new FunctionInfo(new Signature("cardinality", StandardTypes.BIGINT, parameterizedTypeName("array", type.getName())), "Returns the cardinality (length) of the array", false, METHOD_HANDLE, true, true, ImmutableList.of(false));
     }
+
+    public static Long arrayCardinality(Slice slice)
+    {
+        // the element count is the first field of the array representation
+        return (long) slice.getInt(0);
+    }
 }
@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.operator.scalar;
 
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.type.SqlType;
 import io.airlift.slice.Slice;
@@ -30,7 +32,13 @@ public final class ArrayFunctions
     @SqlType(StandardTypes.BOOLEAN)
     public static Boolean contains(@SqlType("array<bigint>") Slice slice, @SqlType(StandardTypes.BIGINT) long value)
     {
-        return JsonFunctions.jsonArrayContains(slice, value);
+        Block elements = ArrayBlock.readElements(slice);
+        for (int position = 0; position < elements.getPositionCount(); position++) {
+            if (!elements.isNull(position) && elements.getLong(position, 0) == value) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Nullable
@@ -38,7 +46,13 @@ public final class ArrayFunctions
     @SqlType(StandardTypes.BOOLEAN)
     public static Boolean contains(@SqlType("array<boolean>") Slice slice, @SqlType(StandardTypes.BOOLEAN) boolean value)
     {
-        return JsonFunctions.jsonArrayContains(slice, value);
+        Block elements = ArrayBlock.readElements(slice);
+        for (int position = 0; position < elements.getPositionCount(); position++) {
+            if (!elements.isNull(position) && (elements.getByte(position, 0) != 0) == value) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Nullable
@@ -46,7 +60,13 @@ public final class ArrayFunctions
     @SqlType(StandardTypes.BOOLEAN)
     public static Boolean contains(@SqlType("array<double>") Slice slice, @SqlType(StandardTypes.DOUBLE) double value)
     {
-        return JsonFunctions.jsonArrayContains(slice, value);
+        Block elements = ArrayBlock.readElements(slice);
+        for (int position = 0; position < elements.getPositionCount(); position++) {
+            if (!elements.isNull(position) && elements.getDouble(position, 0) == value) {
+                return true;
+            }
+        }
+        return false;
     }
 
     @Nullable
@@ -54,6 +74,12 @@ public final class ArrayFunctions
     @SqlType(StandardTypes.BOOLEAN)
     public static Boolean contains(@SqlType("array<varchar>") Slice slice, @SqlType(StandardTypes.VARCHAR) Slice value)
     {
-        return JsonFunctions.jsonArrayContains(slice, value);
+        Block elements = ArrayBlock.readElements(slice);
+        for (int position = 0; position < elements.getPositionCount(); position++) {
+            if (!elements.isNull(position) && elements.getLength(position) == value.length() && elements.bytesEqual(position, 0, value, 0, value.length())) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -18,36 +18,26 @@ import com.facebook.presto.metadata.ParametricOperator;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.StandardErrorCode;
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.type.ArrayType;
 import com.facebook.presto.type.MapType;
 import com.google.common.base.Throwables;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
 
 import java.lang.invoke.MethodHandle;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.metadata.OperatorType.SUBSCRIPT;
 import static com.facebook.presto.metadata.Signature.typeParameter;
-import static com.facebook.presto.operator.scalar.JsonExtract.BooleanJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.DoubleJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.JsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.JsonValueJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.LongJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.ScalarValueJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.generateExtractor;
 import static com.facebook.presto.type.TypeUtils.parameterizedTypeName;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static java.lang.String.format;
 import static java.lang.invoke.MethodHandles.lookup;
 
 public class ArraySubscriptOperator
@@ -56,7 +46,6 @@ public class ArraySubscriptOperator
     public static final ArraySubscriptOperator ARRAY_SUBSCRIPT = new ArraySubscriptOperator();
     private static final Map<Class<?>, MethodHandle> METHOD_HANDLES;
     private static final MethodHandle STRUCTURAL_METHOD_HANDLE;
-    private static final LoadingCache<CacheKey, JsonExtractor<?>> cache;
 
     static {
         ImmutableMap.Builder<Class<?>, MethodHandle> builder = ImmutableMap.builder();
@@ -71,15 +60,6 @@ public class ArraySubscriptOperator
             throw Throwables.propagate(e);
         }
         METHOD_HANDLES = builder.build();
-
-        cache = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.MINUTES).maximumSize(1000).build(new CacheLoader<CacheKey, JsonExtractor<?>>() {
-            @Override
-            public JsonExtractor<?> load(CacheKey key)
-                    throws Exception
-            {
-                return generateExtractor(format("$[%d]", key.getIndex() - 1), key.getType().getExtractor(), true);
-            }
-        });
     }
 
     protected ArraySubscriptOperator()
@@ -106,108 +86,54 @@ public class ArraySubscriptOperator
 
     public static Long longSubscript(Slice array, long index)
     {
-        return subscript(array, index, ExtractorType.LONG);
+        Block elements = ArrayBlock.readElements(array);
+        int position = checkedPosition(elements, index);
+        if (elements.isNull(position)) {
+            return null;
+        }
+        return elements.getLong(position, 0);
     }
 
     public static Boolean booleanSubscript(Slice array, long index)
     {
-        return subscript(array, index, ExtractorType.BOOLEAN);
+        Block elements = ArrayBlock.readElements(array);
+        int position = checkedPosition(elements, index);
+        if (elements.isNull(position)) {
+            return null;
+        }
+        return elements.getByte(position, 0) != 0;
     }
 
     public static Double doubleSubscript(Slice array, long index)
     {
-        return subscript(array, index, ExtractorType.DOUBLE);
+        Block elements = ArrayBlock.readElements(array);
+        int position = checkedPosition(elements, index);
+        if (elements.isNull(position)) {
+            return null;
+        }
+        return elements.getDouble(position, 0);
     }
 
     public static Slice sliceSubscript(Slice array, long index)
     {
-        return subscript(array, index, ExtractorType.SLICE);
+        Block elements = ArrayBlock.readElements(array);
+        int position = checkedPosition(elements, index);
+        if (elements.isNull(position)) {
+            return null;
+        }
+        return elements.getSlice(position, 0, elements.getLength(position));
     }
 
     public static Slice structuralSubscript(Slice array, long index)
     {
-        return subscript(array, index, ExtractorType.STRUCTURAL);
+        return sliceSubscript(array, index);
     }
 
-    private static <T> T subscript(Slice array, long index, ExtractorType type)
+    private static int checkedPosition(Block elements, long index)
     {
-        if (index == 0) {
+        if (index <= 0 || index > elements.getPositionCount()) {
             throw new PrestoException(StandardErrorCode.INVALID_FUNCTION_ARGUMENT.toErrorCode(), "Index out of bounds");
         }
-        JsonExtractor<?> extractor = cache.getUnchecked(new CacheKey(index, type));
-        return (T) JsonExtract.extract(array, extractor);
-    }
-
-    private static class CacheKey
-    {
-        private final long index;
-        private final ExtractorType type;
-
-        private CacheKey(long index, ExtractorType type)
-        {
-            this.index = index;
-            this.type = type;
-        }
-
-        public long getIndex()
-        {
-            return index;
-        }
-
-        public ExtractorType getType()
-        {
-            return type;
-        }
-
-        @Override
-        public boolean equals(Object o)
-        {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
-
-            CacheKey cacheKey = (CacheKey) o;
-
-            if (index != cacheKey.index) {
-                return false;
-            }
-            if (type != cacheKey.type) {
-                return false;
-            }
-
-            return true;
-        }
-
-        @Override
-        public int hashCode()
-        {
-            int result = (int) (index ^ (index >>> 32));
-            result = 31 * result + type.hashCode();
-            return result;
-        }
-    }
-
-    private enum ExtractorType
-    {
-        LONG(new LongJsonExtractor()),
-        BOOLEAN(new BooleanJsonExtractor()),
-        DOUBLE(new DoubleJsonExtractor()),
-        SLICE(new ScalarValueJsonExtractor()),
-        STRUCTURAL(new JsonValueJsonExtractor());
-
-        private final JsonExtractor<?> extractor;
-
-        ExtractorType(JsonExtractor<?> extractor)
-        {
-            this.extractor = extractor;
-        }
-
-        public JsonExtractor<?> getExtractor()
-        {
-            return extractor;
-        }
+        return (int) (index - 1);
     }
 }
@@ -11,22 +11,21 @@
  * See the License for the specific language governing permissions and
  * limitations under the License.
  */
-package com.facebook.presto.type;
+package com.facebook.presto.operator.scalar;
 
-import com.fasterxml.jackson.core.JsonGenerator;
-import com.fasterxml.jackson.databind.JsonSerializer;
-import com.fasterxml.jackson.databind.SerializerProvider;
-import io.airlift.slice.Slice;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.type.SqlType;
 
-import java.io.IOException;
-
-public class RawSliceSerializer
-        extends JsonSerializer<Slice>
+public final class CombineHashFunction
 {
-    @Override
-    public void serialize(Slice slice, JsonGenerator jsonGenerator, SerializerProvider serializerProvider)
-            throws IOException
+    private CombineHashFunction()
+    {
+    }
+
+    @ScalarFunction(value = "combine_hash", hidden = true)
+    @SqlType(StandardTypes.BIGINT)
+    public static long getHash(@SqlType(StandardTypes.BIGINT) long previousHashValue, @SqlType(StandardTypes.BIGINT) long value)
     {
-        jsonGenerator.writeRawValue(slice.toStringUtf8());
+        return 31 * previousHashValue + value;
     }
 }
@@ -37,7 +37,6 @@ public final class MapCardinalityFunction
     public static final MapCardinalityFunction MAP_CARDINALITY = new MapCardinalityFunction();
     private static final Signature SIGNATURE = new Signature("cardinality", ImmutableList.of(typeParameter("K"), typeParameter("V")), "bigint", ImmutableList.of("map<K,V>"), false, false);
     private static final MethodHandle METHOD_HANDLE;
-    public static final JsonPath JSON_PATH = new JsonPath("$");
 
     static {
         MethodHandle result;
@@ -85,6 +84,7 @@ public final class MapCardinalityFunction
 
     public static Long mapCardinality(Slice slice)
     {
-        return JsonFunctions.jsonSize(slice, JSON_PATH);
+        // the entry count is the first field of the map representation
+        return (long) slice.getInt(0);
     }
 }
@@ -16,51 +16,28 @@ package com.facebook.presto.operator.scalar;
 import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.ParametricOperator;
 import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.MapBlock;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.type.ArrayType;
 import com.facebook.presto.type.MapType;
 import com.google.common.base.Throwables;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
 
 import java.lang.invoke.MethodHandle;
 import java.util.Map;
-import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.metadata.OperatorType.SUBSCRIPT;
 import static com.facebook.presto.metadata.Signature.typeParameter;
-import static com.facebook.presto.operator.scalar.JsonExtract.BooleanJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.DoubleJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.JsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.JsonValueJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.LongJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.ScalarValueJsonExtractor;
-import static com.facebook.presto.operator.scalar.JsonExtract.generateExtractor;
 import static com.facebook.presto.type.TypeUtils.parameterizedTypeName;
-import static java.lang.String.format;
 import static java.lang.invoke.MethodHandles.lookup;
 
 public class MapSubscriptOperator
         extends ParametricOperator
 {
     public static final MapSubscriptOperator MAP_SUBSCRIPT = new MapSubscriptOperator();
-    private static final LoadingCache<CacheKey, JsonExtractor<?>> cache;
-
-    static
-    {
-        cache = CacheBuilder.newBuilder().expireAfterAccess(1, TimeUnit.MINUTES).maximumSize(1000).build(new CacheLoader<CacheKey, JsonExtractor<?>>() {
-            @Override
-            public JsonExtractor<?> load(CacheKey key)
-                    throws Exception
-            {
-                return generateExtractor(format("$[\"%s\"]", key.getKey()), key.getType().getExtractor());
-            }
-        });
-    }
 
     protected MapSubscriptOperator()
     {
@@ -97,180 +74,253 @@ public class MapSubscriptOperator
 
     public static Long SlicelongSubscript(Slice map, Slice key)
     {
-        return subscript(map, key.toStringUtf8(), ExtractorType.LONG);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return longValue(MapBlock.readValues(map), position);
     }
 
     public static Boolean SlicebooleanSubscript(Slice map, Slice key)
     {
-        return subscript(map, key.toStringUtf8(), ExtractorType.BOOLEAN);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return booleanValue(MapBlock.readValues(map), position);
     }
 
     public static Double SlicedoubleSubscript(Slice map, Slice key)
     {
-        return subscript(map, key.toStringUtf8(), ExtractorType.DOUBLE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return doubleValue(MapBlock.readValues(map), position);
     }
 
     public static Slice SliceSliceSubscript(Slice map, Slice key)
     {
-        return subscript(map, key.toStringUtf8(), ExtractorType.SLICE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Slice SliceStructuralSubscript(Slice map, Slice key)
     {
-        return subscript(map, key.toStringUtf8(), ExtractorType.STRUCTURAL);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Long doublelongSubscript(Slice map, double key)
     {
-        return subscript(map, key, ExtractorType.LONG);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return longValue(MapBlock.readValues(map), position);
     }
 
     public static Boolean doublebooleanSubscript(Slice map, double key)
     {
-        return subscript(map, key, ExtractorType.BOOLEAN);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return booleanValue(MapBlock.readValues(map), position);
     }
 
     public static Double doubledoubleSubscript(Slice map, double key)
     {
-        return subscript(map, key, ExtractorType.DOUBLE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return doubleValue(MapBlock.readValues(map), position);
     }
 
     public static Slice doubleSliceSubscript(Slice map, double key)
     {
-        return subscript(map, key, ExtractorType.SLICE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Slice doubleStructuralSubscript(Slice map, double key)
     {
-        return subscript(map, key, ExtractorType.STRUCTURAL);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Long booleanlongSubscript(Slice map, boolean key)
     {
-        return subscript(map, key, ExtractorType.LONG);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return longValue(MapBlock.readValues(map), position);
     }
 
     public static Boolean booleanbooleanSubscript(Slice map, boolean key)
     {
-        return subscript(map, key, ExtractorType.BOOLEAN);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return booleanValue(MapBlock.readValues(map), position);
     }
 
     public static Double booleandoubleSubscript(Slice map, boolean key)
     {
-        return subscript(map, key, ExtractorType.DOUBLE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return doubleValue(MapBlock.readValues(map), position);
     }
 
     public static Slice booleanSliceSubscript(Slice map, boolean key)
     {
-        return subscript(map, key, ExtractorType.SLICE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Slice booleanStructuralSubscript(Slice map, boolean key)
     {
-        return subscript(map, key, ExtractorType.STRUCTURAL);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Long longlongSubscript(Slice map, long key)
     {
-        return subscript(map, key, ExtractorType.LONG);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return longValue(MapBlock.readValues(map), position);
     }
 
     public static Boolean longbooleanSubscript(Slice map, long key)
     {
-        return subscript(map, key, ExtractorType.BOOLEAN);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return booleanValue(MapBlock.readValues(map), position);
     }
 
     public static Double longdoubleSubscript(Slice map, long key)
     {
-        return subscript(map, key, ExtractorType.DOUBLE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return doubleValue(MapBlock.readValues(map), position);
     }
 
     public static Slice longSliceSubscript(Slice map, long key)
     {
-        return subscript(map, key, ExtractorType.SLICE);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
     public static Slice longStructuralSubscript(Slice map, long key)
     {
-        return subscript(map, key, ExtractorType.STRUCTURAL);
+        int position = findKey(MapBlock.readKeys(map), key);
+        if (position < 0) {
+            return null;
+        }
+        return sliceValue(MapBlock.readValues(map), position);
     }
 
-    private static <T> T subscript(Slice map, Object key, ExtractorType type)
+    private static int findKey(Block keys, Slice key)
     {
-        JsonExtractor<?> extractor = cache.getUnchecked(new CacheKey(key.toString(), type));
-        return (T) JsonExtract.extract(map, extractor);
+        for (int position = 0; position < keys.getPositionCount(); position++) {
+            if (!keys.isNull(position) && keys.getLength(position) == key.length() && keys.bytesEqual(position, 0, key, 0, key.length())) {
+                return position;
+            }
+        }
+        return -1;
     }
 
-    private static class CacheKey
+    private static int findKey(Block keys, double key)
     {
-        private final String key;
-        private final ExtractorType type;
-
-        private CacheKey(String key, ExtractorType type)
-        {
-            this.key = key;
-            this.type = type;
-        }
-
-        public String getKey()
-        {
-            return key;
-        }
-
-        public ExtractorType getType()
-        {
-            return type;
+        for (int position = 0; position < keys.getPositionCount(); position++) {
+            if (!keys.isNull(position) && keys.getDouble(position, 0) == key) {
+                return position;
+            }
         }
+        return -1;
+    }
 
-        @Override
-        public boolean equals(Object o)
-        {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
+    private static int findKey(Block keys, boolean key)
+    {
+        for (int position = 0; position < keys.getPositionCount(); position++) {
+            if (!keys.isNull(position) && (keys.getByte(position, 0) != 0) == key) {
+                return position;
             }
+        }
+        return -1;
+    }
 
-            CacheKey cacheKey = (CacheKey) o;
-
-            if (!key.equals(cacheKey.key)) {
-                return false;
-            }
-            if (type != cacheKey.type) {
-                return false;
+    private static int findKey(Block keys, long key)
+    {
+        for (int position = 0; position < keys.getPositionCount(); position++) {
+            if (!keys.isNull(position) && keys.getLong(position, 0) == key) {
+                return position;
             }
-
-            return true;
         }
+        return -1;
+    }
 
-        @Override
-        public int hashCode()
-        {
-            int result = key.hashCode();
-            result = 31 * result + type.hashCode();
-            return result;
+    private static Long longValue(Block values, int position)
+    {
+        if (values.isNull(position)) {
+            return null;
         }
+        return values.getLong(position, 0);
     }
 
-    private enum ExtractorType
+    private static Boolean booleanValue(Block values, int position)
     {
-        LONG(new LongJsonExtractor()),
-        BOOLEAN(new BooleanJsonExtractor()),
-        DOUBLE(new DoubleJsonExtractor()),
-        SLICE(new ScalarValueJsonExtractor()),
-        STRUCTURAL(new JsonValueJsonExtractor());
-
-        private final JsonExtractor<?> extractor;
+        if (values.isNull(position)) {
+            return null;
+        }
+        return values.getByte(position, 0) != 0;
+    }
 
-        ExtractorType(JsonExtractor<?> extractor)
-        {
-            this.extractor = extractor;
+    private static Double doubleValue(Block values, int position)
+    {
+        if (values.isNull(position)) {
+            return null;
         }
+        return values.getDouble(position, 0);
+    }
 
-        public JsonExtractor<?> getExtractor()
-        {
-            return extractor;
+    private static Slice sliceValue(Block values, int position)
+    {
+        if (values.isNull(position)) {
+            return null;
         }
+        return values.getSlice(position, 0, values.getLength(position));
     }
 }
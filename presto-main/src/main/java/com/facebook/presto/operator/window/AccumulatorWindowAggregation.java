@@ -0,0 +1,108 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.aggregation.Accumulator;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Evaluates any aggregation function through its accumulator. When the frame always starts
+ * at the beginning of the partition, rows are added to a single accumulator as the frame
+ * grows. Otherwise, rows cannot be removed from an accumulator, so each frame is aggregated
+ * with a new one.
+ */
+class AccumulatorWindowAggregation
+        implements WindowAggregation
+{
+    private final List<Integer> argumentChannels;
+    private final Type finalType;
+    private final AccumulatorFactory accumulatorFactory;
+    private final boolean cumulative;
+
+    private PagesIndex pagesIndex;
+    private List<Type> argumentTypes;
+
+    private Accumulator accumulator;
+    private int accumulatedEnd;
+
+    public AccumulatorWindowAggregation(InternalAggregationFunction function, List<Integer> argumentChannels, boolean cumulative)
+    {
+        checkNotNull(function, "function is null");
+        this.argumentChannels = ImmutableList.copyOf(checkNotNull(argumentChannels, "argumentChannels is null"));
+        this.finalType = function.getFinalType();
+        this.cumulative = cumulative;
+
+        // the accumulator reads the arguments from pages that only contain the argument channels
+        ImmutableList.Builder<Integer> inputChannels = ImmutableList.builder();
+        for (int i = 0; i < argumentChannels.size(); i++) {
+            inputChannels.add(i);
+        }
+        this.accumulatorFactory = function.bind(inputChannels.build(), Optional.<Integer>absent(), Optional.<Integer>absent(), 1.0);
+    }
+
+    @Override
+    public void reset(PagesIndex pagesIndex, int partitionStart, int partitionEnd)
+    {
+        if (this.pagesIndex != pagesIndex) {
+            this.pagesIndex = pagesIndex;
+            ImmutableList.Builder<Type> argumentTypes = ImmutableList.builder();
+            for (int channel : argumentChannels) {
+                argumentTypes.add(pagesIndex.getType(channel));
+            }
+            this.argumentTypes = argumentTypes.build();
+        }
+        accumulator = null;
+    }
+
+    @Override
+    public void evaluate(int frameStart, int frameEnd, BlockBuilder output)
+    {
+        if (accumulator == null || !cumulative) {
+            accumulator = accumulatorFactory.createAccumulator();
+            accumulatedEnd = frameStart;
+        }
+        if (accumulatedEnd < frameEnd) {
+            accumulator.addInput(buildPage(accumulatedEnd, frameEnd));
+            accumulatedEnd = frameEnd;
+        }
+
+        Block result = accumulator.evaluateFinal();
+        finalType.appendTo(result, 0, output);
+    }
+
+    private Page buildPage(int start, int end)
+    {
+        PageBuilder pageBuilder = new PageBuilder(argumentTypes);
+        for (int position = start; position < end; position++) {
+            pageBuilder.declarePosition();
+            for (int i = 0; i < argumentChannels.size(); i++) {
+                pagesIndex.appendTo(argumentChannels.get(i), position, pageBuilder.getBlockBuilder(i));
+            }
+        }
+        return pageBuilder.build();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+import com.facebook.presto.operator.window.InvertibleWindowAggregation.CountAggregation;
+import com.facebook.presto.operator.window.InvertibleWindowAggregation.CountAllAggregation;
+import com.facebook.presto.operator.window.InvertibleWindowAggregation.DoubleSumAggregation;
+import com.facebook.presto.operator.window.InvertibleWindowAggregation.LongSumAggregation;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
+
+import java.util.List;
+
+import static com.facebook.presto.operator.window.FrameInfo.BoundType.UNBOUNDED_PRECEDING;
+import static com.facebook.presto.operator.window.FrameInfo.FrameType.RANGE;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Runs an aggregation function as a window function over the frame of each row.
+ * Frames only move forward through a partition, so the aggregation is evaluated
+ * incrementally: count, sum and avg add the rows entering the frame and remove the rows
+ * leaving it, min and max use a segment tree, and other functions fall back to an
+ * accumulator.
+ */
+public class AggregateWindowFunction
+        implements WindowFunction
+{
+    private final Type type;
+    private final FrameInfo frameInfo;
+    private final WindowAggregation aggregation;
+
+    private int partitionStart;
+    private int partitionRowCount;
+    private int currentPosition = -1;
+
+    private int peerGroupStart;
+    private int peerGroupEnd;
+
+    public AggregateWindowFunction(Signature signature, InternalAggregationFunction function, List<Integer> argumentChannels, FrameInfo frameInfo)
+    {
+        checkNotNull(signature, "signature is null");
+        checkNotNull(function, "function is null");
+        checkNotNull(argumentChannels, "argumentChannels is null");
+        this.type = function.getFinalType();
+        this.frameInfo = checkNotNull(frameInfo, "frameInfo is null");
+        this.aggregation = createAggregation(signature, function, argumentChannels, frameInfo);
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public void reset(int partitionRowCount, PagesIndex pagesIndex)
+    {
+        this.partitionStart += this.partitionRowCount;
+        // start before the first row of the partition
+        this.currentPosition = partitionStart - 1;
+
+        this.partitionRowCount = partitionRowCount;
+
+        aggregation.reset(pagesIndex, partitionStart, partitionStart + partitionRowCount);
+    }
+
+    @Override
+    public void processRow(BlockBuilder output, boolean newPeerGroup, int peerGroupCount)
+    {
+        currentPosition++;
+        if (newPeerGroup) {
+            peerGroupStart = currentPosition;
+            peerGroupEnd = currentPosition + peerGroupCount;
+        }
+
+        int partitionEnd = partitionStart + partitionRowCount;
+        long frameStart = getFrameStart();
+        long frameEnd = getFrameEnd();
+
+        // clip the frame to the partition
+        int start = (int) Math.min(Math.max(frameStart, partitionStart), partitionEnd);
+        int end = (int) Math.min(Math.max(frameEnd, start), partitionEnd);
+
+        aggregation.evaluate(start, end, output);
+    }
+
+    private long getFrameStart()
+    {
+        switch (frameInfo.getStartType()) {
+            case UNBOUNDED_PRECEDING:
+                return partitionStart;
+            case PRECEDING:
+                return currentPosition - frameInfo.getStartOffset();
+            case CURRENT_ROW:
+                return frameInfo.getType() == RANGE ? peerGroupStart : currentPosition;
+            case FOLLOWING:
+                return currentPosition + frameInfo.getStartOffset();
+            default:
+                throw new IllegalStateException("Unsupported frame start: " + frameInfo.getStartType());
+        }
+    }
+
+    /**
+     * Gets the position after the last row of the frame.
+     */
+    private long getFrameEnd()
+    {
+        switch (frameInfo.getEndType()) {
+            case PRECEDING:
+                return currentPosition - frameInfo.getEndOffset() + 1;
+            case CURRENT_ROW:
+                return frameInfo.getType() == RANGE ? peerGroupEnd : currentPosition + 1;
+            case FOLLOWING:
+                return currentPosition + frameInfo.getEndOffset() + 1;
+            case UNBOUNDED_FOLLOWING:
+                return partitionStart + partitionRowCount;
+            default:
+                throw new IllegalStateException("Unsupported frame end: " + frameInfo.getEndType());
+        }
+    }
+
+    private static WindowAggregation createAggregation(Signature signature, InternalAggregationFunction function, List<Integer> argumentChannels, FrameInfo frameInfo)
+    {
+        List<String> argumentTypes = signature.getArgumentTypes();
+        if (signature.getName().equals("count")) {
+            if (argumentTypes.isEmpty()) {
+                return new CountAllAggregation();
+            }
+            return new CountAggregation(argumentChannels.get(0));
+        }
+
+        if (argumentTypes.size() == 1) {
+            int channel = argumentChannels.get(0);
+            String argumentType = argumentTypes.get(0);
+            switch (signature.getName()) {
+                case "sum":
+                case "avg":
+                    boolean average = signature.getName().equals("avg");
+                    if (argumentType.equals(StandardTypes.BIGINT)) {
+                        return new LongSumAggregation(channel, average);
+                    }
+                    if (argumentType.equals(StandardTypes.DOUBLE)) {
+                        return new DoubleSumAggregation(channel, average);
+                    }
+                    break;
+                case "min":
+                    return new SegmentTreeWindowAggregation(channel, false);
+                case "max":
+                    return new SegmentTreeWindowAggregation(channel, true);
+            }
+        }
+
+        return new AccumulatorWindowAggregation(function, argumentChannels, frameInfo.getStartType() == UNBOUNDED_PRECEDING);
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.aggregation.InternalAggregationFunction;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+public class AggregateWindowFunctionSupplier
+        extends AbstractWindowFunctionSupplier
+{
+    private final InternalAggregationFunction function;
+    private final FrameInfo frameInfo;
+
+    public AggregateWindowFunctionSupplier(Signature signature, InternalAggregationFunction function, FrameInfo frameInfo)
+    {
+        super(signature, null);
+        this.function = checkNotNull(function, "function is null");
+        this.frameInfo = checkNotNull(frameInfo, "frameInfo is null");
+    }
+
+    @Override
+    protected WindowFunction newWindowFunction(List<Integer> inputs)
+    {
+        return new AggregateWindowFunction(getSignature(), function, inputs, frameInfo);
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.google.common.base.Objects;
+
+import static com.facebook.presto.operator.window.FrameInfo.BoundType.CURRENT_ROW;
+import static com.facebook.presto.operator.window.FrameInfo.BoundType.UNBOUNDED_PRECEDING;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The frame of an aggregate window function. Offsets are only meaningful for
+ * {@code PRECEDING} and {@code FOLLOWING} bounds.
+ */
+public class FrameInfo
+{
+    public enum FrameType
+    {
+        RANGE,
+        ROWS
+    }
+
+    public enum BoundType
+    {
+        UNBOUNDED_PRECEDING,
+        PRECEDING,
+        CURRENT_ROW,
+        FOLLOWING,
+        UNBOUNDED_FOLLOWING
+    }
+
+    /**
+     * The frame used when the window does not specify one.
+     */
+    public static final FrameInfo DEFAULT_FRAME = new FrameInfo(FrameType.RANGE, UNBOUNDED_PRECEDING, 0, CURRENT_ROW, 0);
+
+    private final FrameType type;
+    private final BoundType startType;
+    private final long startOffset;
+    private final BoundType endType;
+    private final long endOffset;
+
+    public FrameInfo(FrameType type, BoundType startType, long startOffset, BoundType endType, long endOffset)
+    {
+        this.type = checkNotNull(type, "type is null");
+        this.startType = checkNotNull(startType, "startType is null");
+        this.endType = checkNotNull(endType, "endType is null");
+
+        checkArgument(startOffset >= 0, "startOffset is negative");
+        checkArgument(endOffset >= 0, "endOffset is negative");
+        this.startOffset = startOffset;
+        this.endOffset = endOffset;
+    }
+
+    public FrameType getType()
+    {
+        return type;
+    }
+
+    public BoundType getStartType()
+    {
+        return startType;
+    }
+
+    public long getStartOffset()
+    {
+        return startOffset;
+    }
+
+    public BoundType getEndType()
+    {
+        return endType;
+    }
+
+    public long getEndOffset()
+    {
+        return endOffset;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hashCode(type, startType, startOffset, endType, endOffset);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        FrameInfo other = (FrameInfo) obj;
+        return Objects.equal(this.type, other.type) &&
+                Objects.equal(this.startType, other.startType) &&
+                Objects.equal(this.startOffset, other.startOffset) &&
+                Objects.equal(this.endType, other.endType) &&
+                Objects.equal(this.endOffset, other.endOffset);
+    }
+
+    @Override
+    public String toString()
+    {
+        return Objects.toStringHelper(this)
+                .add("type", type)
+                .add("startType", startType)
+                .add("startOffset", startOffset)
+                .add("endType", endType)
+                .add("endOffset", endOffset)
+                .toString();
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.block.BlockBuilder;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+
+/**
+ * An aggregation whose rows can be removed as well as added, so moving the frame only
+ * touches the rows that enter or leave it.
+ */
+abstract class InvertibleWindowAggregation
+        implements WindowAggregation
+{
+    protected PagesIndex pagesIndex;
+
+    // the rows currently in the aggregation
+    private int start;
+    private int end;
+
+    @Override
+    public void reset(PagesIndex pagesIndex, int partitionStart, int partitionEnd)
+    {
+        this.pagesIndex = pagesIndex;
+        start = partitionStart;
+        end = partitionStart;
+        clear();
+    }
+
+    @Override
+    public void evaluate(int frameStart, int frameEnd, BlockBuilder output)
+    {
+        if (frameStart >= end) {
+            // the frames do not overlap
+            clear();
+            start = frameStart;
+            end = frameStart;
+        }
+        while (end < frameEnd) {
+            add(end);
+            end++;
+        }
+        while (start < frameStart) {
+            remove(start);
+            start++;
+        }
+        output(output);
+    }
+
+    protected abstract void clear();
+
+    protected abstract void add(int position);
+
+    protected abstract void remove(int position);
+
+    protected abstract void output(BlockBuilder output);
+
+    public static class CountAllAggregation
+            extends InvertibleWindowAggregation
+    {
+        private long count;
+
+        @Override
+        protected void clear()
+        {
+            count = 0;
+        }
+
+        @Override
+        protected void add(int position)
+        {
+            count++;
+        }
+
+        @Override
+        protected void remove(int position)
+        {
+            count--;
+        }
+
+        @Override
+        protected void output(BlockBuilder output)
+        {
+            BIGINT.writeLong(output, count);
+        }
+    }
+
+    public static class CountAggregation
+            extends InvertibleWindowAggregation
+    {
+        private final int channel;
+        private long count;
+
+        public CountAggregation(int channel)
+        {
+            this.channel = channel;
+        }
+
+        @Override
+        protected void clear()
+        {
+            count = 0;
+        }
+
+        @Override
+        protected void add(int position)
+        {
+            if (!pagesIndex.isNull(channel, position)) {
+                count++;
+            }
+        }
+
+        @Override
+        protected void remove(int position)
+        {
+            if (!pagesIndex.isNull(channel, position)) {
+                count--;
+            }
+        }
+
+        @Override
+        protected void output(BlockBuilder output)
+        {
+            BIGINT.writeLong(output, count);
+        }
+    }
+
+    public static class LongSumAggregation
+            extends InvertibleWindowAggregation
+    {
+        private final int channel;
+        private final boolean average;
+        private long sum;
+        private long count;
+
+        public LongSumAggregation(int channel, boolean average)
+        {
+            this.channel = channel;
+            this.average = average;
+        }
+
+        @Override
+        protected void clear()
+        {
+            sum = 0;
+            count = 0;
+        }
+
+        @Override
+        protected void add(int position)
+        {
+            if (!pagesIndex.isNull(channel, position)) {
+                sum += pagesIndex.getLong(channel, position);
+                count++;
+            }
+        }
+
+        @Override
+        protected void remove(int position)
+        {
+            if (!pagesIndex.isNull(channel, position)) {
+                sum -= pagesIndex.getLong(channel, position);
+                count--;
+            }
+        }
+
+        @Override
+        protected void output(BlockBuilder output)
+        {
+            if (count == 0) {
+                output.appendNull();
+            }
+            else if (average) {
+                DOUBLE.writeDouble(output, ((double) sum) / count);
+            }
+            else {
+                BIGINT.writeLong(output, sum);
+            }
+        }
+    }
+
+    /**
+     * Removing an infinite value from a sum would turn it into NaN, so only finite values are
+     * summed, and the non-finite values are counted.
+     */
+    public static class DoubleSumAggregation
+            extends InvertibleWindowAggregation
+    {
+        private final int channel;
+        private final boolean average;
+        private double sum;
+        private long count;
+        private long nanCount;
+        private long positiveInfinityCount;
+        private long negativeInfinityCount;
+
+        public DoubleSumAggregation(int channel, boolean average)
+        {
+            this.channel = channel;
+            this.average = average;
+        }
+
+        @Override
+        protected void clear()
+        {
+            sum = 0;
+            count = 0;
+            nanCount = 0;
+            positiveInfinityCount = 0;
+            negativeInfinityCount = 0;
+        }
+
+        @Override
+        protected void add(int position)
+        {
+            if (!pagesIndex.isNull(channel, position)) {
+                update(pagesIndex.getDouble(channel, position), 1);
+            }
+        }
+
+        @Override
+        protected void remove(int position)
+        {
+            if (!pagesIndex.isNull(channel, position)) {
+                update(pagesIndex.getDouble(channel, position), -1);
+            }
+        }
+
+        private void update(double value, int delta)
+        {
+            count += delta;
+            if (Double.isNaN(value)) {
+                nanCount += delta;
+            }
+            else if (value == Double.POSITIVE_INFINITY) {
+                positiveInfinityCount += delta;
+            }
+            else if (value == Double.NEGATIVE_INFINITY) {
+                negativeInfinityCount += delta;
+            }
+            else {
+                sum += delta * value;
+            }
+        }
+
+        @Override
+        protected void output(BlockBuilder output)
+        {
+            if (count == 0) {
+                output.appendNull();
+                return;
+            }
+
+            double result;
+            if (nanCount > 0 || (positiveInfinityCount > 0 && negativeInfinityCount > 0)) {
+                result = Double.NaN;
+            }
+            else if (positiveInfinityCount > 0) {
+                result = Double.POSITIVE_INFINITY;
+            }
+            else if (negativeInfinityCount > 0) {
+                result = Double.NEGATIVE_INFINITY;
+            }
+            else {
+                result = sum;
+            }
+
+            if (average) {
+                result /= count;
+            }
+            DOUBLE.writeDouble(output, result);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.SortOrder;
+import com.google.common.collect.ImmutableList;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+
+/**
+ * Computes min or max over arbitrary frames with a segment tree over the positions of the
+ * partition. Building the tree is linear in the partition size, and each frame is
+ * evaluated in logarithmic time.
+ */
+class SegmentTreeWindowAggregation
+        implements WindowAggregation
+{
+    private static final int NULL_POSITION = -1;
+
+    private final int channel;
+    private final boolean max;
+
+    private PagesIndex pagesIndex;
+    private IntComparator comparator;
+
+    private int partitionStart;
+    private int size;
+
+    // the leaves are at [size, 2 * size), and each inner node holds the
+    // position of the extreme value of its children, or NULL_POSITION
+    private int[] tree = new int[0];
+
+    public SegmentTreeWindowAggregation(int channel, boolean max)
+    {
+        this.channel = channel;
+        this.max = max;
+    }
+
+    @Override
+    public void reset(PagesIndex pagesIndex, int partitionStart, int partitionEnd)
+    {
+        if (this.pagesIndex != pagesIndex) {
+            this.pagesIndex = pagesIndex;
+            this.comparator = pagesIndex.createComparator(
+                    ImmutableList.of(pagesIndex.getType(channel)),
+                    ImmutableList.of(channel),
+                    ImmutableList.<SortOrder>of(ASC_NULLS_LAST));
+        }
+
+        this.partitionStart = partitionStart;
+        this.size = partitionEnd - partitionStart;
+        if (tree.length < 2 * size) {
+            tree = new int[2 * size];
+        }
+
+        for (int i = 0; i < size; i++) {
+            int position = partitionStart + i;
+            tree[size + i] = pagesIndex.isNull(channel, position) ? NULL_POSITION : position;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            tree[node] = select(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    @Override
+    public void evaluate(int frameStart, int frameEnd, BlockBuilder output)
+    {
+        int result = NULL_POSITION;
+        int left = frameStart - partitionStart + size;
+        int right = frameEnd - partitionStart + size;
+        while (left < right) {
+            if ((left & 1) == 1) {
+                result = select(result, tree[left]);
+                left++;
+            }
+            if ((right & 1) == 1) {
+                right--;
+                result = select(result, tree[right]);
+            }
+            left >>>= 1;
+            right >>>= 1;
+        }
+
+        if (result == NULL_POSITION) {
+            output.appendNull();
+        }
+        else {
+            pagesIndex.appendTo(channel, result, output);
+        }
+    }
+
+    private int select(int left, int right)
+    {
+        if (left == NULL_POSITION) {
+            return right;
+        }
+        if (right == NULL_POSITION) {
+            return left;
+        }
+        int compare = comparator.compare(left, right);
+        if (max) {
+            return compare >= 0 ? left : right;
+        }
+        return compare <= 0 ? left : right;
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.block.BlockBuilder;
+
+/**
+ * Evaluates an aggregation over the frames of the rows of a partition. Frames are ranges of
+ * positions in the pages index, and neither end of the frame moves backwards within a partition.
+ */
+interface WindowAggregation
+{
+    void reset(PagesIndex pagesIndex, int partitionStart, int partitionEnd);
+
+    /**
+     * Outputs the aggregation of the positions {@code [frameStart, frameEnd)}. The frame is empty
+     * when the positions are equal.
+     */
+    void evaluate(int frameStart, int frameEnd, BlockBuilder output);
+}
@@ -28,6 +28,7 @@ import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.TaskStats;
@@ -37,6 +38,7 @@ import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.util.SetThreadName;
 import com.google.common.base.Function;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
@@ -107,10 +109,15 @@ public class HttpRemoteTask
     private final PlanFragment planFragment;
     private final int maxConsecutiveErrorCount;
     private final Duration minErrorDuration;
+    private final Duration taskInfoRefreshInterval;
 
     private final AtomicLong nextSplitId = new AtomicLong();
 
     private final StateMachine<TaskInfo> taskInfo;
+    private final AtomicReference<TaskStatus> taskStatus = new AtomicReference<>();
+
+    // full task info is only fetched when requested, and at most once per refresh interval
+    private final AtomicLong nextTaskInfoRefreshNanos = new AtomicLong(System.nanoTime());
 
     @GuardedBy("this")
     private Future<?> currentRequest;
@@ -124,11 +131,20 @@ public class HttpRemoteTask
     @GuardedBy("this")
     private final AtomicReference<OutputBuffers> outputBuffers = new AtomicReference<>();
 
+    // state acknowledged by the worker, which does not need to be sent again
+    @GuardedBy("this")
+    private boolean planAcknowledged;
     @GuardedBy("this")
-    private ContinuousTaskInfoFetcher continuousTaskInfoFetcher;
+    private long acknowledgedOutputBuffersVersion = -1;
+    @GuardedBy("this")
+    private final Set<PlanNodeId> acknowledgedNoMoreSplits = new HashSet<>();
+
+    @GuardedBy("this")
+    private ContinuousTaskStatusFetcher continuousTaskStatusFetcher;
 
     private final HttpClient httpClient;
     private final Executor executor;
+    private final JsonCodec<TaskStatus> taskStatusCodec;
     private final JsonCodec<TaskInfo> taskInfoCodec;
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
 
@@ -151,6 +167,8 @@ public class HttpRemoteTask
             Executor executor,
             int maxConsecutiveErrorCount,
             Duration minErrorDuration,
+            Duration taskInfoRefreshInterval,
+            JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
     {
@@ -162,6 +180,8 @@ public class HttpRemoteTask
         checkNotNull(outputBuffers, "outputBuffers is null");
         checkNotNull(httpClient, "httpClient is null");
         checkNotNull(executor, "executor is null");
+        checkNotNull(taskInfoRefreshInterval, "taskInfoRefreshInterval is null");
+        checkNotNull(taskStatusCodec, "taskStatusCodec is null");
         checkNotNull(taskInfoCodec, "taskInfoCodec is null");
         checkNotNull(taskUpdateRequestCodec, "taskUpdateRequestCodec is null");
 
@@ -173,10 +193,12 @@ public class HttpRemoteTask
             this.outputBuffers.set(outputBuffers);
             this.httpClient = httpClient;
             this.executor = executor;
+            this.taskStatusCodec = taskStatusCodec;
             this.taskInfoCodec = taskInfoCodec;
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
             this.maxConsecutiveErrorCount = maxConsecutiveErrorCount;
             this.minErrorDuration = minErrorDuration;
+            this.taskInfoRefreshInterval = taskInfoRefreshInterval;
 
             for (Entry<PlanNodeId, Split> entry : checkNotNull(initialSplits, "initialSplits is null").entries()) {
                 ScheduledSplit scheduledSplit = new ScheduledSplit(nextSplitId.getAndIncrement(), entry.getValue());
@@ -204,6 +226,7 @@ public class HttpRemoteTask
                     ImmutableSet.<PlanNodeId>of(),
                     taskStats,
                     ImmutableList.<ExecutionFailureInfo>of()));
+            taskStatus.set(TaskStatus.fromTaskInfo(taskInfo.get()));
         }
     }
 
@@ -219,6 +242,12 @@ public class HttpRemoteTask
         return taskInfo.get();
     }
 
+    @Override
+    public TaskStatus getTaskStatus()
+    {
+        return taskStatus.get();
+    }
+
     @Override
     public void start()
     {
@@ -237,7 +266,7 @@ public class HttpRemoteTask
             checkState(!noMoreSplits.contains(sourceId), "noMoreSplits has already been set for %s", sourceId);
 
             // only add pending split if not done
-            if (!getTaskInfo().getState().isDone()) {
+            if (!taskStatus.get().getState().isDone()) {
                 for (Split split : splits) {
                     pendingSplits.put(sourceId, new ScheduledSplit(nextSplitId.getAndIncrement(), split));
                 }
@@ -263,7 +292,7 @@ public class HttpRemoteTask
     public synchronized void setOutputBuffers(OutputBuffers newOutputBuffers)
     {
         try (SetThreadName ignored = new SetThreadName("HttpRemoteTask-%s", taskId)) {
-            if (getTaskInfo().getState().isDone()) {
+            if (taskStatus.get().getState().isDone()) {
                 return;
             }
 
@@ -279,14 +308,15 @@ public class HttpRemoteTask
     public synchronized int getPartitionedSplitCount()
     {
         int splitCount = pendingSplits.get(planFragment.getPartitionedSource()).size();
-        return splitCount + taskInfo.get().getStats().getQueuedPartitionedDrivers() + taskInfo.get().getStats().getRunningPartitionedDrivers();
+        TaskStatus taskStatus = this.taskStatus.get();
+        return splitCount + taskStatus.getQueuedPartitionedDrivers() + taskStatus.getRunningPartitionedDrivers();
     }
 
     @Override
     public synchronized int getQueuedPartitionedSplitCount()
     {
         int splitCount = pendingSplits.get(planFragment.getPartitionedSource()).size();
-        return splitCount + taskInfo.get().getStats().getQueuedPartitionedDrivers();
+        return splitCount + taskStatus.get().getQueuedPartitionedDrivers();
     }
 
     @Override
@@ -312,7 +342,55 @@ public class HttpRemoteTask
         }
     }
 
-    private synchronized void updateTaskInfo(final TaskInfo newValue)
+    private synchronized void updateTaskStatus(TaskStatus newValue)
+    {
+        TaskStatus oldValue = taskStatus.get();
+        if (oldValue.getState().isDone() || newValue.getVersion() < oldValue.getVersion()) {
+            // never update if the task has reached a terminal state, or to an older version
+            return;
+        }
+        taskStatus.set(newValue);
+
+        if (newValue.getState().isDone()) {
+            // splits can be huge so clear the list
+            pendingSplits.clear();
+
+            // fetch the final info before recording the terminal state, so listeners see the final stats
+            fetchTaskInfo(new TaskInfoResponseHandler(true));
+            return;
+        }
+
+        setTaskInfo(mergeTaskStatus(newValue));
+    }
+
+    private TaskInfo mergeTaskStatus(TaskStatus taskStatus)
+    {
+        // keep the last stats, which are only refreshed with the full task info
+        TaskInfo taskInfo = this.taskInfo.get();
+        SharedBufferInfo outputBuffers = taskInfo.getOutputBuffers();
+        return new TaskInfo(taskStatus.getTaskId(),
+                taskStatus.getVersion(),
+                taskStatus.getState(),
+                taskStatus.getSelf(),
+                DateTime.now(),
+                new SharedBufferInfo(taskStatus.getBufferState(), outputBuffers.getMasterSequenceId(), outputBuffers.getPagesAdded(), outputBuffers.getBuffers()),
+                taskInfo.getNoMoreSplits(),
+                taskInfo.getStats(),
+                taskStatus.getFailures());
+    }
+
+    private synchronized void updateTaskInfo(TaskInfo newValue)
+    {
+        if (!setTaskInfo(newValue)) {
+            return;
+        }
+
+        if (newValue.getState().isDone() || newValue.getVersion() >= taskStatus.get().getVersion()) {
+            taskStatus.set(TaskStatus.fromTaskInfo(newValue));
+        }
+    }
+
+    private synchronized boolean setTaskInfo(final TaskInfo newValue)
     {
         if (newValue.getState().isDone()) {
             // splits can be huge so clear the list
@@ -320,7 +398,7 @@ public class HttpRemoteTask
         }
 
         // change to new value if old value is not changed and new value has a newer version
-        taskInfo.setIf(newValue, new Predicate<TaskInfo>()
+        return taskInfo.setIf(newValue, new Predicate<TaskInfo>()
         {
             @Override
             public boolean apply(TaskInfo oldValue)
@@ -341,7 +419,7 @@ public class HttpRemoteTask
     private synchronized void scheduleUpdate()
     {
         // don't update if the task hasn't been started yet or if it is already finished
-        if (!needsUpdate.get() || taskInfo.get().getState().isDone()) {
+        if (!needsUpdate.get() || taskStatus.get().getState().isDone()) {
             return;
         }
 
@@ -363,19 +441,29 @@ public class HttpRemoteTask
             errorRequestRateLimiter.acquire();
         }
 
-        List<TaskSource> sources = getSources();
+        // only send the fragment until the task has been created, and the output buffers when they change
+        Optional<PlanFragment> fragment = Optional.absent();
+        if (!planAcknowledged) {
+            fragment = Optional.of(planFragment);
+        }
+        Optional<OutputBuffers> outputIds = Optional.absent();
+        OutputBuffers outputBuffers = this.outputBuffers.get();
+        if (outputBuffers.getVersion() > acknowledgedOutputBuffersVersion) {
+            outputIds = Optional.of(outputBuffers);
+        }
+
         TaskUpdateRequest updateRequest = new TaskUpdateRequest(session,
-                planFragment,
-                sources,
-                outputBuffers.get());
+                fragment,
+                getSources(),
+                outputIds);
 
         Request request = preparePost()
-                .setUri(uriBuilderFrom(taskInfo.get().getSelf()).addParameter("summarize").build())
+                .setUri(taskStatus.get().getSelf())
                 .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
                 .setBodyGenerator(jsonBodyGenerator(taskUpdateRequestCodec, updateRequest))
                 .build();
 
-        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        ListenableFuture<JsonResponse<TaskStatus>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskStatusCodec));
         currentRequest = future;
         currentRequestStartNanos = System.nanoTime();
 
@@ -383,7 +471,7 @@ public class HttpRemoteTask
         // and does so without grabbing the instance lock.
         needsUpdate.set(false);
 
-        Futures.addCallback(future, new SimpleHttpResponseHandler<>(new UpdateResponseHandler(sources), request.getUri()), executor);
+        Futures.addCallback(future, new SimpleHttpResponseHandler<>(new UpdateResponseHandler(updateRequest), request.getUri()), executor);
     }
 
     private synchronized List<TaskSource> getSources()
@@ -392,7 +480,7 @@ public class HttpRemoteTask
         for (PlanNodeId planNodeId : planFragment.getSourceIds()) {
             Set<ScheduledSplit> splits = pendingSplits.get(planNodeId);
             boolean noMoreSplits = this.noMoreSplits.contains(planNodeId);
-            if (!splits.isEmpty() || noMoreSplits) {
+            if (!splits.isEmpty() || (noMoreSplits && !acknowledgedNoMoreSplits.contains(planNodeId))) {
                 sources.add(new TaskSource(planNodeId, splits, noMoreSplits));
             }
         }
@@ -414,7 +502,7 @@ public class HttpRemoteTask
             }
 
             // mark task as canceled (if not already done)
-            TaskInfo taskInfo = getTaskInfo();
+            TaskInfo taskInfo = this.taskInfo.get();
             updateTaskInfo(new TaskInfo(taskInfo.getTaskId(),
                     TaskInfo.MAX_VERSION,
                     TaskState.CANCELED,
@@ -460,10 +548,10 @@ public class HttpRemoteTask
         }
     }
 
-    private synchronized void requestSucceeded(TaskInfo newValue, List<TaskSource> sources)
+    private synchronized void requestSucceeded(TaskStatus newValue, List<TaskSource> sources)
     {
         try (SetThreadName ignored = new SetThreadName("HttpRemoteTask-%s", taskId)) {
-            updateTaskInfo(newValue);
+            updateTaskStatus(newValue);
             lastSuccessfulRequest.set(System.nanoTime());
             errorCount.set(0);
             errorsSinceLastSuccess.clear();
@@ -476,9 +564,25 @@ public class HttpRemoteTask
                 }
             }
 
-            if (continuousTaskInfoFetcher == null) {
-                continuousTaskInfoFetcher = new ContinuousTaskInfoFetcher();
-                continuousTaskInfoFetcher.start();
+            if (continuousTaskStatusFetcher == null) {
+                continuousTaskStatusFetcher = new ContinuousTaskStatusFetcher();
+                continuousTaskStatusFetcher.start();
+            }
+        }
+    }
+
+    private synchronized void updateAcknowledged(TaskUpdateRequest updateRequest)
+    {
+        // a successful update means the task exists on the worker
+        planAcknowledged = true;
+
+        if (updateRequest.getOutputIds().isPresent()) {
+            acknowledgedOutputBuffersVersion = Math.max(acknowledgedOutputBuffersVersion, updateRequest.getOutputIds().get().getVersion());
+        }
+
+        for (TaskSource source : updateRequest.getSources()) {
+            if (source.isNoMoreSplits()) {
+                acknowledgedNoMoreSplits.add(source.getPlanNodeId());
             }
         }
     }
@@ -491,18 +595,18 @@ public class HttpRemoteTask
         }
 
         // if task is done, ignore the error
-        TaskInfo taskInfo = getTaskInfo();
-        if (taskInfo.getState().isDone()) {
+        TaskStatus taskStatus = this.taskStatus.get();
+        if (taskStatus.getState().isDone()) {
             return;
         }
 
         // log failure message
         if (isSocketError(reason)) {
             // don't print a stack for a socket error
-            log.warn("Error updating task %s: %s: %s", taskInfo.getTaskId(), reason.getMessage(), taskInfo.getSelf());
+            log.warn("Error updating task %s: %s: %s", taskStatus.getTaskId(), reason.getMessage(), taskStatus.getSelf());
         }
         else {
-            log.warn(reason, "Error updating task %s: %s", taskInfo.getTaskId(), taskInfo.getSelf());
+            log.warn(reason, "Error updating task %s: %s", taskStatus.getTaskId(), taskStatus.getSelf());
         }
 
         // remember the first 10 errors
@@ -517,7 +621,7 @@ public class HttpRemoteTask
             // it is weird to mark the task failed locally and then cancel the remote task, but there is no way to tell a remote task that it is failed
             PrestoException exception = new PrestoException(TOO_MANY_REQUESTS_FAILED.toErrorCode(),
                     format("Encountered too many errors talking to a worker node. The node may have crashed or be under too much load. This is probably a transient issue, so please retry your query in a few minutes (%s - %s failures, time since last success %s)",
-                    taskInfo.getSelf(),
+                    taskStatus.getSelf(),
                     errorCount,
                     timeSinceLastSuccess.convertToMostSuccinctTimeUnit()));
             for (Throwable error : errorsSinceLastSuccess) {
@@ -533,7 +637,7 @@ public class HttpRemoteTask
      */
     private void failTask(Throwable cause)
     {
-        TaskInfo taskInfo = getTaskInfo();
+        TaskInfo taskInfo = this.taskInfo.get();
         if (!taskInfo.getState().isDone()) {
             log.debug(cause, "Remote task failed: %s", taskInfo.getSelf());
         }
@@ -552,26 +656,27 @@ public class HttpRemoteTask
     public String toString()
     {
         return Objects.toStringHelper(this)
-                .addValue(getTaskInfo())
+                .addValue(taskStatus.get())
                 .toString();
     }
 
     private class UpdateResponseHandler
-            implements SimpleHttpResponseCallback<TaskInfo>
+            implements SimpleHttpResponseCallback<TaskStatus>
     {
-        private final List<TaskSource> sources;
+        private final TaskUpdateRequest updateRequest;
 
-        private UpdateResponseHandler(List<TaskSource> sources)
+        private UpdateResponseHandler(TaskUpdateRequest updateRequest)
         {
-            this.sources = ImmutableList.copyOf(checkNotNull(sources, "sources is null"));
+            this.updateRequest = checkNotNull(updateRequest, "updateRequest is null");
         }
 
         @Override
-        public void success(TaskInfo value)
+        public void success(TaskStatus value)
         {
             try (SetThreadName ignored = new SetThreadName("UpdateResponseHandler-%s", taskId)) {
                 try {
-                    requestSucceeded(value, sources);
+                    updateAcknowledged(updateRequest);
+                    requestSucceeded(value, updateRequest.getSources());
                 }
                 finally {
                     scheduleUpdate();
@@ -605,18 +710,18 @@ public class HttpRemoteTask
     }
 
     /**
-     * Continuous update loop for task info.  Wait for a short period for task state to change, and
-     * if it does not, return the current state of the task.  This will cause stats to be updated at a
-     * regular interval, and state changes will be immediately recorded.
+     * Continuous update loop for task status.  Wait for a short period for task state to change, and
+     * if it does not, return the current status of the task.  The status is small, so this is cheap
+     * enough to keep the driver counts current, and state changes will be immediately recorded.
      */
-    private class ContinuousTaskInfoFetcher
-            implements SimpleHttpResponseCallback<TaskInfo>
+    private class ContinuousTaskStatusFetcher
+            implements SimpleHttpResponseCallback<TaskStatus>
     {
         @GuardedBy("this")
         private boolean running;
 
         @GuardedBy("this")
-        private ListenableFuture<JsonResponse<TaskInfo>> future;
+        private ListenableFuture<JsonResponse<TaskStatus>> future;
 
         public synchronized void start()
         {
@@ -639,10 +744,10 @@ public class HttpRemoteTask
 
         private synchronized void scheduleNextRequest()
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
                 // stopped or done?
-                TaskInfo taskInfo = HttpRemoteTask.this.taskInfo.get();
-                if (!running || taskInfo.getState().isDone()) {
+                TaskStatus taskStatus = HttpRemoteTask.this.taskStatus.get();
+                if (!running || taskStatus.getState().isDone()) {
                     return;
                 }
 
@@ -654,21 +759,21 @@ public class HttpRemoteTask
                 }
 
                 Request request = prepareGet()
-                        .setUri(uriBuilderFrom(taskInfo.getSelf()).addParameter("summarize").build())
+                        .setUri(uriBuilderFrom(taskStatus.getSelf()).appendPath("status").build())
                         .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                        .setHeader(PrestoHeaders.PRESTO_CURRENT_STATE, taskInfo.getState().toString())
+                        .setHeader(PrestoHeaders.PRESTO_CURRENT_STATE, taskStatus.getState().toString())
                         .setHeader(PrestoHeaders.PRESTO_MAX_WAIT, "200ms")
                         .build();
 
-                future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+                future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskStatusCodec));
                 Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri()), executor);
             }
         }
 
         @Override
-        public void success(TaskInfo value)
+        public void success(TaskStatus value)
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
                 synchronized (this) {
                     future = null;
                 }
@@ -685,7 +790,7 @@ public class HttpRemoteTask
         @Override
         public void failed(Throwable cause)
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
                 synchronized (this) {
                     future = null;
                 }
@@ -704,7 +809,7 @@ public class HttpRemoteTask
         @Override
         public void fatal(Throwable cause)
         {
-            try (SetThreadName ignored = new SetThreadName("ContinuousTaskInfoFetcher-%s", taskId)) {
+            try (SetThreadName ignored = new SetThreadName("ContinuousTaskStatusFetcher-%s", taskId)) {
                 synchronized (this) {
                     future = null;
                 }
@@ -714,6 +819,94 @@ public class HttpRemoteTask
         }
     }
 
+    /**
+     * Fetches the full task info of a running task, unless it was fetched less than one refresh
+     * interval ago.  The status does not contain the task stats, so this is only done when
+     * someone asks for the stats of a running query.
+     */
+    @Override
+    public void refreshTaskInfo()
+    {
+        if (taskInfo.get().getState().isDone() || taskStatus.get().getVersion() <= TaskInfo.MIN_VERSION) {
+            return;
+        }
+        long now = System.nanoTime();
+        long nextRefresh = nextTaskInfoRefreshNanos.get();
+        if (now - nextRefresh >= 0 && nextTaskInfoRefreshNanos.compareAndSet(nextRefresh, now + taskInfoRefreshInterval.roundTo(TimeUnit.NANOSECONDS))) {
+            fetchTaskInfo(new TaskInfoResponseHandler(false));
+        }
+    }
+
+    private void fetchTaskInfo(TaskInfoResponseHandler responseHandler)
+    {
+        Request request = prepareGet()
+                .setUri(uriBuilderFrom(taskStatus.get().getSelf()).addParameter("summarize").build())
+                .build();
+
+        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        Futures.addCallback(future, new SimpleHttpResponseHandler<>(responseHandler, request.getUri()), executor);
+    }
+
+    private synchronized void finalTaskInfoUnavailable(Throwable cause)
+    {
+        log.warn(cause, "Unable to fetch final info for task %s", taskId);
+
+        // record the terminal state without the final stats
+        setTaskInfo(mergeTaskStatus(taskStatus.get()));
+    }
+
+    /**
+     * Handles a request for the full task info.  The final task info is retried for a while, since
+     * it is the only source of the final task stats.  Failures fetching the info of a running task
+     * are ignored, since the stats will be refreshed on the next request.
+     */
+    private class TaskInfoResponseHandler
+            implements SimpleHttpResponseCallback<TaskInfo>
+    {
+        private final boolean finalTaskInfo;
+        private final long startNanos = System.nanoTime();
+
+        private TaskInfoResponseHandler(boolean finalTaskInfo)
+        {
+            this.finalTaskInfo = finalTaskInfo;
+        }
+
+        @Override
+        public void success(TaskInfo value)
+        {
+            try (SetThreadName ignored = new SetThreadName("TaskInfoResponseHandler-%s", taskId)) {
+                updateTaskInfo(value);
+            }
+        }
+
+        @Override
+        public void failed(Throwable cause)
+        {
+            try (SetThreadName ignored = new SetThreadName("TaskInfoResponseHandler-%s", taskId)) {
+                if (!finalTaskInfo || taskInfo.get().getState().isDone()) {
+                    return;
+                }
+
+                if (!(cause instanceof RejectedExecutionException) && Duration.nanosSince(startNanos).compareTo(new Duration(2, TimeUnit.MINUTES)) < 0) {
+                    fetchTaskInfo(this);
+                }
+                else {
+                    finalTaskInfoUnavailable(cause);
+                }
+            }
+        }
+
+        @Override
+        public void fatal(Throwable cause)
+        {
+            try (SetThreadName ignored = new SetThreadName("TaskInfoResponseHandler-%s", taskId)) {
+                if (finalTaskInfo && !taskInfo.get().getState().isDone()) {
+                    finalTaskInfoUnavailable(cause);
+                }
+            }
+        }
+    }
+
     public static class SimpleHttpResponseHandler<T>
             implements FutureCallback<JsonResponse<T>>
     {
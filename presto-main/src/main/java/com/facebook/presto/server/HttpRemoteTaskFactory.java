@@ -21,6 +21,7 @@ import com.facebook.presto.execution.RemoteTask;
 import com.facebook.presto.execution.RemoteTaskFactory;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.sql.planner.PlanFragment;
@@ -48,10 +49,12 @@ public class HttpRemoteTaskFactory
 {
     private final HttpClient httpClient;
     private final LocationFactory locationFactory;
+    private final JsonCodec<TaskStatus> taskStatusCodec;
     private final JsonCodec<TaskInfo> taskInfoCodec;
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final int maxConsecutiveErrorCount;
     private final Duration minErrorDuration;
+    private final Duration taskInfoRefreshInterval;
     private final ExecutorService executor;
     private final ThreadPoolExecutorMBean executorMBean;
 
@@ -59,15 +62,18 @@ public class HttpRemoteTaskFactory
     public HttpRemoteTaskFactory(QueryManagerConfig config,
             @ForScheduler HttpClient httpClient,
             LocationFactory locationFactory,
+            JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
+        this.taskStatusCodec = taskStatusCodec;
         this.taskInfoCodec = taskInfoCodec;
         this.taskUpdateRequestCodec = taskUpdateRequestCodec;
         this.maxConsecutiveErrorCount = config.getRemoteTaskMaxConsecutiveErrorCount();
         this.minErrorDuration = config.getRemoteTaskMinErrorDuration();
+        this.taskInfoRefreshInterval = config.getRemoteTaskInfoRefreshInterval();
         ExecutorService coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%d"));
         this.executor = ExecutorServiceAdapter.from(new BoundedExecutor(coreExecutor, config.getRemoteTaskMaxCallbackThreads()));
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
@@ -99,6 +105,8 @@ public class HttpRemoteTaskFactory
                 executor,
                 maxConsecutiveErrorCount,
                 minErrorDuration,
+                taskInfoRefreshInterval,
+                taskStatusCodec,
                 taskInfoCodec,
                 taskUpdateRequestCodec
         );
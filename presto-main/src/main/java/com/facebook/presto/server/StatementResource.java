@@ -18,6 +18,7 @@ import com.facebook.presto.client.Column;
 import com.facebook.presto.client.FailureInfo;
 import com.facebook.presto.client.QueryError;
 import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.ResultPages;
 import com.facebook.presto.client.StageStats;
 import com.facebook.presto.client.StatementStats;
 import com.facebook.presto.execution.BufferInfo;
@@ -34,6 +35,11 @@ import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.block.FixedWidthBlockEncoding;
+import com.facebook.presto.spi.block.VariableWidthBlockEncoding;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.util.IterableTransformer;
 import com.google.common.base.Preconditions;
@@ -46,7 +52,10 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Ordering;
 import com.google.common.collect.Sets;
+import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 
@@ -83,12 +92,15 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_RESULT_FORMAT;
 import static com.facebook.presto.execution.QueryInfo.queryIdGetter;
 import static com.facebook.presto.execution.StageInfo.getAllStages;
 import static com.facebook.presto.execution.StageInfo.stageStateGetter;
+import static com.facebook.presto.serde.PagesSerde.writePages;
 import static com.facebook.presto.server.ResourceUtil.assertRequest;
 import static com.facebook.presto.server.ResourceUtil.createSessionForRequest;
 import static com.facebook.presto.util.Failures.toFailure;
+import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -110,15 +122,23 @@ public class StatementResource
 
     private final QueryManager queryManager;
     private final Supplier<ExchangeClient> exchangeClientSupplier;
+    private final BlockEncodingSerde blockEncodingSerde;
+    private final JsonCodec<QueryResults> queryResultsCodec;
 
     private final ConcurrentMap<QueryId, Query> queries = new ConcurrentHashMap<>();
     private final ScheduledExecutorService queryPurger = newSingleThreadScheduledExecutor(threadsNamed("query-purger"));
 
     @Inject
-    public StatementResource(QueryManager queryManager, Supplier<ExchangeClient> exchangeClientSupplier)
+    public StatementResource(
+            QueryManager queryManager,
+            Supplier<ExchangeClient> exchangeClientSupplier,
+            BlockEncodingSerde blockEncodingSerde,
+            JsonCodec<QueryResults> queryResultsCodec)
     {
         this.queryManager = checkNotNull(queryManager, "queryManager is null");
         this.exchangeClientSupplier = checkNotNull(exchangeClientSupplier, "exchangeClientSupplier is null");
+        this.blockEncodingSerde = checkNotNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.queryResultsCodec = checkNotNull(queryResultsCodec, "queryResultsCodec is null");
 
         queryPurger.scheduleWithFixedDelay(new PurgeQueriesRunnable(queries, queryManager), 200, 200, TimeUnit.MILLISECONDS);
     }
@@ -130,7 +150,7 @@ public class StatementResource
     }
 
     @POST
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, ResultPages.PRESTO_RESULTS})
     public Response createQuery(
             String statement,
             @Context HttpServletRequest servletRequest,
@@ -141,15 +161,17 @@ public class StatementResource
 
         Session session = createSessionForRequest(servletRequest);
 
+        boolean binaryResults = ResultPages.FORMAT_NAME.equalsIgnoreCase(servletRequest.getHeader(PRESTO_RESULT_FORMAT));
+
         ExchangeClient exchangeClient = exchangeClientSupplier.get();
-        Query query = new Query(session, statement, queryManager, exchangeClient);
+        Query query = new Query(session, statement, queryManager, exchangeClient, binaryResults);
         queries.put(query.getQueryId(), query);
-        return Response.ok(query.getNextResults(uriInfo, new Duration(1, TimeUnit.MILLISECONDS))).build();
+        return createResponse(query.getNextResults(uriInfo, new Duration(1, TimeUnit.MILLISECONDS)));
     }
 
     @GET
     @Path("{queryId}/{token}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, ResultPages.PRESTO_RESULTS})
     public Response getQueryResults(
             @PathParam("queryId") QueryId queryId,
             @PathParam("token") long token,
@@ -163,7 +185,7 @@ public class StatementResource
         }
 
         Duration wait = WAIT_ORDERING.min(MAX_WAIT_TIME, maxWait);
-        return Response.ok(query.getResults(token, uriInfo, wait)).build();
+        return createResponse(query.getResults(token, uriInfo, wait));
     }
 
     @DELETE
@@ -180,6 +202,40 @@ public class StatementResource
         return Response.noContent().build();
     }
 
+    private Response createResponse(QueryResults queryResults)
+    {
+        ResultPages pages = queryResults.getPages();
+        if (pages == null) {
+            return Response.ok(queryResults).build();
+        }
+
+        // the JSON part of a binary response carries everything except the data
+        byte[] json = queryResultsCodec.toJson(new QueryResults(
+                queryResults.getId(),
+                queryResults.getInfoUri(),
+                queryResults.getPartialCancelUri(),
+                queryResults.getNextUri(),
+                queryResults.getColumns(),
+                (Iterable<List<Object>>) null,
+                queryResults.getStats(),
+                queryResults.getError())).getBytes(UTF_8);
+
+        return Response.ok(writeBinaryResults(blockEncodingSerde, json, pages).getBytes(), ResultPages.PRESTO_RESULTS).build();
+    }
+
+    static Slice writeBinaryResults(BlockEncodingSerde blockEncodingSerde, byte[] json, ResultPages pages)
+    {
+        long pagesSize = 0;
+        for (Page page : pages.getPages()) {
+            pagesSize += page.getSizeInBytes();
+        }
+        DynamicSliceOutput output = new DynamicSliceOutput((int) Math.min(Integer.MAX_VALUE, json.length + pagesSize + 1024));
+        output.writeInt(json.length);
+        output.writeBytes(json);
+        writePages(blockEncodingSerde, output, pages.getPages());
+        return output.slice();
+    }
+
     @ThreadSafe
     public static class Query
             implements Closeable
@@ -190,6 +246,7 @@ public class StatementResource
 
         private final AtomicLong resultId = new AtomicLong();
         private final Session session;
+        private final boolean binaryResults;
 
         @GuardedBy("this")
         private QueryResults lastResult;
@@ -200,10 +257,14 @@ public class StatementResource
         @GuardedBy("this")
         private List<Column> columns;
 
+        @GuardedBy("this")
+        private List<Type> types;
+
         public Query(Session session,
                 String query,
                 QueryManager queryManager,
-                ExchangeClient exchangeClient)
+                ExchangeClient exchangeClient,
+                boolean binaryResults)
         {
             checkNotNull(session, "session is null");
             checkNotNull(query, "query is null");
@@ -216,6 +277,7 @@ public class StatementResource
             QueryInfo queryInfo = queryManager.createQuery(session, query);
             queryId = queryInfo.getQueryId();
             this.exchangeClient = exchangeClient;
+            this.binaryResults = binaryResults;
         }
 
         @Override
@@ -256,7 +318,22 @@ public class StatementResource
         public synchronized QueryResults getNextResults(UriInfo uriInfo, Duration maxWaitTime)
                 throws InterruptedException
         {
-            Iterable<List<Object>> data = getData(maxWaitTime);
+            List<Page> pages = getPages(maxWaitTime);
+
+            Iterable<List<Object>> data = null;
+            ResultPages resultPages = null;
+            if (pages != null) {
+                if (binaryResults && ResultPages.isSupported(columns)) {
+                    resultPages = toResultPages(types, pages);
+                }
+                else {
+                    ImmutableList.Builder<RowIterable> rows = ImmutableList.builder();
+                    for (Page page : pages) {
+                        rows.add(new RowIterable(session.toConnectorSession(), types, page));
+                    }
+                    data = Iterables.concat(rows.build());
+                }
+            }
 
             // get the query info before returning
             // force update if query manager is closed
@@ -295,15 +372,30 @@ public class StatementResource
             }
 
             // first time through, self is null
-            QueryResults queryResults = new QueryResults(
-                    queryId.toString(),
-                    uriInfo.getRequestUriBuilder().replaceQuery("").replacePath(queryInfo.getSelf().getPath()).build(),
-                    findCancelableLeafStage(queryInfo),
-                    nextResultsUri,
-                    columns,
-                    data,
-                    toStatementStats(queryInfo),
-                    toQueryError(queryInfo));
+            URI infoUri = uriInfo.getRequestUriBuilder().replaceQuery("").replacePath(queryInfo.getSelf().getPath()).build();
+            QueryResults queryResults;
+            if (resultPages != null) {
+                queryResults = new QueryResults(
+                        queryId.toString(),
+                        infoUri,
+                        findCancelableLeafStage(queryInfo),
+                        nextResultsUri,
+                        columns,
+                        resultPages,
+                        toStatementStats(queryInfo),
+                        toQueryError(queryInfo));
+            }
+            else {
+                queryResults = new QueryResults(
+                        queryId.toString(),
+                        infoUri,
+                        findCancelableLeafStage(queryInfo),
+                        nextResultsUri,
+                        columns,
+                        data,
+                        toStatementStats(queryInfo),
+                        toQueryError(queryInfo));
+            }
 
             // cache the last results
             if (lastResult != null) {
@@ -316,7 +408,7 @@ public class StatementResource
             return queryResults;
         }
 
-        private synchronized Iterable<List<Object>> getData(Duration maxWait)
+        private synchronized List<Page> getPages(Duration maxWait)
                 throws InterruptedException
         {
             // wait for query to start
@@ -333,13 +425,12 @@ public class StatementResource
 
             if (columns == null) {
                 columns = createColumnsList(queryInfo);
+                types = queryInfo.getOutputStage().getTypes();
             }
 
-            List<Type> types = queryInfo.getOutputStage().getTypes();
-
             updateExchangeClient(queryInfo.getOutputStage());
 
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
             // wait up to max wait for data to arrive; then try to return at least DESIRED_RESULT_BYTES
             int bytes = 0;
             while (bytes < DESIRED_RESULT_BYTES) {
@@ -348,7 +439,7 @@ public class StatementResource
                     break;
                 }
                 bytes += page.getSizeInBytes();
-                pages.add(new RowIterable(session.toConnectorSession(), types, page));
+                pages.add(page);
 
                 // only wait on first call
                 maxWait = new Duration(0, TimeUnit.MILLISECONDS);
@@ -358,7 +449,44 @@ public class StatementResource
                 return null;
             }
 
-            return Iterables.concat(pages.build());
+            return pages.build();
+        }
+
+        /**
+         * Converts the pages to the binary results format, which only allows the
+         * canonical fixed and variable width block encodings.
+         */
+        static ResultPages toResultPages(List<Type> types, List<Page> pages)
+        {
+            ImmutableList.Builder<Page> resultPages = ImmutableList.builder();
+            for (Page page : pages) {
+                Block[] blocks = new Block[page.getChannelCount()];
+                for (int channel = 0; channel < blocks.length; channel++) {
+                    blocks[channel] = toCanonicalBlock(types.get(channel), page.getBlock(channel));
+                }
+                resultPages.add(new Page(page.getPositionCount(), blocks));
+            }
+            return new ResultPages(types, resultPages.build());
+        }
+
+        private static Block toCanonicalBlock(Type type, Block block)
+        {
+            String encodingName;
+            if (type.getJavaType() == Slice.class) {
+                encodingName = VariableWidthBlockEncoding.FACTORY.getName();
+            }
+            else {
+                encodingName = FixedWidthBlockEncoding.FACTORY.getName();
+            }
+            if (block.getEncoding().getName().equals(encodingName)) {
+                return block;
+            }
+
+            BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                type.appendTo(block, position, blockBuilder);
+            }
+            return blockBuilder.build();
         }
 
         private static boolean isQueryStarted(QueryInfo queryInfo)
@@ -18,6 +18,7 @@ import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManager;
 import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.util.MoreFutures;
 import com.google.common.base.Function;
@@ -97,21 +98,18 @@ public class TaskResource
     @Path("{taskId}")
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response createOrUpdateTask(@PathParam("taskId") TaskId taskId, TaskUpdateRequest taskUpdateRequest, @Context UriInfo uriInfo)
+    public Response createOrUpdateTask(@PathParam("taskId") TaskId taskId, TaskUpdateRequest taskUpdateRequest)
     {
         checkNotNull(taskUpdateRequest, "taskUpdateRequest is null");
 
-        TaskInfo taskInfo = taskManager.updateTask(taskUpdateRequest.getSession(),
+        taskManager.updateTask(taskUpdateRequest.getSession(),
                 taskId,
-                taskUpdateRequest.getFragment(),
+                taskUpdateRequest.getFragment().orNull(),
                 taskUpdateRequest.getSources(),
-                taskUpdateRequest.getOutputIds());
+                taskUpdateRequest.getOutputIds().orNull());
 
-        if (shouldSummarize(uriInfo)) {
-            taskInfo = taskInfo.summarize();
-        }
-
-        return Response.ok().entity(taskInfo).build();
+        // the coordinator only tracks the status of the task, so don't send the full info
+        return Response.ok().entity(taskManager.getTaskStatus(taskId)).build();
     }
 
     @GET
@@ -160,6 +158,40 @@ public class TaskResource
                 .withTimeout(timeout);
     }
 
+    @GET
+    @Path("{taskId}/status")
+    @Produces(MediaType.APPLICATION_JSON)
+    public void getTaskStatus(@PathParam("taskId") final TaskId taskId,
+            @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
+            @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
+            @Suspended AsyncResponse asyncResponse)
+    {
+        checkNotNull(taskId, "taskId is null");
+
+        if (currentState == null || maxWait == null) {
+            asyncResponse.resume(taskManager.getTaskStatus(taskId));
+            return;
+        }
+
+        ListenableFuture<TaskStatus> futureTaskStatus = MoreFutures.addTimeout(
+                taskManager.getTaskStatus(taskId, currentState),
+                new Callable<TaskStatus>()
+                {
+                    @Override
+                    public TaskStatus call()
+                    {
+                        return taskManager.getTaskStatus(taskId);
+                    }
+                },
+                maxWait,
+                executor);
+
+        // For hard timeout, add an additional 5 seconds to max wait for thread scheduling contention and GC
+        Duration timeout = new Duration(maxWait.toMillis() + 5000, MILLISECONDS);
+        bindAsyncResponse(asyncResponse, futureTaskStatus, executor)
+                .withTimeout(timeout);
+    }
+
     @DELETE
     @Path("{taskId}")
     @Produces(MediaType.APPLICATION_JSON)
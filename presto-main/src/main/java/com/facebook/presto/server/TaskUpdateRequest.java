@@ -20,24 +20,31 @@ import com.facebook.presto.sql.planner.PlanFragment;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
 import java.util.List;
 
+/**
+ * An update to a remote task.  The fragment is only sent until the task has been
+ * created, and the output buffers are only sent when they have changed since the
+ * last acknowledged update.  Sources only contain splits that have not been
+ * acknowledged yet.
+ */
 public class TaskUpdateRequest
 {
     private final Session session;
-    private final PlanFragment fragment;
+    private final Optional<PlanFragment> fragment;
     private final List<TaskSource> sources;
-    private final OutputBuffers outputIds;
+    private final Optional<OutputBuffers> outputIds;
 
     @JsonCreator
     public TaskUpdateRequest(
             @JsonProperty("session") Session session,
-            @JsonProperty("fragment") PlanFragment fragment,
+            @JsonProperty("fragment") Optional<PlanFragment> fragment,
             @JsonProperty("sources") List<TaskSource> sources,
-            @JsonProperty("outputIds") OutputBuffers outputIds)
+            @JsonProperty("outputIds") Optional<OutputBuffers> outputIds)
     {
         Preconditions.checkNotNull(session, "session is null");
         Preconditions.checkNotNull(fragment, "fragment is null");
@@ -57,7 +64,7 @@ public class TaskUpdateRequest
     }
 
     @JsonProperty
-    public PlanFragment getFragment()
+    public Optional<PlanFragment> getFragment()
     {
         return fragment;
     }
@@ -69,7 +76,7 @@ public class TaskUpdateRequest
     }
 
     @JsonProperty
-    public OutputBuffers getOutputIds()
+    public Optional<OutputBuffers> getOutputIds()
     {
         return outputIds;
     }
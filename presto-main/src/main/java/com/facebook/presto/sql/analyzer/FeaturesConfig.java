@@ -14,13 +14,19 @@
 package com.facebook.presto.sql.analyzer;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.LegacyConfig;
 
+import javax.validation.constraints.Min;
+
 public class FeaturesConfig
 {
     private boolean experimentalSyntaxEnabled;
     private boolean distributedIndexJoinsEnabled;
     private boolean distributedJoinsEnabled;
+    private boolean optimizeHashGeneration;
+    private boolean reorderJoins = true;
+    private long broadcastJoinMaxRows = 1_000_000;
 
     @LegacyConfig("analyzer.experimental-syntax-enabled")
     @Config("experimental-syntax-enabled")
@@ -58,4 +64,42 @@ public class FeaturesConfig
     {
         return distributedJoinsEnabled;
     }
+
+    @Config("optimizer.optimize-hash-generation")
+    public FeaturesConfig setOptimizeHashGeneration(boolean optimizeHashGeneration)
+    {
+        this.optimizeHashGeneration = optimizeHashGeneration;
+        return this;
+    }
+
+    public boolean isOptimizeHashGeneration()
+    {
+        return optimizeHashGeneration;
+    }
+
+    @Config("optimizer.reorder-joins")
+    public FeaturesConfig setReorderJoins(boolean reorderJoins)
+    {
+        this.reorderJoins = reorderJoins;
+        return this;
+    }
+
+    public boolean isReorderJoins()
+    {
+        return reorderJoins;
+    }
+
+    @Min(0)
+    public long getBroadcastJoinMaxRows()
+    {
+        return broadcastJoinMaxRows;
+    }
+
+    @Config("broadcast-join-max-rows")
+    @ConfigDescription("Joins with a smaller estimated build side are replicated instead of partitioned")
+    public FeaturesConfig setBroadcastJoinMaxRows(long broadcastJoinMaxRows)
+    {
+        this.broadcastJoinMaxRows = broadcastJoinMaxRows;
+        return this;
+    }
 }
@@ -40,6 +40,7 @@ public class QueryExplainer
     private final boolean experimentalSyntaxEnabled;
     private final boolean distributedIndexJoinsEnabled;
     private final boolean distributedJoinsEnabled;
+    private final long broadcastJoinMaxRows;
 
     public QueryExplainer(
             Session session,
@@ -48,7 +49,8 @@ public class QueryExplainer
             SqlParser sqlParser,
             boolean experimentalSyntaxEnabled,
             boolean distributedIndexJoinsEnabled,
-            boolean distributedJoinsEnabled)
+            boolean distributedJoinsEnabled,
+            long broadcastJoinMaxRows)
     {
         this.session = checkNotNull(session, "session is null");
         this.planOptimizers = checkNotNull(planOptimizers, "planOptimizers is null");
@@ -57,6 +59,7 @@ public class QueryExplainer
         this.experimentalSyntaxEnabled = experimentalSyntaxEnabled;
         this.distributedIndexJoinsEnabled = distributedIndexJoinsEnabled;
         this.distributedJoinsEnabled = distributedJoinsEnabled;
+        this.broadcastJoinMaxRows = broadcastJoinMaxRows;
     }
 
     public String getPlan(Statement statement, ExplainType.Type planType)
@@ -116,6 +119,6 @@ public class QueryExplainer
         LogicalPlanner logicalPlanner = new LogicalPlanner(session, planOptimizers, idAllocator, metadata);
         Plan plan = logicalPlanner.plan(analysis);
 
-        return new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled, distributedJoinsEnabled);
+        return new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, false, distributedIndexJoinsEnabled, distributedJoinsEnabled, broadcastJoinMaxRows);
     }
 }
@@ -19,6 +19,7 @@ public enum SemanticErrorCode
     NESTED_AGGREGATION,
     NESTED_WINDOW,
     MUST_BE_WINDOW_FUNCTION,
+    INVALID_WINDOW_FRAME,
 
     MISSING_CATALOG,
     MISSING_SCHEMA,
@@ -39,6 +39,7 @@ import com.facebook.presto.sql.tree.DefaultExpressionTraversalVisitor;
 import com.facebook.presto.sql.tree.DefaultTraversalVisitor;
 import com.facebook.presto.sql.tree.Except;
 import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FrameBound;
 import com.facebook.presto.sql.tree.FunctionCall;
 import com.facebook.presto.sql.tree.Intersect;
 import com.facebook.presto.sql.tree.Join;
@@ -63,6 +64,7 @@ import com.facebook.presto.sql.tree.TableSubquery;
 import com.facebook.presto.sql.tree.Union;
 import com.facebook.presto.sql.tree.Values;
 import com.facebook.presto.sql.tree.Window;
+import com.facebook.presto.sql.tree.WindowFrame;
 import com.google.common.base.Function;
 import com.google.common.base.Joiner;
 import com.google.common.base.Optional;
@@ -89,6 +91,7 @@ import static com.facebook.presto.sql.analyzer.Field.typeGetter;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.AMBIGUOUS_ATTRIBUTE;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.DUPLICATE_RELATION;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.INVALID_ORDINAL;
+import static com.facebook.presto.sql.analyzer.SemanticErrorCode.INVALID_WINDOW_FRAME;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.MISMATCHED_COLUMN_ALIASES;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.MISMATCHED_SET_COLUMN_TYPES;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.MISSING_CATALOG;
@@ -106,6 +109,11 @@ import static com.facebook.presto.sql.analyzer.SemanticErrorCode.VIEW_IS_STALE;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.VIEW_PARSE_ERROR;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.WILDCARD_WITHOUT_FROM;
 import static com.facebook.presto.sql.planner.ExpressionInterpreter.expressionOptimizer;
+import static com.facebook.presto.sql.tree.FrameBound.Type.CURRENT_ROW;
+import static com.facebook.presto.sql.tree.FrameBound.Type.FOLLOWING;
+import static com.facebook.presto.sql.tree.FrameBound.Type.PRECEDING;
+import static com.facebook.presto.sql.tree.FrameBound.Type.UNBOUNDED_FOLLOWING;
+import static com.facebook.presto.sql.tree.FrameBound.Type.UNBOUNDED_PRECEDING;
 import static com.facebook.presto.type.UnknownType.UNKNOWN;
 import static com.facebook.presto.util.Types.checkType;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -591,7 +599,7 @@ class TupleAnalyzer
             }
 
             if (window.getFrame().isPresent()) {
-                throw new SemanticException(NOT_SUPPORTED, node, "Window frames not yet supported");
+                analyzeWindowFrame(window.getFrame().get());
             }
 
             List<String> argumentTypes = Lists.transform(windowFunction.getArguments(), new Function<Expression, String>()
@@ -604,14 +612,49 @@ class TupleAnalyzer
             });
 
             FunctionInfo info = metadata.resolveFunction(windowFunction.getName(), argumentTypes, false);
-            if (!info.isWindow()) {
+            if (!info.isWindow() && !info.isAggregate()) {
                 throw new SemanticException(MUST_BE_WINDOW_FUNCTION, node, "Not a window function: %s", windowFunction.getName());
             }
+            if (window.getFrame().isPresent() && !info.isAggregate()) {
+                throw new SemanticException(NOT_SUPPORTED, node, "Window frames are only supported for aggregate functions: %s", windowFunction.getName());
+            }
         }
 
         analysis.setWindowFunctions(node, windowFunctions);
     }
 
+    private static void analyzeWindowFrame(WindowFrame frame)
+    {
+        FrameBound.Type startType = frame.getStart().getType();
+        FrameBound.Type endType = frame.getEnd().isPresent() ? frame.getEnd().get().getType() : CURRENT_ROW;
+
+        if (startType == UNBOUNDED_FOLLOWING) {
+            throw new SemanticException(INVALID_WINDOW_FRAME, frame, "Window frame start cannot be UNBOUNDED FOLLOWING");
+        }
+        if (endType == UNBOUNDED_PRECEDING) {
+            throw new SemanticException(INVALID_WINDOW_FRAME, frame, "Window frame end cannot be UNBOUNDED PRECEDING");
+        }
+        if ((startType == CURRENT_ROW) && (endType == PRECEDING)) {
+            throw new SemanticException(INVALID_WINDOW_FRAME, frame, "Window frame starting from CURRENT ROW cannot end with PRECEDING");
+        }
+        if ((startType == FOLLOWING) && ((endType == PRECEDING) || (endType == CURRENT_ROW))) {
+            throw new SemanticException(INVALID_WINDOW_FRAME, frame, "Window frame starting from FOLLOWING cannot end with PRECEDING or CURRENT ROW");
+        }
+
+        List<FrameBound> bounds = frame.getEnd().isPresent() ? ImmutableList.of(frame.getStart(), frame.getEnd().get()) : ImmutableList.of(frame.getStart());
+        for (FrameBound bound : bounds) {
+            if (!bound.getValue().isPresent()) {
+                continue;
+            }
+            if (frame.getType() == WindowFrame.Type.RANGE) {
+                throw new SemanticException(NOT_SUPPORTED, frame, "Window frame RANGE with PRECEDING or FOLLOWING offset is not supported");
+            }
+            if (!(bound.getValue().get() instanceof LongLiteral)) {
+                throw new SemanticException(NOT_SUPPORTED, bound.getValue().get(), "Window frame offset must be an integer literal");
+            }
+        }
+    }
+
     private void analyzeHaving(QuerySpecification node, TupleDescriptor tupleDescriptor, AnalysisContext context)
     {
         if (node.getHaving().isPresent()) {
@@ -29,12 +29,15 @@ import static com.facebook.presto.byteCode.instruction.Constant.loadInt;
 import static com.facebook.presto.byteCode.instruction.Constant.loadLong;
 import static com.facebook.presto.byteCode.instruction.Constant.loadString;
 import static com.facebook.presto.sql.gen.ByteCodeUtils.loadConstant;
+import static com.facebook.presto.sql.relational.Signatures.AND;
 import static com.facebook.presto.sql.relational.Signatures.CAST;
 import static com.facebook.presto.sql.relational.Signatures.COALESCE;
 import static com.facebook.presto.sql.relational.Signatures.IF;
 import static com.facebook.presto.sql.relational.Signatures.IN;
+import static com.facebook.presto.sql.relational.Signatures.IS_DISTINCT_FROM;
 import static com.facebook.presto.sql.relational.Signatures.IS_NULL;
 import static com.facebook.presto.sql.relational.Signatures.NULL_IF;
+import static com.facebook.presto.sql.relational.Signatures.OR;
 import static com.facebook.presto.sql.relational.Signatures.SWITCH;
 import static com.facebook.presto.sql.relational.Signatures.TRY_CAST;
 
@@ -83,7 +86,7 @@ public class ByteCodeExpressionVisitor
                 case IS_NULL:
                     generator = new IsNullCodeGenerator();
                     break;
-                case "IS_DISTINCT_FROM":
+                case IS_DISTINCT_FROM:
                     generator = new IsDistinctFromCodeGenerator();
                     break;
                 case COALESCE:
@@ -94,10 +97,10 @@ public class ByteCodeExpressionVisitor
                     generator = new InCodeGenerator();
                     break;
                 // optimized implementations (shortcircuiting behavior)
-                case "AND":
+                case AND:
                     generator = new AndCodeGenerator();
                     break;
-                case "OR":
+                case OR:
                     generator = new OrCodeGenerator();
                     break;
                 default:
@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.sql.relational.CallExpression;
+import com.facebook.presto.sql.relational.Expressions;
+import com.facebook.presto.sql.relational.InputReferenceExpression;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Signatures.AND;
+import static com.facebook.presto.sql.relational.Signatures.COALESCE;
+import static com.facebook.presto.sql.relational.Signatures.IF;
+import static com.facebook.presto.sql.relational.Signatures.IN;
+import static com.facebook.presto.sql.relational.Signatures.OR;
+import static com.facebook.presto.sql.relational.Signatures.SWITCH;
+import static com.facebook.presto.sql.relational.Signatures.TRY_CAST;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The common subexpressions of a filter and its projections. Each deterministic call that
+ * is evaluated more than once per row is replaced by a reference to a synthetic input
+ * channel, numbered after the last channel read from the page, so it can be evaluated once
+ * into a temporary block.
+ * <p>
+ * Only arguments that are always evaluated are searched, so a call is never evaluated for
+ * a row where the original expression would have skipped it (e.g., the branches of an IF).
+ */
+final class CommonSubExpressions
+{
+    private final RowExpression filter;
+    private final List<RowExpression> projections;
+    private final int firstCommonChannel;
+    private final List<RowExpression> commonExpressions;
+
+    private CommonSubExpressions(RowExpression filter, List<RowExpression> projections, int firstCommonChannel, List<RowExpression> commonExpressions)
+    {
+        this.filter = checkNotNull(filter, "filter is null");
+        this.projections = ImmutableList.copyOf(checkNotNull(projections, "projections is null"));
+        this.firstCommonChannel = firstCommonChannel;
+        this.commonExpressions = ImmutableList.copyOf(checkNotNull(commonExpressions, "commonExpressions is null"));
+    }
+
+    /**
+     * Gets the filter, with common subexpressions replaced by synthetic input references.
+     */
+    public RowExpression getFilter()
+    {
+        return filter;
+    }
+
+    /**
+     * Gets the projections, with common subexpressions replaced by synthetic input references.
+     */
+    public List<RowExpression> getProjections()
+    {
+        return projections;
+    }
+
+    /**
+     * Gets the channel of the first common subexpression. Channels before this one are read from the page.
+     */
+    public int getFirstCommonChannel()
+    {
+        return firstCommonChannel;
+    }
+
+    /**
+     * Gets the common subexpressions, by channel offset from the first common channel. A common
+     * subexpression may itself reference the channels of other common subexpressions.
+     */
+    public List<RowExpression> getCommonExpressions()
+    {
+        return commonExpressions;
+    }
+
+    public boolean isCommonChannel(int channel)
+    {
+        return channel >= firstCommonChannel;
+    }
+
+    /**
+     * Gets the common subexpressions in an order where each is after the common subexpressions it references.
+     */
+    public List<Integer> getEvaluationOrder()
+    {
+        List<Integer> order = new ArrayList<>();
+        for (int index = 0; index < commonExpressions.size(); index++) {
+            addInEvaluationOrder(index, order);
+        }
+        return ImmutableList.copyOf(order);
+    }
+
+    /**
+     * Gets the common subexpressions referenced by the expression, directly or through other common subexpressions.
+     */
+    public List<Integer> getReferencedCommonExpressions(RowExpression expression)
+    {
+        List<Integer> referenced = new ArrayList<>();
+        for (int index : getDirectlyReferencedCommonExpressions(expression)) {
+            addInEvaluationOrder(index, referenced);
+        }
+        return ImmutableList.copyOf(referenced);
+    }
+
+    private void addInEvaluationOrder(int index, List<Integer> order)
+    {
+        if (order.contains(index)) {
+            return;
+        }
+        for (int dependency : getDirectlyReferencedCommonExpressions(commonExpressions.get(index))) {
+            addInEvaluationOrder(dependency, order);
+        }
+        order.add(index);
+    }
+
+    private List<Integer> getDirectlyReferencedCommonExpressions(RowExpression expression)
+    {
+        ImmutableList.Builder<Integer> referenced = ImmutableList.builder();
+        for (RowExpression subExpression : Expressions.subExpressions(ImmutableList.of(expression))) {
+            if (subExpression instanceof InputReferenceExpression && isCommonChannel(((InputReferenceExpression) subExpression).getField())) {
+                referenced.add(((InputReferenceExpression) subExpression).getField() - firstCommonChannel);
+            }
+        }
+        return referenced.build();
+    }
+
+    public static CommonSubExpressions extract(RowExpression filter, List<RowExpression> projections, Predicate<RowExpression> isDeterministic)
+    {
+        int firstCommonChannel = 0;
+        for (RowExpression expression : Expressions.subExpressions(Iterables.concat(projections, ImmutableList.of(filter)))) {
+            if (expression instanceof InputReferenceExpression) {
+                firstCommonChannel = Math.max(firstCommonChannel, ((InputReferenceExpression) expression).getField() + 1);
+            }
+        }
+
+        List<RowExpression> expressions = new ArrayList<>();
+        expressions.add(filter);
+        expressions.addAll(projections);
+        List<RowExpression> commonExpressions = new ArrayList<>();
+
+        while (true) {
+            Map<RowExpression, Integer> counts = new LinkedHashMap<>();
+            for (RowExpression expression : Iterables.concat(expressions, commonExpressions)) {
+                countEvaluations(expression, counts);
+            }
+
+            // extract the largest expression first, so its own subexpressions are only extracted if they are also used elsewhere
+            RowExpression common = null;
+            int commonSize = 0;
+            for (Map.Entry<RowExpression, Integer> entry : counts.entrySet()) {
+                RowExpression expression = entry.getKey();
+                if (entry.getValue() < 2 ||
+                        !(expression instanceof CallExpression) ||
+                        expression.getType().getJavaType() == void.class ||
+                        !isDeterministic.apply(expression)) {
+                    continue;
+                }
+                int size = Expressions.subExpressions(ImmutableList.of(expression)).size();
+                if (size > commonSize) {
+                    common = expression;
+                    commonSize = size;
+                }
+            }
+            if (common == null) {
+                break;
+            }
+
+            InputReferenceExpression reference = field(firstCommonChannel + commonExpressions.size(), common.getType());
+            for (int i = 0; i < expressions.size(); i++) {
+                expressions.set(i, replace(expressions.get(i), common, reference));
+            }
+            for (int i = 0; i < commonExpressions.size(); i++) {
+                commonExpressions.set(i, replace(commonExpressions.get(i), common, reference));
+            }
+            commonExpressions.add(common);
+        }
+
+        return new CommonSubExpressions(expressions.get(0), expressions.subList(1, expressions.size()), firstCommonChannel, commonExpressions);
+    }
+
+    private static void countEvaluations(RowExpression expression, Map<RowExpression, Integer> counts)
+    {
+        Integer count = counts.get(expression);
+        counts.put(expression, count == null ? 1 : count + 1);
+
+        if (expression instanceof CallExpression) {
+            CallExpression call = (CallExpression) expression;
+            for (RowExpression argument : call.getArguments().subList(0, getAlwaysEvaluatedArgumentCount(call))) {
+                countEvaluations(argument, counts);
+            }
+        }
+    }
+
+    private static RowExpression replace(RowExpression expression, RowExpression target, RowExpression replacement)
+    {
+        if (expression.equals(target)) {
+            return replacement;
+        }
+        if (!(expression instanceof CallExpression)) {
+            return expression;
+        }
+
+        CallExpression call = (CallExpression) expression;
+        int alwaysEvaluated = getAlwaysEvaluatedArgumentCount(call);
+        ImmutableList.Builder<RowExpression> arguments = ImmutableList.builder();
+        for (int i = 0; i < call.getArguments().size(); i++) {
+            RowExpression argument = call.getArguments().get(i);
+            arguments.add(i < alwaysEvaluated ? replace(argument, target, replacement) : argument);
+        }
+        return new CallExpression(call.getSignature(), call.getType(), arguments.build());
+    }
+
+    /**
+     * Gets the number of leading arguments of the call that are evaluated for every row.
+     */
+    private static int getAlwaysEvaluatedArgumentCount(CallExpression call)
+    {
+        switch (call.getSignature().getName()) {
+            // only the first argument of these special forms is evaluated unconditionally
+            case IF:
+            case SWITCH:
+            case COALESCE:
+            case IN:
+            case AND:
+            case OR:
+                return Math.min(1, call.getArguments().size());
+            // failures of the argument are part of the result, so it can not be evaluated separately
+            case TRY_CAST:
+                return 0;
+            default:
+                return call.getArguments().size();
+        }
+    }
+}
@@ -14,6 +14,9 @@
 package com.facebook.presto.sql.gen;
 
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
 
 import javax.annotation.Nullable;
 
@@ -67,6 +70,36 @@ public final class CompilerOperations
         return set.contains(value);
     }
 
+    public static int[] newPositionArray(int positionCount)
+    {
+        return new int[positionCount];
+    }
+
+    /**
+     * Returns a block containing the specified positions of the block. If every position
+     * of the block is selected, the block itself is returned without copying.
+     */
+    public static Block selectPositions(Type type, Block block, int[] positions, int positionCount)
+    {
+        if (positionCount == block.getPositionCount()) {
+            // positions are strictly increasing, so all positions are selected
+            return block;
+        }
+
+        BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus());
+        for (int i = 0; i < positionCount; i++) {
+            type.appendTo(block, positions[i], blockBuilder);
+        }
+        return blockBuilder.build();
+    }
+
+    public static void appendNulls(BlockBuilder blockBuilder, int count)
+    {
+        for (int i = 0; i < count; i++) {
+            blockBuilder.appendNull();
+        }
+    }
+
     public static boolean testMask(@Nullable Block masks, int index)
     {
         if (masks != null) {
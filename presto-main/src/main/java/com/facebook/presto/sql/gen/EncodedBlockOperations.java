@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.primitives.Ints;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.gen.CompilerOperations.selectPositions;
+
+// This methods are statically bound by the compiler to evaluate expressions over dictionary and run length encoded blocks
+@SuppressWarnings("UnusedDeclaration")
+public final class EncodedBlockOperations
+{
+    private EncodedBlockOperations()
+    {
+    }
+
+    /**
+     * Returns true if the block is dictionary encoded and none of its ids are null. A null id
+     * has no dictionary entry, so a block containing one can not be evaluated per entry.
+     */
+    public static boolean isDictionaryEncoded(Block block)
+    {
+        if (!(block instanceof DictionaryEncodedBlock)) {
+            return false;
+        }
+        Block idBlock = ((DictionaryEncodedBlock) block).getIdBlock();
+        for (int position = 0; position < idBlock.getPositionCount(); position++) {
+            if (idBlock.isNull(position)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public static Block getDictionary(Block block)
+    {
+        return ((DictionaryEncodedBlock) block).getDictionary();
+    }
+
+    /**
+     * Gets the dictionary entries referenced by any position of the block.
+     */
+    public static boolean[] getReferencedEntries(Block block)
+    {
+        DictionaryEncodedBlock dictionaryBlock = (DictionaryEncodedBlock) block;
+        Block idBlock = dictionaryBlock.getIdBlock();
+        boolean[] referenced = new boolean[dictionaryBlock.getDictionary().getPositionCount()];
+        for (int position = 0; position < idBlock.getPositionCount(); position++) {
+            referenced[getId(idBlock, position)] = true;
+        }
+        return referenced;
+    }
+
+    /**
+     * Gets the dictionary entries referenced by the selected positions of the block.
+     */
+    public static boolean[] getReferencedEntries(Block block, int[] positions, int positionCount)
+    {
+        DictionaryEncodedBlock dictionaryBlock = (DictionaryEncodedBlock) block;
+        Block idBlock = dictionaryBlock.getIdBlock();
+        boolean[] referenced = new boolean[dictionaryBlock.getDictionary().getPositionCount()];
+        for (int i = 0; i < positionCount; i++) {
+            referenced[getId(idBlock, positions[i])] = true;
+        }
+        return referenced;
+    }
+
+    public static boolean isReferenced(boolean[] entries, int entry)
+    {
+        return entries[entry];
+    }
+
+    public static void setEntry(boolean[] entries, int entry, boolean value)
+    {
+        entries[entry] = value;
+    }
+
+    /**
+     * Stores the positions of the block whose dictionary entry is selected, and returns the number of selected positions.
+     */
+    public static int selectDictionaryPositions(Block block, boolean[] selectedEntries, int[] selectedPositions)
+    {
+        Block idBlock = ((DictionaryEncodedBlock) block).getIdBlock();
+        int selectedCount = 0;
+        for (int position = 0; position < idBlock.getPositionCount(); position++) {
+            if (selectedEntries[getId(idBlock, position)]) {
+                selectedPositions[selectedCount] = position;
+                selectedCount++;
+            }
+        }
+        return selectedCount;
+    }
+
+    /**
+     * Creates a dictionary block over the projected dictionary with the ids of the selected positions of the block.
+     */
+    public static Block dictionaryBlock(Block dictionary, Block block, int[] positions, int positionCount)
+    {
+        Block idBlock = ((DictionaryEncodedBlock) block).getIdBlock();
+        return new DictionaryEncodedBlock(dictionary, selectPositions(BIGINT, idBlock, positions, positionCount));
+    }
+
+    /**
+     * Returns true if the block is run length encoded and at least one of its positions is selected,
+     * so evaluating an expression over the run value is observable.
+     */
+    public static boolean isRunLengthEncoded(Block block, int positionCount)
+    {
+        return block instanceof RunLengthEncodedBlock && positionCount > 0;
+    }
+
+    public static Block getRunLengthValue(Block block)
+    {
+        return ((RunLengthEncodedBlock) block).getValue();
+    }
+
+    public static Block runLengthBlock(Block value, int positionCount)
+    {
+        return new RunLengthEncodedBlock(value, positionCount);
+    }
+
+    public static int selectAllPositions(int[] selectedPositions, int positionCount)
+    {
+        for (int position = 0; position < positionCount; position++) {
+            selectedPositions[position] = position;
+        }
+        return positionCount;
+    }
+
+    private static int getId(Block idBlock, int position)
+    {
+        return Ints.checkedCast(BIGINT.getLong(idBlock, position));
+    }
+}
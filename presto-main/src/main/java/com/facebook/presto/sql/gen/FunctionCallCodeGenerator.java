@@ -19,7 +19,6 @@ import com.facebook.presto.metadata.FunctionRegistry;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.relational.RowExpression;
-import com.facebook.presto.sql.tree.QualifiedName;
 import com.google.common.base.Preconditions;
 
 import java.util.ArrayList;
@@ -33,11 +32,7 @@ public class FunctionCallCodeGenerator
     {
         FunctionRegistry registry = context.getRegistry();
 
-        FunctionInfo function = registry.getExactFunction(signature);
-        if (function == null) {
-            // TODO: temporary hack to deal with magic timestamp literal functions which don't have an "exact" form and need to be "resolved"
-            function = registry.resolveFunction(QualifiedName.of(signature.getName()), signature.getArgumentTypes(), false);
-        }
+        FunctionInfo function = registry.getExactOrResolvedFunction(signature);
 
         Preconditions.checkArgument(function != null, "Function %s not found", signature);
 
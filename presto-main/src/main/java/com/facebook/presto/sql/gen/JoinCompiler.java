@@ -33,6 +33,7 @@ import com.facebook.presto.operator.PagesHashStrategy;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Objects;
+import com.google.common.base.Optional;
 import com.google.common.base.Throwables;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -460,7 +461,7 @@ public class JoinCompiler
         {
             this.pagesHashStrategyFactory = pagesHashStrategyFactory;
             try {
-                constructor = lookupSourceClass.getConstructor(LongArrayList.class, List.class, PagesHashStrategy.class, OperatorContext.class);
+                constructor = lookupSourceClass.getConstructor(LongArrayList.class, List.class, PagesHashStrategy.class, Optional.class, OperatorContext.class);
             }
             catch (NoSuchMethodException e) {
                 throw Throwables.propagate(e);
@@ -468,10 +469,24 @@ public class JoinCompiler
         }
 
         public LookupSource createLookupSource(LongArrayList addresses, List<Type> types, List<List<com.facebook.presto.spi.block.Block>> channels, OperatorContext operatorContext)
+        {
+            return createLookupSource(addresses, types, channels, Optional.<Integer>absent(), operatorContext);
+        }
+
+        public LookupSource createLookupSource(
+                LongArrayList addresses,
+                List<Type> types,
+                List<List<com.facebook.presto.spi.block.Block>> channels,
+                Optional<Integer> hashChannel,
+                OperatorContext operatorContext)
         {
             PagesHashStrategy pagesHashStrategy = pagesHashStrategyFactory.createPagesHashStrategy(channels);
+            Optional<List<com.facebook.presto.spi.block.Block>> hashChannelBlocks = Optional.absent();
+            if (hashChannel.isPresent()) {
+                hashChannelBlocks = Optional.of(channels.get(hashChannel.get()));
+            }
             try {
-                return constructor.newInstance(addresses, types, pagesHashStrategy, operatorContext);
+                return constructor.newInstance(addresses, types, pagesHashStrategy, hashChannelBlocks, operatorContext);
             }
             catch (Exception e) {
                 throw Throwables.propagate(e);
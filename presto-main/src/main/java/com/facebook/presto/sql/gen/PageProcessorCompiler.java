@@ -19,17 +19,21 @@ import com.facebook.presto.byteCode.ClassDefinition;
 import com.facebook.presto.byteCode.CompilerContext;
 import com.facebook.presto.byteCode.MethodDefinition;
 import com.facebook.presto.byteCode.NamedParameterDefinition;
+import com.facebook.presto.byteCode.OpCode;
 import com.facebook.presto.byteCode.ParameterizedType;
 import com.facebook.presto.byteCode.Variable;
 import com.facebook.presto.byteCode.control.ForLoop;
 import com.facebook.presto.byteCode.control.IfStatement;
 import com.facebook.presto.byteCode.instruction.LabelNode;
+import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.operator.PageProcessor;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.relational.CallExpression;
 import com.facebook.presto.sql.relational.ConstantExpression;
@@ -37,6 +41,7 @@ import com.facebook.presto.sql.relational.Expressions;
 import com.facebook.presto.sql.relational.InputReferenceExpression;
 import com.facebook.presto.sql.relational.RowExpression;
 import com.facebook.presto.sql.relational.RowExpressionVisitor;
+import com.google.common.base.Predicate;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Primitives;
@@ -54,6 +59,17 @@ import static com.facebook.presto.byteCode.control.IfStatement.IfStatementBuilde
 import static com.facebook.presto.sql.gen.Bootstrap.BOOTSTRAP_METHOD;
 import static com.facebook.presto.sql.gen.ByteCodeUtils.generateWrite;
 import static com.facebook.presto.sql.gen.ByteCodeUtils.loadConstant;
+import static com.facebook.presto.sql.relational.Signatures.AND;
+import static com.facebook.presto.sql.relational.Signatures.CAST;
+import static com.facebook.presto.sql.relational.Signatures.COALESCE;
+import static com.facebook.presto.sql.relational.Signatures.IF;
+import static com.facebook.presto.sql.relational.Signatures.IN;
+import static com.facebook.presto.sql.relational.Signatures.IS_DISTINCT_FROM;
+import static com.facebook.presto.sql.relational.Signatures.IS_NULL;
+import static com.facebook.presto.sql.relational.Signatures.NULL_IF;
+import static com.facebook.presto.sql.relational.Signatures.OR;
+import static com.facebook.presto.sql.relational.Signatures.SWITCH;
+import static com.facebook.presto.sql.relational.Signatures.TRY_CAST;
 import static java.lang.String.format;
 import static java.util.Collections.nCopies;
 
@@ -71,11 +87,46 @@ public class PageProcessorCompiler
     public void generateMethods(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, RowExpression filter, List<RowExpression> projections)
     {
         generateProcessMethod(classDefinition, filter, projections);
-        generateFilterMethod(classDefinition, callSiteBinder, filter);
+        generateFilterMethod(classDefinition, callSiteBinder, "filter", filter);
 
         for (int i = 0; i < projections.size(); i++) {
             generateProjectMethod(classDefinition, callSiteBinder, "project_" + i, projections.get(i));
         }
+
+        // the columnar methods evaluate each common subexpression once per row into a temporary block
+        CommonSubExpressions commonSubExpressions = CommonSubExpressions.extract(filter, projections, new Predicate<RowExpression>()
+        {
+            @Override
+            public boolean apply(RowExpression expression)
+            {
+                return isDeterministic(expression);
+            }
+        });
+
+        String filterMethodName = "filter";
+        if (!commonSubExpressions.getFilter().equals(filter)) {
+            filterMethodName = "columnarFilter";
+            generateFilterMethod(classDefinition, callSiteBinder, filterMethodName, commonSubExpressions.getFilter());
+        }
+
+        ImmutableList.Builder<String> projectionMethodNames = ImmutableList.builder();
+        for (int i = 0; i < projections.size(); i++) {
+            RowExpression projection = commonSubExpressions.getProjections().get(i);
+            if (projection.equals(projections.get(i))) {
+                projectionMethodNames.add("project_" + i);
+            }
+            else {
+                projectionMethodNames.add("columnarProject_" + i);
+                generateProjectMethod(classDefinition, callSiteBinder, "columnarProject_" + i, projection);
+            }
+        }
+
+        for (int i = 0; i < commonSubExpressions.getCommonExpressions().size(); i++) {
+            generateProjectMethod(classDefinition, callSiteBinder, "common_" + i, commonSubExpressions.getCommonExpressions().get(i));
+        }
+
+        generateProcessColumnarMethod(classDefinition, callSiteBinder, commonSubExpressions, projectionMethodNames.build());
+        generateFilterPageMethod(classDefinition, commonSubExpressions, filterMethodName);
     }
 
     private void generateProcessMethod(ClassDefinition classDefinition, RowExpression filter, List<RowExpression> projections)
@@ -199,12 +250,619 @@ public class PageProcessorCompiler
                 .retInt();
     }
 
-    private void generateFilterMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, RowExpression filter)
+    private void generateProcessColumnarMethod(
+            ClassDefinition classDefinition,
+            CallSiteBinder callSiteBinder,
+            CommonSubExpressions commonSubExpressions,
+            List<String> projectionMethodNames)
+    {
+        CompilerContext context = new CompilerContext(BOOTSTRAP_METHOD);
+        MethodDefinition method = classDefinition.declareMethod(context,
+                a(PUBLIC),
+                "processColumnar",
+                type(Page.class),
+                arg("session", ConnectorSession.class),
+                arg("page", Page.class));
+
+        List<RowExpression> projections = commonSubExpressions.getProjections();
+        List<RowExpression> commonExpressions = commonSubExpressions.getCommonExpressions();
+
+        Variable sessionVariable = context.getVariable("session");
+        Variable pageVariable = context.getVariable("page");
+
+        Variable positionCountVariable = context.declareVariable(int.class, "positionCount");
+        Variable selectedPositionsVariable = context.declareVariable(int[].class, "selectedPositions");
+        Variable cardinalityVariable = context.declareVariable(int.class, "cardinality");
+        Variable commonBlocksVariable = context.declareVariable(com.facebook.presto.spi.block.Block[].class, "commonBlocks");
+        Variable blocksVariable = context.declareVariable(com.facebook.presto.spi.block.Block[].class, "blocks");
+        Variable indexVariable = context.declareVariable(int.class, "index");
+        Variable positionVariable = context.declareVariable(int.class, "position");
+        Variable nextPositionVariable = context.declareVariable(int.class, "nextPosition");
+        Variable dictionaryVariable = context.declareVariable(com.facebook.presto.spi.block.Block.class, "dictionary");
+        Variable referencedEntriesVariable = context.declareVariable(boolean[].class, "referencedEntries");
+
+        method.getBody()
+                .comment("int positionCount = page.getPositionCount();")
+                .getVariable(pageVariable)
+                .invokeVirtual(Page.class, "getPositionCount", int.class)
+                .putVariable(positionCountVariable)
+                .comment("int[] selectedPositions = newPositionArray(positionCount);")
+                .getVariable(positionCountVariable)
+                .invokeStatic(CompilerOperations.class, "newPositionArray", int[].class, int.class)
+                .putVariable(selectedPositionsVariable)
+                .comment("Block[] commonBlocks = new Block[%s];", commonExpressions.size())
+                .push(commonExpressions.size())
+                .newArray(com.facebook.presto.spi.block.Block.class)
+                .putVariable(commonBlocksVariable);
+
+        // only the channels of computed projections and common subexpressions are read position by position
+        ImmutableList.Builder<RowExpression> computedExpressions = ImmutableList.builder();
+        for (RowExpression projection : projections) {
+            if (!(projection instanceof InputReferenceExpression)) {
+                computedExpressions.add(projection);
+            }
+        }
+        computedExpressions.addAll(commonExpressions);
+        TreeSet<Integer> channels = new TreeSet<>(getInputChannels(computedExpressions.build()));
+        for (int commonIndex = 0; commonIndex < commonExpressions.size(); commonIndex++) {
+            channels.add(commonSubExpressions.getFirstCommonChannel() + commonIndex);
+        }
+        for (int channel : channels) {
+            Variable blockVariable = context.declareVariable(com.facebook.presto.spi.block.Block.class, "block_" + channel);
+            if (!commonSubExpressions.isCommonChannel(channel)) {
+                method.getBody()
+                        .comment("Block %s = page.getBlock(%s);", blockVariable.getName(), channel)
+                        .append(loadBlock(context, commonSubExpressions, channel, pageVariable, commonBlocksVariable))
+                        .putVariable(blockVariable);
+            }
+        }
+
+        // common subexpressions of the filter are evaluated for every position, since the filter reads every position
+        List<Integer> filterCommonExpressions = commonSubExpressions.getReferencedCommonExpressions(commonSubExpressions.getFilter());
+        for (int commonIndex : filterCommonExpressions) {
+            RowExpression commonExpression = commonExpressions.get(commonIndex);
+            List<Integer> inputChannels = getInputChannels(commonExpression);
+            Variable outputVariable = context.declareVariable(BlockBuilder.class, "common_output_" + commonIndex);
+
+            method.getBody()
+                    .append(newBlockBuilder(context, callSiteBinder, commonExpression.getType(), outputVariable))
+                    .append(forLoop(context, positionVariable, new Block(context).getVariable(positionCountVariable), invokeProjection(context,
+                            classDefinition,
+                            "common_" + commonIndex,
+                            sessionVariable,
+                            pushBlockVariables(context, inputChannels),
+                            inputChannels.size(),
+                            new Block(context).getVariable(positionVariable),
+                            outputVariable)))
+                    .append(storeCommonBlock(context, commonSubExpressions, commonIndex, outputVariable, commonBlocksVariable));
+        }
+
+        method.getBody()
+                .comment("int cardinality = filterPage(session, page, commonBlocks, selectedPositions);")
+                .pushThis()
+                .getVariable(sessionVariable)
+                .getVariable(pageVariable)
+                .getVariable(commonBlocksVariable)
+                .getVariable(selectedPositionsVariable)
+                .invokeVirtual(classDefinition.getType(),
+                        "filterPage",
+                        type(int.class),
+                        type(ConnectorSession.class),
+                        type(Page.class),
+                        type(com.facebook.presto.spi.block.Block[].class),
+                        type(int[].class))
+                .putVariable(cardinalityVariable);
+
+        // the remaining common subexpressions are only evaluated for the selected positions
+        for (int commonIndex : commonSubExpressions.getEvaluationOrder()) {
+            if (filterCommonExpressions.contains(commonIndex)) {
+                continue;
+            }
+            RowExpression commonExpression = commonExpressions.get(commonIndex);
+            List<Integer> inputChannels = getInputChannels(commonExpression);
+            Variable outputVariable = context.declareVariable(BlockBuilder.class, "common_output_" + commonIndex);
+
+            Block loopBody = new Block(context)
+                    .comment("int position = selectedPositions[index];")
+                    .getVariable(selectedPositionsVariable)
+                    .getVariable(indexVariable)
+                    .getIntArrayElement()
+                    .putVariable(positionVariable)
+                    .append(appendNulls(context, outputVariable, positionVariable, nextPositionVariable))
+                    .append(invokeProjection(context,
+                            classDefinition,
+                            "common_" + commonIndex,
+                            sessionVariable,
+                            pushBlockVariables(context, inputChannels),
+                            inputChannels.size(),
+                            new Block(context).getVariable(positionVariable),
+                            outputVariable))
+                    .comment("nextPosition = position + 1;")
+                    .getVariable(positionVariable)
+                    .putVariable(nextPositionVariable)
+                    .incrementVariable(nextPositionVariable, (byte) 1);
+
+            method.getBody()
+                    .append(newBlockBuilder(context, callSiteBinder, commonExpression.getType(), outputVariable))
+                    .comment("int nextPosition = 0;")
+                    .putVariable(nextPositionVariable, 0)
+                    .append(forLoop(context, indexVariable, new Block(context).getVariable(cardinalityVariable), loopBody))
+                    .append(appendNulls(context, outputVariable, positionCountVariable, nextPositionVariable))
+                    .append(storeCommonBlock(context, commonSubExpressions, commonIndex, outputVariable, commonBlocksVariable));
+        }
+
+        method.getBody()
+                .comment("Block[] blocks = new Block[%s];", projections.size())
+                .push(projections.size())
+                .newArray(com.facebook.presto.spi.block.Block.class)
+                .putVariable(blocksVariable);
+
+        for (int projectionIndex = 0; projectionIndex < projections.size(); projectionIndex++) {
+            RowExpression projection = projections.get(projectionIndex);
+            String methodName = projectionMethodNames.get(projectionIndex);
+
+            if (projection instanceof InputReferenceExpression) {
+                // identity projection: reuse the input block, copying only when rows were filtered out
+                int field = ((InputReferenceExpression) projection).getField();
+                method.getBody()
+                        .comment("blocks[%s] = selectPositions(type, block_%s, selectedPositions, cardinality);", projectionIndex, field)
+                        .getVariable(blocksVariable)
+                        .push(projectionIndex)
+                        .append(loadConstant(context, callSiteBinder.bind(projection.getType(), Type.class)))
+                        .append(loadBlock(context, commonSubExpressions, field, pageVariable, commonBlocksVariable))
+                        .getVariable(selectedPositionsVariable)
+                        .getVariable(cardinalityVariable)
+                        .invokeStatic(CompilerOperations.class,
+                                "selectPositions",
+                                com.facebook.presto.spi.block.Block.class,
+                                Type.class,
+                                com.facebook.presto.spi.block.Block.class,
+                                int[].class,
+                                int.class)
+                        .putObjectArrayElement();
+                continue;
+            }
+
+            List<Integer> inputChannels = getInputChannels(projection);
+            Variable outputVariable = context.declareVariable(BlockBuilder.class, "output_" + projectionIndex);
+
+            Block projectSelectedPositions = new Block(context)
+                    .append(newBlockBuilder(context, callSiteBinder, projection.getType(), outputVariable))
+                    .append(forLoop(context, indexVariable, new Block(context).getVariable(cardinalityVariable), invokeProjection(context,
+                            classDefinition,
+                            methodName,
+                            sessionVariable,
+                            pushBlockVariables(context, inputChannels),
+                            inputChannels.size(),
+                            new Block(context)
+                                    .getVariable(selectedPositionsVariable)
+                                    .getVariable(indexVariable)
+                                    .getIntArrayElement(),
+                            outputVariable)))
+                    .comment("blocks[%s] = %s.build();", projectionIndex, outputVariable.getName())
+                    .getVariable(blocksVariable)
+                    .push(projectionIndex)
+                    .getVariable(outputVariable)
+                    .invokeInterface(BlockBuilder.class, "build", com.facebook.presto.spi.block.Block.class)
+                    .putObjectArrayElement();
+
+            if (inputChannels.size() != 1 || commonSubExpressions.isCommonChannel(inputChannels.get(0)) || !isDeterministic(projection)) {
+                method.getBody().append(projectSelectedPositions);
+                continue;
+            }
+
+            // a deterministic expression over a single dictionary or run length encoded column
+            // is evaluated once per referenced dictionary entry or once per run
+            Variable blockVariable = context.getVariable("block_" + inputChannels.get(0));
+
+            Block projectDictionary = new Block(context)
+                    .comment("Block dictionary = getDictionary(%s);", blockVariable.getName())
+                    .getVariable(blockVariable)
+                    .invokeStatic(EncodedBlockOperations.class, "getDictionary", com.facebook.presto.spi.block.Block.class, com.facebook.presto.spi.block.Block.class)
+                    .putVariable(dictionaryVariable)
+                    .comment("boolean[] referencedEntries = getReferencedEntries(%s, selectedPositions, cardinality);", blockVariable.getName())
+                    .getVariable(blockVariable)
+                    .getVariable(selectedPositionsVariable)
+                    .getVariable(cardinalityVariable)
+                    .invokeStatic(EncodedBlockOperations.class, "getReferencedEntries", boolean[].class, com.facebook.presto.spi.block.Block.class, int[].class, int.class)
+                    .putVariable(referencedEntriesVariable)
+                    .append(newBlockBuilder(context, callSiteBinder, projection.getType(), outputVariable))
+                    .append(forLoop(context,
+                            indexVariable,
+                            new Block(context)
+                                    .getVariable(dictionaryVariable)
+                                    .invokeInterface(com.facebook.presto.spi.block.Block.class, "getPositionCount", int.class),
+                            new IfStatement(context,
+                                    new Block(context)
+                                            .getVariable(referencedEntriesVariable)
+                                            .getVariable(indexVariable)
+                                            .invokeStatic(EncodedBlockOperations.class, "isReferenced", boolean.class, boolean[].class, int.class),
+                                    invokeProjection(context,
+                                            classDefinition,
+                                            methodName,
+                                            sessionVariable,
+                                            new Block(context).getVariable(dictionaryVariable),
+                                            1,
+                                            new Block(context).getVariable(indexVariable),
+                                            outputVariable),
+                                    new Block(context)
+                                            .comment("entries that are not referenced are never evaluated")
+                                            .getVariable(outputVariable)
+                                            .invokeInterface(BlockBuilder.class, "appendNull", BlockBuilder.class)
+                                            .pop())))
+                    .comment("blocks[%s] = dictionaryBlock(%s.build(), %s, selectedPositions, cardinality);", projectionIndex, outputVariable.getName(), blockVariable.getName())
+                    .getVariable(blocksVariable)
+                    .push(projectionIndex)
+                    .getVariable(outputVariable)
+                    .invokeInterface(BlockBuilder.class, "build", com.facebook.presto.spi.block.Block.class)
+                    .getVariable(blockVariable)
+                    .getVariable(selectedPositionsVariable)
+                    .getVariable(cardinalityVariable)
+                    .invokeStatic(EncodedBlockOperations.class,
+                            "dictionaryBlock",
+                            com.facebook.presto.spi.block.Block.class,
+                            com.facebook.presto.spi.block.Block.class,
+                            com.facebook.presto.spi.block.Block.class,
+                            int[].class,
+                            int.class)
+                    .putObjectArrayElement();
+
+            Block projectRunLength = new Block(context)
+                    .append(newBlockBuilder(context, callSiteBinder, projection.getType(), outputVariable))
+                    .append(invokeProjection(context,
+                            classDefinition,
+                            methodName,
+                            sessionVariable,
+                            new Block(context)
+                                    .getVariable(blockVariable)
+                                    .invokeStatic(EncodedBlockOperations.class, "getRunLengthValue", com.facebook.presto.spi.block.Block.class, com.facebook.presto.spi.block.Block.class),
+                            1,
+                            new Block(context).push(0),
+                            outputVariable))
+                    .comment("blocks[%s] = runLengthBlock(%s.build(), cardinality);", projectionIndex, outputVariable.getName())
+                    .getVariable(blocksVariable)
+                    .push(projectionIndex)
+                    .getVariable(outputVariable)
+                    .invokeInterface(BlockBuilder.class, "build", com.facebook.presto.spi.block.Block.class)
+                    .getVariable(cardinalityVariable)
+                    .invokeStatic(EncodedBlockOperations.class, "runLengthBlock", com.facebook.presto.spi.block.Block.class, com.facebook.presto.spi.block.Block.class, int.class)
+                    .putObjectArrayElement();
+
+            method.getBody()
+                    .append(new IfStatement(context,
+                            new Block(context)
+                                    .comment("isDictionaryEncoded(%s)", blockVariable.getName())
+                                    .getVariable(blockVariable)
+                                    .invokeStatic(EncodedBlockOperations.class, "isDictionaryEncoded", boolean.class, com.facebook.presto.spi.block.Block.class),
+                            projectDictionary,
+                            new IfStatement(context,
+                                    new Block(context)
+                                            .comment("isRunLengthEncoded(%s, cardinality)", blockVariable.getName())
+                                            .getVariable(blockVariable)
+                                            .getVariable(cardinalityVariable)
+                                            .invokeStatic(EncodedBlockOperations.class, "isRunLengthEncoded", boolean.class, com.facebook.presto.spi.block.Block.class, int.class),
+                                    projectRunLength,
+                                    projectSelectedPositions)));
+        }
+
+        method.getBody()
+                .comment("return new Page(cardinality, blocks);")
+                .newObject(Page.class)
+                .dup()
+                .getVariable(cardinalityVariable)
+                .getVariable(blocksVariable)
+                .invokeConstructor(Page.class, int.class, com.facebook.presto.spi.block.Block[].class)
+                .retObject();
+    }
+
+    private void generateFilterPageMethod(ClassDefinition classDefinition, CommonSubExpressions commonSubExpressions, String filterMethodName)
     {
         CompilerContext context = new CompilerContext(BOOTSTRAP_METHOD);
         MethodDefinition method = classDefinition.declareMethod(context,
                 a(PUBLIC),
-                "filter",
+                "filterPage",
+                type(int.class),
+                arg("session", ConnectorSession.class),
+                arg("page", Page.class),
+                arg("commonBlocks", com.facebook.presto.spi.block.Block[].class),
+                arg("selectedPositions", int[].class));
+
+        RowExpression filter = commonSubExpressions.getFilter();
+        method.comment("Filter: %s", filter.toString());
+
+        Variable sessionVariable = context.getVariable("session");
+        Variable pageVariable = context.getVariable("page");
+        Variable commonBlocksVariable = context.getVariable("commonBlocks");
+        Variable selectedPositionsVariable = context.getVariable("selectedPositions");
+
+        Variable positionCountVariable = context.declareVariable(int.class, "positionCount");
+        Variable selectedCountVariable = context.declareVariable(int.class, "selectedCount");
+        Variable positionVariable = context.declareVariable(int.class, "position");
+
+        method.getBody()
+                .comment("int positionCount = page.getPositionCount();")
+                .getVariable(pageVariable)
+                .invokeVirtual(Page.class, "getPositionCount", int.class)
+                .putVariable(positionCountVariable)
+                .comment("int selectedCount = 0;")
+                .putVariable(selectedCountVariable, 0);
+
+        List<Integer> inputChannels = getInputChannels(filter);
+        for (int channel : inputChannels) {
+            Variable blockVariable = context.declareVariable(com.facebook.presto.spi.block.Block.class, "block_" + channel);
+            method.getBody()
+                    .comment("Block %s = page.getBlock(%s);", blockVariable.getName(), channel)
+                    .append(loadBlock(context, commonSubExpressions, channel, pageVariable, commonBlocksVariable))
+                    .putVariable(blockVariable);
+        }
+
+        if (inputChannels.size() == 1 && !commonSubExpressions.isCommonChannel(inputChannels.get(0)) && isDeterministic(filter)) {
+            // a deterministic filter over a single dictionary or run length encoded column
+            // is evaluated once per referenced dictionary entry or once per run
+            Variable blockVariable = context.getVariable("block_" + inputChannels.get(0));
+            Variable dictionaryVariable = context.declareVariable(com.facebook.presto.spi.block.Block.class, "dictionary");
+            Variable entriesVariable = context.declareVariable(boolean[].class, "entries");
+
+            Block filterDictionary = new Block(context)
+                    .comment("Block dictionary = getDictionary(%s);", blockVariable.getName())
+                    .getVariable(blockVariable)
+                    .invokeStatic(EncodedBlockOperations.class, "getDictionary", com.facebook.presto.spi.block.Block.class, com.facebook.presto.spi.block.Block.class)
+                    .putVariable(dictionaryVariable)
+                    .comment("boolean[] entries = getReferencedEntries(%s);", blockVariable.getName())
+                    .getVariable(blockVariable)
+                    .invokeStatic(EncodedBlockOperations.class, "getReferencedEntries", boolean[].class, com.facebook.presto.spi.block.Block.class)
+                    .putVariable(entriesVariable)
+                    .append(forLoop(context,
+                            positionVariable,
+                            new Block(context)
+                                    .getVariable(dictionaryVariable)
+                                    .invokeInterface(com.facebook.presto.spi.block.Block.class, "getPositionCount", int.class),
+                            new IfStatement(context,
+                                    new Block(context)
+                                            .getVariable(entriesVariable)
+                                            .getVariable(positionVariable)
+                                            .invokeStatic(EncodedBlockOperations.class, "isReferenced", boolean.class, boolean[].class, int.class),
+                                    new Block(context)
+                                            .comment("entries[position] = filter(session, dictionary, position);")
+                                            .getVariable(entriesVariable)
+                                            .getVariable(positionVariable)
+                                            .append(invokeFilter(context, classDefinition, filterMethodName, sessionVariable, new Block(context).getVariable(dictionaryVariable), 1, positionVariable))
+                                            .invokeStatic(EncodedBlockOperations.class, "setEntry", void.class, boolean[].class, int.class, boolean.class),
+                                    null)))
+                    .comment("return selectDictionaryPositions(%s, entries, selectedPositions);", blockVariable.getName())
+                    .getVariable(blockVariable)
+                    .getVariable(entriesVariable)
+                    .getVariable(selectedPositionsVariable)
+                    .invokeStatic(EncodedBlockOperations.class, "selectDictionaryPositions", int.class, com.facebook.presto.spi.block.Block.class, boolean[].class, int[].class)
+                    .retInt();
+
+            Block filterRunLength = new Block(context)
+                    .append(new IfStatement(context,
+                            new Block(context)
+                                    .comment("filter(session, getRunLengthValue(%s), 0)", blockVariable.getName())
+                                    .putVariable(positionVariable, 0)
+                                    .append(invokeFilter(context,
+                                            classDefinition,
+                                            filterMethodName,
+                                            sessionVariable,
+                                            new Block(context)
+                                                    .getVariable(blockVariable)
+                                                    .invokeStatic(EncodedBlockOperations.class, "getRunLengthValue", com.facebook.presto.spi.block.Block.class, com.facebook.presto.spi.block.Block.class),
+                                            1,
+                                            positionVariable)),
+                            new Block(context)
+                                    .comment("return selectAllPositions(selectedPositions, positionCount);")
+                                    .getVariable(selectedPositionsVariable)
+                                    .getVariable(positionCountVariable)
+                                    .invokeStatic(EncodedBlockOperations.class, "selectAllPositions", int.class, int[].class, int.class)
+                                    .retInt(),
+                            null))
+                    .comment("return 0;")
+                    .push(0)
+                    .retInt();
+
+            method.getBody()
+                    .append(new IfStatement(context,
+                            new Block(context)
+                                    .comment("isDictionaryEncoded(%s)", blockVariable.getName())
+                                    .getVariable(blockVariable)
+                                    .invokeStatic(EncodedBlockOperations.class, "isDictionaryEncoded", boolean.class, com.facebook.presto.spi.block.Block.class),
+                            filterDictionary,
+                            null))
+                    .append(new IfStatement(context,
+                            new Block(context)
+                                    .comment("isRunLengthEncoded(%s, positionCount)", blockVariable.getName())
+                                    .getVariable(blockVariable)
+                                    .getVariable(positionCountVariable)
+                                    .invokeStatic(EncodedBlockOperations.class, "isRunLengthEncoded", boolean.class, com.facebook.presto.spi.block.Block.class, int.class),
+                            filterRunLength,
+                            null));
+        }
+
+        IfStatementBuilder filterBlock = new IfStatementBuilder(context)
+                .condition(invokeFilter(context, classDefinition, filterMethodName, sessionVariable, pushBlockVariables(context, inputChannels), inputChannels.size(), positionVariable))
+                .ifTrue(new Block(context)
+                        .comment("selectedPositions[selectedCount] = position;")
+                        .getVariable(selectedPositionsVariable)
+                        .getVariable(selectedCountVariable)
+                        .getVariable(positionVariable)
+                        .putIntArrayElement()
+                        .comment("selectedCount++;")
+                        .incrementVariable(selectedCountVariable, (byte) 1));
+
+        method.getBody()
+                .append(forLoop(context, positionVariable, new Block(context).getVariable(positionCountVariable), filterBlock.build()))
+                .comment("return selectedCount;")
+                .getVariable(selectedCountVariable)
+                .retInt();
+    }
+
+    private static ByteCodeNode forLoop(CompilerContext context, Variable indexVariable, ByteCodeNode end, ByteCodeNode body)
+    {
+        return ForLoop.forLoopBuilder(context)
+                .initialize(new Block(context)
+                        .comment("int %s = 0;", indexVariable.getName())
+                        .putVariable(indexVariable, 0))
+                .condition(new Block(context)
+                        .comment("%s < end", indexVariable.getName())
+                        .getVariable(indexVariable)
+                        .append(end)
+                        .invokeStatic(CompilerOperations.class, "lessThan", boolean.class, int.class, int.class))
+                .update(new Block(context)
+                        .comment("%s++", indexVariable.getName())
+                        .incrementVariable(indexVariable, (byte) 1))
+                .body(body)
+                .build();
+    }
+
+    private static ByteCodeNode invokeFilter(
+            CompilerContext context,
+            ClassDefinition classDefinition,
+            String methodName,
+            Variable sessionVariable,
+            ByteCodeNode pushBlocks,
+            int blockCount,
+            Variable positionVariable)
+    {
+        return new Block(context)
+                .pushThis()
+                .getVariable(sessionVariable)
+                .append(pushBlocks)
+                .getVariable(positionVariable)
+                .invokeVirtual(classDefinition.getType(),
+                        methodName,
+                        type(boolean.class),
+                        ImmutableList.<ParameterizedType>builder()
+                                .add(type(ConnectorSession.class))
+                                .addAll(nCopies(blockCount, type(com.facebook.presto.spi.block.Block.class)))
+                                .add(type(int.class))
+                                .build());
+    }
+
+    private static ByteCodeNode invokeProjection(
+            CompilerContext context,
+            ClassDefinition classDefinition,
+            String methodName,
+            Variable sessionVariable,
+            ByteCodeNode pushBlocks,
+            int blockCount,
+            ByteCodeNode pushPosition,
+            Variable outputVariable)
+    {
+        return new Block(context)
+                .comment("%s(session, blocks, position, %s)", methodName, outputVariable.getName())
+                .pushThis()
+                .getVariable(sessionVariable)
+                .append(pushBlocks)
+                .append(pushPosition)
+                .getVariable(outputVariable)
+                .invokeVirtual(classDefinition.getType(),
+                        methodName,
+                        type(void.class),
+                        ImmutableList.<ParameterizedType>builder()
+                                .add(type(ConnectorSession.class))
+                                .addAll(nCopies(blockCount, type(com.facebook.presto.spi.block.Block.class)))
+                                .add(type(int.class))
+                                .add(type(BlockBuilder.class))
+                                .build());
+    }
+
+    private static ByteCodeNode newBlockBuilder(CompilerContext context, CallSiteBinder callSiteBinder, Type type, Variable outputVariable)
+    {
+        return new Block(context)
+                .comment("BlockBuilder %s = type.createBlockBuilder(new BlockBuilderStatus());", outputVariable.getName())
+                .append(loadConstant(context, callSiteBinder.bind(type, Type.class)))
+                .newObject(BlockBuilderStatus.class)
+                .dup()
+                .invokeConstructor(BlockBuilderStatus.class)
+                .invokeInterface(Type.class, "createBlockBuilder", BlockBuilder.class, BlockBuilderStatus.class)
+                .putVariable(outputVariable);
+    }
+
+    private static ByteCodeNode loadBlock(CompilerContext context, CommonSubExpressions commonSubExpressions, int channel, Variable pageVariable, Variable commonBlocksVariable)
+    {
+        if (commonSubExpressions.isCommonChannel(channel)) {
+            int commonIndex = channel - commonSubExpressions.getFirstCommonChannel();
+            return new Block(context)
+                    .comment("commonBlocks[%s]", commonIndex)
+                    .getVariable(commonBlocksVariable)
+                    .push(commonIndex)
+                    .getObjectArrayElement();
+        }
+        return new Block(context)
+                .comment("page.getBlock(%s)", channel)
+                .getVariable(pageVariable)
+                .push(channel)
+                .invokeVirtual(Page.class, "getBlock", com.facebook.presto.spi.block.Block.class, int.class);
+    }
+
+    private static ByteCodeNode storeCommonBlock(
+            CompilerContext context,
+            CommonSubExpressions commonSubExpressions,
+            int commonIndex,
+            Variable outputVariable,
+            Variable commonBlocksVariable)
+    {
+        String blockVariableName = "block_" + (commonSubExpressions.getFirstCommonChannel() + commonIndex);
+        return new Block(context)
+                .comment("commonBlocks[%s] = %s = %s.build();", commonIndex, blockVariableName, outputVariable.getName())
+                .getVariable(outputVariable)
+                .invokeInterface(BlockBuilder.class, "build", com.facebook.presto.spi.block.Block.class)
+                .putVariable(blockVariableName)
+                .getVariable(commonBlocksVariable)
+                .push(commonIndex)
+                .getVariable(blockVariableName)
+                .putObjectArrayElement();
+    }
+
+    private static ByteCodeNode appendNulls(CompilerContext context, Variable outputVariable, Variable endVariable, Variable nextPositionVariable)
+    {
+        return new Block(context)
+                .comment("appendNulls(%s, %s - nextPosition);", outputVariable.getName(), endVariable.getName())
+                .getVariable(outputVariable)
+                .getVariable(endVariable)
+                .getVariable(nextPositionVariable)
+                .append(OpCode.ISUB)
+                .invokeStatic(CompilerOperations.class, "appendNulls", void.class, BlockBuilder.class, int.class);
+    }
+
+    private boolean isDeterministic(RowExpression expression)
+    {
+        for (RowExpression subExpression : Expressions.subExpressions(ImmutableList.of(expression))) {
+            if (!(subExpression instanceof CallExpression)) {
+                continue;
+            }
+            Signature signature = ((CallExpression) subExpression).getSignature();
+            switch (signature.getName()) {
+                // special forms and casts are deterministic themselves
+                case CAST:
+                case IF:
+                case NULL_IF:
+                case SWITCH:
+                case TRY_CAST:
+                case IS_NULL:
+                case IS_DISTINCT_FROM:
+                case COALESCE:
+                case AND:
+                case OR:
+                case IN:
+                    continue;
+                default:
+                    FunctionInfo function = metadata.getFunctionRegistry().getExactOrResolvedFunction(signature);
+                    if (!function.isDeterministic()) {
+                        return false;
+                    }
+            }
+        }
+        return true;
+    }
+
+    private void generateFilterMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, String methodName, RowExpression filter)
+    {
+        CompilerContext context = new CompilerContext(BOOTSTRAP_METHOD);
+        MethodDefinition method = classDefinition.declareMethod(context,
+                a(PUBLIC),
+                methodName,
                 type(boolean.class),
                 ImmutableList.<NamedParameterDefinition>builder()
                         .add(arg("session", ConnectorSession.class))
@@ -14,6 +14,7 @@
 package com.facebook.presto.sql.planner;
 
 import com.facebook.presto.Session;
+import com.facebook.presto.SystemSessionProperties;
 import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.Signature;
@@ -64,6 +65,8 @@ import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.FINAL;
 import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.PARTIAL;
 import static com.facebook.presto.sql.planner.plan.AggregationNode.Step.SINGLE;
 import static com.facebook.presto.sql.planner.plan.IndexJoinNode.EquiJoinClause.probeGetter;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
 import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.leftGetter;
 import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.rightGetter;
 import static com.facebook.presto.sql.planner.plan.TableWriterNode.CreateHandle;
@@ -90,9 +93,10 @@ public class DistributedLogicalPlanner
         this.idAllocator = checkNotNull(idAllocator, "idAllocator is null");
     }
 
-    public SubPlan createSubPlans(Plan plan, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean distributedJoins)
+    public SubPlan createSubPlans(Plan plan, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean distributedJoins, long broadcastJoinMaxRows)
     {
-        Visitor visitor = new Visitor(plan.getSymbolAllocator(), createSingleNodePlan, distributedIndexJoins, distributedJoins);
+        long maxReplicatedRows = SystemSessionProperties.getBroadcastJoinMaxRows(session, broadcastJoinMaxRows);
+        Visitor visitor = new Visitor(plan.getSymbolAllocator(), createSingleNodePlan, distributedIndexJoins, distributedJoins, maxReplicatedRows);
         SubPlanBuilder builder = plan.getRoot().accept(visitor, null);
 
         SubPlan subplan = builder.build();
@@ -110,13 +114,15 @@ public class DistributedLogicalPlanner
         private final boolean createSingleNodePlan;
         private final boolean distributedIndexJoins;
         private final boolean distributedJoins;
+        private final long broadcastJoinMaxRows;
 
-        public Visitor(SymbolAllocator allocator, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean distributedJoins)
+        public Visitor(SymbolAllocator allocator, boolean createSingleNodePlan, boolean distributedIndexJoins, boolean distributedJoins, long broadcastJoinMaxRows)
         {
             this.allocator = allocator;
             this.createSingleNodePlan = createSingleNodePlan;
             this.distributedIndexJoins = distributedIndexJoins;
             this.distributedJoins = distributedJoins;
+            this.broadcastJoinMaxRows = broadcastJoinMaxRows;
         }
 
         @Override
@@ -126,7 +132,7 @@ public class DistributedLogicalPlanner
 
             if (!current.isDistributed()) {
                 // add the aggregation node as the root of the current fragment
-                current.setRoot(new AggregationNode(node.getId(), current.getRoot(), node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), SINGLE, node.getSampleWeight(), node.getConfidence()));
+                current.setRoot(new AggregationNode(node.getId(), current.getRoot(), node.getGroupBy(), node.getAggregations(), node.getFunctions(), node.getMasks(), SINGLE, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol()));
                 return current;
             }
 
@@ -145,56 +151,57 @@ public class DistributedLogicalPlanner
 
             // else, we need to "close" the current fragment and create an unpartitioned fragment for the final aggregation
             if (decomposable) {
-                return addDistributedAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence());
+                return addDistributedAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol());
             }
-            return addSingleNodeAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence());
+            return addSingleNodeAggregation(current, aggregations, functions, masks, groupBy, node.getSampleWeight(), node.getConfidence(), node.getHashSymbol());
         }
 
         @Override
         public SubPlanBuilder visitMarkDistinct(MarkDistinctNode node, Void context)
         {
             SubPlanBuilder current = node.getSource().accept(this, context);
+            List<Symbol> partitionBy = getPartitioningSymbols(node.getDistinctSymbols(), node.getHashSymbol());
             // Check if the subplan is already partitioned the way we want it
             boolean alreadyPartitioned = false;
             if (current.getDistribution() == PlanDistribution.FIXED) {
                 for (SubPlan child : current.getChildren()) {
                     if (child.getFragment().getOutputPartitioning() == OutputPartitioning.HASH &&
-                            ImmutableSet.copyOf(child.getFragment().getPartitionBy()).equals(ImmutableSet.copyOf(node.getDistinctSymbols()))) {
+                            ImmutableSet.copyOf(child.getFragment().getPartitionBy()).equals(ImmutableSet.copyOf(partitionBy))) {
                         alreadyPartitioned = true;
                         break;
                     }
                 }
             }
             if (createSingleNodePlan || alreadyPartitioned || !current.isDistributed()) {
-                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), current.getRoot(), node.getMarkerSymbol(), node.getDistinctSymbols());
+                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), current.getRoot(), node.getMarkerSymbol(), node.getDistinctSymbols(), node.getHashSymbol());
                 current.setRoot(markNode);
                 return current;
             }
             else {
                 PlanNode sink = new SinkNode(idAllocator.getNextId(), current.getRoot(), current.getRoot().getOutputSymbols());
                 current.setRoot(sink)
-                        .setHashOutputPartitioning(node.getDistinctSymbols());
+                        .setHashOutputPartitioning(partitionBy);
 
                 PlanNode exchange = new ExchangeNode(idAllocator.getNextId(), current.getId(), sink.getOutputSymbols());
-                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), exchange, node.getMarkerSymbol(), node.getDistinctSymbols());
+                MarkDistinctNode markNode = new MarkDistinctNode(idAllocator.getNextId(), exchange, node.getMarkerSymbol(), node.getDistinctSymbols(), node.getHashSymbol());
                 return createFixedDistributionPlan(markNode)
                         .addChild(current.build());
             }
         }
 
-        private SubPlanBuilder addSingleNodeAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence)
+        private SubPlanBuilder addSingleNodeAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence, Optional<Symbol> hashSymbol)
         {
             plan.setRoot(new SinkNode(idAllocator.getNextId(), plan.getRoot(), plan.getRoot().getOutputSymbols()));
 
             // create aggregation plan
             ExchangeNode source = new ExchangeNode(idAllocator.getNextId(), plan.getId(), plan.getRoot().getOutputSymbols());
-            AggregationNode aggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, aggregations, functions, masks, SINGLE, sampleWeight, confidence);
+            AggregationNode aggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, aggregations, functions, masks, SINGLE, sampleWeight, confidence, hashSymbol);
             plan = createSingleNodePlan(aggregation).addChild(plan.build());
 
             return plan;
         }
 
-        private SubPlanBuilder addDistributedAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence)
+        private SubPlanBuilder addDistributedAggregation(SubPlanBuilder plan, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, List<Symbol> groupBy, Optional<Symbol> sampleWeight, double confidence, Optional<Symbol> hashSymbol)
         {
             Map<Symbol, FunctionCall> finalCalls = new HashMap<>();
             Map<Symbol, FunctionCall> intermediateCalls = new HashMap<>();
@@ -216,19 +223,19 @@ public class DistributedLogicalPlanner
             }
 
             // create partial aggregation plan
-            AggregationNode partialAggregation = new AggregationNode(idAllocator.getNextId(), plan.getRoot(), groupBy, intermediateCalls, intermediateFunctions, intermediateMask, PARTIAL, sampleWeight, confidence);
+            AggregationNode partialAggregation = new AggregationNode(idAllocator.getNextId(), plan.getRoot(), groupBy, intermediateCalls, intermediateFunctions, intermediateMask, PARTIAL, sampleWeight, confidence, hashSymbol);
             plan.setRoot(new SinkNode(idAllocator.getNextId(), partialAggregation, partialAggregation.getOutputSymbols()));
 
             // create final aggregation plan
             ExchangeNode source = new ExchangeNode(idAllocator.getNextId(), plan.getId(), plan.getRoot().getOutputSymbols());
-            AggregationNode finalAggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, finalCalls, functions, ImmutableMap.<Symbol, Symbol>of(), FINAL, Optional.<Symbol>absent(), confidence);
+            AggregationNode finalAggregation = new AggregationNode(idAllocator.getNextId(), source, groupBy, finalCalls, functions, ImmutableMap.<Symbol, Symbol>of(), FINAL, Optional.<Symbol>absent(), confidence, hashSymbol);
 
             if (groupBy.isEmpty()) {
                 plan = createSingleNodePlan(finalAggregation)
                         .addChild(plan.build());
             }
             else {
-                plan.setHashOutputPartitioning(groupBy);
+                plan.setHashOutputPartitioning(getPartitioningSymbols(groupBy, hashSymbol));
                 plan = createFixedDistributionPlan(finalAggregation)
                         .addChild(plan.build());
             }
@@ -485,11 +492,12 @@ public class DistributedLogicalPlanner
             SubPlanBuilder right = node.getRight().accept(this, context);
 
             if (left.isDistributed() || right.isDistributed()) {
-                if (distributedJoins) {
+                JoinNode.DistributionType distributionType = getDistributionType(node);
+                if (distributionType == PARTITIONED) {
                     List<Symbol> leftSymbols = Lists.transform(node.getCriteria(), leftGetter());
                     List<Symbol> rightSymbols = Lists.transform(node.getCriteria(), rightGetter());
-                    left = hashDistributeSubplan(left, leftSymbols);
-                    right = hashDistributeSubplan(right, rightSymbols);
+                    left = hashDistributeSubplan(left, getPartitioningSymbols(leftSymbols, node.getLeftHashSymbol()));
+                    right = hashDistributeSubplan(right, getPartitioningSymbols(rightSymbols, node.getRightHashSymbol()));
                 }
                 switch (node.getType()) {
                     case INNER:
@@ -499,7 +507,10 @@ public class DistributedLogicalPlanner
                                 node.getType(),
                                 left.getRoot(),
                                 new ExchangeNode(idAllocator.getNextId(), right.getId(), right.getRoot().getOutputSymbols()),
-                                node.getCriteria()));
+                                node.getCriteria(),
+                                node.getLeftHashSymbol(),
+                                node.getRightHashSymbol(),
+                                Optional.of(distributionType)));
                         left.addChild(right.build());
 
                         return left;
@@ -509,7 +520,10 @@ public class DistributedLogicalPlanner
                                 node.getType(),
                                 new ExchangeNode(idAllocator.getNextId(), left.getId(), left.getRoot().getOutputSymbols()),
                                 right.getRoot(),
-                                node.getCriteria()));
+                                node.getCriteria(),
+                                node.getLeftHashSymbol(),
+                                node.getRightHashSymbol(),
+                                Optional.of(distributionType)));
                         right.addChild(left.build());
 
                         return right;
@@ -518,12 +532,43 @@ public class DistributedLogicalPlanner
                 }
             }
             else {
-                JoinNode join = new JoinNode(node.getId(), node.getType(), left.getRoot(), right.getRoot(), node.getCriteria());
+                JoinNode join = new JoinNode(node.getId(), node.getType(), left.getRoot(), right.getRoot(), node.getCriteria(), node.getLeftHashSymbol(), node.getRightHashSymbol());
                 return createSingleNodePlan(join)
                         .setChildren(Iterables.concat(left.getChildren(), right.getChildren()));
             }
         }
 
+        /**
+         * Replicates the build side when it is estimated to be small enough, and partitions both
+         * sides otherwise. Joins without a usable estimate fall back to the configured default.
+         */
+        private JoinNode.DistributionType getDistributionType(JoinNode node)
+        {
+            if (node.getCriteria().isEmpty()) {
+                // there are no keys to partition on
+                return REPLICATED;
+            }
+
+            PlanNode buildSide = node.getType() == JoinNode.Type.RIGHT ? node.getLeft() : node.getRight();
+            long buildRowCount = new RowCountEstimator(metadata).estimateRowCount(buildSide);
+            if (buildRowCount != RowCountEstimator.UNKNOWN) {
+                return buildRowCount <= broadcastJoinMaxRows ? REPLICATED : PARTITIONED;
+            }
+            return distributedJoins ? PARTITIONED : REPLICATED;
+        }
+
+        /**
+         * Rows are partitioned by the precomputed hash of the keys when there is one, so the
+         * exchange does not hash the keys again.
+         */
+        private List<Symbol> getPartitioningSymbols(List<Symbol> keys, Optional<Symbol> hashSymbol)
+        {
+            if (hashSymbol.isPresent()) {
+                return ImmutableList.of(hashSymbol.get());
+            }
+            return keys;
+        }
+
         public SubPlanBuilder hashDistributeSubplan(SubPlanBuilder subPlan, List<Symbol> symbols)
         {
             PlanNode sink = new SinkNode(idAllocator.getNextId(), subPlan.getRoot(), subPlan.getRoot().getOutputSymbols());
@@ -549,13 +594,15 @@ public class DistributedLogicalPlanner
                         new ExchangeNode(idAllocator.getNextId(), filteringSource.getId(), filteringSource.getRoot().getOutputSymbols()),
                         node.getSourceJoinSymbol(),
                         node.getFilteringSourceJoinSymbol(),
-                        node.getSemiJoinOutput()));
+                        node.getSemiJoinOutput(),
+                        node.getSourceHashSymbol(),
+                        node.getFilteringSourceHashSymbol()));
                 source.addChild(filteringSource.build());
 
                 return source;
             }
             else {
-                SemiJoinNode semiJoinNode = new SemiJoinNode(node.getId(), source.getRoot(), filteringSource.getRoot(), node.getSourceJoinSymbol(), node.getFilteringSourceJoinSymbol(), node.getSemiJoinOutput());
+                SemiJoinNode semiJoinNode = new SemiJoinNode(node.getId(), source.getRoot(), filteringSource.getRoot(), node.getSourceJoinSymbol(), node.getFilteringSourceJoinSymbol(), node.getSemiJoinOutput(), node.getSourceHashSymbol(), node.getFilteringSourceHashSymbol());
                 return createSingleNodePlan(semiJoinNode)
                         .setChildren(Iterables.concat(source.getChildren(), filteringSource.getChildren()));
             }
@@ -0,0 +1,112 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * The table scan of a join probe side that can be restricted to the join keys of the build side.
+ */
+final class DynamicFilterScan
+{
+    private final TableScanNode tableScan;
+    private final Map<Symbol, Integer> keys;
+
+    private DynamicFilterScan(TableScanNode tableScan, Map<Symbol, Integer> keys)
+    {
+        this.tableScan = checkNotNull(tableScan, "tableScan is null");
+        this.keys = ImmutableMap.copyOf(checkNotNull(keys, "keys is null"));
+    }
+
+    public TableScanNode getTableScan()
+    {
+        return tableScan;
+    }
+
+    /**
+     * Gets the index of the join key of each filtered symbol of the scan.
+     */
+    public Map<Symbol, Integer> getKeys()
+    {
+        return keys;
+    }
+
+    /**
+     * Finds the scan under the probe side of a join. Only an inner join can be filtered, because
+     * an outer join outputs the probe rows without a match, and only filter and project nodes may
+     * sit between the scan and the join, because any other node can change which rows reach the
+     * join. A join key is only filtered if every projection passes it through unchanged.
+     */
+    public static Optional<DynamicFilterScan> find(JoinNode.Type joinType, PlanNode probeNode, List<Symbol> probeSymbols)
+    {
+        checkNotNull(joinType, "joinType is null");
+        checkNotNull(probeNode, "probeNode is null");
+        checkNotNull(probeSymbols, "probeSymbols is null");
+
+        if (joinType != JoinNode.Type.INNER) {
+            return Optional.absent();
+        }
+
+        Set<Symbol> passThroughSymbols = new HashSet<>(probeSymbols);
+        PlanNode node = probeNode;
+        while (!(node instanceof TableScanNode)) {
+            if (node instanceof FilterNode) {
+                node = ((FilterNode) node).getSource();
+            }
+            else if (node instanceof ProjectNode) {
+                ProjectNode projectNode = (ProjectNode) node;
+                Iterator<Symbol> iterator = passThroughSymbols.iterator();
+                while (iterator.hasNext()) {
+                    Symbol symbol = iterator.next();
+                    if (!new QualifiedNameReference(symbol.toQualifiedName()).equals(projectNode.getOutputMap().get(symbol))) {
+                        iterator.remove();
+                    }
+                }
+                node = projectNode.getSource();
+            }
+            else {
+                return Optional.absent();
+            }
+        }
+        TableScanNode tableScan = (TableScanNode) node;
+
+        Map<Symbol, Integer> keys = new LinkedHashMap<>();
+        for (int i = 0; i < probeSymbols.size(); i++) {
+            Symbol symbol = probeSymbols.get(i);
+            if (passThroughSymbols.contains(symbol) && tableScan.getOutputSymbols().contains(symbol) && !keys.containsKey(symbol)) {
+                keys.put(symbol, i);
+            }
+        }
+        if (keys.isEmpty()) {
+            return Optional.absent();
+        }
+        return Optional.of(new DynamicFilterScan(tableScan, keys));
+    }
+}
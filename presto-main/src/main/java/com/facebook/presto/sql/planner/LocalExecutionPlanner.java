@@ -18,11 +18,13 @@ import com.facebook.presto.block.BlockUtils;
 import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.index.IndexManager;
 import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.FunctionInfo;
 import com.facebook.presto.metadata.Metadata;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.AggregationOperator.AggregationOperatorFactory;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilter;
 import com.facebook.presto.operator.ExchangeClient;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
 import com.facebook.presto.operator.FilterAndProjectOperator;
@@ -43,6 +45,7 @@ import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PageProcessor;
+import com.facebook.presto.operator.ParallelHashBuilder;
 import com.facebook.presto.operator.ProjectionFunction;
 import com.facebook.presto.operator.ProjectionFunctions;
 import com.facebook.presto.operator.RecordSinkManager;
@@ -52,6 +55,7 @@ import com.facebook.presto.operator.ScanFilterAndProjectOperator;
 import com.facebook.presto.operator.SetBuilderOperator.SetBuilderOperatorFactory;
 import com.facebook.presto.operator.SetBuilderOperator.SetSupplier;
 import com.facebook.presto.operator.SourceOperatorFactory;
+import com.facebook.presto.operator.SpillerFactory;
 import com.facebook.presto.operator.TableScanOperator.TableScanOperatorFactory;
 import com.facebook.presto.operator.TopNOperator.TopNOperatorFactory;
 import com.facebook.presto.operator.TopNRowNumberOperator;
@@ -63,8 +67,13 @@ import com.facebook.presto.operator.index.FieldSetFilteringRecordSet;
 import com.facebook.presto.operator.index.IndexBuildDriverFactoryProvider;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
 import com.facebook.presto.operator.index.IndexLookupSourceSupplier;
+import com.facebook.presto.operator.index.IndexSourceId;
 import com.facebook.presto.operator.index.IndexSourceOperator;
+import com.facebook.presto.operator.index.SharedIndexCache;
+import com.facebook.presto.operator.window.AggregateWindowFunctionSupplier;
+import com.facebook.presto.operator.window.FrameInfo;
 import com.facebook.presto.spi.Index;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.RecordSet;
 import com.facebook.presto.spi.RecordSink;
@@ -86,6 +95,7 @@ import com.facebook.presto.sql.planner.plan.LimitNode;
 import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
 import com.facebook.presto.sql.planner.plan.OutputNode;
 import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.sql.planner.plan.PlanVisitor;
 import com.facebook.presto.sql.planner.plan.ProjectNode;
 import com.facebook.presto.sql.planner.plan.RowNumberLimitNode;
@@ -106,8 +116,11 @@ import com.facebook.presto.sql.relational.SqlToRowExpressionTranslator;
 import com.facebook.presto.sql.tree.BooleanLiteral;
 import com.facebook.presto.sql.tree.Expression;
 import com.facebook.presto.sql.tree.ExpressionTreeRewriter;
+import com.facebook.presto.sql.tree.FrameBound;
 import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
 import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.facebook.presto.sql.tree.WindowFrame;
 import com.facebook.presto.util.IterableTransformer;
 import com.facebook.presto.util.MoreFunctions;
 import com.google.common.base.Function;
@@ -145,6 +158,7 @@ import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOp
 import static com.facebook.presto.operator.TableCommitOperator.TableCommitOperatorFactory;
 import static com.facebook.presto.operator.TableCommitOperator.TableCommitter;
 import static com.facebook.presto.operator.TableWriterOperator.TableWriterOperatorFactory;
+import static com.facebook.presto.operator.WindowFunctionDefinition.window;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypes;
 import static com.facebook.presto.sql.analyzer.ExpressionAnalyzer.getExpressionTypesFromInput;
 import static com.facebook.presto.sql.planner.plan.IndexJoinNode.EquiJoinClause.indexGetter;
@@ -175,7 +189,11 @@ public class LocalExecutionPlanner
     private final ExpressionCompiler compiler;
     private final boolean interpreterEnabled;
     private final DataSize maxIndexMemorySize;
+    private final int hashBuildConcurrency;
+    private final boolean dynamicFilteringEnabled;
     private final IndexJoinLookupStats indexJoinLookupStats;
+    private final SharedIndexCache sharedIndexCache;
+    private final SpillerFactory spillerFactory;
 
     @Inject
     public LocalExecutionPlanner(
@@ -187,8 +205,10 @@ public class LocalExecutionPlanner
             Supplier<ExchangeClient> exchangeClientSupplier,
             ExpressionCompiler compiler,
             IndexJoinLookupStats indexJoinLookupStats,
+            SharedIndexCache sharedIndexCache,
             CompilerConfig compilerConfig,
-            TaskManagerConfig taskManagerConfig)
+            TaskManagerConfig taskManagerConfig,
+            SpillerFactory spillerFactory)
     {
         checkNotNull(compilerConfig, "compilerConfig is null");
         this.pageSourceProvider = checkNotNull(pageSourceProvider, "pageSourceProvider is null");
@@ -199,7 +219,12 @@ public class LocalExecutionPlanner
         this.recordSinkManager = checkNotNull(recordSinkManager, "recordSinkManager is null");
         this.compiler = checkNotNull(compiler, "compiler is null");
         this.indexJoinLookupStats = checkNotNull(indexJoinLookupStats, "indexJoinLookupStats is null");
+        this.sharedIndexCache = checkNotNull(sharedIndexCache, "sharedIndexCache is null");
         this.maxIndexMemorySize = checkNotNull(taskManagerConfig, "taskManagerConfig is null").getMaxTaskIndexMemoryUsage();
+        // the hash build is partitioned by hash bits, so the concurrency must be a power of 2
+        this.hashBuildConcurrency = Integer.highestOneBit(taskManagerConfig.getHashBuildConcurrency());
+        this.dynamicFilteringEnabled = taskManagerConfig.isDynamicFilteringEnabled();
+        this.spillerFactory = checkNotNull(spillerFactory, "spillerFactory is null");
 
         interpreterEnabled = compilerConfig.isInterpreterEnabled();
     }
@@ -329,10 +354,37 @@ public class LocalExecutionPlanner
         }
     }
 
+    private static class DynamicFilterTarget
+    {
+        private final DynamicFilter dynamicFilter;
+        private final Map<Symbol, Integer> keys;
+
+        private DynamicFilterTarget(DynamicFilter dynamicFilter, Map<Symbol, Integer> keys)
+        {
+            this.dynamicFilter = checkNotNull(dynamicFilter, "dynamicFilter is null");
+            this.keys = ImmutableMap.copyOf(checkNotNull(keys, "keys is null"));
+        }
+
+        private DynamicFilter getDynamicFilter()
+        {
+            return dynamicFilter;
+        }
+
+        /**
+         * Gets the index of the join key of each filtered symbol of the scan.
+         */
+        private Map<Symbol, Integer> getKeys()
+        {
+            return keys;
+        }
+    }
+
     private class Visitor
             extends PlanVisitor<LocalExecutionPlanContext, PhysicalOperation>
     {
         private final Session session;
+        // dynamic filters of the join probe sides, by the id of the scanned table
+        private final Map<PlanNodeId, DynamicFilterTarget> dynamicFilters = new HashMap<>();
 
         private Visitor(Session session)
         {
@@ -516,7 +568,14 @@ public class LocalExecutionPlanner
                 }
                 Symbol symbol = entry.getKey();
                 Signature signature = node.getSignatures().get(symbol);
-                windowFunctionsBuilder.add(metadata.getExactFunction(signature).bindWindowFunction(arguments.build()));
+                FunctionInfo functionInfo = metadata.getExactFunction(signature);
+                if (functionInfo.isAggregate()) {
+                    FrameInfo frameInfo = toFrameInfo(entry.getValue().getWindow().get().getFrame());
+                    windowFunctionsBuilder.add(window(new AggregateWindowFunctionSupplier(signature, functionInfo.getAggregationFunction(), frameInfo), arguments.build()));
+                }
+                else {
+                    windowFunctionsBuilder.add(functionInfo.bindWindowFunction(arguments.build()));
+                }
                 windowFunctionOutputSymbolsBuilder.add(symbol);
             }
 
@@ -544,11 +603,36 @@ public class LocalExecutionPlanner
                         partitionChannels,
                         sortChannels,
                         sortOrder,
-                        1_000_000);
+                        1_000_000,
+                        Optional.of(spillerFactory));
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
 
+        private FrameInfo toFrameInfo(Optional<WindowFrame> frame)
+        {
+            if (!frame.isPresent()) {
+                return FrameInfo.DEFAULT_FRAME;
+            }
+
+            FrameBound start = frame.get().getStart();
+            FrameBound end = frame.get().getEnd().or(new FrameBound(FrameBound.Type.CURRENT_ROW));
+            return new FrameInfo(
+                    FrameInfo.FrameType.valueOf(frame.get().getType().name()),
+                    FrameInfo.BoundType.valueOf(start.getType().name()),
+                    getFrameOffset(start),
+                    FrameInfo.BoundType.valueOf(end.getType().name()),
+                    getFrameOffset(end));
+        }
+
+        private long getFrameOffset(FrameBound bound)
+        {
+            if (!bound.getValue().isPresent()) {
+                return 0;
+            }
+            return ((LongLiteral) bound.getValue().get()).getValue();
+        }
+
         @Override
         public PhysicalOperation visitTopN(TopNNode node, LocalExecutionPlanContext context)
         {
@@ -599,7 +683,8 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -648,7 +733,8 @@ public class LocalExecutionPlanner
                     .putAll(source.getLayout())
                     .put(node.getMarkerSymbol(), source.getLayout().size()).build();
 
-            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), source.getTypes(), channels);
+            Optional<Integer> hashChannel = getHashChannel(node.getHashSymbol(), source.getLayout());
+            MarkDistinctOperatorFactory operator = new MarkDistinctOperatorFactory(context.getNextOperatorId(), source.getTypes(), channels, hashChannel);
             return new PhysicalOperation(operator, outputMappings, source);
         }
 
@@ -724,6 +810,8 @@ public class LocalExecutionPlanner
             Map<Integer, Type> sourceTypes;
             List<ColumnHandle> columns = null;
             PhysicalOperation source = null;
+            Optional<DynamicFilter> dynamicFilter = Optional.absent();
+            Map<Integer, Integer> dynamicFilterChannels = ImmutableMap.of();
             if (sourceNode instanceof TableScanNode) {
                 TableScanNode tableScanNode = (TableScanNode) sourceNode;
 
@@ -743,6 +831,16 @@ public class LocalExecutionPlanner
 
                     channel++;
                 }
+
+                DynamicFilterTarget dynamicFilterTarget = dynamicFilters.get(tableScanNode.getId());
+                if (dynamicFilterTarget != null) {
+                    dynamicFilter = Optional.of(dynamicFilterTarget.getDynamicFilter());
+                    ImmutableMap.Builder<Integer, Integer> channels = ImmutableMap.builder();
+                    for (Map.Entry<Symbol, Integer> entry : dynamicFilterTarget.getKeys().entrySet()) {
+                        channels.put(entry.getValue(), sourceLayout.get(entry.getKey()));
+                    }
+                    dynamicFilterChannels = channels.build();
+                }
             }
             else {
                 // plan source
@@ -790,7 +888,9 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            dynamicFilter,
+                            dynamicFilterChannels);
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
@@ -851,7 +951,9 @@ public class LocalExecutionPlanner
                         new GenericCursorProcessor(filterFunction, projectionFunctions),
                         new GenericPageProcessor(filterFunction, projectionFunctions),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        dynamicFilter,
+                        dynamicFilterChannels);
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -877,6 +979,15 @@ public class LocalExecutionPlanner
         @Override
         public PhysicalOperation visitTableScan(TableScanNode node, LocalExecutionPlanContext context)
         {
+            if (dynamicFilters.containsKey(node.getId())) {
+                // the dynamic filter is applied by the scan filter and project operator
+                List<Expression> projectionExpressions = new ArrayList<>();
+                for (Symbol symbol : node.getOutputSymbols()) {
+                    projectionExpressions.add(new QualifiedNameReference(symbol.toQualifiedName()));
+                }
+                return visitScanFilterAndProject(context, node, BooleanLiteral.TRUE_LITERAL, projectionExpressions, node.getOutputSymbols());
+            }
+
             ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
             List<ColumnHandle> columns = new ArrayList<>();
 
@@ -1047,12 +1158,26 @@ public class LocalExecutionPlanner
                     indexContext.isInputDriver(),
                     indexSource.getOperatorFactories());
 
+            // Loaded rows can only be shared with other tasks when they come straight from the index,
+            // because the rows of any other index side plan depend on more than the index and the keys
+            Optional<IndexSourceId> indexSourceId = Optional.absent();
+            if (node.getIndexSource() instanceof IndexSourceNode) {
+                IndexSourceNode indexSourceNode = (IndexSourceNode) node.getIndexSource();
+                indexSourceId = Optional.of(new IndexSourceId(
+                        indexSourceNode.getIndexHandle(),
+                        ImmutableSet.copyOf(Iterables.transform(indexSourceNode.getLookupSymbols(), forMap(indexSourceNode.getAssignments()))),
+                        Lists.transform(indexSourceNode.getOutputSymbols(), forMap(indexSourceNode.getAssignments())),
+                        indexChannels));
+            }
+
             IndexLookupSourceSupplier indexLookupSourceSupplier = new IndexLookupSourceSupplier(
                     indexChannels,
                     indexSource.getTypes(),
                     indexBuildDriverFactoryProvider,
                     maxIndexMemorySize,
-                    indexJoinLookupStats);
+                    indexJoinLookupStats,
+                    sharedIndexCache,
+                    indexSourceId);
 
             ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
             outputMappings.putAll(probeSource.getLayout());
@@ -1090,9 +1215,9 @@ public class LocalExecutionPlanner
             switch (node.getType()) {
                 case INNER:
                 case LEFT:
-                    return createJoinOperator(node, node.getLeft(), leftSymbols, node.getRight(), rightSymbols, context);
+                    return createJoinOperator(node, node.getLeft(), leftSymbols, node.getLeftHashSymbol(), node.getRight(), rightSymbols, node.getRightHashSymbol(), context);
                 case RIGHT:
-                    return createJoinOperator(node, node.getRight(), rightSymbols, node.getLeft(), leftSymbols, context);
+                    return createJoinOperator(node, node.getRight(), rightSymbols, node.getRightHashSymbol(), node.getLeft(), leftSymbols, node.getLeftHashSymbol(), context);
                 default:
                     throw new UnsupportedOperationException("Unsupported join type: " + node.getType());
             }
@@ -1101,33 +1226,27 @@ public class LocalExecutionPlanner
         private PhysicalOperation createJoinOperator(JoinNode node,
                 PlanNode probeNode,
                 List<Symbol> probeSymbols,
+                Optional<Symbol> probeHashSymbol,
                 PlanNode buildNode,
                 List<Symbol> buildSymbols,
+                Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // register the dynamic filter before planning the probe, so the probe scan picks it up
+            Optional<DynamicFilter> dynamicFilter = createDynamicFilter(node, probeNode, probeSymbols);
+
             // Plan probe and introduce a projection to put all fields from the probe side into a single channel if necessary
             PhysicalOperation probeSource = probeNode.accept(this, context);
             List<Integer> probeChannels = ImmutableList.copyOf(getChannelsForSymbols(probeSymbols, probeSource.getLayout()));
+            Optional<Integer> probeHashChannel = getHashChannel(probeHashSymbol, probeSource.getLayout());
 
             // do the same on the build side
             LocalExecutionPlanContext buildContext = context.createSubContext();
             PhysicalOperation buildSource = buildNode.accept(this, buildContext);
             List<Integer> buildChannels = ImmutableList.copyOf(getChannelsForSymbols(buildSymbols, buildSource.getLayout()));
+            Optional<Integer> buildHashChannel = getHashChannel(buildHashSymbol, buildSource.getLayout());
 
-            HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
-                    buildContext.getNextOperatorId(),
-                    buildSource.getTypes(),
-                    buildChannels,
-                    100_000);
-            LookupSourceSupplier lookupSourceSupplier = hashBuilderOperatorFactory.getLookupSourceSupplier();
-            DriverFactory buildDriverFactory = new DriverFactory(
-                    buildContext.isInputDriver(),
-                    false,
-                    ImmutableList.<OperatorFactory>builder()
-                            .addAll(buildSource.getOperatorFactories())
-                            .add(hashBuilderOperatorFactory)
-                            .build());
-            context.addDriverFactory(buildDriverFactory);
+            LookupSourceSupplier lookupSourceSupplier = createLookupSourceSupplier(buildSource, buildChannels, buildHashChannel, dynamicFilter, buildContext, context);
 
             ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
             outputMappings.putAll(probeSource.getLayout());
@@ -1140,23 +1259,99 @@ public class LocalExecutionPlanner
                 outputMappings.put(entry.getKey(), offset + input);
             }
 
-            OperatorFactory operator = createJoinOperator(node.getType(), lookupSourceSupplier, probeSource.getTypes(), probeChannels, context);
+            OperatorFactory operator = createJoinOperator(node.getType(), lookupSourceSupplier, probeSource.getTypes(), probeChannels, probeHashChannel, context);
             return new PhysicalOperation(operator, outputMappings.build(), probeSource);
         }
 
+        /**
+         * Creates a dynamic filter that restricts the probe side scan to the join keys of the build side.
+         */
+        private Optional<DynamicFilter> createDynamicFilter(JoinNode node, PlanNode probeNode, List<Symbol> probeSymbols)
+        {
+            if (!dynamicFilteringEnabled) {
+                return Optional.absent();
+            }
+
+            Optional<DynamicFilterScan> dynamicFilterScan = DynamicFilterScan.find(node.getType(), probeNode, probeSymbols);
+            if (!dynamicFilterScan.isPresent()) {
+                return Optional.absent();
+            }
+
+            DynamicFilter dynamicFilter = new DynamicFilter();
+            dynamicFilters.put(dynamicFilterScan.get().getTableScan().getId(), new DynamicFilterTarget(dynamicFilter, dynamicFilterScan.get().getKeys()));
+            return Optional.of(dynamicFilter);
+        }
+
+        private LookupSourceSupplier createLookupSourceSupplier(
+                PhysicalOperation buildSource,
+                List<Integer> buildChannels,
+                Optional<Integer> buildHashChannel,
+                Optional<DynamicFilter> dynamicFilter,
+                LocalExecutionPlanContext buildContext,
+                LocalExecutionPlanContext context)
+        {
+            if (hashBuildConcurrency <= 1) {
+                HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
+                        buildContext.getNextOperatorId(),
+                        buildSource.getTypes(),
+                        buildChannels,
+                        buildHashChannel,
+                        dynamicFilter,
+                        100_000);
+                DriverFactory buildDriverFactory = new DriverFactory(
+                        buildContext.isInputDriver(),
+                        false,
+                        ImmutableList.<OperatorFactory>builder()
+                                .addAll(buildSource.getOperatorFactories())
+                                .add(hashBuilderOperatorFactory)
+                                .build());
+                context.addDriverFactory(buildDriverFactory);
+                return hashBuilderOperatorFactory.getLookupSourceSupplier();
+            }
+
+            // one driver collects the build side, and one driver per partition builds its hash table
+            ParallelHashBuilder parallelHashBuilder = new ParallelHashBuilder(
+                    buildSource.getTypes(),
+                    buildChannels,
+                    buildHashChannel,
+                    dynamicFilter,
+                    hashBuildConcurrency,
+                    100_000);
+            DriverFactory collectDriverFactory = new DriverFactory(
+                    buildContext.isInputDriver(),
+                    false,
+                    ImmutableList.<OperatorFactory>builder()
+                            .addAll(buildSource.getOperatorFactories())
+                            .add(parallelHashBuilder.getCollectOperatorFactory(buildContext.getNextOperatorId()))
+                            .build());
+            context.addDriverFactory(collectDriverFactory);
+
+            int valuesOperatorId = buildContext.getNextOperatorId();
+            int buildOperatorId = buildContext.getNextOperatorId();
+            for (int partition = 0; partition < parallelHashBuilder.getPartitionCount(); partition++) {
+                context.addDriverFactory(new DriverFactory(
+                        false,
+                        false,
+                        new ValuesOperatorFactory(valuesOperatorId, ImmutableList.<Type>of(), ImmutableList.<Page>of()),
+                        parallelHashBuilder.getBuildOperatorFactory(buildOperatorId, partition)));
+            }
+            return parallelHashBuilder.getLookupSourceSupplier();
+        }
+
         private OperatorFactory createJoinOperator(
                 JoinNode.Type type,
                 LookupSourceSupplier lookupSourceSupplier,
                 List<Type> probeTypes,
                 List<Integer> probeJoinChannels,
+                Optional<Integer> probeHashChannel,
                 LocalExecutionPlanContext context)
         {
             switch (type) {
                 case INNER:
-                    return LookupJoinOperators.innerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels);
+                    return LookupJoinOperators.innerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels, probeHashChannel);
                 case LEFT:
                 case RIGHT:
-                    return LookupJoinOperators.outerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels);
+                    return LookupJoinOperators.outerJoin(context.getNextOperatorId(), lookupSourceSupplier, probeTypes, probeJoinChannels, probeHashChannel);
                 default:
                     throw new UnsupportedOperationException("Unsupported join type: " + type);
             }
@@ -1175,7 +1370,10 @@ public class LocalExecutionPlanner
             int probeChannel = probeSource.getLayout().get(node.getSourceJoinSymbol());
             int buildChannel = buildSource.getLayout().get(node.getFilteringSourceJoinSymbol());
 
-            SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(buildContext.getNextOperatorId(), buildSource.getTypes(), buildChannel, 100_000);
+            Optional<Integer> probeHashChannel = getHashChannel(node.getSourceHashSymbol(), probeSource.getLayout());
+            Optional<Integer> buildHashChannel = getHashChannel(node.getFilteringSourceHashSymbol(), buildSource.getLayout());
+
+            SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(buildContext.getNextOperatorId(), buildSource.getTypes(), buildChannel, buildHashChannel, 100_000);
             SetSupplier setProvider = setBuilderOperatorFactory.getSetProvider();
             DriverFactory buildDriverFactory = new DriverFactory(
                     buildContext.isInputDriver(),
@@ -1192,7 +1390,7 @@ public class LocalExecutionPlanner
                     .put(node.getSemiJoinOutput(), probeSource.getLayout().size())
                     .build();
 
-            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(context.getNextOperatorId(), setProvider, probeSource.getTypes(), probeChannel);
+            HashSemiJoinOperatorFactory operator = new HashSemiJoinOperatorFactory(context.getNextOperatorId(), setProvider, probeSource.getTypes(), probeChannel, probeHashChannel);
             return new PhysicalOperation(operator, outputMappings, probeSource);
         }
 
@@ -1420,6 +1618,13 @@ public class LocalExecutionPlanner
                 channel++;
             }
 
+            // the precomputed hash of the group-by keys follows the keys
+            Optional<Integer> hashChannel = getHashChannel(node.getHashSymbol(), source.getLayout());
+            if (node.getHashSymbol().isPresent()) {
+                outputMappings.put(node.getHashSymbol().get(), channel);
+                channel++;
+            }
+
             // aggregations go in following channels
             for (Symbol symbol : aggregationOutputSymbols) {
                 outputMappings.put(symbol, channel);
@@ -1442,7 +1647,9 @@ public class LocalExecutionPlanner
                     groupByChannels,
                     node.getStep(),
                     accumulatorFactories,
-                    10_000);
+                    hashChannel,
+                    10_000,
+                    Optional.of(spillerFactory));
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -1517,6 +1724,14 @@ public class LocalExecutionPlanner
         return builder.build();
     }
 
+    private static Optional<Integer> getHashChannel(Optional<Symbol> hashSymbol, Map<Symbol, Integer> layout)
+    {
+        if (!hashSymbol.isPresent()) {
+            return Optional.absent();
+        }
+        return Optional.of(layout.get(hashSymbol.get()));
+    }
+
     private static class IdentityProjectionInfo
     {
         private final Map<Symbol, Integer> layout;
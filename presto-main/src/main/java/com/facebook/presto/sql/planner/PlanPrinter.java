@@ -168,7 +168,12 @@ public class PlanPrinter
                         new QualifiedNameReference(clause.getRight().toQualifiedName())));
             }
 
-            print(indent, "- %s[%s] => [%s]", node.getType().getJoinLabel(), Joiner.on(" AND ").join(joinExpressions), formatOutputs(node.getOutputSymbols()));
+            String distribution = "";
+            if (node.getDistributionType().isPresent()) {
+                distribution = format("[distribution = %s]", node.getDistributionType().get());
+            }
+
+            print(indent, "- %s[%s]%s => [%s]", node.getType().getJoinLabel(), Joiner.on(" AND ").join(joinExpressions), distribution, formatOutputs(node.getOutputSymbols()));
             node.getLeft().accept(this, indent + 1);
             node.getRight().accept(this, indent + 1);
 
@@ -243,8 +248,12 @@ public class PlanPrinter
             if (node.getSampleWeight().isPresent()) {
                 sampleWeight = format("[sampleWeight = %s]", node.getSampleWeight().get());
             }
+            String hash = "";
+            if (node.getHashSymbol().isPresent()) {
+                hash = format("[hash = %s]", node.getHashSymbol().get());
+            }
 
-            print(indent, "- Aggregate%s%s%s => [%s]", type, key, sampleWeight, formatOutputs(node.getOutputSymbols()));
+            print(indent, "- Aggregate%s%s%s%s => [%s]", type, key, sampleWeight, hash, formatOutputs(node.getOutputSymbols()));
 
             for (Map.Entry<Symbol, FunctionCall> entry : node.getAggregations().entrySet()) {
                 if (node.getMasks().containsKey(entry.getKey())) {
@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.google.common.base.Optional;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Estimates an upper bound of the number of rows produced by a plan from the
+ * table statistics reported by the connectors.
+ */
+public class RowCountEstimator
+{
+    public static final long UNKNOWN = -1;
+
+    private final Metadata metadata;
+
+    public RowCountEstimator(Metadata metadata)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+    }
+
+    /**
+     * Returns the estimated number of rows, or {@link #UNKNOWN} if there is no estimate.
+     */
+    public long estimateRowCount(PlanNode node)
+    {
+        return node.accept(new Visitor(), null);
+    }
+
+    private class Visitor
+            extends PlanVisitor<Void, Long>
+    {
+        @Override
+        protected Long visitPlan(PlanNode node, Void context)
+        {
+            return UNKNOWN;
+        }
+
+        @Override
+        public Long visitTableScan(TableScanNode node, Void context)
+        {
+            Optional<TableScanNode.GeneratedPartitions> generatedPartitions = node.getGeneratedPartitions();
+            if (generatedPartitions.isPresent() && generatedPartitions.get().getPartitions().isEmpty()) {
+                // partition pruning eliminated the whole table
+                return 0L;
+            }
+
+            TableStatistics statistics = metadata.getTableStatistics(node.getTable());
+            if (!statistics.isRowCountKnown()) {
+                return UNKNOWN;
+            }
+            return statistics.getRowCount();
+        }
+
+        @Override
+        public Long visitFilter(FilterNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public Long visitProject(ProjectNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public Long visitAggregation(AggregationNode node, Void context)
+        {
+            if (node.getGroupBy().isEmpty()) {
+                return 1L;
+            }
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public Long visitLimit(LimitNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), node.getCount());
+        }
+
+        @Override
+        public Long visitTopN(TopNNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), node.getCount());
+        }
+
+        @Override
+        public Long visitValues(ValuesNode node, Void context)
+        {
+            return (long) node.getRows().size();
+        }
+
+        private long limit(long sourceRowCount, long count)
+        {
+            if (sourceRowCount == UNKNOWN) {
+                return count;
+            }
+            return Math.min(sourceRowCount, count);
+        }
+    }
+}
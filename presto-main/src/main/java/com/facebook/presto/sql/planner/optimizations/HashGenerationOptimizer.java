@@ -0,0 +1,246 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.metadata.OperatorNotFoundException;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeRewriter;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.tree.CoalesceExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedName;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.facebook.presto.metadata.FunctionRegistry.mangleOperatorName;
+import static com.facebook.presto.metadata.OperatorType.HASH_CODE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.leftGetter;
+import static com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause.rightGetter;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Computes the hash of the keys of aggregations, distinct markers and joins once, in a
+ * projection below the node.  The hash column is then used to partition the rows for the
+ * exchange and to look up the rows in the hash tables, so multi-column keys are not rehashed
+ * by each consumer.
+ */
+public class HashGenerationOptimizer
+        extends PlanOptimizer
+{
+    private static final long INITIAL_HASH_VALUE = 0;
+    private static final String HASH_CODE_FUNCTION = mangleOperatorName(HASH_CODE);
+    private static final String COMBINE_HASH_FUNCTION = "combine_hash";
+
+    private final Metadata metadata;
+    private final boolean optimizeHashGeneration;
+
+    public HashGenerationOptimizer(Metadata metadata, boolean optimizeHashGeneration)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.optimizeHashGeneration = optimizeHashGeneration;
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        if (!optimizeHashGeneration) {
+            return plan;
+        }
+        return PlanRewriter.rewriteWith(new Rewriter(types, symbolAllocator, idAllocator), plan);
+    }
+
+    private class Rewriter
+            extends PlanNodeRewriter<Void>
+    {
+        private final Map<Symbol, Type> types;
+        private final SymbolAllocator symbolAllocator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        private Rewriter(Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+        {
+            this.types = types;
+            this.symbolAllocator = symbolAllocator;
+            this.idAllocator = idAllocator;
+        }
+
+        @Override
+        public PlanNode rewriteAggregation(AggregationNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            if (!canHash(node.getGroupBy())) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+            PlanNode source = planRewriter.rewrite(node.getSource(), context);
+
+            Symbol hashSymbol = newHashSymbol();
+            PlanNode hashProject = getHashProjectNode(source, hashSymbol, node.getGroupBy());
+            return new AggregationNode(
+                    node.getId(),
+                    hashProject,
+                    node.getGroupBy(),
+                    node.getAggregations(),
+                    node.getFunctions(),
+                    node.getMasks(),
+                    node.getStep(),
+                    node.getSampleWeight(),
+                    node.getConfidence(),
+                    Optional.of(hashSymbol));
+        }
+
+        @Override
+        public PlanNode rewriteMarkDistinct(MarkDistinctNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            if (!canHash(node.getDistinctSymbols())) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+            PlanNode source = planRewriter.rewrite(node.getSource(), context);
+
+            Symbol hashSymbol = newHashSymbol();
+            PlanNode hashProject = getHashProjectNode(source, hashSymbol, node.getDistinctSymbols());
+            return new MarkDistinctNode(node.getId(), hashProject, node.getMarkerSymbol(), node.getDistinctSymbols(), Optional.of(hashSymbol));
+        }
+
+        @Override
+        public PlanNode rewriteJoin(JoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            List<Symbol> leftSymbols = Lists.transform(node.getCriteria(), leftGetter());
+            List<Symbol> rightSymbols = Lists.transform(node.getCriteria(), rightGetter());
+            if (!canHash(leftSymbols) || !hasSameTypes(leftSymbols, rightSymbols)) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+
+            PlanNode left = planRewriter.rewrite(node.getLeft(), context);
+            PlanNode right = planRewriter.rewrite(node.getRight(), context);
+
+            Symbol leftHashSymbol = newHashSymbol();
+            Symbol rightHashSymbol = newHashSymbol();
+            return new JoinNode(
+                    node.getId(),
+                    node.getType(),
+                    getHashProjectNode(left, leftHashSymbol, leftSymbols),
+                    getHashProjectNode(right, rightHashSymbol, rightSymbols),
+                    node.getCriteria(),
+                    Optional.of(leftHashSymbol),
+                    Optional.of(rightHashSymbol));
+        }
+
+        @Override
+        public PlanNode rewriteSemiJoin(SemiJoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            List<Symbol> sourceSymbols = ImmutableList.of(node.getSourceJoinSymbol());
+            List<Symbol> filteringSourceSymbols = ImmutableList.of(node.getFilteringSourceJoinSymbol());
+            if (!canHash(sourceSymbols) || !hasSameTypes(sourceSymbols, filteringSourceSymbols)) {
+                return planRewriter.defaultRewrite(node, context);
+            }
+
+            PlanNode source = planRewriter.rewrite(node.getSource(), context);
+            PlanNode filteringSource = planRewriter.rewrite(node.getFilteringSource(), context);
+
+            Symbol sourceHashSymbol = newHashSymbol();
+            Symbol filteringSourceHashSymbol = newHashSymbol();
+            return new SemiJoinNode(
+                    node.getId(),
+                    getHashProjectNode(source, sourceHashSymbol, sourceSymbols),
+                    getHashProjectNode(filteringSource, filteringSourceHashSymbol, filteringSourceSymbols),
+                    node.getSourceJoinSymbol(),
+                    node.getFilteringSourceJoinSymbol(),
+                    node.getSemiJoinOutput(),
+                    Optional.of(sourceHashSymbol),
+                    Optional.of(filteringSourceHashSymbol));
+        }
+
+        private Symbol newHashSymbol()
+        {
+            return symbolAllocator.newSymbol("hashValue", BIGINT);
+        }
+
+        private boolean canHash(List<Symbol> symbols)
+        {
+            if (symbols.isEmpty()) {
+                return false;
+            }
+            for (Symbol symbol : symbols) {
+                try {
+                    metadata.resolveOperator(HASH_CODE, ImmutableList.of(types.get(symbol)));
+                }
+                catch (OperatorNotFoundException e) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean hasSameTypes(List<Symbol> leftSymbols, List<Symbol> rightSymbols)
+        {
+            for (int i = 0; i < leftSymbols.size(); i++) {
+                if (!types.get(leftSymbols.get(i)).equals(types.get(rightSymbols.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private ProjectNode getHashProjectNode(PlanNode source, Symbol hashSymbol, List<Symbol> symbols)
+        {
+            ImmutableMap.Builder<Symbol, Expression> outputSymbols = ImmutableMap.builder();
+            for (Symbol symbol : source.getOutputSymbols()) {
+                outputSymbols.put(symbol, new QualifiedNameReference(symbol.toQualifiedName()));
+            }
+            outputSymbols.put(hashSymbol, getHashExpression(symbols));
+            return new ProjectNode(idAllocator.getNextId(), source, outputSymbols.build());
+        }
+    }
+
+    /**
+     * Creates {@code combine_hash(...combine_hash(0, coalesce(hash_code(s1), 0))..., coalesce(hash_code(sN), 0))}.
+     * Null values hash to zero.
+     */
+    private static Expression getHashExpression(List<Symbol> symbols)
+    {
+        Expression result = new LongLiteral(String.valueOf(INITIAL_HASH_VALUE));
+        for (Symbol symbol : symbols) {
+            Expression hashField = new FunctionCall(
+                    QualifiedName.of(HASH_CODE_FUNCTION),
+                    ImmutableList.<Expression>of(new QualifiedNameReference(symbol.toQualifiedName())));
+            hashField = new CoalesceExpression(hashField, new LongLiteral(String.valueOf(0)));
+            result = new FunctionCall(QualifiedName.of(COMBINE_HASH_FUNCTION), ImmutableList.of(result, hashField));
+        }
+        return result;
+    }
+}
@@ -107,17 +107,19 @@ public class PruneUnreferencedOutputs
             Set<Symbol> leftInputs = ImmutableSet.<Symbol>builder()
                     .addAll(expectedOutputs)
                     .addAll(Iterables.transform(node.getCriteria(), leftGetter()))
+                    .addAll(node.getLeftHashSymbol().asSet())
                     .build();
 
             Set<Symbol> rightInputs = ImmutableSet.<Symbol>builder()
                     .addAll(expectedOutputs)
                     .addAll(Iterables.transform(node.getCriteria(), rightGetter()))
+                    .addAll(node.getRightHashSymbol().asSet())
                     .build();
 
             PlanNode left = planRewriter.rewrite(node.getLeft(), leftInputs);
             PlanNode right = planRewriter.rewrite(node.getRight(), rightInputs);
 
-            return new JoinNode(node.getId(), node.getType(), left, right, node.getCriteria());
+            return new JoinNode(node.getId(), node.getType(), left, right, node.getCriteria(), node.getLeftHashSymbol(), node.getRightHashSymbol(), node.getDistributionType());
         }
 
         @Override
@@ -126,16 +128,26 @@ public class PruneUnreferencedOutputs
             Set<Symbol> sourceInputs = ImmutableSet.<Symbol>builder()
                     .addAll(expectedOutputs)
                     .add(node.getSourceJoinSymbol())
+                    .addAll(node.getSourceHashSymbol().asSet())
                     .build();
 
             Set<Symbol> filteringSourceInputs = ImmutableSet.<Symbol>builder()
                     .add(node.getFilteringSourceJoinSymbol())
+                    .addAll(node.getFilteringSourceHashSymbol().asSet())
                     .build();
 
             PlanNode source = planRewriter.rewrite(node.getSource(), sourceInputs);
             PlanNode filteringSource = planRewriter.rewrite(node.getFilteringSource(), filteringSourceInputs);
 
-            return new SemiJoinNode(node.getId(), source, filteringSource, node.getSourceJoinSymbol(), node.getFilteringSourceJoinSymbol(), node.getSemiJoinOutput());
+            return new SemiJoinNode(
+                    node.getId(),
+                    source,
+                    filteringSource,
+                    node.getSourceJoinSymbol(),
+                    node.getFilteringSourceJoinSymbol(),
+                    node.getSemiJoinOutput(),
+                    node.getSourceHashSymbol(),
+                    node.getFilteringSourceHashSymbol());
         }
 
         @Override
@@ -205,10 +217,21 @@ public class PruneUnreferencedOutputs
             if (node.getSampleWeight().isPresent()) {
                 expectedInputs.add(node.getSampleWeight().get());
             }
+            expectedInputs.addAll(node.getHashSymbol().asSet());
 
             PlanNode source = planRewriter.rewrite(node.getSource(), expectedInputs.build());
 
-            return new AggregationNode(node.getId(), source, node.getGroupBy(), functionCalls.build(), functions.build(), masks.build(), node.getSampleWeight(), node.getConfidence());
+            return new AggregationNode(
+                    node.getId(),
+                    source,
+                    node.getGroupBy(),
+                    functionCalls.build(),
+                    functions.build(),
+                    masks.build(),
+                    node.getStep(),
+                    node.getSampleWeight(),
+                    node.getConfidence(),
+                    node.getHashSymbol());
         }
 
         @Override
@@ -281,11 +304,12 @@ public class PruneUnreferencedOutputs
 
             ImmutableSet.Builder<Symbol> expectedInputs = ImmutableSet.<Symbol>builder()
                     .addAll(node.getDistinctSymbols())
+                    .addAll(node.getHashSymbol().asSet())
                     .addAll(expectedOutputs);
 
             PlanNode source = planRewriter.rewrite(node.getSource(), expectedInputs.build());
 
-            return new MarkDistinctNode(node.getId(), source, node.getMarkerSymbol(), node.getDistinctSymbols());
+            return new MarkDistinctNode(node.getId(), source, node.getMarkerSymbol(), node.getDistinctSymbols(), node.getHashSymbol());
         }
 
         @Override
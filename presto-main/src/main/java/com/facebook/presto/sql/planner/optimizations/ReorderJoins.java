@@ -0,0 +1,267 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.EqualityInference;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.RowCountEstimator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeRewriter;
+import com.facebook.presto.sql.planner.plan.PlanRewriter;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.facebook.presto.sql.planner.RowCountEstimator.UNKNOWN;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Predicates.in;
+import static com.google.common.collect.Iterables.filter;
+
+/**
+ * Reorders trees of inner equi-joins into a left deep tree. The largest source becomes the probe
+ * side, and the remaining sources are added from the smallest to the largest, so each hash table
+ * is built over the smaller input. Only sources connected to the already joined sources by a join
+ * key are considered, so no cross joins are introduced. Sources without row count estimates are
+ * assumed to be larger than any source with an estimate, and keep their order in the query.
+ */
+public class ReorderJoins
+        extends PlanOptimizer
+{
+    private final Metadata metadata;
+    private final boolean reorderJoins;
+
+    public ReorderJoins(Metadata metadata, boolean reorderJoins)
+    {
+        this.metadata = checkNotNull(metadata, "metadata is null");
+        this.reorderJoins = reorderJoins;
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        checkNotNull(plan, "plan is null");
+        checkNotNull(session, "session is null");
+        checkNotNull(types, "types is null");
+        checkNotNull(symbolAllocator, "symbolAllocator is null");
+        checkNotNull(idAllocator, "idAllocator is null");
+
+        if (!reorderJoins) {
+            return plan;
+        }
+        return PlanRewriter.rewriteWith(new Rewriter(idAllocator, new RowCountEstimator(metadata)), plan);
+    }
+
+    private static class Rewriter
+            extends PlanNodeRewriter<Void>
+    {
+        private final PlanNodeIdAllocator idAllocator;
+        private final RowCountEstimator rowCountEstimator;
+
+        private Rewriter(PlanNodeIdAllocator idAllocator, RowCountEstimator rowCountEstimator)
+        {
+            this.idAllocator = idAllocator;
+            this.rowCountEstimator = rowCountEstimator;
+        }
+
+        @Override
+        public PlanNode rewriteJoin(JoinNode node, Void context, PlanRewriter<Void> planRewriter)
+        {
+            if (!isReorderable(node)) {
+                return null;
+            }
+
+            List<PlanNode> sources = new ArrayList<>();
+            List<JoinNode.EquiJoinClause> criteria = new ArrayList<>();
+            flatten(node, sources, criteria);
+
+            EqualityInference.Builder builder = new EqualityInference.Builder();
+            Set<Symbol> joinSymbols = new LinkedHashSet<>();
+            for (JoinNode.EquiJoinClause clause : criteria) {
+                builder.addEquality(reference(clause.getLeft()), reference(clause.getRight()));
+                joinSymbols.add(clause.getLeft());
+                joinSymbols.add(clause.getRight());
+            }
+            EqualityInference inference = builder.build();
+
+            Map<PlanNode, PlanNode> rewrittenSources = new IdentityHashMap<>();
+            for (PlanNode source : sources) {
+                rewrittenSources.put(source, planRewriter.rewrite(source, context));
+            }
+
+            Optional<List<PlanNode>> joinOrder = chooseJoinOrder(sources, inference, joinSymbols);
+            if (!joinOrder.isPresent() || joinOrder.get().equals(sources)) {
+                return replaceSources(node, rewrittenSources);
+            }
+
+            // group the join symbols by the equivalence class they belong to
+            Map<Expression, List<Symbol>> equivalenceClasses = new LinkedHashMap<>();
+            for (Symbol symbol : joinSymbols) {
+                Expression canonical = inference.rewriteExpression(reference(symbol), Predicates.<Symbol>alwaysTrue());
+                if (!equivalenceClasses.containsKey(canonical)) {
+                    equivalenceClasses.put(canonical, new ArrayList<Symbol>());
+                }
+                equivalenceClasses.get(canonical).add(symbol);
+            }
+
+            Set<Expression> joinedClasses = new HashSet<>();
+            PlanNode result = rewrittenSources.get(joinOrder.get().get(0));
+            Set<Symbol> joinedSymbols = new HashSet<>(result.getOutputSymbols());
+            for (PlanNode source : joinOrder.get().subList(1, joinOrder.get().size())) {
+                ImmutableList.Builder<JoinNode.EquiJoinClause> clauses = ImmutableList.builder();
+                for (Map.Entry<Expression, List<Symbol>> entry : equivalenceClasses.entrySet()) {
+                    List<Symbol> leftSymbols = ImmutableList.copyOf(filter(entry.getValue(), in(joinedSymbols)));
+                    List<Symbol> rightSymbols = ImmutableList.copyOf(filter(entry.getValue(), in(source.getOutputSymbols())));
+                    if (leftSymbols.isEmpty() || rightSymbols.isEmpty()) {
+                        continue;
+                    }
+
+                    if (joinedClasses.add(entry.getKey())) {
+                        // the left symbols all come from one source and have not been compared with each other yet
+                        for (Symbol leftSymbol : leftSymbols) {
+                            clauses.add(new JoinNode.EquiJoinClause(leftSymbol, rightSymbols.get(0)));
+                        }
+                    }
+                    else {
+                        clauses.add(new JoinNode.EquiJoinClause(leftSymbols.get(0), rightSymbols.get(0)));
+                    }
+                    for (Symbol rightSymbol : rightSymbols.subList(1, rightSymbols.size())) {
+                        clauses.add(new JoinNode.EquiJoinClause(leftSymbols.get(0), rightSymbol));
+                    }
+                }
+
+                PlanNode rewrittenSource = rewrittenSources.get(source);
+                result = new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, result, rewrittenSource, clauses.build());
+                joinedSymbols.addAll(source.getOutputSymbols());
+            }
+            return result;
+        }
+
+        /**
+         * Picks the order in which the sources are joined, or returns absent if the sources
+         * can not be joined without a cross join.
+         */
+        private Optional<List<PlanNode>> chooseJoinOrder(List<PlanNode> sources, EqualityInference inference, Set<Symbol> joinSymbols)
+        {
+            Map<PlanNode, Long> rowCounts = new IdentityHashMap<>();
+            for (PlanNode source : sources) {
+                rowCounts.put(source, rowCountEstimator.estimateRowCount(source));
+            }
+
+            // the largest source is the probe side of every join
+            PlanNode first = sources.get(0);
+            for (PlanNode source : sources) {
+                if (isLarger(rowCounts.get(source), rowCounts.get(first))) {
+                    first = source;
+                }
+            }
+
+            List<PlanNode> remaining = new ArrayList<>(sources);
+            remaining.remove(first);
+            ImmutableList.Builder<PlanNode> joinOrder = ImmutableList.builder();
+            joinOrder.add(first);
+            Set<Symbol> joinedSymbols = new HashSet<>(first.getOutputSymbols());
+            while (!remaining.isEmpty()) {
+                PlanNode next = null;
+                for (PlanNode source : remaining) {
+                    if (isJoinable(source, joinedSymbols, inference, joinSymbols) && (next == null || isLarger(rowCounts.get(next), rowCounts.get(source)))) {
+                        next = source;
+                    }
+                }
+                if (next == null) {
+                    return Optional.absent();
+                }
+                remaining.remove(next);
+                joinOrder.add(next);
+                joinedSymbols.addAll(next.getOutputSymbols());
+            }
+            return Optional.<List<PlanNode>>of(joinOrder.build());
+        }
+
+        private static boolean isJoinable(PlanNode source, Set<Symbol> joinedSymbols, EqualityInference inference, Set<Symbol> joinSymbols)
+        {
+            for (Symbol symbol : source.getOutputSymbols()) {
+                if (joinSymbols.contains(symbol) && inference.rewriteExpression(reference(symbol), in(joinedSymbols)) != null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Unknown row counts are treated as larger than any known row count.
+         */
+        private static boolean isLarger(long rowCount, long otherRowCount)
+        {
+            if (rowCount == UNKNOWN) {
+                return otherRowCount != UNKNOWN;
+            }
+            return otherRowCount != UNKNOWN && rowCount > otherRowCount;
+        }
+
+        private static boolean isReorderable(PlanNode node)
+        {
+            return node instanceof JoinNode &&
+                    ((JoinNode) node).getType() == JoinNode.Type.INNER &&
+                    !((JoinNode) node).getCriteria().isEmpty();
+        }
+
+        private static void flatten(PlanNode node, List<PlanNode> sources, List<JoinNode.EquiJoinClause> criteria)
+        {
+            if (!isReorderable(node)) {
+                sources.add(node);
+                return;
+            }
+            JoinNode join = (JoinNode) node;
+            flatten(join.getLeft(), sources, criteria);
+            flatten(join.getRight(), sources, criteria);
+            criteria.addAll(join.getCriteria());
+        }
+
+        private static PlanNode replaceSources(PlanNode node, Map<PlanNode, PlanNode> rewrittenSources)
+        {
+            if (rewrittenSources.containsKey(node)) {
+                return rewrittenSources.get(node);
+            }
+            JoinNode join = (JoinNode) node;
+            PlanNode left = replaceSources(join.getLeft(), rewrittenSources);
+            PlanNode right = replaceSources(join.getRight(), rewrittenSources);
+            if (left == join.getLeft() && right == join.getRight()) {
+                return join;
+            }
+            return new JoinNode(join.getId(), join.getType(), left, right, join.getCriteria());
+        }
+
+        private static Expression reference(Symbol symbol)
+        {
+            return new QualifiedNameReference(symbol.toQualifiedName());
+        }
+    }
+}
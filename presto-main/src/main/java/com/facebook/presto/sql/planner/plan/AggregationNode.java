@@ -44,6 +44,7 @@ public class AggregationNode
     private final Step step;
     private final Optional<Symbol> sampleWeight;
     private final double confidence;
+    private final Optional<Symbol> hashSymbol;
 
     public enum Step
     {
@@ -57,6 +58,11 @@ public class AggregationNode
         this(id, source, groupByKeys, aggregations, functions, masks, Step.SINGLE, sampleWeight, confidence);
     }
 
+    public AggregationNode(PlanNodeId id, PlanNode source, List<Symbol> groupByKeys, Map<Symbol, FunctionCall> aggregations, Map<Symbol, Signature> functions, Map<Symbol, Symbol> masks, Step step, Optional<Symbol> sampleWeight, double confidence)
+    {
+        this(id, source, groupByKeys, aggregations, functions, masks, step, sampleWeight, confidence, Optional.<Symbol>absent());
+    }
+
     @JsonCreator
     public AggregationNode(@JsonProperty("id") PlanNodeId id,
             @JsonProperty("source") PlanNode source,
@@ -66,7 +72,8 @@ public class AggregationNode
             @JsonProperty("masks") Map<Symbol, Symbol> masks,
             @JsonProperty("step") Step step,
             @JsonProperty("sampleWeight") Optional<Symbol> sampleWeight,
-            @JsonProperty("confidence") double confidence)
+            @JsonProperty("confidence") double confidence,
+            @JsonProperty("hashSymbol") Optional<Symbol> hashSymbol)
     {
         super(id);
 
@@ -82,6 +89,8 @@ public class AggregationNode
         this.sampleWeight = checkNotNull(sampleWeight, "sampleWeight is null");
         checkArgument(confidence >= 0 && confidence <= 1, "confidence must be in [0, 1]");
         this.confidence = confidence;
+        this.hashSymbol = checkNotNull(hashSymbol, "hashSymbol is null");
+        checkArgument(!hashSymbol.isPresent() || !groupByKeys.isEmpty(), "hashSymbol requires group by keys");
     }
 
     @Override
@@ -93,7 +102,7 @@ public class AggregationNode
     @Override
     public List<Symbol> getOutputSymbols()
     {
-        return ImmutableList.copyOf(concat(groupByKeys, aggregations.keySet()));
+        return ImmutableList.copyOf(concat(groupByKeys, hashSymbol.asSet(), aggregations.keySet()));
     }
 
     @JsonProperty("confidence")
@@ -144,6 +153,15 @@ public class AggregationNode
         return sampleWeight;
     }
 
+    /**
+     * Gets the symbol holding the precomputed hash of the group by keys, if any.
+     */
+    @JsonProperty("hashSymbol")
+    public Optional<Symbol> getHashSymbol()
+    {
+        return hashSymbol;
+    }
+
     @Override
     public <C, R> R accept(PlanVisitor<C, R> visitor, C context)
     {
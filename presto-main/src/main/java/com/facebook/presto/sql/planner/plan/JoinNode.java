@@ -18,6 +18,7 @@ import com.facebook.presto.sql.tree.Join;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.ImmutableList;
 
@@ -25,6 +26,7 @@ import javax.annotation.concurrent.Immutable;
 
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 @Immutable
@@ -35,13 +37,29 @@ public class JoinNode
     private final PlanNode left;
     private final PlanNode right;
     private final List<EquiJoinClause> criteria;
+    private final Optional<Symbol> leftHashSymbol;
+    private final Optional<Symbol> rightHashSymbol;
+    private final Optional<DistributionType> distributionType;
+
+    public JoinNode(PlanNodeId id, Type type, PlanNode left, PlanNode right, List<EquiJoinClause> criteria)
+    {
+        this(id, type, left, right, criteria, Optional.<Symbol>absent(), Optional.<Symbol>absent());
+    }
+
+    public JoinNode(PlanNodeId id, Type type, PlanNode left, PlanNode right, List<EquiJoinClause> criteria, Optional<Symbol> leftHashSymbol, Optional<Symbol> rightHashSymbol)
+    {
+        this(id, type, left, right, criteria, leftHashSymbol, rightHashSymbol, Optional.<DistributionType>absent());
+    }
 
     @JsonCreator
     public JoinNode(@JsonProperty("id") PlanNodeId id,
             @JsonProperty("type") Type type,
             @JsonProperty("left") PlanNode left,
             @JsonProperty("right") PlanNode right,
-            @JsonProperty("criteria") List<EquiJoinClause> criteria)
+            @JsonProperty("criteria") List<EquiJoinClause> criteria,
+            @JsonProperty("leftHashSymbol") Optional<Symbol> leftHashSymbol,
+            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol,
+            @JsonProperty("distributionType") Optional<DistributionType> distributionType)
     {
         super(id);
 
@@ -54,6 +72,19 @@ public class JoinNode
         this.left = left;
         this.right = right;
         this.criteria = ImmutableList.copyOf(criteria);
+        this.leftHashSymbol = checkNotNull(leftHashSymbol, "leftHashSymbol is null");
+        this.rightHashSymbol = checkNotNull(rightHashSymbol, "rightHashSymbol is null");
+        // both sides must hash the keys the same way
+        checkArgument(leftHashSymbol.isPresent() == rightHashSymbol.isPresent(), "only one side of the join has a hash symbol");
+        this.distributionType = checkNotNull(distributionType, "distributionType is null");
+    }
+
+    public enum DistributionType
+    {
+        // both sides are hash partitioned on the join keys
+        PARTITIONED,
+        // the build side is sent to every node running the probe side
+        REPLICATED
     }
 
     public enum Type
@@ -117,6 +148,27 @@ public class JoinNode
         return criteria;
     }
 
+    @JsonProperty("leftHashSymbol")
+    public Optional<Symbol> getLeftHashSymbol()
+    {
+        return leftHashSymbol;
+    }
+
+    @JsonProperty("rightHashSymbol")
+    public Optional<Symbol> getRightHashSymbol()
+    {
+        return rightHashSymbol;
+    }
+
+    /**
+     * Gets how the join is distributed. This is absent until the distributed plan is created.
+     */
+    @JsonProperty("distributionType")
+    public Optional<DistributionType> getDistributionType()
+    {
+        return distributionType;
+    }
+
     @Override
     public List<PlanNode> getSources()
     {
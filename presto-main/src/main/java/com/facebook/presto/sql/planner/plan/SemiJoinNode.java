@@ -16,12 +16,14 @@ package com.facebook.presto.sql.planner.plan;
 import com.facebook.presto.sql.planner.Symbol;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 
 import javax.annotation.concurrent.Immutable;
 
 import java.util.List;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 @Immutable
@@ -33,6 +35,13 @@ public class SemiJoinNode
     private final Symbol sourceJoinSymbol;
     private final Symbol filteringSourceJoinSymbol;
     private final Symbol semiJoinOutput;
+    private final Optional<Symbol> sourceHashSymbol;
+    private final Optional<Symbol> filteringSourceHashSymbol;
+
+    public SemiJoinNode(PlanNodeId id, PlanNode source, PlanNode filteringSource, Symbol sourceJoinSymbol, Symbol filteringSourceJoinSymbol, Symbol semiJoinOutput)
+    {
+        this(id, source, filteringSource, sourceJoinSymbol, filteringSourceJoinSymbol, semiJoinOutput, Optional.<Symbol>absent(), Optional.<Symbol>absent());
+    }
 
     @JsonCreator
     public SemiJoinNode(@JsonProperty("id") PlanNodeId id,
@@ -40,7 +49,9 @@ public class SemiJoinNode
             @JsonProperty("filteringSource") PlanNode filteringSource,
             @JsonProperty("sourceJoinSymbol") Symbol sourceJoinSymbol,
             @JsonProperty("filteringSourceJoinSymbol") Symbol filteringSourceJoinSymbol,
-            @JsonProperty("semiJoinOutput") Symbol semiJoinOutput)
+            @JsonProperty("semiJoinOutput") Symbol semiJoinOutput,
+            @JsonProperty("sourceHashSymbol") Optional<Symbol> sourceHashSymbol,
+            @JsonProperty("filteringSourceHashSymbol") Optional<Symbol> filteringSourceHashSymbol)
     {
         super(id);
         this.source = checkNotNull(source, "source is null");
@@ -48,6 +59,10 @@ public class SemiJoinNode
         this.sourceJoinSymbol = checkNotNull(sourceJoinSymbol, "sourceJoinSymbol is null");
         this.filteringSourceJoinSymbol = checkNotNull(filteringSourceJoinSymbol, "filteringSourceJoinSymbol is null");
         this.semiJoinOutput = checkNotNull(semiJoinOutput, "semiJoinOutput is null");
+        this.sourceHashSymbol = checkNotNull(sourceHashSymbol, "sourceHashSymbol is null");
+        this.filteringSourceHashSymbol = checkNotNull(filteringSourceHashSymbol, "filteringSourceHashSymbol is null");
+        // both sides must hash the keys the same way
+        checkArgument(sourceHashSymbol.isPresent() == filteringSourceHashSymbol.isPresent(), "only one side of the semi join has a hash symbol");
     }
 
     @JsonProperty("source")
@@ -80,6 +95,18 @@ public class SemiJoinNode
         return semiJoinOutput;
     }
 
+    @JsonProperty("sourceHashSymbol")
+    public Optional<Symbol> getSourceHashSymbol()
+    {
+        return sourceHashSymbol;
+    }
+
+    @JsonProperty("filteringSourceHashSymbol")
+    public Optional<Symbol> getFilteringSourceHashSymbol()
+    {
+        return filteringSourceHashSymbol;
+    }
+
     @Override
     public List<PlanNode> getSources()
     {
@@ -26,7 +26,7 @@ import com.google.common.collect.Lists;
 
 import java.util.List;
 
-import static com.facebook.presto.metadata.FunctionRegistry.mangleOperatorName;
+import static com.facebook.presto.metadata.FunctionRegistry.OPERATOR_PREFIX;
 import static com.facebook.presto.metadata.OperatorType.SUBSCRIPT;
 import static com.facebook.presto.metadata.Signature.internalFunction;
 import static com.facebook.presto.metadata.Signature.internalOperator;
@@ -38,11 +38,15 @@ public final class Signatures
     public static final String IF = "IF";
     public static final String NULL_IF = "NULL_IF";
     public static final String SWITCH = "SWITCH";
-    public static final String CAST = mangleOperatorName("CAST");
+    // mangled by hand, so the name is a constant that can be used in switch statements
+    public static final String CAST = OPERATOR_PREFIX + "CAST";
     public static final String TRY_CAST = "TRY_CAST";
     public static final String IS_NULL = "IS_NULL";
     public static final String COALESCE = "COALESCE";
     public static final String IN = "IN";
+    public static final String IS_DISTINCT_FROM = "IS_DISTINCT_FROM";
+    public static final String AND = "AND";
+    public static final String OR = "OR";
 
     private Signatures()
     {
@@ -24,7 +24,6 @@ import com.facebook.presto.sql.relational.ConstantExpression;
 import com.facebook.presto.sql.relational.InputReferenceExpression;
 import com.facebook.presto.sql.relational.RowExpression;
 import com.facebook.presto.sql.relational.RowExpressionVisitor;
-import com.facebook.presto.sql.tree.QualifiedName;
 import com.facebook.presto.type.UnknownType;
 import com.facebook.presto.util.IterableTransformer;
 import com.google.common.base.Function;
@@ -38,12 +37,15 @@ import java.util.List;
 import static com.facebook.presto.sql.relational.Expressions.call;
 import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.sql.relational.Expressions.constantNull;
+import static com.facebook.presto.sql.relational.Signatures.AND;
 import static com.facebook.presto.sql.relational.Signatures.CAST;
 import static com.facebook.presto.sql.relational.Signatures.COALESCE;
 import static com.facebook.presto.sql.relational.Signatures.IF;
 import static com.facebook.presto.sql.relational.Signatures.IN;
+import static com.facebook.presto.sql.relational.Signatures.IS_DISTINCT_FROM;
 import static com.facebook.presto.sql.relational.Signatures.IS_NULL;
 import static com.facebook.presto.sql.relational.Signatures.NULL_IF;
+import static com.facebook.presto.sql.relational.Signatures.OR;
 import static com.facebook.presto.sql.relational.Signatures.SWITCH;
 import static com.facebook.presto.sql.relational.Signatures.TRY_CAST;
 import static com.google.common.base.Predicates.instanceOf;
@@ -101,18 +103,14 @@ public class ExpressionOptimizer
                     case SWITCH:
                     case TRY_CAST:
                     case IS_NULL:
-                    case "IS_DISTINCT_FROM":
+                    case IS_DISTINCT_FROM:
                     case COALESCE:
-                    case "AND":
-                    case "OR":
+                    case AND:
+                    case OR:
                     case IN:
                         return call;
                     default:
-                        function = registry.getExactFunction(signature);
-                        if (function == null) {
-                            // TODO: temporary hack to deal with magic timestamp literal functions which don't have an "exact" form and need to be "resolved"
-                            function = registry.resolveFunction(QualifiedName.of(signature.getName()), signature.getArgumentTypes(), false);
-                        }
+                        function = registry.getExactOrResolvedFunction(signature);
                 }
             }
 
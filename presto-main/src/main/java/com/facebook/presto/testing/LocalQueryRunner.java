@@ -16,6 +16,7 @@ package com.facebook.presto.testing;
 import com.facebook.presto.ScheduledSplit;
 import com.facebook.presto.Session;
 import com.facebook.presto.TaskSource;
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.connector.ConnectorManager;
 import com.facebook.presto.connector.system.CatalogSystemTable;
 import com.facebook.presto.connector.system.NodesSystemTable;
@@ -47,8 +48,10 @@ import com.facebook.presto.operator.OperatorFactory;
 import com.facebook.presto.operator.OutputFactory;
 import com.facebook.presto.operator.PageSourceOperator;
 import com.facebook.presto.operator.RecordSinkManager;
+import com.facebook.presto.operator.SpillerFactory;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
+import com.facebook.presto.operator.index.SharedIndexCache;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorFactory;
 import com.facebook.presto.spi.ConnectorPageSource;
@@ -120,11 +123,30 @@ public class LocalQueryRunner
     private final ExpressionCompiler compiler;
     private final ConnectorManager connectorManager;
 
+    private final TaskManagerConfig taskManagerConfig;
+    private final FeaturesConfig featuresConfig;
+    private final IndexJoinLookupStats indexJoinLookupStats;
+    private final SharedIndexCache sharedIndexCache;
+
     private boolean printPlan;
 
     public LocalQueryRunner(Session defaultSession)
+    {
+        this(defaultSession, new TaskManagerConfig());
+    }
+
+    public LocalQueryRunner(Session defaultSession, TaskManagerConfig taskManagerConfig)
+    {
+        this(defaultSession, taskManagerConfig, new FeaturesConfig()
+                .setExperimentalSyntaxEnabled(true)
+                .setDistributedIndexJoinsEnabled(false));
+    }
+
+    public LocalQueryRunner(Session defaultSession, TaskManagerConfig taskManagerConfig, FeaturesConfig featuresConfig)
     {
         this.defaultSession = checkNotNull(defaultSession, "defaultSession is null");
+        this.taskManagerConfig = checkNotNull(taskManagerConfig, "taskManagerConfig is null");
+        this.featuresConfig = checkNotNull(featuresConfig, "featuresConfig is null");
         this.executor = newCachedThreadPool(daemonThreadsNamed("local-query-runner-%s"));
 
         this.sqlParser = new SqlParser();
@@ -152,6 +174,10 @@ public class LocalQueryRunner
 
         this.compiler = new ExpressionCompiler(metadata);
 
+        // the shared index cache lives as long as the runner, like on a worker
+        this.indexJoinLookupStats = new IndexJoinLookupStats();
+        this.sharedIndexCache = new SharedIndexCache(taskManagerConfig, indexJoinLookupStats);
+
         this.connectorManager = new ConnectorManager(
                 metadata,
                 splitManager,
@@ -196,6 +222,11 @@ public class LocalQueryRunner
         return executor;
     }
 
+    public IndexJoinLookupStats getIndexJoinLookupStats()
+    {
+        return indexJoinLookupStats;
+    }
+
     @Override
     public Session getDefaultSession()
     {
@@ -326,12 +357,9 @@ public class LocalQueryRunner
         assertFormattedSql(sqlParser, statement);
 
         PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
-        FeaturesConfig featuresConfig = new FeaturesConfig()
-                .setExperimentalSyntaxEnabled(true)
-                .setDistributedIndexJoinsEnabled(false);
         PlanOptimizersFactory planOptimizersFactory = new PlanOptimizersFactory(metadata, sqlParser, splitManager, indexManager, featuresConfig);
 
-        QueryExplainer queryExplainer = new QueryExplainer(session, planOptimizersFactory.get(), metadata, sqlParser, featuresConfig.isExperimentalSyntaxEnabled(), featuresConfig.isDistributedIndexJoinsEnabled(), featuresConfig.isDistributedJoinsEnabled());
+        QueryExplainer queryExplainer = new QueryExplainer(session, planOptimizersFactory.get(), metadata, sqlParser, featuresConfig.isExperimentalSyntaxEnabled(), featuresConfig.isDistributedIndexJoinsEnabled(), featuresConfig.isDistributedJoinsEnabled(), featuresConfig.getBroadcastJoinMaxRows());
         Analyzer analyzer = new Analyzer(session, metadata, sqlParser, Optional.of(queryExplainer), featuresConfig.isExperimentalSyntaxEnabled());
 
         Analysis analysis = analyzer.analyze(statement);
@@ -341,7 +369,7 @@ public class LocalQueryRunner
             System.out.println(PlanPrinter.textLogicalPlan(plan.getRoot(), plan.getTypes(), metadata));
         }
 
-        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, true, featuresConfig.isDistributedIndexJoinsEnabled(), featuresConfig.isDistributedJoinsEnabled());
+        SubPlan subplan = new DistributedLogicalPlanner(session, metadata, idAllocator).createSubPlans(plan, true, featuresConfig.isDistributedIndexJoinsEnabled(), featuresConfig.isDistributedJoinsEnabled(), featuresConfig.getBroadcastJoinMaxRows());
         if (!subplan.getChildren().isEmpty()) {
             throw new AssertionError("Expected subplan to have no children");
         }
@@ -354,9 +382,11 @@ public class LocalQueryRunner
                 recordSinkManager,
                 null,
                 compiler,
-                new IndexJoinLookupStats(),
+                indexJoinLookupStats,
+                sharedIndexCache,
                 new CompilerConfig().setInterpreterEnabled(false), // make sure tests fail if compiler breaks
-                new TaskManagerConfig()
+                taskManagerConfig,
+                new SpillerFactory(new BlockEncodingManager(typeRegistry), taskManagerConfig)
         );
 
         // plan query
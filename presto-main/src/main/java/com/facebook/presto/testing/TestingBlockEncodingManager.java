@@ -17,9 +17,11 @@ import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.block.dictionary.DictionaryBlockEncoding;
 import com.facebook.presto.block.rle.RunLengthBlockEncoding;
 import com.facebook.presto.block.snappy.SnappyBlockEncoding;
+import com.facebook.presto.spi.block.ArrayBlockEncoding;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.facebook.presto.spi.block.FixedWidthBlockEncoding;
 import com.facebook.presto.spi.block.LazySliceArrayBlockEncoding;
+import com.facebook.presto.spi.block.MapBlockEncoding;
 import com.facebook.presto.spi.block.SliceArrayBlockEncoding;
 import com.facebook.presto.spi.block.VariableWidthBlockEncoding;
 import com.facebook.presto.type.TypeRegistry;
@@ -40,6 +42,8 @@ public final class TestingBlockEncodingManager
                 DictionaryBlockEncoding.FACTORY,
                 SnappyBlockEncoding.FACTORY,
                 SliceArrayBlockEncoding.FACTORY,
-                LazySliceArrayBlockEncoding.FACTORY);
+                LazySliceArrayBlockEncoding.FACTORY,
+                ArrayBlockEncoding.FACTORY,
+                MapBlockEncoding.FACTORY);
     }
 }
@@ -13,35 +13,32 @@
  */
 package com.facebook.presto.type;
 
-import com.facebook.presto.server.SliceSerializer;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.ArrayBlockBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
-import com.facebook.presto.spi.block.VariableWidthBlockBuilder;
+import com.facebook.presto.spi.block.SliceArrayBlock;
 import com.facebook.presto.spi.type.AbstractVariableWidthType;
 import com.facebook.presto.spi.type.Type;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
-import io.airlift.json.ObjectMapperProvider;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
-import static com.facebook.presto.type.TypeJsonUtils.stackRepresentationToObject;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static java.lang.String.format;
 
 public class ArrayType
         extends AbstractVariableWidthType
 {
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get().registerModule(new SimpleModule().addSerializer(Slice.class, new SliceSerializer()));
-    private static final ObjectMapper RAW_SLICE_OBJECT_MAPPER = new ObjectMapperProvider().get().registerModule(new SimpleModule().addSerializer(Slice.class, new RawSliceSerializer()));
-
     private final Type elementType;
 
     public ArrayType(Type elementType)
@@ -60,25 +57,49 @@ public class ArrayType
      */
     public static Slice toStackRepresentation(List<?> values)
     {
-        try {
-            return Slices.utf8Slice(OBJECT_MAPPER.writeValueAsString(values));
-        }
-        catch (JsonProcessingException e) {
-            throw Throwables.propagate(e);
+        Slice[] elements = new Slice[values.size()];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = toElementSlice(values.get(i));
         }
+        return ArrayBlock.writeElements(new SliceArrayBlock(elements.length, elements));
     }
 
     /**
-     * Takes a list of json encoded slices and converts them to the stack representation of an array
+     * Converts a stack value to the bytes of an element of an array or map block.
      */
-    public static Slice rawSlicesToStackRepresentation(List<Slice> values)
+    static Slice toElementSlice(Object value)
     {
-        try {
-            return Slices.utf8Slice(RAW_SLICE_OBJECT_MAPPER.writeValueAsString(values));
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Slice) {
+            return (Slice) value;
+        }
+        if (value instanceof Long) {
+            Slice slice = Slices.allocate(SIZE_OF_LONG);
+            slice.setLong(0, (Long) value);
+            return slice;
+        }
+        if (value instanceof Double) {
+            Slice slice = Slices.allocate(SIZE_OF_DOUBLE);
+            slice.setDouble(0, (Double) value);
+            return slice;
+        }
+        if (value instanceof Boolean) {
+            Slice slice = Slices.allocate(1);
+            slice.setByte(0, ((Boolean) value) ? 1 : 0);
+            return slice;
+        }
+        if (value instanceof String) {
+            return Slices.utf8Slice((String) value);
         }
-        catch (JsonProcessingException e) {
-            throw Throwables.propagate(e);
+        if (value instanceof List) {
+            return toStackRepresentation((List<?>) value);
         }
+        if (value instanceof Map) {
+            return MapType.toStackRepresentation((Map<?, ?>) value);
+        }
+        throw new IllegalArgumentException(format("Unsupported stack type %s", value.getClass().getName()));
     }
 
     @Override
@@ -88,8 +109,19 @@ public class ArrayType
             return null;
         }
 
-        Slice slice = block.getSlice(position, 0, block.getLength(position));
-        return stackRepresentationToObject(session, slice, this);
+        Block elements;
+        if (block instanceof ArrayBlock) {
+            elements = ((ArrayBlock) block).getElements(position);
+        }
+        else {
+            elements = ArrayBlock.readElements(block.getSlice(position, 0, block.getLength(position)));
+        }
+
+        List<Object> values = new ArrayList<>(elements.getPositionCount());
+        for (int i = 0; i < elements.getPositionCount(); i++) {
+            values.add(elementType.getObjectValue(session, elements, i));
+        }
+        return Collections.unmodifiableList(values);
     }
 
     @Override
@@ -98,6 +130,15 @@ public class ArrayType
         if (block.isNull(position)) {
             blockBuilder.appendNull();
         }
+        else if (block instanceof ArrayBlock && blockBuilder instanceof ArrayBlockBuilder) {
+            // copy the elements directly instead of going through the byte representation
+            Block elements = ((ArrayBlock) block).getElements(position);
+            BlockBuilder elementBlockBuilder = ((ArrayBlockBuilder) blockBuilder).getElementBlockBuilder();
+            for (int i = 0; i < elements.getPositionCount(); i++) {
+                elementType.appendTo(elements, i, elementBlockBuilder);
+            }
+            blockBuilder.closeEntry();
+        }
         else {
             block.writeBytesTo(position, 0, block.getLength(position), blockBuilder);
             blockBuilder.closeEntry();
@@ -125,7 +166,7 @@ public class ArrayType
     @Override
     public BlockBuilder createBlockBuilder(BlockBuilderStatus blockBuilderStatus)
     {
-        return new VariableWidthBlockBuilder(blockBuilderStatus);
+        return new ArrayBlockBuilder(blockBuilderStatus, elementType.createBlockBuilder(new BlockBuilderStatus(blockBuilderStatus)));
     }
 
     @Override
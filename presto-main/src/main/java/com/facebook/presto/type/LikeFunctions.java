@@ -18,11 +18,15 @@ import com.facebook.presto.operator.scalar.ScalarFunction;
 import com.facebook.presto.operator.scalar.ScalarOperator;
 import com.facebook.presto.spi.type.StandardTypes;
 import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
 import org.jcodings.specific.UTF8Encoding;
 import org.joni.Option;
 import org.joni.Regex;
 import org.joni.Syntax;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.joni.constants.MetaChar.INEFFECTIVE_META_CHAR;
 import static org.joni.constants.SyntaxProperties.OP_ASTERISK_ZERO_INF;
@@ -31,6 +35,8 @@ import static org.joni.constants.SyntaxProperties.OP_LINE_ANCHOR;
 
 public final class LikeFunctions
 {
+    private static final char REPLACEMENT_CHARACTER = '\uFFFD';
+
     private static final Syntax SYNTAX = new Syntax(
             OP_DOT_ANYCHAR | OP_ASTERISK_ZERO_INF | OP_LINE_ANCHOR,
             0,
@@ -51,41 +57,37 @@ public final class LikeFunctions
     // TODO: this should not be callable from SQL
     @ScalarFunction(value = "like", hidden = true)
     @SqlType(StandardTypes.BOOLEAN)
-    public static boolean like(@SqlType(StandardTypes.VARCHAR) Slice value, @SqlType(LikePatternType.NAME) Regex pattern)
+    public static boolean like(@SqlType(StandardTypes.VARCHAR) Slice value, @SqlType(LikePatternType.NAME) LikePattern pattern)
     {
-        // Joni doesn't handle invalid UTF-8, so replace invalid characters
-        byte[] bytes = value.getBytes();
-        if (isAscii(bytes)) {
-            return regexMatches(pattern, bytes);
-        }
-        // convert to a String and back to "fix" any broken UTF-8 sequences
-        return regexMatches(pattern, value.toStringUtf8().getBytes(UTF_8));
+        return pattern.matches(value);
     }
 
     @ScalarOperator(OperatorType.CAST)
     @SqlType(LikePatternType.NAME)
-    public static Regex likePattern(@SqlType(StandardTypes.VARCHAR) Slice pattern)
+    public static LikePattern likePattern(@SqlType(StandardTypes.VARCHAR) Slice pattern)
     {
         return likeToPattern(pattern.toStringUtf8(), '0', false);
     }
 
     @ScalarFunction
     @SqlType(LikePatternType.NAME)
-    public static Regex likePattern(@SqlType(StandardTypes.VARCHAR) Slice pattern, @SqlType(StandardTypes.VARCHAR) Slice escape)
+    public static LikePattern likePattern(@SqlType(StandardTypes.VARCHAR) Slice pattern, @SqlType(StandardTypes.VARCHAR) Slice escape)
     {
         return likeToPattern(pattern.toStringUtf8(), getEscapeChar(escape), true);
     }
 
-    private static boolean regexMatches(Regex regex, byte[] bytes)
-    {
-        return regex.matcher(bytes).match(0, bytes.length, Option.NONE) != -1;
-    }
-
     @SuppressWarnings("NestedSwitchStatement")
-    private static Regex likeToPattern(String patternString, char escapeChar, boolean shouldEscape)
+    private static LikePattern likeToPattern(String patternString, char escapeChar, boolean shouldEscape)
     {
         StringBuilder regex = new StringBuilder(patternString.length() * 2);
 
+        // literal runs between % wildcards, used when the pattern can be matched without a regex
+        List<Slice> segments = new ArrayList<>();
+        StringBuilder segment = new StringBuilder();
+        boolean literalOnly = true;
+        boolean leadingWildcard = false;
+        boolean trailingWildcard = false;
+
         regex.append('^');
         boolean escaped = false;
         for (char currentChar : patternString.toCharArray()) {
@@ -93,6 +95,28 @@ public final class LikeFunctions
                 escaped = true;
             }
             else {
+                if (!escaped && currentChar == '%') {
+                    if (segments.isEmpty() && segment.length() == 0) {
+                        leadingWildcard = true;
+                    }
+                    if (segment.length() > 0) {
+                        segments.add(Slices.utf8Slice(segment.toString()));
+                        segment.setLength(0);
+                    }
+                    trailingWildcard = true;
+                }
+                else if (!escaped && currentChar == '_') {
+                    literalOnly = false;
+                }
+                else {
+                    // the replacement character may match broken UTF-8 in the value, which only the regex handles
+                    if (currentChar == REPLACEMENT_CHARACTER) {
+                        literalOnly = false;
+                    }
+                    segment.append(currentChar);
+                    trailingWildcard = false;
+                }
+
                 switch (currentChar) {
                     case '%':
                         regex.append(escaped ? "%" : ".*");
@@ -120,8 +144,15 @@ public final class LikeFunctions
         }
         regex.append('$');
 
+        if (literalOnly) {
+            if (segment.length() > 0 || (segments.isEmpty() && !leadingWildcard)) {
+                segments.add(Slices.utf8Slice(segment.toString()));
+            }
+            return LikePattern.literalPattern(segments, leadingWildcard, trailingWildcard);
+        }
+
         byte[] bytes = regex.toString().getBytes(UTF_8);
-        return new Regex(bytes, 0, bytes.length, Option.MULTILINE, UTF8Encoding.INSTANCE, SYNTAX);
+        return LikePattern.regexPattern(new Regex(bytes, 0, bytes.length, Option.MULTILINE, UTF8Encoding.INSTANCE, SYNTAX));
     }
 
     @SuppressWarnings("NumericCastThatLosesPrecision")
@@ -137,13 +168,4 @@ public final class LikeFunctions
         }
         throw new IllegalArgumentException("escape must be empty or a single character: " + escapeString);
     }
-
-    private static boolean isAscii(byte[] bytes)
-    {
-        boolean high = false;
-        for (byte b : bytes) {
-            high |= (b & 0x80) != 0;
-        }
-        return !high;
-    }
 }
@@ -0,0 +1,142 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.type;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.joni.Option;
+import org.joni.Regex;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * A compiled LIKE pattern. Patterns that only contain literals and {@code %} wildcards
+ * (exact, prefix, suffix and contains patterns, or any combination of them) are matched
+ * directly against the UTF-8 bytes of the value. All other patterns are matched with a
+ * joni regular expression.
+ */
+public final class LikePattern
+{
+    // literal runs between % wildcards; null when the pattern is matched with the regex
+    private final Slice[] segments;
+    private final boolean leadingWildcard;
+    private final boolean trailingWildcard;
+
+    private final Regex regex;
+
+    private LikePattern(Slice[] segments, boolean leadingWildcard, boolean trailingWildcard, Regex regex)
+    {
+        this.segments = segments;
+        this.leadingWildcard = leadingWildcard;
+        this.trailingWildcard = trailingWildcard;
+        this.regex = regex;
+    }
+
+    /**
+     * Creates a pattern that matches the literal segments in order, with any characters
+     * in between them.
+     */
+    public static LikePattern literalPattern(List<Slice> segments, boolean leadingWildcard, boolean trailingWildcard)
+    {
+        checkNotNull(segments, "segments is null");
+        boolean hasWildcard = leadingWildcard || trailingWildcard || segments.size() > 1;
+        checkArgument(hasWildcard || segments.size() == 1, "exact pattern must have exactly one segment");
+        return new LikePattern(ImmutableList.copyOf(segments).toArray(new Slice[segments.size()]), leadingWildcard, trailingWildcard, null);
+    }
+
+    public static LikePattern regexPattern(Regex regex)
+    {
+        return new LikePattern(null, false, false, checkNotNull(regex, "regex is null"));
+    }
+
+    public boolean matches(Slice value)
+    {
+        if (regex != null) {
+            return regexMatches(value);
+        }
+
+        if (!leadingWildcard && !trailingWildcard && segments.length == 1) {
+            return value.equals(segments[0]);
+        }
+
+        int start = 0;
+        int end = value.length();
+        int firstSegment = 0;
+        int lastSegment = segments.length;
+
+        if (!leadingWildcard) {
+            Slice prefix = segments[0];
+            if (prefix.length() > end || !value.equals(0, prefix.length(), prefix, 0, prefix.length())) {
+                return false;
+            }
+            start = prefix.length();
+            firstSegment++;
+        }
+
+        if (!trailingWildcard) {
+            Slice suffix = segments[segments.length - 1];
+            if (end - suffix.length() < start || !value.equals(end - suffix.length(), suffix.length(), suffix, 0, suffix.length())) {
+                return false;
+            }
+            end -= suffix.length();
+            lastSegment--;
+        }
+
+        // match the remaining segments left to right, as early as possible
+        for (int i = firstSegment; i < lastSegment; i++) {
+            int index = indexOf(value, segments[i], start, end);
+            if (index < 0) {
+                return false;
+            }
+            start = index + segments[i].length();
+        }
+        return true;
+    }
+
+    private boolean regexMatches(Slice value)
+    {
+        // Joni doesn't handle invalid UTF-8, so replace invalid characters
+        byte[] bytes = value.getBytes();
+        if (!isAscii(bytes)) {
+            // convert to a String and back to "fix" any broken UTF-8 sequences
+            bytes = value.toStringUtf8().getBytes(UTF_8);
+        }
+        return regex.matcher(bytes).match(0, bytes.length, Option.NONE) != -1;
+    }
+
+    private static int indexOf(Slice value, Slice segment, int start, int end)
+    {
+        int length = segment.length();
+        byte first = segment.getByte(0);
+        for (int index = start; index <= end - length; index++) {
+            if (value.getByte(index) == first && value.equals(index, length, segment, 0, length)) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isAscii(byte[] bytes)
+    {
+        boolean high = false;
+        for (byte b : bytes) {
+            high |= (b & 0x80) != 0;
+        }
+        return !high;
+    }
+}
@@ -20,7 +20,6 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.AbstractType;
-import org.joni.Regex;
 
 public class LikePatternType
         extends AbstractType
@@ -30,7 +29,7 @@ public class LikePatternType
 
     public LikePatternType()
     {
-        super(NAME, Regex.class);
+        super(NAME, LikePattern.class);
     }
 
     @Override
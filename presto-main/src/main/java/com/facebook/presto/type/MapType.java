@@ -13,36 +13,29 @@
  */
 package com.facebook.presto.type;
 
-import com.facebook.presto.server.SliceSerializer;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
-import com.facebook.presto.spi.block.VariableWidthBlockBuilder;
+import com.facebook.presto.spi.block.MapBlock;
+import com.facebook.presto.spi.block.MapBlockBuilder;
+import com.facebook.presto.spi.block.SliceArrayBlock;
 import com.facebook.presto.spi.type.AbstractVariableWidthType;
 import com.facebook.presto.spi.type.Type;
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.module.SimpleModule;
-import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
-import io.airlift.json.ObjectMapperProvider;
 import io.airlift.slice.Slice;
-import io.airlift.slice.Slices;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-import static com.facebook.presto.type.TypeJsonUtils.stackRepresentationToObject;
+import static com.facebook.presto.type.ArrayType.toElementSlice;
 import static java.lang.String.format;
 
 public class MapType
         extends AbstractVariableWidthType
 {
-    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get().registerModule(new SimpleModule().addSerializer(Slice.class, new SliceSerializer()));
-    private static final ObjectMapper RAW_SLICE_OBJECT_MAPPER = new ObjectMapperProvider().get().registerModule(new SimpleModule().addSerializer(Slice.class, new RawSliceSerializer()));
-
     private final Type keyType;
     private final Type valueType;
 
@@ -53,43 +46,20 @@ public class MapType
         this.valueType = valueType;
     }
 
+    /**
+     * Takes a map of stack types and converts it to the stack representation of a map
+     */
     public static Slice toStackRepresentation(Map<?, ?> value)
     {
-        try {
-            Map<String, Object> map = new LinkedHashMap<>();
-            for (Map.Entry<?, ?> entry : value.entrySet()) {
-                if (entry.getKey() instanceof Slice) {
-                    map.put(((Slice) entry.getKey()).toStringUtf8(), entry.getValue());
-                }
-                else {
-                    map.put(entry.getKey().toString(), entry.getValue());
-                }
-            }
-            return Slices.utf8Slice(OBJECT_MAPPER.writeValueAsString(map));
-        }
-        catch (JsonProcessingException e) {
-            throw Throwables.propagate(e);
-        }
-    }
-
-    public static Slice rawValueSlicesToStackRepresentation(Map<?, ?> value)
-    {
-        try {
-            Map<String, Object> map = new LinkedHashMap<>();
-            for (Map.Entry<?, ?> entry : value.entrySet()) {
-                // Jackson only supports strings as keys
-                if (entry.getKey() instanceof Slice) {
-                    map.put(((Slice) entry.getKey()).toStringUtf8(), entry.getValue());
-                }
-                else {
-                    map.put(entry.getKey().toString(), entry.getValue());
-                }
-            }
-            return Slices.utf8Slice(RAW_SLICE_OBJECT_MAPPER.writeValueAsString(map));
-        }
-        catch (JsonProcessingException e) {
-            throw Throwables.propagate(e);
+        Slice[] keys = new Slice[value.size()];
+        Slice[] values = new Slice[value.size()];
+        int entry = 0;
+        for (Map.Entry<?, ?> mapEntry : value.entrySet()) {
+            keys[entry] = toElementSlice(mapEntry.getKey());
+            values[entry] = toElementSlice(mapEntry.getValue());
+            entry++;
         }
+        return MapBlock.writeEntry(new SliceArrayBlock(keys.length, keys), new SliceArrayBlock(values.length, values));
     }
 
     public Type getKeyType()
@@ -109,8 +79,23 @@ public class MapType
             return null;
         }
 
-        Slice slice = block.getSlice(position, 0, block.getLength(position));
-        return stackRepresentationToObject(session, slice, this);
+        Block keys;
+        Block values;
+        if (block instanceof MapBlock) {
+            keys = ((MapBlock) block).getKeys(position);
+            values = ((MapBlock) block).getValues(position);
+        }
+        else {
+            Slice slice = block.getSlice(position, 0, block.getLength(position));
+            keys = MapBlock.readKeys(slice);
+            values = MapBlock.readValues(slice);
+        }
+
+        Map<Object, Object> map = new LinkedHashMap<>();
+        for (int i = 0; i < keys.getPositionCount(); i++) {
+            map.put(keyType.getObjectValue(session, keys, i), valueType.getObjectValue(session, values, i));
+        }
+        return Collections.unmodifiableMap(map);
     }
 
     @Override
@@ -119,6 +104,18 @@ public class MapType
         if (block.isNull(position)) {
             blockBuilder.appendNull();
         }
+        else if (block instanceof MapBlock && blockBuilder instanceof MapBlockBuilder) {
+            // copy the entries directly instead of going through the byte representation
+            MapBlock mapBlock = (MapBlock) block;
+            MapBlockBuilder mapBlockBuilder = (MapBlockBuilder) blockBuilder;
+            Block keys = mapBlock.getKeys(position);
+            Block values = mapBlock.getValues(position);
+            for (int i = 0; i < keys.getPositionCount(); i++) {
+                keyType.appendTo(keys, i, mapBlockBuilder.getKeyBlockBuilder());
+                valueType.appendTo(values, i, mapBlockBuilder.getValueBlockBuilder());
+            }
+            blockBuilder.closeEntry();
+        }
         else {
             block.writeBytesTo(position, 0, block.getLength(position), blockBuilder);
             blockBuilder.closeEntry();
@@ -146,7 +143,10 @@ public class MapType
     @Override
     public BlockBuilder createBlockBuilder(BlockBuilderStatus blockBuilderStatus)
     {
-        return new VariableWidthBlockBuilder(blockBuilderStatus);
+        return new MapBlockBuilder(
+                blockBuilderStatus,
+                keyType.createBlockBuilder(new BlockBuilderStatus(blockBuilderStatus)),
+                valueType.createBlockBuilder(new BlockBuilderStatus(blockBuilderStatus)));
     }
 
     @Override
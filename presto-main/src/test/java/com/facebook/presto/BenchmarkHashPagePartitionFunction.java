@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.operator.BenchmarkPages.createPages;
+import static com.facebook.presto.operator.BenchmarkPages.getKeyType;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkHashPagePartitionFunction
+{
+    private static final int POSITIONS = 100_000;
+    private static final List<Integer> PARTITIONING_CHANNELS = ImmutableList.of(0);
+
+    @Param({"BIGINT", "VARCHAR"})
+    public String keyType = "BIGINT";
+
+    @Param({"10", "100000"})
+    public int cardinality = 1000;
+
+    @Param({"1024", "8192"})
+    public int positionsPerPage = 1024;
+
+    @Param({"4", "64"})
+    public int partitionCount = 4;
+
+    private List<Page> pages;
+    private HashPagePartitionFunction partitionFunction;
+    private HashPagePartitioner partitioner;
+
+    @Setup
+    public void setup()
+    {
+        Type type = getKeyType(keyType);
+        List<Type> types = ImmutableList.of(type, BIGINT);
+        pages = createPages(type, cardinality, positionsPerPage, POSITIONS / positionsPerPage);
+
+        partitionFunction = new HashPagePartitionFunction(0, partitionCount, PARTITIONING_CHANNELS, types);
+        partitioner = partitionFunction.createPartitioner();
+    }
+
+    /**
+     * Extracts a single partition, which hashes every row once per consumer.
+     */
+    @Benchmark
+    public List<Page> partition()
+    {
+        return partitionFunction.partition(pages);
+    }
+
+    /**
+     * Splits the pages into all partitions at once, as the shared buffer does.
+     */
+    @Benchmark
+    public List<List<Page>> partitionAll()
+    {
+        List<List<Page>> partitions = null;
+        for (Page page : pages) {
+            partitions = partitioner.partitionPage(page);
+        }
+        return partitions;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkHashPagePartitionFunction.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
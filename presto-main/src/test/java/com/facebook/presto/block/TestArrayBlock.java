@@ -0,0 +1,102 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.ArrayBlockBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.type.ArrayType;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestArrayBlock
+        extends AbstractTestBlock
+{
+    @Test
+    public void test()
+    {
+        List<List<Long>> arrays = createArrays(100);
+
+        Slice[] expectedValues = new Slice[arrays.size()];
+        for (int i = 0; i < arrays.size(); i++) {
+            expectedValues[i] = ArrayType.toStackRepresentation(arrays.get(i));
+        }
+
+        // elements appended directly
+        ArrayBlockBuilder blockBuilder = new ArrayBlockBuilder(new BlockBuilderStatus(), BIGINT.createBlockBuilder(new BlockBuilderStatus()));
+        for (List<Long> array : arrays) {
+            for (Long element : array) {
+                if (element == null) {
+                    blockBuilder.getElementBlockBuilder().appendNull();
+                }
+                else {
+                    BIGINT.writeLong(blockBuilder.getElementBlockBuilder(), element);
+                }
+            }
+            blockBuilder.closeEntry();
+        }
+        assertBlock(blockBuilder, expectedValues);
+        assertBlock(blockBuilder.build(), expectedValues);
+
+        // byte representation written, with null arrays
+        Slice[] expectedValuesWithNulls = (Slice[]) alternatingNullValues(expectedValues);
+        blockBuilder = new ArrayBlockBuilder(new BlockBuilderStatus(), BIGINT.createBlockBuilder(new BlockBuilderStatus()));
+        for (Slice value : expectedValuesWithNulls) {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                blockBuilder.writeBytes(value, 0, value.length()).closeEntry();
+            }
+        }
+        ArrayBlock block = blockBuilder.build();
+        assertBlock(block, expectedValuesWithNulls);
+
+        // the elements are stored natively
+        assertEquals(block.getValues().getPositionCount(), 2 * 100);
+        for (int i = 0; i < arrays.size(); i++) {
+            Block elements = block.getElements(i * 2);
+            assertEquals(block.getElementCount(i * 2), arrays.get(i).size());
+            for (int position = 0; position < elements.getPositionCount(); position++) {
+                Long expected = arrays.get(i).get(position);
+                if (expected == null) {
+                    assertTrue(elements.isNull(position));
+                }
+                else {
+                    assertEquals(BIGINT.getLong(elements, position), expected.longValue());
+                }
+            }
+        }
+    }
+
+    private static List<List<Long>> createArrays(int count)
+    {
+        List<List<Long>> arrays = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            List<Long> array = new ArrayList<>();
+            array.add((long) i);
+            array.add(i % 3 == 0 ? null : (long) -i);
+            arrays.add(array);
+        }
+        return arrays;
+    }
+}
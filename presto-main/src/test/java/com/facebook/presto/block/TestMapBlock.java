@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.MapBlock;
+import com.facebook.presto.spi.block.MapBlockBuilder;
+import com.facebook.presto.type.MapType;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+
+public class TestMapBlock
+        extends AbstractTestBlock
+{
+    @Test
+    public void test()
+    {
+        Slice[] expectedValues = new Slice[50];
+        for (int i = 0; i < expectedValues.length; i++) {
+            expectedValues[i] = MapType.toStackRepresentation(ImmutableMap.of(utf8Slice("k" + i), (long) i, utf8Slice("key"), (long) i * 2));
+        }
+        Slice[] expectedValuesWithNulls = (Slice[]) alternatingNullValues(expectedValues);
+
+        MapBlockBuilder blockBuilder = new MapBlockBuilder(
+                new BlockBuilderStatus(),
+                VARCHAR.createBlockBuilder(new BlockBuilderStatus()),
+                BIGINT.createBlockBuilder(new BlockBuilderStatus()));
+        for (Slice value : expectedValuesWithNulls) {
+            if (value == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                blockBuilder.writeBytes(value, 0, value.length()).closeEntry();
+            }
+        }
+        assertBlock(blockBuilder, expectedValuesWithNulls);
+
+        MapBlock block = blockBuilder.build();
+        assertBlock(block, expectedValuesWithNulls);
+
+        Block keys = block.getKeys(4);
+        Block values = block.getValues(4);
+        assertEquals(block.getEntryCount(4), 2);
+        assertEquals(VARCHAR.getSlice(keys, 0), utf8Slice("k2"));
+        assertEquals(BIGINT.getLong(values, 1), 4);
+    }
+}
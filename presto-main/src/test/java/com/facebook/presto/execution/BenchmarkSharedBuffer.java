@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.HashPagePartitionFunction;
+import com.facebook.presto.OutputBuffers;
+import com.facebook.presto.PagePartitionFunction;
+import com.facebook.presto.UnpartitionedPagePartitionFunction;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
+import static com.facebook.presto.operator.BenchmarkPages.createPages;
+import static com.facebook.presto.operator.BenchmarkPages.getKeyType;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkSharedBuffer
+{
+    private static final int POSITIONS = 100_000;
+    private static final DataSize MAX_BUFFER_SIZE = new DataSize(1, GIGABYTE);
+    private static final DataSize MAX_RESPONSE_SIZE = new DataSize(1, MEGABYTE);
+    private static final TaskId TASK_ID = new TaskId("query", "stage", "task");
+
+    @Param({"BIGINT", "VARCHAR"})
+    public String keyType = "BIGINT";
+
+    @Param({"1024", "8192"})
+    public int positionsPerPage = 1024;
+
+    @Param({"1", "4"})
+    public int consumers = 4;
+
+    @Param({"false", "true"})
+    public boolean hashPartitioned;
+
+    private ExecutorService executor;
+    private List<Page> pages;
+    private List<TaskId> bufferIds;
+    private OutputBuffers outputBuffers;
+
+    @Setup
+    public void setup()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("benchmark-%s"));
+
+        Type type = getKeyType(keyType);
+        List<Type> types = ImmutableList.of(type, BIGINT);
+        pages = createPages(type, 1000, positionsPerPage, POSITIONS / positionsPerPage);
+
+        ImmutableList.Builder<TaskId> bufferIds = ImmutableList.builder();
+        OutputBuffers outputBuffers = INITIAL_EMPTY_OUTPUT_BUFFERS;
+        for (int i = 0; i < consumers; i++) {
+            TaskId bufferId = new TaskId("query", "stage", String.valueOf(i));
+            PagePartitionFunction partitionFunction;
+            if (hashPartitioned) {
+                partitionFunction = new HashPagePartitionFunction(i, consumers, ImmutableList.of(0), types);
+            }
+            else {
+                partitionFunction = new UnpartitionedPagePartitionFunction();
+            }
+            outputBuffers = outputBuffers.withBuffer(bufferId, partitionFunction);
+            bufferIds.add(bufferId);
+        }
+        this.bufferIds = bufferIds.build();
+        this.outputBuffers = outputBuffers.withNoMoreBufferIds();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long enqueueAndDrain()
+            throws InterruptedException, ExecutionException
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, executor, MAX_BUFFER_SIZE);
+        sharedBuffer.setOutputBuffers(outputBuffers);
+        for (Page page : pages) {
+            sharedBuffer.enqueue(page);
+        }
+        sharedBuffer.setNoMorePages();
+
+        long positions = 0;
+        for (TaskId bufferId : bufferIds) {
+            long sequenceId = 0;
+            while (true) {
+                BufferResult result = sharedBuffer.get(bufferId, sequenceId, MAX_RESPONSE_SIZE).get();
+                if (result.isBufferClosed()) {
+                    break;
+                }
+                for (Page page : result.getPages()) {
+                    positions += page.getPositionCount();
+                }
+                sequenceId = result.getNextToken();
+            }
+        }
+        sharedBuffer.destroy();
+        return positions;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkSharedBuffer.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -149,6 +149,11 @@ public class MockRemoteTaskFactory
             return nodeId;
         }
 
+        @Override
+        public void refreshTaskInfo()
+        {
+        }
+
         @Override
         public TaskInfo getTaskInfo()
         {
@@ -170,6 +175,12 @@ public class MockRemoteTaskFactory
                     failures);
         }
 
+        @Override
+        public TaskStatus getTaskStatus()
+        {
+            return TaskStatus.fromTaskInfo(getTaskInfo());
+        }
+
         @Override
         public void start()
         {
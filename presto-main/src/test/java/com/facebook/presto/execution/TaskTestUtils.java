@@ -24,7 +24,9 @@ import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.metadata.TableHandle;
 import com.facebook.presto.operator.RecordSinkManager;
+import com.facebook.presto.operator.SpillerFactory;
 import com.facebook.presto.operator.index.IndexJoinLookupStats;
+import com.facebook.presto.operator.index.SharedIndexCache;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.split.PageSourceManager;
 import com.facebook.presto.sql.gen.ExpressionCompiler;
@@ -49,6 +51,7 @@ import java.util.List;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 
 public final class TaskTestUtils
 {
@@ -94,8 +97,10 @@ public final class TaskTestUtils
                 new MockExchangeClientSupplier(),
                 new ExpressionCompiler(metadata),
                 new IndexJoinLookupStats(),
+                new SharedIndexCache(new TaskManagerConfig(), new IndexJoinLookupStats()),
                 new CompilerConfig(),
-                new TaskManagerConfig());
+                new TaskManagerConfig(),
+                new SpillerFactory(createTestingBlockEncodingManager(), new TaskManagerConfig()));
     }
 
     public static TaskInfo updateTask(SqlTask sqlTask, List<TaskSource> taskSources, OutputBuffers outputBuffers)
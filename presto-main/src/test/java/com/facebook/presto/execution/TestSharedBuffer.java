@@ -13,11 +13,14 @@
  */
 package com.facebook.presto.execution;
 
+import com.facebook.presto.HashPagePartitionFunction;
+import com.facebook.presto.HashPagePartitioner;
 import com.facebook.presto.OutputBuffers;
 import com.facebook.presto.UnpartitionedPagePartitionFunction;
 import com.facebook.presto.block.BlockAssertions;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.operator.PageAssertions;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.BigintType;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.base.Throwables;
@@ -30,7 +33,9 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -237,6 +242,86 @@ public class TestSharedBuffer
         assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, SECOND, 14, sizeOfPages(10), NO_WAIT), emptyResults(14, true));
     }
 
+    @Test
+    public void testHashPartitionedBuffers()
+            throws Exception
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, stateNotificationExecutor, sizeOfPages(100));
+
+        // add a page before the buffers are known
+        addPage(sharedBuffer, new Page(BlockAssertions.createLongSequenceBlock(0, 100)));
+
+        List<Type> types = ImmutableList.<Type>of(BIGINT);
+        List<Integer> partitioningChannels = ImmutableList.of(0);
+        sharedBuffer.setOutputBuffers(INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer(FIRST, new HashPagePartitionFunction(0, 2, partitioningChannels, types))
+                .withBuffer(SECOND, new HashPagePartitionFunction(1, 2, partitioningChannels, types))
+                .withNoMoreBufferIds());
+
+        // add a page after the buffers are known
+        addPage(sharedBuffer, new Page(BlockAssertions.createLongSequenceBlock(100, 200)));
+        sharedBuffer.setNoMorePages();
+
+        HashPagePartitioner partitioner = new HashPagePartitioner(2, partitioningChannels, types);
+        Set<Long> values = new HashSet<>();
+        TaskId[] bufferIds = {FIRST, SECOND};
+        for (int partition = 0; partition < bufferIds.length; partition++) {
+            BufferResult bufferResult = getBufferResult(sharedBuffer, bufferIds[partition], 0, sizeOfPages(100), NO_WAIT);
+            assertEquals(bufferResult.getToken(), 0);
+            assertEquals(bufferResult.getNextToken(), 2);
+            for (Page page : bufferResult.getPages()) {
+                Block block = page.getBlock(0);
+                for (int position = 0; position < page.getPositionCount(); position++) {
+                    assertEquals(partitioner.getPartition(position, block), partition);
+                    assertTrue(values.add(BIGINT.getLong(block, position)));
+                }
+            }
+            assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, bufferIds[partition], 2, sizeOfPages(10), NO_WAIT), emptyResults(2, true));
+        }
+
+        // every row was sent to exactly one buffer
+        assertEquals(values.size(), 200);
+        assertFinished(sharedBuffer);
+    }
+
+    @Test
+    public void testPartitionedAndUnpartitionedBuffers()
+            throws Exception
+    {
+        SharedBuffer sharedBuffer = new SharedBuffer(TASK_ID, stateNotificationExecutor, sizeOfPages(100));
+
+        // add a page before the buffers are known
+        Page firstPage = new Page(BlockAssertions.createLongSequenceBlock(0, 100));
+        addPage(sharedBuffer, firstPage);
+
+        List<Type> types = ImmutableList.<Type>of(BIGINT);
+        sharedBuffer.setOutputBuffers(INITIAL_EMPTY_OUTPUT_BUFFERS
+                .withBuffer(FIRST, new HashPagePartitionFunction(0, 1, ImmutableList.of(0), types))
+                .withBuffer(SECOND, new UnpartitionedPagePartitionFunction())
+                .withNoMoreBufferIds());
+
+        // add a page after the buffers are known
+        Page secondPage = new Page(BlockAssertions.createLongSequenceBlock(100, 200));
+        addPage(sharedBuffer, secondPage);
+        sharedBuffer.setNoMorePages();
+
+        // the partitioned buffer reads first, and receives all rows of its only partition
+        BufferResult bufferResult = getBufferResult(sharedBuffer, FIRST, 0, sizeOfPages(100), NO_WAIT);
+        assertEquals(bufferResult.getNextToken(), 2);
+        int positionCount = 0;
+        for (Page page : bufferResult.getPages()) {
+            positionCount += page.getPositionCount();
+        }
+        assertEquals(positionCount, 200);
+
+        // the unpartitioned buffer still receives the original pages
+        assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, SECOND, 0, sizeOfPages(100), NO_WAIT), bufferResult(0, firstPage, secondPage));
+
+        assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, FIRST, 2, sizeOfPages(10), NO_WAIT), emptyResults(2, true));
+        assertBufferResultEquals(TYPES, getBufferResult(sharedBuffer, SECOND, 2, sizeOfPages(10), NO_WAIT), emptyResults(2, true));
+        assertFinished(sharedBuffer);
+    }
+
     public static BufferResult getBufferResult(SharedBuffer sharedBuffer, TaskId outputId, long sequenceId, DataSize maxSize, Duration maxWait)
     {
         ListenableFuture<BufferResult> future = sharedBuffer.get(outputId, sequenceId, maxSize);
@@ -407,6 +407,11 @@ public class TestSqlStageExecution
                 return nodeId;
             }
 
+            @Override
+            public void refreshTaskInfo()
+            {
+            }
+
             @Override
             public TaskInfo getTaskInfo()
             {
@@ -428,6 +433,12 @@ public class TestSqlStageExecution
                         failures);
             }
 
+            @Override
+            public TaskStatus getTaskStatus()
+            {
+                return TaskStatus.fromTaskInfo(getTaskInfo());
+            }
+
             public void finished()
             {
                 taskStateMachine.finished();
@@ -117,6 +117,63 @@ public class TestSqlTask
         assertEquals(taskInfo.getState(), TaskState.FINISHED);
     }
 
+    @Test
+    public void testIncrementalUpdate()
+            throws Exception
+    {
+        SqlTask sqlTask = createInitialTask();
+
+        TaskInfo taskInfo = sqlTask.updateTask(TEST_SESSION,
+                PLAN_FRAGMENT,
+                ImmutableList.<TaskSource>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
+        assertEquals(taskInfo.getState(), TaskState.RUNNING);
+
+        // once the task exists, updates do not need the fragment or the output buffers
+        taskInfo = sqlTask.updateTask(TEST_SESSION,
+                null,
+                ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.<ScheduledSplit>of(), true)),
+                null);
+        assertEquals(taskInfo.getState(), TaskState.FINISHED);
+    }
+
+    @Test
+    public void testTaskStatus()
+            throws Exception
+    {
+        SqlTask sqlTask = createInitialTask();
+
+        TaskStatus taskStatus = sqlTask.getTaskStatus();
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
+        assertEquals(taskStatus.getQueuedPartitionedDrivers(), 0);
+
+        TaskInfo taskInfo = sqlTask.updateTask(TEST_SESSION,
+                PLAN_FRAGMENT,
+                ImmutableList.<TaskSource>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
+        assertTrue(taskInfo.getVersion() > taskStatus.getVersion());
+
+        // status and info share the version sequence
+        taskStatus = sqlTask.getTaskStatus();
+        assertEquals(taskStatus.getState(), TaskState.RUNNING);
+        assertTrue(taskStatus.getVersion() > taskInfo.getVersion());
+
+        ListenableFuture<TaskStatus> futureTaskStatus = sqlTask.getTaskStatus(TaskState.RUNNING);
+        assertFalse(futureTaskStatus.isDone());
+
+        updateTask(sqlTask, ImmutableList.of(new TaskSource(TABLE_SCAN_NODE_ID, ImmutableSet.<ScheduledSplit>of(), true)), INITIAL_EMPTY_OUTPUT_BUFFERS.withNoMoreBufferIds());
+        assertEquals(futureTaskStatus.get(1, TimeUnit.SECONDS).getState(), TaskState.FINISHED);
+        assertEquals(sqlTask.getTaskStatus().getState(), TaskState.FINISHED);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCreateWithoutFragment()
+            throws Exception
+    {
+        SqlTask sqlTask = createInitialTask();
+        sqlTask.updateTask(TEST_SESSION, null, ImmutableList.<TaskSource>of(), INITIAL_EMPTY_OUTPUT_BUFFERS);
+    }
+
     @Test
     public void testSimpleQuery()
             throws Exception
@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.execution;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
@@ -34,11 +35,17 @@ public class TestTaskManagerConfig
         assertRecordedDefaults(recordDefaults(TaskManagerConfig.class)
                 .setTaskCpuTimerEnabled(true)
                 .setMaxShardProcessorThreads(Runtime.getRuntime().availableProcessors() * 4)
+                .setHashBuildConcurrency(4)
                 .setInfoMaxAge(new Duration(15, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(5, TimeUnit.MINUTES))
                 .setMaxTaskMemoryUsage(new DataSize(256, Unit.MEGABYTE))
                 .setMaxTaskIndexMemoryUsage(new DataSize(64, Unit.MEGABYTE))
+                .setMaxSharedIndexMemoryUsage(new DataSize(0, Unit.BYTE))
                 .setOperatorPreAllocatedMemory(new DataSize(16, Unit.MEGABYTE))
+                .setSpillEnabled(false)
+                .setSpillPaths("")
+                .setMaxSpillPerOperator(new DataSize(10, Unit.GIGABYTE))
+                .setDynamicFilteringEnabled(true)
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE)));
     }
 
@@ -49,8 +56,14 @@ public class TestTaskManagerConfig
                 .put("task.cpu-timer-enabled", "false")
                 .put("task.max-memory", "2GB")
                 .put("task.max-index-memory", "512MB")
+                .put("task.max-shared-index-memory", "1GB")
                 .put("task.operator-pre-allocated-memory", "2MB")
+                .put("task.spill-enabled", "true")
+                .put("task.spill-paths", "/tmp/spill1,/tmp/spill2")
+                .put("task.max-spill-per-operator", "1GB")
+                .put("task.dynamic-filtering-enabled", "false")
                 .put("task.shard.max-threads", "3")
+                .put("task.hash-build-concurrency", "8")
                 .put("task.info.max-age", "22m")
                 .put("task.client.timeout", "10s")
                 .put("sink.max-buffer-size", "42MB")
@@ -60,8 +73,14 @@ public class TestTaskManagerConfig
                 .setTaskCpuTimerEnabled(false)
                 .setMaxTaskMemoryUsage(new DataSize(2, Unit.GIGABYTE))
                 .setMaxTaskIndexMemoryUsage(new DataSize(512, Unit.MEGABYTE))
+                .setMaxSharedIndexMemoryUsage(new DataSize(1, Unit.GIGABYTE))
                 .setOperatorPreAllocatedMemory(new DataSize(2, Unit.MEGABYTE))
+                .setSpillEnabled(true)
+                .setSpillPaths(ImmutableList.of("/tmp/spill1", "/tmp/spill2"))
+                .setMaxSpillPerOperator(new DataSize(1, Unit.GIGABYTE))
+                .setDynamicFilteringEnabled(false)
                 .setMaxShardProcessorThreads(3)
+                .setHashBuildConcurrency(8)
                 .setInfoMaxAge(new Duration(22, TimeUnit.MINUTES))
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE));
@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.operator.BenchmarkPages.createPages;
+import static com.facebook.presto.operator.BenchmarkPages.getKeyType;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkGroupByHash
+{
+    private static final int POSITIONS = 1_000_000;
+    private static final int EXPECTED_SIZE = 10_000;
+
+    @Param({"BIGINT", "VARCHAR"})
+    public String keyType = "BIGINT";
+
+    @Param({"10", "1000", "100000"})
+    public int cardinality = 1000;
+
+    @Param({"1024", "8192"})
+    public int positionsPerPage = 1024;
+
+    private List<Type> types;
+    private List<Page> pages;
+
+    @Setup
+    public void setup()
+    {
+        Type type = getKeyType(keyType);
+        types = ImmutableList.of(type);
+        pages = createPages(type, cardinality, positionsPerPage, POSITIONS / positionsPerPage);
+    }
+
+    @Benchmark
+    public GroupByIdBlock getGroupIds()
+    {
+        GroupByHash groupByHash = new GroupByHash(types, new int[] {0}, EXPECTED_SIZE);
+        GroupByIdBlock groupIds = null;
+        for (Page page : pages) {
+            groupIds = groupByHash.getGroupIds(page);
+        }
+        return groupIds;
+    }
+
+    @Benchmark
+    public int putIfAbsent()
+    {
+        GroupByHash groupByHash = new GroupByHash(types, new int[] {0}, EXPECTED_SIZE);
+        int groupId = 0;
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                groupId = groupByHash.putIfAbsent(position, page.getBlock(0));
+            }
+        }
+        return groupId;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkGroupByHash.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.operator.BenchmarkPages.createOperatorContext;
+import static com.facebook.presto.operator.BenchmarkPages.createPages;
+import static com.facebook.presto.operator.BenchmarkPages.getKeyType;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkInMemoryJoinHash
+{
+    private static final int PROBE_POSITIONS = 1_000_000;
+    private static final List<Integer> JOIN_CHANNELS = ImmutableList.of(0);
+
+    @Param({"BIGINT", "VARCHAR"})
+    public String keyType = "BIGINT";
+
+    @Param({"10", "1000", "100000"})
+    public int cardinality = 1000;
+
+    @Param({"1024", "8192"})
+    public int positionsPerPage = 1024;
+
+    private ExecutorService executor;
+    private PagesIndex pagesIndex;
+    private LookupSource lookupSource;
+    private List<Page> probePages;
+
+    @Setup
+    public void setup()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("benchmark-%s"));
+
+        Type type = getKeyType(keyType);
+
+        // the build side has one row per key, on average
+        int buildPageCount = (cardinality + positionsPerPage - 1) / positionsPerPage;
+        pagesIndex = new PagesIndex(ImmutableList.of(type, BIGINT), cardinality, createOperatorContext(executor));
+        for (Page page : createPages(type, cardinality, positionsPerPage, buildPageCount)) {
+            pagesIndex.addPage(page);
+        }
+        lookupSource = pagesIndex.createLookupSource(JOIN_CHANNELS);
+
+        probePages = createPages(type, cardinality, positionsPerPage, PROBE_POSITIONS / positionsPerPage);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        lookupSource.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public LookupSource build()
+    {
+        LookupSource lookupSource = pagesIndex.createLookupSource(JOIN_CHANNELS);
+        lookupSource.close();
+        return lookupSource;
+    }
+
+    @Benchmark
+    public long probe()
+    {
+        long matches = 0;
+        for (Page page : probePages) {
+            Block[] blocks = new Block[] {page.getBlock(0)};
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long joinPosition = lookupSource.getJoinPosition(position, blocks);
+                while (joinPosition >= 0) {
+                    matches++;
+                    joinPosition = lookupSource.getNextJoinPosition(joinPosition);
+                }
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkInMemoryJoinHash.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Charsets.UTF_8;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+
+/**
+ * Data generators shared by the JMH operator benchmarks.
+ */
+public final class BenchmarkPages
+{
+    private BenchmarkPages()
+    {
+    }
+
+    /**
+     * Gets the type for a key type benchmark parameter.
+     */
+    public static Type getKeyType(String keyType)
+    {
+        switch (keyType) {
+            case "BIGINT":
+                return BIGINT;
+            case "DOUBLE":
+                return DOUBLE;
+            case "VARCHAR":
+                return VARCHAR;
+            default:
+                throw new IllegalArgumentException("Unsupported key type: " + keyType);
+        }
+    }
+
+    /**
+     * Creates pages with a key column of the specified type followed by a BIGINT value
+     * column. The keys are drawn from {@code cardinality} distinct values in random order,
+     * and the data is the same for every run.
+     */
+    public static List<Page> createPages(Type keyType, int cardinality, int positionsPerPage, int pageCount)
+    {
+        List<Type> types = ImmutableList.of(keyType, BIGINT);
+        Random random = new Random(42);
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        long value = 0;
+        for (int page = 0; page < pageCount; page++) {
+            PageBuilder pageBuilder = new PageBuilder(types);
+            BlockBuilder keyBuilder = pageBuilder.getBlockBuilder(0);
+            BlockBuilder valueBuilder = pageBuilder.getBlockBuilder(1);
+            for (int position = 0; position < positionsPerPage; position++) {
+                pageBuilder.declarePosition();
+                writeKey(keyType, keyBuilder, random.nextInt(cardinality));
+                BIGINT.writeLong(valueBuilder, value++);
+            }
+            pages.add(pageBuilder.build());
+        }
+        return pages.build();
+    }
+
+    private static void writeKey(Type keyType, BlockBuilder blockBuilder, int key)
+    {
+        if (keyType.getJavaType() == long.class) {
+            keyType.writeLong(blockBuilder, key);
+        }
+        else if (keyType.getJavaType() == double.class) {
+            keyType.writeDouble(blockBuilder, key);
+        }
+        else {
+            keyType.writeSlice(blockBuilder, Slices.copiedBuffer("key_" + key, UTF_8));
+        }
+    }
+
+    /**
+     * Creates an operator context with enough memory for the benchmark data sets.
+     */
+    public static OperatorContext createOperatorContext(Executor executor)
+    {
+        return new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(4, GIGABYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext()
+                .addOperatorContext(0, "benchmark");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.operator.BenchmarkPages.createOperatorContext;
+import static com.facebook.presto.operator.BenchmarkPages.createPages;
+import static com.facebook.presto.operator.BenchmarkPages.getKeyType;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkPagesIndexSort
+{
+    private static final int POSITIONS = 100_000;
+    private static final List<Integer> SORT_CHANNELS = ImmutableList.of(0, 1);
+    private static final List<SortOrder> SORT_ORDERS = ImmutableList.of(ASC_NULLS_LAST, ASC_NULLS_LAST);
+
+    @Param({"BIGINT", "VARCHAR"})
+    public String keyType = "BIGINT";
+
+    @Param({"10", "1000", "100000"})
+    public int cardinality = 1000;
+
+    @Param({"1024", "8192"})
+    public int positionsPerPage = 1024;
+
+    private ExecutorService executor;
+    private List<Type> types;
+    private List<Page> pages;
+    private PagesIndex pagesIndex;
+
+    @Setup
+    public void setup()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("benchmark-%s"));
+
+        Type type = getKeyType(keyType);
+        types = ImmutableList.of(type, BIGINT);
+        pages = createPages(type, cardinality, positionsPerPage, POSITIONS / positionsPerPage);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    // sorting reorders the index in place, so every invocation needs an unsorted index
+    @Setup(Level.Invocation)
+    public void createPagesIndex()
+    {
+        pagesIndex = new PagesIndex(types, POSITIONS, createOperatorContext(executor));
+        for (Page page : pages) {
+            pagesIndex.addPage(page);
+        }
+    }
+
+    @Benchmark
+    public PagesIndex sort()
+    {
+        pagesIndex.sort(types, SORT_CHANNELS, SORT_ORDERS);
+        return pagesIndex;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkPagesIndexSort.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
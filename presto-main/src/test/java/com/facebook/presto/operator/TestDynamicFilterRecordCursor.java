@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.RecordCursor;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterRecordCursor
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT, VARCHAR);
+
+    @Test
+    public void testSingleKey()
+    {
+        RecordCursor cursor = new DynamicFilterRecordCursor(
+                createCursor(),
+                new int[] {0},
+                new JoinKeySummary[] {JoinKeySummary.create(BIGINT, ImmutableList.of(createLongsBlock(2L, 4L)))});
+
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getLong(0), 2);
+        assertEquals(cursor.getSlice(1).toStringUtf8(), "c");
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getLong(0), 4);
+        assertEquals(cursor.getSlice(1).toStringUtf8(), "e");
+        assertFalse(cursor.advanceNextPosition());
+    }
+
+    @Test
+    public void testMultipleKeys()
+    {
+        RecordCursor cursor = new DynamicFilterRecordCursor(
+                createCursor(),
+                new int[] {0, 1},
+                new JoinKeySummary[] {
+                        JoinKeySummary.create(BIGINT, ImmutableList.of(createLongsBlock(1L, 2L, 3L))),
+                        JoinKeySummary.create(VARCHAR, ImmutableList.of(createStringsBlock("a", "b", "d")))});
+
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getLong(0), 1);
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getLong(0), 3);
+        assertFalse(cursor.advanceNextPosition());
+    }
+
+    @Test
+    public void testNullKey()
+    {
+        RecordCursor cursor = new DynamicFilterRecordCursor(
+                new InMemoryRecordSet(TYPES, ImmutableList.of(Arrays.<Object>asList(null, "a"), Arrays.<Object>asList(1L, "b"))).cursor(),
+                new int[] {0},
+                new JoinKeySummary[] {JoinKeySummary.create(BIGINT, ImmutableList.of(createLongsBlock(1L, null)))});
+
+        // a null key never matches the build side of an equi-join
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getLong(0), 1);
+        assertFalse(cursor.advanceNextPosition());
+    }
+
+    private static RecordCursor createCursor()
+    {
+        ImmutableList.Builder<List<?>> records = ImmutableList.builder();
+        for (long value = 0; value < 5; value++) {
+            records.add(ImmutableList.of(value, String.valueOf((char) ('a' + value))));
+        }
+        return new InMemoryRecordSet(TYPES, records.build()).cursor();
+    }
+}
@@ -30,12 +30,15 @@ import java.util.concurrent.ExecutorService;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
 import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
 import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
 
 @Test(singleThreaded = true)
 public class TestFilterAndProjectOperator
@@ -106,6 +109,49 @@ public class TestFilterAndProjectOperator
         assertOperatorEquals(operator, input, expected);
     }
 
+    @Test
+    public void testSelectiveFilterMergesSmallPages()
+            throws Exception
+    {
+        RowPagesBuilder inputBuilder = rowPagesBuilder(BIGINT);
+        for (int i = 0; i < 100; i++) {
+            inputBuilder.addSequencePage(100, i * 100);
+        }
+        List<Page> input = inputBuilder.build();
+
+        FilterFunction filter = new FilterFunction()
+        {
+            @Override
+            public boolean filter(int position, Block... blocks)
+            {
+                return BIGINT.getLong(blocks[0], position) % 100 == 0;
+            }
+
+            @Override
+            public boolean filter(RecordCursor cursor)
+            {
+                return cursor.getLong(0) % 100 == 0;
+            }
+        };
+        OperatorFactory operatorFactory = new FilterAndProjectOperator.FilterAndProjectOperatorFactory(
+                0,
+                new GenericPageProcessor(filter, ImmutableList.of(singleColumn(BIGINT, 0))),
+                ImmutableList.<Type>of(BIGINT));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+        List<Page> output = toPages(operator, input);
+
+        // each input page produces a single row, and those rows are merged into one output page
+        assertEquals(output.size(), 1);
+        assertEquals(output.get(0).getPositionCount(), 100);
+
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(driverContext.getSession(), BIGINT);
+        for (int i = 0; i < 100; i++) {
+            expected.row(i * 100L);
+        }
+        assertEquals(toMaterializedResult(driverContext.getSession(), ImmutableList.<Type>of(BIGINT), output), expected.build());
+    }
+
     private static class Add5Projection
             implements ProjectionFunction
     {
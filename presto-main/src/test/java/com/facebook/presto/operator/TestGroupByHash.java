@@ -15,6 +15,9 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.block.BlockAssertions;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.Test;
 
@@ -43,4 +46,33 @@ public class TestGroupByHash
             }
         }
     }
+
+    @Test
+    public void testPrecomputedHash()
+            throws Exception
+    {
+        GroupByHash groupByHash = new GroupByHash(ImmutableList.of(BIGINT), new int[] {0}, Optional.of(1), 100);
+        assertEquals(groupByHash.getOutputTypes(), ImmutableList.of(BIGINT, BIGINT));
+
+        for (int tries = 0; tries < 2; tries++) {
+            for (int value = 0; value < MAX_GROUP_ID; value++) {
+                Block block = BlockAssertions.createLongsBlock(value);
+                Block hashBlock = BlockAssertions.createLongsBlock((long) BIGINT.hash(block, 0));
+                Page page = new Page(block, hashBlock);
+
+                GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+                assertEquals(groupIds.getGroupCount(), tries == 0 ? value + 1 : MAX_GROUP_ID);
+                assertEquals(groupIds.getPositionCount(), 1);
+                assertEquals(groupIds.getGroupId(0), value);
+                assertEquals(groupByHash.contains(0, block, hashBlock), true);
+            }
+        }
+
+        // the hash is output after the group by keys
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getOutputTypes());
+        groupByHash.appendValuesTo(7, pageBuilder, 0);
+        Page page = pageBuilder.build();
+        assertEquals(BIGINT.getLong(page.getBlock(0), 0), 7);
+        assertEquals(BIGINT.getLong(page.getBlock(1), 0), BIGINT.hash(page.getBlock(0), 0));
+    }
 }
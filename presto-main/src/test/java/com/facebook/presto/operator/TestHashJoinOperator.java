@@ -15,10 +15,15 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.BigintOperators;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
@@ -36,8 +41,13 @@ import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.collect.Iterables.concat;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
@@ -108,6 +118,192 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperator, probeInput, expected);
     }
 
+    @Test
+    public void testDynamicFilter()
+            throws Exception
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .row("a", 10)
+                .row("b", 20)
+                .pageBreak()
+                .row("c", 30)
+                .build());
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildTypes, Ints.asList(1), Optional.<Integer>absent(), Optional.of(dynamicFilter), 100);
+        Driver driver = new Driver(driverContext, buildOperator, hashBuilderOperatorFactory.createOperator(driverContext));
+
+        // the summaries are not published until the whole build side is consumed
+        assertFalse(dynamicFilter.getSummaries().isPresent());
+        while (!driver.isFinished()) {
+            driver.process();
+        }
+        assertTrue(hashBuilderOperatorFactory.getLookupSourceSupplier().getLookupSource(operatorContext).isDone());
+
+        List<JoinKeySummary> summaries = dynamicFilter.getSummaries().get();
+        assertEquals(summaries.size(), 1);
+        Block probe = rowPagesBuilder(BIGINT).row(10).row(15).row(30).build().get(0).getBlock(0);
+        assertTrue(summaries.get(0).mightContain(probe, 0));
+        assertFalse(summaries.get(0).mightContain(probe, 1));
+        assertTrue(summaries.get(0).mightContain(probe, 2));
+    }
+
+    @Test
+    public void testCancelBuildDoesNotPublishDynamicFilter()
+            throws Exception
+    {
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "cancel"), executor);
+        TaskContext cancelableTaskContext = new TaskContext(taskStateMachine, executor, TEST_SESSION, new DataSize(256, MEGABYTE), new DataSize(1, MEGABYTE), true);
+
+        DriverContext driverContext = cancelableTaskContext.addPipelineContext(true, true).addDriverContext();
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .addSequencePage(10, 20)
+                .build());
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildTypes, Ints.asList(0), Optional.<Integer>absent(), Optional.of(dynamicFilter), 100);
+        Driver driver = new Driver(driverContext, buildOperator, hashBuilderOperatorFactory.createOperator(driverContext));
+
+        // cancel the task before the build side is consumed; destroying the driver finishes its operators
+        taskStateMachine.cancel();
+        driver.close();
+        assertTrue(driver.isFinished());
+
+        // neither the summaries nor the lookup source of the partial build side are published
+        assertFalse(dynamicFilter.getSummaries().isPresent());
+        assertFalse(hashBuilderOperatorFactory.getLookupSourceSupplier().getLookupSource(operatorContext).isDone());
+    }
+
+    @Test
+    public void testParallelBuildInnerJoin()
+            throws Exception
+    {
+        // collect the build side, which contains every key twice
+        DriverContext collectDriverContext = taskContext.addPipelineContext(true, false).addDriverContext();
+        OperatorContext operatorContext = collectDriverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .addSequencePage(10, 20, 30, 40)
+                .addSequencePage(10, 20, 30, 40)
+                .build());
+        ParallelHashBuilder parallelHashBuilder = new ParallelHashBuilder(buildTypes, Ints.asList(0), Optional.<Integer>absent(), 4, 100);
+        Operator collectOperator = parallelHashBuilder.getCollectOperatorFactory(1).createOperator(collectDriverContext);
+        Driver collectDriver = new Driver(collectDriverContext, buildOperator, collectOperator);
+        while (!collectDriver.isFinished()) {
+            collectDriver.process();
+        }
+        long collectedMemory = getMemoryReservation(collectOperator);
+
+        // build each partition in a separate driver
+        ImmutableList.Builder<Driver> drivers = ImmutableList.builder();
+        for (int partition = 0; partition < parallelHashBuilder.getPartitionCount(); partition++) {
+            DriverContext driverContext = taskContext.addPipelineContext(false, false).addDriverContext();
+            Operator values = new ValuesOperator(driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName()), ImmutableList.<Type>of(), ImmutableList.<Page>of());
+            drivers.add(new Driver(driverContext, values, parallelHashBuilder.getBuildOperatorFactory(1, partition).createOperator(driverContext)));
+        }
+        for (Driver driver : drivers.build()) {
+            while (!driver.isFinished()) {
+                driver.process();
+            }
+        }
+        assertTrue(parallelHashBuilder.getLookupSourceSupplier().getLookupSource(operatorContext).isDone());
+
+        // the memory of the partitioned addresses moved to the build operators
+        assertEquals(collectedMemory - getMemoryReservation(collectOperator), 20 * SIZE_OF_LONG);
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilder(probeTypes)
+                .addSequencePage(1000, 0, 1000, 2000)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                parallelHashBuilder.getLookupSourceSupplier(),
+                probeTypes,
+                Ints.asList(0));
+
+        Operator joinOperator = joinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+
+        // expected
+        MaterializedResult.Builder expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes));
+        for (int i = 0; i < 10; i++) {
+            expected.row(String.valueOf(20 + i), 1020 + i, 2020 + i, String.valueOf(20 + i), 30 + i, 40 + i);
+            expected.row(String.valueOf(20 + i), 1020 + i, 2020 + i, String.valueOf(20 + i), 30 + i, 40 + i);
+        }
+
+        assertOperatorEquals(joinOperator, probeInput, expected.build());
+    }
+
+    @Test
+    public void testCancelParallelBuild()
+            throws Exception
+    {
+        DriverContext collectDriverContext = taskContext.addPipelineContext(true, false).addDriverContext();
+        OperatorContext operatorContext = collectDriverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+        ParallelHashBuilder parallelHashBuilder = new ParallelHashBuilder(buildTypes, Ints.asList(0), Optional.<Integer>absent(), 4, 100);
+
+        // the build drivers block until the build side is collected
+        ImmutableList.Builder<Driver> drivers = ImmutableList.builder();
+        for (int partition = 0; partition < parallelHashBuilder.getPartitionCount(); partition++) {
+            DriverContext driverContext = taskContext.addPipelineContext(false, false).addDriverContext();
+            Operator values = new ValuesOperator(driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName()), ImmutableList.<Type>of(), ImmutableList.<Page>of());
+            Driver driver = new Driver(driverContext, values, parallelHashBuilder.getBuildOperatorFactory(1, partition).createOperator(driverContext));
+            assertFalse(driver.process().isDone());
+            drivers.add(driver);
+        }
+
+        // cancel the build drivers before the collect driver has run
+        for (Driver driver : drivers.build()) {
+            driver.close();
+            assertTrue(driver.isFinished());
+        }
+        assertFalse(parallelHashBuilder.getLookupSourceSupplier().getLookupSource(operatorContext).isDone());
+    }
+
+    @Test
+    public void testCancelParallelCollect()
+            throws Exception
+    {
+        TaskStateMachine taskStateMachine = new TaskStateMachine(new TaskId("query", "stage", "cancel"), executor);
+        TaskContext cancelableTaskContext = new TaskContext(taskStateMachine, executor, TEST_SESSION, new DataSize(256, MEGABYTE), new DataSize(1, MEGABYTE), true);
+
+        DriverContext collectDriverContext = cancelableTaskContext.addPipelineContext(true, false).addDriverContext();
+        OperatorContext operatorContext = collectDriverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .addSequencePage(10, 20, 30, 40)
+                .build());
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        ParallelHashBuilder parallelHashBuilder = new ParallelHashBuilder(buildTypes, Ints.asList(0), Optional.<Integer>absent(), Optional.of(dynamicFilter), 4, 100);
+        Driver collectDriver = new Driver(collectDriverContext, buildOperator, parallelHashBuilder.getCollectOperatorFactory(1).createOperator(collectDriverContext));
+
+        ImmutableList.Builder<Driver> drivers = ImmutableList.builder();
+        for (int partition = 0; partition < parallelHashBuilder.getPartitionCount(); partition++) {
+            DriverContext driverContext = cancelableTaskContext.addPipelineContext(false, false).addDriverContext();
+            Operator values = new ValuesOperator(driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName()), ImmutableList.<Type>of(), ImmutableList.<Page>of());
+            Driver driver = new Driver(driverContext, values, parallelHashBuilder.getBuildOperatorFactory(1, partition).createOperator(driverContext));
+            assertFalse(driver.process().isDone());
+            drivers.add(driver);
+        }
+
+        // cancel the task before the build side is fully collected; destroying the collect driver finishes its operators
+        taskStateMachine.cancel();
+        collectDriver.close();
+        assertTrue(collectDriver.isFinished());
+        for (Driver driver : drivers.build()) {
+            driver.close();
+            assertTrue(driver.isFinished());
+        }
+
+        // the partial build side is never published
+        assertFalse(parallelHashBuilder.getLookupSourceSupplier().getLookupSource(operatorContext).isDone());
+        assertFalse(dynamicFilter.getSummaries().isPresent());
+    }
+
     @Test
     public void testInnerJoinWithNullProbe()
             throws Exception
@@ -480,4 +676,80 @@ public class TestHashJoinOperator
             driver.process();
         }
     }
+
+    private static long getMemoryReservation(Operator operator)
+    {
+        return operator.getOperatorContext().getOperatorStats().getMemoryReservation().toBytes();
+    }
+
+    @Test
+    public void testJoinWithPrecomputedHashAndNulls()
+            throws Exception
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+
+        // build
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .row(0, precomputedHash(0L))
+                .row(null, precomputedHash(null))
+                .row(1, precomputedHash(1L))
+                .row(0, precomputedHash(0L))
+                .build());
+        HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(1, buildOperator.getTypes(), Ints.asList(0), Optional.of(1), 100);
+        Operator hashBuilderOperator = hashBuilderOperatorFactory.createOperator(driverContext);
+
+        Driver driver = new Driver(driverContext, buildOperator, hashBuilderOperator);
+        while (!driver.isFinished()) {
+            driver.process();
+        }
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilder(probeTypes)
+                .row(0, precomputedHash(0L))
+                .row(null, precomputedHash(null))
+                .row(1, precomputedHash(1L))
+                .row(2, precomputedHash(2L))
+                .build();
+
+        // null and zero have the same hash, but null never matches
+        OperatorFactory innerJoinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                probeTypes,
+                Ints.asList(0),
+                Optional.of(1));
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row(0, precomputedHash(0L), 0, precomputedHash(0L))
+                .row(0, precomputedHash(0L), 0, precomputedHash(0L))
+                .row(1, precomputedHash(1L), 1, precomputedHash(1L))
+                .build();
+        assertOperatorEquals(innerJoinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext()), probeInput, expected);
+
+        OperatorFactory outerJoinOperatorFactory = LookupJoinOperators.outerJoin(
+                0,
+                hashBuilderOperatorFactory.getLookupSourceSupplier(),
+                probeTypes,
+                Ints.asList(0),
+                Optional.of(1));
+        expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probeTypes, buildTypes))
+                .row(0, precomputedHash(0L), 0, precomputedHash(0L))
+                .row(0, precomputedHash(0L), 0, precomputedHash(0L))
+                .row(null, precomputedHash(null), null, null)
+                .row(1, precomputedHash(1L), 1, precomputedHash(1L))
+                .row(2, precomputedHash(2L), null, null)
+                .build();
+        assertOperatorEquals(outerJoinOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext()), probeInput, expected);
+    }
+
+    /**
+     * Computes the hash the planner projects for a single key, {@code combine_hash(0, coalesce(hash_code(value), 0))},
+     * so null and zero have the same hash.
+     */
+    private static long precomputedHash(Long value)
+    {
+        return CombineHashFunction.getHash(0, value == null ? 0 : BigintOperators.hashCode(value));
+    }
 }
@@ -17,9 +17,12 @@ import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.operator.HashSemiJoinOperator.HashSemiJoinOperatorFactory;
 import com.facebook.presto.operator.SetBuilderOperator.SetBuilderOperatorFactory;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.BigintOperators;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
 import org.testng.annotations.AfterMethod;
@@ -279,4 +282,63 @@ public class TestHashSemiJoinOperator
             driver.process();
         }
     }
+
+    @Test
+    public void testProbeAndBuildNullsWithPrecomputedHash()
+            throws Exception
+    {
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+
+        // build
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, ValuesOperator.class.getSimpleName());
+        List<Type> buildTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+        Operator buildOperator = new ValuesOperator(operatorContext, buildTypes, rowPagesBuilder(buildTypes)
+                .row(0, precomputedHash(0L))
+                .row(1, precomputedHash(1L))
+                .row(null, precomputedHash(null))
+                .row(3, precomputedHash(3L))
+                .build());
+        SetBuilderOperatorFactory setBuilderOperatorFactory = new SetBuilderOperatorFactory(1, buildOperator.getTypes(), 0, Optional.of(1), 10);
+        Operator setBuilderOperator = setBuilderOperatorFactory.createOperator(driverContext);
+
+        Driver driver = new Driver(driverContext, buildOperator, setBuilderOperator);
+        while (!driver.isFinished()) {
+            driver.process();
+        }
+
+        // probe
+        List<Type> probeTypes = ImmutableList.<Type>of(BIGINT, BIGINT);
+        List<Page> probeInput = rowPagesBuilder(probeTypes)
+                .row(0, precomputedHash(0L))
+                .row(null, precomputedHash(null))
+                .row(1, precomputedHash(1L))
+                .row(2, precomputedHash(2L))
+                .build();
+        HashSemiJoinOperatorFactory joinOperatorFactory = new HashSemiJoinOperatorFactory(
+                2,
+                setBuilderOperatorFactory.getSetProvider(),
+                probeTypes,
+                0,
+                Optional.of(1));
+        Operator joinOperator = joinOperatorFactory.createOperator(driverContext);
+
+        // expected
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), concat(probeTypes, ImmutableList.of(BOOLEAN)))
+                .row(0, precomputedHash(0L), true)
+                .row(null, precomputedHash(null), null)
+                .row(1, precomputedHash(1L), true)
+                .row(2, precomputedHash(2L), null)
+                .build();
+
+        OperatorAssertion.assertOperatorEquals(joinOperator, probeInput, expected);
+    }
+
+    /**
+     * Computes the hash the planner projects for a single key, {@code combine_hash(0, coalesce(hash_code(value), 0))},
+     * so null and zero have the same hash.
+     */
+    private static long precomputedHash(Long value)
+    {
+        return CombineHashFunction.getHash(0, value == null ? 0 : BigintOperators.hashCode(value));
+    }
 }
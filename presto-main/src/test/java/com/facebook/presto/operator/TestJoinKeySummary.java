@@ -0,0 +1,104 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.createBooleansBlock;
+import static com.facebook.presto.block.BlockAssertions.createDoublesBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestJoinKeySummary
+{
+    @Test
+    public void testLongs()
+    {
+        JoinKeySummary summary = JoinKeySummary.create(BIGINT, ImmutableList.of(createLongsBlock(1L, 5L, null), createLongsBlock(3L)));
+        assertFalse(summary.isEmpty());
+
+        Block probe = createLongsBlock(0L, 1L, 2L, 3L, 5L, 6L, null);
+        assertFalse(summary.mightContain(probe, 0));
+        assertTrue(summary.mightContain(probe, 1));
+        assertFalse(summary.mightContain(probe, 2));
+        assertTrue(summary.mightContain(probe, 3));
+        assertTrue(summary.mightContain(probe, 4));
+        assertFalse(summary.mightContain(probe, 5));
+        assertFalse(summary.mightContain(probe, 6));
+    }
+
+    @Test
+    public void testManyLongsKeepRange()
+    {
+        JoinKeySummary summary = JoinKeySummary.create(BIGINT, ImmutableList.of(createLongSequenceBlock(0, 100_000)));
+
+        Block probe = createLongsBlock(-1L, 0L, 54_321L, 99_999L, 100_000L);
+        assertFalse(summary.mightContain(probe, 0));
+        assertTrue(summary.mightContain(probe, 1));
+        assertTrue(summary.mightContain(probe, 2));
+        assertTrue(summary.mightContain(probe, 3));
+        assertFalse(summary.mightContain(probe, 4));
+    }
+
+    @Test
+    public void testDoubles()
+    {
+        JoinKeySummary summary = JoinKeySummary.create(DOUBLE, ImmutableList.of(createDoublesBlock(1.5, -2.0)));
+
+        Block probe = createDoublesBlock(1.5, -2.0, 0.0, 1.0);
+        assertTrue(summary.mightContain(probe, 0));
+        assertTrue(summary.mightContain(probe, 1));
+        assertFalse(summary.mightContain(probe, 2));
+        assertFalse(summary.mightContain(probe, 3));
+    }
+
+    @Test
+    public void testStrings()
+    {
+        JoinKeySummary summary = JoinKeySummary.create(VARCHAR, ImmutableList.of(createStringsBlock("bar", "foo", null)));
+        assertFalse(summary.isEmpty());
+
+        Block probe = createStringsBlock("bar", "baz", "foo", "zzz", null);
+        assertTrue(summary.mightContain(probe, 0));
+        assertFalse(summary.mightContain(probe, 1));
+        assertTrue(summary.mightContain(probe, 2));
+        assertFalse(summary.mightContain(probe, 3));
+        assertFalse(summary.mightContain(probe, 4));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        assertTrue(JoinKeySummary.create(BIGINT, ImmutableList.<Block>of()).isEmpty());
+        assertTrue(JoinKeySummary.create(BIGINT, ImmutableList.of(createLongsBlock((Long) null))).isEmpty());
+        assertTrue(JoinKeySummary.create(VARCHAR, ImmutableList.of(createStringsBlock((String) null))).isEmpty());
+    }
+
+    @Test
+    public void testUnsupportedType()
+    {
+        JoinKeySummary summary = JoinKeySummary.create(BOOLEAN, ImmutableList.of(createBooleansBlock(true)));
+        assertFalse(summary.isEmpty());
+        assertTrue(summary.mightContain(createBooleansBlock(false), 0));
+    }
+}
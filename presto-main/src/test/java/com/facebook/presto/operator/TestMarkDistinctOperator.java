@@ -15,8 +15,11 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
+import com.facebook.presto.operator.scalar.CombineHashFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.BigintOperators;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -74,4 +77,43 @@ public class TestMarkDistinctOperator
 
         OperatorAssertion.assertOperatorEqualsIgnoreOrder(operator, input, expected.build());
     }
+
+    @Test
+    public void testMarkDistinctWithPrecomputedHash()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, BIGINT)
+                .row(0, precomputedHash(0L))
+                .row(null, precomputedHash(null))
+                .row(1, precomputedHash(1L))
+                .pageBreak()
+                .row(null, precomputedHash(null))
+                .row(0, precomputedHash(0L))
+                .row(1, precomputedHash(1L))
+                .build();
+
+        OperatorFactory operatorFactory = new MarkDistinctOperatorFactory(0, ImmutableList.of(BIGINT, BIGINT), ImmutableList.of(0), Optional.of(1));
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        // null and zero have the same hash, but are distinct values
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BOOLEAN)
+                .row(0, precomputedHash(0L), true)
+                .row(null, precomputedHash(null), true)
+                .row(1, precomputedHash(1L), true)
+                .row(null, precomputedHash(null), false)
+                .row(0, precomputedHash(0L), false)
+                .row(1, precomputedHash(1L), false)
+                .build();
+
+        OperatorAssertion.assertOperatorEqualsIgnoreOrder(operator, input, expected);
+    }
+
+    /**
+     * Computes the hash the planner projects for a single key, {@code combine_hash(0, coalesce(hash_code(value), 0))},
+     * so null and zero have the same hash.
+     */
+    private static long precomputedHash(Long value)
+    {
+        return CombineHashFunction.getHash(0, value == null ? 0 : BigintOperators.hashCode(value));
+    }
 }
@@ -53,7 +53,8 @@ public class TestOperatorStats
             new Duration(17, NANOSECONDS),
 
             new DataSize(18, BYTE),
-            "19");
+            new DataSize(19, BYTE),
+            "20");
 
     public static final OperatorStats MERGEABLE = new OperatorStats(
             41,
@@ -81,7 +82,8 @@ public class TestOperatorStats
             new Duration(17, NANOSECONDS),
 
             new DataSize(18, BYTE),
-            new LongMergeable(19));
+            new DataSize(19, BYTE),
+            new LongMergeable(20));
 
     @Test
     public void testJson()
@@ -121,7 +123,8 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishUser(), new Duration(17, NANOSECONDS));
 
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(18, BYTE));
-        Assert.assertEquals(actual.getInfo(), "19");
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(19, BYTE));
+        Assert.assertEquals(actual.getInfo(), "20");
     }
 
     @Test
@@ -153,6 +156,7 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishCpu(), new Duration(3 * 16, NANOSECONDS));
         Assert.assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 19, BYTE));
         Assert.assertEquals(actual.getInfo(), null);
     }
 
@@ -185,7 +189,8 @@ public class TestOperatorStats
         Assert.assertEquals(actual.getFinishCpu(), new Duration(3 * 16, NANOSECONDS));
         Assert.assertEquals(actual.getFinishUser(), new Duration(3 * 17, NANOSECONDS));
         Assert.assertEquals(actual.getMemoryReservation(), new DataSize(3 * 18, BYTE));
-        Assert.assertEquals(actual.getInfo(), new LongMergeable(19 * 3));
+        Assert.assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 19, BYTE));
+        Assert.assertEquals(actual.getInfo(), new LongMergeable(20 * 3));
     }
 
     private static class LongMergeable
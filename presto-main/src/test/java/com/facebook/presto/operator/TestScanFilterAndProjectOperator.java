@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TestingSplit;
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.ScanFilterAndProjectOperator.ScanFilterAndProjectOperatorFactory;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
+import com.facebook.presto.spi.InMemoryRecordSet;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.RecordPageSource;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.ProjectionFunctions.singleColumn;
+import static com.facebook.presto.operator.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestScanFilterAndProjectOperator
+{
+    private static final List<Type> TYPES = ImmutableList.<Type>of(BIGINT);
+
+    private ExecutorService executor;
+    private DriverContext driverContext;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test"));
+
+        driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @DataProvider(name = "recordCursor")
+    public Object[][] recordCursor()
+    {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "recordCursor")
+    public void testNoDynamicFilter(boolean recordCursor)
+    {
+        SourceOperator operator = createOperator(recordCursor, Optional.<DynamicFilter>absent());
+
+        assertEquals(getOutput(operator), sequence(0, 10));
+    }
+
+    @Test(dataProvider = "recordCursor")
+    public void testDynamicFilter(boolean recordCursor)
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        setBuildPages(dynamicFilter, rowPagesBuilder(TYPES).row(3).row(7).row(42).build());
+        SourceOperator operator = createOperator(recordCursor, Optional.of(dynamicFilter));
+
+        assertEquals(getOutput(operator), MaterializedResult.resultBuilder(TEST_SESSION, BIGINT)
+                .row(3L)
+                .row(7L)
+                .build());
+    }
+
+    @Test(dataProvider = "recordCursor")
+    public void testBuildSideNotDone(boolean recordCursor)
+    {
+        // rows must not be filtered before the build side is done, because the summaries of a partial build side could drop matching rows
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        SourceOperator operator = createOperator(recordCursor, Optional.of(dynamicFilter));
+
+        assertEquals(getOutput(operator), sequence(0, 10));
+    }
+
+    @Test(dataProvider = "recordCursor")
+    public void testEmptyBuildSide(boolean recordCursor)
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        setBuildPages(dynamicFilter, ImmutableList.<Page>of());
+        SourceOperator operator = createOperator(recordCursor, Optional.of(dynamicFilter));
+
+        // the split is skipped without reading a row
+        assertEquals(operator.getOutput(), null);
+        assertTrue(operator.isFinished());
+        assertEquals(operator.getOperatorContext().getOperatorStats().getInputPositions(), 0);
+    }
+
+    @Test
+    public void testBuildSideDoneDuringScan()
+    {
+        DynamicFilter dynamicFilter = new DynamicFilter();
+        SourceOperator operator = createOperator(false, Optional.of(dynamicFilter));
+
+        // the first page is read before the build side is done, so none of its rows are filtered
+        assertEquals(operator.getOutput(), null);
+        assertFalse(operator.isFinished());
+
+        setBuildPages(dynamicFilter, rowPagesBuilder(TYPES).row(7).build());
+
+        assertEquals(getOutput(operator), MaterializedResult.resultBuilder(TEST_SESSION, BIGINT)
+                .row(0L)
+                .row(1L)
+                .row(2L)
+                .row(3L)
+                .row(4L)
+                .row(7L)
+                .build());
+    }
+
+    private SourceOperator createOperator(final boolean recordCursor, Optional<DynamicFilter> dynamicFilter)
+    {
+        PageSourceProvider pageSourceProvider = new PageSourceProvider()
+        {
+            @Override
+            public ConnectorPageSource createPageSource(Split split, List<ColumnHandle> columns)
+            {
+                if (recordCursor) {
+                    ImmutableList.Builder<List<?>> records = ImmutableList.builder();
+                    for (long value = 0; value < 10; value++) {
+                        records.add(ImmutableList.of(value));
+                    }
+                    return new RecordPageSource(new InMemoryRecordSet(TYPES, records.build()));
+                }
+                return new FixedPageSource(rowPagesBuilder(TYPES)
+                        .addSequencePage(5, 0)
+                        .addSequencePage(5, 5)
+                        .build());
+            }
+        };
+
+        ScanFilterAndProjectOperatorFactory factory = new ScanFilterAndProjectOperatorFactory(
+                0,
+                new PlanNodeId("source"),
+                pageSourceProvider,
+                new GenericCursorProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                new GenericPageProcessor(FilterFunctions.TRUE_FUNCTION, ImmutableList.of(singleColumn(BIGINT, 0))),
+                ImmutableList.<ColumnHandle>of(),
+                TYPES,
+                dynamicFilter,
+                ImmutableMap.of(0, 0));
+        SourceOperator operator = factory.createOperator(driverContext);
+        operator.addSplit(new Split("test", new TestingSplit()));
+        operator.noMoreSplits();
+        return operator;
+    }
+
+    private void setBuildPages(DynamicFilter dynamicFilter, List<Page> pages)
+    {
+        PagesIndex pagesIndex = new PagesIndex(TYPES, 10, driverContext.addOperatorContext(1, "build"));
+        for (Page page : pages) {
+            pagesIndex.addPage(page);
+        }
+        dynamicFilter.setBuildPages(pagesIndex, ImmutableList.of(0));
+    }
+
+    private static MaterializedResult getOutput(SourceOperator operator)
+    {
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        for (int i = 0; i < 100 && !operator.isFinished(); i++) {
+            Page page = operator.getOutput();
+            if (page != null) {
+                pages.add(page);
+            }
+        }
+        assertTrue(operator.isFinished());
+        return toMaterializedResult(TEST_SESSION, TYPES, pages.build());
+    }
+
+    private static MaterializedResult sequence(long start, long end)
+    {
+        MaterializedResult.Builder builder = MaterializedResult.resultBuilder(TEST_SESSION, BIGINT);
+        for (long value = start; value < end; value++) {
+            builder.row(value);
+        }
+        return builder.build();
+    }
+}
@@ -162,4 +162,34 @@ public class TestTopNOperator
 
         assertOperatorEquals(operator, input, expected);
     }
+
+    @Test
+    public void testCandidatesSurviveCompaction()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, BIGINT)
+                .addSequencePage(100, 0, 1000)
+                .addSequencePage(100, 300, 1300)
+                .addSequencePage(100, 100, 1100)
+                .addSequencePage(100, 200, 1200)
+                .build();
+
+        TopNOperatorFactory operatorFactory = new TopNOperatorFactory(
+                0,
+                ImmutableList.of(BIGINT, BIGINT),
+                3,
+                ImmutableList.of(0),
+                ImmutableList.of(DESC_NULLS_LAST),
+                false);
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                .row(399, 1399)
+                .row(398, 1398)
+                .row(397, 1397)
+                .build();
+
+        assertOperatorEquals(operator, input, expected);
+    }
 }
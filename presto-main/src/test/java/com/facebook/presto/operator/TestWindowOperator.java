@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManagerConfig;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
 import com.facebook.presto.operator.window.FirstValueFunction.VarcharFirstValueFunction;
 import com.facebook.presto.operator.window.LagFunction.VarcharLagFunction;
@@ -27,6 +28,7 @@ import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.testing.MaterializedResult;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
@@ -48,8 +50,10 @@ import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestWindowOperator
@@ -429,4 +433,46 @@ public class TestWindowOperator
 
         assertOperatorEquals(operator, input, expected);
     }
+
+    @Test
+    public void testSpillToDisk()
+            throws Exception
+    {
+        RowPagesBuilder pagesBuilder = rowPagesBuilder(BIGINT, BIGINT);
+        for (int i = 0; i < 8000; i++) {
+            if (i > 0 && i % 1000 == 0) {
+                pagesBuilder.pageBreak();
+            }
+            pagesBuilder.row(i % 100, 7999 - i);
+        }
+        List<Page> input = pagesBuilder.build();
+
+        DriverContext driverContext = new TaskContext(new TaskId("query", "stage", "task"), executor, TEST_SESSION, new DataSize(100, Unit.KILOBYTE))
+                .addPipelineContext(true, true)
+                .addDriverContext();
+
+        WindowOperatorFactory operatorFactory = new WindowOperatorFactory(
+                0,
+                ImmutableList.of(BIGINT, BIGINT),
+                Ints.asList(0, 1),
+                ROW_NUMBER,
+                Ints.asList(0),
+                Ints.asList(1),
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                10,
+                Optional.of(new SpillerFactory(createTestingBlockEncodingManager(), new TaskManagerConfig().setSpillEnabled(true))));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (int partition = 0; partition < 100; partition++) {
+            // rows of the partition in ascending order of the second column
+            for (int rowNumber = 1; rowNumber <= 80; rowNumber++) {
+                expected.row(partition, 100 * rowNumber - partition - 1, rowNumber);
+            }
+        }
+
+        assertOperatorEquals(operator, input, expected.build());
+        assertTrue(operator.getOperatorContext().getOperatorStats().getSpilledDataSize().toBytes() > 0);
+    }
 }
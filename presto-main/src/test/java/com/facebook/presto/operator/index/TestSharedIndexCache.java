@@ -0,0 +1,145 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.index;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.IndexHandle;
+import com.facebook.presto.spi.ConnectorIndexHandle;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestSharedIndexCache
+{
+    private static final List<Type> KEY_TYPES = ImmutableList.<Type>of(BIGINT);
+    private static final IndexSourceId INDEX_SOURCE = createIndexSourceId("index");
+
+    @Test
+    public void testLookup()
+    {
+        IndexJoinLookupStats stats = new IndexJoinLookupStats();
+        SharedIndexCache cache = new SharedIndexCache(new DataSize(1, MEGABYTE), stats);
+
+        Page rows = createRows("a", "b");
+        cache.put(INDEX_SOURCE, KEY_TYPES, 1, new Block[] {createLongsBlock(5L, 7L)}, rows);
+
+        // the key is matched by value, not by block and position
+        assertSame(cache.get(INDEX_SOURCE, KEY_TYPES, 2, new Block[] {createLongsBlock(1L, 2L, 7L)}), rows);
+        assertNull(cache.get(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(5L, 7L)}));
+
+        // keys of different index sources are distinct
+        assertNull(cache.get(createIndexSourceId("other"), KEY_TYPES, 1, new Block[] {createLongsBlock(5L, 7L)}));
+    }
+
+    @Test
+    public void testKeyWithoutRows()
+    {
+        SharedIndexCache cache = new SharedIndexCache(new DataSize(1, MEGABYTE), new IndexJoinLookupStats());
+
+        cache.put(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(3L)}, createRows());
+
+        Page rows = cache.get(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(3L)});
+        assertNotNull(rows);
+        assertEquals(rows.getPositionCount(), 0);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        SharedIndexCache cache = new SharedIndexCache(new DataSize(0, BYTE), new IndexJoinLookupStats());
+        assertEquals(cache.isEnabled(), false);
+
+        cache.put(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(3L)}, createRows("a"));
+        assertNull(cache.get(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(3L)}));
+    }
+
+    @Test
+    public void testEviction()
+    {
+        IndexJoinLookupStats stats = new IndexJoinLookupStats();
+        SharedIndexCache cache = new SharedIndexCache(new DataSize(16, KILOBYTE), stats);
+
+        int keys = 1000;
+        for (long key = 0; key < keys; key++) {
+            cache.put(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(key)}, createRows("value" + key, "other" + key));
+        }
+
+        int cachedKeys = 0;
+        for (long key = 0; key < keys; key++) {
+            if (cache.get(INDEX_SOURCE, KEY_TYPES, 0, new Block[] {createLongsBlock(key)}) != null) {
+                cachedKeys++;
+            }
+        }
+        assertTrue(cachedKeys > 0, "no keys are cached");
+        assertTrue(cachedKeys < keys, "no keys were evicted");
+        assertEquals(stats.getSharedIndexCacheEvictions().getTotalCount(), keys - cachedKeys);
+    }
+
+    private static Page createRows(String... values)
+    {
+        return new Page(createStringsBlock(values));
+    }
+
+    private static IndexSourceId createIndexSourceId(String name)
+    {
+        ColumnHandle column = new ColumnHandle("test", new TestingColumnHandle("key"));
+        return new IndexSourceId(
+                new IndexHandle("test", new TestingIndexHandle(name)),
+                ImmutableSet.of(column),
+                ImmutableList.of(column),
+                ImmutableList.of(0));
+    }
+
+    private static class TestingIndexHandle
+            implements ConnectorIndexHandle
+    {
+        private final String name;
+
+        private TestingIndexHandle(String name)
+        {
+            this.name = name;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return name.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj)
+        {
+            return obj instanceof TestingIndexHandle && ((TestingIndexHandle) obj).name.equals(name);
+        }
+    }
+}
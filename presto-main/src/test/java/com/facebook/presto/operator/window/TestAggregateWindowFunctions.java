@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.window;
+
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.operator.window.WindowAssertions.assertWindowQuery;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.MaterializedResult.resultBuilder;
+
+public class TestAggregateWindowFunctions
+{
+    private final LocalQueryRunner queryRunner;
+
+    public TestAggregateWindowFunctions()
+    {
+        queryRunner = new LocalQueryRunner(TEST_SESSION);
+        queryRunner.createCatalog("tpch", new TpchConnectorFactory(queryRunner.getNodeManager(), 1), ImmutableMap.<String, String>of());
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        queryRunner.close();
+    }
+
+    @Test
+    public void testRunningSum()
+    {
+        assertWindowQuery("sum(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 3)
+                        .row(5, "F", 8)
+                        .row(6, "F", 14)
+                        .row(33, "F", 47)
+                        .row(1, "O", 1)
+                        .row(2, "O", 3)
+                        .row(4, "O", 7)
+                        .row(7, "O", 14)
+                        .row(32, "O", 46)
+                        .row(34, "O", 80)
+                        .build(), queryRunner
+        );
+
+        assertWindowQuery("sum(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS UNBOUNDED PRECEDING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 3)
+                        .row(5, "F", 8)
+                        .row(6, "F", 14)
+                        .row(33, "F", 47)
+                        .row(1, "O", 1)
+                        .row(2, "O", 3)
+                        .row(4, "O", 7)
+                        .row(7, "O", 14)
+                        .row(32, "O", 46)
+                        .row(34, "O", 80)
+                        .build(), queryRunner
+        );
+    }
+
+    @Test
+    public void testRangeFramePeers()
+    {
+        assertWindowQuery("count(*) OVER (ORDER BY orderstatus)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 4)
+                        .row(5, "F", 4)
+                        .row(6, "F", 4)
+                        .row(33, "F", 4)
+                        .row(1, "O", 10)
+                        .row(2, "O", 10)
+                        .row(4, "O", 10)
+                        .row(7, "O", 10)
+                        .row(32, "O", 10)
+                        .row(34, "O", 10)
+                        .build(), queryRunner
+        );
+
+        assertWindowQuery("count(*) OVER (ORDER BY orderstatus RANGE BETWEEN CURRENT ROW AND UNBOUNDED FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 10)
+                        .row(5, "F", 10)
+                        .row(6, "F", 10)
+                        .row(33, "F", 10)
+                        .row(1, "O", 6)
+                        .row(2, "O", 6)
+                        .row(4, "O", 6)
+                        .row(7, "O", 6)
+                        .row(32, "O", 6)
+                        .row(34, "O", 6)
+                        .build(), queryRunner
+        );
+    }
+
+    @Test
+    public void testSlidingSumAndAverage()
+    {
+        assertWindowQuery("sum(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS BETWEEN 1 PRECEDING AND CURRENT ROW)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 3)
+                        .row(5, "F", 8)
+                        .row(6, "F", 11)
+                        .row(33, "F", 39)
+                        .row(1, "O", 1)
+                        .row(2, "O", 3)
+                        .row(4, "O", 6)
+                        .row(7, "O", 11)
+                        .row(32, "O", 39)
+                        .row(34, "O", 66)
+                        .build(), queryRunner
+        );
+
+        assertWindowQuery("avg(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS BETWEEN 1 PRECEDING AND CURRENT ROW)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, DOUBLE)
+                        .row(3, "F", 3.0)
+                        .row(5, "F", 4.0)
+                        .row(6, "F", 5.5)
+                        .row(33, "F", 19.5)
+                        .row(1, "O", 1.0)
+                        .row(2, "O", 1.5)
+                        .row(4, "O", 3.0)
+                        .row(7, "O", 5.5)
+                        .row(32, "O", 19.5)
+                        .row(34, "O", 33.0)
+                        .build(), queryRunner
+        );
+    }
+
+    @Test
+    public void testSlidingCount()
+    {
+        assertWindowQuery("count(*) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 2)
+                        .row(5, "F", 3)
+                        .row(6, "F", 3)
+                        .row(33, "F", 2)
+                        .row(1, "O", 2)
+                        .row(2, "O", 3)
+                        .row(4, "O", 3)
+                        .row(7, "O", 3)
+                        .row(32, "O", 3)
+                        .row(34, "O", 2)
+                        .build(), queryRunner
+        );
+
+        // frames that fall entirely outside the partition are empty
+        assertWindowQuery("count(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS BETWEEN 3 FOLLOWING AND 4 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 1)
+                        .row(5, "F", 0)
+                        .row(6, "F", 0)
+                        .row(33, "F", 0)
+                        .row(1, "O", 2)
+                        .row(2, "O", 2)
+                        .row(4, "O", 1)
+                        .row(7, "O", 0)
+                        .row(32, "O", 0)
+                        .row(34, "O", 0)
+                        .build(), queryRunner
+        );
+    }
+
+    @Test
+    public void testSlidingMinMax()
+    {
+        assertWindowQuery("min(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 3)
+                        .row(5, "F", 3)
+                        .row(6, "F", 5)
+                        .row(33, "F", 6)
+                        .row(1, "O", 1)
+                        .row(2, "O", 1)
+                        .row(4, "O", 2)
+                        .row(7, "O", 4)
+                        .row(32, "O", 7)
+                        .row(34, "O", 32)
+                        .build(), queryRunner
+        );
+
+        assertWindowQuery("max(orderkey) OVER (PARTITION BY orderstatus ORDER BY orderkey ROWS BETWEEN 1 PRECEDING AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, BIGINT)
+                        .row(3, "F", 5)
+                        .row(5, "F", 6)
+                        .row(6, "F", 33)
+                        .row(33, "F", 33)
+                        .row(1, "O", 2)
+                        .row(2, "O", 4)
+                        .row(4, "O", 7)
+                        .row(7, "O", 32)
+                        .row(32, "O", 34)
+                        .row(34, "O", 34)
+                        .build(), queryRunner
+        );
+    }
+
+    @Test
+    public void testSlidingGenericAggregation()
+    {
+        assertWindowQuery("max_by(orderstatus, orderkey) OVER (ORDER BY orderkey ROWS BETWEEN CURRENT ROW AND 1 FOLLOWING)",
+                resultBuilder(TEST_SESSION, BIGINT, VARCHAR, VARCHAR)
+                        .row(1, "O", "O")
+                        .row(2, "O", "F")
+                        .row(3, "F", "O")
+                        .row(4, "O", "F")
+                        .row(5, "F", "F")
+                        .row(6, "F", "O")
+                        .row(7, "O", "O")
+                        .row(32, "O", "F")
+                        .row(33, "F", "O")
+                        .row(34, "O", "O")
+                        .build(), queryRunner
+        );
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.serde;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.type.Type;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.operator.BenchmarkPages.createPages;
+import static com.facebook.presto.operator.BenchmarkPages.getKeyType;
+import static com.facebook.presto.serde.PagesSerde.readPages;
+import static com.facebook.presto.serde.PagesSerde.writePages;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
+
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkPagesSerde
+{
+    private static final int POSITIONS = 100_000;
+
+    @Param({"BIGINT", "DOUBLE", "VARCHAR"})
+    public String keyType = "BIGINT";
+
+    @Param({"10", "100000"})
+    public int cardinality = 1000;
+
+    @Param({"1024", "8192"})
+    public int positionsPerPage = 1024;
+
+    private BlockEncodingSerde blockEncodingSerde;
+    private List<Page> pages;
+    private Slice serializedPages;
+    private int serializedSize;
+
+    @Setup
+    public void setup()
+    {
+        blockEncodingSerde = createTestingBlockEncodingManager();
+
+        Type type = getKeyType(keyType);
+        pages = createPages(type, cardinality, positionsPerPage, POSITIONS / positionsPerPage);
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writePages(blockEncodingSerde, sliceOutput, pages);
+        serializedPages = sliceOutput.slice();
+        serializedSize = serializedPages.length();
+    }
+
+    @Benchmark
+    public Slice encode()
+    {
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(serializedSize);
+        writePages(blockEncodingSerde, sliceOutput, pages);
+        return sliceOutput.slice();
+    }
+
+    @Benchmark
+    public int decode()
+    {
+        int positions = 0;
+        Iterator<Page> iterator = readPages(blockEncodingSerde, serializedPages.getInput());
+        while (iterator.hasNext()) {
+            Page page = iterator.next();
+            page.assureLoaded();
+            positions += page.getPositionCount();
+        }
+        return positions;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkPagesSerde.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -24,6 +24,7 @@ import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManager;
 import com.facebook.presto.execution.TaskState;
 import com.facebook.presto.execution.TaskStateMachine;
+import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.sql.planner.PlanFragment;
@@ -118,16 +119,28 @@ public class MockTaskManager
         return Futures.immediateFuture(task.getTaskInfo());
     }
 
+    @Override
+    public TaskStatus getTaskStatus(TaskId taskId)
+    {
+        return TaskStatus.fromTaskInfo(getTaskInfo(taskId));
+    }
+
+    @Override
+    public ListenableFuture<TaskStatus> getTaskStatus(TaskId taskId, TaskState currentState)
+    {
+        return Futures.immediateFuture(getTaskStatus(taskId));
+    }
+
     @Override
     public synchronized TaskInfo updateTask(Session session, TaskId taskId, PlanFragment ignored, List<TaskSource> sources, OutputBuffers outputBuffers)
     {
         checkNotNull(session, "session is null");
         checkNotNull(taskId, "taskId is null");
         checkNotNull(sources, "sources is null");
-        checkNotNull(outputBuffers, "outputBuffers is null");
 
         MockTask task = tasks.get(taskId);
         if (task == null) {
+            checkNotNull(outputBuffers, "outputBuffers is null");
             task = new MockTask(session,
                     taskId,
                     uriBuilderFrom(httpServerInfo.getHttpUri()).appendPath("v1/task").appendPath(taskId.toString()).build(),
@@ -138,7 +151,9 @@ public class MockTaskManager
             );
             tasks.put(taskId, task);
         }
-        task.addOutputBuffers(outputBuffers);
+        if (outputBuffers != null) {
+            task.addOutputBuffers(outputBuffers);
+        }
 
         return task.getTaskInfo();
     }
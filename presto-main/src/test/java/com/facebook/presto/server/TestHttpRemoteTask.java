@@ -0,0 +1,308 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.BufferInfo;
+import com.facebook.presto.execution.ExecutionFailureInfo;
+import com.facebook.presto.execution.SharedBuffer.BufferState;
+import com.facebook.presto.execution.SharedBufferInfo;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanFragment;
+import com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning;
+import com.facebook.presto.sql.planner.PlanFragment.PlanDistribution;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.PlanFragmentId;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultimap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.http.client.HttpStatus;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.http.client.testing.TestingResponse;
+import io.airlift.json.JsonCodec;
+import io.airlift.units.Duration;
+import org.joda.time.DateTime;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.facebook.presto.OutputBuffers.INITIAL_EMPTY_OUTPUT_BUFFERS;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.fail;
+
+@Test(singleThreaded = true)
+public class TestHttpRemoteTask
+{
+    private static final JsonCodec<TaskStatus> TASK_STATUS_CODEC = jsonCodec(TaskStatus.class);
+    private static final JsonCodec<TaskInfo> TASK_INFO_CODEC = jsonCodec(TaskInfo.class);
+    private static final JsonCodec<TaskUpdateRequest> TASK_UPDATE_REQUEST_CODEC = jsonCodec(TaskUpdateRequest.class);
+
+    private static final TaskId TASK_ID = new TaskId("query", "stage", "task");
+    private static final URI TASK_LOCATION = URI.create("http://worker.invalid/v1/task/" + TASK_ID);
+
+    private static final Symbol SYMBOL = new Symbol("column");
+    private static final PlanNodeId VALUES_NODE_ID = new PlanNodeId("values");
+    private static final PlanFragment PLAN_FRAGMENT = new PlanFragment(
+            new PlanFragmentId("fragment"),
+            new ValuesNode(VALUES_NODE_ID, ImmutableList.of(SYMBOL), ImmutableList.<List<Expression>>of()),
+            ImmutableMap.<Symbol, Type>of(SYMBOL, BIGINT),
+            PlanDistribution.NONE,
+            null,
+            OutputPartitioning.NONE,
+            ImmutableList.<Symbol>of());
+
+    private ExecutorService executor;
+    private ExecutorService httpClientExecutor;
+    private TestingTaskWorker worker;
+    private TestingHttpClient httpClient;
+    private HttpRemoteTask remoteTask;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-%s"));
+        httpClientExecutor = newCachedThreadPool(daemonThreadsNamed("test-http-%s"));
+        worker = new TestingTaskWorker(executor);
+        httpClient = new TestingHttpClient(worker, httpClientExecutor);
+        remoteTask = new HttpRemoteTask(TEST_SESSION,
+                TASK_ID,
+                "worker",
+                TASK_LOCATION,
+                PLAN_FRAGMENT,
+                ImmutableMultimap.<PlanNodeId, Split>of(),
+                INITIAL_EMPTY_OUTPUT_BUFFERS,
+                httpClient,
+                executor,
+                10,
+                new Duration(1, TimeUnit.MINUTES),
+                new Duration(1, TimeUnit.HOURS),
+                TASK_STATUS_CODEC,
+                TASK_INFO_CODEC,
+                TASK_UPDATE_REQUEST_CODEC);
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        worker.releaseFinalTaskInfo();
+        remoteTask.cancel();
+        httpClient.close();
+        httpClientExecutor.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRunningTaskInfoIsOnlyFetchedOnDemand()
+            throws Exception
+    {
+        worker.setTaskInfo(TaskState.RUNNING, 5);
+        remoteTask.start();
+        waitForStatusVersion(5);
+
+        // the status of the running task is polled, but the full info is not fetched
+        worker.setTaskInfo(TaskState.RUNNING, 6);
+        waitForStatusVersion(6);
+        waitForRequests(worker.getStatusRequests(), 3);
+        assertEquals(worker.getTaskInfoRequests().get(), 0);
+        assertEquals(remoteTask.getTaskInfo().getState(), TaskState.RUNNING);
+
+        // an explicit refresh fetches it once per refresh interval
+        remoteTask.refreshTaskInfo();
+        remoteTask.refreshTaskInfo();
+        waitForRequests(worker.getTaskInfoRequests(), 1);
+        waitForRequests(worker.getStatusRequests(), worker.getStatusRequests().get() + 3);
+        assertEquals(worker.getTaskInfoRequests().get(), 1);
+    }
+
+    @Test
+    public void testTerminalStateIsPublishedAfterFinalTaskInfo()
+            throws Exception
+    {
+        worker.setTaskInfo(TaskState.RUNNING, 5);
+        worker.blockFinalTaskInfo();
+        remoteTask.start();
+        waitForStatusVersion(5);
+
+        worker.setTaskInfo(TaskState.FINISHED, 6);
+        waitForStatusVersion(6);
+        assertEquals(remoteTask.getTaskStatus().getState(), TaskState.FINISHED);
+
+        // the final info has been requested, but the terminal state is not visible until it arrives
+        waitForRequests(worker.getTaskInfoRequests(), 1);
+        assertEquals(remoteTask.getTaskInfo().getState(), TaskState.RUNNING);
+
+        worker.releaseFinalTaskInfo();
+        remoteTask.waitForTaskToFinish(new Duration(10, TimeUnit.SECONDS));
+        TaskInfo taskInfo = remoteTask.getTaskInfo();
+        assertEquals(taskInfo.getState(), TaskState.FINISHED);
+        assertEquals(taskInfo.getVersion(), 6);
+    }
+
+    @Test
+    public void testOlderTaskStatusIsIgnored()
+            throws Exception
+    {
+        worker.setTaskInfo(TaskState.RUNNING, 5);
+        remoteTask.start();
+        waitForStatusVersion(5);
+
+        // a delayed response from the worker must not move the task back to an older version
+        worker.setTaskInfo(TaskState.RUNNING, 3);
+        waitForRequests(worker.getStatusRequests(), worker.getStatusRequests().get() + 3);
+        assertEquals(remoteTask.getTaskStatus().getVersion(), 5);
+        assertEquals(remoteTask.getTaskInfo().getVersion(), 5);
+    }
+
+    private void waitForStatusVersion(long version)
+            throws InterruptedException
+    {
+        long start = System.nanoTime();
+        while (remoteTask.getTaskStatus().getVersion() < version) {
+            if (Duration.nanosSince(start).toMillis() > 10_000) {
+                fail("task status did not reach version " + version + ": " + remoteTask.getTaskStatus());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    private static void waitForRequests(AtomicInteger requests, int count)
+            throws InterruptedException
+    {
+        long start = System.nanoTime();
+        while (requests.get() < count) {
+            if (Duration.nanosSince(start).toMillis() > 10_000) {
+                fail("expected at least " + count + " requests, but got " + requests.get());
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    /**
+     * Serves the task endpoints of a worker for a single task.  Status requests for an unchanged
+     * state are delayed briefly, like the long poll of the real worker.
+     */
+    private static class TestingTaskWorker
+            implements Function<Request, Response>
+    {
+        private final ExecutorService executor;
+        private final AtomicReference<TaskInfo> taskInfo = new AtomicReference<>();
+        private final AtomicInteger statusRequests = new AtomicInteger();
+        private final AtomicInteger taskInfoRequests = new AtomicInteger();
+        private final AtomicReference<CountDownLatch> finalTaskInfoLatch = new AtomicReference<>(new CountDownLatch(0));
+
+        private TestingTaskWorker(ExecutorService executor)
+        {
+            this.executor = executor;
+        }
+
+        public void setTaskInfo(TaskState state, long version)
+        {
+            taskInfo.set(new TaskInfo(
+                    TASK_ID,
+                    version,
+                    state,
+                    TASK_LOCATION,
+                    DateTime.now(),
+                    new SharedBufferInfo(BufferState.OPEN, 0, 0, ImmutableList.<BufferInfo>of()),
+                    ImmutableSet.<PlanNodeId>of(),
+                    new TaskContext(TASK_ID, executor, TEST_SESSION).getTaskStats(),
+                    ImmutableList.<ExecutionFailureInfo>of()));
+        }
+
+        public void blockFinalTaskInfo()
+        {
+            finalTaskInfoLatch.set(new CountDownLatch(1));
+        }
+
+        public void releaseFinalTaskInfo()
+        {
+            finalTaskInfoLatch.get().countDown();
+        }
+
+        public AtomicInteger getStatusRequests()
+        {
+            return statusRequests;
+        }
+
+        public AtomicInteger getTaskInfoRequests()
+        {
+            return taskInfoRequests;
+        }
+
+        @Override
+        public Response apply(Request request)
+        {
+            try {
+                String method = request.getMethod();
+                if (method.equalsIgnoreCase("DELETE")) {
+                    return jsonResponse(TASK_INFO_CODEC.toJson(taskInfo.get()));
+                }
+                if (method.equalsIgnoreCase("POST")) {
+                    return jsonResponse(TASK_STATUS_CODEC.toJson(TaskStatus.fromTaskInfo(taskInfo.get())));
+                }
+                if (request.getUri().getPath().endsWith("/status")) {
+                    statusRequests.incrementAndGet();
+                    if (taskInfo.get().getState().toString().equals(request.getHeader(PRESTO_CURRENT_STATE))) {
+                        Thread.sleep(10);
+                    }
+                    return jsonResponse(TASK_STATUS_CODEC.toJson(TaskStatus.fromTaskInfo(taskInfo.get())));
+                }
+
+                taskInfoRequests.incrementAndGet();
+                if (taskInfo.get().getState().isDone()) {
+                    finalTaskInfoLatch.get().await(10, TimeUnit.SECONDS);
+                }
+                return jsonResponse(TASK_INFO_CODEC.toJson(taskInfo.get()));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+        }
+
+        private static Response jsonResponse(String json)
+        {
+            return new TestingResponse(HttpStatus.OK, ImmutableListMultimap.of(CONTENT_TYPE, "application/json"), json.getBytes(UTF_8));
+        }
+    }
+}
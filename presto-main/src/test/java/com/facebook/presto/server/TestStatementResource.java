@@ -0,0 +1,219 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.client.ClientSession;
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.ResultPages;
+import com.facebook.presto.client.ResultPagesCursor;
+import com.facebook.presto.client.StatementClient;
+import com.facebook.presto.client.StatementStats;
+import com.facebook.presto.server.testing.TestingPrestoServer;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.SliceArrayBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.json.JsonCodec;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.Slices;
+import io.airlift.testing.Closeables;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static com.facebook.presto.server.StatementResource.writeBinaryResults;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.testing.TestingBlockEncodingManager.createTestingBlockEncodingManager;
+import static com.google.common.base.Charsets.UTF_8;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestStatementResource
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+
+    private TestingPrestoServer server;
+    private HttpClient client;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        server = new TestingPrestoServer();
+        client = new JettyHttpClient();
+    }
+
+    @SuppressWarnings("deprecation")
+    @AfterMethod
+    public void teardown()
+    {
+        Closeables.closeQuietly(server);
+        Closeables.closeQuietly(client);
+    }
+
+    @Test
+    public void testBinaryResultsRoundTrip()
+    {
+        List<Type> types = ImmutableList.<Type>of(BIGINT, VARCHAR, DOUBLE, BOOLEAN, VARBINARY);
+        List<Column> columns = ImmutableList.of(
+                new Column("a", BIGINT.getName()),
+                new Column("b", VARCHAR.getName()),
+                new Column("c", DOUBLE.getName()),
+                new Column("d", BOOLEAN.getName()),
+                new Column("e", VARBINARY.getName()));
+
+        // run length and slice array blocks must be converted to the canonical encodings
+        BlockBuilder bigint = BIGINT.createBlockBuilder(new BlockBuilderStatus());
+        BIGINT.writeLong(bigint, 42);
+        Block bigintBlock = new RunLengthEncodedBlock(bigint.build(), 3);
+        Block varcharBlock = new SliceArrayBlock(3, new Slice[] {Slices.utf8Slice("abc"), null, Slices.utf8Slice("")});
+
+        BlockBuilder doubles = DOUBLE.createBlockBuilder(new BlockBuilderStatus());
+        DOUBLE.writeDouble(doubles, 1.5);
+        doubles.appendNull();
+        DOUBLE.writeDouble(doubles, -2.0);
+
+        BlockBuilder booleans = BOOLEAN.createBlockBuilder(new BlockBuilderStatus());
+        BOOLEAN.writeBoolean(booleans, true);
+        BOOLEAN.writeBoolean(booleans, false);
+        booleans.appendNull();
+
+        BlockBuilder varbinary = VARBINARY.createBlockBuilder(new BlockBuilderStatus());
+        varbinary.appendNull();
+        VARBINARY.writeSlice(varbinary, Slices.wrappedBuffer(new byte[] {1, 2, 3}));
+        varbinary.appendNull();
+
+        Page page = new Page(bigintBlock, varcharBlock, doubles.build(), booleans.build(), varbinary.build());
+        ResultPages pages = StatementResource.Query.toResultPages(types, ImmutableList.of(page, page));
+
+        QueryResults header = new QueryResults(
+                "test",
+                server.resolve("/v1/query/test"),
+                null,
+                null,
+                columns,
+                (Iterable<List<Object>>) null,
+                StatementStats.builder().setState("FINISHED").build(),
+                null);
+        byte[] json = QUERY_RESULTS_CODEC.toJson(header).getBytes(UTF_8);
+
+        SliceInput input = writeBinaryResults(createTestingBlockEncodingManager(), json, pages).getInput();
+        byte[] actualJson = new byte[input.readInt()];
+        input.readBytes(actualJson);
+        List<Column> actualColumns = QUERY_RESULTS_CODEC.fromJson(new String(actualJson, UTF_8)).getColumns();
+        assertEquals(actualColumns.size(), columns.size());
+
+        ResultPages actual = ResultPages.readPages(actualColumns, input);
+        assertEquals(actual.getTypes(), types);
+        assertEquals(actual.getPositionCount(), 6);
+
+        List<List<Object>> rows = new ArrayList<>();
+        for (List<Object> row : actual.toRows()) {
+            rows.add(row);
+        }
+        assertEquals(rows.size(), 6);
+        for (int i = 0; i < rows.size(); i += 3) {
+            assertEquals(rows.get(i).subList(0, 4), Arrays.<Object>asList(42L, "abc", 1.5, true));
+            assertNull(rows.get(i).get(4));
+            assertEquals(rows.get(i + 1).subList(0, 4), Arrays.<Object>asList(42L, null, null, false));
+            assertEquals((byte[]) rows.get(i + 1).get(4), new byte[] {1, 2, 3});
+            assertEquals(rows.get(i + 2), Arrays.<Object>asList(42L, "", -2.0, null, null));
+        }
+
+        ResultPagesCursor cursor = actual.cursor();
+        assertTrue(cursor.advanceNextPosition());
+        assertEquals(cursor.getLong(0), 42);
+        assertEquals(cursor.getSlice(1).toStringUtf8(), "abc");
+        assertEquals(cursor.getDouble(2), 1.5);
+        assertTrue(cursor.getBoolean(3));
+        assertTrue(cursor.isNull(4));
+        for (int position = 1; position < 6; position++) {
+            assertTrue(cursor.advanceNextPosition());
+        }
+        assertFalse(cursor.advanceNextPosition());
+    }
+
+    @Test
+    public void testBinaryResults()
+            throws Exception
+    {
+        String query = "SELECT * FROM (VALUES (1, 'abc', 1.5, true), (CAST(null AS bigint), CAST(null AS varchar), CAST(null AS double), CAST(null AS boolean)), (3, 'xyz', -2.0, false)) t (a, b, c, d) ORDER BY a NULLS LAST";
+
+        List<List<Object>> jsonRows = executeQuery(query, false);
+        List<List<Object>> binaryRows = executeQuery(query, true);
+
+        assertEquals(binaryRows, jsonRows);
+        assertEquals(binaryRows.size(), 3);
+        assertEquals(binaryRows.get(0), Arrays.<Object>asList(1L, "abc", 1.5, true));
+        assertEquals(binaryRows.get(1), Arrays.<Object>asList(3L, "xyz", -2.0, false));
+        assertEquals(binaryRows.get(2), Arrays.<Object>asList(null, null, null, null));
+    }
+
+    @Test
+    public void testBinaryResultsFallBackToJson()
+            throws Exception
+    {
+        List<List<Object>> rows = executeQuery("SELECT DATE '2014-01-01', 1", true);
+        assertEquals(rows, ImmutableList.of(Arrays.<Object>asList("2014-01-01", 1L)));
+    }
+
+    private List<List<Object>> executeQuery(String query, boolean binaryResults)
+    {
+        ClientSession session = new ClientSession(server.getBaseUrl(), "test", "test", "catalog", "schema", "UTC", Locale.ENGLISH, ImmutableMap.<String, String>of(), false);
+
+        ImmutableList.Builder<List<Object>> rows = ImmutableList.builder();
+        try (StatementClient statementClient = new StatementClient(client, QUERY_RESULTS_CODEC, session, query, binaryResults)) {
+            while (statementClient.isValid()) {
+                QueryResults results = statementClient.current();
+                if (results.getData() != null) {
+                    if (binaryResults && ResultPages.isSupported(results.getColumns())) {
+                        assertNotNull(results.getPages());
+                    }
+                    else {
+                        assertNull(results.getPages());
+                    }
+                    for (List<Object> row : results.getData()) {
+                        rows.add(row);
+                    }
+                }
+                statementClient.advance();
+            }
+            assertNull(statementClient.finalResults().getError());
+        }
+        return rows.build();
+    }
+}
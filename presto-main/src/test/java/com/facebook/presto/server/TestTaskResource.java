@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.execution.TaskState;
+import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.server.testing.TestingPrestoServer;
+import io.airlift.http.client.HttpClient;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.json.JsonCodec;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static io.airlift.http.client.JsonResponseHandler.createJsonResponseHandler;
+import static io.airlift.http.client.Request.Builder.prepareDelete;
+import static io.airlift.http.client.Request.Builder.prepareGet;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.testing.Closeables.closeQuietly;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestTaskResource
+{
+    private static final JsonCodec<TaskStatus> TASK_STATUS_CODEC = jsonCodec(TaskStatus.class);
+    private static final JsonCodec<TaskInfo> TASK_INFO_CODEC = jsonCodec(TaskInfo.class);
+
+    private TestingPrestoServer server;
+    private HttpClient client;
+
+    @BeforeMethod
+    public void setup()
+            throws Exception
+    {
+        server = new TestingPrestoServer();
+        client = new JettyHttpClient();
+    }
+
+    @AfterMethod
+    public void teardown()
+    {
+        closeQuietly(server);
+        closeQuietly(client);
+    }
+
+    @Test
+    public void testGetTaskStatus()
+            throws Exception
+    {
+        TaskId taskId = new TaskId("query", "stage", "status");
+
+        TaskStatus status = getTaskStatus(taskId);
+        assertEquals(status.getTaskId(), taskId);
+        assertEquals(status.getState(), TaskState.RUNNING);
+        assertEquals(status.getSelf().getPath(), "/v1/task/" + taskId);
+        assertTrue(status.getVersion() >= TaskInfo.STARTING_VERSION);
+
+        // every status has a new version
+        TaskStatus nextStatus = getTaskStatus(taskId);
+        assertEquals(nextStatus.getState(), TaskState.RUNNING);
+        assertTrue(nextStatus.getVersion() > status.getVersion());
+    }
+
+    @Test
+    public void testTaskStatusSharesVersionWithTaskInfo()
+            throws Exception
+    {
+        TaskId taskId = new TaskId("query", "stage", "version");
+
+        TaskStatus status = getTaskStatus(taskId);
+        TaskInfo taskInfo = client.execute(
+                prepareGet().setUri(taskUri(taskId)).build(),
+                createJsonResponseHandler(TASK_INFO_CODEC));
+        TaskStatus nextStatus = getTaskStatus(taskId);
+
+        // the client merges status and info using the version, so they must be ordered
+        assertTrue(taskInfo.getVersion() > status.getVersion());
+        assertTrue(nextStatus.getVersion() > taskInfo.getVersion());
+    }
+
+    @Test
+    public void testGetTaskStatusWaitsForStateChange()
+            throws Exception
+    {
+        TaskId taskId = new TaskId("query", "stage", "wait");
+
+        // no state change, so the status is returned after the max wait
+        TaskStatus status = getTaskStatus(taskId, TaskState.RUNNING, "100ms");
+        assertEquals(status.getState(), TaskState.RUNNING);
+
+        client.execute(prepareDelete().setUri(taskUri(taskId)).build(), createJsonResponseHandler(TASK_INFO_CODEC));
+
+        TaskStatus canceledStatus = getTaskStatus(taskId, TaskState.RUNNING, "10s");
+        assertEquals(canceledStatus.getState(), TaskState.CANCELED);
+        assertTrue(canceledStatus.getVersion() > status.getVersion());
+    }
+
+    private TaskStatus getTaskStatus(TaskId taskId)
+    {
+        return client.execute(
+                prepareGet().setUri(statusUri(taskId)).build(),
+                createJsonResponseHandler(TASK_STATUS_CODEC));
+    }
+
+    private TaskStatus getTaskStatus(TaskId taskId, TaskState currentState, String maxWait)
+    {
+        Request request = prepareGet()
+                .setUri(statusUri(taskId))
+                .setHeader(PRESTO_CURRENT_STATE, currentState.toString())
+                .setHeader(PRESTO_MAX_WAIT, maxWait)
+                .build();
+        return client.execute(request, createJsonResponseHandler(TASK_STATUS_CODEC));
+    }
+
+    private URI taskUri(TaskId taskId)
+    {
+        return server.resolve("/v1/task/" + taskId);
+    }
+
+    private URI statusUri(TaskId taskId)
+    {
+        return server.resolve("/v1/task/" + taskId + "/status");
+    }
+}
@@ -13,14 +13,15 @@
  */
 package com.facebook.presto.sql;
 
+import com.facebook.presto.type.LikePattern;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
-import org.joni.Regex;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.type.LikeFunctions.like;
 import static com.facebook.presto.type.LikeFunctions.likePattern;
 import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -29,36 +30,36 @@ public class TestLikeFunctions
     @Test
     public void testLikeBasic()
     {
-        Regex regex = likePattern(utf8Slice("f%b__"));
-        assertTrue(like(utf8Slice("foobar"), regex));
+        LikePattern pattern = likePattern(utf8Slice("f%b__"));
+        assertTrue(like(utf8Slice("foobar"), pattern));
     }
 
     @Test
     public void testLikeNewlineInPattern()
     {
-        Regex regex = likePattern(utf8Slice("%o\nbar"));
-        assertTrue(like(utf8Slice("foo\nbar"), regex));
+        LikePattern pattern = likePattern(utf8Slice("%o\nbar"));
+        assertTrue(like(utf8Slice("foo\nbar"), pattern));
     }
 
     @Test
     public void testLikeNewlineBeforeMatch()
     {
-        Regex regex = likePattern(utf8Slice("%b%"));
-        assertTrue(like(utf8Slice("foo\nbar"), regex));
+        LikePattern pattern = likePattern(utf8Slice("%b%"));
+        assertTrue(like(utf8Slice("foo\nbar"), pattern));
     }
 
     @Test
     public void testLikeNewlineInMatch()
     {
-        Regex regex = likePattern(utf8Slice("f%b%"));
-        assertTrue(like(utf8Slice("foo\nbar"), regex));
+        LikePattern pattern = likePattern(utf8Slice("f%b%"));
+        assertTrue(like(utf8Slice("foo\nbar"), pattern));
     }
 
     @Test(timeOut = 1000)
     public void testLikeUtf8Pattern()
     {
-        Regex regex = likePattern(utf8Slice("%\u540d\u8a89%"), utf8Slice("\\"));
-        assertFalse(like(utf8Slice("foo"), regex));
+        LikePattern pattern = likePattern(utf8Slice("%\u540d\u8a89%"), utf8Slice("\\"));
+        assertFalse(like(utf8Slice("foo"), pattern));
     }
 
     @SuppressWarnings("NumericCastThatLosesPrecision")
@@ -66,31 +67,86 @@ public class TestLikeFunctions
     public void testLikeInvalidUtf8Value()
     {
         Slice value = Slices.wrappedBuffer(new byte[] {'a', 'b', 'c', (byte) 0xFF, 'x', 'y'});
-        Regex regex = likePattern(utf8Slice("%b%"), utf8Slice("\\"));
-        assertTrue(like(value, regex));
+        LikePattern pattern = likePattern(utf8Slice("%b%"), utf8Slice("\\"));
+        assertTrue(like(value, pattern));
     }
 
     @Test
     public void testBackslashesNoSpecialTreatment()
             throws Exception
     {
-        Regex regex = likePattern(utf8Slice("\\abc\\/\\\\"));
-        assertTrue(like(utf8Slice("\\abc\\/\\\\"), regex));
+        LikePattern pattern = likePattern(utf8Slice("\\abc\\/\\\\"));
+        assertTrue(like(utf8Slice("\\abc\\/\\\\"), pattern));
     }
 
     @Test
     public void testSelfEscaping()
             throws Exception
     {
-        Regex regex = likePattern(utf8Slice("\\\\abc\\%"), utf8Slice("\\"));
-        assertTrue(like(utf8Slice("\\abc%"), regex));
+        LikePattern pattern = likePattern(utf8Slice("\\\\abc\\%"), utf8Slice("\\"));
+        assertTrue(like(utf8Slice("\\abc%"), pattern));
     }
 
     @Test
     public void testAlternateEscapedCharacters()
             throws Exception
     {
-        Regex regex = likePattern(utf8Slice("xxx%x_xabcxx"), utf8Slice("x"));
-        assertTrue(like(utf8Slice("x%_abcx"), regex));
+        LikePattern pattern = likePattern(utf8Slice("xxx%x_xabcxx"), utf8Slice("x"));
+        assertTrue(like(utf8Slice("x%_abcx"), pattern));
+    }
+
+    @Test
+    public void testLikeExact()
+    {
+        assertLike("abc", "abc", true);
+        assertLike("abcd", "abc", false);
+        assertLike("ab", "abc", false);
+        assertLike("", "", true);
+        assertLike("a", "", false);
+    }
+
+    @Test
+    public void testLikePrefix()
+    {
+        assertLike("abc", "abc%", true);
+        assertLike("abcdef", "abc%%", true);
+        assertLike("xabc", "abc%", false);
+        assertLike("ab", "abc%", false);
+    }
+
+    @Test
+    public void testLikeSuffix()
+    {
+        assertLike("abc", "%abc", true);
+        assertLike("xyzabc", "%abc", true);
+        assertLike("abcx", "%abc", false);
+        assertLike("bc", "%abc", false);
+    }
+
+    @Test
+    public void testLikeContains()
+    {
+        assertLike("xxababcxx", "%abc%", true);
+        assertLike("xxabxcxx", "%abc%", false);
+        assertLike("", "%", true);
+        assertLike("foo\nbar", "%%", true);
+    }
+
+    @Test
+    public void testLikeMultipleWildcards()
+    {
+        assertLike("aa", "a%a", true);
+        assertLike("a", "a%a", false);
+        assertLike("only slyly", "%ly%ly%", true);
+        assertLike("only", "%ly%ly%", false);
+        assertLike("abcabc", "a%c%c", true);
+        assertLike("abcab", "a%c%c", false);
+        assertLike("\u540d\u8a89\u540d", "\u540d%\u540d", true);
+        assertLike("\u540d\u8a89", "%\u540d", false);
+    }
+
+    private static void assertLike(String value, String pattern, boolean expected)
+    {
+        assertEquals(like(utf8Slice(value), likePattern(utf8Slice(pattern))), expected, String.format("'%s' LIKE '%s'", value, pattern));
     }
 }
@@ -43,6 +43,7 @@ import static com.facebook.presto.sql.analyzer.SemanticErrorCode.COLUMN_NAME_NOT
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.DUPLICATE_COLUMN_NAME;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.DUPLICATE_RELATION;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.INVALID_ORDINAL;
+import static com.facebook.presto.sql.analyzer.SemanticErrorCode.INVALID_WINDOW_FRAME;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.MISMATCHED_COLUMN_ALIASES;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.MISMATCHED_SET_COLUMN_TYPES;
 import static com.facebook.presto.sql.analyzer.SemanticErrorCode.MISSING_ATTRIBUTE;
@@ -341,12 +342,22 @@ public class TestAnalyzer
         assertFails(NOT_SUPPORTED, "SELECT a, count(DISTINCT b) OVER () FROM t1");
     }
 
+    @Test
+    public void testInvalidWindowFrame()
+            throws Exception
+    {
+        assertFails(INVALID_WINDOW_FRAME, "SELECT count(*) over (ORDER BY a ROWS UNBOUNDED FOLLOWING) FROM t1");
+        assertFails(INVALID_WINDOW_FRAME, "SELECT count(*) over (ORDER BY a ROWS BETWEEN CURRENT ROW AND UNBOUNDED PRECEDING) FROM t1");
+        assertFails(INVALID_WINDOW_FRAME, "SELECT count(*) over (ORDER BY a ROWS BETWEEN CURRENT ROW AND 1 PRECEDING) FROM t1");
+        assertFails(INVALID_WINDOW_FRAME, "SELECT count(*) over (ORDER BY a ROWS BETWEEN 1 FOLLOWING AND CURRENT ROW) FROM t1");
+    }
+
     @Test
     public void testWindowFrameNotSupported()
             throws Exception
     {
-        assertFails(NOT_SUPPORTED, "SELECT count(*) over (ORDER BY a ROWS UNBOUNDED PRECEDING) FROM t1");
-        assertFails(NOT_SUPPORTED, "SELECT count(*) over (ORDER BY a ROWS UNBOUNDED FOLLOWING) FROM t1");
+        assertFails(NOT_SUPPORTED, "SELECT count(*) over (ORDER BY a RANGE 1 PRECEDING) FROM t1");
+        assertFails(NOT_SUPPORTED, "SELECT rank() over (ORDER BY a ROWS UNBOUNDED PRECEDING) FROM t1");
     }
 
     @Test
@@ -31,7 +31,10 @@ public class TestFeaturesConfig
         assertRecordedDefaults(ConfigAssertions.recordDefaults(FeaturesConfig.class)
                 .setExperimentalSyntaxEnabled(false)
                 .setDistributedIndexJoinsEnabled(false)
-                .setDistributedJoinsEnabled(false));
+                .setDistributedJoinsEnabled(false)
+                .setOptimizeHashGeneration(false)
+                .setReorderJoins(true)
+                .setBroadcastJoinMaxRows(1_000_000));
     }
 
     @Test
@@ -41,17 +44,26 @@ public class TestFeaturesConfig
                 .put("analyzer.experimental-syntax-enabled", "true")
                 .put("distributed-index-joins-enabled", "true")
                 .put("distributed-joins-enabled", "true")
+                .put("optimizer.optimize-hash-generation", "true")
+                .put("optimizer.reorder-joins", "false")
+                .put("broadcast-join-max-rows", "1000")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental-syntax-enabled", "true")
                 .put("distributed-index-joins-enabled", "true")
                 .put("distributed-joins-enabled", "true")
+                .put("optimizer.optimize-hash-generation", "true")
+                .put("optimizer.reorder-joins", "false")
+                .put("broadcast-join-max-rows", "1000")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
                 .setExperimentalSyntaxEnabled(true)
                 .setDistributedIndexJoinsEnabled(true)
-                .setDistributedJoinsEnabled(true);
+                .setDistributedJoinsEnabled(true)
+                .setOptimizeHashGeneration(true)
+                .setReorderJoins(false)
+                .setBroadcastJoinMaxRows(1000);
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
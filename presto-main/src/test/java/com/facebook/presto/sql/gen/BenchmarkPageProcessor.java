@@ -22,6 +22,7 @@ import com.facebook.presto.operator.PageProcessor;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.sql.relational.RowExpression;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
@@ -43,6 +44,7 @@ import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.VerboseMode;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -54,6 +56,7 @@ import static com.facebook.presto.sql.relational.Expressions.constant;
 import static com.facebook.presto.sql.relational.Expressions.field;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkState;
+import static java.util.Collections.nCopies;
 
 @State(Scope.Thread)
 @OutputTimeUnit(TimeUnit.SECONDS)
@@ -70,10 +73,16 @@ public class BenchmarkPageProcessor
     private static final Slice MIN_SHIP_DATE = Slices.copiedBuffer("1994-01-01", UTF_8);
     private static final Slice MAX_SHIP_DATE = Slices.copiedBuffer("1995-01-01", UTF_8);
 
+    private static final int WIDE_COLUMNS = 32;
+
     private Page inputPage;
     private PageProcessor handCodedProcessor;
     private PageProcessor compiledProcessor;
 
+    private Page wideInputPage;
+    private PageProcessor wideScanProcessor;
+    private PageProcessor wideFilteredScanProcessor;
+
     @Setup
     public void setup()
     {
@@ -82,6 +91,22 @@ public class BenchmarkPageProcessor
         handCodedProcessor = new Tpch1FilterAndProject();
 
         compiledProcessor = new ExpressionCompiler(new MetadataManager()).compilePageProcessor(FILTER, ImmutableList.of(PROJECT));
+
+        wideInputPage = createWideInputPage();
+
+        // select every column, with a filter that passes all rows and one that passes half of them
+        ImmutableList.Builder<RowExpression> wideProjections = ImmutableList.builder();
+        for (int channel = 0; channel < WIDE_COLUMNS; channel++) {
+            wideProjections.add(field(channel, BIGINT));
+        }
+        ExpressionCompiler compiler = new ExpressionCompiler(new MetadataManager());
+        wideScanProcessor = compiler.compilePageProcessor(constant(true, BOOLEAN), wideProjections.build());
+        wideFilteredScanProcessor = compiler.compilePageProcessor(
+                call(new Signature(OperatorType.LESS_THAN.name(), StandardTypes.BOOLEAN, StandardTypes.BIGINT, StandardTypes.BIGINT),
+                        BOOLEAN,
+                        field(0, BIGINT),
+                        constant((long) 1_000, BIGINT)),
+                wideProjections.build());
     }
 
     @Benchmark
@@ -96,6 +121,36 @@ public class BenchmarkPageProcessor
         return execute(inputPage, compiledProcessor);
     }
 
+    @Benchmark
+    public Page compiledColumnar()
+    {
+        return compiledProcessor.processColumnar(null, inputPage);
+    }
+
+    @Benchmark
+    public Page wideScan()
+    {
+        return execute(wideInputPage, wideScanProcessor, nCopies(WIDE_COLUMNS, BIGINT));
+    }
+
+    @Benchmark
+    public Page wideScanColumnar()
+    {
+        return wideScanProcessor.processColumnar(null, wideInputPage);
+    }
+
+    @Benchmark
+    public Page wideFilteredScan()
+    {
+        return execute(wideInputPage, wideFilteredScanProcessor, nCopies(WIDE_COLUMNS, BIGINT));
+    }
+
+    @Benchmark
+    public Page wideFilteredScanColumnar()
+    {
+        return wideFilteredScanProcessor.processColumnar(null, wideInputPage);
+    }
+
     public static void main(String[] args)
             throws RunnerException
     {
@@ -109,7 +164,12 @@ public class BenchmarkPageProcessor
 
     public static Page execute(Page inputPage, PageProcessor processor)
     {
-        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(DOUBLE));
+        return execute(inputPage, processor, ImmutableList.of(DOUBLE));
+    }
+
+    public static Page execute(Page inputPage, PageProcessor processor, List<? extends Type> types)
+    {
+        PageBuilder pageBuilder = new PageBuilder(types);
         int count = processor.process(null, inputPage, 0, inputPage.getPositionCount(), pageBuilder);
         checkState(count == inputPage.getPositionCount());
         return pageBuilder.build();
@@ -130,6 +190,17 @@ public class BenchmarkPageProcessor
         return pageBuilder.build();
     }
 
+    public static Page createWideInputPage()
+    {
+        PageBuilder pageBuilder = new PageBuilder(nCopies(WIDE_COLUMNS, BIGINT));
+        for (int position = 0; position < 2_000; position++) {
+            for (int channel = 0; channel < WIDE_COLUMNS; channel++) {
+                BIGINT.writeLong(pageBuilder.getBlockBuilder(channel), position + channel);
+            }
+        }
+        return pageBuilder.build();
+    }
+
     private static final class Tpch1FilterAndProject
             implements PageProcessor
     {
@@ -152,6 +223,14 @@ public class BenchmarkPageProcessor
             return position;
         }
 
+        @Override
+        public Page processColumnar(ConnectorSession session, Page page)
+        {
+            PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(DOUBLE));
+            process(session, page, 0, page.getPositionCount(), pageBuilder);
+            return pageBuilder.build();
+        }
+
         private static void project(int position, PageBuilder pageBuilder, Block extendedPriceBlock, Block discountBlock)
         {
             if (discountBlock.isNull(position) || extendedPriceBlock.isNull(position)) {
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.block.dictionary.DictionaryEncodedBlock;
+import com.facebook.presto.block.rle.RunLengthEncodedBlock;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.OperatorType;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.operator.PageProcessor;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.StandardTypes;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.google.common.base.Predicates;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.block.BlockAssertions.assertBlockEquals;
+import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringSequenceBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
+import static com.facebook.presto.metadata.Signature.internalOperator;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.relational.Expressions.call;
+import static com.facebook.presto.sql.relational.Expressions.constant;
+import static com.facebook.presto.sql.relational.Expressions.field;
+import static com.facebook.presto.sql.relational.Signatures.IF;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestPageProcessorCompiler
+{
+    private static final RowExpression ADD_5 = call(
+            internalOperator(OperatorType.ADD.name(), StandardTypes.BIGINT, StandardTypes.BIGINT, StandardTypes.BIGINT),
+            BIGINT,
+            field(1, BIGINT),
+            constant(5L, BIGINT));
+
+    private static final RowExpression LESS_THAN_2 = call(
+            internalOperator(OperatorType.LESS_THAN.name(), StandardTypes.BOOLEAN, StandardTypes.BIGINT, StandardTypes.BIGINT),
+            BOOLEAN,
+            field(1, BIGINT),
+            constant(2L, BIGINT));
+
+    @Test
+    public void testColumnarPassThrough()
+            throws Exception
+    {
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(constant(true, BOOLEAN), ImmutableList.of(field(0, VARCHAR), ADD_5));
+
+        Page page = new Page(createStringSequenceBlock(0, 100), createLongSequenceBlock(0, 100));
+        Page result = processor.processColumnar(null, page);
+
+        assertEquals(result.getPositionCount(), 100);
+        // identity projections reuse the input block when all rows pass
+        assertSame(result.getBlock(0), page.getBlock(0));
+        assertBlockEquals(BIGINT, result.getBlock(1), createLongSequenceBlock(5, 105));
+    }
+
+    @Test
+    public void testColumnarFiltered()
+            throws Exception
+    {
+        RowExpression filter = call(
+                internalOperator(OperatorType.LESS_THAN.name(), StandardTypes.BOOLEAN, StandardTypes.BIGINT, StandardTypes.BIGINT),
+                BOOLEAN,
+                field(1, BIGINT),
+                constant(10L, BIGINT));
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(filter, ImmutableList.of(field(0, VARCHAR), ADD_5, field(1, BIGINT)));
+
+        Page page = new Page(createStringSequenceBlock(0, 100), createLongSequenceBlock(0, 100));
+        Page result = processor.processColumnar(null, page);
+
+        assertEquals(result.getPositionCount(), 10);
+        assertBlockEquals(VARCHAR, result.getBlock(0), createStringSequenceBlock(0, 10));
+        assertBlockEquals(BIGINT, result.getBlock(1), createLongSequenceBlock(5, 15));
+        assertBlockEquals(BIGINT, result.getBlock(2), createLongSequenceBlock(0, 10));
+    }
+
+    @Test
+    public void testColumnarNoRowsSelected()
+            throws Exception
+    {
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(constant(false, BOOLEAN), ImmutableList.of(field(0, VARCHAR), ADD_5));
+
+        Page page = new Page(createStringSequenceBlock(0, 100), createLongSequenceBlock(0, 100));
+        assertEquals(processor.processColumnar(null, page).getPositionCount(), 0);
+    }
+
+    @Test
+    public void testDictionaryProjection()
+            throws Exception
+    {
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(constant(true, BOOLEAN), ImmutableList.of(field(0, VARCHAR), ADD_5));
+
+        Block dictionary = createLongSequenceBlock(0, 4);
+        Page page = new Page(createStringSequenceBlock(0, 6), new DictionaryEncodedBlock(dictionary, createLongsBlock(3L, 1L, 1L, 0L, 3L, 3L)));
+        Page result = processor.processColumnar(null, page);
+
+        assertEquals(result.getPositionCount(), 6);
+        // the projection is evaluated over the dictionary, so the output is also dictionary encoded
+        assertTrue(result.getBlock(1) instanceof DictionaryEncodedBlock);
+        assertBlockEquals(BIGINT, result.getBlock(1), createLongsBlock(8L, 6L, 6L, 5L, 8L, 8L));
+    }
+
+    @Test
+    public void testDictionaryFilter()
+            throws Exception
+    {
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(LESS_THAN_2, ImmutableList.of(field(0, VARCHAR), ADD_5));
+
+        Block dictionary = createLongSequenceBlock(0, 4);
+        Page page = new Page(createStringSequenceBlock(0, 6), new DictionaryEncodedBlock(dictionary, createLongsBlock(3L, 1L, 1L, 0L, 3L, 3L)));
+        Page result = processor.processColumnar(null, page);
+
+        assertEquals(result.getPositionCount(), 3);
+        assertBlockEquals(VARCHAR, result.getBlock(0), createStringsBlock("1", "2", "3"));
+        assertBlockEquals(BIGINT, result.getBlock(1), createLongsBlock(6L, 6L, 5L));
+    }
+
+    @Test
+    public void testRunLengthProjection()
+            throws Exception
+    {
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(LESS_THAN_2, ImmutableList.of(field(0, VARCHAR), ADD_5));
+
+        Page page = new Page(createStringSequenceBlock(0, 10), new RunLengthEncodedBlock(createLongsBlock(1L), 10));
+        Page result = processor.processColumnar(null, page);
+
+        assertEquals(result.getPositionCount(), 10);
+        assertSame(result.getBlock(0), page.getBlock(0));
+        assertTrue(result.getBlock(1) instanceof RunLengthEncodedBlock);
+        assertBlockEquals(BIGINT, result.getBlock(1), new RunLengthEncodedBlock(createLongsBlock(6L), 10));
+
+        page = new Page(createStringSequenceBlock(0, 10), new RunLengthEncodedBlock(createLongsBlock(7L), 10));
+        assertEquals(processor.processColumnar(null, page).getPositionCount(), 0);
+    }
+
+    @Test
+    public void testCommonSubExpressions()
+            throws Exception
+    {
+        RowExpression filter = call(
+                internalOperator(OperatorType.LESS_THAN.name(), StandardTypes.BOOLEAN, StandardTypes.BIGINT, StandardTypes.BIGINT),
+                BOOLEAN,
+                ADD_5,
+                constant(10L, BIGINT));
+        RowExpression add10 = call(
+                internalOperator(OperatorType.ADD.name(), StandardTypes.BIGINT, StandardTypes.BIGINT, StandardTypes.BIGINT),
+                BIGINT,
+                ADD_5,
+                constant(5L, BIGINT));
+
+        CommonSubExpressions commonSubExpressions = CommonSubExpressions.extract(filter, ImmutableList.of(ADD_5, add10), Predicates.<RowExpression>alwaysTrue());
+        assertEquals(commonSubExpressions.getFirstCommonChannel(), 2);
+        assertEquals(commonSubExpressions.getCommonExpressions(), ImmutableList.of(ADD_5));
+        assertEquals(commonSubExpressions.getProjections().get(0), field(2, BIGINT));
+
+        PageProcessor processor = new ExpressionCompiler(new MetadataManager())
+                .compilePageProcessor(filter, ImmutableList.of(field(0, VARCHAR), ADD_5, add10));
+
+        Page page = new Page(createStringSequenceBlock(0, 100), createLongSequenceBlock(0, 100));
+        Page result = processor.processColumnar(null, page);
+
+        assertEquals(result.getPositionCount(), 5);
+        assertBlockEquals(VARCHAR, result.getBlock(0), createStringSequenceBlock(0, 5));
+        assertBlockEquals(BIGINT, result.getBlock(1), createLongSequenceBlock(5, 10));
+        assertBlockEquals(BIGINT, result.getBlock(2), createLongSequenceBlock(10, 15));
+    }
+
+    @Test
+    public void testConditionalExpressionsAreNotShared()
+            throws Exception
+    {
+        RowExpression conditional = call(
+                new Signature(IF, StandardTypes.BIGINT),
+                BIGINT,
+                constant(true, BOOLEAN),
+                ADD_5,
+                ADD_5);
+
+        CommonSubExpressions commonSubExpressions = CommonSubExpressions.extract(constant(true, BOOLEAN), ImmutableList.of(conditional), Predicates.<RowExpression>alwaysTrue());
+        assertEquals(commonSubExpressions.getCommonExpressions(), ImmutableList.<RowExpression>of());
+        assertEquals(commonSubExpressions.getProjections(), ImmutableList.of(conditional));
+    }
+}
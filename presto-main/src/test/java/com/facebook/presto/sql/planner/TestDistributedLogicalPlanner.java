@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.SystemSessionProperties.BROADCAST_JOIN_MAX_ROWS;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.sql.planner.RowCountEstimator.UNKNOWN;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+
+@Test(singleThreaded = true)
+public class TestDistributedLogicalPlanner
+{
+    private static final long MAX_REPLICATED_ROWS = 1000;
+
+    private TestingStatisticsMetadata statisticsMetadata;
+    private MetadataManager metadata;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        statisticsMetadata = new TestingStatisticsMetadata();
+        metadata = new MetadataManager();
+        metadata.addConnectorMetadata(TestingStatisticsMetadata.CONNECTOR_ID, "test", statisticsMetadata);
+    }
+
+    @Test
+    public void testSmallBuildSideIsReplicated()
+    {
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 1_000_000, MAX_REPLICATED_ROWS, true, true), REPLICATED);
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.LEFT, 1_000_000, 10, true, true), REPLICATED);
+    }
+
+    @Test
+    public void testLargeBuildSideIsPartitioned()
+    {
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 10, MAX_REPLICATED_ROWS + 1, true, false), PARTITIONED);
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.LEFT, 10, 1_000_000, true, false), PARTITIONED);
+    }
+
+    @Test
+    public void testUnknownEstimateUsesDistributedJoins()
+    {
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 10, UNKNOWN, true, true), PARTITIONED);
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 10, UNKNOWN, true, false), REPLICATED);
+    }
+
+    @Test
+    public void testRightJoinBuildsLeftSide()
+    {
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.RIGHT, 10, 1_000_000, true, true), REPLICATED);
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.RIGHT, 1_000_000, 10, true, false), PARTITIONED);
+    }
+
+    @Test
+    public void testEmptyCriteriaIsReplicated()
+    {
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 10, 1_000_000, false, true), REPLICATED);
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 10, UNKNOWN, false, true), REPLICATED);
+    }
+
+    @Test
+    public void testSessionOverridesMaxReplicatedRows()
+    {
+        Session session = Session.builder()
+                .setUser(TEST_SESSION.getUser())
+                .setSource(TEST_SESSION.getSource())
+                .setCatalog(TEST_SESSION.getCatalog())
+                .setSchema(TEST_SESSION.getSchema())
+                .setTimeZoneKey(TEST_SESSION.getTimeZoneKey())
+                .setLocale(TEST_SESSION.getLocale())
+                .setSystemProperties(ImmutableMap.of(BROADCAST_JOIN_MAX_ROWS, "10"))
+                .build();
+
+        assertEquals(getDistributionType(TEST_SESSION, JoinNode.Type.INNER, 1_000_000, 100, true, false), REPLICATED);
+        assertEquals(getDistributionType(session, JoinNode.Type.INNER, 1_000_000, 100, true, false), PARTITIONED);
+        assertEquals(getDistributionType(session, JoinNode.Type.INNER, 1_000_000, 10, true, true), REPLICATED);
+    }
+
+    private JoinNode.DistributionType getDistributionType(Session session, JoinNode.Type joinType, long leftRowCount, long rightRowCount, boolean hasCriteria, boolean distributedJoins)
+    {
+        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        SymbolAllocator symbolAllocator = new SymbolAllocator();
+        Symbol left = symbolAllocator.newSymbol("left", BIGINT);
+        Symbol right = symbolAllocator.newSymbol("right", BIGINT);
+
+        ImmutableList<JoinNode.EquiJoinClause> criteria = ImmutableList.of();
+        if (hasCriteria) {
+            criteria = ImmutableList.of(new JoinNode.EquiJoinClause(left, right));
+        }
+        JoinNode join = new JoinNode(
+                idAllocator.getNextId(),
+                joinType,
+                tableScan(idAllocator, left, leftRowCount),
+                tableScan(idAllocator, right, rightRowCount),
+                criteria);
+
+        SubPlan subPlan = new DistributedLogicalPlanner(session, metadata, idAllocator)
+                .createSubPlans(new Plan(join, symbolAllocator), false, false, distributedJoins, MAX_REPLICATED_ROWS);
+
+        JoinNode plannedJoin = findJoin(subPlan);
+        assertNotNull(plannedJoin, "join not found in the distributed plan");
+        return plannedJoin.getDistributionType().get();
+    }
+
+    private TableScanNode tableScan(PlanNodeIdAllocator idAllocator, Symbol symbol, long rowCount)
+    {
+        ColumnHandle column = new ColumnHandle(TestingStatisticsMetadata.CONNECTOR_ID, new TestingColumnHandle(symbol.getName()));
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                statisticsMetadata.createTable(new TableStatistics(rowCount, -1)),
+                ImmutableList.of(symbol),
+                ImmutableMap.of(symbol, column),
+                null,
+                Optional.<GeneratedPartitions>absent());
+    }
+
+    private static JoinNode findJoin(SubPlan subPlan)
+    {
+        JoinNode join = findJoin(subPlan.getFragment().getRoot());
+        if (join != null) {
+            return join;
+        }
+        for (SubPlan child : subPlan.getChildren()) {
+            join = findJoin(child);
+            if (join != null) {
+                return join;
+            }
+        }
+        return null;
+    }
+
+    private static JoinNode findJoin(PlanNode node)
+    {
+        if (node instanceof JoinNode) {
+            return (JoinNode) node;
+        }
+        for (PlanNode source : node.getSources()) {
+            JoinNode join = findJoin(source);
+            if (join != null) {
+                return join;
+            }
+        }
+        return null;
+    }
+}
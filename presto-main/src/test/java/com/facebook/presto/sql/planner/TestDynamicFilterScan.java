@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.tree.ArithmeticExpression;
+import com.facebook.presto.sql.tree.ComparisonExpression;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterScan
+{
+    private static final TableHandle TABLE_HANDLE = new TableHandle("test", new TestingTableHandle());
+
+    private static final Symbol A = new Symbol("a");
+    private static final Symbol B = new Symbol("b");
+    private static final Symbol C = new Symbol("c");
+
+    private final TableScanNode tableScan = new TableScanNode(
+            newId(),
+            TABLE_HANDLE,
+            ImmutableList.of(A, B),
+            ImmutableMap.<Symbol, ColumnHandle>of(
+                    A, new ColumnHandle("test", new TestingColumnHandle("a")),
+                    B, new ColumnHandle("test", new TestingColumnHandle("b"))),
+            null,
+            Optional.<GeneratedPartitions>absent());
+
+    @Test
+    public void testTableScan()
+    {
+        assertScan(tableScan, ImmutableList.of(A, B), ImmutableMap.of(A, 0, B, 1));
+        assertScan(tableScan, ImmutableList.of(B), ImmutableMap.of(B, 0));
+    }
+
+    @Test
+    public void testOuterJoin()
+    {
+        assertFalse(DynamicFilterScan.find(JoinNode.Type.LEFT, tableScan, ImmutableList.of(A)).isPresent());
+        assertFalse(DynamicFilterScan.find(JoinNode.Type.RIGHT, tableScan, ImmutableList.of(A)).isPresent());
+    }
+
+    @Test
+    public void testFilterAndProject()
+    {
+        PlanNode node = project(filter(project(filter(tableScan), A, B)), A, B);
+        assertScan(node, ImmutableList.of(A, B), ImmutableMap.of(A, 0, B, 1));
+    }
+
+    @Test
+    public void testComputedKey()
+    {
+        // b is replaced by a computed value, so only a can be filtered
+        PlanNode node = new ProjectNode(newId(), filter(tableScan), ImmutableMap.<Symbol, Expression>of(
+                A, reference(A),
+                B, new ArithmeticExpression(ArithmeticExpression.Type.ADD, reference(B), new LongLiteral("1"))));
+        assertScan(node, ImmutableList.of(A, B), ImmutableMap.of(A, 0));
+
+        // a key computed by a lower projection cannot be filtered even if it is passed through above
+        node = project(node, A, B);
+        assertScan(node, ImmutableList.of(A, B), ImmutableMap.of(A, 0));
+        assertFalse(DynamicFilterScan.find(JoinNode.Type.INNER, node, ImmutableList.of(B)).isPresent());
+    }
+
+    @Test
+    public void testKeyNotFromScan()
+    {
+        PlanNode node = new ProjectNode(newId(), tableScan, ImmutableMap.<Symbol, Expression>of(
+                A, reference(A),
+                C, reference(B)));
+        assertScan(node, ImmutableList.of(A, C), ImmutableMap.of(A, 0));
+        assertFalse(DynamicFilterScan.find(JoinNode.Type.INNER, node, ImmutableList.of(C)).isPresent());
+    }
+
+    @Test
+    public void testDuplicateKey()
+    {
+        assertScan(tableScan, ImmutableList.of(A, A, B), ImmutableMap.of(A, 0, B, 2));
+    }
+
+    @Test
+    public void testOtherNodes()
+    {
+        // a limit changes which rows reach the join, so the scan must not be filtered below it
+        assertFalse(DynamicFilterScan.find(JoinNode.Type.INNER, new LimitNode(newId(), tableScan, 10), ImmutableList.of(A)).isPresent());
+        assertFalse(DynamicFilterScan.find(JoinNode.Type.INNER, filter(new LimitNode(newId(), filter(tableScan), 10)), ImmutableList.of(A)).isPresent());
+    }
+
+    private static void assertScan(PlanNode probeNode, List<Symbol> probeSymbols, Map<Symbol, Integer> expectedKeys)
+    {
+        Optional<DynamicFilterScan> scan = DynamicFilterScan.find(JoinNode.Type.INNER, probeNode, probeSymbols);
+        assertTrue(scan.isPresent());
+        assertEquals(scan.get().getKeys(), expectedKeys);
+    }
+
+    private static PlanNode filter(PlanNode source)
+    {
+        return new FilterNode(newId(), source, new ComparisonExpression(ComparisonExpression.Type.GREATER_THAN, reference(A), new LongLiteral("0")));
+    }
+
+    private static PlanNode project(PlanNode source, Symbol... symbols)
+    {
+        ImmutableMap.Builder<Symbol, Expression> outputs = ImmutableMap.builder();
+        for (Symbol symbol : symbols) {
+            outputs.put(symbol, reference(symbol));
+        }
+        return new ProjectNode(newId(), source, outputs.build());
+    }
+
+    private static Expression reference(Symbol symbol)
+    {
+        return new QualifiedNameReference(symbol.toQualifiedName());
+    }
+
+    private static PlanNodeId newId()
+    {
+        return new PlanNodeId(UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Partition;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TestingMetadata;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.TupleDomain;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.tree.BooleanLiteral;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.facebook.presto.sql.tree.LongLiteral;
+import com.facebook.presto.sql.tree.QualifiedNameReference;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.UUID;
+
+import static com.facebook.presto.sql.planner.RowCountEstimator.UNKNOWN;
+import static org.testng.Assert.assertEquals;
+
+@Test(singleThreaded = true)
+public class TestRowCountEstimator
+{
+    private static final Symbol A = new Symbol("a");
+    private static final Symbol B = new Symbol("b");
+
+    private static final String NO_STATISTICS_CONNECTOR_ID = "no_statistics";
+
+    private TestingStatisticsMetadata statisticsMetadata;
+    private RowCountEstimator estimator;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        statisticsMetadata = new TestingStatisticsMetadata();
+        MetadataManager metadata = new MetadataManager();
+        metadata.addConnectorMetadata(TestingStatisticsMetadata.CONNECTOR_ID, "test", statisticsMetadata);
+        metadata.addConnectorMetadata(NO_STATISTICS_CONNECTOR_ID, NO_STATISTICS_CONNECTOR_ID, new TestingMetadata());
+        estimator = new RowCountEstimator(metadata);
+    }
+
+    @Test
+    public void testTableScan()
+    {
+        assertEquals(estimator.estimateRowCount(tableScan(A, 1000)), 1000);
+        assertEquals(estimator.estimateRowCount(tableScan(A, 0)), 0);
+        assertEquals(estimator.estimateRowCount(tableScan(A, UNKNOWN)), UNKNOWN);
+    }
+
+    @Test
+    public void testConnectorWithoutStatistics()
+    {
+        ColumnHandle column = new ColumnHandle(NO_STATISTICS_CONNECTOR_ID, new TestingColumnHandle(A.getName()));
+        TableScanNode scan = new TableScanNode(
+                newId(),
+                new TableHandle(NO_STATISTICS_CONNECTOR_ID, new TestingTableHandle()),
+                ImmutableList.of(A),
+                ImmutableMap.of(A, column),
+                null,
+                Optional.<GeneratedPartitions>absent());
+        assertEquals(estimator.estimateRowCount(scan), UNKNOWN);
+    }
+
+    @Test
+    public void testPrunedPartitions()
+    {
+        TableScanNode scan = tableScan(A, UNKNOWN);
+        PlanNode node = new TableScanNode(
+                newId(),
+                scan.getTable(),
+                scan.getOutputSymbols(),
+                scan.getAssignments(),
+                null,
+                Optional.of(new GeneratedPartitions(TupleDomain.<ColumnHandle>all(), ImmutableList.<Partition>of())));
+
+        // no partition is left to scan, so the table statistics do not matter
+        assertEquals(estimator.estimateRowCount(node), 0);
+    }
+
+    @Test
+    public void testFilterAndProject()
+    {
+        PlanNode scan = tableScan(A, 1000);
+        PlanNode filter = new FilterNode(newId(), scan, BooleanLiteral.TRUE_LITERAL);
+        PlanNode project = new ProjectNode(newId(), filter, ImmutableMap.<Symbol, Expression>of(B, reference(A)));
+
+        // filters are not estimated, so the row count of the source is an upper bound
+        assertEquals(estimator.estimateRowCount(filter), 1000);
+        assertEquals(estimator.estimateRowCount(project), 1000);
+        assertEquals(estimator.estimateRowCount(new FilterNode(newId(), tableScan(A, UNKNOWN), BooleanLiteral.TRUE_LITERAL)), UNKNOWN);
+    }
+
+    @Test
+    public void testAggregation()
+    {
+        assertEquals(estimator.estimateRowCount(aggregation(tableScan(A, UNKNOWN), ImmutableList.<Symbol>of())), 1);
+        assertEquals(estimator.estimateRowCount(aggregation(tableScan(A, 1000), ImmutableList.of(A))), 1000);
+        assertEquals(estimator.estimateRowCount(aggregation(tableScan(A, UNKNOWN), ImmutableList.of(A))), UNKNOWN);
+    }
+
+    @Test
+    public void testLimitAndTopN()
+    {
+        assertEquals(estimator.estimateRowCount(new LimitNode(newId(), tableScan(A, 1000), 10)), 10);
+        assertEquals(estimator.estimateRowCount(new LimitNode(newId(), tableScan(A, 5), 10)), 5);
+        assertEquals(estimator.estimateRowCount(new LimitNode(newId(), tableScan(A, UNKNOWN), 10)), 10);
+
+        assertEquals(estimator.estimateRowCount(topN(tableScan(A, 1000), 10)), 10);
+        assertEquals(estimator.estimateRowCount(topN(tableScan(A, 5), 10)), 5);
+        assertEquals(estimator.estimateRowCount(topN(tableScan(A, UNKNOWN), 10)), 10);
+    }
+
+    @Test
+    public void testValues()
+    {
+        List<List<Expression>> rows = ImmutableList.<List<Expression>>of(
+                ImmutableList.<Expression>of(new LongLiteral("1")),
+                ImmutableList.<Expression>of(new LongLiteral("2")),
+                ImmutableList.<Expression>of(new LongLiteral("3")));
+        assertEquals(estimator.estimateRowCount(new ValuesNode(newId(), ImmutableList.of(A), rows)), 3);
+    }
+
+    @Test
+    public void testUnsupportedNode()
+    {
+        PlanNode join = new JoinNode(newId(), JoinNode.Type.INNER, tableScan(A, 10), tableScan(B, 10), ImmutableList.of(new JoinNode.EquiJoinClause(A, B)));
+        assertEquals(estimator.estimateRowCount(join), UNKNOWN);
+    }
+
+    private TableScanNode tableScan(Symbol symbol, long rowCount)
+    {
+        ColumnHandle column = new ColumnHandle(TestingStatisticsMetadata.CONNECTOR_ID, new TestingColumnHandle(symbol.getName()));
+        return new TableScanNode(
+                newId(),
+                statisticsMetadata.createTable(new TableStatistics(rowCount, -1)),
+                ImmutableList.of(symbol),
+                ImmutableMap.of(symbol, column),
+                null,
+                Optional.<GeneratedPartitions>absent());
+    }
+
+    private static AggregationNode aggregation(PlanNode source, List<Symbol> groupBy)
+    {
+        return new AggregationNode(
+                newId(),
+                source,
+                groupBy,
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.<Symbol, Signature>of(),
+                ImmutableMap.<Symbol, Symbol>of(),
+                Optional.<Symbol>absent(),
+                1.0);
+    }
+
+    private static TopNNode topN(PlanNode source, long count)
+    {
+        return new TopNNode(newId(), source, count, ImmutableList.of(A), ImmutableMap.of(A, SortOrder.ASC_NULLS_FIRST), false);
+    }
+
+    private static Expression reference(Symbol symbol)
+    {
+        return new QualifiedNameReference(symbol.toQualifiedName());
+    }
+
+    private static PlanNodeId newId()
+    {
+        return new PlanNodeId(UUID.randomUUID().toString());
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner;
+
+import com.facebook.presto.metadata.TableHandle;
+import com.facebook.presto.metadata.TestingMetadata;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
+import com.facebook.presto.spi.ConnectorTableHandle;
+import com.facebook.presto.spi.TableStatistics;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Connector metadata that reports the statistics given to {@link #createTable(TableStatistics)}.
+ */
+public class TestingStatisticsMetadata
+        extends TestingMetadata
+        implements ConnectorStatisticsProvider
+{
+    public static final String CONNECTOR_ID = "test";
+
+    private final Map<ConnectorTableHandle, TableStatistics> statistics = new ConcurrentHashMap<>();
+
+    public TableHandle createTable(TableStatistics tableStatistics)
+    {
+        checkNotNull(tableStatistics, "tableStatistics is null");
+        ConnectorTableHandle tableHandle = new TestingTableHandle();
+        statistics.put(tableHandle, tableStatistics);
+        return new TableHandle(CONNECTOR_ID, tableHandle);
+    }
+
+    @Override
+    public TableStatistics getTableStatistics(ConnectorTableHandle tableHandle)
+    {
+        TableStatistics tableStatistics = statistics.get(tableHandle);
+        if (tableStatistics == null) {
+            return TableStatistics.unknown();
+        }
+        return tableStatistics;
+    }
+}
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.metadata.Signature;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.sql.planner.DistributedLogicalPlanner;
+import com.facebook.presto.sql.planner.Plan;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.SubPlan;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.TestingStatisticsMetadata;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.OutputNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import com.facebook.presto.sql.tree.FunctionCall;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.PlanFragment.OutputPartitioning.HASH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestHashGenerationOptimizer
+{
+    private static final long ROW_COUNT = 1_000_000;
+
+    private TestingStatisticsMetadata statisticsMetadata;
+    private MetadataManager metadata;
+    private PlanNodeIdAllocator idAllocator;
+    private SymbolAllocator symbolAllocator;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        statisticsMetadata = new TestingStatisticsMetadata();
+        metadata = new MetadataManager();
+        metadata.addConnectorMetadata(TestingStatisticsMetadata.CONNECTOR_ID, "test", statisticsMetadata);
+        idAllocator = new PlanNodeIdAllocator();
+        symbolAllocator = new SymbolAllocator();
+    }
+
+    @Test
+    public void testAggregationHashIsProjectedBelowAggregation()
+    {
+        Symbol key = symbolAllocator.newSymbol("key", VARCHAR);
+        Symbol unused = symbolAllocator.newSymbol("unused", BIGINT);
+        PlanNode plan = optimize(output(aggregation(tableScan(key, unused), key), key), true);
+
+        AggregationNode aggregation = findNode(plan, AggregationNode.class);
+        assertTrue(aggregation.getHashSymbol().isPresent());
+        Symbol hashSymbol = aggregation.getHashSymbol().get();
+
+        // the hash is computed directly below the aggregation, and the unreferenced column is pruned
+        ProjectNode project = (ProjectNode) aggregation.getSource();
+        assertEquals(ImmutableSet.copyOf(project.getOutputSymbols()), ImmutableSet.of(key, hashSymbol));
+        assertEquals(project.getSource().getOutputSymbols(), ImmutableList.of(key));
+
+        // the hash is not part of the query output
+        assertEquals(plan.getOutputSymbols(), ImmutableList.of(key));
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        Symbol key = symbolAllocator.newSymbol("key", VARCHAR);
+        PlanNode plan = optimize(output(aggregation(tableScan(key), key), key), false);
+
+        AggregationNode aggregation = findNode(plan, AggregationNode.class);
+        assertFalse(aggregation.getHashSymbol().isPresent());
+        assertTrue(aggregation.getSource() instanceof TableScanNode);
+    }
+
+    @Test
+    public void testJoinHashesBothSides()
+    {
+        Symbol left = symbolAllocator.newSymbol("left", BIGINT);
+        Symbol right = symbolAllocator.newSymbol("right", BIGINT);
+        PlanNode plan = optimize(output(join(tableScan(left), tableScan(right), left, right), left, right), true);
+
+        JoinNode join = findNode(plan, JoinNode.class);
+        assertTrue(join.getLeftHashSymbol().isPresent());
+        assertTrue(join.getRightHashSymbol().isPresent());
+        assertFalse(join.getLeftHashSymbol().equals(join.getRightHashSymbol()));
+        assertEquals(ImmutableSet.copyOf(join.getLeft().getOutputSymbols()), ImmutableSet.of(left, join.getLeftHashSymbol().get()));
+        assertEquals(ImmutableSet.copyOf(join.getRight().getOutputSymbols()), ImmutableSet.of(right, join.getRightHashSymbol().get()));
+        assertEquals(plan.getOutputSymbols(), ImmutableList.of(left, right));
+    }
+
+    @Test
+    public void testJoinWithDifferentKeyTypesIsNotHashed()
+    {
+        Symbol left = symbolAllocator.newSymbol("left", BIGINT);
+        Symbol right = symbolAllocator.newSymbol("right", DOUBLE);
+        PlanNode plan = optimize(output(join(tableScan(left), tableScan(right), left, right), left, right), true);
+
+        JoinNode join = findNode(plan, JoinNode.class);
+        assertFalse(join.getLeftHashSymbol().isPresent());
+        assertFalse(join.getRightHashSymbol().isPresent());
+        assertTrue(join.getLeft() instanceof TableScanNode);
+        assertTrue(join.getRight() instanceof TableScanNode);
+    }
+
+    @Test
+    public void testSemiJoinHashesBothSides()
+    {
+        Symbol source = symbolAllocator.newSymbol("source", VARCHAR);
+        Symbol filteringSource = symbolAllocator.newSymbol("filteringSource", VARCHAR);
+        Symbol match = symbolAllocator.newSymbol("match", BOOLEAN);
+        SemiJoinNode semiJoin = new SemiJoinNode(idAllocator.getNextId(), tableScan(source), tableScan(filteringSource), source, filteringSource, match);
+        PlanNode plan = optimize(output(semiJoin, source, match), true);
+
+        semiJoin = findNode(plan, SemiJoinNode.class);
+        assertTrue(semiJoin.getSourceHashSymbol().isPresent());
+        assertTrue(semiJoin.getFilteringSourceHashSymbol().isPresent());
+        assertEquals(ImmutableSet.copyOf(semiJoin.getSource().getOutputSymbols()), ImmutableSet.of(source, semiJoin.getSourceHashSymbol().get()));
+        assertEquals(ImmutableSet.copyOf(semiJoin.getFilteringSource().getOutputSymbols()), ImmutableSet.of(filteringSource, semiJoin.getFilteringSourceHashSymbol().get()));
+    }
+
+    @Test
+    public void testExchangePartitionsOnHash()
+    {
+        Symbol key = symbolAllocator.newSymbol("key", VARCHAR);
+        PlanNode plan = optimize(output(aggregation(tableScan(key), key), key), true);
+        Symbol hashSymbol = findNode(plan, AggregationNode.class).getHashSymbol().get();
+
+        assertEquals(getHashPartitionings(plan), ImmutableSet.of(ImmutableList.of(hashSymbol)));
+
+        Symbol left = symbolAllocator.newSymbol("left", BIGINT);
+        Symbol right = symbolAllocator.newSymbol("right", BIGINT);
+        plan = optimize(output(join(tableScan(left), tableScan(right), left, right), left, right), true);
+        JoinNode join = findNode(plan, JoinNode.class);
+
+        assertEquals(getHashPartitionings(plan), ImmutableSet.of(ImmutableList.of(join.getLeftHashSymbol().get()), ImmutableList.of(join.getRightHashSymbol().get())));
+    }
+
+    private PlanNode optimize(PlanNode plan, boolean optimizeHashGeneration)
+    {
+        List<PlanOptimizer> optimizers = ImmutableList.of(
+                new HashGenerationOptimizer(metadata, optimizeHashGeneration),
+                new PruneUnreferencedOutputs(),
+                new PruneRedundantProjections());
+        for (PlanOptimizer optimizer : optimizers) {
+            plan = optimizer.optimize(plan, TEST_SESSION, symbolAllocator.getTypes(), symbolAllocator, idAllocator);
+        }
+        return plan;
+    }
+
+    private Set<List<Symbol>> getHashPartitionings(PlanNode plan)
+    {
+        SubPlan subPlan = new DistributedLogicalPlanner(TEST_SESSION, metadata, idAllocator)
+                .createSubPlans(new Plan(plan, symbolAllocator), false, false, true, 0);
+
+        ImmutableSet.Builder<List<Symbol>> partitionings = ImmutableSet.builder();
+        addHashPartitionings(subPlan, partitionings);
+        return partitionings.build();
+    }
+
+    private static void addHashPartitionings(SubPlan subPlan, ImmutableSet.Builder<List<Symbol>> partitionings)
+    {
+        if (subPlan.getFragment().getOutputPartitioning() == HASH) {
+            partitionings.add(subPlan.getFragment().getPartitionBy());
+        }
+        for (SubPlan child : subPlan.getChildren()) {
+            addHashPartitionings(child, partitionings);
+        }
+    }
+
+    private OutputNode output(PlanNode source, Symbol... outputs)
+    {
+        ImmutableList.Builder<String> columnNames = ImmutableList.builder();
+        for (Symbol output : outputs) {
+            columnNames.add(output.getName());
+        }
+        return new OutputNode(idAllocator.getNextId(), source, columnNames.build(), ImmutableList.copyOf(outputs));
+    }
+
+    private AggregationNode aggregation(PlanNode source, Symbol groupBy)
+    {
+        return new AggregationNode(
+                idAllocator.getNextId(),
+                source,
+                ImmutableList.of(groupBy),
+                ImmutableMap.<Symbol, FunctionCall>of(),
+                ImmutableMap.<Symbol, Signature>of(),
+                ImmutableMap.<Symbol, Symbol>of(),
+                Optional.<Symbol>absent(),
+                1.0);
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, Symbol leftKey, Symbol rightKey)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftKey, rightKey)));
+    }
+
+    private TableScanNode tableScan(Symbol... symbols)
+    {
+        ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+        for (Symbol symbol : symbols) {
+            assignments.put(symbol, new ColumnHandle(TestingStatisticsMetadata.CONNECTOR_ID, new TestingColumnHandle(symbol.getName())));
+        }
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                statisticsMetadata.createTable(new TableStatistics(ROW_COUNT, -1)),
+                ImmutableList.copyOf(symbols),
+                assignments.build(),
+                null,
+                Optional.<GeneratedPartitions>absent());
+    }
+
+    private static <T extends PlanNode> T findNode(PlanNode node, Class<T> nodeClass)
+    {
+        if (nodeClass.isInstance(node)) {
+            return nodeClass.cast(node);
+        }
+        for (PlanNode source : node.getSources()) {
+            T result = findNode(source, nodeClass);
+            if (result != null) {
+                return result;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,214 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.metadata.ColumnHandle;
+import com.facebook.presto.metadata.MetadataManager;
+import com.facebook.presto.spi.TableStatistics;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
+import com.facebook.presto.sql.planner.TestingStatisticsMetadata;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode.GeneratedPartitions;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.sql.planner.RowCountEstimator.UNKNOWN;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestReorderJoins
+{
+    private static final Symbol A = new Symbol("a");
+    private static final Symbol B = new Symbol("b");
+    private static final Symbol C = new Symbol("c");
+    private static final Symbol D = new Symbol("d");
+
+    private TestingStatisticsMetadata statisticsMetadata;
+    private MetadataManager metadata;
+    private PlanNodeIdAllocator idAllocator;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        statisticsMetadata = new TestingStatisticsMetadata();
+        metadata = new MetadataManager();
+        metadata.addConnectorMetadata(TestingStatisticsMetadata.CONNECTOR_ID, "test", statisticsMetadata);
+        idAllocator = new PlanNodeIdAllocator();
+    }
+
+    @Test
+    public void testReorderByRowCount()
+    {
+        PlanNode a = tableScan(A, 10);
+        PlanNode b = tableScan(B, 1000);
+        PlanNode c = tableScan(C, 100);
+        PlanNode d = tableScan(D, 1);
+        PlanNode plan = join(join(join(a, b, A, B), c, A, C), d, A, D);
+
+        // the largest source is the probe side, and the others are joined from the smallest to the largest
+        PlanNode optimized = optimize(plan, true);
+        assertEquals(getJoinOrder(optimized), ImmutableList.of(b, d, a, c));
+        assertInnerJoins(optimized);
+    }
+
+    @Test
+    public void testDerivedCriteria()
+    {
+        PlanNode a = tableScan(A, 1000);
+        PlanNode b = tableScan(B, 100);
+        PlanNode c = tableScan(C, 10);
+        PlanNode plan = join(join(a, b, A, B), c, B, C);
+
+        // c is joined with a before b, using the criteria a = c inferred from a = b and b = c
+        PlanNode optimized = optimize(plan, true);
+        assertEquals(getJoinOrder(optimized), ImmutableList.of(a, c, b));
+
+        JoinNode top = (JoinNode) optimized;
+        JoinNode bottom = (JoinNode) top.getLeft();
+        assertEquals(criteria(bottom), ImmutableList.of("a = c"));
+        assertEquals(criteria(top), ImmutableList.of("a = b"));
+    }
+
+    @Test
+    public void testOuterJoinsStayInPlace()
+    {
+        PlanNode a = tableScan(A, 1000);
+        PlanNode b = tableScan(B, 1);
+        PlanNode c = tableScan(C, 10);
+        JoinNode leftJoin = new JoinNode(idAllocator.getNextId(), JoinNode.Type.LEFT, a, b, ImmutableList.of(new JoinNode.EquiJoinClause(A, B)));
+        PlanNode plan = join(c, leftJoin, C, A);
+
+        // the outer join is a single source of the inner join, so b is not moved out of it
+        PlanNode optimized = optimize(plan, true);
+        JoinNode top = (JoinNode) optimized;
+        assertEquals(top.getType(), JoinNode.Type.INNER);
+        assertSame(top.getRight(), c);
+        assertSame(top.getLeft(), leftJoin);
+        assertEquals(criteria(top), ImmutableList.of("a = c"));
+
+        // an outer join on top is not reordered either
+        JoinNode rightJoin = new JoinNode(idAllocator.getNextId(), JoinNode.Type.RIGHT, tableScan(D, 1), join(a, c, A, C), ImmutableList.of(new JoinNode.EquiJoinClause(D, A)));
+        JoinNode optimizedRightJoin = (JoinNode) optimize(rightJoin, true);
+        assertEquals(optimizedRightJoin.getType(), JoinNode.Type.RIGHT);
+        assertSame(optimizedRightJoin.getLeft(), rightJoin.getLeft());
+    }
+
+    @Test
+    public void testCrossJoinsStayInPlace()
+    {
+        PlanNode a = tableScan(A, 1000);
+        PlanNode b = tableScan(B, 1);
+        PlanNode c = tableScan(C, 10);
+        JoinNode crossJoin = new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, b, a, ImmutableList.<JoinNode.EquiJoinClause>of());
+
+        assertSame(optimize(crossJoin, true), crossJoin);
+
+        PlanNode plan = join(c, crossJoin, C, A);
+        JoinNode optimized = (JoinNode) optimize(plan, true);
+        assertSame(optimized.getLeft(), crossJoin);
+        assertSame(optimized.getRight(), c);
+        assertSame(crossJoin.getLeft(), b);
+        assertSame(crossJoin.getRight(), a);
+    }
+
+    @Test
+    public void testUnknownRowCountsKeepQueryOrder()
+    {
+        PlanNode plan = join(join(tableScan(A, UNKNOWN), tableScan(B, UNKNOWN), A, B), tableScan(C, UNKNOWN), A, C);
+        assertSame(optimize(plan, true), plan);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        PlanNode plan = join(join(join(tableScan(A, 10), tableScan(B, 1000), A, B), tableScan(C, 100), A, C), tableScan(D, 1), A, D);
+        assertSame(optimize(plan, false), plan);
+
+        boolean reorderJoins = new FeaturesConfig().setReorderJoins(false).isReorderJoins();
+        assertSame(optimize(plan, reorderJoins), plan);
+    }
+
+    private PlanNode optimize(PlanNode plan, boolean reorderJoins)
+    {
+        return new ReorderJoins(metadata, reorderJoins).optimize(plan, TEST_SESSION, ImmutableMap.<Symbol, Type>of(), new SymbolAllocator(), idAllocator);
+    }
+
+    private JoinNode join(PlanNode left, PlanNode right, Symbol leftSymbol, Symbol rightSymbol)
+    {
+        return new JoinNode(idAllocator.getNextId(), JoinNode.Type.INNER, left, right, ImmutableList.of(new JoinNode.EquiJoinClause(leftSymbol, rightSymbol)));
+    }
+
+    private TableScanNode tableScan(Symbol symbol, long rowCount)
+    {
+        ColumnHandle column = new ColumnHandle(TestingStatisticsMetadata.CONNECTOR_ID, new TestingColumnHandle(symbol.getName()));
+        return new TableScanNode(
+                idAllocator.getNextId(),
+                statisticsMetadata.createTable(new TableStatistics(rowCount, -1)),
+                ImmutableList.of(symbol),
+                ImmutableMap.of(symbol, column),
+                null,
+                Optional.<GeneratedPartitions>absent());
+    }
+
+    /**
+     * Returns the sources of a left deep join tree in the order they are joined.
+     */
+    private static List<PlanNode> getJoinOrder(PlanNode node)
+    {
+        List<PlanNode> sources = new ArrayList<>();
+        while (node instanceof JoinNode) {
+            sources.add(((JoinNode) node).getRight());
+            node = ((JoinNode) node).getLeft();
+        }
+        sources.add(node);
+        Collections.reverse(sources);
+        return sources;
+    }
+
+    private static void assertInnerJoins(PlanNode node)
+    {
+        while (node instanceof JoinNode) {
+            JoinNode join = (JoinNode) node;
+            assertEquals(join.getType(), JoinNode.Type.INNER);
+            assertTrue(!join.getCriteria().isEmpty(), "reordered join has no criteria");
+            node = join.getLeft();
+        }
+    }
+
+    private static List<String> criteria(JoinNode join)
+    {
+        ImmutableList.Builder<String> criteria = ImmutableList.builder();
+        for (JoinNode.EquiJoinClause clause : join.getCriteria()) {
+            criteria.add(clause.getLeft() + " = " + clause.getRight());
+        }
+        return criteria.build();
+    }
+}
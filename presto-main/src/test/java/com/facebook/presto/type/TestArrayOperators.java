@@ -15,18 +15,18 @@ package com.facebook.presto.type;
 
 import com.facebook.presto.operator.scalar.FunctionAssertions;
 import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.ArrayBlock;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.SqlTimestamp;
 import com.facebook.presto.sql.analyzer.SemanticErrorCode;
 import com.facebook.presto.sql.analyzer.SemanticException;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import io.airlift.slice.Slice;
-import io.airlift.slice.Slices;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
-import static com.facebook.presto.type.ArrayType.rawSlicesToStackRepresentation;
 import static com.facebook.presto.type.ArrayType.toStackRepresentation;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
@@ -51,8 +51,17 @@ public class TestArrayOperators
     public void testStackRepresentation()
             throws Exception
     {
-        Slice slice = rawSlicesToStackRepresentation(ImmutableList.of(toStackRepresentation(ImmutableList.of(1L, 2L)), toStackRepresentation(ImmutableList.of(3L))));
-        assertEquals(slice, Slices.utf8Slice("[[1,2],[3]]"));
+        Slice slice = toStackRepresentation(ImmutableList.of(toStackRepresentation(ImmutableList.of(1L, 2L)), toStackRepresentation(ImmutableList.of(3L))));
+        assertEquals(slice, toStackRepresentation(ImmutableList.of(ImmutableList.of(1L, 2L), ImmutableList.of(3L))));
+
+        Block elements = ArrayBlock.readElements(slice);
+        assertEquals(elements.getPositionCount(), 2);
+        assertEquals(elements.getSlice(1, 0, elements.getLength(1)), toStackRepresentation(ImmutableList.of(3L)));
+
+        Block innerElements = ArrayBlock.readElements(elements.getSlice(0, 0, elements.getLength(0)));
+        assertEquals(innerElements.getPositionCount(), 2);
+        assertEquals(innerElements.getLong(0, 0), 1L);
+        assertEquals(innerElements.getLong(1, 0), 2L);
     }
 
     @Test
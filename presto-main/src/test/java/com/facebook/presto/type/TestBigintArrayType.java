@@ -17,10 +17,11 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
 
 import java.util.List;
 
-import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.type.ArrayType.toStackRepresentation;
 
 public class TestBigintArrayType
         extends AbstractTestType
@@ -33,10 +34,10 @@ public class TestBigintArrayType
     public static Block createTestBlock(Type arrayType)
     {
         BlockBuilder blockBuilder = arrayType.createBlockBuilder(new BlockBuilderStatus());
-        VARCHAR.writeString(blockBuilder, "[1,2]");
-        VARCHAR.writeString(blockBuilder, "[1,2,3]");
-        VARCHAR.writeString(blockBuilder, "[1,2,3]");
-        VARCHAR.writeString(blockBuilder, "[100,200,300]");
+        arrayType.writeSlice(blockBuilder, toStackRepresentation(ImmutableList.of(1L, 2L)));
+        arrayType.writeSlice(blockBuilder, toStackRepresentation(ImmutableList.of(1L, 2L, 3L)));
+        arrayType.writeSlice(blockBuilder, toStackRepresentation(ImmutableList.of(1L, 2L, 3L)));
+        arrayType.writeSlice(blockBuilder, toStackRepresentation(ImmutableList.of(100L, 200L, 300L)));
         return blockBuilder.build();
     }
 
@@ -17,10 +17,12 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableMap;
 
 import java.util.Map;
 
-import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.type.MapType.toStackRepresentation;
+import static io.airlift.slice.Slices.utf8Slice;
 
 public class TestBigintVarcharMapType
         extends AbstractTestType
@@ -30,11 +32,11 @@ public class TestBigintVarcharMapType
         super(new TypeRegistry().getType("map<bigint,varchar>"), Map.class, createTestBlock(new TypeRegistry().getType("map<bigint,varchar>")));
     }
 
-    public static Block createTestBlock(Type arrayType)
+    public static Block createTestBlock(Type mapType)
     {
-        BlockBuilder blockBuilder = arrayType.createBlockBuilder(new BlockBuilderStatus());
-        VARCHAR.writeString(blockBuilder, "{\"1\":\"hi\"}");
-        VARCHAR.writeString(blockBuilder, "{\"1\":\"2\",\"2\":\"hello\"}");
+        BlockBuilder blockBuilder = mapType.createBlockBuilder(new BlockBuilderStatus());
+        mapType.writeSlice(blockBuilder, toStackRepresentation(ImmutableMap.of(1L, utf8Slice("hi"))));
+        mapType.writeSlice(blockBuilder, toStackRepresentation(ImmutableMap.of(1L, utf8Slice("2"), 2L, utf8Slice("hello"))));
         return blockBuilder.build();
     }
 
@@ -15,11 +15,12 @@ package com.facebook.presto.type;
 
 import com.facebook.presto.operator.scalar.FunctionAssertions;
 import com.facebook.presto.operator.scalar.MapConstructor;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.MapBlock;
 import com.facebook.presto.spi.type.SqlTimestamp;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.airlift.slice.Slice;
-import io.airlift.slice.Slices;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
@@ -27,7 +28,7 @@ import java.util.HashMap;
 import java.util.Map;
 
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
-import static com.facebook.presto.type.MapType.rawValueSlicesToStackRepresentation;
+import static com.facebook.presto.type.MapType.toStackRepresentation;
 import static org.testng.Assert.assertEquals;
 
 public class TestMapOperators
@@ -53,8 +54,14 @@ public class TestMapOperators
             throws Exception
     {
         Slice array = ArrayType.toStackRepresentation(ImmutableList.of(1L, 2L));
-        Slice slice = rawValueSlicesToStackRepresentation(ImmutableMap.of(1.0, array));
-        assertEquals(slice, Slices.utf8Slice("{\"1.0\":[1,2]}"));
+        Slice slice = toStackRepresentation(ImmutableMap.of(1.0, array));
+        assertEquals(slice, toStackRepresentation(ImmutableMap.of(1.0, ImmutableList.of(1L, 2L))));
+
+        Block keys = MapBlock.readKeys(slice);
+        Block values = MapBlock.readValues(slice);
+        assertEquals(keys.getPositionCount(), 1);
+        assertEquals(keys.getDouble(0, 0), 1.0);
+        assertEquals(values.getSlice(0, 0, values.getLength(0)), array);
     }
 
     @Test
@@ -13,6 +13,12 @@
  */
 package com.facebook.presto.spi;
 
+/**
+ * Identifies an index resolved by a connector. Implementations must implement
+ * {@code equals} and {@code hashCode} by value, because the engine compares handles
+ * of different queries (and of handles deserialized by different tasks) to decide
+ * whether the same index rows can be shared.
+ */
 public interface ConnectorIndexHandle
 {
 }
@@ -0,0 +1,29 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+/**
+ * Optional interface for a {@link ConnectorMetadata} that can estimate the size of its tables.
+ * Tables of connectors that do not implement it have {@link TableStatistics#unknown()} statistics.
+ */
+public interface ConnectorStatisticsProvider
+{
+    /**
+     * Gets the row count and size estimates for the specified table, or {@link TableStatistics#unknown()}
+     * if the connector can not estimate them cheaply.
+     *
+     * @throws RuntimeException if table handle is no longer valid
+     */
+    TableStatistics getTableStatistics(ConnectorTableHandle tableHandle);
+}
@@ -0,0 +1,96 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi;
+
+import java.util.Objects;
+
+/**
+ * Size estimates for a table. Unknown values are reported as {@code -1}.
+ */
+public class TableStatistics
+{
+    private static final TableStatistics UNKNOWN = new TableStatistics(-1, -1);
+
+    private final long rowCount;
+    private final long dataSizeInBytes;
+
+    public static TableStatistics unknown()
+    {
+        return UNKNOWN;
+    }
+
+    public TableStatistics(long rowCount, long dataSizeInBytes)
+    {
+        if (rowCount < -1) {
+            throw new IllegalArgumentException("rowCount is negative");
+        }
+        if (dataSizeInBytes < -1) {
+            throw new IllegalArgumentException("dataSizeInBytes is negative");
+        }
+        this.rowCount = rowCount;
+        this.dataSizeInBytes = dataSizeInBytes;
+    }
+
+    public boolean isRowCountKnown()
+    {
+        return rowCount >= 0;
+    }
+
+    /**
+     * Gets the estimated number of rows in the table, or -1 if the row count is not known.
+     */
+    public long getRowCount()
+    {
+        return rowCount;
+    }
+
+    public boolean isDataSizeKnown()
+    {
+        return dataSizeInBytes >= 0;
+    }
+
+    /**
+     * Gets the estimated size of the table data in bytes, or -1 if the size is not known.
+     */
+    public long getDataSizeInBytes()
+    {
+        return dataSizeInBytes;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(rowCount, dataSizeInBytes);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        final TableStatistics other = (TableStatistics) obj;
+        return this.rowCount == other.rowCount &&
+                this.dataSizeInBytes == other.dataSizeInBytes;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TableStatistics{rowCount=" + rowCount + ", dataSizeInBytes=" + dataSizeInBytes + "}";
+    }
+}
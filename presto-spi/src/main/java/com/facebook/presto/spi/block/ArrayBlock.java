@@ -0,0 +1,269 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SizeOf;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+
+import java.util.Arrays;
+
+import static com.facebook.presto.spi.block.EncoderUtil.encodeNullsAsBits;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+
+/**
+ * A block of arrays. The elements of all arrays are stored in a single values block,
+ * and the array at a position is the range {@code [offsets[position], offsets[position + 1])}
+ * of that block.
+ * <p>
+ * The byte representation of a position (the stack representation of an array) is the
+ * elements of the array encoded as a variable width block. Use {@link #readElements(Slice)}
+ * to access the elements of such a value by position without copying.
+ */
+public class ArrayBlock
+        extends AbstractVariableWidthBlock
+{
+    private static final VariableWidthBlockEncoding ELEMENTS_ENCODING = new VariableWidthBlockEncoding();
+    private static final Slice EMPTY_SLICE = Slices.wrappedBuffer(new byte[0]);
+
+    private final int positionCount;
+    private final int[] offsets;
+    private final boolean[] valueIsNull;
+    private final Block values;
+
+    // byte representation of each position, created on first use, because hashing and
+    // comparing a position read it repeatedly
+    private Slice[] serializedValues;
+
+    public ArrayBlock(int positionCount, int[] offsets, boolean[] valueIsNull, Block values)
+    {
+        this.positionCount = positionCount;
+
+        if (offsets.length < positionCount + 1) {
+            throw new IllegalArgumentException("offsets length is less than positionCount");
+        }
+        this.offsets = offsets;
+
+        if (valueIsNull.length < positionCount) {
+            throw new IllegalArgumentException("valueIsNull length is less than positionCount");
+        }
+        this.valueIsNull = valueIsNull;
+
+        if (values == null) {
+            throw new NullPointerException("values is null");
+        }
+        this.values = values;
+    }
+
+    /**
+     * Gets the block containing the elements of all arrays in this block.
+     */
+    public Block getValues()
+    {
+        return values;
+    }
+
+    int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    /**
+     * Gets the number of elements in the array at the specified position.
+     */
+    public int getElementCount(int position)
+    {
+        checkPosition(position);
+        return offsets[position + 1] - offsets[position];
+    }
+
+    /**
+     * Gets the elements of the array at the specified position.
+     */
+    public Block getElements(int position)
+    {
+        checkPosition(position);
+        return values.getRegion(offsets[position], offsets[position + 1] - offsets[position]);
+    }
+
+    @Override
+    protected Slice getRawSlice(int position)
+    {
+        if (valueIsNull[position]) {
+            return EMPTY_SLICE;
+        }
+        Slice[] serializedValues = this.serializedValues;
+        if (serializedValues == null) {
+            serializedValues = new Slice[positionCount];
+            this.serializedValues = serializedValues;
+        }
+        Slice value = serializedValues[position];
+        if (value == null) {
+            value = writeElements(getElements(position));
+            serializedValues[position] = value;
+        }
+        return value;
+    }
+
+    @Override
+    protected int getPositionOffset(int position)
+    {
+        return 0;
+    }
+
+    @Override
+    protected boolean isEntryNull(int position)
+    {
+        return valueIsNull[position];
+    }
+
+    @Override
+    public int getLength(int position)
+    {
+        checkPosition(position);
+        if (valueIsNull[position]) {
+            return 0;
+        }
+        return getElementsLength(values, offsets[position], offsets[position + 1] - offsets[position]);
+    }
+
+    @Override
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    @Override
+    public int getSizeInBytes()
+    {
+        long size = values.getSizeInBytes() + SizeOf.sizeOf(offsets) + SizeOf.sizeOf(valueIsNull);
+        if (size > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) size;
+    }
+
+    @Override
+    public BlockEncoding getEncoding()
+    {
+        return new ArrayBlockEncoding(values.getEncoding());
+    }
+
+    @Override
+    public Block getRegion(int positionOffset, int length)
+    {
+        if (positionOffset < 0 || length < 0 || positionOffset + length > positionCount) {
+            throw new IndexOutOfBoundsException("Invalid position " + positionOffset + " in block with " + positionCount + " positions");
+        }
+
+        int[] newOffsets = Arrays.copyOfRange(offsets, positionOffset, positionOffset + length + 1);
+        boolean[] newValueIsNull = Arrays.copyOfRange(valueIsNull, positionOffset, positionOffset + length);
+        return new ArrayBlock(length, newOffsets, newValueIsNull, values);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("ArrayBlock{");
+        sb.append("positionCount=").append(getPositionCount());
+        sb.append(", values=").append(values);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private void checkPosition(int position)
+    {
+        if (position < 0 || position >= positionCount) {
+            throw new IllegalArgumentException("position is not valid");
+        }
+    }
+
+    /**
+     * Reads the elements of an array from its byte representation. The returned block
+     * is a view over the slice, so no element data is copied.
+     */
+    public static Block readElements(Slice array)
+    {
+        return ELEMENTS_ENCODING.readBlock(array.getInput());
+    }
+
+    /**
+     * Creates the byte representation of an array containing the specified elements.
+     */
+    public static Slice writeElements(Block elements)
+    {
+        DynamicSliceOutput output = new DynamicSliceOutput(elements.getSizeInBytes() + SIZE_OF_INT * (elements.getPositionCount() + 2) + 1);
+        writeElements(output, elements);
+        return output.slice();
+    }
+
+    /**
+     * Gets the length of the byte representation of an array containing the positions
+     * {@code [positionOffset, positionOffset + length)} of the block, without creating it.
+     */
+    static int getElementsLength(Block block, int positionOffset, int length)
+    {
+        // position count, element lengths, null bits and total length
+        int size = SIZE_OF_INT + SIZE_OF_INT * length + ((length + 7) / 8) + SIZE_OF_INT;
+        for (int position = positionOffset; position < positionOffset + length; position++) {
+            if (!block.isNull(position)) {
+                size += block.getLength(position);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Writes the elements in the variable width block format, so they can be read back
+     * with {@link #readElements(Slice)} regardless of the original block implementation.
+     */
+    static void writeElements(SliceOutput output, Block elements)
+    {
+        int positionCount = elements.getPositionCount();
+        output.appendInt(positionCount);
+
+        // lengths
+        int totalLength = 0;
+        for (int position = 0; position < positionCount; position++) {
+            int length = 0;
+            if (!elements.isNull(position)) {
+                length = elements.getLength(position);
+            }
+            output.appendInt(length);
+            totalLength += length;
+        }
+
+        encodeNullsAsBits(output, elements);
+
+        // write last null bits
+        if ((positionCount & 0b111) > 0) {
+            byte value = 0;
+            int mask = 0b1000_0000;
+            for (int position = positionCount & ~0b111; position < positionCount; position++) {
+                value |= elements.isNull(position) ? mask : 0;
+                mask >>>= 1;
+            }
+            output.appendByte(value);
+        }
+
+        output.appendInt(totalLength);
+        for (int position = 0; position < positionCount; position++) {
+            if (!elements.isNull(position)) {
+                output.writeBytes(elements.getSlice(position, 0, elements.getLength(position)));
+            }
+        }
+    }
+}
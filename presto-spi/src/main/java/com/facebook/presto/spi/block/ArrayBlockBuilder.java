@@ -0,0 +1,315 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SizeOf;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
+import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
+import static io.airlift.slice.SizeOf.SIZE_OF_FLOAT;
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+import static io.airlift.slice.SizeOf.SIZE_OF_SHORT;
+
+/**
+ * Builds an {@link ArrayBlock}. An array can either be built by appending its elements
+ * to the {@link #getElementBlockBuilder() element block builder} and calling
+ * {@link #closeEntry()}, or by writing the byte representation of the array (see
+ * {@link ArrayBlock#writeElements(Block)}) and calling {@link #closeEntry()}. In the
+ * latter case the elements are decoded into the element block builder, so the built
+ * block never contains serialized arrays.
+ */
+public class ArrayBlockBuilder
+        extends AbstractVariableWidthBlock
+        implements BlockBuilder
+{
+    private static final Slice[] NO_SERIALIZED_VALUES = new Slice[0];
+
+    private final BlockBuilderStatus blockBuilderStatus;
+    private final BlockBuilder elementBlockBuilder;
+
+    private int positions;
+    private int[] offsets = new int[1024];
+    private boolean[] valueIsNull = new boolean[1024];
+    // length of the byte representation of each position
+    private int[] lengths = new int[1024];
+    // byte representation of each position, created on first use, because hashing and
+    // comparing a position read it repeatedly
+    private Slice[] serializedValues = NO_SERIALIZED_VALUES;
+    private int sizeInBytes;
+
+    // byte representation of the current entry, when it is written as bytes
+    private SliceOutput currentEntry;
+    private int currentEntrySize;
+
+    public ArrayBlockBuilder(BlockBuilderStatus blockBuilderStatus, BlockBuilder elementBlockBuilder)
+    {
+        this.blockBuilderStatus = Objects.requireNonNull(blockBuilderStatus, "blockBuilderStatus is null");
+        this.elementBlockBuilder = Objects.requireNonNull(elementBlockBuilder, "elementBlockBuilder is null");
+    }
+
+    public BlockBuilder getElementBlockBuilder()
+    {
+        return elementBlockBuilder;
+    }
+
+    @Override
+    protected Slice getRawSlice(int position)
+    {
+        checkReadablePosition(position);
+        if (position >= serializedValues.length) {
+            serializedValues = Arrays.copyOf(serializedValues, offsets.length);
+        }
+        Slice value = serializedValues[position];
+        if (value == null) {
+            value = ArrayBlock.writeElements(elementBlockBuilder.getRegion(offsets[position], offsets[position + 1] - offsets[position]));
+            serializedValues[position] = value;
+        }
+        return value;
+    }
+
+    @Override
+    protected int getPositionOffset(int position)
+    {
+        return 0;
+    }
+
+    @Override
+    protected boolean isEntryNull(int position)
+    {
+        return valueIsNull[position];
+    }
+
+    @Override
+    public int getLength(int position)
+    {
+        checkReadablePosition(position);
+        return lengths[position];
+    }
+
+    @Override
+    public int getPositionCount()
+    {
+        return positions;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return positions == 0;
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        return blockBuilderStatus.isFull();
+    }
+
+    @Override
+    public int getSizeInBytes()
+    {
+        long size = elementBlockBuilder.getSizeInBytes() + SizeOf.sizeOf(offsets) + SizeOf.sizeOf(valueIsNull) + SizeOf.sizeOf(lengths);
+        if (size > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) size;
+    }
+
+    @Override
+    public BlockEncoding getEncoding()
+    {
+        return new ArrayBlockEncoding(elementBlockBuilder.getEncoding());
+    }
+
+    @Override
+    public BlockBuilder writeByte(int value)
+    {
+        getCurrentEntry().writeByte(value);
+        currentEntrySize += SIZE_OF_BYTE;
+        return this;
+    }
+
+    @Override
+    public BlockBuilder writeShort(int value)
+    {
+        getCurrentEntry().writeShort(value);
+        currentEntrySize += SIZE_OF_SHORT;
+        return this;
+    }
+
+    @Override
+    public BlockBuilder writeInt(int value)
+    {
+        getCurrentEntry().writeInt(value);
+        currentEntrySize += SIZE_OF_INT;
+        return this;
+    }
+
+    @Override
+    public BlockBuilder writeLong(long value)
+    {
+        getCurrentEntry().writeLong(value);
+        currentEntrySize += SIZE_OF_LONG;
+        return this;
+    }
+
+    @Override
+    public BlockBuilder writeFloat(float value)
+    {
+        getCurrentEntry().writeFloat(value);
+        currentEntrySize += SIZE_OF_FLOAT;
+        return this;
+    }
+
+    @Override
+    public BlockBuilder writeDouble(double value)
+    {
+        getCurrentEntry().writeDouble(value);
+        currentEntrySize += SIZE_OF_DOUBLE;
+        return this;
+    }
+
+    @Override
+    public BlockBuilder writeBytes(Slice source, int sourceIndex, int length)
+    {
+        getCurrentEntry().writeBytes(source, sourceIndex, length);
+        currentEntrySize += length;
+        return this;
+    }
+
+    /**
+     * Completes the current array. If the byte representation of the array was written, it
+     * is decoded into the element block builder, otherwise the array contains all elements
+     * appended to the element block builder since the previous entry.
+     */
+    @Override
+    public BlockBuilder closeEntry()
+    {
+        if (currentEntrySize > 0) {
+            appendElements(elementBlockBuilder, ArrayBlock.readElements(currentEntry.slice()));
+            currentEntry.reset();
+            currentEntrySize = 0;
+        }
+        int elementCount = elementBlockBuilder.getPositionCount() - offsets[positions];
+        entryAdded(ArrayBlock.getElementsLength(elementBlockBuilder, offsets[positions], elementCount), false);
+        return this;
+    }
+
+    @Override
+    public BlockBuilder appendNull()
+    {
+        if (currentEntrySize > 0 || elementBlockBuilder.getPositionCount() != offsets[positions]) {
+            throw new IllegalStateException("Current entry must be closed before a null can be written");
+        }
+        entryAdded(0, true);
+        return this;
+    }
+
+    private void entryAdded(int bytesWritten, boolean isNull)
+    {
+        if (positions + 1 >= offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            valueIsNull = Arrays.copyOf(valueIsNull, valueIsNull.length * 2);
+            lengths = Arrays.copyOf(lengths, lengths.length * 2);
+        }
+
+        valueIsNull[positions] = isNull;
+        lengths[positions] = bytesWritten;
+
+        positions++;
+
+        offsets[positions] = elementBlockBuilder.getPositionCount();
+
+        int entrySize = SIZE_OF_BYTE + SIZE_OF_INT + bytesWritten;
+        sizeInBytes += entrySize;
+        blockBuilderStatus.addBytes(entrySize);
+        if (sizeInBytes >= blockBuilderStatus.getMaxBlockSizeInBytes()) {
+            blockBuilderStatus.setFull();
+        }
+    }
+
+    @Override
+    public Block getRegion(int positionOffset, int length)
+    {
+        int positionCount = getPositionCount();
+        if (positionOffset < 0 || length < 0 || positionOffset + length > positionCount) {
+            throw new IndexOutOfBoundsException("Invalid position " + positionOffset + " in block with " + positionCount + " positions");
+        }
+
+        // the region is a view of the elements of the selected arrays, so nothing is copied
+        int elementOffset = offsets[positionOffset];
+        int[] newOffsets = new int[length + 1];
+        for (int position = 0; position <= length; position++) {
+            newOffsets[position] = offsets[positionOffset + position] - elementOffset;
+        }
+        boolean[] newValueIsNull = Arrays.copyOfRange(valueIsNull, positionOffset, positionOffset + length);
+        return new ArrayBlock(length, newOffsets, newValueIsNull, elementBlockBuilder.getRegion(elementOffset, newOffsets[length]));
+    }
+
+    @Override
+    public ArrayBlock build()
+    {
+        if (currentEntrySize > 0) {
+            throw new IllegalStateException("Current entry must be closed before the block can be built");
+        }
+        return new ArrayBlock(positions, Arrays.copyOf(offsets, positions + 1), Arrays.copyOf(valueIsNull, positions), elementBlockBuilder.build());
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("ArrayBlockBuilder{");
+        sb.append("positionCount=").append(positions);
+        sb.append(", elements=").append(elementBlockBuilder);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private SliceOutput getCurrentEntry()
+    {
+        if (currentEntry == null) {
+            currentEntry = new DynamicSliceOutput(64);
+        }
+        return currentEntry;
+    }
+
+    private void checkReadablePosition(int position)
+    {
+        if (position < 0 || position >= positions) {
+            throw new IllegalArgumentException("position " + position + " must be less than position count " + positions);
+        }
+    }
+
+    /**
+     * Copies the elements to the block builder, one position at a time.
+     */
+    static void appendElements(BlockBuilder blockBuilder, Block elements)
+    {
+        for (int position = 0; position < elements.getPositionCount(); position++) {
+            if (elements.isNull(position)) {
+                blockBuilder.appendNull();
+            }
+            else {
+                int length = elements.getLength(position);
+                blockBuilder.writeBytes(elements.getSlice(position, 0, length), 0, length).closeEntry();
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+import com.facebook.presto.spi.type.TypeManager;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+
+import static com.facebook.presto.spi.block.EncoderUtil.decodeNullBits;
+import static com.facebook.presto.spi.block.EncoderUtil.encodeNullsAsBits;
+
+public class ArrayBlockEncoding
+        implements BlockEncoding
+{
+    public static final BlockEncodingFactory<ArrayBlockEncoding> FACTORY = new ArrayBlockEncodingFactory();
+    private static final String NAME = "ARRAY";
+
+    private final BlockEncoding valueBlockEncoding;
+
+    public ArrayBlockEncoding(BlockEncoding valueBlockEncoding)
+    {
+        if (valueBlockEncoding == null) {
+            throw new NullPointerException("valueBlockEncoding is null");
+        }
+        this.valueBlockEncoding = valueBlockEncoding;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    public BlockEncoding getValueBlockEncoding()
+    {
+        return valueBlockEncoding;
+    }
+
+    @Override
+    public void writeBlock(SliceOutput sliceOutput, Block block)
+    {
+        // The down casts here are safe because it is the block itself the provides this encoding implementation.
+        ArrayBlock arrayBlock;
+        if (block instanceof ArrayBlockBuilder) {
+            arrayBlock = ((ArrayBlockBuilder) block).build();
+        }
+        else {
+            arrayBlock = (ArrayBlock) block;
+        }
+
+        int positionCount = arrayBlock.getPositionCount();
+        sliceOutput.appendInt(positionCount);
+
+        // element counts
+        int[] offsets = arrayBlock.getOffsets();
+        for (int position = 0; position < positionCount; position++) {
+            sliceOutput.appendInt(offsets[position + 1] - offsets[position]);
+        }
+
+        encodeNullsAsBits(sliceOutput, arrayBlock);
+
+        // write last null bits
+        if ((positionCount & 0b111) > 0) {
+            byte value = 0;
+            int mask = 0b1000_0000;
+            for (int position = positionCount & ~0b111; position < positionCount; position++) {
+                value |= arrayBlock.isNull(position) ? mask : 0;
+                mask >>>= 1;
+            }
+            sliceOutput.appendByte(value);
+        }
+
+        // only write the elements referenced by this block
+        Block values = arrayBlock.getValues().getRegion(offsets[0], offsets[positionCount] - offsets[0]);
+        valueBlockEncoding.writeBlock(sliceOutput, values);
+    }
+
+    @Override
+    public Block readBlock(SliceInput sliceInput)
+    {
+        int positionCount = sliceInput.readInt();
+
+        int[] offsets = new int[positionCount + 1];
+        int offset = 0;
+        for (int position = 0; position < positionCount; position++) {
+            offset += sliceInput.readInt();
+            offsets[position + 1] = offset;
+        }
+
+        boolean[] valueIsNull = decodeNullBits(sliceInput, positionCount);
+
+        Block values = valueBlockEncoding.readBlock(sliceInput);
+
+        return new ArrayBlock(positionCount, offsets, valueIsNull, values);
+    }
+
+    private static class ArrayBlockEncodingFactory
+            implements BlockEncodingFactory<ArrayBlockEncoding>
+    {
+        @Override
+        public String getName()
+        {
+            return NAME;
+        }
+
+        @Override
+        public ArrayBlockEncoding readEncoding(TypeManager manager, BlockEncodingSerde serde, SliceInput input)
+        {
+            BlockEncoding valueBlockEncoding = serde.readBlockEncoding(input);
+            return new ArrayBlockEncoding(valueBlockEncoding);
+        }
+
+        @Override
+        public void writeEncoding(BlockEncodingSerde serde, SliceOutput output, ArrayBlockEncoding blockEncoding)
+        {
+            serde.writeBlockEncoding(output, blockEncoding.getValueBlockEncoding());
+        }
+    }
+}
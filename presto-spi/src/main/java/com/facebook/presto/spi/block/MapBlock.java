@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SizeOf;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.Slices;
+
+import java.util.Arrays;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+
+/**
+ * A block of maps. The keys and values of all maps are stored in a keys block and
+ * a values block, and the map at a position is the range
+ * {@code [offsets[position], offsets[position + 1])} of both blocks.
+ * <p>
+ * The byte representation of a position (the stack representation of a map) is the
+ * keys of the map followed by the values, each encoded as a variable width block.
+ */
+public class MapBlock
+        extends AbstractVariableWidthBlock
+{
+    private static final VariableWidthBlockEncoding ELEMENTS_ENCODING = new VariableWidthBlockEncoding();
+    private static final Slice EMPTY_SLICE = Slices.wrappedBuffer(new byte[0]);
+
+    private final int positionCount;
+    private final int[] offsets;
+    private final boolean[] valueIsNull;
+    private final Block keys;
+    private final Block values;
+
+    // byte representation of each position, created on first use, because hashing and
+    // comparing a position read it repeatedly
+    private Slice[] serializedValues;
+
+    public MapBlock(int positionCount, int[] offsets, boolean[] valueIsNull, Block keys, Block values)
+    {
+        this.positionCount = positionCount;
+
+        if (offsets.length < positionCount + 1) {
+            throw new IllegalArgumentException("offsets length is less than positionCount");
+        }
+        this.offsets = offsets;
+
+        if (valueIsNull.length < positionCount) {
+            throw new IllegalArgumentException("valueIsNull length is less than positionCount");
+        }
+        this.valueIsNull = valueIsNull;
+
+        if (keys == null) {
+            throw new NullPointerException("keys is null");
+        }
+        this.keys = keys;
+
+        if (values == null) {
+            throw new NullPointerException("values is null");
+        }
+        if (keys.getPositionCount() != values.getPositionCount()) {
+            throw new IllegalArgumentException("keys and values must have the same number of positions");
+        }
+        this.values = values;
+    }
+
+    /**
+     * Gets the block containing the keys of all maps in this block.
+     */
+    public Block getKeys()
+    {
+        return keys;
+    }
+
+    /**
+     * Gets the block containing the values of all maps in this block.
+     */
+    public Block getValues()
+    {
+        return values;
+    }
+
+    int[] getOffsets()
+    {
+        return offsets;
+    }
+
+    /**
+     * Gets the number of entries in the map at the specified position.
+     */
+    public int getEntryCount(int position)
+    {
+        checkPosition(position);
+        return offsets[position + 1] - offsets[position];
+    }
+
+    /**
+     * Gets the keys of the map at the specified position.
+     */
+    public Block getKeys(int position)
+    {
+        checkPosition(position);
+        return keys.getRegion(offsets[position], offsets[position + 1] - offsets[position]);
+    }
+
+    /**
+     * Gets the values of the map at the specified position.
+     */
+    public Block getValues(int position)
+    {
+        checkPosition(position);
+        return values.getRegion(offsets[position], offsets[position + 1] - offsets[position]);
+    }
+
+    @Override
+    protected Slice getRawSlice(int position)
+    {
+        if (valueIsNull[position]) {
+            return EMPTY_SLICE;
+        }
+        Slice[] serializedValues = this.serializedValues;
+        if (serializedValues == null) {
+            serializedValues = new Slice[positionCount];
+            this.serializedValues = serializedValues;
+        }
+        Slice value = serializedValues[position];
+        if (value == null) {
+            value = writeEntry(getKeys(position), getValues(position));
+            serializedValues[position] = value;
+        }
+        return value;
+    }
+
+    @Override
+    protected int getPositionOffset(int position)
+    {
+        return 0;
+    }
+
+    @Override
+    protected boolean isEntryNull(int position)
+    {
+        return valueIsNull[position];
+    }
+
+    @Override
+    public int getLength(int position)
+    {
+        checkPosition(position);
+        if (valueIsNull[position]) {
+            return 0;
+        }
+        int entryCount = offsets[position + 1] - offsets[position];
+        return ArrayBlock.getElementsLength(keys, offsets[position], entryCount) + ArrayBlock.getElementsLength(values, offsets[position], entryCount);
+    }
+
+    @Override
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    @Override
+    public int getSizeInBytes()
+    {
+        long size = keys.getSizeInBytes() + values.getSizeInBytes() + SizeOf.sizeOf(offsets) + SizeOf.sizeOf(valueIsNull);
+        if (size > Integer.MAX_VALUE) {
+            return Integer.MAX_VALUE;
+        }
+        return (int) size;
+    }
+
+    @Override
+    public BlockEncoding getEncoding()
+    {
+        return new MapBlockEncoding(keys.getEncoding(), values.getEncoding());
+    }
+
+    @Override
+    public Block getRegion(int positionOffset, int length)
+    {
+        if (positionOffset < 0 || length < 0 || positionOffset + length > positionCount) {
+            throw new IndexOutOfBoundsException("Invalid position " + positionOffset + " in block with " + positionCount + " positions");
+        }
+
+        int[] newOffsets = Arrays.copyOfRange(offsets, positionOffset, positionOffset + length + 1);
+        boolean[] newValueIsNull = Arrays.copyOfRange(valueIsNull, positionOffset, positionOffset + length);
+        return new MapBlock(length, newOffsets, newValueIsNull, keys, values);
+    }
+
+    @Override
+    public String toString()
+    {
+        StringBuilder sb = new StringBuilder("MapBlock{");
+        sb.append("positionCount=").append(getPositionCount());
+        sb.append(", keys=").append(keys);
+        sb.append(", values=").append(values);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    private void checkPosition(int position)
+    {
+        if (position < 0 || position >= positionCount) {
+            throw new IllegalArgumentException("position is not valid");
+        }
+    }
+
+    /**
+     * Reads the keys of a map from its byte representation without copying.
+     */
+    public static Block readKeys(Slice map)
+    {
+        return ELEMENTS_ENCODING.readBlock(map.getInput());
+    }
+
+    /**
+     * Reads the values of a map from its byte representation without copying.
+     * The value at each position belongs to the key at the same position of {@link #readKeys(Slice)}.
+     */
+    public static Block readValues(Slice map)
+    {
+        SliceInput input = map.getInput();
+        // skip the keys
+        ELEMENTS_ENCODING.readBlock(input);
+        return ELEMENTS_ENCODING.readBlock(input);
+    }
+
+    /**
+     * Creates the byte representation of a map with the specified keys and values.
+     */
+    public static Slice writeEntry(Block keys, Block values)
+    {
+        if (keys.getPositionCount() != values.getPositionCount()) {
+            throw new IllegalArgumentException("keys and values must have the same number of positions");
+        }
+        int estimatedSize = keys.getSizeInBytes() + values.getSizeInBytes() + SIZE_OF_INT * (2 * keys.getPositionCount() + 4) + 2;
+        DynamicSliceOutput output = new DynamicSliceOutput(estimatedSize);
+        ArrayBlock.writeElements(output, keys);
+        ArrayBlock.writeElements(output, values);
+        return output.slice();
+    }
+}
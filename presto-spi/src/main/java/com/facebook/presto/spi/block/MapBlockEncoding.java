@@ -0,0 +1,144 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.block;
+
+import com.facebook.presto.spi.type.TypeManager;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+
+import static com.facebook.presto.spi.block.EncoderUtil.decodeNullBits;
+import static com.facebook.presto.spi.block.EncoderUtil.encodeNullsAsBits;
+
+public class MapBlockEncoding
+        implements BlockEncoding
+{
+    public static final BlockEncodingFactory<MapBlockEncoding> FACTORY = new MapBlockEncodingFactory();
+    private static final String NAME = "MAP";
+
+    private final BlockEncoding keyBlockEncoding;
+    private final BlockEncoding valueBlockEncoding;
+
+    public MapBlockEncoding(BlockEncoding keyBlockEncoding, BlockEncoding valueBlockEncoding)
+    {
+        if (keyBlockEncoding == null) {
+            throw new NullPointerException("keyBlockEncoding is null");
+        }
+        if (valueBlockEncoding == null) {
+            throw new NullPointerException("valueBlockEncoding is null");
+        }
+        this.keyBlockEncoding = keyBlockEncoding;
+        this.valueBlockEncoding = valueBlockEncoding;
+    }
+
+    @Override
+    public String getName()
+    {
+        return NAME;
+    }
+
+    public BlockEncoding getKeyBlockEncoding()
+    {
+        return keyBlockEncoding;
+    }
+
+    public BlockEncoding getValueBlockEncoding()
+    {
+        return valueBlockEncoding;
+    }
+
+    @Override
+    public void writeBlock(SliceOutput sliceOutput, Block block)
+    {
+        // The down casts here are safe because it is the block itself the provides this encoding implementation.
+        MapBlock mapBlock;
+        if (block instanceof MapBlockBuilder) {
+            mapBlock = ((MapBlockBuilder) block).build();
+        }
+        else {
+            mapBlock = (MapBlock) block;
+        }
+
+        int positionCount = mapBlock.getPositionCount();
+        sliceOutput.appendInt(positionCount);
+
+        // entry counts
+        int[] offsets = mapBlock.getOffsets();
+        for (int position = 0; position < positionCount; position++) {
+            sliceOutput.appendInt(offsets[position + 1] - offsets[position]);
+        }
+
+        encodeNullsAsBits(sliceOutput, mapBlock);
+
+        // write last null bits
+        if ((positionCount & 0b111) > 0) {
+            byte value = 0;
+            int mask = 0b1000_0000;
+            for (int position = positionCount & ~0b111; position < positionCount; position++) {
+                value |= mapBlock.isNull(position) ? mask : 0;
+                mask >>>= 1;
+            }
+            sliceOutput.appendByte(value);
+        }
+
+        // only write the entries referenced by this block
+        int entryCount = offsets[positionCount] - offsets[0];
+        keyBlockEncoding.writeBlock(sliceOutput, mapBlock.getKeys().getRegion(offsets[0], entryCount));
+        valueBlockEncoding.writeBlock(sliceOutput, mapBlock.getValues().getRegion(offsets[0], entryCount));
+    }
+
+    @Override
+    public Block readBlock(SliceInput sliceInput)
+    {
+        int positionCount = sliceInput.readInt();
+
+        int[] offsets = new int[positionCount + 1];
+        int offset = 0;
+        for (int position = 0; position < positionCount; position++) {
+            offset += sliceInput.readInt();
+            offsets[position + 1] = offset;
+        }
+
+        boolean[] valueIsNull = decodeNullBits(sliceInput, positionCount);
+
+        Block keys = keyBlockEncoding.readBlock(sliceInput);
+        Block values = valueBlockEncoding.readBlock(sliceInput);
+
+        return new MapBlock(positionCount, offsets, valueIsNull, keys, values);
+    }
+
+    private static class MapBlockEncodingFactory
+            implements BlockEncodingFactory<MapBlockEncoding>
+    {
+        @Override
+        public String getName()
+        {
+            return NAME;
+        }
+
+        @Override
+        public MapBlockEncoding readEncoding(TypeManager manager, BlockEncodingSerde serde, SliceInput input)
+        {
+            BlockEncoding keyBlockEncoding = serde.readBlockEncoding(input);
+            BlockEncoding valueBlockEncoding = serde.readBlockEncoding(input);
+            return new MapBlockEncoding(keyBlockEncoding, valueBlockEncoding);
+        }
+
+        @Override
+        public void writeEncoding(BlockEncodingSerde serde, SliceOutput output, MapBlockEncoding blockEncoding)
+        {
+            serde.writeBlockEncoding(output, blockEncoding.getKeyBlockEncoding());
+            serde.writeBlockEncoding(output, blockEncoding.getValueBlockEncoding());
+        }
+    }
+}
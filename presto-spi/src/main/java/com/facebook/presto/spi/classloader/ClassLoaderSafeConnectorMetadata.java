@@ -19,10 +19,12 @@ import com.facebook.presto.spi.ConnectorInsertTableHandle;
 import com.facebook.presto.spi.ConnectorMetadata;
 import com.facebook.presto.spi.ConnectorOutputTableHandle;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TableStatistics;
 
 import java.util.Collection;
 import java.util.List;
@@ -31,7 +33,7 @@ import java.util.Map;
 import static java.util.Objects.requireNonNull;
 
 public class ClassLoaderSafeConnectorMetadata
-        implements ConnectorMetadata
+        implements ConnectorMetadata, ConnectorStatisticsProvider
 {
     private final ConnectorMetadata delegate;
     private final ClassLoader classLoader;
@@ -106,6 +108,17 @@ public class ClassLoaderSafeConnectorMetadata
         }
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorTableHandle tableHandle)
+    {
+        if (!(delegate instanceof ConnectorStatisticsProvider)) {
+            return TableStatistics.unknown();
+        }
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(classLoader)) {
+            return ((ConnectorStatisticsProvider) delegate).getTableStatistics(tableHandle);
+        }
+    }
+
     @Override
     public Map<SchemaTableName, List<ColumnMetadata>> listTableColumns(ConnectorSession session, SchemaTablePrefix prefix)
     {
@@ -878,6 +878,15 @@ public abstract class AbstractTestQueries
         assertQuery("SELECT COUNT(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey");
     }
 
+    @Test
+    public void testJoinWithLimit()
+            throws Exception
+    {
+        // the limit can finish the query before the build side of the join is collected
+        MaterializedResult actual = computeActual("SELECT * FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey LIMIT 10");
+        assertEquals(actual.getMaterializedRows().size(), 10);
+    }
+
     @Test
     public void testJoinWithRightConstantEquality()
             throws Exception
@@ -106,6 +106,7 @@ public class DistributedQueryRunner
                 .put("exchange.http-client.read-timeout", "1h")
                 .put("compiler.interpreter-enabled", "false")
                 .put("task.max-index-memory", "16kB") // causes index joins to fault load
+                .put("task.max-shared-index-memory", "64kB") // shares loaded keys between tasks and queries, with frequent evictions
                 .put("datasources", "system")
                 .put("distributed-index-joins-enabled", "true");
         if (coordinator) {
@@ -20,6 +20,7 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableSet;
 
+import java.util.Objects;
 import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -77,4 +78,27 @@ public class TpchIndexHandle
     {
         return fixedValues;
     }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(connectorId, tableName, scaleFactor, indexColumnNames, fixedValues);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if (obj == null || getClass() != obj.getClass()) {
+            return false;
+        }
+        TpchIndexHandle other = (TpchIndexHandle) obj;
+        return Objects.equals(this.connectorId, other.connectorId) &&
+                Objects.equals(this.tableName, other.tableName) &&
+                Objects.equals(this.scaleFactor, other.scaleFactor) &&
+                Objects.equals(this.indexColumnNames, other.indexColumnNames) &&
+                Objects.equals(this.fixedValues, other.fixedValues);
+    }
 }
@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tests;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.operator.Driver;
+import com.facebook.presto.operator.OperatorFactory;
+import com.facebook.presto.operator.OperatorStats;
+import com.facebook.presto.operator.OutputFactory;
+import com.facebook.presto.operator.PipelineStats;
+import com.facebook.presto.operator.TaskContext;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.testing.MaterializingOperator.MaterializingOperatorFactory;
+import com.facebook.presto.tpch.TpchConnectorFactory;
+import com.google.common.collect.ImmutableMap;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static java.util.Locale.ENGLISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+/**
+ * Checks how many rows the probe side scan of a join produces when the scan is restricted to the
+ * join keys of the build side.
+ */
+@Test(singleThreaded = true)
+public class TestDynamicFiltering
+{
+    private static final String SELECTIVE_JOIN = "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey WHERE orders.totalprice > 400000";
+
+    private LocalQueryRunner filteringRunner;
+    private LocalQueryRunner serialBuildFilteringRunner;
+    private LocalQueryRunner nonFilteringRunner;
+    private long lineitemCount;
+
+    @BeforeClass
+    public void setUp()
+    {
+        filteringRunner = createLocalQueryRunner(new TaskManagerConfig());
+        serialBuildFilteringRunner = createLocalQueryRunner(new TaskManagerConfig().setHashBuildConcurrency(1));
+        nonFilteringRunner = createLocalQueryRunner(new TaskManagerConfig().setDynamicFilteringEnabled(false));
+        lineitemCount = count(nonFilteringRunner, "SELECT count(*) FROM lineitem");
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        filteringRunner.close();
+        serialBuildFilteringRunner.close();
+        nonFilteringRunner.close();
+    }
+
+    @Test
+    public void testSelectiveBuildSide()
+    {
+        long expected = count(nonFilteringRunner, SELECTIVE_JOIN);
+        assertTrue(expected > 0 && expected < lineitemCount);
+        assertEquals(count(filteringRunner, SELECTIVE_JOIN), expected);
+        assertEquals(count(serialBuildFilteringRunner, SELECTIVE_JOIN), expected);
+
+        // every order key of the build side is kept, so the scan outputs exactly the joined rows
+        assertEquals(getProbeScanStats(filteringRunner, SELECTIVE_JOIN).getOutputPositions(), expected);
+        assertEquals(getProbeScanStats(serialBuildFilteringRunner, SELECTIVE_JOIN).getOutputPositions(), expected);
+        assertEquals(getProbeScanStats(nonFilteringRunner, SELECTIVE_JOIN).getOutputPositions(), lineitemCount);
+    }
+
+    @Test
+    public void testEmptyBuildSide()
+    {
+        @Language("SQL") String sql = "SELECT count(*) FROM lineitem JOIN orders ON lineitem.orderkey = orders.orderkey WHERE orders.totalprice < 0";
+        assertEquals(count(filteringRunner, sql), 0);
+
+        // the split of the probe side is skipped without reading a row
+        OperatorStats probeScanStats = getProbeScanStats(filteringRunner, sql);
+        assertEquals(probeScanStats.getInputPositions(), 0);
+        assertEquals(probeScanStats.getOutputPositions(), 0);
+        assertEquals(getProbeScanStats(serialBuildFilteringRunner, sql).getInputPositions(), 0);
+        assertEquals(getProbeScanStats(nonFilteringRunner, sql).getInputPositions(), lineitemCount);
+    }
+
+    @Test
+    public void testOuterJoin()
+    {
+        // the probe rows without a match are part of the output of an outer join
+        @Language("SQL") String sql = "SELECT count(*) FROM lineitem LEFT JOIN (SELECT orderkey FROM orders WHERE totalprice > 400000) o ON lineitem.orderkey = o.orderkey";
+        assertEquals(count(filteringRunner, sql), lineitemCount);
+        assertEquals(getProbeScanStats(filteringRunner, sql).getOutputPositions(), lineitemCount);
+    }
+
+    @Test
+    public void testProbeSideAggregation()
+    {
+        // the scan is not filtered through an aggregation, even though it would be correct here,
+        // because only filters and projections are known to pass the probe rows through unchanged
+        @Language("SQL") String sql = "" +
+                "SELECT count(*) " +
+                "FROM (SELECT orderkey, count(*) c FROM lineitem GROUP BY orderkey) l " +
+                "JOIN orders ON l.orderkey = orders.orderkey " +
+                "WHERE orders.totalprice > 400000";
+        assertEquals(count(filteringRunner, sql), count(nonFilteringRunner, sql));
+        assertEquals(getProbeScanStats(filteringRunner, sql).getOutputPositions(), lineitemCount);
+    }
+
+    @Test
+    public void testProbeSideFilterAndProjection()
+    {
+        @Language("SQL") String sql = "" +
+                "SELECT count(*) " +
+                "FROM (SELECT orderkey, quantity * 2 q FROM lineitem WHERE quantity > 10) l " +
+                "JOIN orders ON l.orderkey = orders.orderkey " +
+                "WHERE orders.totalprice > 400000";
+        long expected = count(nonFilteringRunner, sql);
+        assertEquals(count(filteringRunner, sql), expected);
+        assertEquals(getProbeScanStats(filteringRunner, sql).getOutputPositions(), expected);
+    }
+
+    private static long count(LocalQueryRunner runner, @Language("SQL") String sql)
+    {
+        return (Long) runner.execute(sql).getMaterializedRows().get(0).getField(0);
+    }
+
+    /**
+     * Runs the query and gets the stats of the first operator of the pipeline with the join,
+     * which is the scan of the probe side.
+     */
+    private static OperatorStats getProbeScanStats(LocalQueryRunner runner, @Language("SQL") String sql)
+    {
+        TaskContext taskContext = new TaskContext(new TaskId("query", "stage", "task"), runner.getExecutor(), runner.getDefaultSession());
+        List<Driver> drivers = runner.createDrivers(sql, new OutputFactory()
+        {
+            @Override
+            public OperatorFactory createOutputOperator(int operatorId, List<Type> sourceType)
+            {
+                return new MaterializingOperatorFactory(operatorId, sourceType);
+            }
+        }, taskContext);
+
+        boolean done = false;
+        while (!done) {
+            boolean processed = false;
+            for (Driver driver : drivers) {
+                if (!driver.isFinished()) {
+                    driver.process();
+                    processed = true;
+                }
+            }
+            done = !processed;
+        }
+
+        for (PipelineStats pipelineStats : taskContext.getTaskStats().getPipelines()) {
+            List<OperatorStats> operators = pipelineStats.getOperatorSummaries();
+            for (OperatorStats operator : operators) {
+                if (operator.getOperatorType().equals("LookupJoinOperator")) {
+                    return operators.get(0);
+                }
+            }
+        }
+        fail("Query has no join: " + sql);
+        return null;
+    }
+
+    private static LocalQueryRunner createLocalQueryRunner(TaskManagerConfig taskManagerConfig)
+    {
+        Session defaultSession = Session.builder()
+                .setUser("user")
+                .setSource("test")
+                .setCatalog("local")
+                .setSchema(TINY_SCHEMA_NAME)
+                .setTimeZoneKey(UTC_KEY)
+                .setLocale(ENGLISH)
+                .build();
+
+        LocalQueryRunner localQueryRunner = new LocalQueryRunner(defaultSession, taskManagerConfig);
+        localQueryRunner.createCatalog(
+                defaultSession.getCatalog(),
+                new TpchConnectorFactory(localQueryRunner.getNodeManager(), 1),
+                ImmutableMap.<String, String>of());
+        return localQueryRunner;
+    }
+}
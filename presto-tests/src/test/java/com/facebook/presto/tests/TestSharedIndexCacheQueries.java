@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.tests;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.execution.TaskManagerConfig;
+import com.facebook.presto.operator.index.IndexJoinLookupStats;
+import com.facebook.presto.testing.LocalQueryRunner;
+import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.tests.tpch.IndexedTpchConnectorFactory;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableMultiset;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
+import static com.facebook.presto.tests.AbstractTestIndexedQueries.INDEX_SPEC;
+import static com.facebook.presto.tpch.TpchMetadata.TINY_SCHEMA_NAME;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Locale.ENGLISH;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSharedIndexCacheQueries
+{
+    private static final String INDEX_JOIN_QUERY = "" +
+            "SELECT *\n" +
+            "FROM (\n" +
+            "  SELECT *\n" +
+            "  FROM lineitem\n" +
+            "  WHERE partkey % 8 = 0) l\n" +
+            "JOIN orders o\n" +
+            "  ON l.orderkey = o.orderkey";
+
+    private LocalQueryRunner queryRunner;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        Session defaultSession = Session.builder()
+                .setUser("user")
+                .setSource("test")
+                .setCatalog("local")
+                .setSchema(TINY_SCHEMA_NAME)
+                .setTimeZoneKey(UTC_KEY)
+                .setLocale(ENGLISH)
+                .build();
+
+        queryRunner = new LocalQueryRunner(defaultSession, new TaskManagerConfig().setMaxSharedIndexMemoryUsage(new DataSize(64, MEGABYTE)));
+        queryRunner.createCatalog(defaultSession.getCatalog(),
+                new IndexedTpchConnectorFactory(queryRunner.getNodeManager(), INDEX_SPEC, 1), ImmutableMap.<String, String>of());
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        queryRunner.close();
+    }
+
+    @Test
+    public void testQueriesShareLoadedKeys()
+    {
+        IndexJoinLookupStats stats = queryRunner.getIndexJoinLookupStats();
+
+        // the first query loads every key from the index
+        MaterializedResult expected = queryRunner.execute(INDEX_JOIN_QUERY);
+        long missesAfterFirstQuery = stats.getSharedIndexCacheMisses().getTotalCount();
+        long hitsAfterFirstQuery = stats.getSharedIndexCacheHits().getTotalCount();
+        assertTrue(missesAfterFirstQuery > 0, "expected the first query to load keys from the index");
+
+        // the second query plans a new index handle, which must find the rows loaded by the first query
+        MaterializedResult actual = queryRunner.execute(INDEX_JOIN_QUERY);
+        assertEquals(ImmutableMultiset.copyOf(actual.getMaterializedRows()), ImmutableMultiset.copyOf(expected.getMaterializedRows()));
+        assertEquals(stats.getSharedIndexCacheMisses().getTotalCount(), missesAfterFirstQuery);
+        assertTrue(stats.getSharedIndexCacheHits().getTotalCount() > hitsAfterFirstQuery, "expected the second query to hit the shared cache");
+    }
+}
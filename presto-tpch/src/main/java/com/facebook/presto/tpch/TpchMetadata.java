@@ -16,11 +16,13 @@ package com.facebook.presto.tpch;
 import com.facebook.presto.spi.ColumnMetadata;
 import com.facebook.presto.spi.ConnectorColumnHandle;
 import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.ConnectorStatisticsProvider;
 import com.facebook.presto.spi.ConnectorTableHandle;
 import com.facebook.presto.spi.ConnectorTableMetadata;
 import com.facebook.presto.spi.ReadOnlyConnectorMetadata;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.SchemaTablePrefix;
+import com.facebook.presto.spi.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
@@ -42,6 +44,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 public class TpchMetadata
         extends ReadOnlyConnectorMetadata
+        implements ConnectorStatisticsProvider
 {
     public static final String TINY_SCHEMA_NAME = "tiny";
     public static final double TINY_SCALE_FACTOR = 0.01;
@@ -49,6 +52,19 @@ public class TpchMetadata
     public static final String ROW_NUMBER_COLUMN_NAME = "row_number";
     private static final TpchColumnHandle ROW_NUMBER_COLUMN_HANDLE = new TpchColumnHandle(ROW_NUMBER_COLUMN_NAME, -1, BIGINT);
 
+    // row counts at scale factor 1 from the TPC-H specification; nation and region do not scale
+    private static final Map<String, Long> SCALE_FACTOR_ONE_ROW_COUNTS = ImmutableMap.<String, Long>builder()
+            .put("customer", 150_000L)
+            .put("orders", 1_500_000L)
+            .put("lineitem", 6_001_215L)
+            .put("part", 200_000L)
+            .put("partsupp", 800_000L)
+            .put("supplier", 10_000L)
+            .build();
+    private static final Map<String, Long> FIXED_ROW_COUNTS = ImmutableMap.of(
+            "nation", 25L,
+            "region", 5L);
+
     private final String connectorId;
     private final Set<String> tableNames;
 
@@ -110,6 +126,22 @@ public class TpchMetadata
         return new ConnectorTableMetadata(tableName, columns.build());
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorTableHandle tableHandle)
+    {
+        TpchTableHandle tpchTableHandle = checkType(tableHandle, TpchTableHandle.class, "tableHandle");
+
+        String tableName = tpchTableHandle.getTableName();
+        if (FIXED_ROW_COUNTS.containsKey(tableName)) {
+            return new TableStatistics(FIXED_ROW_COUNTS.get(tableName), -1);
+        }
+        Long rowCount = SCALE_FACTOR_ONE_ROW_COUNTS.get(tableName);
+        if (rowCount == null) {
+            return TableStatistics.unknown();
+        }
+        return new TableStatistics((long) (rowCount * tpchTableHandle.getScaleFactor()), -1);
+    }
+
     @Override
     public Map<String, ConnectorColumnHandle> getColumnHandles(ConnectorTableHandle tableHandle)
     {